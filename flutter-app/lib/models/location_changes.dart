@@ -0,0 +1,45 @@
+import 'location_data.dart';
+
+/// 差分同期APIの応答
+///
+/// [cursor] 以前の変更を反映済みであることを表し、次回の取得に指定する
+class LocationChanges {
+  /// 次回の取得に指定するカーソル
+  final String cursor;
+
+  /// true の場合は差分ではなく最新の位置情報のため、手元の状態を置き換える
+  final bool reset;
+
+  /// 追加された位置情報
+  final List<LocationData> inserted;
+
+  /// 削除された位置情報のID
+  final List<int> deletedIds;
+
+  /// 続きの変更があるかどうか
+  final bool hasMore;
+
+  const LocationChanges({
+    required this.cursor,
+    required this.reset,
+    required this.inserted,
+    required this.deletedIds,
+    required this.hasMore,
+  });
+
+  /// REST APIから取得したJSONを解析してLocationChangesを生成する
+  factory LocationChanges.fromApiJson(Map<String, dynamic> json) {
+    return LocationChanges(
+      cursor: (json['cursor'] ?? '').toString(),
+      reset: json['reset'] == true,
+      inserted: ((json['inserted'] as List<dynamic>?) ?? const [])
+          .cast<Map<String, dynamic>>()
+          .map(LocationData.fromApiJson)
+          .toList(),
+      deletedIds: ((json['deletedIds'] as List<dynamic>?) ?? const [])
+          .map((id) => (id as num).toInt())
+          .toList(),
+      hasMore: json['hasMore'] == true,
+    );
+  }
+}
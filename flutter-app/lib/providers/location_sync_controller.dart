@@ -65,6 +65,12 @@ class LocationSyncController extends ChangeNotifier {
   LocationData? _lastSentLocation;
   Map<String, dynamic>? _latestStats;
   List<LocationData> _recentServerLocations = const [];
+
+  /// 差分同期のカーソル（最新データに反映済みの位置）
+  String? _changesCursor;
+
+  /// 表示する最新データの件数
+  static const int _recentLimit = 50;
   List<BleDeviceSummary> _devices = const [];
   final List<SendHistoryEntry> _history = [];
   final Map<String, int?> _latestRssiCache = {};
@@ -245,7 +251,7 @@ class LocationSyncController extends ChangeNotifier {
   Future<void> refreshServerData() async {
     try {
       final stats = await _apiService.fetchStats();
-      final recent = await _apiService.fetchRecentLocations();
+      final recent = await _syncRecentLocations();
       _latestStats = stats;
       _recentServerLocations = recent;
       notifyListeners();
@@ -255,6 +261,39 @@ class LocationSyncController extends ChangeNotifier {
     }
   }
 
+  /// 前回のカーソル以降の差分を取得して最新データに反映する
+  ///
+  /// サーバーが置き換えを指示した場合は、返された最新データをそのまま使用する
+  Future<List<LocationData>> _syncRecentLocations() async {
+    final byId = <int, LocationData>{
+      for (final location in _recentServerLocations)
+        if (location.id != null) location.id!: location,
+    };
+    var cursor = _changesCursor;
+    while (true) {
+      final changes = await _apiService.fetchLocationChanges(since: cursor);
+      if (changes.reset) {
+        byId.clear();
+      }
+      changes.deletedIds.forEach(byId.remove);
+      for (final location in changes.inserted) {
+        if (location.id != null) {
+          byId[location.id!] = location;
+        }
+      }
+      cursor = changes.cursor;
+      if (!changes.hasMore) {
+        break;
+      }
+    }
+    _changesCursor = cursor;
+    final merged = byId.values.toList()
+      ..sort((a, b) => b.timestamp.compareTo(a.timestamp));
+    return merged.length > _recentLimit
+        ? merged.sublist(0, _recentLimit)
+        : merged;
+  }
+
   /// ステータスと履歴をクリアする
   void clearLogs() {
     _history.clear();
@@ -3,6 +3,7 @@ import 'dart:convert';
 import 'package:http/http.dart' as http;
 
 import '../config/app_config.dart';
+import '../models/location_changes.dart';
 import '../models/location_data.dart';
 
 /// Spring Bootサーバーと通信するサービス
@@ -23,6 +24,9 @@ class LocationApiService {
   static const Duration _timeout =
       Duration(seconds: AppConfig.httpTimeoutSeconds);
 
+  /// URLごとに前回の応答とETagを保持し、条件付きGETで再利用する
+  final Map<Uri, _ValidatedResponse> _validated = {};
+
   /// 位置情報をサーバーへ送信し、保存結果を返す
   Future<LocationData> postLocation(LocationData data) async {
     final uri = Uri.parse('$_baseUrl/api/locations');
@@ -50,7 +54,7 @@ class LocationApiService {
   /// 最新50件の位置情報を取得
   Future<List<LocationData>> fetchRecentLocations() async {
     final uri = Uri.parse('$_baseUrl/api/locations/recent');
-    final response = await _client.get(uri).timeout(_timeout);
+    final response = await _getWithValidator(uri);
 
     if (response.statusCode == 200) {
       final List<dynamic> jsonList = jsonDecode(response.body) as List<dynamic>;
@@ -66,10 +70,37 @@ class LocationApiService {
     );
   }
 
+  /// カーソル以降に追加・削除された位置情報を取得
+  ///
+  /// [since] を省略すると最新の位置情報とカーソルを返す
+  Future<LocationChanges> fetchLocationChanges({
+    String? since,
+    int limit = 500,
+  }) async {
+    final uri = Uri.parse('$_baseUrl/api/locations/changes').replace(
+      queryParameters: {
+        if (since != null) 'since': since,
+        'limit': '$limit',
+      },
+    );
+    final response = await _client.get(uri).timeout(_timeout);
+
+    if (response.statusCode == 200) {
+      return LocationChanges.fromApiJson(
+        jsonDecode(response.body) as Map<String, dynamic>,
+      );
+    }
+    throw LocationApiException(
+      statusCode: response.statusCode,
+      message: '位置情報の差分の取得に失敗しました',
+      body: response.body,
+    );
+  }
+
   /// 統計情報を取得（デバイス数・登録件数など）
   Future<Map<String, dynamic>> fetchStats() async {
     final uri = Uri.parse('$_baseUrl/api/stats');
-    final response = await _client.get(uri).timeout(_timeout);
+    final response = await _getWithValidator(uri);
 
     if (response.statusCode == 200) {
       return jsonDecode(response.body) as Map<String, dynamic>;
@@ -84,7 +115,7 @@ class LocationApiService {
   /// すべての位置情報を取得
   Future<List<LocationData>> fetchAllLocations() async {
     final uri = Uri.parse('$_baseUrl/api/locations');
-    final response = await _client.get(uri).timeout(_timeout);
+    final response = await _getWithValidator(uri);
 
     if (response.statusCode == 200) {
       final List<dynamic> jsonList = jsonDecode(response.body) as List<dynamic>;
@@ -100,12 +131,57 @@ class LocationApiService {
     );
   }
 
+  /// 前回のETagを If-None-Match で送信してGETする
+  ///
+  /// サーバーが304を返した場合は前回の応答を200として返す
+  Future<http.Response> _getWithValidator(Uri uri) async {
+    final previous = _validated[uri];
+    final response = await _client
+        .get(
+          uri,
+          headers: previous == null ? null : {'If-None-Match': previous.etag},
+        )
+        .timeout(_timeout);
+
+    if (response.statusCode == 304 && previous != null) {
+      return http.Response.bytes(
+        previous.bodyBytes,
+        200,
+        headers: previous.headers,
+      );
+    }
+    final etag = response.headers['etag'];
+    if (response.statusCode == 200 && etag != null) {
+      _validated[uri] = _ValidatedResponse(
+        etag: etag,
+        bodyBytes: response.bodyBytes,
+        headers: response.headers,
+      );
+    } else {
+      _validated.remove(uri);
+    }
+    return response;
+  }
+
   /// 明示的に破棄したい場合に利用する
   void dispose() {
     _client.close();
   }
 }
 
+/// ETagとともに保持する前回の応答
+class _ValidatedResponse {
+  const _ValidatedResponse({
+    required this.etag,
+    required this.bodyBytes,
+    required this.headers,
+  });
+
+  final String etag;
+  final List<int> bodyBytes;
+  final Map<String, String> headers;
+}
+
 /// API呼び出し失敗時の例外
 class LocationApiException implements Exception {
   LocationApiException({
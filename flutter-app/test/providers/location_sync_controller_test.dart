@@ -4,6 +4,7 @@ import 'dart:convert';
 import 'package:flutter_test/flutter_test.dart';
 import 'package:http/http.dart' as http;
 
+import 'package:iot_ble_flutter_app/models/location_changes.dart';
 import 'package:iot_ble_flutter_app/models/location_data.dart';
 import 'package:iot_ble_flutter_app/providers/location_sync_controller.dart';
 import 'package:iot_ble_flutter_app/services/ble/ble_adapter.dart';
@@ -83,9 +84,49 @@ void main() {
       expect(controller.history.first.success, isFalse);
       expect(controller.history.first.errorMessage, contains('失敗'));
     });
+
+    test('正常系: 2回目以降は差分を取得して最新データに反映する', () async {
+      api.stats = {'totalLocations': 2, 'deviceCount': 1};
+      api.recent = [_location(1, 0), _location(2, 1)];
+      await controller.refreshServerData();
+
+      api.changes.addAll([
+        LocationChanges(
+          cursor: 'c2',
+          reset: false,
+          inserted: [_location(3, 2)],
+          deletedIds: const [1],
+          hasMore: true,
+        ),
+        LocationChanges(
+          cursor: 'c3',
+          reset: false,
+          inserted: [_location(4, 3)],
+          deletedIds: const [],
+          hasMore: false,
+        ),
+      ]);
+      await controller.refreshServerData();
+
+      expect(api.sentCursors, [null, 'c1', 'c2']);
+      expect(
+        controller.recentServerLocations.map((location) => location.id),
+        [4, 3, 2],
+      );
+    });
   });
 }
 
+LocationData _location(int id, int minutes) {
+  return LocationData(
+    id: id,
+    deviceId: 'DEV',
+    latitude: 35,
+    longitude: 139,
+    timestamp: DateTime.utc(2025).add(Duration(minutes: minutes)),
+  );
+}
+
 Future<void> _waitFor(bool Function() condition) async {
   final limit = DateTime.now().add(const Duration(seconds: 1));
   while (!condition()) {
@@ -122,6 +163,28 @@ class FakeLocationApiService extends LocationApiService {
     return recent;
   }
 
+  /// 設定した差分を順に返し、なくなれば最新データで置き換えを指示する
+  final List<LocationChanges> changes = [];
+  final List<String?> sentCursors = [];
+
+  @override
+  Future<LocationChanges> fetchLocationChanges({
+    String? since,
+    int limit = 500,
+  }) async {
+    sentCursors.add(since);
+    if (changes.isNotEmpty) {
+      return changes.removeAt(0);
+    }
+    return LocationChanges(
+      cursor: 'c${sentCursors.length}',
+      reset: true,
+      inserted: recent,
+      deletedIds: const [],
+      hasMore: false,
+    );
+  }
+
   @override
   Future<Map<String, dynamic>> fetchStats() async {
     if (stats == null) {
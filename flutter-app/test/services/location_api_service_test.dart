@@ -79,6 +79,81 @@ void main() {
       expect(list, isEmpty);
     });
 
+    test('正常系: 2回目の取得でETagを送信し304なら前回の結果を返す', () async {
+      final sentValidators = <String?>[];
+      final client = _FakeClient((request) async {
+        sentValidators.add(request.headers['If-None-Match']);
+        if (request.headers['If-None-Match'] == '"v1-gzip"') {
+          return http.Response('', 304, headers: {'etag': '"v1-gzip"'});
+        }
+        return http.Response(
+          jsonEncode([
+            {
+              'id': 1,
+              'deviceId': 'ESP',
+              'latitude': 10.0,
+              'longitude': 20.0,
+              'timestamp': '2025-01-01T00:00:00Z',
+            },
+          ]),
+          200,
+          headers: {
+            'content-type': 'application/json',
+            'etag': '"v1-gzip"',
+          },
+        );
+      });
+      final service = LocationApiService(
+        httpClient: client,
+        baseUrl: 'http://localhost',
+      );
+
+      final first = await service.fetchRecentLocations();
+      final second = await service.fetchRecentLocations();
+
+      expect(sentValidators, [null, '"v1-gzip"']);
+      expect(second.length, 1);
+      expect(second.first.deviceId, first.first.deviceId);
+    });
+
+    test('正常系: fetchLocationChangesがカーソルを送信して差分を返す', () async {
+      final client = _FakeClient((request) async {
+        expect(request.url.path, '/api/locations/changes');
+        expect(request.url.queryParameters['since'], 'abc.5');
+        expect(request.url.queryParameters['limit'], '500');
+        return http.Response(
+          jsonEncode({
+            'cursor': 'abc.7',
+            'reset': false,
+            'inserted': [
+              {
+                'id': 3,
+                'deviceId': 'ESP',
+                'latitude': 10.0,
+                'longitude': 20.0,
+                'timestamp': '2025-01-01T00:00:00Z',
+              },
+            ],
+            'deletedIds': [1],
+            'hasMore': false,
+          }),
+          200,
+          headers: {'content-type': 'application/json'},
+        );
+      });
+      final service = LocationApiService(
+        httpClient: client,
+        baseUrl: 'http://localhost',
+      );
+
+      final changes = await service.fetchLocationChanges(since: 'abc.5');
+
+      expect(changes.cursor, 'abc.7');
+      expect(changes.reset, isFalse);
+      expect(changes.inserted.single.id, 3);
+      expect(changes.deletedIds, [1]);
+    });
+
     test('エッジケース: ネットワーク例外はFutureエラーになる', () async {
       final client = _FakeClient((request) async {
         throw http.ClientException('network down');
@@ -4,6 +4,7 @@ import 'package:flutter/material.dart';
 import 'package:flutter_test/flutter_test.dart';
 import 'package:http/http.dart' as http;
 import 'package:iot_ble_flutter_app/config/app_config.dart';
+import 'package:iot_ble_flutter_app/models/location_changes.dart';
 import 'package:iot_ble_flutter_app/models/location_data.dart';
 import 'package:iot_ble_flutter_app/providers/location_sync_controller.dart';
 import 'package:iot_ble_flutter_app/screens/home_screen.dart';
@@ -57,6 +58,20 @@ class _WidgetFakeApiService extends LocationApiService {
     return const [];
   }
 
+  @override
+  Future<LocationChanges> fetchLocationChanges({
+    String? since,
+    int limit = 500,
+  }) async {
+    return const LocationChanges(
+      cursor: 'c',
+      reset: true,
+      inserted: [],
+      deletedIds: [],
+      hasMore: false,
+    );
+  }
+
   @override
   Future<Map<String, dynamic>> fetchStats() async {
     return const {'totalLocations': 0, 'deviceCount': 0};
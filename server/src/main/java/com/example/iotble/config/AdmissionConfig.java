@@ -0,0 +1,61 @@
+package com.example.iotble.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.iotble.web.AdmissionControlFilter;
+import com.example.iotble.web.AdmissionGate;
+
+/**
+ * リクエストの受け付け制御の設定クラス
+ *
+ * 条件付きGETの後、応答の圧縮より前に実行します。
+ * 304で応答できるリクエストは処理中の数に数えず、混雑時も断りません
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+
+    /**
+     * 受け付け制御を生成
+     *
+     * @param properties 受け付け制御の設定
+     * @return 受け付け制御
+     */
+    @Bean
+    public AdmissionGate admissionGate(AdmissionProperties properties) {
+        return new AdmissionGate(AdmissionGate.Options.builder()
+                .maxConcurrent(properties.getMaxConcurrent())
+                .interactiveShare(properties.getInteractiveShare())
+                .backgroundShare(properties.getBackgroundShare())
+                .ingestMaxWaitMillis(properties.getIngestMaxWaitMillis())
+                .interactiveMaxWaitMillis(properties.getInteractiveMaxWaitMillis())
+                .backgroundMaxWaitMillis(properties.getBackgroundMaxWaitMillis())
+                .interactiveMaxQueueLatencyMillis(properties.getInteractiveMaxQueueLatencyMillis())
+                .backgroundMaxQueueLatencyMillis(properties.getBackgroundMaxQueueLatencyMillis())
+                .latencyHalfLifeMillis(properties.getLatencyHalfLifeMillis())
+                .build());
+    }
+
+    /**
+     * リクエストの受け付けを判定するフィルターを登録
+     *
+     * @param properties 受け付け制御の設定
+     * @param gate       受け付け制御
+     * @return フィルターの登録
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionProperties properties,
+            AdmissionGate gate) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(gate, properties.getIngestRules(), properties.getBackgroundRules(),
+                        properties.getExemptRules(), properties.getRetryAfterSeconds(),
+                        properties.getBackgroundRetryAfterSeconds()));
+        registration.setEnabled(properties.isEnabled());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 7);
+        return registration;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.iotble.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * リクエストの受け付け制御の設定
+ *
+ * 規則は {@code "メソッド パス"} または {@code "パス"}（Antパターン）で指定します
+ */
+@Data
+@ConfigurationProperties(prefix = "iotble.admission")
+public class AdmissionProperties {
+
+    /** 受け付け制御を行うか */
+    private boolean enabled = true;
+
+    /** 処理中のリクエスト数の上限（位置情報の登録の上限） */
+    private int maxConcurrent = 100;
+
+    /** 軽いリクエストを受け付ける処理中の数の割合 */
+    private double interactiveShare = 0.75;
+
+    /** 重いリクエストを受け付ける処理中の数の割合 */
+    private double backgroundShare = 0.25;
+
+    /** 位置情報の登録が枠の空きを待つ時間（ミリ秒） */
+    private long ingestMaxWaitMillis = 1000;
+
+    /** 軽いリクエストが枠の空きを待つ時間（ミリ秒） */
+    private long interactiveMaxWaitMillis = 100;
+
+    /** 重いリクエストが枠の空きを待つ時間（ミリ秒） */
+    private long backgroundMaxWaitMillis = 0;
+
+    /** 軽いリクエストを断るキューの待ち時間の平均（ミリ秒） */
+    private long interactiveMaxQueueLatencyMillis = 100;
+
+    /** 重いリクエストを断るキューの待ち時間の平均（ミリ秒） */
+    private long backgroundMaxQueueLatencyMillis = 20;
+
+    /** キューの待ち時間の平均が半減する時間（ミリ秒） */
+    private long latencyHalfLifeMillis = 1000;
+
+    /** 断った場合の再試行までの最短の秒数 */
+    private long retryAfterSeconds = 1;
+
+    /** 重いリクエストを断った場合の再試行までの最短の秒数 */
+    private long backgroundRetryAfterSeconds = 5;
+
+    /** 位置情報の登録として扱う規則 */
+    private List<String> ingestRules = new ArrayList<>(List.of("POST /api/locations"));
+
+    /** 重いリクエストとして扱う規則 */
+    private List<String> backgroundRules = new ArrayList<>(List.of(
+            "GET /", "GET /api/locations", "GET /api/locations/range", "GET /api/locations/device/*/range",
+            "GET /api/stats", "GET /api/contacts", "GET /api/snapshot/frames", "/api/exports/**",
+            "POST /api/imports/**", "DELETE /api/locations", "POST /api/shards/rebalance"));
+
+    /** 受け付け制御の対象外とする規則 */
+    private List<String> exemptRules = new ArrayList<>(List.of(
+            "/api/admission", "/favicon.ico", "/h2-console/**", "/error"));
+}
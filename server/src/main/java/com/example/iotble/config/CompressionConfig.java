@@ -0,0 +1,86 @@
+package com.example.iotble.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.iotble.service.LocationVersionTracker;
+import com.example.iotble.web.CompressedResponseCache;
+import com.example.iotble.web.PathVersionResolver;
+import com.example.iotble.web.RequestDecompressionFilter;
+import com.example.iotble.web.ResponseCompressionFilter;
+
+/**
+ * HTTPの圧縮の設定クラス
+ *
+ * 応答の圧縮と圧縮済み応答のキャッシュ、圧縮されたリクエストボディの展開を行うフィルターを登録します
+ */
+@Configuration
+@EnableConfigurationProperties(CompressionProperties.class)
+public class CompressionConfig {
+
+    /**
+     * 圧縮済み応答のキャッシュを生成
+     *
+     * @param properties 圧縮の設定
+     * @return キャッシュ
+     */
+    @Bean
+    public CompressedResponseCache compressedResponseCache(CompressionProperties properties) {
+        return new CompressedResponseCache(properties.getCacheEntries(), properties.getCacheTtlMillis());
+    }
+
+    /**
+     * 応答を圧縮するフィルターを登録
+     *
+     * @param properties     圧縮の設定
+     * @param cache          圧縮済み応答のキャッシュ
+     * @param versionTracker 位置情報のバージョン
+     * @return フィルターの登録
+     */
+    @Bean
+    public FilterRegistrationBean<ResponseCompressionFilter> responseCompressionFilter(
+            CompressionProperties properties, CompressedResponseCache cache, LocationVersionTracker versionTracker) {
+        ResponseCompressionFilter filter = new ResponseCompressionFilter(properties.getPaths(),
+                properties.getCachedPaths(), properties.getMinResponseSize(), cache,
+                new PathVersionResolver(versionTracker));
+        FilterRegistrationBean<ResponseCompressionFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(properties.isEnabled());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    /**
+     * 圧縮されたリクエストボディを展開するフィルターを登録
+     *
+     * @param properties 圧縮の設定
+     * @return フィルターの登録
+     */
+    @Bean
+    public FilterRegistrationBean<RequestDecompressionFilter> requestDecompressionFilter(
+            CompressionProperties properties) {
+        FilterRegistrationBean<RequestDecompressionFilter> registration = new FilterRegistrationBean<>(
+                new RequestDecompressionFilter(properties.getMaxInflatedRequestBytes()));
+        registration.setUrlPatterns(properties.getRequestPaths());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+
+    /**
+     * 圧縮されたインポートファイルを読み出しながら展開するフィルターを登録
+     *
+     * @param properties 圧縮の設定
+     * @return フィルターの登録
+     */
+    @Bean
+    public FilterRegistrationBean<RequestDecompressionFilter> streamingRequestDecompressionFilter(
+            CompressionProperties properties) {
+        FilterRegistrationBean<RequestDecompressionFilter> registration = new FilterRegistrationBean<>(
+                new RequestDecompressionFilter(0));
+        registration.setUrlPatterns(properties.getStreamingRequestPaths());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
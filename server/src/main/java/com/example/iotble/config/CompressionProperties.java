@@ -0,0 +1,44 @@
+package com.example.iotble.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * HTTPの圧縮設定
+ */
+@Data
+@ConfigurationProperties(prefix = "iotble.compression")
+public class CompressionProperties {
+
+    /** 応答を圧縮するか */
+    private boolean enabled = true;
+
+    /** 応答を圧縮するパス（Antパターン） */
+    private List<String> paths = new ArrayList<>(List.of("/", "/api/locations/**", "/api/devices/**", "/api/stats"));
+
+    /** 圧縮済みの応答をキャッシュするパス（Antパターン） */
+    private List<String> cachedPaths = new ArrayList<>(List.of(
+            "/api/locations", "/api/locations/recent", "/api/locations/device/**"));
+
+    /** この大きさ未満の応答は圧縮しない（バイト） */
+    private int minResponseSize = 1024;
+
+    /** キャッシュする応答の最大件数 */
+    private int cacheEntries = 256;
+
+    /** キャッシュした応答の有効期間（ミリ秒） */
+    private long cacheTtlMillis = 10000;
+
+    /** 圧縮されたリクエストを受け付けるパス（Antパターン） */
+    private List<String> requestPaths = new ArrayList<>(List.of("/api/locations"));
+
+    /** 展開後のリクエストボディの上限（バイト） */
+    private long maxInflatedRequestBytes = 1024 * 1024;
+
+    /** 圧縮されたファイルを受け付けるインポートのパス（展開後の上限なし、読み出しながら展開） */
+    private List<String> streamingRequestPaths = new ArrayList<>(List.of("/api/imports"));
+}
@@ -0,0 +1,42 @@
+package com.example.iotble.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.iotble.service.LocationVersionTracker;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.web.ConditionalGetFilter;
+import com.example.iotble.web.PathVersionResolver;
+
+/**
+ * 条件付きGETの設定クラス
+ *
+ * 応答の圧縮より前に実行し、304で応答する場合は圧縮やキャッシュの処理も行わせません
+ */
+@Configuration
+public class ConditionalRequestConfig {
+
+    /**
+     * ETagを付与して条件付きGETに応答するフィルターを登録
+     *
+     * @param paths          ETagを付与するパス（Antパターン）
+     * @param versionTracker 位置情報のバージョン
+     * @param shardTemplate  シャードのテンプレート
+     * @return フィルターの登録
+     */
+    @Bean
+    public FilterRegistrationBean<ConditionalGetFilter> conditionalGetFilter(
+            @Value("${iotble.etag.paths:/api/locations,/api/locations/recent,/api/locations/device/*,"
+                    + "/api/locations/device/*/latest,/api/locations/device/*/range,/api/stats}") List<String> paths,
+            LocationVersionTracker versionTracker, ShardTemplate shardTemplate) {
+        FilterRegistrationBean<ConditionalGetFilter> registration = new FilterRegistrationBean<>(
+                new ConditionalGetFilter(paths, new PathVersionResolver(versionTracker), shardTemplate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.iotble.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.iotble.ingest.BinaryIngestServer;
+import com.example.iotble.ingest.LocationFrameHandler;
+import com.example.iotble.service.LocationService;
+
+import jakarta.validation.Validator;
+
+/**
+ * ゲートウェイ向けバイナリ受信の設定クラス
+ *
+ * {@code iotble.ingest.enabled=true} の場合だけ、アプリケーションの起動と停止に合わせてTCP/UDPの受信を開始・停止します
+ */
+@Configuration
+@EnableConfigurationProperties(IngestProperties.class)
+@ConditionalOnProperty(prefix = "iotble.ingest", name = "enabled", havingValue = "true")
+public class IngestConfig {
+
+    /**
+     * バイナリ受信サーバーを生成
+     *
+     * @param properties      バイナリ受信の設定
+     * @param locationService 位置情報サービス
+     * @param validator       位置情報の検証処理
+     * @return バイナリ受信サーバー
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public BinaryIngestServer binaryIngestServer(IngestProperties properties, LocationService locationService,
+            Validator validator) {
+        return new BinaryIngestServer(BinaryIngestServer.Options.builder()
+                .host(properties.getHost())
+                .tcpPort(properties.getTcpPort())
+                .udpPort(properties.getUdpPort())
+                .maxFrameBytes(properties.getMaxFrameBytes())
+                .maxInFlightFrames(properties.getMaxInFlightFrames())
+                .workerThreads(properties.getWorkerThreads())
+                .workerQueueCapacity(properties.getWorkerQueueCapacity())
+                .bufferBytes(properties.getBufferBytes())
+                .pooledBuffers(properties.getPooledBuffers())
+                .build(), new LocationFrameHandler(locationService, validator));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.iotble.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.iotble.core.IngestStage;
+import com.example.iotble.core.LocationIngestor;
+import com.example.iotble.core.LocationStore;
+
+/**
+ * 位置情報の取り込み処理の設定クラス
+ *
+ * Spring に依存しない取り込み処理（{@code com.example.iotble.core}）に、データベースの保存先と
+ * Bean として登録した保存前の処理（{@code @Order} の順）を渡します
+ */
+@Configuration
+public class IngestCoreConfig {
+
+    /**
+     * 位置情報の取り込み処理を生成
+     *
+     * @param store           位置情報の保存先
+     * @param stages          保存前の処理
+     * @param duplicateWindow 重複を判定するデバイスごとの直近の件数
+     * @return 取り込み処理
+     */
+    @Bean
+    public LocationIngestor locationIngestor(LocationStore store, ObjectProvider<IngestStage> stages,
+            @Value("${iotble.dedup.window:0}") int duplicateWindow) {
+        return new LocationIngestor(store, stages.orderedStream().toList(), duplicateWindow);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.iotble.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * ゲートウェイ向けバイナリ受信の設定
+ *
+ * 有効にすると、Webサーバーとは別のポートで長さ付きのバイナリフレームを受信します
+ */
+@Data
+@ConfigurationProperties(prefix = "iotble.ingest")
+public class IngestProperties {
+
+    /** バイナリ受信を有効にするか */
+    private boolean enabled = false;
+
+    /** 接続を待ち受けるアドレス */
+    private String host = "0.0.0.0";
+
+    /** TCPのポート（負の値でTCPを使用しない） */
+    private int tcpPort = 9100;
+
+    /** UDPのポート（負の値でUDPを使用しない） */
+    private int udpPort = 9101;
+
+    /** ペイロードの最大バイト数 */
+    private int maxFrameBytes = 512;
+
+    /** TCP接続ごとにACKを返していないフレームの上限（超えると読み出しを止める） */
+    private int maxInFlightFrames = 256;
+
+    /** 検証・保存を行うスレッド数 */
+    private int workerThreads = 4;
+
+    /** ワーカーのキューの上限（超えたUDPのフレームには混雑を返す） */
+    private int workerQueueCapacity = 1024;
+
+    /** 接続ごとの受信・送信バッファの大きさ（バイト） */
+    private int bufferBytes = 16384;
+
+    /** プールに保持するバッファの最大数 */
+    private int pooledBuffers = 64;
+}
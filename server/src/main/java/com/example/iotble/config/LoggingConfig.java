@@ -0,0 +1,31 @@
+package com.example.iotble.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.iotble.util.DeviceLogSampler;
+
+/**
+ * ログ出力の設定クラス
+ *
+ * 位置情報の保存のログは、デバイスごとに一定時間に1回に間引いて出力します（間隔が0の場合は毎回出力）。
+ * 本番向けの非同期出力は {@code logback-spring.xml} の {@code production} プロファイルで設定します
+ */
+@Configuration
+public class LoggingConfig {
+
+    /**
+     * 位置情報の保存のログの間引きを生成
+     *
+     * @param intervalMillis デバイスごとにログを出力する間隔（ミリ秒、0で間引かない）
+     * @param maxDevices     状態を保持するデバイス数の上限
+     * @return ログの間引き
+     */
+    @Bean
+    public DeviceLogSampler ingestLogSampler(
+            @Value("${iotble.logging.ingest-sample-interval-ms:0}") long intervalMillis,
+            @Value("${iotble.logging.ingest-sample-max-devices:100000}") int maxDevices) {
+        return new DeviceLogSampler(intervalMillis, maxDevices);
+    }
+}
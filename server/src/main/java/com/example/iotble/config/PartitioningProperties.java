@@ -0,0 +1,56 @@
+package com.example.iotble.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * サイトごとのデータベースの分割の設定
+ *
+ * サイトを設定しない場合は {@code spring.datasource} の1つのデータベースを既定のサイトとして使用します。
+ * シャーディング（{@code iotble.sharding.shards}）とは同時に設定できません
+ */
+@Data
+@ConfigurationProperties(prefix = "iotble.partitioning")
+public class PartitioningProperties {
+
+    /** サイトの一覧（先頭が既定のサイト） */
+    private List<Site> sites = new ArrayList<>();
+
+    /** サイトごとの取り込み量の上限を適用する規則 */
+    private List<String> ingestRules = new ArrayList<>(List.of("POST /api/locations"));
+
+    /** 取り込み量の上限を超えて断った場合の再試行までの最短の秒数 */
+    private long retryAfterSeconds = 1;
+
+    /**
+     * サイトの設定
+     */
+    @Data
+    public static class Site {
+
+        /** サイトID（英数字・ハイフン・アンダースコア） */
+        private String id;
+
+        /** JDBC URL（サイトごとに別のデータベースまたはスキーマ） */
+        private String url;
+
+        /** ユーザー名 */
+        private String username;
+
+        /** パスワード */
+        private String password;
+
+        /** 接続プールの最大接続数 */
+        private int maxPoolSize = 10;
+
+        /** 1秒あたりに取り込む位置情報の件数の上限（0の場合は無制限） */
+        private double ingestPointsPerSecond = 0;
+
+        /** 一時的に超えてよい件数（0の場合は1秒分） */
+        private double ingestBurst = 0;
+    }
+}
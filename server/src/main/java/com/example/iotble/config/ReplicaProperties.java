@@ -0,0 +1,37 @@
+package com.example.iotble.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 読み取りレプリカの設定
+ *
+ * シャードを設定しない場合は {@code url} などで {@code spring.datasource} のレプリカを、
+ * シャードを設定する場合は各シャードの {@code replica-url} などでシャードごとのレプリカを指定します
+ */
+@Data
+@ConfigurationProperties(prefix = "iotble.replica")
+public class ReplicaProperties {
+
+    /** 読み取り専用の処理をレプリカで実行するか */
+    private boolean enabled = false;
+
+    /** シャードを設定しない場合のレプリカのJDBC URL */
+    private String url;
+
+    /** シャードを設定しない場合のレプリカのユーザー名 */
+    private String username;
+
+    /** シャードを設定しない場合のレプリカのパスワード */
+    private String password;
+
+    /** 書き込み後にデバイスの読み出しをプライマリに固定する時間（ミリ秒、0で固定しない） */
+    private long readYourWritesMillis = 5000;
+
+    /** レプリカから読み出す遅延の上限（ミリ秒、ハートビートの間隔を含む） */
+    private long maxLagMillis = 5000;
+
+    /** ハートビートによる遅延測定の間隔（ミリ秒） */
+    private long heartbeatIntervalMs = 1000;
+}
@@ -0,0 +1,14 @@
+package com.example.iotble.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定期実行の設定クラス
+ * 
+ * 集計の書き込みと保持期間による生データの削除を定期的に実行します
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
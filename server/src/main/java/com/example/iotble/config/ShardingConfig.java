@@ -0,0 +1,155 @@
+package com.example.iotble.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.example.iotble.shard.ReplicaRoutingDataSource;
+import com.example.iotble.shard.ReplicaSelector;
+import com.example.iotble.shard.ShardRouter;
+import com.example.iotble.shard.ShardRoutingDataSource;
+import com.example.iotble.shard.ShardSchemaInitializer;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteRoutingDataSource;
+import com.example.iotble.site.SiteTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * シャーディングの設定クラス
+ * 
+ * JPAやJDBCリポジトリが使用するデータソースを、スレッドごとに指定されたシャードへ
+ * 振り分けるデータソースに置き換えます。レプリカを有効にした場合、読み取り専用トランザクションの
+ * 接続はシャードのレプリカに振り分けます
+ */
+@Configuration
+@EnableConfigurationProperties({ ShardingProperties.class, ReplicaProperties.class })
+public class ShardingConfig {
+
+    /**
+     * シャードの定義とデータソースを生成
+     * 
+     * サイトごとにデータベースを分けた場合、シャードは1つだけとし、その接続を現在のサイトのデータベースへ振り分けます
+     * 
+     * @param properties           シャーディングの設定
+     * @param dataSourceProperties シャードを設定しない場合に使用するデータソースの設定
+     * @param siteTemplate         サイトのテンプレート
+     * @return シャードのテンプレート
+     */
+    @Bean
+    public ShardTemplate shardTemplate(ShardingProperties properties, DataSourceProperties dataSourceProperties,
+            SiteTemplate siteTemplate) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        if (siteTemplate.isPartitioned()) {
+            if (!properties.getShards().isEmpty()) {
+                throw new IllegalStateException("サイトごとのデータベースとシャーディングは同時に設定できません");
+            }
+            SiteRoutingDataSource routing = new SiteRoutingDataSource(siteTemplate);
+            routing.afterPropertiesSet();
+            dataSources.put(ShardTemplate.DEFAULT_SHARD, routing);
+        } else if (properties.getShards().isEmpty()) {
+            dataSources.put(ShardTemplate.DEFAULT_SHARD, dataSourceProperties.initializeDataSourceBuilder().build());
+        } else {
+            for (ShardingProperties.Shard shard : properties.getShards()) {
+                dataSources.put(shard.getName(), DataSourceBuilder.create()
+                        .url(shard.getUrl())
+                        .username(shard.getUsername())
+                        .password(shard.getPassword())
+                        .build());
+            }
+        }
+        return new ShardTemplate(new ShardRouter(dataSources.keySet(), properties.getVirtualNodes()), dataSources);
+    }
+
+    /**
+     * レプリカの判定処理を生成
+     * 
+     * @param shardTemplate      シャードのテンプレート
+     * @param shardingProperties シャーディングの設定
+     * @param replicaProperties  レプリカの設定
+     * @param siteTemplate       サイトのテンプレート
+     * @return レプリカの判定処理（レプリカが無効な場合は常にプライマリを選択）
+     */
+    @Bean
+    public ReplicaSelector replicaSelector(ShardTemplate shardTemplate, ShardingProperties shardingProperties,
+            ReplicaProperties replicaProperties, SiteTemplate siteTemplate) {
+        if (!replicaProperties.isEnabled()) {
+            return ReplicaSelector.none(shardTemplate);
+        }
+        if (siteTemplate.isPartitioned()) {
+            throw new IllegalStateException("サイトごとのデータベースとレプリカは同時に設定できません");
+        }
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        if (shardingProperties.getShards().isEmpty()) {
+            if (replicaProperties.getUrl() != null) {
+                replicas.put(ShardTemplate.DEFAULT_SHARD, DataSourceBuilder.create()
+                        .url(replicaProperties.getUrl())
+                        .username(replicaProperties.getUsername())
+                        .password(replicaProperties.getPassword())
+                        .build());
+            }
+        } else {
+            for (ShardingProperties.Shard shard : shardingProperties.getShards()) {
+                if (shard.getReplicaUrl() != null) {
+                    replicas.put(shard.getName(), DataSourceBuilder.create()
+                            .url(shard.getReplicaUrl())
+                            .username(shard.getReplicaUsername())
+                            .password(shard.getReplicaPassword())
+                            .build());
+                }
+            }
+        }
+        return new ReplicaSelector(shardTemplate, replicas,
+                Duration.ofMillis(replicaProperties.getReadYourWritesMillis()),
+                Duration.ofMillis(replicaProperties.getMaxLagMillis()));
+    }
+
+    /**
+     * シャードへ振り分けるデータソースを生成
+     * 
+     * 接続の取得を最初のSQL実行まで遅らせ、トランザクション開始後に指定したシャードに接続させます。
+     * 読み取り専用トランザクションの接続はレプリカの判定処理に従ってレプリカまたはプライマリに接続させます
+     * 
+     * @param shardTemplate   シャードのテンプレート
+     * @param replicaSelector レプリカの判定処理
+     * @return データソース
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardTemplate shardTemplate, ReplicaSelector replicaSelector) {
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shardTemplate);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        if (replicaSelector.hasReplicas()) {
+            ReplicaRoutingDataSource readOnly = new ReplicaRoutingDataSource(shardTemplate, replicaSelector);
+            readOnly.afterPropertiesSet();
+            dataSource.setReadOnlyDataSource(readOnly);
+        }
+        return dataSource;
+    }
+
+    /**
+     * JPAが既定のシャードにスキーマを作成した後、他のシャードにスキーマを作成
+     * 
+     * @param shardTemplate        シャードのテンプレート
+     * @param entityManagerFactory スキーマ作成後のエンティティマネージャーファクトリー
+     * @return スキーマの初期化処理
+     */
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(ShardTemplate shardTemplate,
+            EntityManagerFactory entityManagerFactory) {
+        ShardSchemaInitializer initializer = new ShardSchemaInitializer(shardTemplate);
+        initializer.initialize();
+        return initializer;
+    }
+}
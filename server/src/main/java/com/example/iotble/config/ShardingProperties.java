@@ -0,0 +1,52 @@
+package com.example.iotble.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * シャーディングの設定
+ * 
+ * シャードを設定しない場合は {@code spring.datasource} の1つのデータベースをそのまま使用します
+ */
+@Data
+@ConfigurationProperties(prefix = "iotble.sharding")
+public class ShardingProperties {
+
+    /** シャードあたりの仮想ノード数 */
+    private int virtualNodes = 128;
+
+    /** シャードの一覧（先頭が既定のシャード） */
+    private List<Shard> shards = new ArrayList<>();
+
+    /**
+     * シャードの接続設定
+     */
+    @Data
+    public static class Shard {
+
+        /** シャード名 */
+        private String name;
+
+        /** JDBC URL */
+        private String url;
+
+        /** ユーザー名 */
+        private String username;
+
+        /** パスワード */
+        private String password;
+
+        /** レプリカのJDBC URL（未設定の場合はプライマリから読み出す） */
+        private String replicaUrl;
+
+        /** レプリカのユーザー名 */
+        private String replicaUsername;
+
+        /** レプリカのパスワード */
+        private String replicaPassword;
+    }
+}
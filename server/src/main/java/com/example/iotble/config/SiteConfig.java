@@ -0,0 +1,131 @@
+package com.example.iotble.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.iotble.shard.ShardSchemaInitializer;
+import com.example.iotble.site.SiteIngestQuota;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.web.SiteFilter;
+import com.example.iotble.web.SiteIngestQuotaFilter;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * サイトごとのデータベースの分割の設定クラス
+ *
+ * サイトごとに接続プールを持つデータソースを作成し、{@link ShardingConfig} がサイトへ振り分けるデータソースを
+ * JPAやJDBCリポジトリに使わせます。リクエストのサイトは条件付きGETより前に決め、
+ * ETagもサイトごとのバージョンで計算させます
+ */
+@Configuration
+@EnableConfigurationProperties(PartitioningProperties.class)
+public class SiteConfig {
+
+    /**
+     * サイトの定義とデータソースを生成
+     *
+     * @param properties サイトの設定
+     * @return サイトのテンプレート
+     */
+    @Bean
+    public SiteTemplate siteTemplate(PartitioningProperties properties) {
+        if (properties.getSites().isEmpty()) {
+            return SiteTemplate.single();
+        }
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        for (PartitioningProperties.Site site : properties.getSites()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(site.getUrl())
+                    .username(site.getUsername())
+                    .password(site.getPassword())
+                    .build();
+            dataSource.setPoolName("site-" + site.getId());
+            dataSource.setMaximumPoolSize(site.getMaxPoolSize());
+            dataSources.put(site.getId(), dataSource);
+        }
+        return new SiteTemplate(List.copyOf(dataSources.keySet()), dataSources);
+    }
+
+    /**
+     * サイトごとの取り込み量の上限を生成
+     *
+     * @param properties サイトの設定
+     * @return 取り込み量の上限
+     */
+    @Bean
+    public SiteIngestQuota siteIngestQuota(PartitioningProperties properties) {
+        Map<String, SiteIngestQuota.Limit> limits = new LinkedHashMap<>();
+        for (PartitioningProperties.Site site : properties.getSites()) {
+            if (site.getIngestPointsPerSecond() > 0) {
+                double burst = site.getIngestBurst() > 0 ? site.getIngestBurst() : site.getIngestPointsPerSecond();
+                limits.put(site.getId(), new SiteIngestQuota.Limit(site.getIngestPointsPerSecond(), Math.max(1, burst)));
+            }
+        }
+        return new SiteIngestQuota(limits);
+    }
+
+    /**
+     * リクエストのサイトを決めるフィルターを登録
+     *
+     * @param siteTemplate サイトのテンプレート
+     * @return フィルターの登録
+     */
+    @Bean
+    public FilterRegistrationBean<SiteFilter> siteFilter(SiteTemplate siteTemplate) {
+        FilterRegistrationBean<SiteFilter> registration = new FilterRegistrationBean<>(new SiteFilter(siteTemplate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 4);
+        return registration;
+    }
+
+    /**
+     * サイトごとの取り込み量の上限を適用するフィルターを登録
+     *
+     * 混雑で断る受け付け制御（{@link AdmissionConfig}）より後に適用し、断られたリクエストには取り込み枠を使わせません
+     *
+     * @param properties   サイトの設定
+     * @param siteTemplate サイトのテンプレート
+     * @param ingestQuota  サイトごとの取り込み量の上限
+     * @return フィルターの登録
+     */
+    @Bean
+    public FilterRegistrationBean<SiteIngestQuotaFilter> siteIngestQuotaFilter(PartitioningProperties properties,
+            SiteTemplate siteTemplate, SiteIngestQuota ingestQuota) {
+        FilterRegistrationBean<SiteIngestQuotaFilter> registration = new FilterRegistrationBean<>(
+                new SiteIngestQuotaFilter(siteTemplate, ingestQuota, properties.getIngestRules(),
+                        properties.getRetryAfterSeconds()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 8);
+        return registration;
+    }
+
+    /**
+     * JPAが既定のサイトにスキーマを作成した後、他のサイトにスキーマを作成
+     *
+     * @param siteTemplate         サイトのテンプレート
+     * @param entityManagerFactory スキーマ作成後のエンティティマネージャーファクトリー
+     * @return スキーマの初期化処理
+     */
+    @Bean
+    public ShardSchemaInitializer siteSchemaInitializer(SiteTemplate siteTemplate,
+            EntityManagerFactory entityManagerFactory) {
+        Map<String, DataSource> partitions = new LinkedHashMap<>();
+        if (siteTemplate.isPartitioned()) {
+            siteTemplate.getSiteIds().forEach(site -> partitions.put(site, siteTemplate.getDataSource(site)));
+        }
+        ShardSchemaInitializer initializer = new ShardSchemaInitializer(partitions);
+        initializer.initialize();
+        return initializer;
+    }
+}
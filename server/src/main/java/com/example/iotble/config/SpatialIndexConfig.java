@@ -0,0 +1,30 @@
+package com.example.iotble.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.spatial.DevicePositionIndex;
+
+/**
+ * デバイスの現在位置の空間インデックスの設定クラス
+ *
+ * 近くのデバイスの検索とクラスターの取得で同じインデックスを共有します。
+ * インデックスはサイトごとに持ち、リクエストのサイトのデバイスだけを返します。
+ * インデックスの更新は {@link com.example.iotble.service.NearestDeviceServiceImpl} が行います
+ */
+@Configuration
+public class SpatialIndexConfig {
+
+    /**
+     * サイトごとのデバイスの現在位置の空間インデックスを生成
+     *
+     * @param siteTemplate サイトのテンプレート
+     * @return サイトごとの空間インデックス
+     */
+    @Bean
+    public SiteLocal<DevicePositionIndex> devicePositionIndexes(SiteTemplate siteTemplate) {
+        return siteTemplate.local(DevicePositionIndex::new);
+    }
+}
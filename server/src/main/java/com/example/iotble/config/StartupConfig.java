@@ -0,0 +1,51 @@
+package com.example.iotble.config;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.example.iotble.controller.LocationController;
+import com.example.iotble.core.LocationIngestor;
+import com.example.iotble.ingest.BinaryIngestServer;
+
+/**
+ * 起動の設定クラス
+ *
+ * {@code fast-start} プロファイルでは {@code spring.main.lazy-initialization} により Bean を初めて使うときに生成します。
+ * 位置情報の受信に使う Bean（依存するサービスとリポジトリを含む）は起動時に生成し、
+ * 最初の受信でHibernateの初期化などを待たせないようにします。
+ * 定期実行のメソッドを持つ Bean も、生成しないと定期実行が登録されないため起動時に生成します
+ */
+@Configuration
+public class StartupConfig {
+
+    /** 遅延初期化の対象から外す受信経路の型 */
+    private static final List<Class<?>> INGEST_TYPES = List.of(
+            LocationController.class, LocationIngestor.class, BinaryIngestServer.class);
+
+    /**
+     * 受信経路と定期実行の Bean を遅延初期化の対象から外すフィルターを生成
+     *
+     * @return 遅延初期化の除外フィルター
+     */
+    @Bean
+    static LazyInitializationExcludeFilter ingestBeansExcludeFilter() {
+        return (beanName, definition, beanType) -> beanType != null
+                && (INGEST_TYPES.stream().anyMatch(type -> type.isAssignableFrom(beanType))
+                        || hasScheduledMethods(beanType));
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        Map<Method, Boolean> scheduled = MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Boolean>) method -> AnnotatedElementUtils
+                        .hasAnnotation(method, Scheduled.class) ? Boolean.TRUE : null);
+        return !scheduled.isEmpty();
+    }
+}
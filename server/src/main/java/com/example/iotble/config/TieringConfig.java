@@ -0,0 +1,39 @@
+package com.example.iotble.config;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+
+/**
+ * 位置情報のホット・コールドの階層化の設定クラス
+ *
+ * 起動時に保存先のセグメントのフッターを読み込み、位置情報サービスの読み出しに含めます。
+ * 封印は {@link com.example.iotble.service.LocationTieringServiceImpl} が定期的に行います
+ */
+@Configuration
+@EnableConfigurationProperties(TieringProperties.class)
+public class TieringConfig {
+
+    /**
+     * サイトごとのセグメントのストアを生成
+     *
+     * @param properties   階層化の設定
+     * @param siteTemplate サイトのテンプレート
+     * @return セグメントのストア（保存先が設定されていない場合は無効）
+     */
+    @Bean
+    public SegmentStore segmentStore(TieringProperties properties, SiteTemplate siteTemplate) {
+        if (properties.getDirectory() == null || properties.getDirectory().isBlank()) {
+            if (properties.getHotDays() > 0) {
+                throw new IllegalArgumentException("iotble.tiering.directory must be set when hot-days is positive");
+            }
+            return SegmentStore.disabled(siteTemplate);
+        }
+        return new SegmentStore(Path.of(properties.getDirectory()), properties.getCompressionLevel(), siteTemplate);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.iotble.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 位置情報のホット・コールドの階層化の設定
+ *
+ * 保存先のディレクトリを設定すると、封印済みのセグメントを読み出しに含めます。
+ * 封印はホットに残す日数が1以上の場合だけ行います
+ */
+@Data
+@ConfigurationProperties(prefix = "iotble.tiering")
+public class TieringProperties {
+
+    /** セグメントの保存先ディレクトリ（サイトごとのサブディレクトリを作成、空の場合は階層化しない） */
+    private String directory = "";
+
+    /** データベースに残す日数（0以下の場合は封印しない） */
+    private int hotDays = 0;
+
+    /** 1つのセグメントにまとめる期間（時間） */
+    private int segmentHours = 24;
+
+    /** 圧縮レベル（0～9、-1の場合は既定） */
+    private int compressionLevel = 6;
+
+    /** 封印した行をデータベースから削除する1文あたりの件数 */
+    private int deleteChunkSize = 1000;
+}
@@ -0,0 +1,32 @@
+package com.example.iotble.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.web.AdmissionGate;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 受け付け制御の状態のコントローラー
+ * 
+ * API endpoints:
+ * - GET /api/admission : 処理中のリクエスト数・キューの待ち時間・優先度ごとの受け付けと拒否の件数の取得
+ */
+@RestController
+@RequiredArgsConstructor
+public class AdmissionStatsController {
+
+    private final AdmissionGate admissionGate;
+
+    /**
+     * 受け付け制御の状態を取得
+     * 
+     * @return 受け付け制御の状態
+     */
+    @GetMapping("/api/admission")
+    public ResponseEntity<AdmissionGate.Stats> getAdmissionStats() {
+        return ResponseEntity.ok(admissionGate.getStats());
+    }
+}
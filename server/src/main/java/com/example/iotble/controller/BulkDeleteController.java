@@ -0,0 +1,83 @@
+package com.example.iotble.controller;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.service.BulkDeleteJob;
+import com.example.iotble.service.LocationBulkDeleteService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の一括削除コントローラー
+ * 
+ * API endpoints:
+ * - DELETE /api/locations?deviceId=&startTime=&endTime= : 条件に一致する位置情報の一括削除
+ * - GET /api/locations/delete-jobs/{jobId} : 一括削除ジョブの進捗取得
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class BulkDeleteController {
+
+    private final LocationBulkDeleteService bulkDeleteService;
+
+    /**
+     * 条件に一致する位置情報を一括削除
+     * 
+     * 対象件数が少ない場合は削除完了後に200を、多い場合はバックグラウンドで削除を開始して
+     * 202とジョブの参照先を返します
+     * 
+     * @param deviceId  デバイスID（任意）
+     * @param startTime 開始時刻（任意）
+     * @param endTime   終了時刻（任意）
+     * @return 削除ジョブ
+     */
+    @DeleteMapping("/api/locations")
+    public ResponseEntity<?> deleteLocations(
+            @RequestParam(required = false) String deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+
+        BulkDeleteJob job;
+        try {
+            job = bulkDeleteService.deleteLocations(deviceId, startTime, endTime);
+        } catch (IllegalArgumentException e) {
+            log.warn("一括削除の条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        if (job.isFinished()) {
+            HttpStatus status = job.getStatus() == BulkDeleteJob.Status.COMPLETED
+                    ? HttpStatus.OK
+                    : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status).body(job);
+        }
+        return ResponseEntity.accepted()
+                .header("Location", "/api/locations/delete-jobs/" + job.getJobId())
+                .body(job);
+    }
+
+    /**
+     * 一括削除ジョブの進捗を取得
+     * 
+     * @param jobId ジョブID
+     * @return 削除ジョブ（見つからない場合は404）
+     */
+    @GetMapping("/api/locations/delete-jobs/{jobId}")
+    public ResponseEntity<BulkDeleteJob> getDeleteJob(@PathVariable String jobId) {
+        return bulkDeleteService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
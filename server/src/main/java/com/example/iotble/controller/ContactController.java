@@ -0,0 +1,95 @@
+package com.example.iotble.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.model.ContactEpisode;
+import com.example.iotble.service.ContactService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * デバイス同士の接近（接触）コントローラー
+ * 
+ * API endpoints:
+ * - GET /api/devices/{deviceId}/contacts?from=&to=&radiusMeters=&minDurationSeconds= : デバイスの期間内の接触の取得
+ * - GET /api/contacts?from=&to=&radiusMeters=&minDurationSeconds= : すべてのデバイスの期間内の接触の取得
+ * - GET /api/contacts/active : 受信中の位置情報で継続している接触の取得
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class ContactController {
+
+    private final ContactService contactService;
+
+    /**
+     * デバイスの期間内の接触を取得
+     * 
+     * @param deviceId           デバイスID
+     * @param from               期間の開始時刻（省略時は to の24時間前）
+     * @param to                 期間の終了時刻（省略時は現在時刻）
+     * @param radiusMeters       接近とみなす距離（省略時は設定値）
+     * @param minDurationSeconds 接触として扱う最短の秒数（省略時は設定値）
+     * @return 接触のリスト
+     */
+    @GetMapping("/api/devices/{deviceId}/contacts")
+    public ResponseEntity<?> getDeviceContacts(
+            @PathVariable String deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Double radiusMeters,
+            @RequestParam(required = false) Long minDurationSeconds) {
+        return findContacts(deviceId, from, to, radiusMeters, minDurationSeconds);
+    }
+
+    /**
+     * すべてのデバイスの期間内の接触を取得
+     * 
+     * @param from               期間の開始時刻（省略時は to の24時間前）
+     * @param to                 期間の終了時刻（省略時は現在時刻）
+     * @param radiusMeters       接近とみなす距離（省略時は設定値）
+     * @param minDurationSeconds 接触として扱う最短の秒数（省略時は設定値）
+     * @return 接触のリスト
+     */
+    @GetMapping("/api/contacts")
+    public ResponseEntity<?> getContacts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Double radiusMeters,
+            @RequestParam(required = false) Long minDurationSeconds) {
+        return findContacts(null, from, to, radiusMeters, minDurationSeconds);
+    }
+
+    /**
+     * 受信中の位置情報で継続している接触を取得
+     * 
+     * @return 接触のリスト
+     */
+    @GetMapping("/api/contacts/active")
+    public ResponseEntity<List<ContactEpisode>> getActiveContacts() {
+        return ResponseEntity.ok(contactService.getActiveContacts());
+    }
+
+    private ResponseEntity<?> findContacts(String deviceId, LocalDateTime from, LocalDateTime to,
+            Double radiusMeters, Long minDurationSeconds) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        try {
+            return ResponseEntity.ok(contactService.findContacts(deviceId, start, end, radiusMeters,
+                    minDurationSeconds));
+        } catch (IllegalArgumentException e) {
+            log.warn("接触の検出条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.iotble.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.service.DeviceClusterService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 地図表示向けのデバイスのクラスターのコントローラー
+ * 
+ * API endpoints:
+ * - GET /api/clusters?bbox=&zoom= : 地図の表示範囲内のデバイスのズームレベルに応じたクラスターの取得
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class DeviceClusterController {
+
+    private final DeviceClusterService deviceClusterService;
+
+    /**
+     * 地図の表示範囲内のデバイスのクラスターを取得
+     * 
+     * @param bbox 表示範囲（西端の経度,南端の緯度,東端の経度,北端の緯度。Leaflet の {@code toBBoxString()} の形式）
+     * @param zoom 地図のズームレベル
+     * @return クラスターの一覧
+     */
+    @GetMapping("/api/clusters")
+    public ResponseEntity<?> getClusters(@RequestParam String bbox, @RequestParam int zoom) {
+        try {
+            String[] parts = bbox.split(",");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("表示範囲は 西端,南端,東端,北端 の4つの値で指定してください: " + bbox);
+            }
+            return ResponseEntity.ok(deviceClusterService.findClusters(Double.parseDouble(parts[0].trim()),
+                    Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim()),
+                    Double.parseDouble(parts[3].trim()), zoom));
+        } catch (IllegalArgumentException e) {
+            log.warn("クラスターの取得条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.iotble.controller;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.service.ExportJob;
+import com.example.iotble.service.LocationExportService;
+import com.example.iotble.service.export.ExportFormat;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報のエクスポートコントローラー
+ * 
+ * API endpoints:
+ * - POST /api/exports?format=&deviceId=&startTime=&endTime= : エクスポートジョブの開始
+ * - GET /api/exports/{jobId} : エクスポートジョブの進捗取得
+ * - GET /api/exports/{jobId}/download : エクスポートファイルのダウンロード
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+
+    private final LocationExportService exportService;
+
+    /**
+     * エクスポートジョブを開始
+     * 
+     * @param format    出力形式（csv / columnar、省略時はcsv）
+     * @param deviceId  デバイスID（任意）
+     * @param startTime 開始時刻（任意）
+     * @param endTime   終了時刻（任意）
+     * @return 開始したエクスポートジョブ（202）
+     */
+    @PostMapping("/api/exports")
+    public ResponseEntity<?> startExport(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+
+        ExportJob job;
+        try {
+            job = exportService.startExport(ExportFormat.fromParameter(format), deviceId, startTime, endTime);
+        } catch (IllegalArgumentException e) {
+            log.warn("エクスポートの条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.accepted()
+                .header(HttpHeaders.LOCATION, "/api/exports/" + job.getJobId())
+                .body(job);
+    }
+
+    /**
+     * エクスポートジョブの進捗を取得
+     * 
+     * @param jobId ジョブID
+     * @return エクスポートジョブ（見つからない場合は404）
+     */
+    @GetMapping("/api/exports/{jobId}")
+    public ResponseEntity<ExportJob> getExportJob(@PathVariable String jobId) {
+        return exportService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * エクスポートファイルをダウンロード
+     * 
+     * ファイルはディスクから直接ストリーミングされ、Rangeリクエストにも対応します
+     * 
+     * @param jobId ジョブID
+     * @return エクスポートファイル（未完了の場合は409、見つからない場合は404）
+     */
+    @GetMapping("/api/exports/{jobId}/download")
+    public ResponseEntity<?> downloadExport(@PathVariable String jobId) {
+        ExportJob job = exportService.getJob(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != ExportJob.Status.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "エクスポートが完了していません", "status", job.getStatus()));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(job.getFileName()).build().toString())
+                .body(new FileSystemResource(job.getFile()));
+    }
+}
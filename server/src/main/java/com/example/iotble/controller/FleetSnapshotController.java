@@ -0,0 +1,66 @@
+package com.example.iotble.controller;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.model.FleetSnapshot;
+import com.example.iotble.service.FleetSnapshotService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * すべてのデバイスの過去の位置（スナップショット）のコントローラー
+ * 
+ * API endpoints:
+ * - GET /api/snapshot?at= : 指定時刻の時点でのすべてのデバイスの最新の位置の取得
+ * - GET /api/snapshot/frames?from=&to=&stepSeconds= : 期間を一定の間隔で区切った時点ごとのスナップショットの取得
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class FleetSnapshotController {
+
+    private final FleetSnapshotService fleetSnapshotService;
+
+    /**
+     * 指定時刻の時点でのすべてのデバイスの最新の位置を取得
+     * 
+     * @param at 時点
+     * @return スナップショット
+     */
+    @GetMapping("/api/snapshot")
+    public ResponseEntity<FleetSnapshot> getSnapshot(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(fleetSnapshotService.getSnapshot(at));
+    }
+
+    /**
+     * 期間を一定の間隔で区切った時点ごとのスナップショットを取得
+     * 
+     * @param from        期間の開始時刻（省略時は to の8時間前）
+     * @param to          期間の終了時刻（省略時は現在時刻）
+     * @param stepSeconds フレームの間隔（秒、既定60）
+     * @return 時点の古い順のスナップショット
+     */
+    @GetMapping("/api/snapshot/frames")
+    public ResponseEntity<?> getFrames(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "60") long stepSeconds) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(8);
+        try {
+            return ResponseEntity.ok(fleetSnapshotService.getFrames(start, end, stepSeconds));
+        } catch (IllegalArgumentException e) {
+            log.warn("スナップショットの取得条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
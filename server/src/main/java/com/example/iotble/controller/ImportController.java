@@ -0,0 +1,119 @@
+package com.example.iotble.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.service.ImportJob;
+import com.example.iotble.service.LocationImportService;
+import com.example.iotble.service.importer.ImportFormat;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の一括インポートコントローラー
+ * 
+ * API endpoints:
+ * - POST /api/imports?format=csv|ndjson : リクエストボディのファイルをインポート
+ * - GET /api/imports/{jobId} : インポートジョブの進捗と不正行のサンプルを取得
+ * - POST /api/imports/{jobId}/resume : 失敗したインポートをチェックポイントから再開
+ * - GET /api/imports/{jobId}/rejected : 不正行の一覧（NDJSON）をダウンロード
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class ImportController {
+
+    private final LocationImportService importService;
+
+    /**
+     * リクエストボディのファイルをインポート
+     * 
+     * @param format ファイル形式（csv / ndjson、省略時はcsv）
+     * @param name   取り込み元の名前（任意）
+     * @param body   ファイルの内容
+     * @return 開始したインポートジョブ（202）
+     */
+    @PostMapping("/api/imports")
+    public ResponseEntity<?> startImport(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String name,
+            InputStream body) {
+
+        ImportFormat importFormat;
+        try {
+            importFormat = ImportFormat.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        try {
+            ImportJob job = importService.startImport(importFormat, body, name);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, "/api/imports/" + job.getJobId())
+                    .body(job);
+        } catch (IOException e) {
+            log.error("インポートファイルの受信に失敗しました", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "インポートファイルの受信に失敗しました: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * インポートジョブの進捗を取得
+     * 
+     * @param jobId ジョブID
+     * @return インポートジョブ（見つからない場合は404）
+     */
+    @GetMapping("/api/imports/{jobId}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String jobId) {
+        return importService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * 失敗したインポートをチェックポイントから再開
+     * 
+     * @param jobId ジョブID
+     * @return 再開したインポートジョブ（再開できない場合は409）
+     */
+    @PostMapping("/api/imports/{jobId}/resume")
+    public ResponseEntity<?> resumeImport(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.accepted().body(importService.resumeImport(jobId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 不正行の一覧をダウンロード
+     * 
+     * @param jobId ジョブID
+     * @return 不正行の一覧（NDJSON、見つからない場合は404）
+     */
+    @GetMapping("/api/imports/{jobId}/rejected")
+    public ResponseEntity<?> downloadRejectedRows(@PathVariable String jobId) {
+        ImportJob job = importService.getJob(jobId).orElse(null);
+        if (job == null || !Files.exists(job.getRejectedFile())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(new FileSystemResource(job.getRejectedFile()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.iotble.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.service.LocationChangeService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の差分同期コントローラー
+ * 
+ * API endpoints:
+ * - GET /api/locations/changes?since=&limit= : カーソル以降に追加・削除された位置情報の取得
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class LocationChangeController {
+
+    private final LocationChangeService changeService;
+
+    /**
+     * カーソル以降に追加・削除された位置情報を取得
+     * 
+     * @param since 前回の応答のカーソル（省略時は最新の位置情報とカーソルを返す）
+     * @param limit 返す変更の最大件数（既定500）
+     * @return 変更と新しいカーソル
+     */
+    @GetMapping("/api/locations/changes")
+    public ResponseEntity<?> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+        try {
+            return ResponseEntity.ok(changeService.getChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("差分同期の条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -38,6 +39,7 @@ import lombok.extern.slf4j.Slf4j;
  * - GET /api/locations/recent : 最新50件の位置情報の取得
  * - GET /api/locations/{id} : 特定の位置情報の取得
  * - GET /api/locations/device/{deviceId} : デバイス別の位置情報取得
+ * - GET /api/locations/device/{deviceId}/range : デバイス別・期間指定の位置情報取得
  * - DELETE /api/locations/{id} : 位置情報の削除
  * - GET /api/stats : 統計情報の取得
  * 
@@ -109,10 +111,12 @@ public class LocationController {
         }
 
         try {
+            // 保存のログは LocationService がデバイスごとに間引いて出力する
             LocationData saved = locationService.saveLocation(locationData);
-            log.info("位置情報を受信しました: デバイスID={}, 緯度={}, 経度={}",
-                    saved.getDeviceId(), saved.getLatitude(), saved.getLongitude());
             return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (IllegalArgumentException e) {
+            log.warn("位置情報の内容が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             log.error("位置情報の保存に失敗しました", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -185,6 +189,38 @@ public class LocationController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * デバイスの指定期間内の位置情報を取得
+     * 
+     * @param deviceId  デバイスID
+     * @param startTime 開始時刻（この時刻を含む）
+     * @param endTime   終了時刻（この時刻を含む）
+     * @param order     並び順（desc: 新しい順、asc: 古い順）
+     * @param limit     最大件数
+     * @return 該当する位置情報のリスト（パラメータが不正な場合は400）
+     */
+    @GetMapping("/api/locations/device/{deviceId}/range")
+    @ResponseBody
+    public ResponseEntity<?> getLocationsByDeviceAndTimeRange(
+            @PathVariable String deviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            boolean newestFirst = switch (order.toLowerCase(Locale.ROOT)) {
+                case "desc" -> true;
+                case "asc" -> false;
+                default -> throw new IllegalArgumentException("order must be asc or desc");
+            };
+            return ResponseEntity.ok(locationService.getLocationsByDeviceAndTimeRange(
+                    deviceId, startTime, endTime, newestFirst, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("デバイス別の期間指定の条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * 期間指定で位置情報を取得
      * 
@@ -228,7 +264,7 @@ public class LocationController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> getStats() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalLocations", locationService.getAllLocations().size());
+        stats.put("totalLocations", locationService.getLocationCount());
         stats.put("deviceCount", locationService.getDeviceCount());
         stats.put("timestamp", LocalDateTime.now());
 
@@ -0,0 +1,56 @@
+package com.example.iotble.controller;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.model.MovementSummary;
+import com.example.iotble.service.LocationMovementService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * デバイスの移動量コントローラー
+ * 
+ * API endpoints:
+ * - GET /api/devices/{deviceId}/movement?from=&to= : 期間内の移動距離・速度・移動時間の取得
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class MovementController {
+
+    private final LocationMovementService movementService;
+
+    /**
+     * 期間内のデバイスの移動量を取得
+     * 
+     * @param deviceId デバイスID
+     * @param from     期間の開始時刻（省略時は to の24時間前）
+     * @param to       期間の終了時刻（省略時は現在時刻）
+     * @return 期間内の移動量
+     */
+    @GetMapping("/api/devices/{deviceId}/movement")
+    public ResponseEntity<?> getMovement(
+            @PathVariable String deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        try {
+            MovementSummary summary = movementService.getMovement(deviceId, start, end);
+            return ResponseEntity.ok(summary);
+        } catch (IllegalArgumentException e) {
+            log.warn("移動量の取得条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
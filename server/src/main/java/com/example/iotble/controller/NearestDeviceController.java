@@ -0,0 +1,50 @@
+package com.example.iotble.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.service.NearestDeviceService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 近くのデバイスの検索コントローラー
+ * 
+ * API endpoints:
+ * - GET /api/devices/nearest?lat=&lon=&k=&maxAgeSeconds= : 地点から近い順のデバイスの取得
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class NearestDeviceController {
+
+    private final NearestDeviceService nearestDeviceService;
+
+    /**
+     * 地点から近い順にデバイスを取得
+     * 
+     * @param lat           緯度
+     * @param lon           経度
+     * @param k             最大件数（既定5）
+     * @param maxAgeSeconds 現在位置の経過秒数の上限（省略時は制限なし）
+     * @return 近い順のデバイスのリスト
+     */
+    @GetMapping("/api/devices/nearest")
+    public ResponseEntity<?> getNearest(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(required = false) Long maxAgeSeconds) {
+        try {
+            return ResponseEntity.ok(nearestDeviceService.findNearest(lat, lon, k, maxAgeSeconds));
+        } catch (IllegalArgumentException e) {
+            log.warn("近くのデバイスの検索条件が不正です: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.iotble.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.model.LocationRollup;
+import com.example.iotble.model.RollupResolution;
+import com.example.iotble.service.LocationRollupService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の集計コントローラー
+ * 
+ * API endpoints:
+ * - GET /api/devices/{deviceId}/rollups?resolution=&from=&to= : デバイスの時間バケットごとの集計取得
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class RollupController {
+
+    /** 期間を指定しない場合に返すバケット数 */
+    private static final int DEFAULT_BUCKETS = 60;
+
+    private final LocationRollupService rollupService;
+
+    /**
+     * デバイスの時間バケットごとの集計を取得
+     * 
+     * 生データは参照せず、集計テーブルと書き込み前の集計のみから応答します
+     * 
+     * @param deviceId   デバイスID
+     * @param resolution 集計の時間粒度（minute / hour、省略時は minute）
+     * @param from       バケット開始時刻の下限（省略時は to の60バケット前）
+     * @param to         バケット開始時刻の上限（省略時は現在時刻）
+     * @return 集計のリスト
+     */
+    @GetMapping("/api/devices/{deviceId}/rollups")
+    public ResponseEntity<?> getRollups(
+            @PathVariable String deviceId,
+            @RequestParam(required = false) String resolution,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        RollupResolution rollupResolution;
+        try {
+            rollupResolution = RollupResolution.fromParameter(resolution);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null
+                ? from
+                : rollupResolution.bucketStart(end).minus(rollupResolution.getDuration().multipliedBy(DEFAULT_BUCKETS - 1));
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "fromはto以前である必要があります"));
+        }
+
+        List<LocationRollup> rollups = rollupService.getRollups(deviceId, rollupResolution, start, end);
+        log.debug("集計を取得しました: deviceId={}, resolution={}, 件数={}", deviceId, rollupResolution, rollups.size());
+        return ResponseEntity.ok(rollups);
+    }
+}
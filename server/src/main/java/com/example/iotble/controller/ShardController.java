@@ -0,0 +1,48 @@
+package com.example.iotble.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.service.RebalanceReport;
+import com.example.iotble.service.ShardRebalanceService;
+import com.example.iotble.service.ShardStatus;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * シャード管理コントローラー
+ * 
+ * API endpoints:
+ * - GET /api/shards : シャードごとの配置状況の取得
+ * - POST /api/shards/rebalance : シャード追加後の位置情報の再配置
+ */
+@RestController
+@RequiredArgsConstructor
+public class ShardController {
+
+    private final ShardRebalanceService rebalanceService;
+
+    /**
+     * シャードごとの配置状況を取得
+     * 
+     * @return シャードごとの配置状況
+     */
+    @GetMapping("/api/shards")
+    public ResponseEntity<List<ShardStatus>> getShardStatus() {
+        return ResponseEntity.ok(rebalanceService.getShardStatus());
+    }
+
+    /**
+     * 割り当て先が変わったデバイスの位置情報を移動
+     * 
+     * @return 再配置の結果
+     */
+    @PostMapping("/api/shards/rebalance")
+    public ResponseEntity<RebalanceReport> rebalance() {
+        return ResponseEntity.ok(rebalanceService.rebalance());
+    }
+}
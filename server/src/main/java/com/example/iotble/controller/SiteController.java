@@ -0,0 +1,39 @@
+package com.example.iotble.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.site.SiteIngestQuota;
+import com.example.iotble.site.SiteStatus;
+import com.example.iotble.site.SiteTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * サイトの状態のコントローラー
+ * 
+ * API endpoints:
+ * - GET /api/sites : サイトごとの取り込み量と接続プールの状態の取得
+ */
+@RestController
+@RequiredArgsConstructor
+public class SiteController {
+
+    private final SiteTemplate siteTemplate;
+    private final SiteIngestQuota ingestQuota;
+
+    /**
+     * サイトごとの取り込み量と接続プールの状態を取得
+     * 
+     * @return サイトごとの状態（設定順）
+     */
+    @GetMapping("/api/sites")
+    public ResponseEntity<List<SiteStatus>> getSites() {
+        return ResponseEntity.ok(siteTemplate.getSiteIds().stream()
+                .map(site -> SiteStatus.of(siteTemplate, ingestQuota, site))
+                .toList());
+    }
+}
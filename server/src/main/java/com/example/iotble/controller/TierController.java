@@ -0,0 +1,51 @@
+package com.example.iotble.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.iotble.service.LocationTieringService;
+import com.example.iotble.service.SealReport;
+import com.example.iotble.tier.SegmentInfo;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ホット・コールドの階層化の管理コントローラー
+ * 
+ * API endpoints:
+ * - GET /api/tiers : リクエストのサイトのセグメントの一覧の取得
+ * - POST /api/tiers/seal : データベースに残す日数を過ぎた位置情報の封印
+ */
+@RestController
+@RequiredArgsConstructor
+public class TierController {
+
+    private final LocationTieringService tieringService;
+
+    /**
+     * セグメントの一覧を期間順に取得
+     * 
+     * @return セグメントのメタデータのリスト
+     */
+    @GetMapping("/api/tiers")
+    public ResponseEntity<List<SegmentInfo>> getSegments() {
+        return ResponseEntity.ok(tieringService.getSegments());
+    }
+
+    /**
+     * データベースに残す日数を過ぎた位置情報を封印
+     * 
+     * @return 封印の結果（封印が設定されていない場合は404）
+     */
+    @PostMapping("/api/tiers/seal")
+    public ResponseEntity<SealReport> seal() {
+        return tieringService.seal(LocalDateTime.now())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
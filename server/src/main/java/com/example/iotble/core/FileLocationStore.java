@@ -0,0 +1,234 @@
+package com.example.iotble.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ファイルに追記する位置情報の保存先
+ *
+ * 位置情報を長さ付きのバイナリのレコードとしてファイルに追記し、検索はメモリ上の {@link InMemoryLocationStore} で行います。
+ * 開くときにファイルを先頭から読み込んでメモリ上に復元し、書き込み途中で終了した末尾のレコードは切り捨てます。
+ *
+ * デバイスごとの上限件数で破棄した位置情報もファイルには残るため、{@link #compact()} で保持している位置情報だけに書き直します
+ */
+public final class FileLocationStore implements LocationStore, AutoCloseable {
+
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES;
+
+    private final Path path;
+    private final boolean sync;
+    private final InMemoryLocationStore memory;
+    private FileChannel channel;
+
+    private FileLocationStore(Path path, boolean sync, InMemoryLocationStore memory, FileChannel channel) {
+        this.path = path;
+        this.sync = sync;
+        this.memory = memory;
+        this.channel = channel;
+    }
+
+    /**
+     * ファイルを開いて保存している位置情報を復元
+     *
+     * @param path               ファイルのパス（存在しない場合は作成）
+     * @param maxPointsPerDevice デバイスごとの上限件数（0の場合は上限なし）
+     * @param sync               保存のたびにディスクへ書き出す場合は true
+     * @return 保存先
+     * @throws UncheckedIOException ファイルを読み書きできない場合
+     */
+    public static FileLocationStore open(Path path, int maxPointsPerDevice, boolean sync) {
+        InMemoryLocationStore memory = new InMemoryLocationStore(maxPointsPerDevice);
+        try {
+            long validLength = Files.exists(path) ? replay(path, memory) : 0;
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > validLength) {
+                channel.truncate(validLength);
+            }
+            channel.position(validLength);
+            return new FileLocationStore(path, sync, memory, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("位置情報のファイルを開けませんでした: " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized LocationPoint save(LocationPoint point) {
+        return write(memory.save(point));
+    }
+
+    @Override
+    public synchronized LocationPoint save(LocationPoint point, double smoothedLatitude, double smoothedLongitude) {
+        return write(memory.save(point, smoothedLatitude, smoothedLongitude));
+    }
+
+    private LocationPoint write(LocationPoint saved) {
+        try {
+            append(channel, saved);
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("位置情報をファイルに書き込めませんでした: " + path, e);
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<LocationPoint> findLatest(String deviceId) {
+        return memory.findLatest(deviceId);
+    }
+
+    @Override
+    public List<LocationPoint> findRange(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+            boolean newestFirst, int limit) {
+        return memory.findRange(deviceId, startTime, endTime, newestFirst, limit);
+    }
+
+    @Override
+    public long count() {
+        return memory.count();
+    }
+
+    /**
+     * 保持している位置情報だけでファイルを書き直す
+     *
+     * 一時ファイルに書き出してから置き換えるため、途中で終了しても元のファイルは残ります
+     *
+     * @throws UncheckedIOException ファイルを書き込めない場合
+     */
+    public synchronized void compact() {
+        Path temporary = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                IOException[] failure = new IOException[1];
+                memory.forEach(point -> {
+                    if (failure[0] == null) {
+                        try {
+                            append(out, point);
+                        } catch (IOException e) {
+                            failure[0] = e;
+                        }
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                out.force(true);
+            }
+            channel.close();
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("位置情報のファイルを書き直せませんでした: " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("位置情報のファイルを閉じられませんでした: " + path, e);
+        }
+    }
+
+    /**
+     * ファイルのレコードをメモリ上に復元
+     *
+     * @return 読み込めたレコードまでのバイト数
+     */
+    private static long replay(Path path, InMemoryLocationStore memory) throws IOException {
+        long validLength = 0;
+        try (InputStream file = Files.newInputStream(path);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            while (true) {
+                byte[] record;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0) {
+                        break;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break;
+                }
+                memory.save(decode(record));
+                validLength += RECORD_HEADER_BYTES + record.length;
+            }
+        }
+        return validLength;
+    }
+
+    private static void append(FileChannel out, LocationPoint point) throws IOException {
+        byte[] record = encode(point);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + record.length);
+        buffer.putInt(record.length).put(record).flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static byte[] encode(LocationPoint point) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(point.id());
+            out.writeUTF(point.deviceId());
+            out.writeLong(InMemoryLocationStore.toMicros(point.timestamp()));
+            out.writeLong(InMemoryLocationStore.toMicros(point.createdAt()));
+            out.writeDouble(point.latitude());
+            out.writeDouble(point.longitude());
+            out.writeDouble(orNaN(point.altitude()));
+            out.writeDouble(orNaN(point.accuracy()));
+            out.writeDouble(orNaN(point.smoothedLatitude()));
+            out.writeDouble(orNaN(point.smoothedLongitude()));
+            out.writeInt(point.rssi() != null ? point.rssi() : Integer.MIN_VALUE);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static LocationPoint decode(byte[] record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            long id = in.readLong();
+            String deviceId = in.readUTF();
+            LocalDateTime timestamp = InMemoryLocationStore.fromMicros(in.readLong());
+            LocalDateTime createdAt = InMemoryLocationStore.fromMicros(in.readLong());
+            double latitude = in.readDouble();
+            double longitude = in.readDouble();
+            Double altitude = orNull(in.readDouble());
+            Double accuracy = orNull(in.readDouble());
+            Double smoothedLatitude = orNull(in.readDouble());
+            Double smoothedLongitude = orNull(in.readDouble());
+            int rssi = in.readInt();
+            return new LocationPoint(id, deviceId, latitude, longitude, altitude, accuracy,
+                    rssi != Integer.MIN_VALUE ? rssi : null, smoothedLatitude, smoothedLongitude,
+                    timestamp, createdAt);
+        }
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
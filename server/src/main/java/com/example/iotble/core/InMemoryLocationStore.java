@@ -0,0 +1,298 @@
+package com.example.iotble.core;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * メモリ上の位置情報の保存先
+ *
+ * デバイスごとに項目ごとのプリミティブ配列へタイムスタンプ順に保持し、位置情報1件あたり約51バイトで保存します。
+ * 測定値は {@link PackedLocation} の固定小数点の整数と値の有無のビットで保持し、
+ * 緯度・経度は1e-7度、高度・精度は1センチメートル単位に丸めます。
+ * 位置情報はほぼ時刻順に届くため、末尾から挿入位置を探して追加し、期間の検索は二分探索で行います。
+ * タイムスタンプと保存日時はマイクロ秒単位に切り捨てて保持します。
+ *
+ * デバイスごとの上限件数を指定した場合は、上限を超えた分を古い位置情報から破棄します
+ */
+public class InMemoryLocationStore implements LocationStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxPointsPerDevice;
+    private final Map<String, DeviceSeries> devices = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * 上限件数のない保存先を生成
+     */
+    public InMemoryLocationStore() {
+        this(0);
+    }
+
+    /**
+     * @param maxPointsPerDevice デバイスごとの上限件数（0の場合は上限なし）
+     */
+    public InMemoryLocationStore(int maxPointsPerDevice) {
+        if (maxPointsPerDevice < 0) {
+            throw new IllegalArgumentException("デバイスごとの上限件数が不正です");
+        }
+        this.maxPointsPerDevice = maxPointsPerDevice;
+    }
+
+    /**
+     * 位置情報を保存
+     *
+     * IDがない場合は採番し、保存日時がない場合は現在時刻を設定します
+     */
+    @Override
+    public LocationPoint save(LocationPoint point) {
+        return save(point, PackedLocation.of(point));
+    }
+
+    @Override
+    public LocationPoint save(LocationPoint point, double smoothedLatitude, double smoothedLongitude) {
+        return save(point, PackedLocation.of(point.latitude(), point.longitude(), point.altitude(), point.accuracy(),
+                point.rssi(), smoothedLatitude, smoothedLongitude));
+    }
+
+    private LocationPoint save(LocationPoint point, PackedLocation packed) {
+        long id;
+        if (point.id() != null) {
+            id = point.id();
+            lastId.accumulateAndGet(id, Math::max);
+        } else {
+            id = lastId.incrementAndGet();
+        }
+        LocalDateTime createdAt = point.createdAt() != null ? point.createdAt() : LocalDateTime.now();
+        DeviceSeries series = devices.computeIfAbsent(point.deviceId(), DeviceSeries::new);
+        synchronized (series) {
+            int index = series.insert(id, packed, toMicros(point.timestamp()), toMicros(createdAt));
+            LocationPoint saved = series.get(index);
+            total.incrementAndGet();
+            if (maxPointsPerDevice > 0 && series.size > maxPointsPerDevice) {
+                series.evictOldest();
+                total.decrementAndGet();
+            }
+            return saved;
+        }
+    }
+
+    @Override
+    public Optional<LocationPoint> findLatest(String deviceId) {
+        DeviceSeries series = devices.get(deviceId);
+        if (series == null) {
+            return Optional.empty();
+        }
+        synchronized (series) {
+            return series.size == 0 ? Optional.empty() : Optional.of(series.get(series.head + series.size - 1));
+        }
+    }
+
+    @Override
+    public List<LocationPoint> findRange(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+            boolean newestFirst, int limit) {
+        DeviceSeries series = devices.get(deviceId);
+        if (series == null || limit <= 0) {
+            return List.of();
+        }
+        long startMicros = toMicros(startTime);
+        long endMicros = toMicros(endTime);
+        synchronized (series) {
+            int from = series.lowerBound(startMicros);
+            int to = series.upperBound(endMicros);
+            int count = Math.min(limit, Math.max(0, to - from));
+            List<LocationPoint> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(series.get(newestFirst ? to - 1 - i : from + i));
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public long count() {
+        return total.get();
+    }
+
+    /**
+     * 保存している位置情報をデバイスごとにタイムスタンプ順に渡す
+     *
+     * デバイスごとに位置情報を複製してから渡すため、処理中も保存できます
+     *
+     * @param action 位置情報を受け取る処理
+     */
+    public void forEach(Consumer<LocationPoint> action) {
+        for (DeviceSeries series : devices.values()) {
+            List<LocationPoint> points;
+            synchronized (series) {
+                points = new ArrayList<>(series.size);
+                for (int i = series.head; i < series.head + series.size; i++) {
+                    points.add(series.get(i));
+                }
+            }
+            points.forEach(action);
+        }
+    }
+
+    static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * デバイスごとの位置情報の列
+     *
+     * 位置情報は配列の [head, head + size) にタイムスタンプ順で並べます。
+     * 古い位置情報を破棄すると head が進み、配列の末尾に達したときに先頭へ詰め直します
+     */
+    private static final class DeviceSeries {
+
+        private final String deviceId;
+        private int head;
+        private int size;
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long[] timestamps = new long[INITIAL_CAPACITY];
+        private long[] createdAts = new long[INITIAL_CAPACITY];
+        private int[] latitudes = new int[INITIAL_CAPACITY];
+        private int[] longitudes = new int[INITIAL_CAPACITY];
+        private int[] altitudes = new int[INITIAL_CAPACITY];
+        private int[] accuracies = new int[INITIAL_CAPACITY];
+        private int[] smoothedLatitudes = new int[INITIAL_CAPACITY];
+        private int[] smoothedLongitudes = new int[INITIAL_CAPACITY];
+        private short[] rssis = new short[INITIAL_CAPACITY];
+        private byte[] flags = new byte[INITIAL_CAPACITY];
+
+        DeviceSeries(String deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        /**
+         * 同じタイムスタンプの位置情報の後ろに挿入
+         *
+         * @return 挿入した位置
+         */
+        int insert(long id, PackedLocation packed, long timestamp, long createdAt) {
+            ensureRoom();
+            int end = head + size;
+            int index = end;
+            while (index > head && timestamps[index - 1] > timestamp) {
+                index--;
+            }
+            if (index < end) {
+                shift(index, index + 1, end - index);
+            }
+            ids[index] = id;
+            timestamps[index] = timestamp;
+            createdAts[index] = createdAt;
+            latitudes[index] = packed.latitudeE7();
+            longitudes[index] = packed.longitudeE7();
+            altitudes[index] = packed.altitudeCm();
+            accuracies[index] = packed.accuracyCm();
+            smoothedLatitudes[index] = packed.smoothedLatitudeE7();
+            smoothedLongitudes[index] = packed.smoothedLongitudeE7();
+            rssis[index] = packed.rssiDbm();
+            flags[index] = packed.flags();
+            size++;
+            return index;
+        }
+
+        void evictOldest() {
+            head++;
+            size--;
+        }
+
+        /**
+         * タイムスタンプが指定した時刻以上の最初の位置
+         */
+        int lowerBound(long timestamp) {
+            int low = head;
+            int high = head + size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * タイムスタンプが指定した時刻より後の最初の位置
+         */
+        int upperBound(long timestamp) {
+            int low = head;
+            int high = head + size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] <= timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        LocationPoint get(int index) {
+            PackedLocation packed = new PackedLocation(latitudes[index], longitudes[index], altitudes[index],
+                    accuracies[index], rssis[index], smoothedLatitudes[index], smoothedLongitudes[index],
+                    flags[index]);
+            return packed.toPoint(ids[index], deviceId, fromMicros(timestamps[index]), fromMicros(createdAts[index]));
+        }
+
+        /**
+         * 末尾に1件追加できるようにする（先頭の空きが半分以上あれば詰め直し、なければ配列を広げる）
+         */
+        private void ensureRoom() {
+            if (head + size < ids.length) {
+                return;
+            }
+            if (head * 2 >= ids.length) {
+                shift(head, 0, size);
+                head = 0;
+                return;
+            }
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            createdAts = Arrays.copyOf(createdAts, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            altitudes = Arrays.copyOf(altitudes, capacity);
+            accuracies = Arrays.copyOf(accuracies, capacity);
+            smoothedLatitudes = Arrays.copyOf(smoothedLatitudes, capacity);
+            smoothedLongitudes = Arrays.copyOf(smoothedLongitudes, capacity);
+            rssis = Arrays.copyOf(rssis, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+
+        private void shift(int from, int to, int length) {
+            System.arraycopy(ids, from, ids, to, length);
+            System.arraycopy(timestamps, from, timestamps, to, length);
+            System.arraycopy(createdAts, from, createdAts, to, length);
+            System.arraycopy(latitudes, from, latitudes, to, length);
+            System.arraycopy(longitudes, from, longitudes, to, length);
+            System.arraycopy(altitudes, from, altitudes, to, length);
+            System.arraycopy(accuracies, from, accuracies, to, length);
+            System.arraycopy(smoothedLatitudes, from, smoothedLatitudes, to, length);
+            System.arraycopy(smoothedLongitudes, from, smoothedLongitudes, to, length);
+            System.arraycopy(rssis, from, rssis, to, length);
+            System.arraycopy(flags, from, flags, to, length);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.iotble.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 位置情報の取り込み結果
+ *
+ * @param status 結果
+ * @param point  保存した位置情報（重複の場合は先に保存した位置情報、不正な場合は null）
+ * @param errors 項目名ごとのエラーメッセージ（不正な場合のみ）
+ */
+public record IngestResult(Status status, LocationPoint point, Map<String, String> errors) {
+
+    /**
+     * 取り込みの結果
+     */
+    public enum Status {
+        /** 保存した */
+        ACCEPTED,
+        /** 直近に受け取った位置情報と同じため保存しなかった */
+        DUPLICATE,
+        /** 検証に失敗したため保存しなかった */
+        INVALID
+    }
+
+    static IngestResult accepted(LocationPoint point) {
+        return new IngestResult(Status.ACCEPTED, point, Map.of());
+    }
+
+    static IngestResult duplicate(LocationPoint point) {
+        return new IngestResult(Status.DUPLICATE, point, Map.of());
+    }
+
+    static IngestResult invalid(Map<String, String> errors) {
+        return new IngestResult(Status.INVALID, null, Collections.unmodifiableMap(new LinkedHashMap<>(errors)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.iotble.core;
+
+/**
+ * 位置情報を保存する前に適用する処理
+ *
+ * {@link LocationIngestor} が検証と重複の判定の後、保存する直前に登録順で呼び出します。
+ * 同じデバイスの位置情報が複数のスレッドから同時に渡されることがあります
+ */
+@FunctionalInterface
+public interface IngestStage {
+
+    /**
+     * 保存する位置情報を処理（項目の補完や変換など）
+     *
+     * @param point 保存する位置情報（タイムスタンプは設定済み）
+     * @return 処理後の位置情報
+     */
+    LocationPoint process(LocationPoint point);
+
+    /**
+     * 保存する位置情報を処理して保存先に保存
+     *
+     * {@link LocationIngestor} は最後の処理をこのメソッドで呼び出します。
+     * 既定の実装は {@link #process} の結果を保存します。平滑化後の座標を加えるだけの処理は、
+     * 位置情報を作り直さずに {@link LocationStore#save(LocationPoint, double, double)} に渡せます
+     *
+     * @param point 保存する位置情報（タイムスタンプは設定済み）
+     * @param store 保存先
+     * @return IDと保存日時を設定した位置情報
+     */
+    default LocationPoint processAndSave(LocationPoint point, LocationStore store) {
+        return store.save(process(point));
+    }
+
+    /**
+     * デバイスについて保持している状態を破棄（履歴を削除したときなど）
+     *
+     * 既定の実装は何もしません
+     *
+     * @param deviceId デバイスID
+     */
+    default void forgetDevice(String deviceId) {
+    }
+
+    /**
+     * すべてのデバイスについて保持している状態を破棄
+     *
+     * 既定の実装は何もしません
+     */
+    default void forgetAll() {
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.iotble.core;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 位置情報をカルマンフィルターで平滑化する保存前の処理
+ *
+ * デバイスごとに推定位置・推定誤差の分散・最後の時刻だけを保持し、位置情報を受け取るたびに
+ * 経過時間に応じて分散を増やしてから受信した位置と重み付けして推定位置を更新します（1件あたりO(1)）。
+ * 受信した位置の分散は精度（accuracy）の2乗とし、RSSIが基準より弱いほど大きくします。
+ * 推定位置は平滑化後の座標として保存し、受信した座標はそのまま残します。
+ * 最後の処理として呼び出された場合は、位置情報を作り直さずに平滑化後の座標を保存先に渡すため、
+ * 1件ごとに増えるオブジェクトは保存先が生成するものだけです。
+ *
+ * 最後の時刻より前の位置情報は推定位置を巻き戻せないため、平滑化せずに保存します。
+ *
+ * 一定時間位置情報を受け取っていないデバイスの状態は、その時間ごとに破棄します。
+ * 長く止まっていたデバイスの推定位置は分散が大きくなり次の位置情報にほぼ置き換わるため、破棄しても結果はほとんど変わりません
+ */
+public class KalmanSmoother implements IngestStage {
+
+    /** 状態を破棄するまでの既定の時間（ミリ秒） */
+    public static final long DEFAULT_IDLE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /** 1秒あたりに増やす分散（移動速度の2乗、m²/s） */
+    private final double processVariancePerSecond;
+    private final double defaultAccuracy;
+    private final double rssiReference;
+    private final double maxRssiFactor;
+    private final long idleNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, FilterState> states = new ConcurrentHashMap<>();
+    private final Function<String, FilterState> newState;
+
+    /** 次に使われていない状態を破棄する時刻 */
+    private final AtomicLong nextEvictionAt;
+
+    /**
+     * @param processNoise    移動速度の標準偏差（m/s）
+     * @param defaultAccuracy 精度がない場合の精度（メートル）
+     * @param rssiReference   分散を増やし始めるRSSI（dBm）
+     * @param maxRssiFactor   RSSIによる分散の倍率の上限
+     */
+    public KalmanSmoother(double processNoise, double defaultAccuracy, double rssiReference, double maxRssiFactor) {
+        this(processNoise, defaultAccuracy, rssiReference, maxRssiFactor, DEFAULT_IDLE_MILLIS);
+    }
+
+    /**
+     * @param processNoise    移動速度の標準偏差（m/s）
+     * @param defaultAccuracy 精度がない場合の精度（メートル）
+     * @param rssiReference   分散を増やし始めるRSSI（dBm）
+     * @param maxRssiFactor   RSSIによる分散の倍率の上限
+     * @param idleMillis      位置情報を受け取っていないデバイスの状態を破棄するまでの時間（ミリ秒）
+     */
+    public KalmanSmoother(double processNoise, double defaultAccuracy, double rssiReference, double maxRssiFactor,
+            long idleMillis) {
+        this(processNoise, defaultAccuracy, rssiReference, maxRssiFactor, idleMillis, System::nanoTime);
+    }
+
+    KalmanSmoother(double processNoise, double defaultAccuracy, double rssiReference, double maxRssiFactor,
+            long idleMillis, LongSupplier nanoClock) {
+        if (processNoise <= 0 || defaultAccuracy <= 0 || maxRssiFactor < 1 || idleMillis <= 0) {
+            throw new IllegalArgumentException("平滑化の設定が不正です");
+        }
+        this.processVariancePerSecond = processNoise * processNoise;
+        this.defaultAccuracy = defaultAccuracy;
+        this.rssiReference = rssiReference;
+        this.maxRssiFactor = maxRssiFactor;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.nanoClock = nanoClock;
+        this.newState = deviceId -> new FilterState(nanoClock.getAsLong());
+        this.nextEvictionAt = new AtomicLong(nanoClock.getAsLong() + idleNanos);
+    }
+
+    @Override
+    public LocationPoint process(LocationPoint point) {
+        long now = nanoClock.getAsLong();
+        FilterState state = state(point.deviceId(), now);
+        double variance = measurementVariance(point.accuracy(), point.rssi());
+        long millis = toEpochMillis(point.timestamp());
+        synchronized (state) {
+            state.usedAt = now;
+            if (state.update(point.latitude(), point.longitude(), variance, millis, processVariancePerSecond)) {
+                return point.toBuilder()
+                        .smoothedLatitude(state.latitude)
+                        .smoothedLongitude(state.longitude)
+                        .build();
+            }
+        }
+        return point;
+    }
+
+    @Override
+    public LocationPoint processAndSave(LocationPoint point, LocationStore store) {
+        long now = nanoClock.getAsLong();
+        FilterState state = state(point.deviceId(), now);
+        double variance = measurementVariance(point.accuracy(), point.rssi());
+        long millis = toEpochMillis(point.timestamp());
+        boolean updated;
+        double latitude;
+        double longitude;
+        synchronized (state) {
+            state.usedAt = now;
+            updated = state.update(point.latitude(), point.longitude(), variance, millis, processVariancePerSecond);
+            latitude = state.latitude;
+            longitude = state.longitude;
+        }
+        return updated ? store.save(point, latitude, longitude) : store.save(point);
+    }
+
+    /**
+     * デバイスのフィルターの状態を破棄（履歴を削除したときなど）
+     *
+     * 次に受け取った位置情報から推定し直します
+     *
+     * @param deviceId デバイスID
+     */
+    @Override
+    public void forgetDevice(String deviceId) {
+        states.remove(deviceId);
+    }
+
+    /**
+     * すべてのデバイスのフィルターの状態を破棄
+     */
+    @Override
+    public void forgetAll() {
+        states.clear();
+    }
+
+    /**
+     * フィルターの状態を保持しているデバイスの数を取得
+     *
+     * @return デバイスの数
+     */
+    public int getTrackedDeviceCount() {
+        return states.size();
+    }
+
+    /**
+     * 受信した位置の分散（m²）
+     *
+     * RSSIが基準より10dB弱くなるごとに2倍にします（上限あり）
+     */
+    double measurementVariance(Double accuracy, Integer rssi) {
+        double meters = accuracy != null && accuracy > 0 ? accuracy : defaultAccuracy;
+        double factor = 1;
+        if (rssi != null && rssi < rssiReference) {
+            factor = Math.min(maxRssiFactor, Math.pow(2, (rssiReference - rssi) / 10));
+        }
+        return meters * meters * factor;
+    }
+
+    /**
+     * デバイスのフィルターの状態を取得
+     *
+     * 前回の破棄から一定時間経過している場合は、その間に使われなかった状態を先に破棄します
+     */
+    private FilterState state(String deviceId, long now) {
+        long evictionAt = nextEvictionAt.get();
+        if (now - evictionAt >= 0 && nextEvictionAt.compareAndSet(evictionAt, now + idleNanos)) {
+            states.values().removeIf(state -> state.isIdle(now, idleNanos));
+        }
+        return states.computeIfAbsent(deviceId, newState);
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1000 + timestamp.getNano() / 1_000_000;
+    }
+
+    /**
+     * デバイスごとのフィルターの状態
+     *
+     * 緯度・経度の推定誤差は同じとみなし、分散をメートル単位で1つだけ保持します
+     * （カルマンゲインは単位を持たないため、推定位置は度のまま更新できます）
+     */
+    private static final class FilterState {
+
+        private double latitude;
+        private double longitude;
+
+        /** 推定誤差の分散（m²、負の値は未初期化） */
+        private double variance = -1;
+
+        private long timestampMillis;
+
+        /** 最後に使った時刻（System.nanoTime） */
+        private long usedAt;
+
+        FilterState(long usedAt) {
+            this.usedAt = usedAt;
+        }
+
+        synchronized boolean isIdle(long now, long idleNanos) {
+            return now - usedAt >= idleNanos;
+        }
+
+        /**
+         * 受信した位置で推定位置を更新
+         *
+         * @return 更新した場合は true（最後の時刻より前の位置情報の場合は false）
+         */
+        boolean update(double measuredLatitude, double measuredLongitude, double measurementVariance,
+                long millis, double processVariancePerSecond) {
+            if (variance < 0) {
+                latitude = measuredLatitude;
+                longitude = measuredLongitude;
+                variance = measurementVariance;
+                timestampMillis = millis;
+                return true;
+            }
+            if (millis < timestampMillis) {
+                return false;
+            }
+            variance += (millis - timestampMillis) / 1000.0 * processVariancePerSecond;
+            timestampMillis = millis;
+            double gain = variance / (variance + measurementVariance);
+            latitude += gain * (measuredLatitude - latitude);
+            longitude += gain * (measuredLongitude - longitude);
+            variance *= 1 - gain;
+            return true;
+        }
+    }
+}
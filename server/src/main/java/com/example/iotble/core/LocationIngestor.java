@@ -0,0 +1,175 @@
+package com.example.iotble.core;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 位置情報の取り込み
+ *
+ * 位置情報を検証し、タイムスタンプがない場合は現在時刻を設定してから保存前の処理を順に適用して保存します。
+ * Spring や JPA に依存しないため、ゲートウェイのプロセスに組み込んでも数ミリ秒で使い始められます。
+ *
+ * 重複の判定件数を指定した場合は、デバイスごとに直近に保存した位置情報を覚えておき、
+ * タイムスタンプ・緯度・経度が同じ位置情報（ゲートウェイの再送など）は保存せずに先に保存した位置情報を返します。
+ * 保存した位置情報を覚えるのは保存先で保存が確定した後（{@link LocationStore#afterCommit}）のため、
+ * ロールバックした位置情報の再送は重複とみなさずに保存します。
+ * 判定と保存はデバイスごとに順に行うため、保存がすぐに確定する保存先では同じ位置情報が同時に届いても保存するのは1件だけです
+ */
+public class LocationIngestor {
+
+    private final LocationStore store;
+    private final List<IngestStage> stages;
+    private final int duplicateWindow;
+    private final Map<String, RecentPoints> recent = new ConcurrentHashMap<>();
+
+    /**
+     * @param store           保存先
+     * @param stages          保存前の処理（適用する順）
+     * @param duplicateWindow 重複を判定するデバイスごとの直近の件数（0の場合は判定しない）
+     */
+    public LocationIngestor(LocationStore store, List<? extends IngestStage> stages, int duplicateWindow) {
+        if (duplicateWindow < 0) {
+            throw new IllegalArgumentException("重複を判定する件数が不正です");
+        }
+        this.store = store;
+        this.stages = List.copyOf(stages);
+        this.duplicateWindow = duplicateWindow;
+    }
+
+    /**
+     * 位置情報を取り込む
+     *
+     * @param point 位置情報
+     * @return 取り込み結果
+     */
+    public IngestResult ingest(LocationPoint point) {
+        Map<String, String> errors = LocationValidator.validate(point);
+        if (!errors.isEmpty()) {
+            return IngestResult.invalid(errors);
+        }
+        if (point.timestamp() == null) {
+            point = point.toBuilder().timestamp(LocalDateTime.now()).build();
+        }
+        if (duplicateWindow == 0) {
+            return IngestResult.accepted(store(point));
+        }
+        RecentPoints points = recent.computeIfAbsent(point.deviceId(), deviceId -> new RecentPoints(duplicateWindow));
+        synchronized (points) {
+            LocationPoint earlier = points.find(point);
+            if (earlier != null) {
+                return IngestResult.duplicate(earlier);
+            }
+            LocationPoint received = point;
+            LocationPoint saved = store(point);
+            store.afterCommit(() -> {
+                synchronized (points) {
+                    points.add(received, saved);
+                }
+            });
+            return IngestResult.accepted(saved);
+        }
+    }
+
+    /**
+     * デバイスの直近の位置情報と保存前の処理の状態を忘れる（履歴を削除したときなど）
+     *
+     * @param deviceId デバイスID
+     */
+    public void forgetDevice(String deviceId) {
+        recent.remove(deviceId);
+        for (IngestStage stage : stages) {
+            stage.forgetDevice(deviceId);
+        }
+    }
+
+    /**
+     * 削除した位置情報を直近の位置情報から除く
+     *
+     * @param ids 削除した位置情報のID
+     */
+    public void forgetIds(Collection<Long> ids) {
+        if (ids.isEmpty() || recent.isEmpty()) {
+            return;
+        }
+        Set<Long> removed = new HashSet<>(ids);
+        for (RecentPoints points : recent.values()) {
+            synchronized (points) {
+                points.removeIf(removed);
+            }
+        }
+    }
+
+    /**
+     * すべてのデバイスの直近の位置情報と保存前の処理の状態を忘れる
+     */
+    public void forgetAll() {
+        recent.clear();
+        for (IngestStage stage : stages) {
+            stage.forgetAll();
+        }
+    }
+
+    private LocationPoint store(LocationPoint point) {
+        int last = stages.size() - 1;
+        if (last < 0) {
+            return store.save(point);
+        }
+        for (int i = 0; i < last; i++) {
+            point = stages.get(i).process(point);
+        }
+        return stages.get(last).processAndSave(point, store);
+    }
+
+    /**
+     * デバイスごとの直近に保存した位置情報（受け取った値と保存した位置情報の組を古いものから上書き）
+     */
+    private static final class RecentPoints {
+
+        private final LocalDateTime[] timestamps;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final LocationPoint[] saved;
+        private int next;
+
+        RecentPoints(int capacity) {
+            timestamps = new LocalDateTime[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            saved = new LocationPoint[capacity];
+        }
+
+        LocationPoint find(LocationPoint point) {
+            for (int i = 0; i < saved.length; i++) {
+                if (saved[i] != null
+                        && timestamps[i].equals(point.timestamp())
+                        && latitudes[i] == point.latitude()
+                        && longitudes[i] == point.longitude()) {
+                    return saved[i];
+                }
+            }
+            return null;
+        }
+
+        void add(LocationPoint received, LocationPoint stored) {
+            timestamps[next] = received.timestamp();
+            latitudes[next] = received.latitude();
+            longitudes[next] = received.longitude();
+            saved[next] = stored;
+            next = (next + 1) % saved.length;
+        }
+
+        void removeIf(Set<Long> ids) {
+            for (int i = 0; i < saved.length; i++) {
+                if (saved[i] != null && ids.contains(saved[i].id())) {
+                    saved[i] = null;
+                    timestamps[i] = null;
+                }
+            }
+        }
+    }
+}
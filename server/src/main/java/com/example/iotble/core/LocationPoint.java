@@ -0,0 +1,68 @@
+package com.example.iotble.core;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+
+/**
+ * 取り込みと保存で扱う位置情報
+ *
+ * Spring や JPA に依存しない不変の値で、ゲートウェイのプロセスに組み込む場合もサーバーでも同じ処理に渡します
+ *
+ * @param id                位置情報ID（保存前は null）
+ * @param deviceId          デバイスID
+ * @param latitude          緯度
+ * @param longitude         経度
+ * @param altitude          高度（メートル、オプション）
+ * @param accuracy          精度（メートル、オプション）
+ * @param rssi              BLE信号強度（dBm、オプション）
+ * @param smoothedLatitude  平滑化後の緯度（平滑化していない場合は null）
+ * @param smoothedLongitude 平滑化後の経度（平滑化していない場合は null）
+ * @param timestamp         タイムスタンプ（null の場合は取り込み時刻）
+ * @param createdAt         保存した日時（保存前は null）
+ */
+@Builder(toBuilder = true)
+public record LocationPoint(
+        Long id,
+        String deviceId,
+        Double latitude,
+        Double longitude,
+        Double altitude,
+        Double accuracy,
+        Integer rssi,
+        Double smoothedLatitude,
+        Double smoothedLongitude,
+        LocalDateTime timestamp,
+        LocalDateTime createdAt) {
+
+    /**
+     * 必須項目だけの位置情報を生成
+     *
+     * @param deviceId  デバイスID
+     * @param latitude  緯度
+     * @param longitude 経度
+     * @param timestamp タイムスタンプ
+     * @return 位置情報
+     */
+    public static LocationPoint of(String deviceId, double latitude, double longitude, LocalDateTime timestamp) {
+        return builder().deviceId(deviceId).latitude(latitude).longitude(longitude).timestamp(timestamp).build();
+    }
+
+    /**
+     * 距離の計算や軌跡に使う緯度を返す
+     *
+     * @return 平滑化後の緯度（平滑化していない場合は緯度）
+     */
+    public double effectiveLatitude() {
+        return smoothedLatitude != null ? smoothedLatitude : latitude;
+    }
+
+    /**
+     * 距離の計算や軌跡に使う経度を返す
+     *
+     * @return 平滑化後の経度（平滑化していない場合は経度）
+     */
+    public double effectiveLongitude() {
+        return smoothedLongitude != null ? smoothedLongitude : longitude;
+    }
+}
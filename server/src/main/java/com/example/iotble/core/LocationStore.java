@@ -0,0 +1,77 @@
+package com.example.iotble.core;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 位置情報の保存先
+ *
+ * {@link LocationIngestor} が保存に使います。組み込み用に {@link InMemoryLocationStore} と {@link FileLocationStore} があり、
+ * サーバーではデータベースに保存する実装を使います
+ */
+public interface LocationStore {
+
+    /**
+     * 位置情報を保存
+     *
+     * @param point 位置情報（タイムスタンプは設定済み）
+     * @return IDと保存日時を設定した位置情報
+     */
+    LocationPoint save(LocationPoint point);
+
+    /**
+     * 平滑化後の緯度・経度を付けて位置情報を保存
+     *
+     * 保存前の処理が位置情報を作り直さずに平滑化後の座標を渡すために使います。
+     * 既定の実装は座標を設定した位置情報を生成して {@link #save(LocationPoint)} に渡します
+     *
+     * @param point             位置情報（タイムスタンプは設定済み）
+     * @param smoothedLatitude  平滑化後の緯度
+     * @param smoothedLongitude 平滑化後の経度
+     * @return IDと保存日時を設定した位置情報
+     */
+    default LocationPoint save(LocationPoint point, double smoothedLatitude, double smoothedLongitude) {
+        return save(point.toBuilder().smoothedLatitude(smoothedLatitude).smoothedLongitude(smoothedLongitude).build());
+    }
+
+    /**
+     * デバイスの最新の位置情報を取得
+     *
+     * @param deviceId デバイスID
+     * @return 最新の位置情報
+     */
+    Optional<LocationPoint> findLatest(String deviceId);
+
+    /**
+     * デバイスの期間内の位置情報を取得
+     *
+     * @param deviceId    デバイスID
+     * @param startTime   開始日時（この時刻を含む）
+     * @param endTime     終了日時（この時刻を含む）
+     * @param newestFirst 新しい順の場合は true、古い順の場合は false
+     * @param limit       最大件数
+     * @return 位置情報のリスト
+     */
+    List<LocationPoint> findRange(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+            boolean newestFirst, int limit);
+
+    /**
+     * 保存している位置情報の件数を取得
+     *
+     * @return 件数
+     */
+    long count();
+
+    /**
+     * 保存が確定した後に処理を実行
+     *
+     * トランザクションの中で保存する実装は、コミットした後に実行し、ロールバックした場合は実行しません。
+     * 既定の実装はすぐに実行します
+     *
+     * @param action 処理
+     */
+    default void afterCommit(Runnable action) {
+        action.run();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.iotble.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 取り込む位置情報の検証
+ *
+ * サーバーの Bean Validation と同じ項目を検証し、緯度・経度の範囲とデバイスIDの長さも検証します
+ */
+public final class LocationValidator {
+
+    /** デバイスIDの最大文字数（位置情報テーブルの列の長さ） */
+    public static final int MAX_DEVICE_ID_LENGTH = 100;
+
+    private LocationValidator() {
+    }
+
+    /**
+     * 位置情報を検証
+     *
+     * @param point 位置情報
+     * @return 項目名ごとのエラーメッセージ（正しい場合は空）
+     */
+    public static Map<String, String> validate(LocationPoint point) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        if (point.deviceId() == null || point.deviceId().isBlank()) {
+            errors.put("deviceId", "デバイスIDは必須です");
+        } else if (point.deviceId().length() > MAX_DEVICE_ID_LENGTH) {
+            errors.put("deviceId", "デバイスIDは" + MAX_DEVICE_ID_LENGTH + "文字以内で指定してください");
+        }
+        if (point.latitude() == null) {
+            errors.put("latitude", "緯度は必須です");
+        } else if (!(point.latitude() >= -90 && point.latitude() <= 90)) {
+            errors.put("latitude", "緯度は-90から90の範囲で指定してください");
+        }
+        if (point.longitude() == null) {
+            errors.put("longitude", "経度は必須です");
+        } else if (!(point.longitude() >= -180 && point.longitude() <= 180)) {
+            errors.put("longitude", "経度は-180から180の範囲で指定してください");
+        }
+        return errors;
+    }
+}
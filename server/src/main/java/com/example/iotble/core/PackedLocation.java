@@ -0,0 +1,264 @@
+package com.example.iotble.core;
+
+import java.time.LocalDateTime;
+
+/**
+ * 固定小数点の整数で表した位置情報の測定値
+ *
+ * 保存やメモリ上の処理で使う、プリミティブ型の項目だけを持つ値です。緯度・経度は1e-7度単位、
+ * 高度・精度はセンチメートル単位の整数で、1e-7度は赤道上で約1.1センチメートルにあたります。
+ * 値のない項目は {@code flags} のビットで表し、項目の値は0にします。
+ * 単位の付いた名前の項目が保存する整数で、単位のない名前のメソッドはAPIとの境界で使う値（ない場合は null）を返します。
+ * 小数点以下7桁（高度・精度は2桁）までの値は変換しても元の値に戻ります。
+ * 範囲外の値やNaN・無限大は別の値に丸めず、{@link IllegalArgumentException} で拒否します
+ *
+ * @param latitudeE7          緯度（1e-7度単位）
+ * @param longitudeE7         経度（1e-7度単位）
+ * @param altitudeCm          高度（センチメートル）
+ * @param accuracyCm          精度（センチメートル）
+ * @param rssiDbm             BLE信号強度（dBm）
+ * @param smoothedLatitudeE7  平滑化後の緯度（1e-7度単位）
+ * @param smoothedLongitudeE7 平滑化後の経度（1e-7度単位）
+ * @param flags               値がある項目のビット（{@link #HAS_ALTITUDE} など）
+ */
+public record PackedLocation(
+        int latitudeE7,
+        int longitudeE7,
+        int altitudeCm,
+        int accuracyCm,
+        short rssiDbm,
+        int smoothedLatitudeE7,
+        int smoothedLongitudeE7,
+        byte flags) {
+
+    /** 高度がある */
+    public static final int HAS_ALTITUDE = 1;
+
+    /** 精度がある */
+    public static final int HAS_ACCURACY = 1 << 1;
+
+    /** BLE信号強度がある */
+    public static final int HAS_RSSI = 1 << 2;
+
+    /** 平滑化後の緯度・経度がある */
+    public static final int HAS_SMOOTHED = 1 << 3;
+
+    private static final double DEGREE_SCALE = 1e7;
+    private static final double METER_SCALE = 100.0;
+    private static final double MAX_LATITUDE = 90.0;
+    private static final double MAX_LONGITUDE = 180.0;
+
+    /**
+     * 取り込み処理の位置情報から測定値を生成
+     *
+     * @param point 位置情報（緯度・経度は必須）
+     * @return 測定値
+     */
+    public static PackedLocation of(LocationPoint point) {
+        return of(point.latitude(), point.longitude(), point.altitude(), point.accuracy(), point.rssi(),
+                point.smoothedLatitude(), point.smoothedLongitude());
+    }
+
+    /**
+     * 項目ごとの値から測定値を生成
+     *
+     * 平滑化後の緯度・経度は両方ある場合だけ保持します
+     *
+     * @param latitude          緯度
+     * @param longitude         経度
+     * @param altitude          高度（メートル、null 可）
+     * @param accuracy          精度（メートル、null 可）
+     * @param rssi              BLE信号強度（dBm、null 可）
+     * @param smoothedLatitude  平滑化後の緯度（null 可）
+     * @param smoothedLongitude 平滑化後の経度（null 可）
+     * @return 測定値
+     * @throws IllegalArgumentException 緯度・経度が範囲外の場合や、整数に収まらない値・NaN・無限大の場合
+     */
+    public static PackedLocation of(double latitude, double longitude, Double altitude, Double accuracy,
+            Integer rssi, Double smoothedLatitude, Double smoothedLongitude) {
+        requireDegrees("緯度", latitude, MAX_LATITUDE);
+        requireDegrees("経度", longitude, MAX_LONGITUDE);
+        if (rssi != null && (rssi < Short.MIN_VALUE || rssi > Short.MAX_VALUE)) {
+            throw new IllegalArgumentException("BLE信号強度が範囲外です: " + rssi);
+        }
+        boolean smoothed = smoothedLatitude != null && smoothedLongitude != null;
+        int flags = (altitude != null ? HAS_ALTITUDE : 0)
+                | (accuracy != null ? HAS_ACCURACY : 0)
+                | (rssi != null ? HAS_RSSI : 0)
+                | (smoothed ? HAS_SMOOTHED : 0);
+        return new PackedLocation(
+                toE7(latitude),
+                toE7(longitude),
+                altitude != null ? toCentimeters(altitude) : 0,
+                accuracy != null ? toCentimeters(accuracy) : 0,
+                rssi != null ? rssi.shortValue() : 0,
+                smoothed ? toE7(requireDegrees("平滑化後の緯度", smoothedLatitude, MAX_LATITUDE)) : 0,
+                smoothed ? toE7(requireDegrees("平滑化後の経度", smoothedLongitude, MAX_LONGITUDE)) : 0,
+                (byte) flags);
+    }
+
+    /**
+     * 項目に値があるかを判定
+     *
+     * @param flag 項目のビット（{@link #HAS_ALTITUDE} など）
+     * @return 値がある場合true
+     */
+    public boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * 緯度を返す
+     *
+     * @return 緯度
+     */
+    public double latitude() {
+        return fromE7(latitudeE7);
+    }
+
+    /**
+     * 経度を返す
+     *
+     * @return 経度
+     */
+    public double longitude() {
+        return fromE7(longitudeE7);
+    }
+
+    /**
+     * 距離の計算や軌跡に使う緯度を返す
+     *
+     * @return 平滑化後の緯度（平滑化していない場合は緯度）
+     */
+    public double effectiveLatitude() {
+        return fromE7(has(HAS_SMOOTHED) ? smoothedLatitudeE7 : latitudeE7);
+    }
+
+    /**
+     * 距離の計算や軌跡に使う経度を返す
+     *
+     * @return 平滑化後の経度（平滑化していない場合は経度）
+     */
+    public double effectiveLongitude() {
+        return fromE7(has(HAS_SMOOTHED) ? smoothedLongitudeE7 : longitudeE7);
+    }
+
+    /**
+     * 高度を返す
+     *
+     * @return 高度（メートル、ない場合は null）
+     */
+    public Double altitude() {
+        return has(HAS_ALTITUDE) ? fromCentimeters(altitudeCm) : null;
+    }
+
+    /**
+     * 精度を返す
+     *
+     * @return 精度（メートル、ない場合は null）
+     */
+    public Double accuracy() {
+        return has(HAS_ACCURACY) ? fromCentimeters(accuracyCm) : null;
+    }
+
+    /**
+     * BLE信号強度を返す
+     *
+     * @return BLE信号強度（dBm、ない場合は null）
+     */
+    public Integer rssi() {
+        return has(HAS_RSSI) ? Integer.valueOf(rssiDbm) : null;
+    }
+
+    /**
+     * 平滑化後の緯度を返す
+     *
+     * @return 平滑化後の緯度（平滑化していない場合は null）
+     */
+    public Double smoothedLatitude() {
+        return has(HAS_SMOOTHED) ? fromE7(smoothedLatitudeE7) : null;
+    }
+
+    /**
+     * 平滑化後の経度を返す
+     *
+     * @return 平滑化後の経度（平滑化していない場合は null）
+     */
+    public Double smoothedLongitude() {
+        return has(HAS_SMOOTHED) ? fromE7(smoothedLongitudeE7) : null;
+    }
+
+    /**
+     * 取り込み処理の位置情報に変換
+     *
+     * @param id        位置情報ID
+     * @param deviceId  デバイスID
+     * @param timestamp タイムスタンプ
+     * @param createdAt 保存した日時
+     * @return 位置情報
+     */
+    public LocationPoint toPoint(Long id, String deviceId, LocalDateTime timestamp, LocalDateTime createdAt) {
+        return new LocationPoint(id, deviceId, latitude(), longitude(), altitude(), accuracy(), rssi(),
+                smoothedLatitude(), smoothedLongitude(), timestamp, createdAt);
+    }
+
+    /**
+     * 度を1e-7度単位の整数に変換
+     *
+     * @param degrees 度
+     * @return 1e-7度単位の整数
+     * @throws IllegalArgumentException intに収まらない値やNaN・無限大の場合
+     */
+    public static int toE7(double degrees) {
+        return toScaledInt("角度", degrees, DEGREE_SCALE);
+    }
+
+    /**
+     * 1e-7度単位の整数を度に変換
+     *
+     * 乗算ではなく除算で戻すため、小数点以下7桁までの値は元の double と一致します
+     *
+     * @param e7 1e-7度単位の整数
+     * @return 度
+     */
+    public static double fromE7(int e7) {
+        return e7 / DEGREE_SCALE;
+    }
+
+    /**
+     * メートルをセンチメートル単位の整数に変換
+     *
+     * @param meters メートル
+     * @return センチメートル
+     * @throws IllegalArgumentException intに収まらない値やNaN・無限大の場合
+     */
+    public static int toCentimeters(double meters) {
+        return toScaledInt("長さ", meters, METER_SCALE);
+    }
+
+    /**
+     * センチメートル単位の整数をメートルに変換
+     *
+     * @param centimeters センチメートル
+     * @return メートル
+     */
+    public static double fromCentimeters(int centimeters) {
+        return centimeters / METER_SCALE;
+    }
+
+    private static double requireDegrees(String name, double degrees, double max) {
+        if (!(degrees >= -max && degrees <= max)) {
+            throw new IllegalArgumentException(name + "は-" + (int) max + "から" + (int) max + "の範囲で指定してください: "
+                    + degrees);
+        }
+        return degrees;
+    }
+
+    private static int toScaledInt(String name, double value, double scale) {
+        double scaled = Math.floor(value * scale + 0.5);
+        if (!(scaled >= Integer.MIN_VALUE && scaled <= Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(name + "を整数で保存できません: " + value);
+        }
+        return (int) scaled;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.iotble.device;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * デバイスIDとデバイスキーを変換するJPAのコンバーター
+ *
+ * 位置情報エンティティはデバイスIDを文字列のまま扱い、列にはデバイスキーを保存します。
+ * JPQLの条件に渡したデバイスIDもキーに変換されるため、登録されていないデバイスIDは
+ * どの行とも一致しないキー（{@link DeviceRegistry#UNKNOWN_KEY}）になります。
+ * 保存前の登録は {@link DeviceRegistrationListener} が行います
+ */
+@Converter
+public class DeviceKeyConverter implements AttributeConverter<String, Integer> {
+
+    private final DeviceRegistry deviceRegistry;
+
+    public DeviceKeyConverter(DeviceRegistry deviceRegistry) {
+        this.deviceRegistry = deviceRegistry;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String deviceId) {
+        return deviceId != null ? deviceRegistry.findKey(deviceId) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer deviceKey) {
+        return deviceKey != null ? deviceRegistry.getDeviceId(deviceKey) : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.iotble.device;
+
+import com.example.iotble.model.LocationData;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * 位置情報を保存する前にデバイスを登録するエンティティリスナー
+ *
+ * 保存時の列の値は {@link DeviceKeyConverter} が登録済みのキーから求めるため、
+ * 初めて保存するデバイスはここで登録しておきます
+ */
+public class DeviceRegistrationListener {
+
+    private final DeviceRegistry deviceRegistry;
+
+    public DeviceRegistrationListener(DeviceRegistry deviceRegistry) {
+        this.deviceRegistry = deviceRegistry;
+    }
+
+    /**
+     * 位置情報のデバイスを登録
+     *
+     * @param location 保存する位置情報
+     */
+    @PrePersist
+    @PreUpdate
+    public void register(LocationData location) {
+        String deviceId = location.getDeviceId();
+        if (deviceId != null && !deviceId.isBlank()) {
+            deviceRegistry.register(deviceId);
+        }
+    }
+}
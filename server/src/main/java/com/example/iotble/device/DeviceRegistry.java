@@ -0,0 +1,262 @@
+package com.example.iotble.device;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * デバイスIDと整数のデバイスキーを対応付けるレジストリ
+ *
+ * 位置情報テーブルとそのインデックスはデバイスIDの代わりにデバイスキーを保持します。
+ * 対応は device_registry テーブルに保存し、メモリ上の双方向の辞書で変換するため、
+ * 登録済みのデバイスの変換はデータベースを参照しません。
+ * デバイスIDはすべてのシャード・サイトで一意なため、レジストリは既定のシャード
+ * （サイトごとに分けた場合は既定のサイト）のデータベースに1つだけ置き、キーは全体で共有します。
+ * 登録は呼び出し元のトランザクションとは別の接続で即時にコミットするため、
+ * 位置情報の保存がロールバックされても登録は残り、未登録のキーを参照する行はできません
+ */
+@Repository
+@Slf4j
+public class DeviceRegistry {
+
+    /** 登録されていないデバイスIDに対して返すキー（採番されるキーは1から） */
+    public static final int UNKNOWN_KEY = 0;
+
+    private static final String INSERT_SQL = "INSERT INTO device_registry (device_id, registered_at) VALUES (?, ?)";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Integer> keysByDeviceId = new ConcurrentHashMap<>();
+    private volatile String[] deviceIdsByKey = new String[1024];
+    private volatile boolean loaded;
+
+    /**
+     * レジストリを生成
+     *
+     * 登録済みのデバイスは最初に参照した時点で読み込みます（テーブルはJPAが起動時に作成するため）
+     *
+     * @param dataSource    データソース（シャードやサイトが定義されていない場合に使用）
+     * @param shardTemplate シャードのテンプレート（定義されていない場合はシャーディングなし）
+     * @param siteTemplate  サイトのテンプレート（定義されていない場合は既定のサイトのみ）
+     */
+    public DeviceRegistry(DataSource dataSource, ObjectProvider<ShardTemplate> shardTemplate,
+            ObjectProvider<SiteTemplate> siteTemplate) {
+        DataSource home = homeDataSource(dataSource, shardTemplate.getIfAvailable(),
+                siteTemplate.getIfAvailable(SiteTemplate::single));
+        this.dataSource = home;
+        this.jdbcTemplate = new JdbcTemplate(home);
+    }
+
+    /**
+     * デバイスを登録し、デバイスキーを取得
+     *
+     * 登録済みの場合は辞書の参照だけで返します。他のスレッドやサーバーが同時に登録した場合は、
+     * 先に登録されたキーを返します
+     *
+     * @param deviceId デバイスID
+     * @return デバイスキー
+     */
+    public int register(String deviceId) {
+        Integer key = keysByDeviceId.get(deviceId);
+        if (key != null) {
+            return key;
+        }
+        ensureLoaded();
+        int found = findKey(deviceId);
+        if (found != UNKNOWN_KEY) {
+            return found;
+        }
+        Integer inserted = insert(deviceId);
+        if (inserted == null) {
+            // 他のスレッドやサーバーが先に登録した
+            inserted = selectKey(deviceId);
+            if (inserted == null) {
+                throw new IllegalStateException("デバイスを登録できませんでした: " + deviceId);
+            }
+        } else {
+            log.debug("デバイスを登録しました: deviceId={}, deviceKey={}", deviceId, inserted);
+        }
+        remember(inserted, deviceId);
+        return inserted;
+    }
+
+    /**
+     * 複数のデバイスをまとめて登録
+     *
+     * 位置情報をJDBCで登録する前に呼び出し、登録の接続が位置情報のトランザクションと
+     * 同時に接続を保持しないようにします
+     *
+     * @param deviceIds デバイスIDのリスト（重複可）
+     */
+    public void registerAll(Iterable<String> deviceIds) {
+        for (String deviceId : deviceIds) {
+            register(deviceId);
+        }
+    }
+
+    /**
+     * デバイスキーを取得（登録はしない）
+     *
+     * 辞書にない場合はテーブルを参照し、他のサーバーが登録したデバイスを取り込みます
+     *
+     * @param deviceId デバイスID
+     * @return デバイスキー（登録されていない場合は {@link #UNKNOWN_KEY}）
+     */
+    public int findKey(String deviceId) {
+        Integer key = keysByDeviceId.get(deviceId);
+        if (key != null) {
+            return key;
+        }
+        ensureLoaded();
+        key = keysByDeviceId.get(deviceId);
+        if (key != null) {
+            return key;
+        }
+        Integer selected = selectKey(deviceId);
+        if (selected == null) {
+            return UNKNOWN_KEY;
+        }
+        remember(selected, deviceId);
+        return selected;
+    }
+
+    /**
+     * デバイスキーのデバイスIDを取得
+     *
+     * @param deviceKey デバイスキー
+     * @return デバイスID
+     * @throws IllegalStateException キーが登録されていない場合
+     */
+    public String getDeviceId(int deviceKey) {
+        String[] ids = deviceIdsByKey;
+        if (deviceKey > 0 && deviceKey < ids.length && ids[deviceKey] != null) {
+            return ids[deviceKey];
+        }
+        ensureLoaded();
+        ids = deviceIdsByKey;
+        if (deviceKey > 0 && deviceKey < ids.length && ids[deviceKey] != null) {
+            return ids[deviceKey];
+        }
+        List<String> selected = jdbcTemplate.queryForList(
+                "SELECT device_id FROM device_registry WHERE device_key = ?", String.class, deviceKey);
+        if (selected.isEmpty()) {
+            throw new IllegalStateException("登録されていないデバイスキーです: " + deviceKey);
+        }
+        remember(deviceKey, selected.get(0));
+        return selected.get(0);
+    }
+
+    /**
+     * 辞書に読み込まれているデバイス数を取得
+     *
+     * @return デバイス数
+     */
+    public int size() {
+        return keysByDeviceId.size();
+    }
+
+    /**
+     * デバイスを登録し、採番されたキーを返す
+     *
+     * 呼び出し元のトランザクションに参加しないよう、トランザクションに結び付いていない接続を
+     * データソースから直接取得し、自動コミットで登録します
+     *
+     * @return 採番されたキー（同じデバイスIDが登録済みの場合は null）
+     */
+    private Integer insert(String deviceId) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, deviceId);
+                ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    return keys.next() ? keys.getInt(1) : null;
+                }
+            }
+        } catch (SQLException e) {
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("register", INSERT_SQL, e);
+            if (translated instanceof DuplicateKeyException) {
+                return null;
+            }
+            throw translated != null ? translated : new UncategorizedSQLException("register", INSERT_SQL, e);
+        }
+    }
+
+    private Integer selectKey(String deviceId) {
+        List<Integer> keys = jdbcTemplate.queryForList(
+                "SELECT device_key FROM device_registry WHERE device_id = ?", Integer.class, deviceId);
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    /**
+     * テーブルの登録内容を辞書に読み込む（最初の1回のみ）
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            jdbcTemplate.query("SELECT device_key, device_id FROM device_registry",
+                    (ResultSet rs) -> remember(rs.getInt(1), rs.getString(2)));
+            loaded = true;
+            if (!keysByDeviceId.isEmpty()) {
+                log.info("登録済みのデバイスを読み込みました: デバイス数={}", keysByDeviceId.size());
+            }
+        }
+    }
+
+    /**
+     * 対応を辞書に追加する
+     *
+     * 配列はキーが収まらない場合に倍に広げて置き換えます
+     */
+    private synchronized void remember(int deviceKey, String deviceId) {
+        String[] ids = deviceIdsByKey;
+        if (deviceKey >= ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(ids.length * 2, deviceKey + 1));
+        }
+        ids[deviceKey] = deviceId;
+        deviceIdsByKey = ids;
+        keysByDeviceId.put(deviceId, deviceKey);
+    }
+
+    /**
+     * レジストリを置くデータベースのデータソースを選ぶ
+     */
+    private static DataSource homeDataSource(DataSource dataSource, ShardTemplate shardTemplate,
+            SiteTemplate siteTemplate) {
+        if (siteTemplate.isPartitioned()) {
+            return siteTemplate.getDataSource(siteTemplate.getDefaultSite());
+        }
+        if (shardTemplate != null && shardTemplate.getDataSource(shardTemplate.getDefaultShard()) != null) {
+            return shardTemplate.getDataSource(shardTemplate.getDefaultShard());
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.iotble.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * デバイスの履歴が一括削除されたことを通知するイベント
+ * 
+ * デバイスの廃止やプライバシー対応による削除で発行され、集計データなど
+ * 位置情報から派生したデータも同じ範囲で削除させるために使用します。
+ * デバイスを指定しない期間のみの削除（保持期間による削除など）では発行されません。
+ * 
+ * @param deviceId  デバイスID
+ * @param startTime 削除した期間の開始時刻（null の場合は下限なし）
+ * @param endTime   削除した期間の終了時刻（null の場合は上限なし）
+ */
+public record DeviceHistoryDeletedEvent(String deviceId, LocalDateTime startTime, LocalDateTime endTime) {
+}
@@ -0,0 +1,37 @@
+package com.example.iotble.event;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 位置情報が削除されたことを通知するイベント
+ * 
+ * メモリ上のインデックスやキャッシュは、このイベントを受け取って
+ * データベースの内容と整合性を保ちます
+ * 
+ * @param ids       削除された位置情報のIDリスト（全件削除の場合は空）
+ * @param deviceIds 削除対象に含まれていたデバイスIDの集合（全件削除の場合は空）
+ * @param purgedAll 全件削除の場合true
+ */
+public record LocationsDeletedEvent(List<Long> ids, Set<String> deviceIds, boolean purgedAll) {
+
+    /**
+     * 指定IDの削除イベントを生成
+     * 
+     * @param ids       削除された位置情報のIDリスト
+     * @param deviceIds 削除対象に含まれていたデバイスIDの集合
+     * @return 削除イベント
+     */
+    public static LocationsDeletedEvent of(List<Long> ids, Set<String> deviceIds) {
+        return new LocationsDeletedEvent(List.copyOf(ids), Set.copyOf(deviceIds), false);
+    }
+
+    /**
+     * 全件削除イベントを生成
+     * 
+     * @return 全件削除イベント
+     */
+    public static LocationsDeletedEvent all() {
+        return new LocationsDeletedEvent(List.of(), Set.of(), true);
+    }
+}
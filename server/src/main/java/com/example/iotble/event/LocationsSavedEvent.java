@@ -0,0 +1,27 @@
+package com.example.iotble.event;
+
+import java.util.List;
+
+import com.example.iotble.model.LocationData;
+
+/**
+ * 位置情報が保存されたことを通知するイベント
+ * 
+ * {@code POST /api/locations} による1件ずつの保存と、一括インポートによるバッチ単位の
+ * 保存の両方で発行されます。集計やメモリ上のインデックスはこのイベントを受け取って更新します。
+ * 一括インポートで保存された位置情報にはIDが設定されていません。
+ * 
+ * @param locations 保存された位置情報
+ */
+public record LocationsSavedEvent(List<LocationData> locations) {
+
+    /**
+     * 1件の保存イベントを生成
+     * 
+     * @param location 保存された位置情報
+     * @return 保存イベント
+     */
+    public static LocationsSavedEvent of(LocationData location) {
+        return new LocationsSavedEvent(List.of(location));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.iotble.ingest;
+
+/**
+ * バイナリ受信の応答（ACK）の結果
+ */
+public enum AckStatus {
+
+    /** 保存した */
+    OK(0),
+
+    /** フレームの内容が不正なため保存しなかった（再送しても同じ結果になる） */
+    INVALID(1),
+
+    /** 保存に失敗した（再送できる） */
+    ERROR(2),
+
+    /** 処理が混み合っているため受け付けなかった（時間をおいて再送する） */
+    BUSY(3);
+
+    private final int code;
+
+    AckStatus(int code) {
+        this.code = code;
+    }
+
+    /**
+     * ACKに書き込む値を取得
+     *
+     * @return 結果のコード
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * ACKの値から結果を取得
+     *
+     * @param code 結果のコード
+     * @return 結果
+     * @throws IllegalArgumentException 未知のコードの場合
+     */
+    public static AckStatus fromCode(int code) {
+        for (AckStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("未知のACKコードです: " + code);
+    }
+}
@@ -0,0 +1,598 @@
+package com.example.iotble.ingest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ゲートウェイから位置情報のバイナリフレームを受信するTCP/UDPサーバー
+ *
+ * 1つのセレクタースレッドでTCP接続とUDPを非ブロッキングで読み出し、フレームを取り出して
+ * ワーカースレッドで検証・保存します。フレームの形式は {@link LocationFrameCodec} を参照してください。
+ *
+ * <ul>
+ * <li>TCP: フレームごとに受信順でACKを返します。ACKを書き込んでいないフレームが接続ごとの上限に達すると
+ * その接続の読み出しを止め、TCPのウィンドウで送信元を待たせます</li>
+ * <li>UDP: 1つのデータグラムに複数のフレームを入れられ、そのフレームのACKをまとめて1つのデータグラムで返します。
+ * ワーカーのキューが一杯の場合は保存せずに {@link AckStatus#BUSY} を返します</li>
+ * </ul>
+ *
+ * 受信用のバッファはダイレクトバッファのプールから借り、フレームはバッファから直接読み出します
+ */
+@Slf4j
+public class BinaryIngestServer implements AutoCloseable {
+
+    /** キューが一杯でワーカーに渡せなかった接続を再試行する間隔（ミリ秒） */
+    private static final long RETRY_INTERVAL_MILLIS = 10;
+
+    /** 1回の選択で読み出すUDPデータグラムの上限（TCP接続を待たせないため） */
+    private static final int MAX_DATAGRAMS_PER_SELECT = 64;
+
+    private final Options options;
+    private final LocationFrameHandler handler;
+    private final DirectBufferPool bufferPool;
+    private final LocationFrameCodec codec = new LocationFrameCodec();
+
+    private final Queue<Connection> flushRequests = new ConcurrentLinkedQueue<>();
+    private final Queue<Connection> drainRetries = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder receivedFrames = new LongAdder();
+    private final LongAdder acceptedFrames = new LongAdder();
+    private final LongAdder rejectedFrames = new LongAdder();
+    private final LongAdder busyFrames = new LongAdder();
+
+    private ThreadPoolExecutor workers;
+    private Selector selector;
+    private ServerSocketChannel tcpChannel;
+    private DatagramChannel udpChannel;
+    private ByteBuffer udpBuffer;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    /**
+     * サーバーの設定
+     *
+     * @param host                接続を待ち受けるアドレス
+     * @param tcpPort             TCPのポート（0で空いているポート、負の値でTCPを使用しない）
+     * @param udpPort             UDPのポート（0で空いているポート、負の値でUDPを使用しない）
+     * @param maxFrameBytes       ペイロードの最大バイト数（超えるTCP接続は切断）
+     * @param maxInFlightFrames   TCP接続ごとにACKを返していないフレームの上限
+     * @param workerThreads       検証・保存を行うスレッド数
+     * @param workerQueueCapacity ワーカーのキューの上限
+     * @param bufferBytes         接続ごとの受信・送信バッファの大きさ（バイト）
+     * @param pooledBuffers       プールに保持するバッファの最大数
+     */
+    @Builder
+    public record Options(String host, int tcpPort, int udpPort, int maxFrameBytes, int maxInFlightFrames,
+            int workerThreads, int workerQueueCapacity, int bufferBytes, int pooledBuffers) {
+
+        public Options {
+            if (maxFrameBytes < LocationFrameCodec.HEADER_BYTES || maxFrameBytes > 0xFFFF) {
+                throw new IllegalArgumentException("maxFrameBytes は "
+                        + LocationFrameCodec.HEADER_BYTES + " 以上 65535 以下にしてください: " + maxFrameBytes);
+            }
+            if (maxInFlightFrames <= 0 || workerThreads <= 0 || workerQueueCapacity <= 0) {
+                throw new IllegalArgumentException("maxInFlightFrames, workerThreads, workerQueueCapacity は正の値にしてください");
+            }
+            int required = Math.max(LocationFrameCodec.LENGTH_PREFIX_BYTES + maxFrameBytes,
+                    maxInFlightFrames * LocationFrameCodec.ACK_BYTES);
+            if (bufferBytes < required) {
+                throw new IllegalArgumentException("bufferBytes は " + required + " 以上にしてください: " + bufferBytes);
+            }
+        }
+    }
+
+    /**
+     * サーバーを生成
+     *
+     * @param options 設定
+     * @param handler 受信した位置情報の検証・保存処理
+     */
+    public BinaryIngestServer(Options options, LocationFrameHandler handler) {
+        this.options = options;
+        this.handler = handler;
+        this.bufferPool = new DirectBufferPool(options.bufferBytes(), options.pooledBuffers());
+    }
+
+    /**
+     * ポートを開いて受信を開始
+     *
+     * @throws IOException ポートを開けない場合
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(options.workerThreads(), options.workerThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(options.workerQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "ingest-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        selector = Selector.open();
+        try {
+            if (options.tcpPort() >= 0) {
+                tcpChannel = ServerSocketChannel.open();
+                tcpChannel.bind(new InetSocketAddress(options.host(), options.tcpPort()));
+                tcpChannel.configureBlocking(false);
+                tcpChannel.register(selector, SelectionKey.OP_ACCEPT);
+            }
+            if (options.udpPort() >= 0) {
+                udpChannel = DatagramChannel.open();
+                udpChannel.bind(new InetSocketAddress(options.host(), options.udpPort()));
+                udpChannel.configureBlocking(false);
+                udpChannel.register(selector, SelectionKey.OP_READ);
+                udpBuffer = bufferPool.acquire();
+            }
+        } catch (IOException e) {
+            closeChannels();
+            workers.shutdownNow();
+            throw e;
+        }
+        running = true;
+        selectorThread = new Thread(this::selectLoop, "ingest-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("バイナリ受信を開始しました: TCP={}, UDP={}", getTcpPort(), getUdpPort());
+    }
+
+    /**
+     * 受信を停止し、ポートを閉じる
+     *
+     * 処理中のフレームの保存は完了を待ちます
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+            workers.shutdown();
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        log.info("バイナリ受信を停止しました: 受信={}, 保存={}, 不正={}, 混雑={}",
+                receivedFrames.sum(), acceptedFrames.sum(), rejectedFrames.sum(), busyFrames.sum());
+    }
+
+    /**
+     * TCPの待ち受けポートを取得
+     *
+     * @return ポート番号（TCPを使用しない場合は -1）
+     */
+    public int getTcpPort() {
+        return tcpChannel != null ? tcpChannel.socket().getLocalPort() : -1;
+    }
+
+    /**
+     * UDPの待ち受けポートを取得
+     *
+     * @return ポート番号（UDPを使用しない場合は -1）
+     */
+    public int getUdpPort() {
+        return udpChannel != null ? udpChannel.socket().getLocalPort() : -1;
+    }
+
+    /**
+     * 受信したフレームの数を取得
+     *
+     * @return フレームの数
+     */
+    public long getReceivedFrames() {
+        return receivedFrames.sum();
+    }
+
+    /**
+     * 保存したフレームの数を取得
+     *
+     * @return フレームの数
+     */
+    public long getAcceptedFrames() {
+        return acceptedFrames.sum();
+    }
+
+    /**
+     * 混雑のため受け付けなかったフレームの数を取得
+     *
+     * @return フレームの数
+     */
+    public long getBusyFrames() {
+        return busyFrames.sum();
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select(drainRetries.isEmpty() ? 0 : RETRY_INTERVAL_MILLIS);
+                for (int i = drainRetries.size(); i > 0; i--) {
+                    Connection connection = drainRetries.poll();
+                    if (connection != null) {
+                        scheduleDrain(connection);
+                    }
+                }
+                Connection flushed;
+                while ((flushed = flushRequests.poll()) != null) {
+                    flushed.flushRequested.set(false);
+                    flush(flushed);
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    handleKey(key);
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                log.error("バイナリ受信のセレクターが停止しました", e);
+            }
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.channel() == udpChannel) {
+            readDatagrams();
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        if (key.isWritable()) {
+            flush(connection);
+        }
+        if (key.isValid() && key.isReadable()) {
+            read(connection);
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = tcpChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection connection = new Connection(channel, bufferPool.acquire(), bufferPool.acquire());
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                log.debug("ゲートウェイが接続しました: {}", channel.getRemoteAddress());
+            }
+        } catch (IOException e) {
+            log.warn("TCP接続の受け付けに失敗しました", e);
+        }
+    }
+
+    private void read(Connection connection) {
+        try {
+            if (connection.channel.read(connection.in) < 0) {
+                log.debug("ゲートウェイが切断しました: {}", connection.channel.getRemoteAddress());
+                closeConnection(connection);
+                return;
+            }
+        } catch (IOException e) {
+            log.debug("TCP接続の読み出しに失敗しました: {}", e.getMessage());
+            closeConnection(connection);
+            return;
+        }
+        parseFrames(connection);
+    }
+
+    /**
+     * 受信バッファから完全なフレームを取り出す（ACKを返していないフレームが上限に達するまで）
+     */
+    private void parseFrames(Connection connection) {
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (connection.inFlight() < options.maxInFlightFrames()
+                && in.remaining() >= LocationFrameCodec.LENGTH_PREFIX_BYTES) {
+            int length = in.getShort(in.position()) & 0xFFFF;
+            if (length < LocationFrameCodec.HEADER_BYTES || length > options.maxFrameBytes()) {
+                log.warn("フレーム長が不正なため切断します: length={}", length);
+                in.compact();
+                closeConnection(connection);
+                return;
+            }
+            if (in.remaining() < LocationFrameCodec.LENGTH_PREFIX_BYTES + length) {
+                break;
+            }
+            int offset = in.position() + LocationFrameCodec.LENGTH_PREFIX_BYTES;
+            connection.pending.add(decode(in, offset, length));
+            connection.receivedFrames++;
+            in.position(offset + length);
+        }
+        in.compact();
+        updateInterest(connection);
+        scheduleDrain(connection);
+    }
+
+    private LocationFrame decode(ByteBuffer buffer, int offset, int length) {
+        receivedFrames.increment();
+        try {
+            return codec.decode(buffer, offset, length);
+        } catch (IllegalArgumentException e) {
+            log.warn("フレームの内容が不正です: {}", e.getMessage());
+            return LocationFrame.invalid(LocationFrameCodec.sequenceOf(buffer, offset));
+        }
+    }
+
+    /**
+     * ACKを返していないフレームが上限未満の間だけ読み出し、送信待ちのACKがあれば書き込みを待つ
+     */
+    private void updateInterest(Connection connection) {
+        if (!connection.key.isValid()) {
+            return;
+        }
+        int ops = connection.inFlight() < options.maxInFlightFrames() ? SelectionKey.OP_READ : 0;
+        if (connection.hasPendingAcks()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        connection.key.interestOps(ops);
+    }
+
+    private void scheduleDrain(Connection connection) {
+        if (connection.pending.isEmpty() || connection.closed || !connection.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            workers.execute(() -> drain(connection));
+        } catch (RejectedExecutionException e) {
+            connection.draining.set(false);
+            drainRetries.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * 接続の受信済みフレームを受信順に処理してACKを積む（ワーカースレッド）
+     */
+    private void drain(Connection connection) {
+        try {
+            LocationFrame frame;
+            while (!connection.closed && (frame = connection.pending.poll()) != null) {
+                connection.appendAck(frame.sequence(), process(frame));
+                if (connection.flushRequested.compareAndSet(false, true)) {
+                    flushRequests.add(connection);
+                    selector.wakeup();
+                }
+            }
+        } finally {
+            connection.draining.set(false);
+        }
+        // 処理の終了と同時に追加されたフレームを取りこぼさない
+        scheduleDrain(connection);
+    }
+
+    private AckStatus process(LocationFrame frame) {
+        AckStatus status = frame.location() != null ? handler.handle(frame.location()) : AckStatus.INVALID;
+        if (status == AckStatus.OK) {
+            acceptedFrames.increment();
+        } else {
+            rejectedFrames.increment();
+        }
+        return status;
+    }
+
+    /**
+     * 積まれたACKを書き込み、上限を下回れば読み出しを再開する
+     */
+    private void flush(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        try {
+            connection.writeAcks();
+        } catch (IOException e) {
+            log.debug("ACKの送信に失敗しました: {}", e.getMessage());
+            closeConnection(connection);
+            return;
+        }
+        if (connection.in.position() > 0 && connection.inFlight() < options.maxInFlightFrames()) {
+            // 上限で止めていたフレームがバッファに残っている
+            parseFrames(connection);
+        } else {
+            updateInterest(connection);
+        }
+    }
+
+    private void closeConnection(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            log.debug("TCP接続のクローズに失敗しました: {}", e.getMessage());
+        }
+        bufferPool.release(connection.in);
+        connection.close(bufferPool);
+    }
+
+    private void readDatagrams() {
+        for (int i = 0; i < MAX_DATAGRAMS_PER_SELECT; i++) {
+            SocketAddress source;
+            try {
+                udpBuffer.clear();
+                source = udpChannel.receive(udpBuffer);
+            } catch (IOException e) {
+                log.warn("UDPの受信に失敗しました", e);
+                return;
+            }
+            if (source == null) {
+                return;
+            }
+            udpBuffer.flip();
+            List<LocationFrame> frames = parseDatagram(udpBuffer);
+            if (frames.isEmpty()) {
+                continue;
+            }
+            try {
+                workers.execute(() -> {
+                    List<AckStatus> statuses = new ArrayList<>(frames.size());
+                    frames.forEach(frame -> statuses.add(process(frame)));
+                    sendAcks(source, frames, statuses);
+                });
+            } catch (RejectedExecutionException e) {
+                busyFrames.add(frames.size());
+                sendAcks(source, frames, frames.stream().map(frame -> AckStatus.BUSY).toList());
+            }
+        }
+    }
+
+    /**
+     * データグラムからフレームを取り出す（途中で切れたフレーム以降は破棄）
+     */
+    private List<LocationFrame> parseDatagram(ByteBuffer datagram) {
+        List<LocationFrame> frames = new ArrayList<>();
+        while (datagram.remaining() >= LocationFrameCodec.LENGTH_PREFIX_BYTES) {
+            int length = datagram.getShort(datagram.position()) & 0xFFFF;
+            if (length < LocationFrameCodec.HEADER_BYTES || length > options.maxFrameBytes()
+                    || datagram.remaining() < LocationFrameCodec.LENGTH_PREFIX_BYTES + length) {
+                log.warn("フレーム長が不正なためデータグラムの残りを破棄します: length={}", length);
+                break;
+            }
+            int offset = datagram.position() + LocationFrameCodec.LENGTH_PREFIX_BYTES;
+            frames.add(decode(datagram, offset, length));
+            datagram.position(offset + length);
+        }
+        return frames;
+    }
+
+    private void sendAcks(SocketAddress target, List<LocationFrame> frames, List<AckStatus> statuses) {
+        ByteBuffer acks = bufferPool.acquire();
+        try {
+            for (int i = 0; i < frames.size() && acks.remaining() >= LocationFrameCodec.ACK_BYTES; i++) {
+                LocationFrameCodec.encodeAck(frames.get(i).sequence(), statuses.get(i), acks);
+            }
+            acks.flip();
+            udpChannel.send(acks, target);
+        } catch (IOException e) {
+            log.debug("UDPのACKの送信に失敗しました: {}", e.getMessage());
+        } finally {
+            bufferPool.release(acks);
+        }
+    }
+
+    private void closeChannels() {
+        if (selector != null && selector.isOpen()) {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    closeConnection(connection);
+                }
+            }
+        }
+        try {
+            if (tcpChannel != null) {
+                tcpChannel.close();
+            }
+            if (udpChannel != null) {
+                udpChannel.close();
+                bufferPool.release(udpBuffer);
+            }
+            if (selector != null) {
+                selector.close();
+            }
+        } catch (IOException e) {
+            log.warn("バイナリ受信のクローズに失敗しました", e);
+        }
+    }
+
+    /**
+     * TCP接続ごとの状態
+     *
+     * 受信バッファと受信したフレーム数はセレクタースレッドだけが扱い、
+     * ACKの送信バッファはワーカースレッドが積んでセレクタースレッドが書き込むため接続で同期します
+     */
+    private static final class Connection {
+
+        private final SocketChannel channel;
+        private final ByteBuffer in;
+        private ByteBuffer out;
+        private SelectionKey key;
+
+        private final Queue<LocationFrame> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean flushRequested = new AtomicBoolean();
+        private volatile boolean closed;
+
+        /** 受信したフレームの数 */
+        private long receivedFrames;
+
+        /** 書き込んだACKのバイト数 */
+        private long writtenAckBytes;
+
+        private Connection(SocketChannel channel, ByteBuffer in, ByteBuffer out) {
+            this.channel = channel;
+            this.in = in;
+            this.out = out;
+        }
+
+        /**
+         * ACKを書き込んでいないフレームの数
+         */
+        private long inFlight() {
+            return receivedFrames - writtenAckBytes / LocationFrameCodec.ACK_BYTES;
+        }
+
+        private synchronized void appendAck(long sequence, AckStatus status) {
+            if (!closed) {
+                // 上限までしか受信しないため、送信バッファに収まらないことはない
+                LocationFrameCodec.encodeAck(sequence, status, out);
+            }
+        }
+
+        private synchronized boolean hasPendingAcks() {
+            return !closed && out.position() > 0;
+        }
+
+        private synchronized void writeAcks() throws IOException {
+            out.flip();
+            try {
+                writtenAckBytes += channel.write(out);
+            } finally {
+                out.compact();
+            }
+        }
+
+        private synchronized void close(DirectBufferPool pool) {
+            if (!closed) {
+                closed = true;
+                pool.release(out);
+                out = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.iotble.ingest;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 同じ大きさのダイレクトバッファを再利用するプール
+ *
+ * ダイレクトバッファは確保と解放のコストが大きいため、接続ごとに確保せずプールから貸し出します。
+ * プールが空の場合は新しく確保し、返却時にプールが一杯であれば破棄します
+ */
+public class DirectBufferPool {
+
+    private final int bufferBytes;
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    /**
+     * プールを生成
+     *
+     * @param bufferBytes バッファの大きさ（バイト）
+     * @param maxPooled   保持するバッファの最大数
+     */
+    public DirectBufferPool(int bufferBytes, int maxPooled) {
+        this.bufferBytes = bufferBytes;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+    }
+
+    /**
+     * バッファを借りる
+     *
+     * @return 空のバッファ
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    /**
+     * バッファを返却
+     *
+     * @param buffer 借りたバッファ
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferBytes) {
+            buffers.offer(buffer.clear());
+        }
+    }
+
+    /**
+     * バッファの大きさを取得
+     *
+     * @return バイト数
+     */
+    public int getBufferBytes() {
+        return bufferBytes;
+    }
+
+    /**
+     * プールに保持しているバッファの数を取得
+     *
+     * @return バッファの数
+     */
+    public int getPooledCount() {
+        return buffers.size();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.iotble.ingest;
+
+import com.example.iotble.model.LocationData;
+
+/**
+ * 受信した1件のフレーム
+ *
+ * @param sequence 送信元が採番した連番（ACKにそのまま返す）
+ * @param location 位置情報（フレームの内容が不正な場合は null）
+ */
+public record LocationFrame(long sequence, LocationData location) {
+
+    /**
+     * 内容が不正なフレームを生成
+     *
+     * @param sequence 送信元が採番した連番
+     * @return フレーム
+     */
+    public static LocationFrame invalid(long sequence) {
+        return new LocationFrame(sequence, null);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.iotble.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.example.iotble.model.LocationData;
+
+/**
+ * 位置情報のバイナリフレームの変換処理
+ *
+ * フレームは2バイトのペイロード長（符号なし、ビッグエンディアン）とペイロードで構成されます。
+ * ペイロードの形式は次のとおりです（数値はすべてビッグエンディアン）。
+ *
+ * <pre>
+ * offset size
+ *  0     1   バージョン（1）
+ *  1     1   フラグ（bit0: 高度あり、bit1: 精度あり、bit2: RSSIあり、bit3: タイムスタンプあり）
+ *  2     4   連番（符号なし、ACKにそのまま返す）
+ *  6     8   タイムスタンプ（UTCのエポックミリ秒）
+ * 14     8   緯度（double）
+ * 22     8   経度（double）
+ * 30     4   高度（float、メートル）
+ * 34     4   精度（float、メートル）
+ * 38     2   RSSI（short、dBm）
+ * 40     1   デバイスIDのバイト数 n
+ * 41     n   デバイスID（UTF-8）
+ * </pre>
+ *
+ * ACKは4バイトの連番と1バイトの {@link AckStatus} のコードで構成されます。
+ * 読み出しはバッファの位置を変えずに直接行い、中間の配列にコピーしません（デバイスIDの文字列化を除く）。
+ * インスタンスはデバイスIDの変換用の作業領域を持つため、スレッドごとに使用してください
+ */
+public final class LocationFrameCodec {
+
+    /** フレームの形式のバージョン */
+    public static final int VERSION = 1;
+
+    /** ペイロード長のバイト数 */
+    public static final int LENGTH_PREFIX_BYTES = 2;
+
+    /** デバイスIDを除くペイロードのバイト数 */
+    public static final int HEADER_BYTES = 41;
+
+    /** ペイロードの最大バイト数 */
+    public static final int MAX_PAYLOAD_BYTES = HEADER_BYTES + 255;
+
+    /** ACKのバイト数 */
+    public static final int ACK_BYTES = 5;
+
+    static final int FLAG_ALTITUDE = 1;
+    static final int FLAG_ACCURACY = 1 << 1;
+    static final int FLAG_RSSI = 1 << 2;
+    static final int FLAG_TIMESTAMP = 1 << 3;
+
+    private final byte[] deviceIdBytes = new byte[255];
+
+    /**
+     * ペイロードの連番を読み出す
+     *
+     * @param buffer バッファ
+     * @param offset ペイロードの開始位置
+     * @return 連番
+     */
+    public static long sequenceOf(ByteBuffer buffer, int offset) {
+        return Integer.toUnsignedLong(buffer.getInt(offset + 2));
+    }
+
+    /**
+     * ペイロードから位置情報を読み出す
+     *
+     * @param buffer バッファ（位置と上限は変更しません）
+     * @param offset ペイロードの開始位置
+     * @param length ペイロードのバイト数
+     * @return フレーム
+     * @throws IllegalArgumentException ペイロードの内容が不正な場合
+     */
+    public LocationFrame decode(ByteBuffer buffer, int offset, int length) {
+        if (length < HEADER_BYTES) {
+            throw new IllegalArgumentException("ペイロードが短すぎます: " + length);
+        }
+        int version = buffer.get(offset) & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("未対応のバージョンです: " + version);
+        }
+        int flags = buffer.get(offset + 1) & 0xFF;
+        int deviceIdLength = buffer.get(offset + 40) & 0xFF;
+        if (HEADER_BYTES + deviceIdLength != length) {
+            throw new IllegalArgumentException("デバイスIDの長さがペイロード長と一致しません: " + deviceIdLength);
+        }
+        double latitude = buffer.getDouble(offset + 14);
+        double longitude = buffer.getDouble(offset + 22);
+        if (!Double.isFinite(latitude) || !Double.isFinite(longitude)) {
+            throw new IllegalArgumentException("緯度・経度が数値ではありません");
+        }
+        buffer.get(offset + HEADER_BYTES, deviceIdBytes, 0, deviceIdLength);
+
+        return new LocationFrame(sequenceOf(buffer, offset), LocationData.builder()
+                .deviceId(new String(deviceIdBytes, 0, deviceIdLength, StandardCharsets.UTF_8))
+                .latitude(latitude)
+                .longitude(longitude)
+                .altitude((flags & FLAG_ALTITUDE) != 0 ? finiteOrNull(buffer.getFloat(offset + 30)) : null)
+                .accuracy((flags & FLAG_ACCURACY) != 0 ? finiteOrNull(buffer.getFloat(offset + 34)) : null)
+                .rssi((flags & FLAG_RSSI) != 0 ? (int) buffer.getShort(offset + 38) : null)
+                .timestamp((flags & FLAG_TIMESTAMP) != 0
+                        ? LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong(offset + 6)), ZoneOffset.UTC)
+                        : null)
+                .build());
+    }
+
+    /**
+     * 位置情報をペイロード長とともにフレームとして書き込む
+     *
+     * @param sequence 連番（下位32ビットを使用）
+     * @param location 位置情報（タイムスタンプはUTCとして扱う）
+     * @param buffer   書き込み先のバッファ
+     * @throws IllegalArgumentException デバイスIDが255バイトを超える場合
+     */
+    public static void encode(long sequence, LocationData location, ByteBuffer buffer) {
+        byte[] deviceId = location.getDeviceId().getBytes(StandardCharsets.UTF_8);
+        if (deviceId.length > 255) {
+            throw new IllegalArgumentException("デバイスIDが長すぎます: " + deviceId.length + "バイト");
+        }
+        int flags = (location.getAltitude() != null ? FLAG_ALTITUDE : 0)
+                | (location.getAccuracy() != null ? FLAG_ACCURACY : 0)
+                | (location.getRssi() != null ? FLAG_RSSI : 0)
+                | (location.getTimestamp() != null ? FLAG_TIMESTAMP : 0);
+        buffer.putShort((short) (HEADER_BYTES + deviceId.length))
+                .put((byte) VERSION)
+                .put((byte) flags)
+                .putInt((int) sequence)
+                .putLong(location.getTimestamp() != null
+                        ? location.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()
+                        : 0)
+                .putDouble(location.getLatitude())
+                .putDouble(location.getLongitude())
+                .putFloat(location.getAltitude() != null ? location.getAltitude().floatValue() : Float.NaN)
+                .putFloat(location.getAccuracy() != null ? location.getAccuracy().floatValue() : Float.NaN)
+                .putShort(location.getRssi() != null ? location.getRssi().shortValue() : 0)
+                .put((byte) deviceId.length)
+                .put(deviceId);
+    }
+
+    /**
+     * ACKを書き込む
+     *
+     * @param sequence 連番
+     * @param status   結果
+     * @param buffer   書き込み先のバッファ
+     */
+    public static void encodeAck(long sequence, AckStatus status, ByteBuffer buffer) {
+        buffer.putInt((int) sequence).put((byte) status.getCode());
+    }
+
+    private static Double finiteOrNull(float value) {
+        return Float.isFinite(value) ? (double) value : null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.iotble.ingest;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.service.LocationService;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 受信した位置情報を検証して保存する処理
+ *
+ * {@code POST /api/locations} と同じくBean Validationで検証し、{@link LocationService#saveLocation} で保存します
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class LocationFrameHandler {
+
+    private final LocationService locationService;
+    private final Validator validator;
+
+    /**
+     * 位置情報を検証して保存
+     *
+     * @param location 位置情報
+     * @return ACKの結果
+     */
+    public AckStatus handle(LocationData location) {
+        Set<ConstraintViolation<LocationData>> violations = validator.validate(location);
+        if (!violations.isEmpty()) {
+            log.warn("位置情報のバリデーションエラー: {}", violations.stream()
+                    .collect(Collectors.toMap(v -> v.getPropertyPath().toString(), ConstraintViolation::getMessage,
+                            (first, second) -> first)));
+            return AckStatus.INVALID;
+        }
+        try {
+            locationService.saveLocation(location);
+            return AckStatus.OK;
+        } catch (IllegalArgumentException e) {
+            log.warn("位置情報の内容が不正です: {}", e.getMessage());
+            return AckStatus.INVALID;
+        } catch (Exception e) {
+            log.error("位置情報の保存に失敗しました", e);
+            return AckStatus.ERROR;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.iotble.model;
+
+import com.example.iotble.core.PackedLocation;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * メートル単位の値をセンチメートル単位の整数の列に変換するJPAのコンバーター
+ *
+ * 高度や精度を double の代わりに4バイトの整数で保存します
+ */
+@Converter
+public class CentimetersConverter implements AttributeConverter<Double, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(Double meters) {
+        return meters != null ? PackedLocation.toCentimeters(meters) : null;
+    }
+
+    @Override
+    public Double convertToEntityAttribute(Integer centimeters) {
+        return centimeters != null ? PackedLocation.fromCentimeters(centimeters) : null;
+    }
+}
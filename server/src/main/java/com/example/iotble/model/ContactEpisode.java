@@ -0,0 +1,69 @@
+package com.example.iotble.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 2つのデバイスが接近していた期間（接触）
+ *
+ * @param deviceId          デバイスID
+ * @param otherDeviceId     接近した相手のデバイスID
+ * @param start             接近を最初に観測した時刻
+ * @param end               接近を最後に観測した時刻
+ * @param durationSeconds   接近していた秒数
+ * @param minDistanceMeters 観測した最短の距離（メートル）
+ * @param observations      接近を観測した回数
+ */
+public record ContactEpisode(
+        String deviceId,
+        String otherDeviceId,
+        LocalDateTime start,
+        LocalDateTime end,
+        double durationSeconds,
+        double minDistanceMeters,
+        int observations) {
+
+    /**
+     * 期間から接触を生成
+     *
+     * @param deviceId          デバイスID
+     * @param otherDeviceId     接近した相手のデバイスID
+     * @param start             接近を最初に観測した時刻
+     * @param end               接近を最後に観測した時刻
+     * @param minDistanceMeters 観測した最短の距離（メートル）
+     * @param observations      接近を観測した回数
+     * @return 接触
+     */
+    public static ContactEpisode of(String deviceId, String otherDeviceId, LocalDateTime start, LocalDateTime end,
+            double minDistanceMeters, int observations) {
+        return new ContactEpisode(deviceId, otherDeviceId, start, end,
+                Duration.between(start, end).toMillis() / 1000.0, minDistanceMeters, observations);
+    }
+
+    /**
+     * 同じデバイスの組の後に続く接触と結合
+     *
+     * @param later 後に続く接触
+     * @return 結合した接触
+     */
+    public ContactEpisode merge(ContactEpisode later) {
+        return of(deviceId, otherDeviceId,
+                later.start.isBefore(start) ? later.start : start,
+                later.end.isAfter(end) ? later.end : end,
+                Math.min(minDistanceMeters, later.minDistanceMeters),
+                observations + later.observations);
+    }
+
+    /**
+     * 指定したデバイスを {@code deviceId} 側にした接触を取得
+     *
+     * @param viewpoint デバイスID
+     * @return 接触
+     */
+    public ContactEpisode from(String viewpoint) {
+        return viewpoint.equals(deviceId)
+                ? this
+                : new ContactEpisode(otherDeviceId, deviceId, start, end, durationSeconds, minDistanceMeters,
+                        observations);
+    }
+}
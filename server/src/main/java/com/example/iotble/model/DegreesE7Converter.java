@@ -0,0 +1,26 @@
+package com.example.iotble.model;
+
+import com.example.iotble.core.PackedLocation;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * 緯度・経度を1e-7度単位の整数の列に変換するJPAのコンバーター
+ *
+ * 8バイトの double の代わりに4バイトの整数で保存します。小数点以下7桁（約1センチメートル）までの値は
+ * 読み出したときに元の値と一致します
+ */
+@Converter
+public class DegreesE7Converter implements AttributeConverter<Double, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(Double degrees) {
+        return degrees != null ? PackedLocation.toE7(degrees) : null;
+    }
+
+    @Override
+    public Double convertToEntityAttribute(Integer e7) {
+        return e7 != null ? PackedLocation.fromE7(e7) : null;
+    }
+}
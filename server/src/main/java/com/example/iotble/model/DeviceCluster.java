@@ -0,0 +1,20 @@
+package com.example.iotble.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * 地図上で1つにまとめて表示するデバイスの集まり（クラスター）
+ *
+ * @param latitude  デバイスの緯度の平均（1台の場合はそのデバイスの緯度）
+ * @param longitude デバイスの経度の平均（1台の場合はそのデバイスの経度）
+ * @param count     デバイス数
+ * @param deviceId  デバイスID（1台の場合のみ）
+ * @param timestamp 現在位置のタイムスタンプ（1台の場合のみ）
+ */
+public record DeviceCluster(
+        double latitude,
+        double longitude,
+        int count,
+        String deviceId,
+        LocalDateTime timestamp) {
+}
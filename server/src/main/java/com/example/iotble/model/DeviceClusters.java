@@ -0,0 +1,16 @@
+package com.example.iotble.model;
+
+import java.util.List;
+
+/**
+ * 地図の表示範囲内のクラスターの一覧
+ *
+ * @param zoom        地図のズームレベル
+ * @param deviceCount 表示範囲内のクラスターに含まれるデバイス数の合計
+ * @param clusters    クラスター
+ */
+public record DeviceClusters(
+        int zoom,
+        int deviceCount,
+        List<DeviceCluster> clusters) {
+}
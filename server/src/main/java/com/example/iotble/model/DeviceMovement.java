@@ -0,0 +1,42 @@
+package com.example.iotble.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * デバイスごと・1時間ごとの移動量のスナップショットエンティティ
+ * 
+ * 受信時に更新される移動量の集計を、時間が閉じた時点で書き込みます
+ */
+@Entity
+@Table(name = "device_movement",
+    uniqueConstraints = @UniqueConstraint(name = "uk_movement_bucket", columnNames = {"deviceId", "bucketStart"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeviceMovement {
+
+    /** 一意識別子（自動生成） */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** デバイスID */
+    @Column(nullable = false, length = 100)
+    private String deviceId;
+
+    /** 時間の開始時刻 */
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    /** 移動量の集計値 */
+    @Embedded
+    @Builder.Default
+    private MovementStats stats = new MovementStats();
+}
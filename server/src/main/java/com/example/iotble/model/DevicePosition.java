@@ -0,0 +1,31 @@
+package com.example.iotble.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * ある時点でのデバイスの位置
+ *
+ * @param deviceId   デバイスID
+ * @param locationId 位置情報ID
+ * @param latitude   緯度（平滑化されている場合は平滑化後）
+ * @param longitude  経度（平滑化されている場合は平滑化後）
+ * @param timestamp  位置情報のタイムスタンプ
+ */
+public record DevicePosition(
+        String deviceId,
+        Long locationId,
+        double latitude,
+        double longitude,
+        LocalDateTime timestamp) {
+
+    /**
+     * 位置情報からデバイスの位置を生成
+     *
+     * @param location 位置情報
+     * @return デバイスの位置
+     */
+    public static DevicePosition of(LocationData location) {
+        return new DevicePosition(location.getDeviceId(), location.getId(), location.effectiveLatitude(),
+                location.effectiveLongitude(), location.getTimestamp());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.iotble.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * デバイスの登録エンティティ
+ *
+ * デバイスIDと、位置情報テーブルがデバイスIDの代わりに保持する整数のキーを対応付けます。
+ * 登録は {@link com.example.iotble.device.DeviceRegistry} が行い、キーは変更されません
+ */
+@Entity
+@Table(name = "device_registry")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeviceRegistration {
+
+    /** デバイスキー（自動生成、1から採番） */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer deviceKey;
+
+    /** デバイスID（BLEデバイスの一意識別子） */
+    @Column(nullable = false, unique = true, length = 100)
+    private String deviceId;
+
+    /** 登録日時 */
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime registeredAt;
+}
@@ -0,0 +1,15 @@
+package com.example.iotble.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * ある時点でのすべてのデバイスの位置（スナップショット）
+ *
+ * @param at      時点
+ * @param devices 時点までに受信した各デバイスの最新の位置（デバイスID順）
+ */
+public record FleetSnapshot(
+        LocalDateTime at,
+        List<DevicePosition> devices) {
+}
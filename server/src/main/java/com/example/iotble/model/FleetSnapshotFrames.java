@@ -0,0 +1,19 @@
+package com.example.iotble.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 期間を一定の間隔で区切ったスナップショットの列（タイムライン再生用）
+ *
+ * @param from        期間の開始時刻（最初のフレームの時点）
+ * @param to          期間の終了時刻
+ * @param stepSeconds フレームの間隔（秒）
+ * @param frames      時点の古い順のスナップショット
+ */
+public record FleetSnapshotFrames(
+        LocalDateTime from,
+        LocalDateTime to,
+        long stepSeconds,
+        List<FleetSnapshot> frames) {
+}
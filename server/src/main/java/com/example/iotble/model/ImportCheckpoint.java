@@ -0,0 +1,68 @@
+package com.example.iotble.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一括インポートのチェックポイントエンティティ
+ * 
+ * 取り込んだバッチと同じトランザクションで更新されるため、
+ * 中断したインポートは最後にコミットされたバッチの直後から再開できます
+ */
+@Entity
+@Table(name = "import_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportCheckpoint {
+
+    /** インポートID */
+    @Id
+    @Column(length = 500)
+    private String importId;
+
+    /** 取り込み元ファイルのパス */
+    @Column(nullable = false, length = 1000)
+    private String sourcePath;
+
+    /** ファイル形式 */
+    @Column(nullable = false, length = 20)
+    private String format;
+
+    /** CSVのヘッダー行（NDJSONの場合はnull） */
+    @Column(length = 1000)
+    private String header;
+
+    /** 次に読み込むバイト位置 */
+    @Column(nullable = false)
+    private long byteOffset;
+
+    /** 処理済みの最終行番号（1始まり、ヘッダー行を含む） */
+    @Column(nullable = false)
+    private long lineNumber;
+
+    /** 取り込み済み件数 */
+    @Column(nullable = false)
+    private long importedCount;
+
+    /** 不正行の件数 */
+    @Column(nullable = false)
+    private long rejectedCount;
+
+    /** すべての行を処理し終えた場合true */
+    @Column(nullable = false)
+    private boolean completed;
+
+    /** 更新日時 */
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.example.iotble.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * シャードごとの一括インポートの進捗エンティティ
+ *
+ * シャーディングされている場合、各シャードへのバッチの登録は {@link ImportCheckpoint} とは別のトランザクションで
+ * コミットされます。登録と同じシャードのトランザクションで最終行番号を記録し、
+ * チェックポイントの更新前に中断したバッチを再開時に二重に登録しないようにします。
+ * テーブルは各シャードに作成され、JDBCで直接読み書きします
+ */
+@Entity
+@Table(name = "import_shard_progress")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportShardProgress {
+
+    /** インポートID */
+    @Id
+    @Column(length = 500)
+    private String importId;
+
+    /** このシャードに登録済みの最終行番号 */
+    @Column(nullable = false)
+    private long lineNumber;
+}
@@ -0,0 +1,20 @@
+package com.example.iotble.model;
+
+import java.util.List;
+
+/**
+ * カーソル以降の位置情報の変更（差分同期の応答）
+ * 
+ * @param cursor     今回の変更までを反映したことを表すカーソル（次回の since に指定する）
+ * @param reset      差分を返せないためクライアントの状態を inserted で置き換える必要がある場合true
+ * @param inserted   追加された位置情報（reset の場合は最新の位置情報）
+ * @param deletedIds 削除された位置情報のID
+ * @param hasMore    件数の上限に達し、続きの変更がある場合true
+ */
+public record LocationChanges(
+        String cursor,
+        boolean reset,
+        List<LocationData> inserted,
+        List<Long> deletedIds,
+        boolean hasMore) {
+}
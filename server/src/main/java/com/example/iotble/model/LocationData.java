@@ -1,5 +1,11 @@
 package com.example.iotble.model;
 
+import com.example.iotble.core.LocationPoint;
+import com.example.iotble.core.PackedLocation;
+import com.example.iotble.device.DeviceKeyConverter;
+import com.example.iotble.device.DeviceRegistrationListener;
+import com.example.iotble.site.SiteTemplate;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -13,13 +19,16 @@ import java.time.LocalDateTime;
 /**
  * 位置情報データのエンティティクラス
  * 
- * BLEデバイスから取得した位置情報を表現します
+ * BLEデバイスから取得した位置情報を表現します。
+ * デバイスIDは文字列として扱い、列とインデックスにはデバイスレジストリの整数のキーを保存します。
+ * 緯度・経度は1e-7度単位、高度・精度はセンチメートル単位の整数の列に保存し、エンティティでは double として扱います
  */
 @Entity
 @Table(name = "location_data", indexes = {
-    @Index(name = "idx_device_id", columnList = "deviceId"),
+    @Index(name = "idx_device_timestamp", columnList = "device_key, timestamp DESC"),
     @Index(name = "idx_timestamp", columnList = "timestamp")
 })
+@EntityListeners(DeviceRegistrationListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,26 +40,31 @@ public class LocationData {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    /** デバイスID（BLEデバイスの一意識別子） */
+    /** デバイスID（BLEデバイスの一意識別子、列にはデバイスキーとして保存） */
     @NotBlank(message = "デバイスIDは必須です")
-    @Column(nullable = false, length = 100)
+    @Convert(converter = DeviceKeyConverter.class)
+    @Column(name = "device_key", nullable = false)
     private String deviceId;
 
     /** 緯度（-90.0 ~ 90.0） */
     @NotNull(message = "緯度は必須です")
+    @Convert(converter = DegreesE7Converter.class)
     @Column(nullable = false)
     private Double latitude;
 
     /** 経度（-180.0 ~ 180.0） */
     @NotNull(message = "経度は必須です")
+    @Convert(converter = DegreesE7Converter.class)
     @Column(nullable = false)
     private Double longitude;
 
     /** 高度（メートル、オプション） */
+    @Convert(converter = CentimetersConverter.class)
     @Column
     private Double altitude;
 
     /** 精度（メートル、オプション） */
+    @Convert(converter = CentimetersConverter.class)
     @Column
     private Double accuracy;
 
@@ -58,6 +72,16 @@ public class LocationData {
     @Column
     private Integer rssi;
 
+    /** 平滑化後の緯度（平滑化していない場合は null） */
+    @Convert(converter = DegreesE7Converter.class)
+    @Column
+    private Double smoothedLatitude;
+
+    /** 平滑化後の経度（平滑化していない場合は null） */
+    @Convert(converter = DegreesE7Converter.class)
+    @Column
+    private Double smoothedLongitude;
+
     /** タイムスタンプ（データ受信時刻） */
     @Column(nullable = false)
     private LocalDateTime timestamp;
@@ -66,6 +90,10 @@ public class LocationData {
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /** サイトID（位置情報を保存したサイト、未設定の場合は既定のサイト） */
+    @Column(nullable = false, updatable = false, length = 50)
+    private String siteId;
+
     /**
      * エンティティ保存前の自動処理
      */
@@ -75,14 +103,98 @@ public class LocationData {
         if (timestamp == null) {
             timestamp = LocalDateTime.now();
         }
+        if (siteId == null) {
+            siteId = SiteTemplate.DEFAULT_SITE;
+        }
+    }
+
+    /**
+     * 距離の計算や軌跡に使う緯度を返す
+     * 
+     * @return 平滑化後の緯度（平滑化していない場合は緯度）
+     */
+    public double effectiveLatitude() {
+        return smoothedLatitude != null ? smoothedLatitude : latitude;
+    }
+
+    /**
+     * 距離の計算や軌跡に使う経度を返す
+     * 
+     * @return 平滑化後の経度（平滑化していない場合は経度）
+     */
+    public double effectiveLongitude() {
+        return smoothedLongitude != null ? smoothedLongitude : longitude;
+    }
+
+    /**
+     * 取り込み処理の位置情報からエンティティを生成
+     * 
+     * @param point 位置情報
+     * @return 位置情報データ
+     */
+    public static LocationData from(LocationPoint point) {
+        return LocationData.builder()
+                .id(point.id())
+                .deviceId(point.deviceId())
+                .latitude(point.latitude())
+                .longitude(point.longitude())
+                .altitude(point.altitude())
+                .accuracy(point.accuracy())
+                .rssi(point.rssi())
+                .smoothedLatitude(point.smoothedLatitude())
+                .smoothedLongitude(point.smoothedLongitude())
+                .timestamp(point.timestamp())
+                .createdAt(point.createdAt())
+                .build();
+    }
+
+    /**
+     * 取り込み処理の位置情報に変換
+     * 
+     * @return 位置情報
+     */
+    public LocationPoint toPoint() {
+        return new LocationPoint(id, deviceId, latitude, longitude, altitude, accuracy, rssi,
+                smoothedLatitude, smoothedLongitude, timestamp, createdAt);
+    }
+
+    /**
+     * 固定小数点の測定値からエンティティを生成
+     *
+     * JDBCやセグメントから読み出した測定値をAPIに返す値へ変換する境界で使います
+     *
+     * @param packed    測定値
+     * @param id        位置情報ID
+     * @param deviceId  デバイスID
+     * @param timestamp タイムスタンプ
+     * @param createdAt 作成日時
+     * @param siteId    サイトID
+     * @return 位置情報データ
+     */
+    public static LocationData from(PackedLocation packed, Long id, String deviceId, LocalDateTime timestamp,
+            LocalDateTime createdAt, String siteId) {
+        return new LocationData(id, deviceId, packed.latitude(), packed.longitude(), packed.altitude(),
+                packed.accuracy(), packed.rssi(), packed.smoothedLatitude(), packed.smoothedLongitude(),
+                timestamp, createdAt, siteId);
+    }
+
+    /**
+     * 固定小数点の測定値に変換
+     *
+     * @return 測定値
+     */
+    public PackedLocation toPacked() {
+        return PackedLocation.of(latitude, longitude, altitude, accuracy, rssi, smoothedLatitude, smoothedLongitude);
     }
 
     /**
      * 位置情報の簡易文字列表現を返す
+     * 
+     * 書式文字列の解析を伴う {@code String.format} は使わず、連結で組み立てます
      */
     @Override
     public String toString() {
-        return String.format("LocationData[id=%d, device=%s, lat=%.6f, lon=%.6f, time=%s]",
-                id, deviceId, latitude, longitude, timestamp);
+        return "LocationData[id=" + id + ", device=" + deviceId + ", lat=" + latitude + ", lon=" + longitude
+                + ", time=" + timestamp + "]";
     }
 }
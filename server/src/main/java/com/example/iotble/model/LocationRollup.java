@@ -0,0 +1,54 @@
+package com.example.iotble.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * デバイスごと・時間バケットごとの位置情報の集計エンティティ
+ * 
+ * 位置情報の保存時にメモリ上で集計され、バケットが閉じた時点で書き込まれます
+ */
+@Entity
+@Table(name = "location_rollup",
+    uniqueConstraints = @UniqueConstraint(name = "uk_rollup_bucket",
+        columnNames = {"deviceId", "resolution", "bucketStart"}),
+    indexes = @Index(name = "idx_rollup_resolution_bucket", columnList = "resolution, bucketStart"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LocationRollup {
+
+    /** 一意識別子（自動生成） */
+    @JsonIgnore
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** デバイスID */
+    @Column(nullable = false, length = 100)
+    private String deviceId;
+
+    /** 集計の時間粒度 */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupResolution resolution;
+
+    /** バケットの開始時刻 */
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    /** 集計値 */
+    @Embedded
+    @JsonUnwrapped
+    @Builder.Default
+    private RollupStats stats = new RollupStats();
+}
@@ -0,0 +1,123 @@
+package com.example.iotble.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Transient;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 連続する位置情報の区間から計算した移動量の集計値
+ * 
+ * 区間は後の位置情報のタイムスタンプが属する期間に計上されるため、
+ * 期間ごとの集計値を加算すると連続した期間の集計値になります
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+public class MovementStats {
+
+    /** 移動距離の合計（メートル） */
+    @Column(nullable = false)
+    private double distanceMeters;
+
+    /** 移動中と判定された時間（秒） */
+    @Column(nullable = false)
+    private double movingSeconds;
+
+    /** 静止中と判定された時間（秒） */
+    @Column(nullable = false)
+    private double stationarySeconds;
+
+    /** 受信間隔が長く移動・静止を判定できなかった時間（秒） */
+    @Column(nullable = false)
+    private double untrackedSeconds;
+
+    /** 区間の数 */
+    @Column(nullable = false)
+    private long segmentCount;
+
+    /** 最高速度（m/s） */
+    @Column
+    private Double maxSpeed;
+
+    /** 最後の区間の終点のタイムスタンプ */
+    @Column
+    private LocalDateTime lastTimestamp;
+
+    /** 最後の区間の速度（m/s、判定できない場合はnull） */
+    @Column
+    private Double lastSpeed;
+
+    /** 期間内のすべての区間が含まれているか（メモリ上の集計でのみ使用） */
+    @JsonIgnore
+    @Transient
+    private boolean complete = true;
+
+    /**
+     * 区間を1つ加算
+     * 
+     * @param distanceMeters 区間の距離（メートル）
+     * @param seconds        区間の経過時間（秒）
+     * @param timestamp      区間の終点のタイムスタンプ
+     * @param movingSpeed    移動中と判定する速度の下限（m/s）
+     * @param maxGapSeconds  速度を判定できる最大の経過時間（秒）
+     */
+    public void addSegment(double distanceMeters, double seconds, LocalDateTime timestamp,
+            double movingSpeed, double maxGapSeconds) {
+        this.distanceMeters += distanceMeters;
+        segmentCount++;
+        Double speed = null;
+        if (seconds > maxGapSeconds) {
+            untrackedSeconds += seconds;
+        } else if (seconds > 0) {
+            speed = distanceMeters / seconds;
+            maxSpeed = maxSpeed == null ? speed : Math.max(maxSpeed, speed);
+            if (speed >= movingSpeed) {
+                movingSeconds += seconds;
+            } else {
+                stationarySeconds += seconds;
+            }
+        }
+        if (lastTimestamp == null || !timestamp.isBefore(lastTimestamp)) {
+            lastTimestamp = timestamp;
+            lastSpeed = speed;
+        }
+    }
+
+    /**
+     * 別の期間の集計値をマージ
+     * 
+     * @param other マージする集計値
+     */
+    public void merge(MovementStats other) {
+        distanceMeters += other.distanceMeters;
+        movingSeconds += other.movingSeconds;
+        stationarySeconds += other.stationarySeconds;
+        untrackedSeconds += other.untrackedSeconds;
+        segmentCount += other.segmentCount;
+        if (other.maxSpeed != null) {
+            maxSpeed = maxSpeed == null ? other.maxSpeed : Math.max(maxSpeed, other.maxSpeed);
+        }
+        if (other.lastTimestamp != null && (lastTimestamp == null || !other.lastTimestamp.isBefore(lastTimestamp))) {
+            lastTimestamp = other.lastTimestamp;
+            lastSpeed = other.lastSpeed;
+        }
+        complete &= other.complete;
+    }
+
+    /**
+     * 集計値のコピーを作成
+     * 
+     * @return コピー
+     */
+    public MovementStats copy() {
+        MovementStats copy = new MovementStats();
+        copy.merge(this);
+        return copy;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.iotble.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * 期間内のデバイスの移動量
+ * 
+ * @param deviceId          デバイスID
+ * @param from              期間の開始時刻（この時刻を含む）
+ * @param to                期間の終了時刻（この時刻を含まない）
+ * @param distanceMeters    移動距離（メートル）
+ * @param movingSeconds     移動中の時間（秒）
+ * @param stationarySeconds 静止中の時間（秒）
+ * @param untrackedSeconds  受信間隔が長く判定できなかった時間（秒）
+ * @param maxSpeed          最高速度（m/s、区間がない場合はnull）
+ * @param currentSpeed      期間内の最後の区間の速度（m/s、判定できない場合はnull）
+ * @param lastTimestamp     期間内の最後の位置情報のタイムスタンプ
+ * @param snapshotHours     スナップショットから集計した時間数
+ * @param scannedRanges     生データを走査して集計した範囲の数
+ */
+public record MovementSummary(
+        String deviceId,
+        LocalDateTime from,
+        LocalDateTime to,
+        double distanceMeters,
+        double movingSeconds,
+        double stationarySeconds,
+        double untrackedSeconds,
+        Double maxSpeed,
+        Double currentSpeed,
+        LocalDateTime lastTimestamp,
+        int snapshotHours,
+        int scannedRanges) {
+
+    /**
+     * 集計値から期間内の移動量を生成
+     * 
+     * @param deviceId      デバイスID
+     * @param from          期間の開始時刻
+     * @param to            期間の終了時刻
+     * @param stats         集計値
+     * @param snapshotHours スナップショットから集計した時間数
+     * @param scannedRanges 生データを走査して集計した範囲の数
+     * @return 期間内の移動量
+     */
+    public static MovementSummary of(String deviceId, LocalDateTime from, LocalDateTime to, MovementStats stats,
+            int snapshotHours, int scannedRanges) {
+        return new MovementSummary(deviceId, from, to, stats.getDistanceMeters(), stats.getMovingSeconds(),
+                stats.getStationarySeconds(), stats.getUntrackedSeconds(), stats.getMaxSpeed(),
+                stats.getLastSpeed(), stats.getLastTimestamp(), snapshotHours, scannedRanges);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.iotble.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * 地点の近くにいるデバイス
+ * 
+ * @param deviceId       デバイスID
+ * @param locationId     現在位置の位置情報ID
+ * @param latitude       現在位置の緯度（平滑化されている場合は平滑化後）
+ * @param longitude      現在位置の経度（平滑化されている場合は平滑化後）
+ * @param timestamp      現在位置のタイムスタンプ
+ * @param distanceMeters 地点からの大円距離（メートル）
+ */
+public record NearbyDevice(
+        String deviceId,
+        Long locationId,
+        double latitude,
+        double longitude,
+        LocalDateTime timestamp,
+        double distanceMeters) {
+}
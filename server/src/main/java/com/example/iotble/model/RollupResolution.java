@@ -0,0 +1,61 @@
+package com.example.iotble.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * 集計の時間粒度
+ */
+public enum RollupResolution {
+
+    /** 1分単位 */
+    MINUTE(ChronoUnit.MINUTES),
+
+    /** 1時間単位 */
+    HOUR(ChronoUnit.HOURS);
+
+    private final ChronoUnit unit;
+
+    RollupResolution(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * バケットの長さを取得
+     * 
+     * @return バケットの長さ
+     */
+    public Duration getDuration() {
+        return unit.getDuration();
+    }
+
+    /**
+     * 時刻を含むバケットの開始時刻を取得
+     * 
+     * @param timestamp 時刻
+     * @return バケットの開始時刻
+     */
+    public LocalDateTime bucketStart(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(unit);
+    }
+
+    /**
+     * リクエストパラメータから粒度を解決
+     * 
+     * @param value 粒度名（minute / hour、大文字小文字を区別しない）
+     * @return 集計の時間粒度
+     * @throws IllegalArgumentException 未対応の粒度の場合
+     */
+    public static RollupResolution fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return MINUTE;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("未対応の集計粒度です: " + value);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.iotble.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 1つの時間バケットに含まれる位置情報の集計値
+ * 
+ * 平均値は合計と件数で保持しているため、同じバケットの集計値どうしを
+ * 順序に関係なくマージできます（遅れて届いたデータの補正に使用します）
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+public class RollupStats {
+
+    /** 位置情報の件数 */
+    @Column(nullable = false)
+    private long pointCount;
+
+    /** 緯度の合計 */
+    @JsonIgnore
+    @Column(nullable = false)
+    private double latitudeSum;
+
+    /** 経度の合計 */
+    @JsonIgnore
+    @Column(nullable = false)
+    private double longitudeSum;
+
+    /** 最小緯度 */
+    @Column
+    private Double minLatitude;
+
+    /** 最大緯度 */
+    @Column
+    private Double maxLatitude;
+
+    /** 最小経度 */
+    @Column
+    private Double minLongitude;
+
+    /** 最大経度 */
+    @Column
+    private Double maxLongitude;
+
+    /** RSSIが記録されている件数 */
+    @Column(nullable = false)
+    private long rssiCount;
+
+    /** RSSIの合計 */
+    @JsonIgnore
+    @Column(nullable = false)
+    private long rssiSum;
+
+    /** 最小RSSI */
+    @Column
+    private Integer minRssi;
+
+    /** 最大RSSI */
+    @Column
+    private Integer maxRssi;
+
+    /** 精度が記録されている件数 */
+    @Column(nullable = false)
+    private long accuracyCount;
+
+    /** 精度の合計 */
+    @JsonIgnore
+    @Column(nullable = false)
+    private double accuracySum;
+
+    /** 最小精度 */
+    @Column
+    private Double minAccuracy;
+
+    /** 最大精度 */
+    @Column
+    private Double maxAccuracy;
+
+    /**
+     * 位置情報を1件加算
+     * 
+     * @param location 位置情報
+     */
+    public void add(LocationData location) {
+        double latitude = location.getLatitude();
+        double longitude = location.getLongitude();
+        pointCount++;
+        latitudeSum += latitude;
+        longitudeSum += longitude;
+        minLatitude = minLatitude == null ? latitude : Math.min(minLatitude, latitude);
+        maxLatitude = maxLatitude == null ? latitude : Math.max(maxLatitude, latitude);
+        minLongitude = minLongitude == null ? longitude : Math.min(minLongitude, longitude);
+        maxLongitude = maxLongitude == null ? longitude : Math.max(maxLongitude, longitude);
+        Integer rssi = location.getRssi();
+        if (rssi != null) {
+            rssiCount++;
+            rssiSum += rssi;
+            minRssi = minRssi == null ? rssi : Math.min(minRssi, rssi);
+            maxRssi = maxRssi == null ? rssi : Math.max(maxRssi, rssi);
+        }
+        Double accuracy = location.getAccuracy();
+        if (accuracy != null) {
+            accuracyCount++;
+            accuracySum += accuracy;
+            minAccuracy = minAccuracy == null ? accuracy : Math.min(minAccuracy, accuracy);
+            maxAccuracy = maxAccuracy == null ? accuracy : Math.max(maxAccuracy, accuracy);
+        }
+    }
+
+    /**
+     * 同じバケットの別の集計値をマージ
+     * 
+     * @param other マージする集計値
+     */
+    public void merge(RollupStats other) {
+        pointCount += other.pointCount;
+        latitudeSum += other.latitudeSum;
+        longitudeSum += other.longitudeSum;
+        minLatitude = min(minLatitude, other.minLatitude);
+        maxLatitude = max(maxLatitude, other.maxLatitude);
+        minLongitude = min(minLongitude, other.minLongitude);
+        maxLongitude = max(maxLongitude, other.maxLongitude);
+        rssiCount += other.rssiCount;
+        rssiSum += other.rssiSum;
+        minRssi = min(minRssi, other.minRssi);
+        maxRssi = max(maxRssi, other.maxRssi);
+        accuracyCount += other.accuracyCount;
+        accuracySum += other.accuracySum;
+        minAccuracy = min(minAccuracy, other.minAccuracy);
+        maxAccuracy = max(maxAccuracy, other.maxAccuracy);
+    }
+
+    /**
+     * 集計値のコピーを作成
+     * 
+     * @return コピー
+     */
+    public RollupStats copy() {
+        RollupStats copy = new RollupStats();
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * 平均緯度を取得
+     * 
+     * @return 平均緯度（件数が0の場合はnull）
+     */
+    public Double getMeanLatitude() {
+        return pointCount > 0 ? latitudeSum / pointCount : null;
+    }
+
+    /**
+     * 平均経度を取得
+     * 
+     * @return 平均経度（件数が0の場合はnull）
+     */
+    public Double getMeanLongitude() {
+        return pointCount > 0 ? longitudeSum / pointCount : null;
+    }
+
+    /**
+     * 平均RSSIを取得
+     * 
+     * @return 平均RSSI（記録がない場合はnull）
+     */
+    public Double getAvgRssi() {
+        return rssiCount > 0 ? (double) rssiSum / rssiCount : null;
+    }
+
+    /**
+     * 平均精度を取得
+     * 
+     * @return 平均精度（記録がない場合はnull）
+     */
+    public Double getAvgAccuracy() {
+        return accuracyCount > 0 ? accuracySum / accuracyCount : null;
+    }
+
+    private static <T extends Comparable<T>> T min(T a, T b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static <T extends Comparable<T>> T max(T a, T b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.compareTo(b) >= 0 ? a : b;
+    }
+}
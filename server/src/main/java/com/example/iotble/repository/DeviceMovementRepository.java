@@ -0,0 +1,70 @@
+package com.example.iotble.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.iotble.model.DeviceMovement;
+
+/**
+ * 移動量のスナップショットのリポジトリインターフェース
+ */
+@Repository
+public interface DeviceMovementRepository extends JpaRepository<DeviceMovement, Long> {
+
+    /**
+     * 時間を一意に特定してスナップショットを取得
+     * 
+     * @param deviceId    デバイスID
+     * @param bucketStart 時間の開始時刻
+     * @return スナップショット（存在する場合）
+     */
+    Optional<DeviceMovement> findByDeviceIdAndBucketStart(String deviceId, LocalDateTime bucketStart);
+
+    /**
+     * 期間内のスナップショットを取得
+     * 
+     * @param deviceId デバイスID
+     * @param from     時間の開始時刻の下限（この時刻を含む）
+     * @param to       時間の開始時刻の上限（この時刻を含まない）
+     * @return スナップショットのリスト
+     */
+    @Query("SELECT m FROM DeviceMovement m WHERE m.deviceId = :deviceId " +
+           "AND m.bucketStart >= :from AND m.bucketStart < :to ORDER BY m.bucketStart")
+    List<DeviceMovement> findInRange(
+            @Param("deviceId") String deviceId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * デバイスのスナップショットを削除
+     * 
+     * @param deviceId デバイスID
+     * @param from     時間の開始時刻の下限（この時刻を含む）
+     * @param to       時間の開始時刻の上限（この時刻を含まない）
+     * @return 削除された件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM DeviceMovement m WHERE m.deviceId = :deviceId " +
+           "AND m.bucketStart >= :from AND m.bucketStart < :to")
+    int deleteInRange(
+            @Param("deviceId") String deviceId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * デバイスのすべてのスナップショットを削除
+     * 
+     * @param deviceId デバイスID
+     * @return 削除された件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM DeviceMovement m WHERE m.deviceId = :deviceId")
+    int deleteByDeviceId(@Param("deviceId") String deviceId);
+}
@@ -0,0 +1,12 @@
+package com.example.iotble.repository;
+
+import com.example.iotble.model.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 一括インポートのチェックポイントのリポジトリインターフェース
+ */
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+}
@@ -0,0 +1,596 @@
+package com.example.iotble.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.iotble.core.PackedLocation;
+import com.example.iotble.device.DeviceRegistry;
+import com.example.iotble.model.ImportShardProgress;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+
+/**
+ * 位置情報のJDBCリポジトリ
+ * 
+ * エクスポートやインポートのように大量の行を扱う処理向けに、永続化コンテキストを
+ * 経由せずJDBCで直接読み書きします。取得した行はエンティティ管理されません。
+ * 位置情報テーブルのデバイスはデバイスキーで保存されているため、条件と結果は
+ * {@link DeviceRegistry} でデバイスIDと変換します。
+ * 測定値の列は {@link PackedLocation} の固定小数点の整数で読み書きします。
+ */
+@Repository
+public class LocationJdbcRepository {
+
+    /** 1回のフェッチで取得する行数 */
+    private static final int FETCH_SIZE = 1000;
+
+    /** 複数行INSERT 1文あたりの最大行数 */
+    private static final int ROWS_PER_INSERT = 200;
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO location_data (device_key, latitude, longitude, altitude, accuracy, rssi, "
+            + "smoothed_latitude, smoothed_longitude, timestamp, created_at, site_id) VALUES ";
+
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_COLUMNS =
+            "SELECT l.id, l.device_key, l.latitude, l.longitude, l.altitude, l.accuracy, l.rssi, "
+            + "l.timestamp, l.created_at, l.smoothed_latitude, l.smoothed_longitude, l.site_id FROM location_data l ";
+
+    /**
+     * 基準時刻の時点でのデバイスごとの最新の位置情報
+     *
+     * デバイスごとに、基準時刻以前の最初の1件のIDを複合インデックスの順序のまま読み、主キーで行を引きます
+     */
+    static final String LATEST_AS_OF_SQL =
+            "SELECT l.id, l.device_key, l.latitude, l.longitude, l.altitude, l.accuracy, l.rssi, "
+            + "l.timestamp, l.created_at, l.smoothed_latitude, l.smoothed_longitude, l.site_id "
+            + "FROM (SELECT DISTINCT device_key FROM location_data) d "
+            + "JOIN location_data l ON l.id = (SELECT s.id FROM location_data s "
+            + "WHERE s.device_key = d.device_key AND s.timestamp <= ? "
+            + "ORDER BY s.device_key, s.timestamp DESC LIMIT 1)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardTemplate shardTemplate;
+    private final SiteTemplate siteTemplate;
+    private final DeviceRegistry deviceRegistry;
+    private final Map<String, JdbcTemplate> shardJdbcTemplates = new LinkedHashMap<>();
+    private final Map<String, TransactionTemplate> shardTransactions = new LinkedHashMap<>();
+
+    /**
+     * リポジトリを生成
+     * 
+     * シャードが2つ以上ある場合、各シャードのデータソースに直接接続します。
+     * この場合の読み書きは呼び出し元のトランザクションには参加しません
+     * 
+     * @param dataSource    データソース
+     * @param shardTemplate シャードのテンプレート（定義されていない場合はシャーディングなし）
+     * @param siteTemplate   サイトのテンプレート（定義されていない場合は既定のサイトのみ）
+     * @param deviceRegistry デバイスレジストリ
+     */
+    public LocationJdbcRepository(DataSource dataSource, ObjectProvider<ShardTemplate> shardTemplate,
+            ObjectProvider<SiteTemplate> siteTemplate, DeviceRegistry deviceRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.shardTemplate = shardTemplate.getIfAvailable(ShardTemplate::direct);
+        this.siteTemplate = siteTemplate.getIfAvailable(SiteTemplate::single);
+        this.deviceRegistry = deviceRegistry;
+        if (this.shardTemplate.isSharded()) {
+            for (String shard : this.shardTemplate.getShardNames()) {
+                DataSource shardDataSource = this.shardTemplate.getDataSource(shard);
+                JdbcTemplate template = new JdbcTemplate(shardDataSource);
+                template.setFetchSize(FETCH_SIZE);
+                shardJdbcTemplates.put(shard, template);
+                shardTransactions.put(shard, new TransactionTemplate(new DataSourceTransactionManager(shardDataSource)));
+            }
+        }
+    }
+
+    /**
+     * 位置情報の最古・最新のタイムスタンプを取得
+     * 
+     * @param deviceId デバイスID（null の場合は全デバイス）
+     * @return [最古, 最新] のタイムスタンプ（データがない場合は空）
+     */
+    public Optional<LocalDateTime[]> findTimestampBounds(String deviceId) {
+        int deviceKey = deviceId != null ? deviceRegistry.findKey(deviceId) : DeviceRegistry.UNKNOWN_KEY;
+        if (deviceId != null && deviceKey == DeviceRegistry.UNKNOWN_KEY) {
+            return Optional.empty();
+        }
+        String sql = "SELECT MIN(l.timestamp), MAX(l.timestamp) FROM location_data l"
+                + (deviceId != null ? " WHERE l.device_key = ?" : "");
+        Object[] args = deviceId != null ? new Object[] { deviceKey } : new Object[0];
+        List<JdbcTemplate> templates = deviceId != null ? List.of(jdbc(deviceId)) : allShards();
+        LocalDateTime[] result = null;
+        for (JdbcTemplate template : templates) {
+            LocalDateTime[] bounds = template.queryForObject(sql, (rs, rowNum) -> new LocalDateTime[] {
+                    toLocalDateTime(rs.getTimestamp(1)), toLocalDateTime(rs.getTimestamp(2)) }, args);
+            if (bounds == null || bounds[0] == null) {
+                continue;
+            }
+            if (result == null) {
+                result = bounds;
+            } else {
+                result[0] = bounds[0].isBefore(result[0]) ? bounds[0] : result[0];
+                result[1] = bounds[1].isAfter(result[1]) ? bounds[1] : result[1];
+            }
+        }
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * 期間内の位置情報をタイムスタンプ昇順に1行ずつ読み出す
+     * 
+     * 結果セットはフェッチサイズ単位でカーソル読み出しされるため、
+     * 期間全体をヒープに載せることはありません
+     * 
+     * @param startTime       開始時刻（この時刻を含む）
+     * @param endTime         終了時刻
+     * @param endInclusive    終了時刻を含む場合true
+     * @param deviceId        デバイスID（null の場合は全デバイス）
+     * @param consumer        各行を受け取るコールバック
+     */
+    public void streamByTimeRange(LocalDateTime startTime, LocalDateTime endTime, boolean endInclusive,
+            String deviceId, Consumer<LocationData> consumer) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS)
+                .append("WHERE l.timestamp >= ? AND l.timestamp ")
+                .append(endInclusive ? "<= ?" : "< ?");
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(startTime), Timestamp.valueOf(endTime)));
+        if (deviceId != null) {
+            int deviceKey = deviceRegistry.findKey(deviceId);
+            if (deviceKey == DeviceRegistry.UNKNOWN_KEY) {
+                return;
+            }
+            sql.append(" AND l.device_key = ?");
+            args.add(deviceKey);
+        }
+        sql.append(" ORDER BY l.timestamp, l.id");
+
+        if (deviceId == null && shardTemplate.isSharded()) {
+            streamMerged(sql.toString(), args, consumer);
+            return;
+        }
+        JdbcTemplate template = deviceId != null ? jdbc(deviceId) : jdbcTemplate;
+        template.query(connection -> prepareCursor(connection, sql.toString(), args),
+                (ResultSet rs) -> consumer.accept(mapRow(rs)));
+    }
+
+    /**
+     * デバイスごとの最新の位置情報を1行ずつ読み出す
+     * 
+     * シャーディングされている場合は各シャードを順に読み出します
+     * 
+     * @param consumer 各行を受け取るコールバック
+     */
+    public void streamLatestPerDevice(Consumer<LocationData> consumer) {
+        String sql = SELECT_COLUMNS
+                + "JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY device_key ORDER BY timestamp DESC, id DESC) rn "
+                + "FROM location_data) r ON r.id = l.id WHERE r.rn = 1";
+        for (JdbcTemplate template : allShards()) {
+            template.query(sql, (ResultSet rs) -> consumer.accept(mapRow(rs)));
+        }
+    }
+
+    /**
+     * 指定時刻の時点でのデバイスごとの最新の位置情報を1行ずつ読み出す
+     *
+     * デバイスの一覧と各デバイスの1件は複合インデックス (device_key, timestamp DESC) から読むため、
+     * 履歴の長さに関わらずデバイス数に比例した読み出しで済みます
+     *
+     * @param at       基準時刻（この時刻を含む）
+     * @param consumer 各行を受け取るコールバック
+     */
+    public void streamLatestPerDeviceAsOf(LocalDateTime at, Consumer<LocationData> consumer) {
+        Timestamp timestamp = Timestamp.valueOf(at);
+        for (JdbcTemplate template : allShards()) {
+            template.query(LATEST_AS_OF_SQL, (ResultSet rs) -> consumer.accept(mapRow(rs)), timestamp);
+        }
+    }
+
+    /**
+     * 位置情報を複数行INSERTでまとめて登録
+     * 
+     * エンティティのライフサイクル（{@code @PrePersist} など）を経由しないため、
+     * タイムスタンプと作成日時は呼び出し側で設定しておく必要があります。
+     * 位置情報は現在のサイトのデータベースに登録するため、サイトIDは位置情報の値によらず現在のサイトにします。
+     * 登録した位置情報のIDは設定されません。
+     * 初めて登録するデバイスは、位置情報のトランザクションを始める前にデバイスレジストリへ登録します。
+     * 
+     * @param locations 登録する位置情報
+     * @return 登録した件数
+     */
+    public int insertAll(List<LocationData> locations) {
+        return insertAll(locations, null, 0);
+    }
+
+    /**
+     * 一括インポートのバッチを複数行INSERTでまとめて登録
+     * 
+     * {@link #insertAll(List)} と同じく登録します。シャーディングされている場合は、各シャードの登録と同じ
+     * トランザクションでシャードごとの進捗（{@link ImportShardProgress}）に最終行番号を記録し、
+     * 記録済みの行番号までのバッチは登録しません。呼び出し元のチェックポイントがコミットされる前に中断しても、
+     * 再開時に同じバッチを二重に登録しません。
+     * シャーディングされていない場合は呼び出し元のトランザクションに参加するため、進捗は記録しません
+     * 
+     * @param importId  インポートID
+     * @param lastLine  バッチの最終行番号
+     * @param locations 登録する位置情報
+     * @return 登録した件数（登録済みのため登録しなかった行を除く）
+     */
+    public int insertImportBatch(String importId, long lastLine, List<LocationData> locations) {
+        return insertAll(locations, Objects.requireNonNull(importId, "importId must not be null"), lastLine);
+    }
+
+    /**
+     * 一括インポートのシャードごとの進捗を削除
+     * 
+     * @param importId インポートID
+     */
+    public void deleteImportProgress(String importId) {
+        if (shardTemplate.isSharded()) {
+            for (JdbcTemplate template : shardJdbcTemplates.values()) {
+                template.update("DELETE FROM import_shard_progress WHERE import_id = ?", importId);
+            }
+        }
+    }
+
+    private int insertAll(List<LocationData> locations, String importId, long lastLine) {
+        String site = siteTemplate.currentSite();
+        deviceRegistry.registerAll(locations.stream().map(LocationData::getDeviceId).distinct().toList());
+        if (!shardTemplate.isSharded()) {
+            return insertAll(jdbcTemplate, locations, site);
+        }
+        Map<String, List<LocationData>> byShard = new LinkedHashMap<>();
+        for (LocationData location : locations) {
+            byShard.computeIfAbsent(shardTemplate.shardFor(location.getDeviceId()), shard -> new ArrayList<>())
+                    .add(location);
+        }
+        int inserted = 0;
+        for (Map.Entry<String, List<LocationData>> entry : byShard.entrySet()) {
+            JdbcTemplate template = shardJdbcTemplates.get(entry.getKey());
+            Integer count = shardTransactions.get(entry.getKey()).execute(status -> {
+                if (importId != null && !advanceImportProgress(template, importId, lastLine)) {
+                    return 0;
+                }
+                return insertAll(template, entry.getValue(), site);
+            });
+            inserted += count != null ? count : 0;
+        }
+        return inserted;
+    }
+
+    /**
+     * シャードの進捗を最終行番号まで進める
+     * 
+     * @return 進めた場合true（最終行番号まで登録済みの場合はfalse）
+     */
+    private static boolean advanceImportProgress(JdbcTemplate template, String importId, long lastLine) {
+        List<Long> done = template.queryForList(
+                "SELECT line_number FROM import_shard_progress WHERE import_id = ?", Long.class, importId);
+        if (done.isEmpty()) {
+            template.update("INSERT INTO import_shard_progress (import_id, line_number) VALUES (?, ?)",
+                    importId, lastLine);
+            return true;
+        }
+        if (done.get(0) >= lastLine) {
+            return false;
+        }
+        template.update("UPDATE import_shard_progress SET line_number = ? WHERE import_id = ?", lastLine, importId);
+        return true;
+    }
+
+    private int insertAll(JdbcTemplate template, List<LocationData> locations, String site) {
+        int inserted = 0;
+        for (int from = 0; from < locations.size(); from += ROWS_PER_INSERT) {
+            List<LocationData> chunk = locations.subList(from, Math.min(from + ROWS_PER_INSERT, locations.size()));
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + chunk.size() * (INSERT_ROW.length() + 2))
+                    .append(INSERT_PREFIX);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(INSERT_ROW);
+            }
+            inserted += template.update(sql.toString(), ps -> {
+                int index = 1;
+                for (LocationData location : chunk) {
+                    ps.setInt(index++, deviceRegistry.register(location.getDeviceId()));
+                    index = bindMeasurements(ps, index, location.toPacked());
+                    ps.setTimestamp(index++, Timestamp.valueOf(location.getTimestamp()));
+                    ps.setTimestamp(index++, Timestamp.valueOf(location.getCreatedAt()));
+                    ps.setString(index++, site);
+                }
+            });
+        }
+        return inserted;
+    }
+
+    /**
+     * シャードに保存されているデバイスIDの一覧を取得
+     * 
+     * @param shard シャード名
+     * @return デバイスIDのリスト
+     */
+    public List<String> findDeviceIdsOnShard(String shard) {
+        return jdbcOnShard(shard).queryForList("SELECT DISTINCT l.device_key FROM location_data l", Integer.class)
+                .stream()
+                .map(deviceRegistry::getDeviceId)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * シャードに保存されている位置情報の件数を取得
+     * 
+     * @param shard シャード名
+     * @return 件数
+     */
+    public long countOnShard(String shard) {
+        Long count = jdbcOnShard(shard).queryForObject("SELECT COUNT(*) FROM location_data", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * シャードに保存されているデバイスの位置情報をID順に取得
+     * 
+     * @param shard    シャード名
+     * @param deviceId デバイスID
+     * @param limit    最大件数
+     * @return 位置情報のリスト（ID昇順）
+     */
+    public List<LocationData> findByDeviceOnShard(String shard, String deviceId, int limit) {
+        int deviceKey = deviceRegistry.findKey(deviceId);
+        if (deviceKey == DeviceRegistry.UNKNOWN_KEY) {
+            return List.of();
+        }
+        return jdbcOnShard(shard).query(SELECT_COLUMNS + "WHERE l.device_key = ? ORDER BY l.id LIMIT ?",
+                (rs, rowNum) -> mapRow(rs), deviceKey, limit);
+    }
+
+    /**
+     * 位置情報をIDを保ったまま別のシャードへ移動
+     * 
+     * 移動先への登録をコミットしてから移動元を削除します。途中で失敗しても、
+     * 再実行すれば移動先の同じIDの行を置き換えるため重複しません
+     * 
+     * @param from      移動元のシャード名
+     * @param to        移動先のシャード名
+     * @param locations 移動する位置情報
+     */
+    public void moveBetweenShards(String from, String to, List<LocationData> locations) {
+        List<Long> ids = locations.stream().map(LocationData::getId).toList();
+        deviceRegistry.registerAll(locations.stream().map(LocationData::getDeviceId).distinct().toList());
+        transactionOnShard(to).executeWithoutResult(status -> {
+            deleteByIds(jdbcOnShard(to), ids);
+            for (LocationData location : locations) {
+                jdbcOnShard(to).update("INSERT INTO location_data (id, device_key, latitude, longitude, altitude, "
+                        + "accuracy, rssi, smoothed_latitude, smoothed_longitude, timestamp, created_at, site_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", ps -> {
+                            ps.setLong(1, location.getId());
+                            ps.setInt(2, deviceRegistry.register(location.getDeviceId()));
+                            int index = bindMeasurements(ps, 3, location.toPacked());
+                            ps.setTimestamp(index++, Timestamp.valueOf(location.getTimestamp()));
+                            ps.setTimestamp(index++, Timestamp.valueOf(location.getCreatedAt()));
+                            ps.setString(index, location.getSiteId());
+                        });
+            }
+        });
+        transactionOnShard(from).executeWithoutResult(status -> deleteByIds(jdbcOnShard(from), ids));
+    }
+
+    /**
+     * シャードの期間内の位置情報をデバイス・タイムスタンプ順に1行ずつ読み出す
+     *
+     * コールドティアへの封印で、デバイスごとのブロックにまとめて書き出すために使用します
+     *
+     * @param shard     シャード名
+     * @param startTime 開始時刻（この時刻を含む）
+     * @param endTime   終了時刻（この時刻を含まない）
+     * @param consumer  各行を受け取るコールバック
+     */
+    public void streamOnShardByDevice(String shard, LocalDateTime startTime, LocalDateTime endTime,
+            Consumer<LocationData> consumer) {
+        String sql = SELECT_COLUMNS + "WHERE l.timestamp >= ? AND l.timestamp < ? "
+                + "ORDER BY l.device_key, l.timestamp, l.id";
+        List<Object> args = List.of(Timestamp.valueOf(startTime), Timestamp.valueOf(endTime));
+        jdbcOnShard(shard).query(connection -> prepareCursor(connection, sql, args),
+                (ResultSet rs) -> consumer.accept(mapRow(rs)));
+    }
+
+    /**
+     * シャードの位置情報をIDを指定してチャンク単位で削除
+     *
+     * チャンクごとに1つのDELETE文で削除し、イベントは発行しません
+     *
+     * @param shard     シャード名
+     * @param ids       削除する位置情報のID
+     * @param chunkSize 1文で削除する最大件数
+     * @return 削除した件数
+     */
+    public long deleteOnShard(String shard, long[] ids, int chunkSize) {
+        long deleted = 0;
+        for (int from = 0; from < ids.length; from += chunkSize) {
+            List<Long> chunk = Arrays.stream(ids, from, Math.min(ids.length, from + chunkSize)).boxed().toList();
+            deleted += deleteByIds(jdbcOnShard(shard), chunk);
+        }
+        return deleted;
+    }
+
+    private static int deleteByIds(JdbcTemplate template, List<Long> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return template.update("DELETE FROM location_data WHERE id IN (" + placeholders + ")", ids.toArray());
+    }
+
+    /**
+     * 各シャードのカーソルを同時に開き、タイムスタンプ順に併合しながら読み出す
+     *
+     * 途中で失敗した場合や読み出しを打ち切った場合も、開いたステートメントと接続はすべて閉じます
+     */
+    private void streamMerged(String sql, List<Object> args, Consumer<LocationData> consumer) {
+        List<Connection> connections = new ArrayList<>();
+        List<PreparedStatement> statements = new ArrayList<>();
+        PriorityQueue<ShardCursor> cursors = new PriorityQueue<>(
+                Comparator.comparing((ShardCursor cursor) -> cursor.current.getTimestamp())
+                        .thenComparing(cursor -> cursor.current.getId()));
+        try {
+            for (String shard : shardTemplate.getShardNames()) {
+                Connection connection = DataSourceUtils.getConnection(shardTemplate.getDataSource(shard));
+                connections.add(connection);
+                PreparedStatement ps = prepareCursor(connection, sql, args);
+                statements.add(ps);
+                ResultSet rs = ps.executeQuery();
+                ShardCursor cursor = new ShardCursor(rs);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+            while (!cursors.isEmpty()) {
+                ShardCursor cursor = cursors.poll();
+                consumer.accept(cursor.current);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("シャードをまたぐ読み出しに失敗しました", e);
+        } finally {
+            statements.forEach(JdbcUtils::closeStatement);
+            for (int i = 0; i < connections.size(); i++) {
+                DataSourceUtils.releaseConnection(connections.get(i),
+                        shardTemplate.getDataSource(shardTemplate.getShardNames().get(i)));
+            }
+        }
+    }
+
+    private static PreparedStatement prepareCursor(Connection connection, String sql, List<Object> args)
+            throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(FETCH_SIZE);
+        for (int i = 0; i < args.size(); i++) {
+            ps.setObject(i + 1, args.get(i));
+        }
+        return ps;
+    }
+
+    /**
+     * デバイスIDのシャードに接続するテンプレートを取得
+     */
+    private JdbcTemplate jdbc(String deviceId) {
+        return shardTemplate.isSharded() ? shardJdbcTemplates.get(shardTemplate.shardFor(deviceId)) : jdbcTemplate;
+    }
+
+    private JdbcTemplate jdbcOnShard(String shard) {
+        return shardTemplate.isSharded() ? shardJdbcTemplates.get(shard) : jdbcTemplate;
+    }
+
+    private TransactionTemplate transactionOnShard(String shard) {
+        TransactionTemplate template = shardTransactions.get(shard);
+        if (template == null) {
+            throw new IllegalStateException("シャードが設定されていません: " + shard);
+        }
+        return template;
+    }
+
+    private List<JdbcTemplate> allShards() {
+        return shardTemplate.isSharded() ? List.copyOf(shardJdbcTemplates.values()) : List.of(jdbcTemplate);
+    }
+
+    /**
+     * 1シャード分の読み出し位置
+     */
+    private final class ShardCursor {
+
+        private final ResultSet resultSet;
+        private LocationData current;
+
+        ShardCursor(ResultSet resultSet) {
+            this.resultSet = resultSet;
+        }
+
+        boolean advance() throws SQLException {
+            if (!resultSet.next()) {
+                resultSet.close();
+                return false;
+            }
+            current = mapRow(resultSet);
+            return true;
+        }
+    }
+
+    /**
+     * 結果セットの現在行を位置情報に変換
+     *
+     * 測定値の列は固定小数点の整数のまま読み、null の列は値の有無のビットで表します
+     */
+    private LocationData mapRow(ResultSet rs) throws SQLException {
+        int latitudeE7 = rs.getInt(3);
+        int longitudeE7 = rs.getInt(4);
+        int altitudeCm = rs.getInt(5);
+        int flags = rs.wasNull() ? 0 : PackedLocation.HAS_ALTITUDE;
+        int accuracyCm = rs.getInt(6);
+        flags |= rs.wasNull() ? 0 : PackedLocation.HAS_ACCURACY;
+        short rssi = rs.getShort(7);
+        flags |= rs.wasNull() ? 0 : PackedLocation.HAS_RSSI;
+        int smoothedLatitudeE7 = rs.getInt(10);
+        boolean smoothed = !rs.wasNull();
+        int smoothedLongitudeE7 = rs.getInt(11);
+        flags |= smoothed && !rs.wasNull() ? PackedLocation.HAS_SMOOTHED : 0;
+        PackedLocation packed = new PackedLocation(latitudeE7, longitudeE7, altitudeCm, accuracyCm, rssi,
+                smoothedLatitudeE7, smoothedLongitudeE7, (byte) flags);
+        return LocationData.from(packed, rs.getLong(1), deviceRegistry.getDeviceId(rs.getInt(2)),
+                toLocalDateTime(rs.getTimestamp(8)), toLocalDateTime(rs.getTimestamp(9)), rs.getString(12));
+    }
+
+    /**
+     * 測定値の列（緯度・経度・高度・精度・信号強度・平滑化後の緯度・経度）を固定小数点の整数で設定
+     *
+     * @return 次のパラメーターの位置
+     */
+    private static int bindMeasurements(PreparedStatement ps, int index, PackedLocation packed) throws SQLException {
+        ps.setInt(index++, packed.latitudeE7());
+        ps.setInt(index++, packed.longitudeE7());
+        setIntOrNull(ps, index++, packed.altitudeCm(), packed.has(PackedLocation.HAS_ALTITUDE));
+        setIntOrNull(ps, index++, packed.accuracyCm(), packed.has(PackedLocation.HAS_ACCURACY));
+        setIntOrNull(ps, index++, packed.rssiDbm(), packed.has(PackedLocation.HAS_RSSI));
+        setIntOrNull(ps, index++, packed.smoothedLatitudeE7(), packed.has(PackedLocation.HAS_SMOOTHED));
+        setIntOrNull(ps, index++, packed.smoothedLongitudeE7(), packed.has(PackedLocation.HAS_SMOOTHED));
+        return index;
+    }
+
+    private static void setIntOrNull(PreparedStatement ps, int index, int value, boolean present) throws SQLException {
+        if (present) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
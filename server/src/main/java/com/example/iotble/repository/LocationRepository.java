@@ -1,12 +1,15 @@
 package com.example.iotble.repository;
 
 import com.example.iotble.model.LocationData;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +29,13 @@ public interface LocationRepository extends JpaRepository<LocationData, Long> {
      */
     List<LocationData> findByDeviceIdOrderByTimestampDesc(String deviceId);
 
+    /**
+     * すべての位置情報を取得
+     * 
+     * @return 位置情報のリスト（タイムスタンプ降順、同じ時刻はID降順）
+     */
+    List<LocationData> findAllByOrderByTimestampDescIdDesc();
+
     /**
      * デバイスIDの最新の位置情報を取得
      * 
@@ -33,9 +43,50 @@ public interface LocationRepository extends JpaRepository<LocationData, Long> {
      * @return 最新の位置情報（存在する場合）
      */
     @Query("SELECT l FROM LocationData l WHERE l.deviceId = :deviceId " +
-           "ORDER BY l.timestamp DESC LIMIT 1")
+           "ORDER BY l.deviceId, l.timestamp DESC LIMIT 1")
     Optional<LocationData> findLatestByDeviceId(@Param("deviceId") String deviceId);
 
+    /**
+     * デバイスの指定期間内の位置情報を新しい順に取得
+     * 
+     * 並び順に deviceId を含めることで、複合インデックス (deviceId, timestamp DESC) の順序のまま
+     * 読み出され、件数の上限に達した時点で走査が止まります
+     * 
+     * @param deviceId  デバイスID
+     * @param startTime 開始時刻（この時刻を含む）
+     * @param endTime   終了時刻（この時刻を含む）
+     * @param limit     最大件数
+     * @return 該当する位置情報のリスト（タイムスタンプ降順）
+     */
+    @Query("SELECT l FROM LocationData l WHERE l.deviceId = :deviceId " +
+           "AND l.timestamp BETWEEN :startTime AND :endTime " +
+           "ORDER BY l.deviceId, l.timestamp DESC")
+    List<LocationData> findDeviceRangeNewestFirst(
+            @Param("deviceId") String deviceId,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            Limit limit);
+
+    /**
+     * デバイスの指定期間内の位置情報を古い順に取得
+     * 
+     * 複合インデックス (deviceId, timestamp DESC) を逆向きに走査させるため、deviceId も降順で指定します
+     * 
+     * @param deviceId  デバイスID
+     * @param startTime 開始時刻（この時刻を含む）
+     * @param endTime   終了時刻（この時刻を含む）
+     * @param limit     最大件数
+     * @return 該当する位置情報のリスト（タイムスタンプ昇順）
+     */
+    @Query("SELECT l FROM LocationData l WHERE l.deviceId = :deviceId " +
+           "AND l.timestamp BETWEEN :startTime AND :endTime " +
+           "ORDER BY l.deviceId DESC, l.timestamp ASC")
+    List<LocationData> findDeviceRangeOldestFirst(
+            @Param("deviceId") String deviceId,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            Limit limit);
+
     /**
      * 指定期間内の位置情報を取得
      * 
@@ -64,4 +115,107 @@ public interface LocationRepository extends JpaRepository<LocationData, Long> {
      */
     @Query("SELECT COUNT(DISTINCT l.deviceId) FROM LocationData l")
     long countDistinctDevices();
+
+    /**
+     * 位置情報のあるデバイスIDの一覧を取得
+     * 
+     * @return デバイスIDのリスト（重複なし）
+     */
+    @Query("SELECT DISTINCT l.deviceId FROM LocationData l")
+    List<String> findDistinctDeviceIds();
+
+    /**
+     * 一括削除の対象件数を取得
+     * 
+     * 各条件はnullの場合に無視されます
+     * 
+     * @param deviceId デバイスID（null可）
+     * @param startTime 開始時刻（null可）
+     * @param endTime 終了時刻（null可）
+     * @return 削除対象の件数
+     */
+    @Query("SELECT COUNT(l) FROM LocationData l " +
+           "WHERE (:deviceId IS NULL OR l.deviceId = :deviceId) " +
+           "AND (CAST(:startTime AS LocalDateTime) IS NULL OR l.timestamp >= :startTime) " +
+           "AND (CAST(:endTime AS LocalDateTime) IS NULL OR l.timestamp <= :endTime)")
+    long countForBulkDelete(
+            @Param("deviceId") String deviceId,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 一括削除の次のチャンクとなるIDを取得
+     * 
+     * 各条件はnullの場合に無視されます
+     * 
+     * @param deviceId デバイスID（null可）
+     * @param startTime 開始時刻（null可）
+     * @param endTime 終了時刻（null可）
+     * @param limit チャンクサイズ
+     * @return 削除対象のIDリスト（ID昇順）
+     */
+    @Query("SELECT l.id FROM LocationData l " +
+           "WHERE (:deviceId IS NULL OR l.deviceId = :deviceId) " +
+           "AND (CAST(:startTime AS LocalDateTime) IS NULL OR l.timestamp >= :startTime) " +
+           "AND (CAST(:endTime AS LocalDateTime) IS NULL OR l.timestamp <= :endTime) " +
+           "ORDER BY l.id")
+    List<Long> findIdsForBulkDelete(
+            @Param("deviceId") String deviceId,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            Limit limit);
+
+    /**
+     * 指定IDに含まれるデバイスIDを取得
+     * 
+     * @param ids 位置情報IDのリスト
+     * @return デバイスIDのリスト（重複なし）
+     */
+    @Query("SELECT DISTINCT l.deviceId FROM LocationData l WHERE l.id IN :ids")
+    List<String> findDistinctDeviceIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 指定IDの位置情報を1つのDELETE文で削除
+     * 
+     * エンティティを読み込まずに集合として削除します
+     * 
+     * @param ids 削除する位置情報IDのリスト
+     * @return 削除された件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM LocationData l WHERE l.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 期間内の位置情報の件数をデバイスごとに取得
+     * 
+     * @param startTime 開始時刻（この時刻を含む）
+     * @param endTime 終了時刻（この時刻を含まない）
+     * @return [デバイスID, 件数] のリスト
+     */
+    @Query("SELECT l.deviceId, COUNT(l) FROM LocationData l " +
+           "WHERE l.timestamp >= :startTime AND l.timestamp < :endTime GROUP BY l.deviceId")
+    List<Object[]> countByDeviceInRange(
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 指定時刻より前のデバイスの最新の位置情報を取得
+     * 
+     * @param deviceId デバイスID
+     * @param timestamp 基準時刻（この時刻を含まない）
+     * @return 位置情報（存在する場合）
+     */
+    Optional<LocationData> findFirstByDeviceIdAndTimestampBeforeOrderByTimestampDescIdDesc(
+            String deviceId, LocalDateTime timestamp);
+
+    /**
+     * 指定時刻より後のデバイスの最も古い位置情報を取得
+     * 
+     * @param deviceId デバイスID
+     * @param timestamp 基準時刻（この時刻を含まない）
+     * @return 位置情報（存在する場合）
+     */
+    Optional<LocationData> findFirstByDeviceIdAndTimestampAfterOrderByTimestampAscIdAsc(
+            String deviceId, LocalDateTime timestamp);
 }
@@ -0,0 +1,87 @@
+package com.example.iotble.repository;
+
+import com.example.iotble.model.LocationRollup;
+import com.example.iotble.model.RollupResolution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 位置情報の集計データのリポジトリインターフェース
+ */
+@Repository
+public interface LocationRollupRepository extends JpaRepository<LocationRollup, Long> {
+
+    /**
+     * バケットを一意に特定して集計データを取得
+     * 
+     * @param deviceId デバイスID
+     * @param resolution 集計の時間粒度
+     * @param bucketStart バケットの開始時刻
+     * @return 集計データ（存在する場合）
+     */
+    Optional<LocationRollup> findByDeviceIdAndResolutionAndBucketStart(
+            String deviceId, RollupResolution resolution, LocalDateTime bucketStart);
+
+    /**
+     * デバイスの最も古い集計データを取得
+     * 
+     * @param deviceId デバイスID
+     * @return 集計データ（存在する場合）
+     */
+    Optional<LocationRollup> findFirstByDeviceIdOrderByBucketStartAsc(String deviceId);
+
+    /**
+     * デバイスの最も新しい集計データを取得
+     * 
+     * @param deviceId デバイスID
+     * @return 集計データ（存在する場合）
+     */
+    Optional<LocationRollup> findFirstByDeviceIdOrderByBucketStartDesc(String deviceId);
+
+    /**
+     * 期間内の集計データを取得
+     * 
+     * @param deviceId デバイスID
+     * @param resolution 集計の時間粒度
+     * @param from バケット開始時刻の下限（この時刻を含む）
+     * @param to バケット開始時刻の上限（この時刻を含む）
+     * @return 集計データのリスト（バケット開始時刻昇順）
+     */
+    List<LocationRollup> findByDeviceIdAndResolutionAndBucketStartBetweenOrderByBucketStart(
+            String deviceId, RollupResolution resolution, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * 期間内の分単位集計の件数をデバイスごとに合計
+     * 
+     * @param from バケット開始時刻の下限（この時刻を含む）
+     * @param to バケット開始時刻の上限（この時刻を含まない）
+     * @return [デバイスID, 件数] のリスト
+     */
+    @Query("SELECT r.deviceId, SUM(r.stats.pointCount) FROM LocationRollup r " +
+           "WHERE r.resolution = com.example.iotble.model.RollupResolution.MINUTE " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to GROUP BY r.deviceId")
+    List<Object[]> sumMinutePointsByDevice(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * デバイスの期間内の集計データを削除
+     * 
+     * @param deviceId デバイスID
+     * @param from バケット開始時刻の下限（この時刻を含む）
+     * @param to バケット開始時刻の上限（この時刻を含まない）
+     * @return 削除された件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM LocationRollup r WHERE r.deviceId = :deviceId " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteByDeviceIdAndBucketStartRange(
+            @Param("deviceId") String deviceId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,87 @@
+package com.example.iotble.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.iotble.core.LocationPoint;
+import com.example.iotble.core.LocationStore;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * データベースに保存する位置情報の保存先
+ *
+ * 取り込み処理（{@link com.example.iotble.core.LocationIngestor}）の保存先として、
+ * デバイスIDのシャードの {@link LocationRepository} で読み書きします。
+ * 保存する位置情報には現在のサイトを記録します。
+ * 保存が確定した後の処理は、トランザクションの中ではコミットした後に実行します
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShardedLocationStore implements LocationStore {
+
+    private final LocationRepository locationRepository;
+    private final ShardTemplate shardTemplate;
+    private final SiteTemplate siteTemplate;
+
+    @Override
+    public LocationPoint save(LocationPoint point) {
+        return save(LocationData.from(point));
+    }
+
+    @Override
+    public LocationPoint save(LocationPoint point, double smoothedLatitude, double smoothedLongitude) {
+        LocationData location = LocationData.from(point);
+        location.setSmoothedLatitude(smoothedLatitude);
+        location.setSmoothedLongitude(smoothedLongitude);
+        return save(location);
+    }
+
+    private LocationPoint save(LocationData location) {
+        location.setSiteId(siteTemplate.currentSite());
+        return shardTemplate.onDevice(location.getDeviceId(), () -> locationRepository.save(location).toPoint());
+    }
+
+    @Override
+    public Optional<LocationPoint> findLatest(String deviceId) {
+        return shardTemplate.onDevice(deviceId,
+                () -> locationRepository.findLatestByDeviceId(deviceId).map(LocationData::toPoint));
+    }
+
+    @Override
+    public List<LocationPoint> findRange(String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+            boolean newestFirst, int limit) {
+        List<LocationData> locations = shardTemplate.onDevice(deviceId, () -> newestFirst
+                ? locationRepository.findDeviceRangeNewestFirst(deviceId, startTime, endTime, Limit.of(limit))
+                : locationRepository.findDeviceRangeOldestFirst(deviceId, startTime, endTime, Limit.of(limit)));
+        return locations.stream().map(LocationData::toPoint).toList();
+    }
+
+    @Override
+    public long count() {
+        return shardTemplate.scatter(shard -> locationRepository.count()).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
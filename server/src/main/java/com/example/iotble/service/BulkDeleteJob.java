@@ -0,0 +1,123 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+
+/**
+ * 一括削除ジョブの進捗状況
+ * 
+ * 削除はチャンク単位で実行され、チャンクがコミットされるたびに
+ * 削除件数が更新されます
+ */
+@Getter
+public class BulkDeleteJob {
+
+    /**
+     * ジョブの状態
+     */
+    public enum Status {
+        /** 実行待ち */
+        PENDING,
+        /** 実行中 */
+        RUNNING,
+        /** 完了 */
+        COMPLETED,
+        /** 失敗 */
+        FAILED
+    }
+
+    /** ジョブID */
+    private final String jobId;
+
+    /** 対象デバイスID（null の場合は全デバイス） */
+    private final String deviceId;
+
+    /** 対象期間の開始時刻（null の場合は下限なし） */
+    private final LocalDateTime startTime;
+
+    /** 対象期間の終了時刻（null の場合は上限なし） */
+    private final LocalDateTime endTime;
+
+    /** ジョブ開始時点の削除対象件数 */
+    private final long totalCount;
+
+    /** ジョブ作成日時 */
+    private final LocalDateTime createdAt;
+
+    private final AtomicLong deletedCount = new AtomicLong();
+
+    private volatile Status status = Status.PENDING;
+
+    private volatile LocalDateTime completedAt;
+
+    private volatile String errorMessage;
+
+    /**
+     * 削除ジョブを生成
+     * 
+     * @param deviceId   対象デバイスID
+     * @param startTime  対象期間の開始時刻
+     * @param endTime    対象期間の終了時刻
+     * @param totalCount 削除対象件数
+     */
+    public BulkDeleteJob(String deviceId, LocalDateTime startTime, LocalDateTime endTime, long totalCount) {
+        this.jobId = UUID.randomUUID().toString();
+        this.deviceId = deviceId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.totalCount = totalCount;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * 削除済み件数を取得
+     * 
+     * @return 削除済み件数
+     */
+    public long getDeletedCount() {
+        return deletedCount.get();
+    }
+
+    /**
+     * 進捗率を取得
+     * 
+     * @return 進捗率（0.0 ~ 100.0）
+     */
+    public double getProgressPercent() {
+        if (status == Status.COMPLETED || totalCount == 0) {
+            return status == Status.COMPLETED ? 100.0 : 0.0;
+        }
+        return Math.min(100.0, deletedCount.get() * 100.0 / totalCount);
+    }
+
+    /**
+     * ジョブが終了しているかどうか
+     * 
+     * @return 完了または失敗している場合true
+     */
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void markRunning() {
+        status = Status.RUNNING;
+    }
+
+    void addDeleted(long count) {
+        deletedCount.addAndGet(count);
+    }
+
+    void markCompleted() {
+        completedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void markFailed(String message) {
+        errorMessage = message;
+        completedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.example.iotble.model.ContactEpisode;
+
+/**
+ * デバイス同士の接近（接触）の検出サービスのインターフェース
+ */
+public interface ContactService {
+
+    /**
+     * 期間内の接触を保存されている位置情報から検出
+     * 
+     * 期間を区切って並列に走査し、区切りをまたぐ接触は結合します
+     * 
+     * @param deviceId           デバイスID（null の場合はすべてのデバイスの組）
+     * @param from               期間の開始時刻（この時刻を含む）
+     * @param to                 期間の終了時刻（この時刻を含まない）
+     * @param radiusMeters       接近とみなす距離（null の場合は設定値）
+     * @param minDurationSeconds 接触として扱う最短の秒数（null の場合は設定値）
+     * @return 接触のリスト（開始時刻順、デバイスID指定時はそのデバイスが {@code deviceId} 側）
+     * @throws IllegalArgumentException 検出条件が不正な場合
+     */
+    List<ContactEpisode> findContacts(String deviceId, LocalDateTime from, LocalDateTime to, Double radiusMeters,
+            Long minDurationSeconds);
+
+    /**
+     * 受信中の位置情報から検出した継続中の接触を取得
+     * 
+     * @return 設定の秒数以上続いている接触のリスト（開始時刻順）
+     */
+    List<ContactEpisode> getActiveContacts();
+}
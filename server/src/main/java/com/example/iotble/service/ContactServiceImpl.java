@@ -0,0 +1,279 @@
+package com.example.iotble.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.ContactEpisode;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.spatial.ContactDetector;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * デバイス同士の接近（接触）の検出サービスの実装クラス
+ * 
+ * 受信した位置情報は {@link ContactDetector} に順に渡し、継続中の接触を保持します。
+ * 期間を指定した検出では、期間を一定の長さに分割して fork/join で並列に走査し、
+ * 隣り合う区間の結果を結合するときに区切りをまたいで続いていた接触をつなぎます。
+ * 各区間は同時刻とみなす時間の幅だけ前から読み出すため、区切りの直後の接近も検出されます。
+ * 継続中の接触はサイトごとに保持し、期間の走査は呼び出し元のサイトのデータだけを読み出します
+ */
+@Service
+@Slf4j
+public class ContactServiceImpl implements ContactService {
+
+    /** 接近とみなす距離の上限（メートル） */
+    static final double MAX_RADIUS_METERS = 1000;
+
+    private final TieredLocationReader tieredReader;
+    private final SiteTemplate siteTemplate;
+    private final double radiusMeters;
+    private final long minDurationSeconds;
+    private final double windowSeconds;
+    private final double maxGapSeconds;
+    private final Duration slice;
+    private final ForkJoinPool scanners;
+
+    /** サイトごとの継続中の接触（このオブジェクトで同期して読み書きする） */
+    private final SiteLocal<Live> lives;
+
+    public ContactServiceImpl(
+            TieredLocationReader tieredReader,
+            SiteTemplate siteTemplate,
+            @Value("${iotble.contacts.radius-meters:2.0}") double radiusMeters,
+            @Value("${iotble.contacts.min-duration-seconds:60}") long minDurationSeconds,
+            @Value("${iotble.contacts.time-window-seconds:10}") double windowSeconds,
+            @Value("${iotble.contacts.max-gap-seconds:30}") double maxGapSeconds,
+            @Value("${iotble.contacts.scan-slice-minutes:60}") long sliceMinutes,
+            @Value("${iotble.contacts.scan-parallelism:4}") int scanParallelism) {
+        if (!(radiusMeters > 0) || radiusMeters > MAX_RADIUS_METERS || minDurationSeconds < 0
+                || !(windowSeconds > 0) || !(maxGapSeconds >= 0) || sliceMinutes <= 0 || scanParallelism <= 0) {
+            throw new IllegalArgumentException("contact settings are invalid");
+        }
+        this.tieredReader = tieredReader;
+        this.siteTemplate = siteTemplate;
+        this.radiusMeters = radiusMeters;
+        this.minDurationSeconds = minDurationSeconds;
+        this.windowSeconds = windowSeconds;
+        this.maxGapSeconds = maxGapSeconds;
+        this.slice = Duration.ofMinutes(sliceMinutes);
+        this.scanners = new ForkJoinPool(scanParallelism);
+        this.lives = siteTemplate.local(() -> new Live(newLiveDetector()));
+    }
+
+    @Override
+    public List<ContactEpisode> findContacts(String deviceId, LocalDateTime from, LocalDateTime to,
+            Double radiusMeters, Long minDurationSeconds) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("fromはtoより前である必要があります");
+        }
+        double radius = radiusMeters != null ? radiusMeters : this.radiusMeters;
+        if (!(radius > 0) || radius > MAX_RADIUS_METERS) {
+            throw new IllegalArgumentException(
+                    "接近とみなす距離は0より大きく" + MAX_RADIUS_METERS + "以下で指定してください: " + radius);
+        }
+        long minDuration = minDurationSeconds != null ? minDurationSeconds : this.minDurationSeconds;
+        if (minDuration < 0) {
+            throw new IllegalArgumentException("接触の秒数は0以上で指定してください: " + minDuration);
+        }
+
+        List<ContactEpisode> episodes = scanners.invoke(
+                new ScanTask(siteTemplate.currentSite(), deviceId, radius, from, to));
+        List<ContactEpisode> contacts = episodes.stream()
+                .filter(episode -> episode.durationSeconds() >= minDuration)
+                .map(episode -> deviceId != null ? episode.from(deviceId) : episode)
+                .toList();
+        log.debug("接触を検出しました: deviceId={}, 期間={}〜{}, 件数={}", deviceId, from, to, contacts.size());
+        return contacts;
+    }
+
+    @Override
+    public List<ContactEpisode> getActiveContacts() {
+        // 位置情報が届かなくなった組は、観測の間隔の上限を過ぎたら継続中とみなさない
+        LocalDateTime idleBefore = LocalDateTime.now().minusNanos((long) (maxGapSeconds * 1_000_000_000L));
+        Live live = lives.get();
+        synchronized (live) {
+            return live.detector.getOpen().stream()
+                    .filter(episode -> episode.durationSeconds() >= minDurationSeconds)
+                    .filter(episode -> !episode.end().isBefore(idleBefore))
+                    .toList();
+        }
+    }
+
+    /**
+     * 保存された位置情報から接近を検出
+     * 
+     * @param event 保存イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsSaved(LocationsSavedEvent event) {
+        Live live = lives.get();
+        List<ContactEpisode> closed;
+        synchronized (live) {
+            for (LocationData location : event.locations()) {
+                if (location.getDeviceId() != null && location.getTimestamp() != null) {
+                    live.detector.observe(location.getDeviceId(), location.effectiveLatitude(),
+                            location.effectiveLongitude(), location.getTimestamp(), true);
+                }
+            }
+            closed = live.detector.drainClosed();
+        }
+        for (ContactEpisode episode : closed) {
+            if (episode.durationSeconds() >= minDurationSeconds) {
+                log.info("接触を検出しました: {} - {}, {}〜{}, 最短距離={}m", episode.deviceId(),
+                        episode.otherDeviceId(), episode.start(), episode.end(), episode.minDistanceMeters());
+            }
+        }
+    }
+
+    /**
+     * 位置情報を削除したデバイスの継続中の接触を破棄
+     * 
+     * @param event 削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        Live live = lives.get();
+        synchronized (live) {
+            if (event.purgedAll()) {
+                live.detector = newLiveDetector();
+            } else {
+                event.deviceIds().forEach(live.detector::removeDevice);
+            }
+        }
+    }
+
+    /**
+     * 履歴を一括削除したデバイスの継続中の接触を破棄
+     * 
+     * @param event 一括削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceHistoryDeleted(DeviceHistoryDeletedEvent event) {
+        Live live = lives.get();
+        synchronized (live) {
+            live.detector.removeDevice(event.deviceId());
+        }
+    }
+
+    /**
+     * 走査スレッドを停止する
+     */
+    @PreDestroy
+    public void shutdown() {
+        scanners.shutdownNow();
+    }
+
+    private ContactDetector newLiveDetector() {
+        return new ContactDetector(radiusMeters, windowSeconds, maxGapSeconds, null);
+    }
+
+    /**
+     * 1つの区間の位置情報を走査して接触を検出
+     */
+    private List<ContactEpisode> scan(String deviceId, double radius, LocalDateTime from, LocalDateTime to) {
+        ContactDetector detector = new ContactDetector(radius, windowSeconds, maxGapSeconds, deviceId);
+        LocalDateTime readFrom = from.minusNanos((long) (windowSeconds * 1_000_000_000L));
+        tieredReader.streamByTimeRange(readFrom, to, false, null, location -> detector.observe(
+                location.getDeviceId(), location.effectiveLatitude(), location.effectiveLongitude(),
+                location.getTimestamp(), !location.getTimestamp().isBefore(from)));
+        return detector.finish();
+    }
+
+    /**
+     * 隣り合う区間の接触を結合
+     * 
+     * 前の区間の最後の接触と後の区間の最初の接触が同じ組で、間隔が上限以内であれば1つにつなぎます
+     */
+    private List<ContactEpisode> joinAdjacent(List<ContactEpisode> earlier, List<ContactEpisode> later) {
+        List<ContactEpisode> joined = new ArrayList<>(earlier);
+        Map<String, Integer> lastOfPair = new HashMap<>();
+        for (int i = 0; i < joined.size(); i++) {
+            Integer last = lastOfPair.get(pairKey(joined.get(i)));
+            if (last == null || joined.get(last).end().isBefore(joined.get(i).end())) {
+                lastOfPair.put(pairKey(joined.get(i)), i);
+            }
+        }
+        for (ContactEpisode episode : later) {
+            Integer last = lastOfPair.remove(pairKey(episode));
+            if (last != null && Duration.between(joined.get(last).end(), episode.start()).toMillis()
+                    <= maxGapSeconds * 1000) {
+                joined.set(last, joined.get(last).merge(episode));
+            } else {
+                joined.add(episode);
+            }
+        }
+        joined.sort(Comparator.comparing(ContactEpisode::start));
+        return joined;
+    }
+
+    private static String pairKey(ContactEpisode episode) {
+        return episode.deviceId() + '\n' + episode.otherDeviceId();
+    }
+
+    /**
+     * 1サイト分の継続中の接触
+     */
+    private static final class Live {
+
+        private ContactDetector detector;
+
+        private Live(ContactDetector detector) {
+            this.detector = detector;
+        }
+    }
+
+    /**
+     * 期間を半分ずつに分けて並列に走査するタスク
+     */
+    private final class ScanTask extends RecursiveTask<List<ContactEpisode>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String site;
+        private final String deviceId;
+        private final double radius;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        ScanTask(String site, String deviceId, double radius, LocalDateTime from, LocalDateTime to) {
+            this.site = site;
+            this.deviceId = deviceId;
+            this.radius = radius;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ContactEpisode> compute() {
+            Duration length = Duration.between(from, to);
+            if (length.compareTo(slice) <= 0) {
+                // 走査スレッドには呼び出し元のサイトが引き継がれないため、区間ごとに切り替える
+                return siteTemplate.onSite(site, () -> scan(deviceId, radius, from, to));
+            }
+            LocalDateTime middle = from.plus(length.dividedBy(2));
+            ScanTask earlier = new ScanTask(site, deviceId, radius, from, middle);
+            ScanTask later = new ScanTask(site, deviceId, radius, middle, to);
+            earlier.fork();
+            List<ContactEpisode> laterEpisodes = later.compute();
+            return joinAdjacent(earlier.join(), laterEpisodes);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.iotble.service;
+
+import com.example.iotble.model.DeviceClusters;
+
+/**
+ * 地図表示向けのデバイスのクラスターの取得サービスのインターフェース
+ */
+public interface DeviceClusterService {
+
+    /**
+     * 地図の表示範囲内のデバイスの現在位置をズームレベルに応じてまとめて取得
+     *
+     * @param west  表示範囲の西端の経度
+     * @param south 表示範囲の南端の緯度
+     * @param east  表示範囲の東端の経度
+     * @param north 表示範囲の北端の緯度
+     * @param zoom  地図のズームレベル
+     * @return クラスターの一覧
+     * @throws IllegalArgumentException 表示範囲またはズームレベルが不正な場合
+     */
+    DeviceClusters findClusters(double west, double south, double east, double north, int zoom);
+}
@@ -0,0 +1,53 @@
+package com.example.iotble.service;
+
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.example.iotble.model.DeviceCluster;
+import com.example.iotble.model.DeviceClusters;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.spatial.DevicePositionIndex;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 地図表示向けのデバイスのクラスターの取得サービスの実装クラス
+ *
+ * 近くのデバイスの検索と共有する四分木（{@link DevicePositionIndex}）のセルをそのままクラスターとして返します。
+ * 四分木は位置情報が保存されるたびに更新され、各セルがデバイス数と座標の合計を保持しているため、
+ * 取得のたびにまとめ直す必要はありません。ズームレベル z では、地図上でおよそ
+ * {@value #CLUSTER_PIXELS} ピクセル四方になる階層 z + 2 のセルでまとめるため、応答の大きさは
+ * デバイス数ではなく表示範囲の広さで決まります。最下層より細かいズームでは個々のデバイスを返します
+ */
+@Service
+@RequiredArgsConstructor
+public class DeviceClusterServiceImpl implements DeviceClusterService {
+
+    /** 指定できる最大のズームレベル */
+    static final int MAX_ZOOM = 22;
+
+    /** クラスターのおよその大きさ（ピクセル、256ピクセルのタイルの4分の1） */
+    static final int CLUSTER_PIXELS = 64;
+
+    /** ズームレベルとまとめるセルの階層の差（256 / 2^2 = 64ピクセル） */
+    private static final int LEVEL_OFFSET = 2;
+
+    private final SiteLocal<DevicePositionIndex> indexes;
+
+    @Override
+    public DeviceClusters findClusters(double west, double south, double east, double north, int zoom) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("ズームレベルは0から" + MAX_ZOOM + "の範囲で指定してください: " + zoom);
+        }
+        if (!(south <= north) || !(west <= east)) {
+            throw new IllegalArgumentException(
+                    "表示範囲は 西端,南端,東端,北端 の順で指定してください: " + west + "," + south + "," + east + "," + north);
+        }
+        // 地図を横にスクロールして世界の外側が表示されている場合は、地球の範囲に切り詰める
+        List<DeviceCluster> clusters = indexes.get().clusters(Math.max(-90, south), Math.min(90, north),
+                Math.max(-180, west), Math.min(180, east), zoom + LEVEL_OFFSET);
+        int deviceCount = clusters.stream().mapToInt(DeviceCluster::count).sum();
+        return new DeviceClusters(zoom, deviceCount, clusters);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.iotble.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.iotble.service.export.ExportFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+
+/**
+ * エクスポートジョブの進捗状況
+ * 
+ * エクスポート対象の期間は複数のパーティションに分割されて並列に書き出され、
+ * パーティションが完了するたびに進捗が更新されます
+ */
+@Getter
+public class ExportJob {
+
+    /**
+     * ジョブの状態
+     */
+    public enum Status {
+        /** 実行中 */
+        RUNNING,
+        /** 完了（ダウンロード可能） */
+        COMPLETED,
+        /** 失敗 */
+        FAILED
+    }
+
+    /** ジョブID */
+    private final String jobId;
+
+    /** 出力形式 */
+    private final ExportFormat format;
+
+    /** 対象デバイスID（null の場合は全デバイス） */
+    private final String deviceId;
+
+    /** 対象期間の開始時刻 */
+    private final LocalDateTime startTime;
+
+    /** 対象期間の終了時刻 */
+    private final LocalDateTime endTime;
+
+    /** パーティション数 */
+    private final int partitionCount;
+
+    /** ジョブ作成日時 */
+    private final LocalDateTime createdAt;
+
+    /** 出力ファイルのパス */
+    @JsonIgnore
+    private final Path file;
+
+    private final AtomicLong rowCount = new AtomicLong();
+
+    private final AtomicInteger completedPartitions = new AtomicInteger();
+
+    private volatile Status status = Status.RUNNING;
+
+    private volatile long fileSize;
+
+    private volatile LocalDateTime completedAt;
+
+    private volatile String errorMessage;
+
+    /**
+     * エクスポートジョブを生成
+     * 
+     * @param format         出力形式
+     * @param deviceId       対象デバイスID
+     * @param startTime      対象期間の開始時刻
+     * @param endTime        対象期間の終了時刻
+     * @param partitionCount パーティション数
+     * @param directory      出力先ディレクトリ
+     */
+    public ExportJob(ExportFormat format, String deviceId, LocalDateTime startTime, LocalDateTime endTime,
+            int partitionCount, Path directory) {
+        this.jobId = UUID.randomUUID().toString();
+        this.format = format;
+        this.deviceId = deviceId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.partitionCount = partitionCount;
+        this.createdAt = LocalDateTime.now();
+        this.file = directory.resolve("locations-" + jobId + "." + format.getExtension());
+    }
+
+    /**
+     * 書き出し済みの行数を取得
+     * 
+     * @return 行数
+     */
+    public long getRowCount() {
+        return rowCount.get();
+    }
+
+    /**
+     * 完了したパーティション数を取得
+     * 
+     * @return パーティション数
+     */
+    public int getCompletedPartitions() {
+        return completedPartitions.get();
+    }
+
+    /**
+     * ダウンロード時のファイル名を取得
+     * 
+     * @return ファイル名
+     */
+    public String getFileName() {
+        return file.getFileName().toString();
+    }
+
+    /**
+     * ジョブが終了しているかどうか
+     * 
+     * @return 完了または失敗している場合true
+     */
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+
+    void partitionCompleted(long rows) {
+        rowCount.addAndGet(rows);
+        completedPartitions.incrementAndGet();
+    }
+
+    void markCompleted(long size) {
+        fileSize = size;
+        completedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void markFailed(String message) {
+        errorMessage = message;
+        completedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+}
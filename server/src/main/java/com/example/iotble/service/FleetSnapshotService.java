@@ -0,0 +1,31 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+
+import com.example.iotble.model.FleetSnapshot;
+import com.example.iotble.model.FleetSnapshotFrames;
+
+/**
+ * すべてのデバイスの過去の位置（スナップショット）の取得サービスのインターフェース
+ */
+public interface FleetSnapshotService {
+
+    /**
+     * 指定時刻の時点でのすべてのデバイスの最新の位置を取得
+     *
+     * @param at 時点
+     * @return スナップショット
+     */
+    FleetSnapshot getSnapshot(LocalDateTime at);
+
+    /**
+     * 期間を一定の間隔で区切った時点ごとのスナップショットを取得
+     *
+     * @param from        期間の開始時刻
+     * @param to          期間の終了時刻
+     * @param stepSeconds フレームの間隔（秒）
+     * @return 時点の古い順のスナップショット
+     * @throws IllegalArgumentException 期間・間隔が不正な場合、またはフレームが多すぎる場合
+     */
+    FleetSnapshotFrames getFrames(LocalDateTime from, LocalDateTime to, long stepSeconds);
+}
@@ -0,0 +1,104 @@
+package com.example.iotble.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.springframework.stereotype.Service;
+
+import com.example.iotble.model.DevicePosition;
+import com.example.iotble.model.FleetSnapshot;
+import com.example.iotble.model.FleetSnapshotFrames;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * すべてのデバイスの過去の位置（スナップショット）の取得サービスの実装クラス
+ *
+ * 1時点のスナップショットは、デバイスごとに複合インデックスから時点以前の1件だけを読んで作ります。
+ * フレームの列は、最初の時点のスナップショットを作った後、期間内の位置情報をタイムスタンプ順に1回だけ読み、
+ * 各時点に達するたびにその時点のデバイスごとの位置を書き出します。
+ * 各フレームはデバイス数に比例したコストで作られ、履歴を時点ごとに読み直すことはありません
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FleetSnapshotServiceImpl implements FleetSnapshotService {
+
+    /** 1回に取得できるフレームの最大数 */
+    static final int MAX_FRAMES = 2000;
+
+    /** 1回に取得できるフレームの位置の合計（フレーム数×デバイス数）の上限 */
+    static final long MAX_FRAME_POSITIONS = 2_000_000;
+
+    private final TieredLocationReader tieredReader;
+
+    @Override
+    public FleetSnapshot getSnapshot(LocalDateTime at) {
+        return new FleetSnapshot(at, List.copyOf(latestAsOf(at).values()));
+    }
+
+    @Override
+    public FleetSnapshotFrames getFrames(LocalDateTime from, LocalDateTime to, long stepSeconds) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("fromはtoより前である必要があります");
+        }
+        if (stepSeconds < 1) {
+            throw new IllegalArgumentException("フレームの間隔は1秒以上で指定してください: " + stepSeconds);
+        }
+        long frameCount = Duration.between(from, to).getSeconds() / stepSeconds + 1;
+        if (frameCount > MAX_FRAMES) {
+            throw new IllegalArgumentException("フレームが多すぎます（最大" + MAX_FRAMES + "）: " + frameCount
+                    + "。期間を短くするか間隔を大きくしてください");
+        }
+
+        TreeMap<String, DevicePosition> positions = latestAsOf(from);
+        List<FleetSnapshot> frames = new ArrayList<>((int) frameCount);
+        frames.add(new FleetSnapshot(from, List.copyOf(positions.values())));
+        LocalDateTime[] next = { from.plusSeconds(stepSeconds) };
+        tieredReader.streamByTimeRange(from, to, true, null, location -> {
+            if (!location.getTimestamp().isAfter(from)) {
+                // 最初のフレームに反映済み
+                return;
+            }
+            // この位置情報より前の時点のフレームを書き出してから反映する
+            while (!next[0].isAfter(to) && next[0].isBefore(location.getTimestamp())) {
+                addFrame(frames, next[0], positions);
+                next[0] = next[0].plusSeconds(stepSeconds);
+            }
+            positions.put(location.getDeviceId(), DevicePosition.of(location));
+        });
+        while (!next[0].isAfter(to)) {
+            addFrame(frames, next[0], positions);
+            next[0] = next[0].plusSeconds(stepSeconds);
+        }
+        log.debug("スナップショットの列を作成しました: 期間={}〜{}, 間隔={}秒, フレーム数={}, デバイス数={}",
+                from, to, stepSeconds, frames.size(), positions.size());
+        return new FleetSnapshotFrames(from, to, stepSeconds, frames);
+    }
+
+    /**
+     * 時点ごとのデバイスの位置をフレームとして追加
+     */
+    private static void addFrame(List<FleetSnapshot> frames, LocalDateTime at,
+            TreeMap<String, DevicePosition> positions) {
+        if ((long) (frames.size() + 1) * positions.size() > MAX_FRAME_POSITIONS) {
+            throw new IllegalArgumentException("フレームに含まれる位置が多すぎます（最大" + MAX_FRAME_POSITIONS
+                    + "）。期間を短くするか間隔を大きくしてください");
+        }
+        frames.add(new FleetSnapshot(at, List.copyOf(positions.values())));
+    }
+
+    /**
+     * 時点以前のデバイスごとの最新の位置（デバイスID順）
+     */
+    private TreeMap<String, DevicePosition> latestAsOf(LocalDateTime at) {
+        TreeMap<String, DevicePosition> positions = new TreeMap<>();
+        tieredReader.streamLatestPerDeviceAsOf(at,
+                location -> positions.put(location.getDeviceId(), DevicePosition.of(location)));
+        return positions;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.iotble.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.iotble.model.ImportCheckpoint;
+import com.example.iotble.service.importer.ImportFormat;
+import com.example.iotble.service.importer.RejectedRow;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+
+/**
+ * 一括インポートジョブの進捗状況
+ * 
+ * 件数はチェックポイントと同じ単位（コミット済みのバッチ）で更新されます
+ */
+@Getter
+public class ImportJob {
+
+    /** 保持する不正行サンプルの上限 */
+    public static final int MAX_REJECTED_SAMPLES = 100;
+
+    /**
+     * ジョブの状態
+     */
+    public enum Status {
+        /** 実行中 */
+        RUNNING,
+        /** 完了 */
+        COMPLETED,
+        /** 失敗（チェックポイントから再開可能） */
+        FAILED
+    }
+
+    /** ジョブID（チェックポイントのキー） */
+    private final String jobId;
+
+    /** ファイル形式 */
+    private final ImportFormat format;
+
+    /** 取り込み元の名前 */
+    private final String sourceName;
+
+    /** 取り込み元ファイル */
+    @JsonIgnore
+    private final Path sourceFile;
+
+    /** 不正行の一覧ファイル */
+    @JsonIgnore
+    private final Path rejectedFile;
+
+    /** 取り込み先のサイトID */
+    private final String siteId;
+
+    /** ジョブ作成日時 */
+    private final LocalDateTime createdAt;
+
+    private final AtomicLong linesProcessed = new AtomicLong();
+
+    private final AtomicLong importedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final List<RejectedRow> rejectedSamples = new ArrayList<>();
+
+    private volatile Status status = Status.RUNNING;
+
+    private volatile long resumedFromLine;
+
+    private volatile LocalDateTime completedAt;
+
+    private volatile String errorMessage;
+
+    /**
+     * インポートジョブを生成
+     * 
+     * @param jobId        ジョブID
+     * @param format       ファイル形式
+     * @param sourceName   取り込み元の名前
+     * @param sourceFile   取り込み元ファイル
+     * @param rejectedFile 不正行の一覧ファイル
+     * @param siteId       取り込み先のサイトID
+     */
+    public ImportJob(String jobId, ImportFormat format, String sourceName, Path sourceFile, Path rejectedFile,
+            String siteId) {
+        this.jobId = jobId;
+        this.format = format;
+        this.sourceName = sourceName;
+        this.sourceFile = sourceFile;
+        this.rejectedFile = rejectedFile;
+        this.siteId = siteId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * 処理済みの行数を取得
+     * 
+     * @return 行数（ヘッダー行を含む）
+     */
+    public long getLinesProcessed() {
+        return linesProcessed.get();
+    }
+
+    /**
+     * 取り込み済み件数を取得
+     * 
+     * @return 件数
+     */
+    public long getImportedCount() {
+        return importedCount.get();
+    }
+
+    /**
+     * 不正行の件数を取得
+     * 
+     * @return 件数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 不正行のサンプルを取得（先頭から最大 {@value #MAX_REJECTED_SAMPLES} 件）
+     * 
+     * @return 不正行のリスト
+     */
+    public List<RejectedRow> getRejectedSamples() {
+        synchronized (rejectedSamples) {
+            return List.copyOf(rejectedSamples);
+        }
+    }
+
+    /**
+     * ジョブが終了しているかどうか
+     * 
+     * @return 完了または失敗している場合true
+     */
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+
+    void restore(ImportCheckpoint checkpoint) {
+        linesProcessed.set(checkpoint.getLineNumber());
+        importedCount.set(checkpoint.getImportedCount());
+        rejectedCount.set(checkpoint.getRejectedCount());
+        resumedFromLine = checkpoint.getLineNumber();
+    }
+
+    void batchCommitted(long lastLine, int imported, List<RejectedRow> rejected) {
+        linesProcessed.set(lastLine);
+        importedCount.addAndGet(imported);
+        rejectedCount.addAndGet(rejected.size());
+        synchronized (rejectedSamples) {
+            for (RejectedRow row : rejected) {
+                if (rejectedSamples.size() >= MAX_REJECTED_SAMPLES) {
+                    break;
+                }
+                rejectedSamples.add(row);
+            }
+        }
+    }
+
+    void markRunning() {
+        errorMessage = null;
+        completedAt = null;
+        status = Status.RUNNING;
+    }
+
+    void markCompleted() {
+        completedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void markFailed(String message) {
+        errorMessage = message;
+        completedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 位置情報の一括削除サービスのインターフェース
+ * 
+ * デバイスIDと期間を条件に、チャンク単位の集合DELETEで位置情報を削除します
+ */
+public interface LocationBulkDeleteService {
+
+    /**
+     * 条件に一致する位置情報を一括削除
+     * 
+     * 対象件数が非同期実行の閾値以下の場合は同期的に削除し、完了済みのジョブを返します。
+     * 閾値を超える場合はバックグラウンドで削除を開始し、実行中のジョブを返します。
+     * 
+     * @param deviceId  デバイスID（null の場合は全デバイス）
+     * @param startTime 開始時刻（null の場合は下限なし）
+     * @param endTime   終了時刻（null の場合は上限なし）
+     * @return 削除ジョブ
+     * @throws IllegalArgumentException 条件がひとつも指定されていない場合、または期間が不正な場合
+     */
+    BulkDeleteJob deleteLocations(String deviceId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 削除ジョブの進捗を取得
+     * 
+     * @param jobId ジョブID
+     * @return 削除ジョブ（存在する場合）
+     */
+    Optional<BulkDeleteJob> getJob(String jobId);
+}
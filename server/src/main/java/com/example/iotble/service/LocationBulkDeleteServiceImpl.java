@@ -0,0 +1,212 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の一括削除サービスの実装クラス
+ * 
+ * 削除はチャンクごとに独立したトランザクションで実行されるため、
+ * 大量削除でも長時間のロックや巨大なUNDOログを発生させません。
+ * 各チャンクのコミット後に {@link LocationsDeletedEvent} を発行し、
+ * メモリ上のインデックスやキャッシュへ削除を反映させます。
+ * コールドティアに封印済みの位置情報は、データベースの削除の後に同じ条件で削除し、削除件数に含めます。
+ */
+@Service
+@Slf4j
+public class LocationBulkDeleteServiceImpl implements LocationBulkDeleteService {
+
+    /** 保持する終了済みジョブの上限 */
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final LocationRepository locationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardTemplate shardTemplate;
+    private final SiteTemplate siteTemplate;
+    private final SegmentStore segmentStore;
+    private final int chunkSize;
+    private final long asyncThreshold;
+    private final Map<String, BulkDeleteJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-delete");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LocationBulkDeleteServiceImpl(
+            LocationRepository locationRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            ShardTemplate shardTemplate,
+            SiteTemplate siteTemplate,
+            SegmentStore segmentStore,
+            @Value("${iotble.bulk-delete.chunk-size:1000}") int chunkSize,
+            @Value("${iotble.bulk-delete.async-threshold:10000}") long asyncThreshold) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunk-size must be positive");
+        }
+        this.locationRepository = locationRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardTemplate = shardTemplate;
+        this.siteTemplate = siteTemplate;
+        this.segmentStore = segmentStore;
+        this.chunkSize = chunkSize;
+        this.asyncThreshold = asyncThreshold;
+    }
+
+    /**
+     * 条件に一致する位置情報を一括削除
+     * 
+     * @param deviceId  デバイスID（null の場合は全デバイス）
+     * @param startTime 開始時刻（null の場合は下限なし）
+     * @param endTime   終了時刻（null の場合は上限なし）
+     * @return 削除ジョブ
+     */
+    @Override
+    public BulkDeleteJob deleteLocations(String deviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        String device = (deviceId == null || deviceId.isBlank()) ? null : deviceId;
+        if (device == null && startTime == null && endTime == null) {
+            throw new IllegalArgumentException("deviceId、startTime、endTimeのいずれかを指定してください");
+        }
+        if (startTime != null && endTime != null && startTime.isAfter(endTime)) {
+            throw new IllegalArgumentException("startTimeはendTime以前である必要があります");
+        }
+
+        long total = targetShards(device).stream()
+                .mapToLong(shard -> shardTemplate.onShard(shard,
+                        () -> locationRepository.countForBulkDelete(device, startTime, endTime)))
+                .sum();
+        BulkDeleteJob job = new BulkDeleteJob(device, startTime, endTime, total);
+        registerJob(job);
+
+        if (total <= asyncThreshold) {
+            run(job);
+        } else {
+            log.info("一括削除をバックグラウンドで開始します: jobId={}, 対象件数={}", job.getJobId(), total);
+            executor.execute(siteTemplate.propagate(() -> run(job)));
+        }
+        return job;
+    }
+
+    /**
+     * 削除ジョブの進捗を取得
+     * 
+     * @param jobId ジョブID
+     * @return 削除ジョブ（存在する場合）
+     */
+    @Override
+    public Optional<BulkDeleteJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * ジョブを実行し、対象がなくなるまでチャンク単位で削除する
+     */
+    private void run(BulkDeleteJob job) {
+        job.markRunning();
+        try {
+            for (String shard : targetShards(job.getDeviceId())) {
+                int deleted;
+                do {
+                    deleted = shardTemplate.onShard(shard, () -> deleteChunk(job));
+                    job.addDeleted(deleted);
+                } while (deleted > 0);
+            }
+            long sealed = segmentStore.delete(job.getDeviceId(), job.getStartTime(), job.getEndTime());
+            job.addDeleted(sealed);
+            job.markCompleted();
+            if (job.getDeviceId() != null) {
+                eventPublisher.publishEvent(
+                        new DeviceHistoryDeletedEvent(job.getDeviceId(), job.getStartTime(), job.getEndTime()));
+            } else if (sealed > 0) {
+                // 封印済みの行はIDやデバイスを列挙しないため、すべてのデバイスが変わり得るものとして通知する
+                eventPublisher.publishEvent(LocationsDeletedEvent.of(List.of(), Set.of()));
+            }
+            log.info("一括削除が完了しました: jobId={}, 削除件数={}", job.getJobId(), job.getDeletedCount());
+        } catch (RuntimeException e) {
+            job.markFailed(e.getMessage());
+            log.error("一括削除に失敗しました: jobId={}, 削除済み件数={}", job.getJobId(), job.getDeletedCount(), e);
+        }
+    }
+
+    /**
+     * 削除対象の位置情報が保存されているシャードを取得
+     */
+    private List<String> targetShards(String deviceId) {
+        return deviceId != null ? List.of(shardTemplate.shardFor(deviceId)) : shardTemplate.getShardNames();
+    }
+
+    /**
+     * 1チャンク分を独立したトランザクションで削除し、コミット後にイベントを発行する
+     */
+    private int deleteChunk(BulkDeleteJob job) {
+        LocationsDeletedEvent event = transactionTemplate.execute(status -> {
+            List<Long> ids = locationRepository.findIdsForBulkDelete(
+                    job.getDeviceId(), job.getStartTime(), job.getEndTime(), Limit.of(chunkSize));
+            if (ids.isEmpty()) {
+                return null;
+            }
+            List<String> deviceIds = job.getDeviceId() != null
+                    ? List.of(job.getDeviceId())
+                    : locationRepository.findDistinctDeviceIdsByIdIn(ids);
+            locationRepository.deleteByIdIn(ids);
+            return LocationsDeletedEvent.of(ids, new HashSet<>(deviceIds));
+        });
+        if (event == null) {
+            return 0;
+        }
+        eventPublisher.publishEvent(event);
+        log.debug("一括削除チャンクをコミットしました: jobId={}, 件数={}", job.getJobId(), event.ids().size());
+        return event.ids().size();
+    }
+
+    /**
+     * ジョブを登録し、古い終了済みジョブを破棄する
+     */
+    private void registerJob(BulkDeleteJob job) {
+        jobs.put(job.getJobId(), job);
+        if (jobs.size() > MAX_FINISHED_JOBS) {
+            jobs.values().stream()
+                    .filter(BulkDeleteJob::isFinished)
+                    .sorted(Comparator.comparing(BulkDeleteJob::getCreatedAt))
+                    .limit(jobs.size() - MAX_FINISHED_JOBS)
+                    .toList()
+                    .forEach(finished -> jobs.remove(finished.getJobId()));
+        }
+    }
+
+    /**
+     * 実行中のジョブを停止する
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.iotble.service;
+
+import com.example.iotble.model.LocationChanges;
+
+/**
+ * 位置情報の差分同期サービスのインターフェース
+ */
+public interface LocationChangeService {
+
+    /**
+     * カーソル以降に追加・削除された位置情報を取得
+     * 
+     * カーソルを省略した場合や、再起動・保持件数の超過・全件削除などで差分を返せない場合は
+     * 最新の位置情報と現在のカーソルを返します（reset=true）
+     * 
+     * @param since 前回の応答のカーソル（null の場合は初回）
+     * @param limit 返す変更の最大件数
+     * @return 変更と新しいカーソル
+     * @throws IllegalArgumentException カーソルの形式が不正な場合
+     */
+    LocationChanges getChanges(String since, int limit);
+}
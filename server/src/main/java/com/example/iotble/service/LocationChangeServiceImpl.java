@@ -0,0 +1,190 @@
+package com.example.iotble.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.LocationChanges;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.site.SiteTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の差分同期サービスの実装クラス
+ * 
+ * 保存・削除がコミットされるたびに変更へ連番を振り、直近の変更をリングバッファに保持します。
+ * 連番はコミット後に振るため、カーソルより前の連番の変更が後から現れることはありません。
+ * 連番は連続しているため、カーソル以降の変更の位置は計算で求まり、取得のコストは差分の件数に比例します。
+ * カーソルには起動ごとの識別子を含め、再起動後の古いカーソルは差分を返さずに状態の置き換えを指示します。
+ * リングバッファと連番はサイトごとに持ち、カーソルは発行したサイトでのみ有効です
+ */
+@Service
+@Slf4j
+public class LocationChangeServiceImpl implements LocationChangeService {
+
+    /** 1回に返す変更の上限 */
+    static final int MAX_LIMIT = 5000;
+
+    private final LocationService locationService;
+    private final int capacity;
+
+    /** 起動ごとの識別子 */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final SiteLocal<Feed> feeds;
+
+    public LocationChangeServiceImpl(
+            LocationService locationService,
+            SiteTemplate siteTemplate,
+            @Value("${iotble.changes.capacity:10000}") int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.locationService = locationService;
+        this.capacity = capacity;
+        this.feeds = siteTemplate.local(() -> new Feed(capacity));
+    }
+
+    /**
+     * 保存された位置情報を変更として記録
+     * 
+     * IDのない位置情報（一括インポートで登録した行）を含む場合は、クライアントがIDで状態を突き合わせられないため
+     * 個別に記録せず、それ以前のカーソルに状態の置き換えを指示します
+     * 
+     * @param event 保存イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsSaved(LocationsSavedEvent event) {
+        Feed feed = feeds.get();
+        synchronized (feed) {
+            if (event.locations().stream().anyMatch(location -> location.getId() == null)) {
+                feed.resetSeq = feed.nextSeq;
+                feed.append(null);
+                return;
+            }
+            for (LocationData location : event.locations()) {
+                feed.append(new Change(location, null));
+            }
+        }
+    }
+
+    /**
+     * 削除された位置情報のIDを変更として記録
+     * 
+     * 全件削除、IDを列挙しない削除（封印済みの位置情報の削除など）や保持件数の半分を超える削除は個別に記録せず、
+     * それ以前のカーソルに状態の置き換えを指示します
+     * 
+     * @param event 削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        Feed feed = feeds.get();
+        synchronized (feed) {
+            if (event.purgedAll() || event.ids().isEmpty() || event.ids().size() > capacity / 2) {
+                feed.resetSeq = feed.nextSeq;
+                feed.append(null);
+                return;
+            }
+            for (Long id : event.ids()) {
+                feed.append(new Change(null, id));
+            }
+        }
+    }
+
+    @Override
+    public LocationChanges getChanges(String since, int limit) {
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        long sinceSeq = parseCursor(since);
+        Feed feed = feeds.get();
+        long latest;
+        synchronized (feed) {
+            latest = feed.nextSeq - 1;
+            long oldest = Math.max(1, feed.nextSeq - capacity);
+            if (sinceSeq >= 0 && sinceSeq >= feed.resetSeq && sinceSeq + 1 >= oldest && sinceSeq <= latest) {
+                return replay(feed, sinceSeq, latest, max);
+            }
+        }
+        if (since != null) {
+            log.info("差分を返せないため最新の位置情報で置き換えます: since={}", since);
+        }
+        // カーソルを先に確定してから読み出すため、読み出し中の変更は次回の差分にも含まれる（IDで重複を除く）
+        return new LocationChanges(cursor(latest), true, locationService.getRecentLocations(), List.of(), false);
+    }
+
+    private LocationChanges replay(Feed feed, long sinceSeq, long latest, int max) {
+        long end = Math.min(latest, sinceSeq + max);
+        List<LocationData> inserted = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        for (long seq = sinceSeq + 1; seq <= end; seq++) {
+            Change change = feed.ring[(int) (seq % capacity)];
+            if (change.inserted() != null) {
+                inserted.add(change.inserted());
+            } else {
+                deletedIds.add(change.deletedId());
+            }
+        }
+        return new LocationChanges(cursor(end), false, inserted, deletedIds, end < latest);
+    }
+
+    private String cursor(long seq) {
+        return epoch + '.' + Long.toString(seq, 36);
+    }
+
+    /**
+     * カーソルから連番を取得
+     * 
+     * @return 連番（カーソルがない場合や別の起動のカーソルの場合は -1）
+     */
+    private long parseCursor(String since) {
+        if (since == null || since.isBlank()) {
+            return -1;
+        }
+        int dot = since.indexOf('.');
+        try {
+            if (dot <= 0) {
+                throw new NumberFormatException(since);
+            }
+            long seq = Long.parseLong(since.substring(dot + 1), 36);
+            return epoch.equals(since.substring(0, dot)) && seq >= 0 ? seq : -1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("カーソルの形式が不正です: " + since);
+        }
+    }
+
+    /**
+     * 1サイト分の変更のリングバッファ（このオブジェクトで同期して読み書きする）
+     */
+    private static final class Feed {
+
+        /** 連番 % capacity の位置に変更を保持する */
+        private final Change[] ring;
+
+        /** 次の変更の連番 */
+        private long nextSeq = 1;
+
+        /** この連番以前のカーソルからは差分を返せない（全件削除や大量削除の位置） */
+        private long resetSeq = 0;
+
+        private Feed(int capacity) {
+            this.ring = new Change[capacity];
+        }
+
+        private void append(Change change) {
+            ring[(int) (nextSeq % ring.length)] = change;
+            nextSeq++;
+        }
+    }
+
+    /**
+     * 1件の変更（追加の場合は inserted、削除の場合は deletedId）
+     */
+    private record Change(LocationData inserted, Long deletedId) {
+    }
+}
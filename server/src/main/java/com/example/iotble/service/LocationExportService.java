@@ -0,0 +1,36 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import com.example.iotble.service.export.ExportFormat;
+
+/**
+ * 位置情報のエクスポートサービスのインターフェース
+ * 
+ * 位置情報をヒープに展開せずにファイルへストリーミング出力します
+ */
+public interface LocationExportService {
+
+    /**
+     * エクスポートジョブを開始
+     * 
+     * 期間を省略した場合はデータ全体（デバイス指定時はそのデバイスの全期間）が対象になります
+     * 
+     * @param format    出力形式
+     * @param deviceId  デバイスID（null の場合は全デバイス）
+     * @param startTime 開始時刻（null の場合は最古のデータから）
+     * @param endTime   終了時刻（null の場合は最新のデータまで）
+     * @return 開始したエクスポートジョブ
+     * @throws IllegalArgumentException 期間が不正な場合
+     */
+    ExportJob startExport(ExportFormat format, String deviceId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * エクスポートジョブを取得
+     * 
+     * @param jobId ジョブID
+     * @return エクスポートジョブ（存在する場合）
+     */
+    Optional<ExportJob> getJob(String jobId);
+}
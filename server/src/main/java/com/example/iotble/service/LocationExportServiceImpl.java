@@ -0,0 +1,259 @@
+package com.example.iotble.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.service.export.ColumnarLocationWriter;
+import com.example.iotble.service.export.CsvLocationWriter;
+import com.example.iotble.service.export.ExportFileAssembler;
+import com.example.iotble.service.export.ExportFormat;
+import com.example.iotble.service.export.ExportPart;
+import com.example.iotble.service.export.LocationExportWriter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報のエクスポートサービスの実装クラス
+ * 
+ * 対象期間をパーティションに分割し、専用のワーカースレッドで並列にパートファイルへ
+ * 書き出したあと、1つのファイルに結合します。ワーカーは低優先度の少数のスレッドに
+ * 限定されるため、エクスポート中もリクエスト処理スレッドでの受信処理を妨げません。
+ */
+@Service
+@Slf4j
+public class LocationExportServiceImpl implements LocationExportService {
+
+    /** 保持する終了済みジョブの上限 */
+    private static final int MAX_FINISHED_JOBS = 20;
+
+    private final TieredLocationReader tieredReader;
+    private final SiteTemplate siteTemplate;
+    private final Path directory;
+    private final int partitions;
+    private final int bufferSize;
+    private final int rowGroupSize;
+    private final ExecutorService workers;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public LocationExportServiceImpl(
+            TieredLocationReader tieredReader,
+            SiteTemplate siteTemplate,
+            @Value("${iotble.export.directory:${java.io.tmpdir}/iotble-exports}") String directory,
+            @Value("${iotble.export.parallelism:2}") int parallelism,
+            @Value("${iotble.export.partitions:8}") int partitions,
+            @Value("${iotble.export.buffer-size:1048576}") int bufferSize,
+            @Value("${iotble.export.row-group-size:65536}") int rowGroupSize) {
+        if (parallelism <= 0 || partitions <= 0 || bufferSize <= 0 || rowGroupSize <= 0) {
+            throw new IllegalArgumentException("export settings must be positive");
+        }
+        this.tieredReader = tieredReader;
+        this.siteTemplate = siteTemplate;
+        this.directory = Paths.get(directory);
+        this.partitions = partitions;
+        this.bufferSize = bufferSize;
+        this.rowGroupSize = rowGroupSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "export-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * エクスポートジョブを開始
+     * 
+     * @param format    出力形式
+     * @param deviceId  デバイスID（null の場合は全デバイス）
+     * @param startTime 開始時刻（null の場合は最古のデータから）
+     * @param endTime   終了時刻（null の場合は最新のデータまで）
+     * @return 開始したエクスポートジョブ
+     */
+    @Override
+    public ExportJob startExport(ExportFormat format, String deviceId, LocalDateTime startTime,
+            LocalDateTime endTime) {
+        String device = (deviceId == null || deviceId.isBlank()) ? null : deviceId;
+        if (startTime != null && endTime != null && startTime.isAfter(endTime)) {
+            throw new IllegalArgumentException("startTimeはendTime以前である必要があります");
+        }
+
+        LocalDateTime start = startTime;
+        LocalDateTime end = endTime;
+        if (start == null || end == null) {
+            Optional<LocalDateTime[]> bounds = tieredReader.findTimestampBounds(device);
+            LocalDateTime now = LocalDateTime.now();
+            start = start != null ? start : bounds.map(b -> b[0]).orElse(now);
+            end = end != null ? end : bounds.map(b -> b[1]).orElse(now);
+            if (start.isAfter(end)) {
+                end = start;
+            }
+        }
+
+        List<LocalDateTime[]> slices = split(start, end);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("エクスポート先ディレクトリを作成できません: " + directory, e);
+        }
+        ExportJob job = new ExportJob(format, device, start, end, slices.size(), directory);
+        registerJob(job);
+        log.info("エクスポートを開始します: jobId={}, 形式={}, 期間={}~{}, パーティション数={}",
+                job.getJobId(), format, start, end, slices.size());
+
+        List<CompletableFuture<ExportPart>> futures = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            LocalDateTime[] slice = slices.get(i);
+            boolean last = i == slices.size() - 1;
+            Path partFile = directory.resolve(job.getJobId() + ".part" + i);
+            futures.add(CompletableFuture.supplyAsync(
+                    siteTemplate.propagate(() -> exportPartition(job, slice[0], slice[1], last, partFile)),
+                    workers));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApplyAsync(ignored -> assemble(job, futures.stream().map(CompletableFuture::join).toList()),
+                        workers)
+                .whenComplete((size, error) -> {
+                    if (error == null) {
+                        job.markCompleted(size);
+                        log.info("エクスポートが完了しました: jobId={}, 行数={}, サイズ={}バイト",
+                                job.getJobId(), job.getRowCount(), size);
+                    } else {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        job.markFailed(cause.getMessage());
+                        cleanup(job, slices.size());
+                        log.error("エクスポートに失敗しました: jobId={}", job.getJobId(), cause);
+                    }
+                });
+        return job;
+    }
+
+    /**
+     * エクスポートジョブを取得
+     * 
+     * @param jobId ジョブID
+     * @return エクスポートジョブ（存在する場合）
+     */
+    @Override
+    public Optional<ExportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * 期間をパーティション数で等分する（最後のパーティションのみ終了時刻を含む）
+     */
+    List<LocalDateTime[]> split(LocalDateTime start, LocalDateTime end) {
+        long totalNanos = Duration.between(start, end).toNanos();
+        int count = (int) Math.max(1, Math.min(partitions, totalNanos));
+        List<LocalDateTime[]> slices = new ArrayList<>(count);
+        LocalDateTime sliceStart = start;
+        for (int i = 1; i <= count; i++) {
+            LocalDateTime sliceEnd = i == count ? end : start.plusNanos(totalNanos / count * i);
+            slices.add(new LocalDateTime[] { sliceStart, sliceEnd });
+            sliceStart = sliceEnd;
+        }
+        return slices;
+    }
+
+    /**
+     * 1パーティション分をパートファイルへ書き出す
+     */
+    private ExportPart exportPartition(ExportJob job, LocalDateTime start, LocalDateTime end, boolean endInclusive,
+            Path partFile) {
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            LocationExportWriter writer = job.getFormat() == ExportFormat.CSV
+                    ? new CsvLocationWriter(channel, bufferSize)
+                    : new ColumnarLocationWriter(channel, bufferSize, rowGroupSize);
+            tieredReader.streamByTimeRange(start, end, endInclusive, job.getDeviceId(), location -> {
+                try {
+                    writer.write(location);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+            job.partitionCompleted(writer.getRowCount());
+            return new ExportPart(partFile, writer.getRowCount(),
+                    writer instanceof ColumnarLocationWriter columnar ? columnar.getRowGroups() : List.of());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * パートファイルを結合する
+     */
+    private long assemble(ExportJob job, List<ExportPart> parts) {
+        try {
+            return ExportFileAssembler.assemble(job.getFormat(), job.getFile(), parts);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 失敗したジョブの中間ファイルと出力ファイルを削除する
+     */
+    private void cleanup(ExportJob job, int partCount) {
+        try {
+            for (int i = 0; i < partCount; i++) {
+                Files.deleteIfExists(directory.resolve(job.getJobId() + ".part" + i));
+            }
+            Files.deleteIfExists(job.getFile());
+        } catch (IOException e) {
+            log.warn("エクスポートファイルの削除に失敗しました: jobId={}", job.getJobId(), e);
+        }
+    }
+
+    /**
+     * ジョブを登録し、古い終了済みジョブとそのファイルを破棄する
+     */
+    private void registerJob(ExportJob job) {
+        jobs.put(job.getJobId(), job);
+        if (jobs.size() > MAX_FINISHED_JOBS) {
+            jobs.values().stream()
+                    .filter(ExportJob::isFinished)
+                    .sorted(Comparator.comparing(ExportJob::getCreatedAt))
+                    .limit(jobs.size() - MAX_FINISHED_JOBS)
+                    .toList()
+                    .forEach(finished -> {
+                        jobs.remove(finished.getJobId());
+                        cleanup(finished, finished.getPartitionCount());
+                    });
+        }
+    }
+
+    /**
+     * ワーカースレッドを停止する
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.iotble.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.example.iotble.service.importer.ImportFormat;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 起動時にファイルを一括インポートするランナー
+ * 
+ * {@code --iotble.import.file=/path/to/history.csv} を指定して起動すると、
+ * サーバーの起動後にそのファイルを取り込みます。形式は {@code iotble.import.format}
+ * で指定でき、省略時は拡張子から判定します。同じファイルで再実行すると
+ * 永続化されたチェックポイントの続きから取り込みます。
+ */
+@Component
+@ConditionalOnProperty(name = "iotble.import.file")
+@RequiredArgsConstructor
+@Slf4j
+public class LocationImportCommandLineRunner implements ApplicationRunner {
+
+    private final LocationImportService importService;
+
+    @Value("${iotble.import.file}")
+    private String file;
+
+    @Value("${iotble.import.format:}")
+    private String format;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Path path = Paths.get(file);
+        if (!Files.isReadable(path)) {
+            log.error("インポートファイルを読み込めません: {}", path);
+            return;
+        }
+        String fileName = path.getFileName().toString();
+        ImportFormat importFormat = ImportFormat.fromParameter(!format.isBlank()
+                ? format
+                : fileName.substring(fileName.lastIndexOf('.') + 1));
+
+        ImportJob job = importService.importFile(importFormat, path);
+        log.info("インポート結果: 状態={}, 処理行={}, 取り込み件数={}, 不正行={}（一覧: {}）",
+                job.getStatus(), job.getLinesProcessed(), job.getImportedCount(), job.getRejectedCount(),
+                job.getRejectedFile());
+    }
+}
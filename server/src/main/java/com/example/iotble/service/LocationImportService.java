@@ -0,0 +1,58 @@
+package com.example.iotble.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import com.example.iotble.service.importer.ImportFormat;
+
+/**
+ * 位置情報の一括インポートサービスのインターフェース
+ * 
+ * CSV / NDJSON ファイルをストリーミングで読み込み、並列に検証したうえで
+ * 複数行INSERTで取り込みます。進捗はバッチごとにチェックポイントとして記録されます。
+ */
+public interface LocationImportService {
+
+    /**
+     * アップロードされたファイルのインポートを開始
+     * 
+     * 内容はいったんディスクへ書き出され、バックグラウンドで取り込まれます
+     * 
+     * @param format     ファイル形式
+     * @param content    ファイルの内容
+     * @param sourceName 取り込み元の名前（ログ・進捗表示用）
+     * @return 開始したインポートジョブ
+     * @throws IOException ファイルの書き出しに失敗した場合
+     */
+    ImportJob startImport(ImportFormat format, InputStream content, String sourceName) throws IOException;
+
+    /**
+     * サーバー上のファイルを同期的にインポート
+     * 
+     * 同じファイルのチェックポイントが残っている場合は、その続きから取り込みます
+     * 
+     * @param format ファイル形式
+     * @param file   取り込むファイル
+     * @return 終了したインポートジョブ
+     */
+    ImportJob importFile(ImportFormat format, Path file);
+
+    /**
+     * 失敗したインポートをチェックポイントから再開
+     * 
+     * @param jobId ジョブID
+     * @return 再開したインポートジョブ
+     * @throws IllegalStateException ジョブが再開できる状態でない場合
+     */
+    ImportJob resumeImport(String jobId);
+
+    /**
+     * インポートジョブを取得
+     * 
+     * @param jobId ジョブID
+     * @return インポートジョブ（存在する場合）
+     */
+    Optional<ImportJob> getJob(String jobId);
+}
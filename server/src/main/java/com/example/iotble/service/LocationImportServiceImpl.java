@@ -0,0 +1,354 @@
+package com.example.iotble.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.ImportCheckpoint;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.ImportCheckpointRepository;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.service.importer.ImportFormat;
+import com.example.iotble.service.importer.LineReader;
+import com.example.iotble.service.importer.LocationRecordParser;
+import com.example.iotble.service.importer.RejectedRow;
+import com.example.iotble.site.SiteIngestQuota;
+import com.example.iotble.site.SiteTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の一括インポートサービスの実装クラス
+ * 
+ * 読み込みスレッドがファイルをバッチ単位に切り出し、検証ワーカーが並列に変換・検証します。
+ * 検証済みのバッチは読み込み順に複数行INSERTで登録され、同じトランザクションで
+ * チェックポイントが更新されるため、中断しても重複や欠落なく再開できます。
+ * シャーディングされている場合、シャードへの登録はシャードごとにコミットされますが、
+ * 同じトランザクションで記録するシャードごとの進捗により、再開時に登録済みのバッチは登録しません。
+ * 登録はJDBCで直接行うため、エンティティのライフサイクル（{@code @PrePersist}）は経由しません。
+ */
+@Service
+@Slf4j
+public class LocationImportServiceImpl implements LocationImportService {
+
+    /** 読み込みバッファのサイズ（バイト） */
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final LocationJdbcRepository jdbcRepository;
+    private final ImportCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Path directory;
+    private final int batchSize;
+    private final int maxPendingBatches;
+    private final SiteTemplate siteTemplate;
+    private final SiteIngestQuota ingestQuota;
+    private final ExecutorService coordinator;
+    private final ExecutorService validators;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public LocationImportServiceImpl(
+            LocationJdbcRepository jdbcRepository,
+            ImportCheckpointRepository checkpointRepository,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            Validator validator,
+            SiteTemplate siteTemplate,
+            SiteIngestQuota ingestQuota,
+            @Value("${iotble.import.directory:${java.io.tmpdir}/iotble-imports}") String directory,
+            @Value("${iotble.import.batch-size:2000}") int batchSize,
+            @Value("${iotble.import.parallelism:2}") int parallelism) {
+        if (batchSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("import settings must be positive");
+        }
+        this.jdbcRepository = jdbcRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.siteTemplate = siteTemplate;
+        this.ingestQuota = ingestQuota;
+        this.directory = Paths.get(directory);
+        this.batchSize = batchSize;
+        this.maxPendingBatches = parallelism * 2;
+        this.coordinator = Executors.newSingleThreadExecutor(daemonThreadFactory("import-coordinator"));
+        this.validators = Executors.newFixedThreadPool(parallelism, daemonThreadFactory("import-validator"));
+    }
+
+    /**
+     * アップロードされたファイルのインポートを開始
+     * 
+     * @param format     ファイル形式
+     * @param content    ファイルの内容
+     * @param sourceName 取り込み元の名前
+     * @return 開始したインポートジョブ
+     */
+    @Override
+    public ImportJob startImport(ImportFormat format, InputStream content, String sourceName) throws IOException {
+        Files.createDirectories(directory);
+        String jobId = UUID.randomUUID().toString();
+        Path spoolFile = directory.resolve(jobId + "." + format.getExtension());
+        Files.copy(content, spoolFile);
+
+        ImportJob job = new ImportJob(jobId, format, sourceName != null ? sourceName : spoolFile.getFileName().toString(),
+                spoolFile, directory.resolve(jobId + ".rejected.ndjson"), siteTemplate.currentSite());
+        jobs.put(jobId, job);
+        log.info("インポートを開始します: jobId={}, 形式={}, サイズ={}バイト", jobId, format, Files.size(spoolFile));
+        coordinator.execute(() -> siteTemplate.runOnSite(job.getSiteId(), () -> run(job, true)));
+        return job;
+    }
+
+    /**
+     * サーバー上のファイルを同期的にインポート
+     * 
+     * @param format ファイル形式
+     * @param file   取り込むファイル
+     * @return 終了したインポートジョブ
+     */
+    @Override
+    public ImportJob importFile(ImportFormat format, Path file) {
+        Path source = file.toAbsolutePath().normalize();
+        String jobId = UUID.nameUUIDFromBytes(source.toString().getBytes(StandardCharsets.UTF_8)).toString();
+        ImportJob job = new ImportJob(jobId, format, source.toString(), source,
+                source.resolveSibling(source.getFileName() + ".rejected.ndjson"), siteTemplate.currentSite());
+        jobs.put(jobId, job);
+        run(job, false);
+        return job;
+    }
+
+    /**
+     * 失敗したインポートをチェックポイントから再開
+     * 
+     * @param jobId ジョブID
+     * @return 再開したインポートジョブ
+     */
+    @Override
+    public ImportJob resumeImport(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null || job.getStatus() != ImportJob.Status.FAILED) {
+            throw new IllegalStateException("再開できるインポートジョブではありません: " + jobId);
+        }
+        job.markRunning();
+        log.info("インポートを再開します: jobId={}", jobId);
+        // 再開を要求したサイトではなく、最初に取り込んだサイトで続きを取り込む
+        coordinator.execute(() -> siteTemplate.runOnSite(job.getSiteId(), () -> run(job, true)));
+        return job;
+    }
+
+    /**
+     * インポートジョブを取得
+     * 
+     * @param jobId ジョブID
+     * @return インポートジョブ（存在する場合）
+     */
+    @Override
+    public Optional<ImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * チェックポイントの位置からファイル末尾までを取り込む
+     */
+    private void run(ImportJob job, boolean deleteSourceOnSuccess) {
+        try {
+            ImportCheckpoint checkpoint = checkpointRepository.findById(job.getJobId())
+                    .orElseGet(() -> ImportCheckpoint.builder()
+                            .importId(job.getJobId())
+                            .sourcePath(job.getSourceFile().toString())
+                            .format(job.getFormat().name())
+                            .updatedAt(LocalDateTime.now())
+                            .build());
+            job.restore(checkpoint);
+            if (!checkpoint.isCompleted()) {
+                importFrom(job, checkpoint);
+            }
+            job.markCompleted();
+            log.info("インポートが完了しました: jobId={}, 取り込み件数={}, 不正行={}",
+                    job.getJobId(), job.getImportedCount(), job.getRejectedCount());
+            if (deleteSourceOnSuccess) {
+                Files.deleteIfExists(job.getSourceFile());
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            job.markFailed(cause.getMessage());
+            log.error("インポートに失敗しました: jobId={}, 処理済み行={}", job.getJobId(), job.getLinesProcessed(), cause);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void importFrom(ImportJob job, ImportCheckpoint checkpoint) throws Exception {
+        try (FileChannel channel = FileChannel.open(job.getSourceFile(), StandardOpenOption.READ);
+                LineReader reader = new LineReader(Channels.newInputStream(channel.position(checkpoint.getByteOffset())),
+                        checkpoint.getByteOffset(), READ_BUFFER_SIZE);
+                BufferedWriter rejectedWriter = Files.newBufferedWriter(job.getRejectedFile(),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+
+            long lineNumber = checkpoint.getLineNumber();
+            LocationRecordParser parser;
+            if (job.getFormat() == ImportFormat.CSV) {
+                if (checkpoint.getHeader() == null) {
+                    String header = reader.readLine();
+                    if (header == null) {
+                        commit(job, checkpoint, new ParsedBatch(List.of(), List.of(), 0, 0), true, rejectedWriter);
+                        return;
+                    }
+                    lineNumber++;
+                    checkpoint.setHeader(header);
+                }
+                parser = LocationRecordParser.forCsv(checkpoint.getHeader(), validator);
+            } else {
+                parser = LocationRecordParser.forNdjson(objectMapper, validator);
+            }
+
+            Deque<Future<ParsedBatch>> pending = new ArrayDeque<>();
+            while (true) {
+                List<String> lines = new ArrayList<>(batchSize);
+                long firstLine = lineNumber + 1;
+                String line;
+                while (lines.size() < batchSize && (line = reader.readLine()) != null) {
+                    lines.add(line);
+                    lineNumber++;
+                }
+                if (lines.isEmpty()) {
+                    break;
+                }
+                long lastLine = lineNumber;
+                long endOffset = reader.getOffset();
+                pending.add(validators.submit(() -> parseBatch(parser, lines, firstLine, lastLine, endOffset)));
+                if (pending.size() >= maxPendingBatches) {
+                    commit(job, checkpoint, pending.poll().get(), false, rejectedWriter);
+                }
+            }
+            while (!pending.isEmpty()) {
+                commit(job, checkpoint, pending.poll().get(), false, rejectedWriter);
+            }
+            commit(job, checkpoint, new ParsedBatch(List.of(), List.of(), lineNumber, reader.getOffset()), true,
+                    rejectedWriter);
+        }
+    }
+
+    /**
+     * 1バッチ分の行を変換・検証する（検証ワーカーで実行）
+     */
+    private ParsedBatch parseBatch(LocationRecordParser parser, List<String> lines, long firstLine, long lastLine,
+            long endOffset) {
+        LocalDateTime now = LocalDateTime.now();
+        List<LocationData> valid = new ArrayList<>(lines.size());
+        List<RejectedRow> rejected = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                LocationData location = parser.parse(line, now);
+                location.setCreatedAt(now);
+                valid.add(location);
+            } catch (IllegalArgumentException e) {
+                rejected.add(new RejectedRow(firstLine + i, e.getMessage()));
+            }
+        }
+        return new ParsedBatch(valid, rejected, lastLine, endOffset);
+    }
+
+    /**
+     * 検証済みのバッチを登録し、同じトランザクションでチェックポイントを進める
+     * 
+     * サイトの取り込みの上限を超える場合は、上限の範囲に収まるまで待ってから登録します
+     */
+    private void commit(ImportJob job, ImportCheckpoint checkpoint, ParsedBatch batch, boolean endOfFile,
+            BufferedWriter rejectedWriter) throws IOException, InterruptedException {
+        if (!batch.valid().isEmpty()) {
+            ingestQuota.acquire(job.getSiteId(), batch.valid().size());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!batch.valid().isEmpty()) {
+                jdbcRepository.insertImportBatch(job.getJobId(), batch.lastLine(), batch.valid());
+            }
+            if (batch.lastLine() > 0) {
+                checkpoint.setLineNumber(batch.lastLine());
+                checkpoint.setByteOffset(batch.endOffset());
+            }
+            checkpoint.setImportedCount(checkpoint.getImportedCount() + batch.valid().size());
+            checkpoint.setRejectedCount(checkpoint.getRejectedCount() + batch.rejected().size());
+            checkpoint.setCompleted(endOfFile);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+        });
+        if (!batch.valid().isEmpty()) {
+            eventPublisher.publishEvent(new LocationsSavedEvent(batch.valid()));
+        }
+        if (endOfFile) {
+            jdbcRepository.deleteImportProgress(job.getJobId());
+        }
+        job.batchCommitted(checkpoint.getLineNumber(), batch.valid().size(), batch.rejected());
+        for (RejectedRow row : batch.rejected()) {
+            rejectedWriter.write(objectMapper.writeValueAsString(row));
+            rejectedWriter.newLine();
+        }
+        rejectedWriter.flush();
+    }
+
+    /**
+     * 変換・検証済みのバッチ
+     */
+    private record ParsedBatch(List<LocationData> valid, List<RejectedRow> rejected, long lastLine,
+            long endOffset) {
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * ワーカースレッドを停止する
+     */
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        validators.shutdownNow();
+    }
+}
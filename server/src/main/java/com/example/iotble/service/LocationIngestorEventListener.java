@@ -0,0 +1,47 @@
+package com.example.iotble.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.iotble.core.LocationIngestor;
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 位置情報の削除を取り込み処理の重複の判定と平滑化に反映するコンポーネント
+ *
+ * 削除した位置情報が再送されたときに、削除済みの位置情報を返さず保存し直すようにします。
+ * 履歴を削除したデバイスの平滑化は、削除した位置情報を含まない状態から推定し直します
+ */
+@Component
+@RequiredArgsConstructor
+public class LocationIngestorEventListener {
+
+    private final LocationIngestor locationIngestor;
+
+    /**
+     * 削除した位置情報を重複の判定から除く（全件削除の場合は平滑化の状態も破棄）
+     *
+     * @param event 削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        if (event.purgedAll()) {
+            locationIngestor.forgetAll();
+        } else {
+            locationIngestor.forgetIds(event.ids());
+        }
+    }
+
+    /**
+     * 履歴を一括削除したデバイスを重複の判定から除き、平滑化の状態を破棄
+     *
+     * @param event 一括削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceHistoryDeleted(DeviceHistoryDeletedEvent event) {
+        locationIngestor.forgetDevice(event.deviceId());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.MovementSummary;
+
+/**
+ * デバイスの移動量（移動距離・速度・移動時間）の集計サービスのインターフェース
+ */
+public interface LocationMovementService {
+
+    /**
+     * 保存された位置情報を移動量に反映
+     * 
+     * @param locations 保存された位置情報
+     */
+    void record(Collection<LocationData> locations);
+
+    /**
+     * 閉じた時間の移動量をスナップショットとして書き込む
+     * 
+     * @param closedBefore この時刻以前に終了した時間を書き込む
+     * @return 書き込んだ時間数
+     */
+    int flush(LocalDateTime closedBefore);
+
+    /**
+     * 期間内のデバイスの移動量を取得
+     * 
+     * スナップショットで網羅されていない範囲は生データを並列に走査して集計します
+     * 
+     * @param deviceId デバイスID
+     * @param from     期間の開始時刻（この時刻を含む）
+     * @param to       期間の終了時刻（この時刻を含まない）
+     * @return 期間内の移動量
+     */
+    MovementSummary getMovement(String deviceId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,466 @@
+package com.example.iotble.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.DeviceMovement;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.MovementStats;
+import com.example.iotble.model.MovementSummary;
+import com.example.iotble.model.RollupResolution;
+import com.example.iotble.repository.DeviceMovementRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.util.GeoUtils;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 移動量の集計サービスの実装クラス
+ * 
+ * デバイスごとに直前の位置だけを保持し、位置情報を受け取るたびに直前の位置からの区間を
+ * その時間の集計に加算します（1件あたりO(1)）。閉じた時間の集計はスナップショットとして
+ * 書き込まれます。時刻が前後して届いた位置情報や、再起動で途中までの集計が失われた時間は
+ * スナップショットを作らず、問い合わせ時に生データから計算します。
+ * 直前の位置と書き込み前の集計はサイトごとに持ちます
+ */
+@Service
+@Slf4j
+public class LocationMovementServiceImpl implements LocationMovementService {
+
+    private static final RollupResolution BUCKET = RollupResolution.HOUR;
+
+    /** 並列走査で1つのワーカーに割り当てる最小の期間 */
+    private static final Duration MIN_SCAN_CHUNK = Duration.ofHours(1);
+
+    private final DeviceMovementRepository movementRepository;
+    private final LocationRepository locationRepository;
+    private final TieredLocationReader tieredReader;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardTemplate shardTemplate;
+    private final SiteTemplate siteTemplate;
+    private final double movingSpeed;
+    private final double maxGapSeconds;
+    private final Duration allowedLateness;
+    private final int scanParallelism;
+    private final ExecutorService scanners;
+    private final SiteLocal<Map<String, TrackPoint>> tracksBySite;
+    private final SiteLocal<Map<BucketKey, MovementStats>> pendingBySite;
+
+    public LocationMovementServiceImpl(
+            DeviceMovementRepository movementRepository,
+            LocationRepository locationRepository,
+            TieredLocationReader tieredReader,
+            PlatformTransactionManager transactionManager,
+            ShardTemplate shardTemplate,
+            SiteTemplate siteTemplate,
+            @Value("${iotble.movement.moving-speed-mps:0.5}") double movingSpeed,
+            @Value("${iotble.movement.max-gap-seconds:300}") double maxGapSeconds,
+            @Value("${iotble.movement.allowed-lateness-seconds:120}") long allowedLatenessSeconds,
+            @Value("${iotble.movement.scan-parallelism:4}") int scanParallelism) {
+        if (movingSpeed < 0 || maxGapSeconds <= 0 || allowedLatenessSeconds < 0 || scanParallelism <= 0) {
+            throw new IllegalArgumentException("movement settings are invalid");
+        }
+        this.movementRepository = movementRepository;
+        this.locationRepository = locationRepository;
+        this.tieredReader = tieredReader;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardTemplate = shardTemplate;
+        this.siteTemplate = siteTemplate;
+        this.tracksBySite = siteTemplate.local(ConcurrentHashMap::new);
+        this.pendingBySite = siteTemplate.local(ConcurrentHashMap::new);
+        this.movingSpeed = movingSpeed;
+        this.maxGapSeconds = maxGapSeconds;
+        this.allowedLateness = Duration.ofSeconds(allowedLatenessSeconds);
+        this.scanParallelism = scanParallelism;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scanners = Executors.newFixedThreadPool(scanParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "movement-scan-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 保存された位置情報を移動量に反映
+     * 
+     * @param locations 保存された位置情報
+     */
+    @Override
+    public void record(Collection<LocationData> locations) {
+        for (LocationData location : locations) {
+            if (location.getDeviceId() == null || location.getTimestamp() == null) {
+                continue;
+            }
+            if (!tracks().containsKey(location.getDeviceId())) {
+                seedTrack(location);
+            }
+            tracks().compute(location.getDeviceId(), (deviceId, last) -> advance(last, location));
+        }
+    }
+
+    /**
+     * 位置情報の保存をコミット後に移動量へ反映する
+     * 
+     * @param event 保存イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsSaved(LocationsSavedEvent event) {
+        record(event.locations());
+    }
+
+    /**
+     * 全件削除時に移動量もすべて削除する
+     * 
+     * @param event 削除イベント
+     */
+    @EventListener
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        if (event.purgedAll()) {
+            tracks().clear();
+            pending().clear();
+            movementRepository.deleteAllInBatch();
+        }
+    }
+
+    /**
+     * デバイスの履歴削除に合わせて、削除範囲にかかるスナップショットを破棄する
+     * 
+     * 破棄した時間は以降の問い合わせで残っている生データから計算されます
+     * 
+     * @param event 履歴削除イベント
+     */
+    @EventListener
+    public synchronized void onDeviceHistoryDeleted(DeviceHistoryDeletedEvent event) {
+        String deviceId = event.deviceId();
+        tracks().remove(deviceId);
+        pending().keySet().removeIf(key -> key.deviceId().equals(deviceId));
+        // 削除範囲の直後の位置情報の区間は削除された位置情報を起点にしていたため再計算が必要
+        Optional<LocalDateTime> nextBucket = event.endTime() == null
+                ? Optional.empty()
+                : shardTemplate.onDevice(deviceId, () -> locationRepository
+                        .findFirstByDeviceIdAndTimestampAfterOrderByTimestampAscIdAsc(deviceId, event.endTime()))
+                        .map(next -> BUCKET.bucketStart(next.getTimestamp()));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (event.startTime() == null && event.endTime() == null) {
+                movementRepository.deleteByDeviceId(deviceId);
+                return;
+            }
+            LocalDateTime from = event.startTime() != null
+                    ? BUCKET.bucketStart(event.startTime())
+                    : LocalDateTime.of(1970, 1, 1, 0, 0);
+            LocalDateTime to;
+            if (event.endTime() == null) {
+                to = LocalDateTime.of(9999, 1, 1, 0, 0);
+            } else {
+                to = BUCKET.bucketStart(event.endTime()).plusHours(1);
+                nextBucket.ifPresent(next -> movementRepository.deleteInRange(deviceId, next, next.plusHours(1)));
+            }
+            movementRepository.deleteInRange(deviceId, from, to);
+        });
+    }
+
+    /**
+     * 遅延到着の猶予を過ぎた時間を定期的に書き込む
+     */
+    @Scheduled(fixedDelayString = "${iotble.movement.flush-interval-ms:10000}")
+    public void flushClosedBuckets() {
+        LocalDateTime closedBefore = LocalDateTime.now().minus(allowedLateness);
+        siteTemplate.forEachSite(site -> flush(closedBefore));
+    }
+
+    /**
+     * 閉じた時間の移動量をスナップショットとして書き込む
+     * 
+     * @param closedBefore この時刻以前に終了した時間を書き込む
+     * @return 書き込んだ時間数
+     */
+    @Override
+    public synchronized int flush(LocalDateTime closedBefore) {
+        Map<BucketKey, MovementStats> closed = new HashMap<>();
+        for (BucketKey key : pending().keySet()) {
+            if (!key.bucketStart().plus(BUCKET.getDuration()).isAfter(closedBefore)) {
+                MovementStats stats = pending().remove(key);
+                if (stats != null) {
+                    closed.put(key, stats);
+                }
+            }
+        }
+        if (closed.isEmpty()) {
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> closed.forEach(this::writeSnapshot));
+        } catch (RuntimeException e) {
+            // 書き込めなかった時間は次回の書き込みで再試行する
+            closed.forEach((key, stats) -> pending().merge(key, stats, (current, failed) -> {
+                current.merge(failed);
+                return current;
+            }));
+            throw e;
+        }
+        log.debug("移動量のスナップショットを書き込みました: 時間数={}", closed.size());
+        return closed.size();
+    }
+
+    /**
+     * 期間内のデバイスの移動量を取得
+     * 
+     * @param deviceId デバイスID
+     * @param from     期間の開始時刻（この時刻を含む）
+     * @param to       期間の終了時刻（この時刻を含まない）
+     * @return 期間内の移動量
+     */
+    @Override
+    public MovementSummary getMovement(String deviceId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("fromはtoより前である必要があります");
+        }
+        MovementStats total = new MovementStats();
+        List<LocalDateTime[]> uncovered = new ArrayList<>();
+        int snapshotHours = 0;
+
+        LocalDateTime firstFullHour = BUCKET.bucketStart(from).equals(from) ? from : BUCKET.bucketStart(from).plusHours(1);
+        LocalDateTime lastFullHourEnd = BUCKET.bucketStart(to);
+        if (firstFullHour.isBefore(lastFullHourEnd)) {
+            addRange(uncovered, from, firstFullHour);
+            Map<LocalDateTime, DeviceMovement> snapshots = new HashMap<>();
+            for (DeviceMovement snapshot : movementRepository.findInRange(deviceId, firstFullHour, lastFullHourEnd)) {
+                snapshots.put(snapshot.getBucketStart(), snapshot);
+            }
+            for (LocalDateTime hour = firstFullHour; hour.isBefore(lastFullHourEnd); hour = hour.plusHours(1)) {
+                MovementStats unflushed = copyPending(new BucketKey(deviceId, hour));
+                DeviceMovement snapshot = snapshots.get(hour);
+                if (unflushed != null ? unflushed.isComplete() : snapshot != null) {
+                    if (snapshot != null) {
+                        total.merge(snapshot.getStats());
+                    }
+                    if (unflushed != null) {
+                        total.merge(unflushed);
+                    }
+                    snapshotHours++;
+                } else {
+                    addRange(uncovered, hour, hour.plusHours(1));
+                }
+            }
+            addRange(uncovered, lastFullHourEnd, to);
+        } else {
+            addRange(uncovered, from, to);
+        }
+
+        List<CompletableFuture<MovementStats>> scans = new ArrayList<>();
+        for (LocalDateTime[] range : uncovered) {
+            for (LocalDateTime[] chunk : split(range[0], range[1])) {
+                scans.add(CompletableFuture.supplyAsync(
+                        siteTemplate.propagate(() -> scan(deviceId, chunk[0], chunk[1])), scanners));
+            }
+        }
+        for (CompletableFuture<MovementStats> scan : scans) {
+            total.merge(scan.join());
+        }
+        log.debug("移動量を集計しました: deviceId={}, スナップショット={}時間, 走査範囲={}",
+                deviceId, snapshotHours, uncovered.size());
+        return MovementSummary.of(deviceId, from, to, total, snapshotHours, uncovered.size());
+    }
+
+    /**
+     * 停止時に書き込み前の時間をすべて書き込み、走査スレッドを停止する
+     */
+    @PreDestroy
+    public void shutdown() {
+        siteTemplate.forEachSite(site -> {
+            try {
+                flush(LocalDateTime.MAX);
+            } catch (RuntimeException e) {
+                log.warn("停止時の移動量の書き込みに失敗しました: site={}", site, e);
+            }
+        });
+        scanners.shutdownNow();
+    }
+
+    /**
+     * 直前の位置からの区間を集計に加算し、新しい直前の位置を返す
+     */
+    private TrackPoint advance(TrackPoint last, LocationData location) {
+        LocalDateTime timestamp = location.getTimestamp();
+        BucketKey key = new BucketKey(location.getDeviceId(), BUCKET.bucketStart(timestamp));
+        if (last == null) {
+            pending().computeIfAbsent(key, k -> new MovementStats());
+            return TrackPoint.of(location);
+        }
+        if (timestamp.isBefore(last.timestamp())) {
+            // 時刻が前後した位置情報は区間を分割するため、その時間は生データから計算させる
+            markIncomplete(key);
+            return last;
+        }
+        double distance = GeoUtils.haversineMeters(
+                last.latitude(), last.longitude(), location.effectiveLatitude(), location.effectiveLongitude());
+        double seconds = Duration.between(last.timestamp(), timestamp).toNanos() / 1e9;
+        pending().compute(key, (k, stats) -> {
+            MovementStats current = stats != null ? stats : new MovementStats();
+            current.addSegment(distance, seconds, timestamp, movingSpeed, maxGapSeconds);
+            return current;
+        });
+        return TrackPoint.of(location);
+    }
+
+    /**
+     * 起動後に初めて受け取ったデバイスの直前の位置をデータベースから補う
+     */
+    private void seedTrack(LocationData location) {
+        Optional<LocationData> previous = shardTemplate.onDevice(location.getDeviceId(), () -> locationRepository
+                .findFirstByDeviceIdAndTimestampBeforeOrderByTimestampDescIdDesc(
+                        location.getDeviceId(), location.getTimestamp()));
+        if (previous.isEmpty()) {
+            return;
+        }
+        LocalDateTime bucketStart = BUCKET.bucketStart(location.getTimestamp());
+        if (BUCKET.bucketStart(previous.get().getTimestamp()).equals(bucketStart)) {
+            // 同じ時間のそれより前の区間は起動前に集計されていたため、この時間は完全ではない
+            markIncomplete(new BucketKey(location.getDeviceId(), bucketStart));
+        }
+        tracks().putIfAbsent(location.getDeviceId(), TrackPoint.of(previous.get()));
+    }
+
+    /**
+     * 現在のサイトのデバイスごとの直前の位置
+     */
+    private Map<String, TrackPoint> tracks() {
+        return tracksBySite.get();
+    }
+
+    /**
+     * 現在のサイトの書き込み前の集計
+     */
+    private Map<BucketKey, MovementStats> pending() {
+        return pendingBySite.get();
+    }
+
+    private void markIncomplete(BucketKey key) {
+        pending().compute(key, (k, stats) -> {
+            MovementStats current = stats != null ? stats : new MovementStats();
+            current.setComplete(false);
+            return current;
+        });
+    }
+
+    private MovementStats copyPending(BucketKey key) {
+        MovementStats[] snapshot = new MovementStats[1];
+        pending().computeIfPresent(key, (k, stats) -> {
+            snapshot[0] = stats.copy();
+            return stats;
+        });
+        return snapshot[0];
+    }
+
+    private void writeSnapshot(BucketKey key, MovementStats stats) {
+        if (!stats.isComplete()) {
+            movementRepository.deleteInRange(key.deviceId(), key.bucketStart(), key.bucketStart().plusHours(1));
+            return;
+        }
+        DeviceMovement snapshot = movementRepository.findByDeviceIdAndBucketStart(key.deviceId(), key.bucketStart())
+                .orElseGet(() -> DeviceMovement.builder()
+                        .deviceId(key.deviceId())
+                        .bucketStart(key.bucketStart())
+                        .build());
+        snapshot.getStats().merge(stats);
+        movementRepository.save(snapshot);
+    }
+
+    /**
+     * 期間内の生データを走査して移動量を計算する
+     */
+    private MovementStats scan(String deviceId, LocalDateTime from, LocalDateTime to) {
+        MovementStats stats = new MovementStats();
+        TrackPoint[] last = {
+                shardTemplate.onDevice(deviceId, () -> locationRepository
+                        .findFirstByDeviceIdAndTimestampBeforeOrderByTimestampDescIdDesc(deviceId, from))
+                        .map(TrackPoint::of)
+                        .orElse(null) };
+        tieredReader.streamByTimeRange(from, to, false, deviceId, location -> {
+            TrackPoint previous = last[0];
+            if (previous != null) {
+                double distance = GeoUtils.haversineMeters(
+                        previous.latitude(), previous.longitude(), location.effectiveLatitude(),
+                        location.effectiveLongitude());
+                double seconds = Duration.between(previous.timestamp(), location.getTimestamp()).toNanos() / 1e9;
+                stats.addSegment(distance, seconds, location.getTimestamp(), movingSpeed, maxGapSeconds);
+            }
+            last[0] = TrackPoint.of(location);
+        });
+        return stats;
+    }
+
+    /**
+     * 走査範囲を並列数に応じて分割する
+     */
+    private List<LocalDateTime[]> split(LocalDateTime from, LocalDateTime to) {
+        Duration length = Duration.between(from, to);
+        long chunks = Math.max(1, Math.min(scanParallelism, length.dividedBy(MIN_SCAN_CHUNK)));
+        Duration step = length.dividedBy(chunks);
+        List<LocalDateTime[]> ranges = new ArrayList<>();
+        LocalDateTime start = from;
+        for (int i = 0; i < chunks; i++) {
+            LocalDateTime end = i == chunks - 1 ? to : start.plus(step);
+            ranges.add(new LocalDateTime[] { start, end });
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * 走査範囲を追加し、直前の範囲と連続する場合は結合する
+     */
+    private static void addRange(List<LocalDateTime[]> ranges, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (!ranges.isEmpty() && ranges.get(ranges.size() - 1)[1].equals(from)) {
+            ranges.get(ranges.size() - 1)[1] = to;
+        } else {
+            ranges.add(new LocalDateTime[] { from, to });
+        }
+    }
+
+    /**
+     * デバイスの直前の位置（平滑化後の座標があればそちらを使う）
+     */
+    private record TrackPoint(double latitude, double longitude, LocalDateTime timestamp) {
+
+        static TrackPoint of(LocationData location) {
+            return new TrackPoint(location.effectiveLatitude(), location.effectiveLongitude(),
+                    location.getTimestamp());
+        }
+    }
+
+    /**
+     * メモリ上の集計を特定するキー
+     */
+    private record BucketKey(String deviceId, LocalDateTime bucketStart) {
+    }
+}
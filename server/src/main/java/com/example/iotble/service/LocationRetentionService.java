@@ -0,0 +1,18 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 位置情報の保持期間管理サービスのインターフェース
+ */
+public interface LocationRetentionService {
+
+    /**
+     * 保持期間を過ぎた生データを集計に確定させたうえで削除
+     * 
+     * @param now 基準時刻
+     * @return 削除ジョブ（保持期間が設定されていない場合は空）
+     */
+    Optional<BulkDeleteJob> applyRetention(LocalDateTime now);
+}
@@ -0,0 +1,76 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.iotble.model.RollupResolution;
+import com.example.iotble.site.SiteTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の保持期間管理サービスの実装クラス
+ * 
+ * 保持期間を過ぎた生データは分単位・時間単位の集計に確定させてから削除します。
+ * 保持日数が0以下の場合は生データを削除しません。
+ * 定期実行ではサイトごとに順に処理します
+ */
+@Service
+@Slf4j
+public class LocationRetentionServiceImpl implements LocationRetentionService {
+
+    private final LocationRollupService rollupService;
+    private final LocationBulkDeleteService bulkDeleteService;
+    private final SiteTemplate siteTemplate;
+    private final int rawDays;
+
+    public LocationRetentionServiceImpl(
+            LocationRollupService rollupService,
+            LocationBulkDeleteService bulkDeleteService,
+            SiteTemplate siteTemplate,
+            @Value("${iotble.retention.raw-days:0}") int rawDays) {
+        this.rollupService = rollupService;
+        this.bulkDeleteService = bulkDeleteService;
+        this.siteTemplate = siteTemplate;
+        this.rawDays = rawDays;
+    }
+
+    /**
+     * 保持期間の処理を定期的に実行
+     */
+    @Scheduled(cron = "${iotble.retention.cron:0 5 * * * *}")
+    public void scheduledRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        siteTemplate.forEachSite(site -> {
+            try {
+                applyRetention(now);
+            } catch (RuntimeException e) {
+                log.error("保持期間の処理に失敗しました: site={}", site, e);
+            }
+        });
+    }
+
+    /**
+     * 保持期間を過ぎた生データを集計に確定させたうえで削除
+     * 
+     * @param now 基準時刻
+     * @return 削除ジョブ（保持期間が設定されていない場合は空）
+     */
+    @Override
+    public Optional<BulkDeleteJob> applyRetention(LocalDateTime now) {
+        if (rawDays <= 0) {
+            return Optional.empty();
+        }
+        // 集計のバケットを分割しないよう、削除境界は時間単位に揃える
+        LocalDateTime cutoff = RollupResolution.HOUR.bucketStart(now.minusDays(rawDays));
+        int rebuilt = rollupService.downsample(cutoff);
+        BulkDeleteJob job = bulkDeleteService.deleteLocations(null, null, cutoff.minusNanos(1));
+        log.info("保持期間を過ぎた生データの削除を開始しました: cutoff={}, 対象件数={}, 再計算したデバイス数={}",
+                cutoff, job.getTotalCount(), rebuilt);
+        return Optional.of(job);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.LocationRollup;
+import com.example.iotble.model.RollupResolution;
+
+/**
+ * 位置情報の集計サービスのインターフェース
+ * 
+ * デバイスごとの分単位・時間単位の集計を受信時に増分で更新します
+ */
+public interface LocationRollupService {
+
+    /**
+     * 保存された位置情報を集計に加算
+     * 
+     * @param locations 保存された位置情報
+     */
+    void record(Collection<LocationData> locations);
+
+    /**
+     * 閉じたバケットの集計をデータベースに書き込む
+     * 
+     * @param closedBefore この時刻以前に終了したバケットを書き込む
+     * @return 書き込んだバケット数
+     */
+    int flush(LocalDateTime closedBefore);
+
+    /**
+     * 期間内の集計を取得
+     * 
+     * 書き込み前のバケットも含めて返します
+     * 
+     * @param deviceId   デバイスID
+     * @param resolution 集計の時間粒度
+     * @param from       バケット開始時刻の下限
+     * @param to         バケット開始時刻の上限
+     * @return 集計のリスト（バケット開始時刻昇順）
+     */
+    List<LocationRollup> getRollups(String deviceId, RollupResolution resolution, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * 指定時刻より前の生データを削除できるよう、集計を確定させる
+     * 
+     * 書き込み前のバケットを書き込んだうえで、生データと件数が一致しないデバイスの集計を
+     * 生データから再計算します
+     * 
+     * @param cutoff この時刻より前の集計を確定させる（時間単位に切り捨てられている必要がある）
+     * @return 再計算したデバイス数
+     */
+    int downsample(LocalDateTime cutoff);
+}
@@ -0,0 +1,390 @@
+package com.example.iotble.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.LocationRollup;
+import com.example.iotble.model.RollupResolution;
+import com.example.iotble.model.RollupStats;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.repository.LocationRollupRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報の集計サービスの実装クラス
+ * 
+ * 保存された位置情報はメモリ上のバケットに加算され、バケットが閉じて遅延到着の猶予を
+ * 過ぎた時点でデータベースの集計にマージされます。書き込み済みのバケットに遅れて
+ * 届いた位置情報は新しいバケットとして加算され、次回の書き込みで既存の集計にマージされます。
+ * 書き込み前のバケットはサイトごとに持ち、定期的な書き込みはサイトごとに行います。
+ * 生データとの照合と再計算では、コールドティアに封印済みの位置情報も生データとして扱います
+ */
+@Service
+@Slf4j
+public class LocationRollupServiceImpl implements LocationRollupService {
+
+    private static final RollupResolution[] RESOLUTIONS = RollupResolution.values();
+
+    private final LocationRollupRepository rollupRepository;
+    private final LocationRepository locationRepository;
+    private final LocationJdbcRepository jdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardTemplate shardTemplate;
+    private final SiteTemplate siteTemplate;
+    private final SegmentStore segmentStore;
+    private final TieredLocationReader tieredReader;
+    private final Duration allowedLateness;
+    private final SiteLocal<Map<BucketKey, RollupStats>> pendingBySite;
+
+    public LocationRollupServiceImpl(
+            LocationRollupRepository rollupRepository,
+            LocationRepository locationRepository,
+            LocationJdbcRepository jdbcRepository,
+            PlatformTransactionManager transactionManager,
+            ShardTemplate shardTemplate,
+            SiteTemplate siteTemplate,
+            SegmentStore segmentStore,
+            TieredLocationReader tieredReader,
+            @Value("${iotble.rollup.allowed-lateness-seconds:120}") long allowedLatenessSeconds) {
+        if (allowedLatenessSeconds < 0) {
+            throw new IllegalArgumentException("allowed-lateness-seconds must not be negative");
+        }
+        this.rollupRepository = rollupRepository;
+        this.locationRepository = locationRepository;
+        this.jdbcRepository = jdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardTemplate = shardTemplate;
+        this.siteTemplate = siteTemplate;
+        this.segmentStore = segmentStore;
+        this.tieredReader = tieredReader;
+        this.pendingBySite = siteTemplate.local(ConcurrentHashMap::new);
+        this.allowedLateness = Duration.ofSeconds(allowedLatenessSeconds);
+    }
+
+    /**
+     * 保存された位置情報を集計に加算
+     * 
+     * @param locations 保存された位置情報
+     */
+    @Override
+    public void record(Collection<LocationData> locations) {
+        for (LocationData location : locations) {
+            if (location.getDeviceId() == null || location.getTimestamp() == null) {
+                continue;
+            }
+            for (RollupResolution resolution : RESOLUTIONS) {
+                BucketKey key = new BucketKey(location.getDeviceId(), resolution,
+                        resolution.bucketStart(location.getTimestamp()));
+                pending().compute(key, (k, stats) -> {
+                    RollupStats current = stats != null ? stats : new RollupStats();
+                    current.add(location);
+                    return current;
+                });
+            }
+        }
+    }
+
+    /**
+     * 位置情報の保存をコミット後に集計へ反映する
+     * 
+     * @param event 保存イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsSaved(LocationsSavedEvent event) {
+        record(event.locations());
+    }
+
+    /**
+     * 全件削除時に集計もすべて削除する
+     * 
+     * @param event 削除イベント
+     */
+    @EventListener
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        if (event.purgedAll()) {
+            pending().clear();
+            rollupRepository.deleteAllInBatch();
+            log.info("全件削除に伴い集計をすべて削除しました");
+        }
+    }
+
+    /**
+     * デバイスの履歴削除に合わせて、削除範囲にかかるバケットを生データから再計算する
+     * 
+     * @param event 履歴削除イベント
+     */
+    @EventListener
+    public void onDeviceHistoryDeleted(DeviceHistoryDeletedEvent event) {
+        LocalDateTime from = event.startTime() != null
+                ? RollupResolution.HOUR.bucketStart(event.startTime())
+                : null;
+        LocalDateTime to = event.endTime() != null
+                ? RollupResolution.HOUR.bucketStart(event.endTime()).plusHours(1)
+                : null;
+        if (from == null || to == null) {
+            Optional<LocalDateTime[]> bounds = rollupBounds(event.deviceId());
+            if (bounds.isEmpty()) {
+                return;
+            }
+            from = from != null ? from : bounds.get()[0];
+            to = to != null ? to : bounds.get()[1];
+        }
+        rebuild(event.deviceId(), from, to);
+        log.info("履歴削除に伴い集計を再計算しました: deviceId={}, from={}, to={}", event.deviceId(), from, to);
+    }
+
+    /**
+     * 遅延到着の猶予を過ぎたバケットを定期的に書き込む
+     */
+    @Scheduled(fixedDelayString = "${iotble.rollup.flush-interval-ms:10000}")
+    public void flushClosedBuckets() {
+        LocalDateTime closedBefore = LocalDateTime.now().minus(allowedLateness);
+        siteTemplate.forEachSite(site -> flush(closedBefore));
+    }
+
+    /**
+     * 閉じたバケットの集計をデータベースに書き込む
+     * 
+     * @param closedBefore この時刻以前に終了したバケットを書き込む
+     * @return 書き込んだバケット数
+     */
+    @Override
+    public synchronized int flush(LocalDateTime closedBefore) {
+        Map<BucketKey, RollupStats> closed = new HashMap<>();
+        for (BucketKey key : pending().keySet()) {
+            if (!key.bucketEnd().isAfter(closedBefore)) {
+                RollupStats stats = pending().remove(key);
+                if (stats != null) {
+                    closed.put(key, stats);
+                }
+            }
+        }
+        if (closed.isEmpty()) {
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> closed.forEach(this::mergeIntoStore));
+        } catch (RuntimeException e) {
+            // 書き込めなかったバケットは次回の書き込みで再試行する
+            closed.forEach(this::mergeIntoPending);
+            throw e;
+        }
+        log.debug("集計を書き込みました: バケット数={}", closed.size());
+        return closed.size();
+    }
+
+    /**
+     * 期間内の集計を取得
+     * 
+     * @param deviceId   デバイスID
+     * @param resolution 集計の時間粒度
+     * @param from       バケット開始時刻の下限
+     * @param to         バケット開始時刻の上限
+     * @return 集計のリスト（バケット開始時刻昇順）
+     */
+    @Override
+    public List<LocationRollup> getRollups(String deviceId, RollupResolution resolution,
+            LocalDateTime from, LocalDateTime to) {
+        TreeMap<LocalDateTime, LocationRollup> rollups = new TreeMap<>();
+        for (LocationRollup rollup : rollupRepository
+                .findByDeviceIdAndResolutionAndBucketStartBetweenOrderByBucketStart(deviceId, resolution, from, to)) {
+            rollups.put(rollup.getBucketStart(), rollup);
+        }
+        for (BucketKey key : pending().keySet()) {
+            if (key.deviceId().equals(deviceId) && key.resolution() == resolution
+                    && !key.bucketStart().isBefore(from) && !key.bucketStart().isAfter(to)) {
+                // 加算中のバケットと競合しないよう、マップのロックを取った状態で複製する
+                RollupStats[] snapshot = new RollupStats[1];
+                pending().computeIfPresent(key, (k, stats) -> {
+                    snapshot[0] = stats.copy();
+                    return stats;
+                });
+                if (snapshot[0] != null) {
+                    rollups.merge(key.bucketStart(), toRollup(key, snapshot[0]), (stored, unflushed) -> {
+                        stored.getStats().merge(unflushed.getStats());
+                        return stored;
+                    });
+                }
+            }
+        }
+        return new ArrayList<>(rollups.values());
+    }
+
+    /**
+     * 指定時刻より前の生データを削除できるよう、集計を確定させる
+     * 
+     * @param cutoff この時刻より前の集計を確定させる
+     * @return 再計算したデバイス数
+     */
+    @Override
+    public int downsample(LocalDateTime cutoff) {
+        if (!RollupResolution.HOUR.bucketStart(cutoff).equals(cutoff)) {
+            throw new IllegalArgumentException("cutoffは時間単位に切り捨てられている必要があります");
+        }
+        flush(cutoff);
+
+        Optional<LocalDateTime[]> bounds = jdbcRepository.findTimestampBounds(null);
+        if (bounds.isEmpty() || !bounds.get()[0].isBefore(cutoff)) {
+            return 0;
+        }
+        // 前回までの保持期間処理で生データは時間単位の境界まで削除されているため、
+        // 残っている生データの範囲では集計と生データの件数が一致するはず
+        LocalDateTime from = RollupResolution.HOUR.bucketStart(bounds.get()[0]);
+        Map<String, Long> rollupCounts = toCountMap(rollupRepository.sumMinutePointsByDevice(from, cutoff));
+        int rebuilt = 0;
+        List<Object[]> rows = new ArrayList<>();
+        shardTemplate.scatter(shard -> locationRepository.countByDeviceInRange(from, cutoff)).forEach(rows::addAll);
+        // 封印済みの期間に遅れて届いた位置情報が残っている場合、範囲はコールドティアにかかる
+        Map<String, Long> rawCounts = segmentStore.isEnabled()
+                ? new HashMap<>(segmentStore.countByDevice(from, cutoff))
+                : new HashMap<>();
+        toCountMap(rows).forEach((deviceId, count) -> rawCounts.merge(deviceId, count, Long::sum));
+        for (Map.Entry<String, Long> entry : rawCounts.entrySet()) {
+            String deviceId = entry.getKey();
+            long rawCount = entry.getValue();
+            if (rollupCounts.getOrDefault(deviceId, 0L) != rawCount) {
+                log.info("集計と生データの件数が一致しないため再計算します: deviceId={}, 集計={}, 生データ={}",
+                        deviceId, rollupCounts.getOrDefault(deviceId, 0L), rawCount);
+                rebuild(deviceId, from, cutoff);
+                rebuilt++;
+            }
+        }
+        return rebuilt;
+    }
+
+    /**
+     * 停止時に書き込み前のバケットをすべて書き込む
+     */
+    @PreDestroy
+    public void shutdown() {
+        siteTemplate.forEachSite(site -> {
+            try {
+                flush(LocalDateTime.MAX);
+            } catch (RuntimeException e) {
+                log.warn("停止時の集計の書き込みに失敗しました: site={}", site, e);
+            }
+        });
+    }
+
+    /**
+     * デバイスの期間内の集計を削除し、残っている生データ（コールドティアを含む）から再計算する
+     */
+    private synchronized void rebuild(String deviceId, LocalDateTime from, LocalDateTime to) {
+        pending().keySet().removeIf(key -> key.deviceId().equals(deviceId)
+                && !key.bucketStart().isBefore(from) && key.bucketStart().isBefore(to));
+        Map<BucketKey, RollupStats> rebuilt = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteByDeviceIdAndBucketStartRange(deviceId, from, to);
+            Consumer<LocationData> accumulate = location -> {
+                for (RollupResolution resolution : RESOLUTIONS) {
+                    BucketKey key = new BucketKey(deviceId, resolution,
+                            resolution.bucketStart(location.getTimestamp()));
+                    rebuilt.computeIfAbsent(key, k -> new RollupStats()).add(location);
+                }
+            };
+            tieredReader.streamByTimeRange(from, to, false, deviceId, accumulate);
+            List<LocationRollup> rollups = new ArrayList<>(rebuilt.size());
+            rebuilt.forEach((key, stats) -> rollups.add(toRollup(key, stats)));
+            rollupRepository.saveAll(rollups);
+        });
+    }
+
+    /**
+     * 集計と生データを合わせたデバイスのデータ範囲を時間単位で取得
+     */
+    private Optional<LocalDateTime[]> rollupBounds(String deviceId) {
+        Optional<LocalDateTime[]> raw = jdbcRepository.findTimestampBounds(deviceId);
+        LocalDateTime from = raw.map(bounds -> bounds[0]).orElse(null);
+        LocalDateTime to = raw.map(bounds -> bounds[1]).orElse(null);
+        Optional<LocationRollup> first = rollupRepository.findFirstByDeviceIdOrderByBucketStartAsc(deviceId);
+        Optional<LocationRollup> last = rollupRepository.findFirstByDeviceIdOrderByBucketStartDesc(deviceId);
+        if (first.isPresent() && (from == null || first.get().getBucketStart().isBefore(from))) {
+            from = first.get().getBucketStart();
+        }
+        if (last.isPresent() && (to == null || last.get().getBucketStart().isAfter(to))) {
+            to = last.get().getBucketStart();
+        }
+        if (from == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new LocalDateTime[] {
+                RollupResolution.HOUR.bucketStart(from), RollupResolution.HOUR.bucketStart(to).plusHours(1) });
+    }
+
+    /**
+     * 現在のサイトの書き込み前のバケット
+     */
+    private Map<BucketKey, RollupStats> pending() {
+        return pendingBySite.get();
+    }
+
+    private void mergeIntoStore(BucketKey key, RollupStats stats) {
+        LocationRollup rollup = rollupRepository
+                .findByDeviceIdAndResolutionAndBucketStart(key.deviceId(), key.resolution(), key.bucketStart())
+                .orElseGet(() -> toRollup(key, new RollupStats()));
+        rollup.getStats().merge(stats);
+        rollupRepository.save(rollup);
+    }
+
+    private void mergeIntoPending(BucketKey key, RollupStats stats) {
+        pending().merge(key, stats, (current, failed) -> {
+            current.merge(failed);
+            return current;
+        });
+    }
+
+    private static LocationRollup toRollup(BucketKey key, RollupStats stats) {
+        return LocationRollup.builder()
+                .deviceId(key.deviceId())
+                .resolution(key.resolution())
+                .bucketStart(key.bucketStart())
+                .stats(stats)
+                .build();
+    }
+
+    private static Map<String, Long> toCountMap(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * メモリ上のバケットを特定するキー
+     */
+    private record BucketKey(String deviceId, RollupResolution resolution, LocalDateTime bucketStart) {
+
+        LocalDateTime bucketEnd() {
+            return bucketStart.plus(resolution.getDuration());
+        }
+    }
+}
@@ -17,14 +17,15 @@ public interface LocationService {
      * 新しい位置情報を保存
      * 
      * @param locationData 位置情報データ
-     * @return 保存された位置情報
+     * @return 保存された位置情報（直近に保存した位置情報と同じ場合は先に保存した位置情報）
+     * @throws IllegalArgumentException 位置情報が不正な場合（緯度・経度の範囲外など）
      */
     LocationData saveLocation(LocationData locationData);
 
     /**
      * すべての位置情報を取得
      * 
-     * @return すべての位置情報のリスト
+     * @return すべての位置情報のリスト（タイムスタンプ降順）
      */
     List<LocationData> getAllLocations();
 
@@ -60,6 +61,20 @@ public interface LocationService {
      */
     List<LocationData> getLocationsByTimeRange(LocalDateTime startTime, LocalDateTime endTime);
 
+    /**
+     * デバイスの指定期間内の位置情報を取得
+     * 
+     * @param deviceId    デバイスID
+     * @param startTime   開始時刻（この時刻を含む）
+     * @param endTime     終了時刻（この時刻を含む）
+     * @param newestFirst 新しい順に取得する場合true（falseの場合は古い順）
+     * @param limit       最大件数
+     * @return 該当する位置情報のリスト
+     * @throws IllegalArgumentException 期間または件数が不正な場合
+     */
+    List<LocationData> getLocationsByDeviceAndTimeRange(String deviceId, LocalDateTime startTime,
+            LocalDateTime endTime, boolean newestFirst, int limit);
+
     /**
      * IDで位置情報を取得
      * 
@@ -75,6 +90,13 @@ public interface LocationService {
      */
     long getDeviceCount();
 
+    /**
+     * 位置情報の総数を取得
+     * 
+     * @return 位置情報の総数
+     */
+    long getLocationCount();
+
     /**
      * 位置情報を削除
      * 
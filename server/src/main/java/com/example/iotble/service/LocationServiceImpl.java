@@ -1,15 +1,29 @@
 package com.example.iotble.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.iotble.core.IngestResult;
+import com.example.iotble.core.LocationIngestor;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
 import com.example.iotble.model.LocationData;
 import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+import com.example.iotble.util.DeviceLogSampler;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +31,12 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * 位置情報サービスの実装クラス
  * 
- * ビジネスロジックとデータアクセスを管理します
+ * ビジネスロジックとデータアクセスを管理します。
+ * デバイス単位の読み書きはデバイスIDのシャードで、デバイスをまたぐ読み出しは
+ * 全シャードで並列に実行してタイムスタンプ順に併合します。
+ * 読み取り専用のメソッドはレプリカが有効な場合レプリカで実行されます（書き込み直後のデバイスや
+ * 遅延の大きいレプリカではプライマリに切り替わります）。
+ * 履歴の読み出しはコールドティアに封印済みの位置情報も併合し、両方に残っている行はIDで重複を除きます
  */
 @Service
 @RequiredArgsConstructor
@@ -25,23 +44,56 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 public class LocationServiceImpl implements LocationService {
 
+    /** 最新の位置情報として返す件数 */
+    private static final int RECENT_LIMIT = 50;
+
+    /** デバイス別の期間指定で返す最大件数の上限 */
+    static final int MAX_RANGE_LIMIT = 10000;
+
+    /** タイムスタンプの新しい順 */
+    private static final Comparator<LocationData> NEWEST_FIRST = Comparator
+            .comparing(LocationData::getTimestamp, Comparator.reverseOrder())
+            .thenComparing(LocationData::getId, Comparator.reverseOrder());
+
     private final LocationRepository locationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardTemplate shardTemplate;
+    private final SiteTemplate siteTemplate;
+    private final LocationIngestor locationIngestor;
+    private final DeviceLogSampler ingestLogSampler;
+    private final SegmentStore segmentStore;
 
     /**
      * 新しい位置情報を保存
      * 
+     * {@link LocationIngestor} で検証と保存前の処理（平滑化など）を適用して保存します。
+     * 直近に保存した位置情報と同じ場合（ゲートウェイの再送など）は保存せず、先に保存した位置情報を返します。
+     * 保存のログはデバイスごとに間引き、出力しない場合は引数の組み立ても行いません
+     * 
      * @param locationData 位置情報データ
      * @return 保存された位置情報
+     * @throws IllegalArgumentException 位置情報が不正な場合
      */
     @Override
     public LocationData saveLocation(LocationData locationData) {
-        // タイムスタンプが設定されていない場合は現在時刻を設定
-        if (locationData.getTimestamp() == null) {
-            locationData.setTimestamp(LocalDateTime.now());
+        IngestResult result = locationIngestor.ingest(locationData.toPoint());
+        if (result.status() == IngestResult.Status.INVALID) {
+            throw new IllegalArgumentException(String.join(", ", result.errors().values()));
         }
-
-        LocationData saved = locationRepository.save(locationData);
-        log.info("位置情報を保存しました: {}", saved);
+        if (result.status() == IngestResult.Status.DUPLICATE) {
+            log.debug("重複した位置情報のため保存しませんでした: {}", result.point());
+            return withSite(LocationData.from(result.point()));
+        }
+        LocationData saved = withSite(LocationData.from(result.point()));
+        if (log.isInfoEnabled()) {
+            long suppressed = ingestLogSampler.sample(saved.getDeviceId());
+            if (suppressed != DeviceLogSampler.SUPPRESSED) {
+                log.info("位置情報を保存しました: id={}, deviceId={}, latitude={}, longitude={}, timestamp={}, "
+                        + "suppressed={}", saved.getId(), saved.getDeviceId(), saved.getLatitude(),
+                        saved.getLongitude(), saved.getTimestamp(), suppressed);
+            }
+        }
+        eventPublisher.publishEvent(LocationsSavedEvent.of(saved));
 
         return saved;
     }
@@ -49,12 +101,17 @@ public class LocationServiceImpl implements LocationService {
     /**
      * すべての位置情報を取得
      * 
-     * @return すべての位置情報のリスト
+     * シャードの数やコールドティアの有無によらず、タイムスタンプの新しい順に返します
+     * 
+     * @return すべての位置情報のリスト（タイムスタンプ降順）
      */
     @Override
     @Transactional(readOnly = true)
     public List<LocationData> getAllLocations() {
-        return locationRepository.findAll();
+        List<LocationData> hot = ShardTemplate.mergeSorted(
+                shardTemplate.scatter(shard -> locationRepository.findAllByOrderByTimestampDescIdDesc()),
+                NEWEST_FIRST, 0);
+        return mergeTiers(hot, coldTier(null, null, null), NEWEST_FIRST, 0);
     }
 
     /**
@@ -65,7 +122,9 @@ public class LocationServiceImpl implements LocationService {
     @Override
     @Transactional(readOnly = true)
     public List<LocationData> getRecentLocations() {
-        return locationRepository.findTop50ByOrderByTimestampDesc();
+        return ShardTemplate.mergeSorted(
+                shardTemplate.scatter(shard -> locationRepository.findTop50ByOrderByTimestampDesc()),
+                NEWEST_FIRST, RECENT_LIMIT);
     }
 
     /**
@@ -77,7 +136,9 @@ public class LocationServiceImpl implements LocationService {
     @Override
     @Transactional(readOnly = true)
     public List<LocationData> getLocationsByDeviceId(String deviceId) {
-        return locationRepository.findByDeviceIdOrderByTimestampDesc(deviceId);
+        List<LocationData> hot = shardTemplate.onDevice(deviceId,
+                () -> locationRepository.findByDeviceIdOrderByTimestampDesc(deviceId));
+        return mergeTiers(hot, coldTier(deviceId, null, null), NEWEST_FIRST, 0);
     }
 
     /**
@@ -89,7 +150,11 @@ public class LocationServiceImpl implements LocationService {
     @Override
     @Transactional(readOnly = true)
     public Optional<LocationData> getLatestLocationByDeviceId(String deviceId) {
-        return locationRepository.findLatestByDeviceId(deviceId);
+        Optional<LocationData> hot = shardTemplate.onDevice(deviceId,
+                () -> locationRepository.findLatestByDeviceId(deviceId));
+        // 封印済みの期間に遅れて届いた位置情報がホットに残っている場合に備え、それより新しい行だけを探す
+        List<LocationData> cold = coldTier(deviceId, hot.map(LocationData::getTimestamp).orElse(null), null);
+        return mergeTiers(hot.map(List::of).orElse(List.of()), cold, NEWEST_FIRST, 1).stream().findFirst();
     }
 
     /**
@@ -102,12 +167,48 @@ public class LocationServiceImpl implements LocationService {
     @Override
     @Transactional(readOnly = true)
     public List<LocationData> getLocationsByTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
-        return locationRepository.findByTimestampBetween(startTime, endTime);
+        List<LocationData> hot = ShardTemplate.mergeSorted(
+                shardTemplate.scatter(shard -> locationRepository.findByTimestampBetween(startTime, endTime)),
+                NEWEST_FIRST, 0);
+        return mergeTiers(hot, coldTier(null, startTime, endTime), NEWEST_FIRST, 0);
+    }
+
+    /**
+     * デバイスの指定期間内の位置情報を取得
+     * 
+     * デバイスのシャードで複合インデックス (deviceId, timestamp DESC) を順方向または逆方向に走査し、
+     * 最大件数に達した時点で打ち切ります
+     * 
+     * @param deviceId    デバイスID
+     * @param startTime   開始時刻（この時刻を含む）
+     * @param endTime     終了時刻（この時刻を含む）
+     * @param newestFirst 新しい順に取得する場合true（falseの場合は古い順）
+     * @param limit       最大件数
+     * @return 該当する位置情報のリスト
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<LocationData> getLocationsByDeviceAndTimeRange(String deviceId, LocalDateTime startTime,
+            LocalDateTime endTime, boolean newestFirst, int limit) {
+        if (startTime.isAfter(endTime)) {
+            throw new IllegalArgumentException("startTime must not be after endTime");
+        }
+        if (limit < 1 || limit > MAX_RANGE_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_RANGE_LIMIT);
+        }
+        Limit max = Limit.of(limit);
+        List<LocationData> hot = shardTemplate.onDevice(deviceId, () -> newestFirst
+                ? locationRepository.findDeviceRangeNewestFirst(deviceId, startTime, endTime, max)
+                : locationRepository.findDeviceRangeOldestFirst(deviceId, startTime, endTime, max));
+        return mergeTiers(hot, coldTier(deviceId, startTime, endTime),
+                newestFirst ? NEWEST_FIRST : NEWEST_FIRST.reversed(), limit);
     }
 
     /**
      * IDで位置情報を取得
      * 
+     * データベースにない場合はコールドティアのセグメントから探します
+     * 
      * @param id 位置情報ID
      * @return 位置情報（存在する場合）
      */
@@ -117,32 +218,74 @@ public class LocationServiceImpl implements LocationService {
         if (id == null) {
             return Optional.empty();
         }
-        return locationRepository.findById(id);
+        Optional<LocationData> hot = shardTemplate.scatter(shard -> locationRepository.findById(id)).stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+        return hot.isPresent() ? hot : segmentStore.findById(id);
     }
 
     /**
      * 登録されているデバイスの総数を取得
      * 
+     * 履歴がすべて封印されたデバイスも数えるため、コールドティアのデバイスとの和集合を数えます
+     * 
      * @return デバイスの総数
      */
     @Override
     @Transactional(readOnly = true)
     public long getDeviceCount() {
-        return locationRepository.countDistinctDevices();
+        if (!segmentStore.isEnabled()) {
+            // 同じデバイスの位置情報は1つのシャードにのみ保存されるため、シャードごとの件数を合計できる
+            return shardTemplate.scatter(shard -> locationRepository.countDistinctDevices()).stream()
+                    .mapToLong(Long::longValue)
+                    .sum();
+        }
+        Set<String> devices = new HashSet<>(segmentStore.countByDevice(null, null).keySet());
+        shardTemplate.scatter(shard -> locationRepository.findDistinctDeviceIds()).forEach(devices::addAll);
+        return devices.size();
+    }
+
+    /**
+     * 位置情報の総数を取得
+     * 
+     * @return 位置情報の総数
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long getLocationCount() {
+        long hot = shardTemplate.scatter(shard -> locationRepository.count()).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        if (!segmentStore.isEnabled()) {
+            return hot;
+        }
+        return hot + segmentStore.countByDevice(null, null).values().stream().mapToLong(Long::longValue).sum();
     }
 
     /**
      * 位置情報を削除
      * 
+     * コールドティアのセグメントにある位置情報は、そのIDの削除範囲を記録して読み出しから除外します
+     * 
      * @param id 削除する位置情報のID
      * @return 削除が成功した場合true
      */
     @Override
     public boolean deleteLocation(Long id) {
         Objects.requireNonNull(id, "ID must not be null");
-        if (locationRepository.existsById(id)) {
-            locationRepository.deleteById(id);
+        List<String> shards = shardTemplate.getShardNames();
+        List<Boolean> found = shardTemplate.scatter(shard -> locationRepository.existsById(id));
+        int index = found.indexOf(Boolean.TRUE);
+        if (index >= 0) {
+            shardTemplate.runOnShard(shards.get(index), () -> locationRepository.deleteById(id));
+        }
+        // 封印の途中ではデータベースとセグメントの両方に同じ行があるため、両方から削除する
+        // （IDの範囲がかかるセグメントがない場合、セグメントは展開しない）
+        boolean cold = segmentStore.deleteById(id);
+        if (index >= 0 || cold) {
             log.info("位置情報を削除しました: ID={}", id);
+            // デバイスIDは読み込まないため、受け取り側ではすべてのデバイスが変更された可能性があるものとして扱う
+            eventPublisher.publishEvent(LocationsDeletedEvent.of(List.of(id), Set.of()));
             return true;
         }
         log.warn("削除対象の位置情報が見つかりません: ID={}", id);
@@ -151,10 +294,72 @@ public class LocationServiceImpl implements LocationService {
 
     /**
      * すべての位置情報を削除（テスト用）
+     * 
+     * エンティティを読み込まずに1つのDELETE文で削除します
      */
     @Override
     public void deleteAllLocations() {
-        locationRepository.deleteAll();
+        shardTemplate.scatter(shard -> {
+            locationRepository.deleteAllInBatch();
+            return null;
+        });
+        segmentStore.clear();
+        eventPublisher.publishEvent(LocationsDeletedEvent.all());
         log.info("すべての位置情報を削除しました");
     }
+
+    /**
+     * コールドティアから範囲内の位置情報を読み出す
+     * 
+     * @return 位置情報のリスト（順序は保証しない、階層化していない場合は空）
+     */
+    private List<LocationData> coldTier(String deviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (!segmentStore.isEnabled()) {
+            return List.of();
+        }
+        List<LocationData> cold = new ArrayList<>();
+        segmentStore.stream(deviceId, startTime, endTime, true, cold::add);
+        return cold;
+    }
+
+    /**
+     * ホットとコールドの位置情報を併合して並べ、IDの重複を除く
+     * 
+     * @param hot   データベースの位置情報（order の順）
+     * @param cold  コールドティアの位置情報（順不同）
+     * @param order 並び順
+     * @param limit 最大件数（0の場合は無制限）
+     */
+    private static List<LocationData> mergeTiers(List<LocationData> hot, List<LocationData> cold,
+            Comparator<LocationData> order, int limit) {
+        if (cold.isEmpty()) {
+            return hot;
+        }
+        List<LocationData> all = new ArrayList<>(hot.size() + cold.size());
+        all.addAll(hot);
+        all.addAll(cold);
+        all.sort(order);
+        List<LocationData> merged = new ArrayList<>(limit > 0 ? Math.min(limit, all.size()) : all.size());
+        Long previousId = null;
+        for (LocationData location : all) {
+            // 同じIDの行はタイムスタンプも同じため、並べ替え後は隣り合う
+            if (location.getId().equals(previousId)) {
+                continue;
+            }
+            previousId = location.getId();
+            merged.add(location);
+            if (limit > 0 && merged.size() == limit) {
+                break;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 取り込み処理の結果に保存したサイトを設定
+     */
+    private LocationData withSite(LocationData location) {
+        location.setSiteId(siteTemplate.currentSite());
+        return location;
+    }
 }
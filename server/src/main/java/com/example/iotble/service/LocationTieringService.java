@@ -0,0 +1,28 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.iotble.tier.SegmentInfo;
+
+/**
+ * 位置情報のホット・コールドの階層化サービスのインターフェース
+ */
+public interface LocationTieringService {
+
+    /**
+     * データベースに残す日数を過ぎた位置情報をセグメントに封印し、データベースから削除
+     * 
+     * @param now 基準時刻
+     * @return 封印の結果（封印が設定されていない場合は空）
+     */
+    Optional<SealReport> seal(LocalDateTime now);
+
+    /**
+     * 現在のサイトのセグメントの一覧を期間順に取得
+     * 
+     * @return セグメントのメタデータのリスト
+     */
+    List<SegmentInfo> getSegments();
+}
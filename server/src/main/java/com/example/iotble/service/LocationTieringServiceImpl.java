@@ -0,0 +1,168 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.iotble.config.TieringProperties;
+import com.example.iotble.model.RollupResolution;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentInfo;
+import com.example.iotble.tier.SegmentStore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 位置情報のホット・コールドの階層化サービスの実装クラス
+ *
+ * データベースに残す日数を過ぎた位置情報を、セグメントの期間ごとに圧縮済みのセグメントへ書き出してから
+ * データベースから削除します。封印した位置情報は位置情報サービスの読み出しに引き続き含まれるため、
+ * 削除のイベントは発行せず、メモリ上のインデックスや集計はそのまま使えます。
+ * 封印済みの期間に遅れて届いた位置情報は、次回の封印で追加のセグメントになります。
+ * 定期実行ではサイトごとに順に処理します
+ */
+@Service
+@Slf4j
+public class LocationTieringServiceImpl implements LocationTieringService {
+
+    private final LocationJdbcRepository jdbcRepository;
+    private final SegmentStore segmentStore;
+    private final ShardTemplate shardTemplate;
+    private final SiteTemplate siteTemplate;
+    private final int hotDays;
+    private final int segmentHours;
+    private final int deleteChunkSize;
+
+    public LocationTieringServiceImpl(
+            LocationJdbcRepository jdbcRepository,
+            SegmentStore segmentStore,
+            ShardTemplate shardTemplate,
+            SiteTemplate siteTemplate,
+            TieringProperties properties) {
+        if (properties.getSegmentHours() <= 0) {
+            throw new IllegalArgumentException("segment-hours must be positive");
+        }
+        if (properties.getDeleteChunkSize() <= 0) {
+            throw new IllegalArgumentException("delete-chunk-size must be positive");
+        }
+        this.jdbcRepository = jdbcRepository;
+        this.segmentStore = segmentStore;
+        this.shardTemplate = shardTemplate;
+        this.siteTemplate = siteTemplate;
+        this.hotDays = properties.getHotDays();
+        this.segmentHours = properties.getSegmentHours();
+        this.deleteChunkSize = properties.getDeleteChunkSize();
+    }
+
+    /**
+     * 封印を定期的に実行
+     */
+    @Scheduled(cron = "${iotble.tiering.cron:0 15 * * * *}")
+    public void scheduledSeal() {
+        LocalDateTime now = LocalDateTime.now();
+        siteTemplate.forEachSite(site -> {
+            try {
+                seal(now);
+            } catch (RuntimeException e) {
+                log.error("コールドティアへの封印に失敗しました: site={}", site, e);
+            }
+        });
+    }
+
+    /**
+     * データベースに残す日数を過ぎた位置情報をセグメントに封印し、データベースから削除
+     *
+     * 最古の位置情報を含む期間から順に封印し、境界より前の位置情報がなくなるまで繰り返します。
+     * 期間は時間単位に揃えるため、集計のバケットを分割しません
+     *
+     * @param now 基準時刻
+     * @return 封印の結果（封印が設定されていない場合は空）
+     */
+    @Override
+    public synchronized Optional<SealReport> seal(LocalDateTime now) {
+        if (hotDays <= 0 || !segmentStore.isEnabled()) {
+            return Optional.empty();
+        }
+        long started = System.nanoTime();
+        LocalDateTime cutoff = RollupResolution.HOUR.bucketStart(now.minusDays(hotDays));
+        int segments = 0;
+        long sealed = 0;
+        while (true) {
+            Optional<LocalDateTime[]> bounds = jdbcRepository.findTimestampBounds(null);
+            if (bounds.isEmpty() || !bounds.get()[0].isBefore(cutoff)) {
+                break;
+            }
+            LocalDateTime from = periodStart(bounds.get()[0]);
+            LocalDateTime to = from.plusHours(segmentHours);
+            long moved = sealPeriod(from, to.isAfter(cutoff) ? cutoff : to);
+            if (moved == 0) {
+                break;
+            }
+            segments++;
+            sealed += moved;
+        }
+        SealReport report = new SealReport(cutoff, segments, sealed, (System.nanoTime() - started) / 1_000_000);
+        if (segments > 0) {
+            log.info("コールドティアへ封印しました: site={}, cutoff={}, セグメント数={}, 件数={}, 所要時間={}ms",
+                    siteTemplate.currentSite(), cutoff, segments, sealed, report.elapsedMillis());
+        }
+        return Optional.of(report);
+    }
+
+    /**
+     * 現在のサイトのセグメントの一覧を期間順に取得
+     *
+     * @return セグメントのメタデータのリスト
+     */
+    @Override
+    public List<SegmentInfo> getSegments() {
+        return segmentStore.getSegments();
+    }
+
+    /**
+     * 期間内の位置情報を1つのセグメントに書き出し、書き出した行をIDで削除する
+     *
+     * 書き出し中に届いた位置情報は削除しないため、失われません。
+     * 書き出し後の削除の前に停止した場合、行は両方の階層に残り、読み出し時にIDで重複を除きます
+     */
+    private long sealPeriod(LocalDateTime from, LocalDateTime to) {
+        Map<String, LongStream.Builder> idsByShard = new LinkedHashMap<>();
+        SegmentInfo segment = segmentStore.write(from, to, consumer -> {
+            for (String shard : shardTemplate.getShardNames()) {
+                LongStream.Builder ids = idsByShard.computeIfAbsent(shard, s -> LongStream.builder());
+                jdbcRepository.streamOnShardByDevice(shard, from, to, location -> {
+                    consumer.accept(location);
+                    ids.add(location.getId());
+                });
+            }
+        });
+        if (segment == null) {
+            return 0;
+        }
+        long deleted = 0;
+        for (Map.Entry<String, LongStream.Builder> entry : idsByShard.entrySet()) {
+            deleted += jdbcRepository.deleteOnShard(entry.getKey(), entry.getValue().build().toArray(),
+                    deleteChunkSize);
+        }
+        log.debug("セグメントを作成しました: name={}, from={}, to={}, 件数={}, 削除件数={}",
+                segment.name(), from, to, segment.rowCount(), deleted);
+        return segment.rowCount();
+    }
+
+    /**
+     * 時刻を含むセグメントの期間の開始時刻（エポックからセグメントの期間単位で切り捨て）
+     */
+    private LocalDateTime periodStart(LocalDateTime time) {
+        long hours = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 3600L);
+        return LocalDateTime.ofEpochSecond((hours - Math.floorMod(hours, segmentHours)) * 3600L, 0, ZoneOffset.UTC);
+    }
+}
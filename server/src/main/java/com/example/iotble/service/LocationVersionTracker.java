@@ -0,0 +1,116 @@
+package com.example.iotble.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.site.SiteTemplate;
+
+/**
+ * 位置情報の変更をバージョン番号で追跡するコンポーネント
+ *
+ * 全体のバージョンは位置情報が保存・削除されるたびに増え、デバイスのバージョンは
+ * そのデバイスが最後に変更されたときの全体のバージョンになります。
+ * 変更がコミットされた後に更新するため、バージョンが同じであれば読み出し結果も同じであるとみなせます。
+ * 再起動でバージョンが巻き戻らないよう、起動時刻を初期値にします。
+ * バージョンはサイトごとに数え、あるサイトの変更で他のサイトのETagを無効にしません
+ */
+@Component
+public class LocationVersionTracker {
+
+    private final SiteLocal<Versions> versions;
+
+    public LocationVersionTracker(SiteTemplate siteTemplate) {
+        this.versions = siteTemplate.local(Versions::new);
+    }
+
+    /**
+     * 全体のバージョンを取得
+     *
+     * @return バージョン番号
+     */
+    public long getGlobalVersion() {
+        return versions.get().globalVersion.get();
+    }
+
+    /**
+     * デバイスのバージョンを取得
+     *
+     * @param deviceId デバイスID
+     * @return バージョン番号
+     */
+    public long getDeviceVersion(String deviceId) {
+        Versions current = versions.get();
+        Long version = current.deviceVersions.get(deviceId);
+        long base = current.baseVersion;
+        return version == null || version < base ? base : version;
+    }
+
+    /**
+     * 保存された位置情報のデバイスのバージョンを更新
+     *
+     * @param event 保存イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsSaved(LocationsSavedEvent event) {
+        Versions current = versions.get();
+        long version = current.globalVersion.incrementAndGet();
+        event.locations().stream()
+                .map(LocationData::getDeviceId)
+                .distinct()
+                .forEach(deviceId -> current.deviceVersions.put(deviceId, version));
+    }
+
+    /**
+     * 位置情報を削除したデバイスのバージョンを更新
+     *
+     * 全件削除やデバイスの分からない削除では、すべてのデバイスのバージョンを更新します
+     *
+     * @param event 削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        Versions current = versions.get();
+        long version = current.globalVersion.incrementAndGet();
+        if (event.purgedAll() || event.deviceIds().isEmpty()) {
+            current.baseVersion = version;
+            if (event.purgedAll()) {
+                current.deviceVersions.clear();
+            }
+        } else {
+            event.deviceIds().forEach(deviceId -> current.deviceVersions.put(deviceId, version));
+        }
+    }
+
+    /**
+     * 履歴を一括削除したデバイスのバージョンを更新
+     *
+     * @param event 一括削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceHistoryDeleted(DeviceHistoryDeletedEvent event) {
+        Versions current = versions.get();
+        current.deviceVersions.put(event.deviceId(), current.globalVersion.incrementAndGet());
+    }
+
+    /**
+     * 1サイト分のバージョン
+     */
+    private static final class Versions {
+
+        private final AtomicLong globalVersion = new AtomicLong(System.currentTimeMillis());
+
+        /** 変更が記録されていないデバイスのバージョン */
+        private volatile long baseVersion = globalVersion.get();
+
+        private final Map<String, Long> deviceVersions = new ConcurrentHashMap<>();
+    }
+}
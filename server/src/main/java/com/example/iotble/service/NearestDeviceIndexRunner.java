@@ -0,0 +1,22 @@
+package com.example.iotble.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 起動時に保存されている位置情報からデバイスの現在位置のインデックスを作成するランナー
+ */
+@Component
+@RequiredArgsConstructor
+public class NearestDeviceIndexRunner implements ApplicationRunner {
+
+    private final NearestDeviceService nearestDeviceService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        nearestDeviceService.rebuildIndex();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.iotble.service;
+
+import java.util.List;
+
+import com.example.iotble.model.NearbyDevice;
+
+/**
+ * 地点の近くにいるデバイスの検索サービスのインターフェース
+ */
+public interface NearestDeviceService {
+
+    /**
+     * 地点から近い順にデバイスを取得
+     * 
+     * @param latitude      緯度
+     * @param longitude     経度
+     * @param k             最大件数
+     * @param maxAgeSeconds 現在位置の経過秒数の上限（null の場合は制限なし）
+     * @return 近い順のデバイスのリスト
+     * @throws IllegalArgumentException 検索条件が不正な場合
+     */
+    List<NearbyDevice> findNearest(double latitude, double longitude, int k, Long maxAgeSeconds);
+
+    /**
+     * 保存されている位置情報からインデックスを作り直す
+     * 
+     * @return インデックスに登録したデバイス数
+     */
+    int rebuildIndex();
+
+    /**
+     * インデックスに登録されているデバイス数を取得
+     * 
+     * @return デバイス数
+     */
+    int getIndexedDeviceCount();
+}
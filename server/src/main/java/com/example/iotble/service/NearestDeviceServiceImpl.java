@@ -0,0 +1,137 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.NearbyDevice;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.spatial.DevicePositionIndex;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 地点の近くにいるデバイスの検索サービスの実装クラス
+ * 
+ * デバイスの現在位置をメモリ上の空間インデックスに保持し、位置情報が保存されるたびに更新します。
+ * インデックスはサイトごとに持ち、クラスターの取得（{@link DeviceClusterService}）と共有します。
+ * 現在位置が削除されたデバイスは、残っている最新の位置情報を読み出して戻します。
+ * 平滑化された位置情報は平滑化後の座標で登録します
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NearestDeviceServiceImpl implements NearestDeviceService {
+
+    /** 1回に取得できる最大件数 */
+    static final int MAX_K = 1000;
+
+    private final LocationRepository locationRepository;
+    private final LocationJdbcRepository locationJdbcRepository;
+    private final ShardTemplate shardTemplate;
+    private final SiteLocal<DevicePositionIndex> indexes;
+
+    @Override
+    public List<NearbyDevice> findNearest(double latitude, double longitude, int k, Long maxAgeSeconds) {
+        if (!(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("緯度は-90から90の範囲で指定してください: " + latitude);
+        }
+        if (!(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("経度は-180から180の範囲で指定してください: " + longitude);
+        }
+        if (k < 1 || k > MAX_K) {
+            throw new IllegalArgumentException("件数は1から" + MAX_K + "の範囲で指定してください: " + k);
+        }
+        if (maxAgeSeconds != null && maxAgeSeconds <= 0) {
+            throw new IllegalArgumentException("経過秒数の上限は1以上で指定してください: " + maxAgeSeconds);
+        }
+        LocalDateTime notBefore = maxAgeSeconds != null ? LocalDateTime.now().minusSeconds(maxAgeSeconds) : null;
+        return indexes.get().nearest(latitude, longitude, k, notBefore);
+    }
+
+    @Override
+    public int rebuildIndex() {
+        int[] devices = new int[1];
+        indexes.forEach((site, index) -> {
+            // 読み込み中に保存された位置情報より古い位置では上書きされない
+            locationJdbcRepository.streamLatestPerDevice(location -> update(index, location));
+            devices[0] += index.size();
+            log.info("デバイスの現在位置のインデックスを作成しました: site={}, デバイス数={}", site, index.size());
+        });
+        return devices[0];
+    }
+
+    @Override
+    public int getIndexedDeviceCount() {
+        return indexes.get().size();
+    }
+
+    /**
+     * 保存された位置情報でデバイスの現在位置を更新
+     * 
+     * @param event 保存イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsSaved(LocationsSavedEvent event) {
+        DevicePositionIndex index = indexes.get();
+        event.locations().forEach(location -> update(index, location));
+    }
+
+    /**
+     * 現在位置が削除されたデバイスを最新の位置情報に戻す
+     * 
+     * @param event 削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        DevicePositionIndex index = indexes.get();
+        if (event.purgedAll()) {
+            index.clear();
+            return;
+        }
+        Set<String> deviceIds = new HashSet<>(event.deviceIds());
+        deviceIds.addAll(index.findDevicesAt(event.ids()));
+        deviceIds.forEach(this::reload);
+    }
+
+    /**
+     * 履歴を一括削除したデバイスを最新の位置情報に戻す
+     * 
+     * @param event 一括削除イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceHistoryDeleted(DeviceHistoryDeletedEvent event) {
+        reload(event.deviceId());
+    }
+
+    private static void update(DevicePositionIndex index, LocationData location) {
+        index.update(location.getDeviceId(), location.getId(), location.effectiveLatitude(),
+                location.effectiveLongitude(), location.getTimestamp());
+    }
+
+    /**
+     * デバイスの最新の位置情報を読み出して現在位置を置き換える（位置情報が残っていなければ削除）
+     */
+    private void reload(String deviceId) {
+        Optional<LocationData> latest = shardTemplate.onDevice(deviceId,
+                () -> locationRepository.findLatestByDeviceId(deviceId));
+        DevicePositionIndex index = indexes.get();
+        latest.ifPresentOrElse(
+                location -> index.replace(deviceId, location.getId(), location.effectiveLatitude(),
+                        location.effectiveLongitude(), location.getTimestamp()),
+                () -> index.remove(deviceId));
+    }
+}
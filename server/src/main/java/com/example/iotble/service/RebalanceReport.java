@@ -0,0 +1,11 @@
+package com.example.iotble.service;
+
+/**
+ * シャード間の再配置の結果
+ * 
+ * @param movedDevices   移動したデバイス数
+ * @param movedLocations 移動した位置情報の件数
+ * @param elapsedMillis  所要時間（ミリ秒）
+ */
+public record RebalanceReport(int movedDevices, long movedLocations, long elapsedMillis) {
+}
@@ -0,0 +1,74 @@
+package com.example.iotble.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.shard.ReplicaSelector;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 読み取りレプリカの遅延測定と、書き込んだデバイスの読み出し固定を行うコンポーネント
+ *
+ * 位置情報の保存・削除イベントを受け取った時点で該当デバイスを記録し、
+ * 一定時間そのデバイスの読み出しをプライマリから行わせます。
+ * レプリカが設定されていない場合は何もしません
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicaMonitor {
+
+    private final ReplicaSelector replicaSelector;
+
+    /**
+     * 定期的にレプリカの遅延を測定
+     */
+    @Scheduled(fixedDelayString = "${iotble.replica.heartbeat-interval-ms:1000}")
+    public void checkLag() {
+        if (replicaSelector.hasReplicas()) {
+            replicaSelector.checkLag();
+        }
+    }
+
+    /**
+     * 保存された位置情報のデバイスを記録
+     *
+     * コミット前に記録し、コミット直後の読み出しもプライマリに固定します
+     *
+     * @param event 保存イベント
+     */
+    @EventListener
+    public void onLocationsSaved(LocationsSavedEvent event) {
+        if (replicaSelector.hasReplicas()) {
+            event.locations().stream()
+                    .map(LocationData::getDeviceId)
+                    .distinct()
+                    .forEach(replicaSelector::recordWrite);
+        }
+    }
+
+    /**
+     * 位置情報を削除したデバイスを記録
+     *
+     * @param event 削除イベント
+     */
+    @EventListener
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        event.deviceIds().forEach(replicaSelector::recordWrite);
+    }
+
+    /**
+     * 履歴を一括削除したデバイスを記録
+     *
+     * @param event 一括削除イベント
+     */
+    @EventListener
+    public void onDeviceHistoryDeleted(DeviceHistoryDeletedEvent event) {
+        replicaSelector.recordWrite(event.deviceId());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * コールドティアへの封印の結果
+ * 
+ * @param sealedBefore    この時刻より前の位置情報を封印した（時間単位に切り捨て）
+ * @param segments        作成したセグメント数
+ * @param sealedLocations 封印した位置情報の件数
+ * @param elapsedMillis   所要時間（ミリ秒）
+ */
+public record SealReport(LocalDateTime sealedBefore, int segments, long sealedLocations, long elapsedMillis) {
+}
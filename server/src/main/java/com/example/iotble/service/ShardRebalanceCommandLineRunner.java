@@ -0,0 +1,32 @@
+package com.example.iotble.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 起動時にシャード間の再配置を実行するランナー
+ * 
+ * シャードを追加した設定で {@code --iotble.sharding.rebalance-on-startup=true} を指定して起動すると、
+ * サーバーの起動後に割り当て先が変わったデバイスの位置情報を移動します
+ */
+@Component
+@ConditionalOnProperty(name = "iotble.sharding.rebalance-on-startup", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardRebalanceCommandLineRunner implements ApplicationRunner {
+
+    private final ShardRebalanceService rebalanceService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebalanceService.getShardStatus().forEach(status -> log.info(
+                "シャードの配置状況: shard={}, 位置情報={}件, デバイス数={}, 移動対象デバイス数={}",
+                status.shard(), status.locationCount(), status.deviceCount(), status.misplacedDevices()));
+        rebalanceService.rebalance();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.iotble.service;
+
+import java.util.List;
+
+/**
+ * シャード間の位置情報の再配置サービスのインターフェース
+ */
+public interface ShardRebalanceService {
+
+    /**
+     * シャードごとの配置状況を取得
+     * 
+     * @return シャードごとの配置状況（設定順）
+     */
+    List<ShardStatus> getShardStatus();
+
+    /**
+     * 現在のシャード構成で別のシャードに割り当てられるデバイスの位置情報を移動
+     * 
+     * @return 再配置の結果
+     */
+    RebalanceReport rebalance();
+}
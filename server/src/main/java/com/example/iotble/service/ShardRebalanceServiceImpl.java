@@ -0,0 +1,98 @@
+package com.example.iotble.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.shard.ShardTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * シャード間の位置情報の再配置サービスの実装クラス
+ * 
+ * シャードを追加するとコンシステントハッシュにより一部のデバイスの割り当て先が変わります。
+ * 再配置が終わるまで、割り当て先が変わったデバイスの移動前の位置情報はデバイス単位の
+ * 読み出しに含まれません。位置情報のIDは移動後も変わりません
+ */
+@Service
+@Slf4j
+public class ShardRebalanceServiceImpl implements ShardRebalanceService {
+
+    private final ShardTemplate shardTemplate;
+    private final LocationJdbcRepository jdbcRepository;
+    private final int batchSize;
+
+    public ShardRebalanceServiceImpl(
+            ShardTemplate shardTemplate,
+            LocationJdbcRepository jdbcRepository,
+            @Value("${iotble.sharding.rebalance-batch-size:1000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("rebalance-batch-size must be positive");
+        }
+        this.shardTemplate = shardTemplate;
+        this.jdbcRepository = jdbcRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * シャードごとの配置状況を取得
+     * 
+     * @return シャードごとの配置状況（設定順）
+     */
+    @Override
+    public List<ShardStatus> getShardStatus() {
+        return shardTemplate.scatter(shard -> {
+            List<String> deviceIds = jdbcRepository.findDeviceIdsOnShard(shard);
+            int misplaced = (int) deviceIds.stream()
+                    .filter(deviceId -> !shardTemplate.shardFor(deviceId).equals(shard))
+                    .count();
+            return new ShardStatus(shard, jdbcRepository.countOnShard(shard), deviceIds.size(), misplaced);
+        });
+    }
+
+    /**
+     * 現在のシャード構成で別のシャードに割り当てられるデバイスの位置情報を移動
+     * 
+     * @return 再配置の結果
+     */
+    @Override
+    public synchronized RebalanceReport rebalance() {
+        long startedAt = System.currentTimeMillis();
+        int movedDevices = 0;
+        long movedLocations = 0;
+        if (shardTemplate.isSharded()) {
+            for (String shard : shardTemplate.getShardNames()) {
+                for (String deviceId : jdbcRepository.findDeviceIdsOnShard(shard)) {
+                    String target = shardTemplate.shardFor(deviceId);
+                    if (!target.equals(shard)) {
+                        movedLocations += moveDevice(deviceId, shard, target);
+                        movedDevices++;
+                    }
+                }
+            }
+        }
+        RebalanceReport report = new RebalanceReport(
+                movedDevices, movedLocations, System.currentTimeMillis() - startedAt);
+        log.info("シャードの再配置が完了しました: デバイス数={}, 位置情報={}件, 所要時間={}ms",
+                report.movedDevices(), report.movedLocations(), report.elapsedMillis());
+        return report;
+    }
+
+    /**
+     * デバイスの位置情報をバッチ単位で移動する
+     */
+    private long moveDevice(String deviceId, String from, String to) {
+        long moved = 0;
+        List<LocationData> batch;
+        while (!(batch = jdbcRepository.findByDeviceOnShard(from, deviceId, batchSize)).isEmpty()) {
+            jdbcRepository.moveBetweenShards(from, to, batch);
+            moved += batch.size();
+        }
+        log.debug("デバイスの位置情報を移動しました: deviceId={}, {} -> {}, 件数={}", deviceId, from, to, moved);
+        return moved;
+    }
+}
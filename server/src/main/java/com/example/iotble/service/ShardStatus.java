@@ -0,0 +1,12 @@
+package com.example.iotble.service;
+
+/**
+ * シャードごとの位置情報の配置状況
+ * 
+ * @param shard             シャード名
+ * @param locationCount     位置情報の件数
+ * @param deviceCount       デバイス数
+ * @param misplacedDevices  現在のシャード構成では別のシャードに割り当てられるデバイス数
+ */
+public record ShardStatus(String shard, long locationCount, int deviceCount, int misplacedDevices) {
+}
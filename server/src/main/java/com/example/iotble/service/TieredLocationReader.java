@@ -0,0 +1,194 @@
+package com.example.iotble.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.tier.SegmentInfo;
+import com.example.iotble.tier.SegmentStore;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * データベース（ホット）とセグメント（コールドティア）を合わせて位置情報を読み出すコンポーネント
+ *
+ * エクスポートや集計の再計算など、期間の位置情報を順に読む処理が封印済みの期間も扱えるようにします。
+ * 期間の読み出しはデータベースのカーソルとコールドティアをタイムスタンプ・IDの順に併合し、
+ * 封印の途中で両方にある行は1回だけ渡します。
+ * コールドティアは期間の重なるセグメントのまとまりごとに読み込んで並べ替えるため、
+ * 保持する行はセグメントの期間分までです。階層化していない場合はデータベースだけを読みます
+ */
+@Component
+@RequiredArgsConstructor
+public class TieredLocationReader {
+
+    /** タイムスタンプ・IDの昇順 */
+    private static final Comparator<LocationData> OLDEST_FIRST = Comparator
+            .comparing(LocationData::getTimestamp)
+            .thenComparing(LocationData::getId);
+
+    private final LocationJdbcRepository jdbcRepository;
+    private final SegmentStore segmentStore;
+
+    /**
+     * 期間内の位置情報をタイムスタンプ・IDの昇順に1行ずつ読み出す
+     *
+     * @param startTime    開始時刻（この時刻を含む）
+     * @param endTime      終了時刻
+     * @param endInclusive 終了時刻を含む場合true
+     * @param deviceId     デバイスID（null の場合は全デバイス）
+     * @param consumer     各行を受け取るコールバック
+     */
+    public void streamByTimeRange(LocalDateTime startTime, LocalDateTime endTime, boolean endInclusive,
+            String deviceId, Consumer<LocationData> consumer) {
+        if (!segmentStore.isEnabled()) {
+            jdbcRepository.streamByTimeRange(startTime, endTime, endInclusive, deviceId, consumer);
+            return;
+        }
+        ColdCursor cold = new ColdCursor(startTime, endTime, endInclusive, deviceId);
+        jdbcRepository.streamByTimeRange(startTime, endTime, endInclusive, deviceId, location -> {
+            cold.emitBefore(location, consumer);
+            consumer.accept(location);
+        });
+        cold.emitBefore(null, consumer);
+    }
+
+    /**
+     * 指定時刻の時点でのデバイスごとの最新の位置情報を1行ずつ読み出す
+     *
+     * @param at       基準時刻（この時刻を含む）
+     * @param consumer 各行を受け取るコールバック（順不同）
+     */
+    public void streamLatestPerDeviceAsOf(LocalDateTime at, Consumer<LocationData> consumer) {
+        if (!segmentStore.isEnabled()) {
+            jdbcRepository.streamLatestPerDeviceAsOf(at, consumer);
+            return;
+        }
+        Map<String, LocationData> latest = new HashMap<>();
+        Consumer<LocationData> keepNewer = location -> latest.merge(location.getDeviceId(), location,
+                (current, candidate) -> OLDEST_FIRST.compare(candidate, current) > 0 ? candidate : current);
+        jdbcRepository.streamLatestPerDeviceAsOf(at, keepNewer);
+        segmentStore.streamLatestPerDevice(at, keepNewer);
+        latest.values().forEach(consumer);
+    }
+
+    /**
+     * 位置情報の最古・最新のタイムスタンプを取得
+     *
+     * @param deviceId デバイスID（null の場合は全デバイス）
+     * @return [最古, 最新]（位置情報がない場合は空）
+     */
+    public Optional<LocalDateTime[]> findTimestampBounds(String deviceId) {
+        Optional<LocalDateTime[]> hot = jdbcRepository.findTimestampBounds(deviceId);
+        Optional<LocalDateTime[]> cold = segmentStore.findTimestampBounds(deviceId);
+        if (hot.isEmpty() || cold.isEmpty()) {
+            return hot.isPresent() ? hot : cold;
+        }
+        LocalDateTime[] a = hot.get();
+        LocalDateTime[] b = cold.get();
+        return Optional.of(new LocalDateTime[] {
+                a[0].isBefore(b[0]) ? a[0] : b[0], a[1].isAfter(b[1]) ? a[1] : b[1] });
+    }
+
+    /**
+     * コールドティアの期間内の行を、期間の重なるセグメントのまとまりごとに読み込んで順に渡すカーソル
+     */
+    private final class ColdCursor {
+
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final boolean endInclusive;
+        private final String deviceId;
+        private final List<LocalDateTime[]> windows;
+        private int nextWindow;
+        private List<LocationData> buffer = List.of();
+        private int position;
+        private Long previousId;
+
+        ColdCursor(LocalDateTime startTime, LocalDateTime endTime, boolean endInclusive, String deviceId) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.endInclusive = endInclusive;
+            this.deviceId = deviceId;
+            this.windows = windows(segmentStore.getSegments());
+        }
+
+        /**
+         * 指定した行より前の行を渡し、同じIDの行（封印の途中でデータベースにも残っている行や、
+         * 封印をやり直して複数のセグメントにある行）は読み飛ばす
+         *
+         * @param hot      データベースの行（null の場合は残りのすべての行を渡す）
+         * @param consumer 各行を受け取るコールバック
+         */
+        void emitBefore(LocationData hot, Consumer<LocationData> consumer) {
+            LocationData next;
+            while ((next = peek()) != null) {
+                int order = hot == null ? -1 : OLDEST_FIRST.compare(next, hot);
+                if (order > 0) {
+                    return;
+                }
+                position++;
+                if (order < 0 && !next.getId().equals(previousId)) {
+                    consumer.accept(next);
+                }
+                previousId = next.getId();
+            }
+        }
+
+        private LocationData peek() {
+            while (position >= buffer.size()) {
+                if (nextWindow >= windows.size()) {
+                    return null;
+                }
+                buffer = load(windows.get(nextWindow++));
+                position = 0;
+            }
+            return buffer.get(position);
+        }
+
+        /**
+         * まとまりの期間と読み出す期間が重なる部分の行を読み込んで並べ替える
+         */
+        private List<LocationData> load(LocalDateTime[] window) {
+            boolean lastWindow = !window[1].isBefore(endTime);
+            LocalDateTime from = window[0].isAfter(startTime) ? window[0] : startTime;
+            LocalDateTime to = lastWindow ? endTime : window[1];
+            List<LocationData> rows = new ArrayList<>();
+            segmentStore.stream(deviceId, from, to, lastWindow ? endInclusive : true, rows::add);
+            rows.sort(OLDEST_FIRST);
+            return rows;
+        }
+
+        /**
+         * 期間の重なるセグメントをまとめ、読み出す期間と重なるまとまりの期間を古い順に返す
+         */
+        private List<LocalDateTime[]> windows(List<SegmentInfo> segments) {
+            List<SegmentInfo> sorted = new ArrayList<>(segments);
+            sorted.sort(Comparator.comparing(SegmentInfo::minTimestamp));
+            List<LocalDateTime[]> merged = new ArrayList<>();
+            for (SegmentInfo segment : sorted) {
+                LocalDateTime[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && !segment.minTimestamp().isAfter(last[1])) {
+                    if (segment.maxTimestamp().isAfter(last[1])) {
+                        last[1] = segment.maxTimestamp();
+                    }
+                } else {
+                    merged.add(new LocalDateTime[] { segment.minTimestamp(), segment.maxTimestamp() });
+                }
+            }
+            merged.removeIf(window -> window[1].isBefore(startTime) || window[0].isAfter(endTime)
+                    || !endInclusive && !window[0].isBefore(endTime));
+            return Collections.unmodifiableList(merged);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.iotble.service.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * FileChannelへの大きな連続書き込みを行うバッファ付き出力
+ * 
+ * 小さな値の書き込みはダイレクトバッファに蓄積し、バッファが満杯になった時点で
+ * まとめてチャネルへ書き出します。チャネルのクローズは呼び出し側の責務です。
+ */
+final class ChannelOutput {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    ChannelOutput(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * チャネル上の論理的な書き込み位置を取得
+     * 
+     * @return 未フラッシュ分を含めた書き込み位置
+     */
+    long position() throws IOException {
+        return channel.position() + buffer.position();
+    }
+
+    void put(byte value) throws IOException {
+        ensure(Byte.BYTES);
+        buffer.put(value);
+    }
+
+    void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    void putShort(short value) throws IOException {
+        ensure(Short.BYTES);
+        buffer.putShort(value);
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void putLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    void putDouble(double value) throws IOException {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * バッファの内容をチャネルへ書き出す
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.iotble.service.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.example.iotble.model.LocationData;
+
+/**
+ * 列指向バイナリ形式（LCOL）のファイルを読み込むリーダー
+ * 
+ * ファイルはメモリマップして読み込みます。形式は {@link ColumnarLocationWriter} を参照してください。
+ * この形式は作成日時を保持しないため、読み込んだ位置情報の createdAt は null になります。
+ */
+public final class ColumnarLocationReader implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final List<RowGroupInfo> rowGroups;
+    private final long totalRows;
+
+    private ColumnarLocationReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        byte[] magic = new byte[ColumnarLocationWriter.MAGIC.length];
+        buffer.get(0, magic);
+        int version = buffer.getInt(magic.length);
+        if (!Arrays.equals(magic, ColumnarLocationWriter.MAGIC) || version != ColumnarLocationWriter.VERSION) {
+            throw new IOException("LCOL形式のファイルではありません");
+        }
+
+        int trailerStart = buffer.limit() - ColumnarLocationWriter.MAGIC.length - Integer.BYTES;
+        int footerLength = buffer.getInt(trailerStart);
+        ByteBuffer footer = buffer.duplicate().position(trailerStart - footerLength);
+        int groupCount = footer.getInt();
+        List<RowGroupInfo> groups = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new RowGroupInfo(footer.getLong(), footer.getInt(), footer.getLong(), footer.getLong()));
+        }
+        this.rowGroups = List.copyOf(groups);
+        this.totalRows = footer.getLong();
+    }
+
+    /**
+     * ファイルを開く
+     * 
+     * @param path LCOLファイルのパス
+     * @return リーダー
+     * @throws IOException 読み込みに失敗した場合、または形式が不正な場合
+     */
+    public static ColumnarLocationReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ColumnarLocationReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 行グループのメタデータを取得
+     * 
+     * @return 行グループ情報のリスト
+     */
+    public List<RowGroupInfo> getRowGroups() {
+        return rowGroups;
+    }
+
+    /**
+     * 総行数を取得
+     * 
+     * @return 総行数
+     */
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * すべての行を順に読み出す
+     * 
+     * @param consumer 各行を受け取るコールバック
+     */
+    public void forEach(Consumer<LocationData> consumer) {
+        for (RowGroupInfo group : rowGroups) {
+            readRowGroup(group, consumer);
+        }
+    }
+
+    /**
+     * 1つの行グループを読み出す
+     * 
+     * @param group    行グループ情報
+     * @param consumer 各行を受け取るコールバック
+     */
+    public void readRowGroup(RowGroupInfo group, Consumer<LocationData> consumer) {
+        ByteBuffer in = buffer.duplicate().position(Math.toIntExact(group.offset()));
+        int rows = in.getInt();
+        String[] dictionary = new String[in.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[in.getShort()];
+            in.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int deviceColumn = in.position();
+        int idColumn = deviceColumn + rows * Integer.BYTES;
+        int timestampColumn = idColumn + rows * Long.BYTES;
+        int latitudeColumn = timestampColumn + rows * Long.BYTES;
+        int longitudeColumn = latitudeColumn + rows * Double.BYTES;
+        int bitmapLength = ColumnarLocationWriter.bitmapLength(rows);
+        int altitudeBitmap = longitudeColumn + rows * Double.BYTES;
+        int altitudeColumn = altitudeBitmap + bitmapLength;
+        int accuracyBitmap = altitudeColumn + rows * Double.BYTES;
+        int accuracyColumn = accuracyBitmap + bitmapLength;
+        int rssiBitmap = accuracyColumn + rows * Double.BYTES;
+        int rssiColumn = rssiBitmap + bitmapLength;
+
+        for (int row = 0; row < rows; row++) {
+            consumer.accept(LocationData.builder()
+                    .deviceId(dictionary[in.getInt(deviceColumn + row * Integer.BYTES)])
+                    .id(in.getLong(idColumn + row * Long.BYTES))
+                    .timestamp(LocalDateTime.ofInstant(
+                            Instant.ofEpochMilli(in.getLong(timestampColumn + row * Long.BYTES)), ZoneOffset.UTC))
+                    .latitude(in.getDouble(latitudeColumn + row * Double.BYTES))
+                    .longitude(in.getDouble(longitudeColumn + row * Double.BYTES))
+                    .altitude(isSet(in, altitudeBitmap, row)
+                            ? in.getDouble(altitudeColumn + row * Double.BYTES) : null)
+                    .accuracy(isSet(in, accuracyBitmap, row)
+                            ? in.getDouble(accuracyColumn + row * Double.BYTES) : null)
+                    .rssi(isSet(in, rssiBitmap, row)
+                            ? in.getInt(rssiColumn + row * Integer.BYTES) : null)
+                    .build());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static boolean isSet(ByteBuffer in, int bitmapStart, int row) {
+        return (in.get(bitmapStart + (row >>> 3)) & (1 << (row & 7))) != 0;
+    }
+}
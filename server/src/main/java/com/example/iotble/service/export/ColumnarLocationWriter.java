@@ -0,0 +1,259 @@
+package com.example.iotble.service.export;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.iotble.model.LocationData;
+
+/**
+ * 位置情報を列指向バイナリ形式（LCOL）で書き出すライター
+ * 
+ * 行を行グループ単位でプリミティブ配列に蓄積し、列ごとに連続して書き出します。
+ * 数値はすべてビッグエンディアン、タイムスタンプはUTCとみなしたエポックミリ秒です。
+ * 
+ * <pre>
+ * ファイル   := ヘッダー 行グループ* フッター
+ * ヘッダー   := "LCOL" version(int)
+ * 行グループ := rowCount(int)
+ *               dictSize(int) (byteLength(short) utf8Bytes)*   -- デバイスID辞書
+ *               deviceIndex(int[rowCount])
+ *               id(long[rowCount])
+ *               timestamp(long[rowCount])
+ *               latitude(double[rowCount]) longitude(double[rowCount])
+ *               altitudeBitmap(byte[(rowCount+7)/8]) altitude(double[rowCount])
+ *               accuracyBitmap(byte[(rowCount+7)/8]) accuracy(double[rowCount])
+ *               rssiBitmap(byte[(rowCount+7)/8]) rssi(int[rowCount])
+ * フッター   := groupCount(int) (offset(long) rowCount(int) minTimestamp(long) maxTimestamp(long))*
+ *               totalRows(long) footerLength(int) "LCOL"
+ * </pre>
+ * 
+ * ビットマップのビットが1の行だけ値を持ち、0の行はnullです。
+ * パートファイルには行グループのみを書き出し、ヘッダーとフッターは結合時に付与します。
+ */
+public class ColumnarLocationWriter implements LocationExportWriter {
+
+    /** ファイル先頭と末尾のマジックナンバー */
+    static final byte[] MAGIC = "LCOL".getBytes(StandardCharsets.US_ASCII);
+
+    /** 形式のバージョン */
+    static final int VERSION = 1;
+
+    private final ChannelOutput output;
+    private final int rowGroupSize;
+    private final List<RowGroupInfo> rowGroups = new ArrayList<>();
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> dictionaryEntries = new ArrayList<>();
+    private final int[] deviceIndex;
+    private final long[] ids;
+    private final long[] timestamps;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] altitudes;
+    private final double[] accuracies;
+    private final int[] rssis;
+    private final byte[] altitudePresent;
+    private final byte[] accuracyPresent;
+    private final byte[] rssiPresent;
+    private int size;
+    private long rowCount;
+
+    /**
+     * 列指向ライターを生成
+     * 
+     * @param channel      書き込み先のチャネル
+     * @param bufferSize   書き込みバッファのサイズ（バイト）
+     * @param rowGroupSize 1行グループあたりの最大行数
+     */
+    public ColumnarLocationWriter(FileChannel channel, int bufferSize, int rowGroupSize) {
+        this.output = new ChannelOutput(channel, bufferSize);
+        this.rowGroupSize = rowGroupSize;
+        this.deviceIndex = new int[rowGroupSize];
+        this.ids = new long[rowGroupSize];
+        this.timestamps = new long[rowGroupSize];
+        this.latitudes = new double[rowGroupSize];
+        this.longitudes = new double[rowGroupSize];
+        this.altitudes = new double[rowGroupSize];
+        this.accuracies = new double[rowGroupSize];
+        this.rssis = new int[rowGroupSize];
+        this.altitudePresent = new byte[bitmapLength(rowGroupSize)];
+        this.accuracyPresent = new byte[bitmapLength(rowGroupSize)];
+        this.rssiPresent = new byte[bitmapLength(rowGroupSize)];
+    }
+
+    @Override
+    public void write(LocationData location) throws IOException {
+        int row = size;
+        deviceIndex[row] = dictionary.computeIfAbsent(location.getDeviceId(), key -> {
+            dictionaryEntries.add(key);
+            return dictionaryEntries.size() - 1;
+        });
+        ids[row] = location.getId();
+        timestamps[row] = toEpochMillis(location.getTimestamp());
+        latitudes[row] = location.getLatitude();
+        longitudes[row] = location.getLongitude();
+        if (location.getAltitude() != null) {
+            altitudes[row] = location.getAltitude();
+            setBit(altitudePresent, row);
+        }
+        if (location.getAccuracy() != null) {
+            accuracies[row] = location.getAccuracy();
+            setBit(accuracyPresent, row);
+        }
+        if (location.getRssi() != null) {
+            rssis[row] = location.getRssi();
+            setBit(rssiPresent, row);
+        }
+        size++;
+        rowCount++;
+        if (size == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (size > 0) {
+            flushRowGroup();
+        }
+        output.flush();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 書き出した行グループのメタデータを取得
+     * 
+     * @return パートファイル先頭を基準とした行グループ情報
+     */
+    public List<RowGroupInfo> getRowGroups() {
+        return List.copyOf(rowGroups);
+    }
+
+    /**
+     * ヘッダーを書き出す
+     * 
+     * @param channel 書き込み先のチャネル
+     * @throws IOException 書き込みに失敗した場合
+     */
+    static void writeHeader(FileChannel channel) throws IOException {
+        ChannelOutput header = new ChannelOutput(channel, MAGIC.length + Integer.BYTES);
+        header.put(MAGIC);
+        header.putInt(VERSION);
+        header.flush();
+    }
+
+    /**
+     * 行グループの索引を含むフッターを書き出す
+     * 
+     * @param channel   書き込み先のチャネル
+     * @param rowGroups ファイル先頭を基準とした行グループ情報
+     * @throws IOException 書き込みに失敗した場合
+     */
+    static void writeFooter(FileChannel channel, List<RowGroupInfo> rowGroups) throws IOException {
+        int footerLength = Integer.BYTES + rowGroups.size() * (Long.BYTES * 3 + Integer.BYTES) + Long.BYTES;
+        ChannelOutput footer = new ChannelOutput(channel, footerLength + Integer.BYTES + MAGIC.length);
+        footer.putInt(rowGroups.size());
+        long totalRows = 0;
+        for (RowGroupInfo group : rowGroups) {
+            footer.putLong(group.offset());
+            footer.putInt(group.rowCount());
+            footer.putLong(group.minTimestamp());
+            footer.putLong(group.maxTimestamp());
+            totalRows += group.rowCount();
+        }
+        footer.putLong(totalRows);
+        footer.putInt(footerLength);
+        footer.put(MAGIC);
+        footer.flush();
+    }
+
+    private void flushRowGroup() throws IOException {
+        long offset = output.position();
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minTimestamp = Math.min(minTimestamp, timestamps[i]);
+            maxTimestamp = Math.max(maxTimestamp, timestamps[i]);
+        }
+
+        output.putInt(size);
+        output.putInt(dictionaryEntries.size());
+        for (String entry : dictionaryEntries) {
+            byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+            output.putShort((short) bytes.length);
+            output.put(bytes);
+        }
+        for (int i = 0; i < size; i++) {
+            output.putInt(deviceIndex[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            output.putLong(ids[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            output.putLong(timestamps[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            output.putDouble(latitudes[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            output.putDouble(longitudes[i]);
+        }
+        putBitmap(altitudePresent);
+        for (int i = 0; i < size; i++) {
+            output.putDouble(altitudes[i]);
+        }
+        putBitmap(accuracyPresent);
+        for (int i = 0; i < size; i++) {
+            output.putDouble(accuracies[i]);
+        }
+        putBitmap(rssiPresent);
+        for (int i = 0; i < size; i++) {
+            output.putInt(rssis[i]);
+        }
+
+        rowGroups.add(new RowGroupInfo(offset, size, minTimestamp, maxTimestamp));
+        resetRowGroup();
+    }
+
+    private void putBitmap(byte[] bitmap) throws IOException {
+        for (int i = 0; i < bitmapLength(size); i++) {
+            output.put(bitmap[i]);
+        }
+    }
+
+    private void resetRowGroup() {
+        size = 0;
+        dictionary.clear();
+        dictionaryEntries.clear();
+        Arrays.fill(altitudes, 0);
+        Arrays.fill(accuracies, 0);
+        Arrays.fill(rssis, 0);
+        Arrays.fill(altitudePresent, (byte) 0);
+        Arrays.fill(accuracyPresent, (byte) 0);
+        Arrays.fill(rssiPresent, (byte) 0);
+    }
+
+    static int bitmapLength(int rows) {
+        return (rows + 7) / 8;
+    }
+
+    private static void setBit(byte[] bitmap, int row) {
+        bitmap[row >>> 3] |= (byte) (1 << (row & 7));
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
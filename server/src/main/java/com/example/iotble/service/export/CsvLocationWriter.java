@@ -0,0 +1,109 @@
+package com.example.iotble.service.export;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import com.example.iotble.model.LocationData;
+
+/**
+ * 位置情報をCSV形式で書き出すライター
+ * 
+ * ヘッダー行はパートファイルには含めず、結合時に先頭へ1回だけ書き出します
+ */
+public class CsvLocationWriter implements LocationExportWriter {
+
+    /** CSVのヘッダー行 */
+    static final byte[] HEADER = "id,deviceId,latitude,longitude,altitude,accuracy,rssi,timestamp,createdAt\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte COMMA = ',';
+    private static final byte NEWLINE = '\n';
+    private static final byte QUOTE = '"';
+
+    private final ChannelOutput output;
+    private long rowCount;
+
+    /**
+     * CSVライターを生成
+     * 
+     * @param channel    書き込み先のチャネル
+     * @param bufferSize 書き込みバッファのサイズ（バイト）
+     */
+    public CsvLocationWriter(FileChannel channel, int bufferSize) {
+        this.output = new ChannelOutput(channel, bufferSize);
+    }
+
+    @Override
+    public void write(LocationData location) throws IOException {
+        putAscii(Long.toString(location.getId()));
+        output.put(COMMA);
+        putText(location.getDeviceId());
+        output.put(COMMA);
+        putAscii(Double.toString(location.getLatitude()));
+        output.put(COMMA);
+        putAscii(Double.toString(location.getLongitude()));
+        output.put(COMMA);
+        putNullable(location.getAltitude());
+        output.put(COMMA);
+        putNullable(location.getAccuracy());
+        output.put(COMMA);
+        putNullable(location.getRssi());
+        output.put(COMMA);
+        putTimestamp(location.getTimestamp());
+        output.put(COMMA);
+        putTimestamp(location.getCreatedAt());
+        output.put(NEWLINE);
+        rowCount++;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private void putNullable(Object value) throws IOException {
+        if (value != null) {
+            putAscii(value.toString());
+        }
+    }
+
+    private void putTimestamp(LocalDateTime value) throws IOException {
+        if (value != null) {
+            putAscii(value.toString());
+        }
+    }
+
+    /**
+     * ASCIIのみで構成される値を書き出す（数値・日時用）
+     */
+    private void putAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            output.put((byte) value.charAt(i));
+        }
+    }
+
+    /**
+     * 任意の文字列をUTF-8で書き出し、必要に応じてRFC 4180に従って引用符で囲む
+     */
+    private void putText(String value) throws IOException {
+        boolean needsQuote = false;
+        for (int i = 0; i < value.length() && !needsQuote; i++) {
+            char c = value.charAt(i);
+            needsQuote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuote) {
+            output.put(value.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        output.put(QUOTE);
+        output.put(value.replace("\"", "\"\"").getBytes(StandardCharsets.UTF_8));
+        output.put(QUOTE);
+    }
+}
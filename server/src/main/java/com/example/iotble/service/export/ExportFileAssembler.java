@@ -0,0 +1,66 @@
+package com.example.iotble.service.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * パートファイルを結合して1つのエクスポートファイルを作成するユーティリティ
+ * 
+ * パートファイルの内容は {@link FileChannel#transferTo} で転送するため、
+ * ユーザー空間のバッファを経由せずにコピーされます
+ */
+public final class ExportFileAssembler {
+
+    private ExportFileAssembler() {
+    }
+
+    /**
+     * パートファイルを順に結合し、結合後にパートファイルを削除する
+     * 
+     * @param format 形式
+     * @param target 出力先ファイル
+     * @param parts  時刻順に並んだパートファイル
+     * @return 出力ファイルのサイズ（バイト）
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public static long assemble(ExportFormat format, Path target, List<ExportPart> parts) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            List<RowGroupInfo> rowGroups = new ArrayList<>();
+            if (format == ExportFormat.CSV) {
+                out.write(ByteBuffer.wrap(CsvLocationWriter.HEADER));
+            } else {
+                ColumnarLocationWriter.writeHeader(out);
+            }
+
+            for (ExportPart part : parts) {
+                long base = out.position();
+                try (FileChannel in = FileChannel.open(part.path(), StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long transferred = 0;
+                    while (transferred < size) {
+                        transferred += in.transferTo(transferred, size - transferred, out);
+                    }
+                    out.position(base + size);
+                }
+                part.rowGroups().forEach(group -> rowGroups.add(group.shift(base)));
+            }
+
+            if (format == ExportFormat.COLUMNAR) {
+                ColumnarLocationWriter.writeFooter(out, rowGroups);
+            }
+            out.force(false);
+            return out.size();
+        } finally {
+            for (ExportPart part : parts) {
+                Files.deleteIfExists(part.path());
+            }
+        }
+    }
+}
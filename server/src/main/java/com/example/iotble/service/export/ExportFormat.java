@@ -0,0 +1,61 @@
+package com.example.iotble.service.export;
+
+import java.util.Locale;
+
+/**
+ * エクスポートファイルの形式
+ */
+public enum ExportFormat {
+
+    /** カンマ区切りテキスト（ヘッダー行付き、UTF-8） */
+    CSV("csv", "text/csv"),
+
+    /** 列指向バイナリ形式（{@link ColumnarLocationWriter} を参照） */
+    COLUMNAR("lcol", "application/octet-stream");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    /**
+     * ファイル拡張子を取得
+     * 
+     * @return 拡張子（ドットなし）
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * ダウンロード時のContent-Typeを取得
+     * 
+     * @return Content-Type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * リクエストパラメータから形式を解決
+     * 
+     * @param value 形式名（csv / columnar / lcol、大文字小文字を区別しない）
+     * @return エクスポート形式
+     * @throws IllegalArgumentException 未対応の形式の場合
+     */
+    public static ExportFormat fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (format.name().toLowerCase(Locale.ROOT).equals(normalized) || format.extension.equals(normalized)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("未対応のエクスポート形式です: " + value);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.iotble.service.export;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 1パーティション分のエクスポート結果
+ * 
+ * @param path      パートファイルのパス
+ * @param rowCount  書き出した行数
+ * @param rowGroups 列指向形式の場合の行グループ情報（パートファイル先頭基準、CSVの場合は空）
+ */
+public record ExportPart(Path path, long rowCount, List<RowGroupInfo> rowGroups) {
+}
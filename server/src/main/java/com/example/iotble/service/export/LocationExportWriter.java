@@ -0,0 +1,36 @@
+package com.example.iotble.service.export;
+
+import java.io.IOException;
+
+import com.example.iotble.model.LocationData;
+
+/**
+ * エクスポートの1パーティション分を書き出すライター
+ * 
+ * 各パーティションは独立したパートファイルに書き出され、
+ * 最後に {@link ExportFileAssembler} がひとつのファイルに結合します
+ */
+public interface LocationExportWriter {
+
+    /**
+     * 位置情報を1行書き出す
+     * 
+     * @param location 位置情報
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void write(LocationData location) throws IOException;
+
+    /**
+     * バッファに残っている内容をすべて書き出す
+     * 
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void finish() throws IOException;
+
+    /**
+     * 書き出した行数を取得
+     * 
+     * @return 行数
+     */
+    long getRowCount();
+}
@@ -0,0 +1,22 @@
+package com.example.iotble.service.export;
+
+/**
+ * 列指向ファイル内の行グループのメタデータ
+ * 
+ * @param offset       ファイル先頭からの行グループの開始位置（バイト）
+ * @param rowCount     行数
+ * @param minTimestamp 行グループ内の最小タイムスタンプ（UTCエポックミリ秒）
+ * @param maxTimestamp 行グループ内の最大タイムスタンプ（UTCエポックミリ秒）
+ */
+public record RowGroupInfo(long offset, int rowCount, long minTimestamp, long maxTimestamp) {
+
+    /**
+     * 開始位置をずらした行グループ情報を返す
+     * 
+     * @param delta 加算するバイト数
+     * @return 新しい行グループ情報
+     */
+    public RowGroupInfo shift(long delta) {
+        return new RowGroupInfo(offset + delta, rowCount, minTimestamp, maxTimestamp);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.iotble.service.importer;
+
+import java.util.Locale;
+
+/**
+ * インポートファイルの形式
+ */
+public enum ImportFormat {
+
+    /** ヘッダー行付きのカンマ区切りテキスト（UTF-8） */
+    CSV("csv"),
+
+    /** 1行に1つのJSONオブジェクトを記述したテキスト（UTF-8） */
+    NDJSON("ndjson");
+
+    private final String extension;
+
+    ImportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * ファイル拡張子を取得
+     * 
+     * @return 拡張子（ドットなし）
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * リクエストパラメータから形式を解決
+     * 
+     * @param value 形式名（csv / ndjson / jsonl、大文字小文字を区別しない）
+     * @return インポート形式
+     * @throws IllegalArgumentException 未対応の形式の場合
+     */
+    public static ImportFormat fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        return switch (normalized) {
+            case "csv" -> CSV;
+            case "ndjson", "jsonl" -> NDJSON;
+            default -> throw new IllegalArgumentException("未対応のインポート形式です: " + value);
+        };
+    }
+}
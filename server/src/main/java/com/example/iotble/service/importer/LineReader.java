@@ -0,0 +1,90 @@
+package com.example.iotble.service.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * バイト位置を追跡しながらUTF-8テキストを1行ずつ読み込むリーダー
+ * 
+ * {@link java.io.BufferedReader} と異なり、読み込んだ行の直後のバイト位置が分かるため、
+ * チェックポイントから正確に読み込みを再開できます
+ */
+public final class LineReader implements Closeable {
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private byte[] line = new byte[256];
+    private int bufferLength;
+    private int bufferPosition;
+    private long offset;
+
+    /**
+     * リーダーを生成
+     * 
+     * @param in          入力ストリーム（startOffset の位置に移動済みであること）
+     * @param startOffset 入力ストリームの現在のバイト位置
+     * @param bufferSize  読み込みバッファのサイズ
+     */
+    public LineReader(InputStream in, long startOffset, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+        this.offset = startOffset;
+    }
+
+    /**
+     * 次の1行を読み込む
+     * 
+     * 行末の改行（LF または CRLF）は含みません
+     * 
+     * @return 読み込んだ行（ファイル末尾の場合はnull）
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public String readLine() throws IOException {
+        int length = 0;
+        boolean read = false;
+        while (true) {
+            if (bufferPosition == bufferLength) {
+                bufferLength = in.read(buffer);
+                bufferPosition = 0;
+                if (bufferLength <= 0) {
+                    bufferLength = 0;
+                    return read ? decode(length) : null;
+                }
+            }
+            read = true;
+            byte b = buffer[bufferPosition++];
+            offset++;
+            if (b == '\n') {
+                return decode(length);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[length++] = b;
+        }
+    }
+
+    /**
+     * 最後に読み込んだ行の直後のバイト位置を取得
+     * 
+     * @return バイト位置
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String decode(int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+}
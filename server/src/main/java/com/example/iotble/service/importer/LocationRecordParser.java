@@ -0,0 +1,204 @@
+package com.example.iotble.service.importer;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.example.iotble.core.LocationValidator;
+import com.example.iotble.model.LocationData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * インポートファイルの1行を位置情報に変換して検証するパーサー
+ * 
+ * 検証には {@code POST /api/locations} と同じBean Validationの制約と {@link LocationValidator} の検証
+ * （緯度・経度の範囲とデバイスIDの長さ）を使用し、固定小数点の列に保存できない値も拒否します。
+ * インスタンスは不変でスレッドセーフなため、複数のワーカーから同時に使用できます。
+ */
+public final class LocationRecordParser {
+
+    private static final List<String> CSV_FIELDS =
+            List.of("deviceId", "latitude", "longitude", "altitude", "accuracy", "rssi", "timestamp");
+
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int[] csvColumns;
+
+    private LocationRecordParser(ImportFormat format, ObjectMapper objectMapper, Validator validator,
+            int[] csvColumns) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.csvColumns = csvColumns;
+    }
+
+    /**
+     * NDJSON用のパーサーを生成
+     * 
+     * @param objectMapper JSONの変換に使用するObjectMapper
+     * @param validator    Bean Validationのバリデーター
+     * @return パーサー
+     */
+    public static LocationRecordParser forNdjson(ObjectMapper objectMapper, Validator validator) {
+        return new LocationRecordParser(ImportFormat.NDJSON, objectMapper, validator, null);
+    }
+
+    /**
+     * CSV用のパーサーを生成
+     * 
+     * ヘッダー行の列名で各項目の位置を決定します。id や createdAt など
+     * 未知の列は無視されます（エクスポートしたCSVをそのまま取り込めます）。
+     * 
+     * @param header    ヘッダー行
+     * @param validator Bean Validationのバリデーター
+     * @return パーサー
+     * @throws IllegalArgumentException 必須の列がヘッダーにない場合
+     */
+    public static LocationRecordParser forCsv(String header, Validator validator) {
+        List<String> columns = splitCsv(header);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            positions.put(columns.get(i).trim(), i);
+        }
+        int[] csvColumns = new int[CSV_FIELDS.size()];
+        for (int i = 0; i < CSV_FIELDS.size(); i++) {
+            csvColumns[i] = positions.getOrDefault(CSV_FIELDS.get(i), -1);
+        }
+        for (String required : List.of("deviceId", "latitude", "longitude")) {
+            if (!positions.containsKey(required)) {
+                throw new IllegalArgumentException("CSVヘッダーに必須の列がありません: " + required);
+            }
+        }
+        return new LocationRecordParser(ImportFormat.CSV, null, validator, csvColumns);
+    }
+
+    /**
+     * 1行を位置情報に変換して検証
+     * 
+     * タイムスタンプが省略されている場合は defaultTimestamp を設定します
+     * 
+     * @param line             行の内容
+     * @param defaultTimestamp タイムスタンプ省略時に使用する時刻
+     * @return 検証済みの位置情報
+     * @throws IllegalArgumentException 変換または検証に失敗した場合（メッセージが理由）
+     */
+    public LocationData parse(String line, LocalDateTime defaultTimestamp) {
+        LocationData location = format == ImportFormat.CSV ? parseCsv(line) : parseJson(line);
+        if (location.getTimestamp() == null) {
+            location.setTimestamp(defaultTimestamp);
+        }
+        Set<ConstraintViolation<LocationData>> violations = validator.validate(location);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        Map<String, String> errors = LocationValidator.validate(location.toPoint());
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join(", ", errors.values()));
+        }
+        // 高度・精度・信号強度が整数の列に収まらない場合やNaN・無限大の場合はここで拒否される
+        location.toPacked();
+        return location;
+    }
+
+    private LocationData parseJson(String line) {
+        try {
+            LocationData location = objectMapper.readValue(line, LocationData.class);
+            if (location == null) {
+                throw new IllegalArgumentException("JSONオブジェクトではありません");
+            }
+            // サーバーが設定する項目はファイルの値を使わない
+            location.setId(null);
+            location.setCreatedAt(null);
+            location.setSiteId(null);
+            location.setSmoothedLatitude(null);
+            location.setSmoothedLongitude(null);
+            return location;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSONの形式が不正です: " + e.getOriginalMessage());
+        }
+    }
+
+    private LocationData parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        try {
+            return LocationData.builder()
+                    .deviceId(value(values, 0))
+                    .latitude(toDouble(value(values, 1)))
+                    .longitude(toDouble(value(values, 2)))
+                    .altitude(toDouble(value(values, 3)))
+                    .accuracy(toDouble(value(values, 4)))
+                    .rssi(toInteger(value(values, 5)))
+                    .timestamp(toTimestamp(value(values, 6)))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("数値の形式が不正です: " + e.getMessage());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("タイムスタンプの形式が不正です: " + e.getParsedString());
+        }
+    }
+
+    private String value(List<String> values, int field) {
+        int column = csvColumns[field];
+        if (column < 0 || column >= values.size()) {
+            return null;
+        }
+        String value = values.get(column);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Double toDouble(String value) {
+        return value != null ? Double.valueOf(value.trim()) : null;
+    }
+
+    private static Integer toInteger(String value) {
+        return value != null ? Integer.valueOf(value.trim()) : null;
+    }
+
+    private static LocalDateTime toTimestamp(String value) {
+        return value != null ? LocalDateTime.parse(value.trim()) : null;
+    }
+
+    /**
+     * RFC 4180に従ってCSVの1行を分割する（引用符内の改行には対応しない）
+     */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
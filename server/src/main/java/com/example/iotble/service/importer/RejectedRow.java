@@ -0,0 +1,10 @@
+package com.example.iotble.service.importer;
+
+/**
+ * 取り込めなかった行
+ * 
+ * @param lineNumber 行番号（1始まり、ヘッダー行を含む）
+ * @param reason     取り込めなかった理由
+ */
+public record RejectedRow(long lineNumber, String reason) {
+}
@@ -0,0 +1,33 @@
+package com.example.iotble.service.pipeline;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.example.iotble.core.KalmanSmoother;
+
+/**
+ * カルマンフィルターによる平滑化を保存前の処理として登録
+ *
+ * 平滑化の処理は {@link KalmanSmoother} にあり、ここでは設定値を渡すだけです
+ */
+@Component
+@Order(KalmanSmoothingStage.ORDER)
+@ConditionalOnProperty(prefix = "iotble.smoothing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class KalmanSmoothingStage extends KalmanSmoother {
+
+    /** 他の処理との順序 */
+    public static final int ORDER = 100;
+
+    public KalmanSmoothingStage(
+            @Value("${iotble.smoothing.process-noise-mps:3.0}") double processNoise,
+            @Value("${iotble.smoothing.default-accuracy-meters:25.0}") double defaultAccuracy,
+            @Value("${iotble.smoothing.rssi-reference-dbm:-60}") double rssiReference,
+            @Value("${iotble.smoothing.max-rssi-variance-factor:16.0}") double maxRssiFactor,
+            @Value("${iotble.smoothing.idle-eviction-minutes:60}") long idleMinutes) {
+        super(processNoise, defaultAccuracy, rssiReference, maxRssiFactor, TimeUnit.MINUTES.toMillis(idleMinutes));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.iotble.shard;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * 読み取り専用の接続を現在のシャードのレプリカまたはプライマリに振り分けるデータソース
+ *
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy#setReadOnlyDataSource} に設定し、
+ * {@code @Transactional(readOnly = true)} の処理の接続だけをこのデータソースから取得させます。
+ * どちらに振り分けるかは {@link ReplicaSelector} が判定します
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String REPLICA_SUFFIX = "#replica";
+
+    private final ShardTemplate shardTemplate;
+    private final ReplicaSelector replicaSelector;
+
+    /**
+     * データソースを生成
+     *
+     * @param shardTemplate   シャードの定義
+     * @param replicaSelector レプリカの判定処理
+     */
+    public ReplicaRoutingDataSource(ShardTemplate shardTemplate, ReplicaSelector replicaSelector) {
+        this.shardTemplate = shardTemplate;
+        this.replicaSelector = replicaSelector;
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        for (String shard : shardTemplate.getShardNames()) {
+            targets.put(shard, shardTemplate.getDataSource(shard));
+            if (replicaSelector.getReplica(shard) != null) {
+                targets.put(shard + REPLICA_SUFFIX, replicaSelector.getReplica(shard));
+            }
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shardTemplate.getDataSource(shardTemplate.getDefaultShard()));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardContext.current() != null ? ShardContext.current() : shardTemplate.getDefaultShard();
+        if (ShardContext.isPrimaryRequired()) {
+            return shard;
+        }
+        return replicaSelector.useReplica(shard, ShardContext.currentDevice()) ? shard + REPLICA_SUFFIX : shard;
+    }
+}
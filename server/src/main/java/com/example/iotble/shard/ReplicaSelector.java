@@ -0,0 +1,231 @@
+package com.example.iotble.shard;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 読み取り専用の処理をレプリカとプライマリのどちらで実行するかを判定する
+ *
+ * 次の場合はレプリカではなくプライマリから読み出します。
+ * <ul>
+ * <li>シャードにレプリカが設定されていない</li>
+ * <li>レプリカの遅延が許容値を超えている、または遅延を測定できない</li>
+ * <li>デバイス単位の読み出しで、そのデバイスが直近に書き込みを行っている（read-your-writes）</li>
+ * </ul>
+ * 遅延はプライマリのハートビート表に書き込んだ時刻がレプリカに届くまでの差で測定します
+ */
+@Slf4j
+public class ReplicaSelector implements AutoCloseable {
+
+    private static final String HEARTBEAT_TABLE = "replica_heartbeat";
+
+    private final ShardTemplate shardTemplate;
+    private final Map<String, DataSource> replicas;
+    private final long pinWindowNanos;
+    private final long maxLagMillis;
+
+    /** シャードごとに最後に測定したレプリカの遅延（ミリ秒、測定できない場合は存在しない） */
+    private final Map<String, Long> lagMillis = new ConcurrentHashMap<>();
+
+    /** デバイスごとの最終書き込み時刻（System.nanoTime） */
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    /**
+     * 判定処理を生成
+     *
+     * @param shardTemplate シャードの定義（プライマリのデータソース）
+     * @param replicas      シャード名ごとのレプリカのデータソース（レプリカのないシャードは含めない）
+     * @param pinWindow     書き込み後にデバイスの読み出しをプライマリに固定する時間
+     * @param maxLag        レプリカから読み出す遅延の上限
+     */
+    public ReplicaSelector(ShardTemplate shardTemplate, Map<String, DataSource> replicas, Duration pinWindow,
+            Duration maxLag) {
+        if (!shardTemplate.getShardNames().containsAll(replicas.keySet())) {
+            throw new IllegalArgumentException("replicas must belong to configured shards");
+        }
+        this.shardTemplate = shardTemplate;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.pinWindowNanos = pinWindow.toNanos();
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    /**
+     * レプリカが1つも設定されていない判定処理を生成
+     *
+     * @param shardTemplate シャードの定義
+     * @return 常にプライマリを選択する判定処理
+     */
+    public static ReplicaSelector none(ShardTemplate shardTemplate) {
+        return new ReplicaSelector(shardTemplate, Map.of(), Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * レプリカが設定されているか
+     *
+     * @return 1つ以上のシャードにレプリカがある場合true
+     */
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * シャードのレプリカのデータソースを取得
+     *
+     * @param shard シャード名
+     * @return データソース（レプリカがない場合はnull）
+     */
+    public DataSource getReplica(String shard) {
+        return replicas.get(shard);
+    }
+
+    /**
+     * 最後に測定したレプリカの遅延を取得
+     *
+     * @param shard シャード名
+     * @return 遅延（ミリ秒、未測定または測定できない場合は空）
+     */
+    public OptionalLong getLagMillis(String shard) {
+        Long lag = lagMillis.get(shard);
+        return lag == null ? OptionalLong.empty() : OptionalLong.of(lag);
+    }
+
+    /**
+     * 読み取り専用の処理をレプリカで実行するか判定
+     *
+     * @param shard    シャード名
+     * @param deviceId 処理対象のデバイスID（デバイスをまたぐ処理の場合はnull）
+     * @return レプリカで実行する場合true
+     */
+    public boolean useReplica(String shard, String deviceId) {
+        if (!replicas.containsKey(shard)) {
+            return false;
+        }
+        Long lag = lagMillis.get(shard);
+        if (lag == null || lag > maxLagMillis) {
+            return false;
+        }
+        return deviceId == null || !isPinned(deviceId);
+    }
+
+    /**
+     * デバイスの書き込みを記録し、一定時間そのデバイスの読み出しをプライマリに固定
+     *
+     * @param deviceId デバイスID
+     */
+    public void recordWrite(String deviceId) {
+        if (hasReplicas() && deviceId != null) {
+            lastWrites.put(deviceId, System.nanoTime());
+        }
+    }
+
+    /**
+     * デバイスの読み出しがプライマリに固定されているか
+     *
+     * @param deviceId デバイスID
+     * @return 固定されている場合true
+     */
+    public boolean isPinned(String deviceId) {
+        Long writtenAt = lastWrites.get(deviceId);
+        return writtenAt != null && System.nanoTime() - writtenAt < pinWindowNanos;
+    }
+
+    /**
+     * 全シャードのハートビートを更新してレプリカの遅延を測定
+     *
+     * あわせて固定時間を過ぎたデバイスの書き込み記録を削除します
+     */
+    public void checkLag() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(writtenAt -> now - writtenAt >= pinWindowNanos);
+        replicas.forEach((shard, replica) -> {
+            Long previous = lagMillis.get(shard);
+            Long lag = measureLag(shard, replica);
+            if (lag == null) {
+                lagMillis.remove(shard);
+            } else {
+                lagMillis.put(shard, lag);
+            }
+            boolean wasHealthy = previous != null && previous <= maxLagMillis;
+            boolean healthy = lag != null && lag <= maxLagMillis;
+            if (wasHealthy && !healthy) {
+                log.warn("レプリカの遅延が上限を超えたため読み出しをプライマリに切り替えます: shard={}, 遅延={}ms", shard, lag);
+            } else if (!wasHealthy && healthy) {
+                log.info("レプリカからの読み出しを再開します: shard={}, 遅延={}ms", shard, lag);
+            }
+        });
+    }
+
+    private Long measureLag(String shard, DataSource replica) {
+        long beatAt = System.currentTimeMillis();
+        try {
+            writeHeartbeat(shardTemplate.getDataSource(shard), shard, beatAt);
+        } catch (SQLException e) {
+            log.warn("ハートビートを書き込めませんでした: shard={}", shard, e);
+            return null;
+        }
+        try (Connection connection = replica.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT beat_at FROM " + HEARTBEAT_TABLE + " WHERE shard = ?")) {
+            statement.setString(1, shard);
+            try (ResultSet result = statement.executeQuery()) {
+                // レプリカに届いた最新のハートビートが書き込み時刻からどれだけ遅れているか
+                return result.next() ? Math.max(0, beatAt - result.getTimestamp(1).getTime()) : null;
+            }
+        } catch (SQLException e) {
+            log.debug("レプリカのハートビートを読み出せませんでした: shard={}", shard, e);
+            return null;
+        }
+    }
+
+    private static void writeHeartbeat(DataSource primary, String shard, long beatAt) throws SQLException {
+        try (Connection connection = primary.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + HEARTBEAT_TABLE
+                        + " (shard VARCHAR(64) PRIMARY KEY, beat_at TIMESTAMP NOT NULL)");
+            }
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE " + HEARTBEAT_TABLE + " SET beat_at = ? WHERE shard = ?")) {
+                update.setTimestamp(1, new Timestamp(beatAt));
+                update.setString(2, shard);
+                if (update.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO " + HEARTBEAT_TABLE + " (shard, beat_at) VALUES (?, ?)")) {
+                insert.setString(1, shard);
+                insert.setTimestamp(2, new Timestamp(beatAt));
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * レプリカのデータソースを閉じる
+     */
+    @Override
+    public void close() {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("レプリカのデータソースを閉じられませんでした", e);
+                }
+            }
+        }
+    }
+}
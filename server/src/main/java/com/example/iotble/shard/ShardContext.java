@@ -0,0 +1,68 @@
+package com.example.iotble.shard;
+
+/**
+ * 現在のスレッドで使用するシャードを保持する
+ * 
+ * {@link ShardTemplate} が設定し、{@link ShardRoutingDataSource} と {@link ReplicaRoutingDataSource} が
+ * 接続の取得時に参照します。デバイス単位の処理ではデバイスIDも保持し、
+ * 書き込み直後のデバイスの読み出しをプライマリに固定する判定に使用します。
+ * 書き込みトランザクションから並列実行した処理や {@link ShardTemplate#readFromPrimary} の範囲では、
+ * 読み出しをプライマリに固定するフラグを保持します
+ */
+final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<String> DEVICE = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    static String current() {
+        return CURRENT.get();
+    }
+
+    static String set(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static String currentDevice() {
+        return DEVICE.get();
+    }
+
+    static String setDevice(String deviceId) {
+        String previous = DEVICE.get();
+        DEVICE.set(deviceId);
+        return previous;
+    }
+
+    static void restoreDevice(String previous) {
+        if (previous == null) {
+            DEVICE.remove();
+        } else {
+            DEVICE.set(previous);
+        }
+    }
+
+    static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+
+    static void requirePrimary(boolean required) {
+        if (required) {
+            PRIMARY.set(Boolean.TRUE);
+        } else {
+            PRIMARY.remove();
+        }
+    }
+}
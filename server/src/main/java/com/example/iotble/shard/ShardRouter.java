@@ -0,0 +1,91 @@
+package com.example.iotble.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * デバイスIDからシャードを決定するコンシステントハッシュのルーター
+ * 
+ * 各シャードを仮想ノードとしてハッシュリング上に複数配置し、デバイスIDのハッシュ値から
+ * 時計回りに最初に見つかったシャードに割り当てます。シャードを追加した場合に移動するのは
+ * 新しいシャードに割り当てられるデバイスのみです
+ */
+public class ShardRouter {
+
+    private final List<String> shards;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * ルーターを生成
+     * 
+     * @param shards       シャード名（先頭が既定のシャード）
+     * @param virtualNodes シャードあたりの仮想ノード数
+     */
+    public ShardRouter(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtual-nodes must be positive");
+        }
+        this.shards = List.copyOf(shards);
+        if (new HashSet<>(this.shards).size() != this.shards.size()) {
+            throw new IllegalArgumentException("shard names must be unique");
+        }
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                String previous = ring.put(hash(shard + "#" + i), shard);
+                if (previous != null && !previous.equals(shard)) {
+                    throw new IllegalStateException("hash collision between shards: " + previous + ", " + shard);
+                }
+            }
+        }
+    }
+
+    /**
+     * デバイスIDが割り当てられるシャードを取得
+     * 
+     * @param deviceId デバイスID
+     * @return シャード名
+     */
+    public String shardFor(String deviceId) {
+        if (shards.size() == 1) {
+            return shards.get(0);
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(deviceId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * シャード名の一覧を取得
+     * 
+     * @return シャード名（設定順）
+     */
+    public List<String> getShards() {
+        return shards;
+    }
+
+    /**
+     * 文字列の64ビットハッシュ値（MD5の先頭8バイト）を計算
+     */
+    static long hash(String value) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+}
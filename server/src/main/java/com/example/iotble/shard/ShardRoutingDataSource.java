@@ -0,0 +1,34 @@
+package com.example.iotble.shard;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * 現在のスレッドのシャードに接続を振り分けるデータソース
+ * 
+ * シャードが指定されていない場合は既定のシャード（設定の先頭）に接続します。
+ * トランザクション開始後にシャードを指定できるよう、
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} で包んで使用します
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * データソースを生成
+     * 
+     * @param shardTemplate シャードの定義
+     */
+    public ShardRoutingDataSource(ShardTemplate shardTemplate) {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        shardTemplate.getShardNames().forEach(shard -> targets.put(shard, shardTemplate.getDataSource(shard)));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shardTemplate.getDataSource(shardTemplate.getDefaultShard()));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.iotble.shard;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 既定のシャード以外のシャードにスキーマを作成する
+ * 
+ * スキーマはJPAが既定のシャードに作成したものをH2の {@code SCRIPT NODATA} で書き出して適用します。
+ * すでに位置情報テーブルがあるシャードには何もしません。シャードをまたいでIDが重複しないよう、
+ * 新しく作成したシャードの位置情報IDはシャードの番号ごとに異なる値から採番させます。
+ * サイトごとに分けたデータベース（{@link com.example.iotble.site.SiteTemplate}）にも同じ手順でスキーマを作成します
+ */
+@Slf4j
+public class ShardSchemaInitializer {
+
+    /** シャード番号ごとのID範囲の幅（2^48。31シャードまでJavaScriptの安全な整数に収まる） */
+    static final int ID_RANGE_BITS = 48;
+
+    private static final String LOCATION_TABLE = "LOCATION_DATA";
+
+    /** 名前ごとのデータソース（先頭がスキーマの作成元） */
+    private final Map<String, DataSource> partitions;
+
+    public ShardSchemaInitializer(ShardTemplate shardTemplate) {
+        this(shardTemplate.isSharded() ? dataSources(shardTemplate) : Map.of());
+    }
+
+    /**
+     * @param partitions 名前ごとのデータソース（先頭のデータソースのスキーマを他に作成する）
+     */
+    public ShardSchemaInitializer(Map<String, DataSource> partitions) {
+        this.partitions = new LinkedHashMap<>(partitions);
+    }
+
+    /**
+     * スキーマのないシャードにスキーマを作成
+     * 
+     * @return スキーマを作成したシャード数
+     */
+    public int initialize() {
+        if (partitions.size() <= 1) {
+            return 0;
+        }
+        List<String> shards = List.copyOf(partitions.keySet());
+        List<String> ddl = null;
+        int created = 0;
+        for (int index = 1; index < shards.size(); index++) {
+            DataSource dataSource = partitions.get(shards.get(index));
+            try (Connection connection = dataSource.getConnection()) {
+                if (hasLocationTable(connection)) {
+                    continue;
+                }
+                if (ddl == null) {
+                    ddl = exportSchema(partitions.get(shards.get(0)));
+                }
+                long firstId = ((long) index << ID_RANGE_BITS) + 1;
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : ddl) {
+                        statement.execute(sql);
+                    }
+                    statement.execute("ALTER TABLE location_data ALTER COLUMN id RESTART WITH " + firstId);
+                }
+                created++;
+                log.info("スキーマを作成しました: partition={}", shards.get(index));
+            } catch (SQLException e) {
+                throw new IllegalStateException("スキーマを作成できませんでした: " + shards.get(index), e);
+            }
+        }
+        return created;
+    }
+
+    private static Map<String, DataSource> dataSources(ShardTemplate shardTemplate) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        shardTemplate.getShardNames().forEach(shard -> dataSources.put(shard, shardTemplate.getDataSource(shard)));
+        return dataSources;
+    }
+
+    private static boolean hasLocationTable(Connection connection) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, LOCATION_TABLE, new String[] { "TABLE" })) {
+            return tables.next();
+        }
+    }
+
+    private static List<String> exportSchema(DataSource dataSource) throws SQLException {
+        List<String> ddl = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet script = statement.executeQuery("SCRIPT NODATA")) {
+            while (script.next()) {
+                String sql = script.getString(1);
+                if (!sql.startsWith("--") && !sql.startsWith("CREATE USER")) {
+                    ddl.add(sql);
+                }
+            }
+        }
+        return ddl;
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.iotble.shard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * シャードを指定して処理を実行するテンプレート
+ * 
+ * デバイス単位の処理はデバイスIDのシャードで実行し、デバイスをまたぐ処理は
+ * 全シャードで並列に実行して結果を集めます（スキャッター・ギャザー）。
+ * シャードが1つの場合は呼び出し元のスレッドでそのまま実行します
+ */
+@Slf4j
+public class ShardTemplate implements AutoCloseable {
+
+    /** シャードを設定していない場合のシャード名 */
+    public static final String DEFAULT_SHARD = "default";
+
+    private final ShardRouter router;
+    private final Map<String, DataSource> dataSources;
+    private final ExecutorService executor;
+
+    /**
+     * テンプレートを生成
+     * 
+     * @param router      シャードのルーター
+     * @param dataSources シャード名ごとのデータソース（ルーターと同じ順序）
+     */
+    public ShardTemplate(ShardRouter router, Map<String, DataSource> dataSources) {
+        if (!dataSources.isEmpty() && !List.copyOf(dataSources.keySet()).equals(router.getShards())) {
+            throw new IllegalArgumentException("data sources must match the router's shards");
+        }
+        this.router = router;
+        this.dataSources = new LinkedHashMap<>(dataSources);
+        if (router.getShards().size() > 1) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(router.getShards().size(), runnable -> {
+                Thread thread = new Thread(runnable, "shard-query-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * シャードを1つだけ持ち、呼び出し元のデータソースをそのまま使うテンプレートを生成
+     * 
+     * @return テンプレート
+     */
+    public static ShardTemplate direct() {
+        return new ShardTemplate(new ShardRouter(List.of(DEFAULT_SHARD), 1), Map.of());
+    }
+
+    /**
+     * シャード名の一覧を取得
+     * 
+     * @return シャード名（設定順）
+     */
+    public List<String> getShardNames() {
+        return router.getShards();
+    }
+
+    /**
+     * 既定のシャード（位置情報以外のテーブルを置くシャード）を取得
+     * 
+     * @return シャード名
+     */
+    public String getDefaultShard() {
+        return router.getShards().get(0);
+    }
+
+    /**
+     * 複数のシャードに分割されているか
+     * 
+     * @return シャードが2つ以上の場合true
+     */
+    public boolean isSharded() {
+        return router.getShards().size() > 1;
+    }
+
+    /**
+     * デバイスIDが割り当てられるシャードを取得
+     * 
+     * @param deviceId デバイスID
+     * @return シャード名
+     */
+    public String shardFor(String deviceId) {
+        return router.shardFor(deviceId);
+    }
+
+    /**
+     * シャードのデータソースを取得
+     * 
+     * @param shard シャード名
+     * @return データソース（{@link #direct()} で生成した場合はnull）
+     */
+    public DataSource getDataSource(String shard) {
+        return dataSources.get(shard);
+    }
+
+    /**
+     * シャードを指定して処理を実行
+     * 
+     * 処理内で最初に取得されるデータベース接続が指定したシャードに振り分けられます
+     * 
+     * @param shard シャード名
+     * @param work  処理
+     * @return 処理結果
+     */
+    public <T> T onShard(String shard, Supplier<T> work) {
+        String previous = ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    /**
+     * シャードを指定して戻り値のない処理を実行
+     * 
+     * @param shard シャード名
+     * @param work  処理
+     */
+    public void runOnShard(String shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * デバイスIDのシャードで処理を実行
+     * 
+     * @param deviceId デバイスID
+     * @param work     処理
+     * @return 処理結果
+     */
+    public <T> T onDevice(String deviceId, Supplier<T> work) {
+        String previous = ShardContext.setDevice(deviceId);
+        try {
+            return onShard(shardFor(deviceId), work);
+        } finally {
+            ShardContext.restoreDevice(previous);
+        }
+    }
+
+    /**
+     * 読み出しをプライマリに固定する範囲を開始
+     *
+     * レプリカの遅れた内容を返してはならない処理（応答に現在のバージョンを付ける処理など）で使います。
+     * 範囲内の読み出しと、範囲内から並列実行した処理の読み出しはプライマリで行います
+     *
+     * @return 固定を解除する範囲
+     */
+    public PrimaryScope readFromPrimary() {
+        boolean previous = ShardContext.isPrimaryRequired();
+        ShardContext.requirePrimary(true);
+        return new PrimaryScope(previous);
+    }
+
+    /**
+     * 全シャードで処理を並列に実行
+     * 
+     * @param work シャード名を受け取る処理
+     * @return シャードごとの処理結果（設定順）
+     */
+    public <T> List<T> scatter(Function<String, T> work) {
+        if (executor == null) {
+            String shard = getDefaultShard();
+            return Collections.singletonList(onShard(shard, () -> work.apply(shard)));
+        }
+        // 書き込みトランザクションやプライマリに固定した範囲からの呼び出しでは、並列実行する読み出しもプライマリで行う
+        boolean primaryRequired = ShardContext.isPrimaryRequired()
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (String shard : router.getShards()) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                ShardContext.requirePrimary(primaryRequired);
+                try {
+                    return onShard(shard, () -> work.apply(shard));
+                } finally {
+                    ShardContext.requirePrimary(false);
+                }
+            }, executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * シャードごとに整列済みの結果を1つの順序に併合
+     * 
+     * @param parts シャードごとの結果（それぞれ order の順に整列済み）
+     * @param order 並び順
+     * @param limit 最大件数（0以下の場合は無制限）
+     * @return 併合した結果
+     */
+    public static <T> List<T> mergeSorted(List<List<T>> parts, Comparator<? super T> order, int limit) {
+        if (parts.size() == 1) {
+            List<T> only = parts.get(0);
+            return limit > 0 && only.size() > limit ? only.subList(0, limit) : only;
+        }
+        // 各シャードの先頭要素を優先度付きキューに入れて順に取り出す
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+                (a, b) -> order.compare(parts.get(a[0]).get(a[1]), parts.get(b[0]).get(b[1])));
+        int total = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            total += parts.get(i).size();
+            if (!parts.get(i).isEmpty()) {
+                heads.add(new int[] { i, 0 });
+            }
+        }
+        int size = limit > 0 ? Math.min(limit, total) : total;
+        List<T> merged = new ArrayList<>(size);
+        while (merged.size() < size) {
+            int[] head = heads.poll();
+            List<T> part = parts.get(head[0]);
+            merged.add(part.get(head[1]));
+            if (head[1] + 1 < part.size()) {
+                heads.add(new int[] { head[0], head[1] + 1 });
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 並列実行用のスレッドを停止し、シャードのデータソースを閉じる
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("シャードのデータソースを閉じられませんでした", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 読み出しをプライマリに固定する範囲
+     */
+    public static final class PrimaryScope implements AutoCloseable {
+
+        private final boolean previous;
+
+        private PrimaryScope(boolean previous) {
+            this.previous = previous;
+        }
+
+        /**
+         * 固定する前の状態に戻す
+         */
+        @Override
+        public void close() {
+            ShardContext.requirePrimary(previous);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.iotble.site;
+
+/**
+ * 現在のスレッドで処理しているサイトを保持する
+ *
+ * {@link SiteTemplate} が設定し、{@link SiteRoutingDataSource} が接続の取得時に参照します
+ */
+final class SiteContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private SiteContext() {
+    }
+
+    static String current() {
+        return CURRENT.get();
+    }
+
+    static String set(String site) {
+        String previous = CURRENT.get();
+        CURRENT.set(site);
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
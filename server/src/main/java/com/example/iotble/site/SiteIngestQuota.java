@@ -0,0 +1,189 @@
+package com.example.iotble.site;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * サイトごとの位置情報の取り込み量の上限（トークンバケット）
+ *
+ * サイトごとに1秒あたりの件数と一時的に超えてよい件数（バースト）を設定し、
+ * あるサイトのバックフィルや大量の再送が他のサイトの取り込みを圧迫しないようにします。
+ * 位置情報の登録は上限を超えると断り（{@link #tryAcquire}）、インポートは上限の速度まで待たせます（{@link #acquire}）。
+ * 上限を設定していないサイトは常に受け付けます
+ */
+public class SiteIngestQuota {
+
+    private final Map<String, Bucket> buckets = new LinkedHashMap<>();
+    private final LongSupplier nanoClock;
+
+    /**
+     * 取り込み量の上限を生成
+     *
+     * @param limits サイトIDごとの上限（設定しないサイトは無制限）
+     */
+    public SiteIngestQuota(Map<String, Limit> limits) {
+        this(limits, System::nanoTime);
+    }
+
+    SiteIngestQuota(Map<String, Limit> limits, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        long now = nanoClock.getAsLong();
+        limits.forEach((site, limit) -> buckets.put(site, new Bucket(limit, now)));
+    }
+
+    /**
+     * 上限を超えない場合だけ取り込み枠を確保
+     *
+     * @param site   サイトID
+     * @param points 取り込む件数
+     * @return 確保できた場合true
+     */
+    public boolean tryAcquire(String site, int points) {
+        Bucket bucket = buckets.get(site);
+        return bucket == null || bucket.tryTake(points, nanoClock.getAsLong());
+    }
+
+    /**
+     * 上限の速度に収まるまで待ってから取り込み枠を確保
+     *
+     * バーストを超える件数でも、不足分を上限の速度で補える時間だけ待てば確保できます
+     *
+     * @param site   サイトID
+     * @param points 取り込む件数
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    public void acquire(String site, int points) throws InterruptedException {
+        Bucket bucket = buckets.get(site);
+        if (bucket == null) {
+            return;
+        }
+        long waitNanos = bucket.reserve(points, nanoClock.getAsLong());
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 断った取り込みが再試行できるまでの秒数
+     *
+     * @param site    サイトID
+     * @param minimum 最短の秒数
+     * @return 1件分の枠が空くまでの秒数（最短の秒数以上）
+     */
+    public long retryAfterSeconds(String site, long minimum) {
+        Bucket bucket = buckets.get(site);
+        if (bucket == null) {
+            return minimum;
+        }
+        return Math.max(minimum, (long) Math.ceil(bucket.secondsUntil(1, nanoClock.getAsLong())));
+    }
+
+    /**
+     * サイトごとの取り込み量を取得
+     *
+     * @return サイトIDごとの取り込み量（上限を設定したサイトのみ、設定順）
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        long now = nanoClock.getAsLong();
+        buckets.forEach((site, bucket) -> stats.put(site, bucket.stats(now)));
+        return stats;
+    }
+
+    /**
+     * サイトの取り込み量の上限
+     *
+     * @param pointsPerSecond 1秒あたりの件数
+     * @param burst           一時的に超えてよい件数（バケットの容量）
+     */
+    public record Limit(double pointsPerSecond, double burst) {
+
+        public Limit {
+            if (!(pointsPerSecond > 0) || !(burst >= 1)) {
+                throw new IllegalArgumentException(
+                        "1秒あたりの件数は正の値、バーストは1以上にしてください: " + pointsPerSecond + ", " + burst);
+            }
+        }
+    }
+
+    /**
+     * サイトの取り込み量
+     *
+     * @param pointsPerSecond 1秒あたりの件数の上限
+     * @param burst           一時的に超えてよい件数
+     * @param available       現在確保できる件数（待機中のインポートがある場合は負）
+     * @param admitted        受け付けた件数
+     * @param rejected        断った件数
+     * @param throttledMillis インポートを待たせた時間の合計（ミリ秒）
+     */
+    public record Stats(double pointsPerSecond, double burst, double available, long admitted, long rejected,
+            long throttledMillis) {
+    }
+
+    /**
+     * 1サイト分のトークンバケット
+     */
+    private static final class Bucket {
+
+        private final Limit limit;
+        private double tokens;
+        private long refilledAt;
+        private long admitted;
+        private long rejected;
+        private long throttledNanos;
+
+        Bucket(Limit limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.burst();
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryTake(int points, long now) {
+            refill(now);
+            if (tokens < points) {
+                rejected += points;
+                return false;
+            }
+            tokens -= points;
+            admitted += points;
+            return true;
+        }
+
+        /**
+         * 枠を先に確保し、不足分が補われるまでの待ち時間を返す
+         */
+        synchronized long reserve(int points, long now) {
+            refill(now);
+            tokens -= points;
+            admitted += points;
+            if (tokens >= 0) {
+                return 0;
+            }
+            long waitNanos = (long) (-tokens / limit.pointsPerSecond() * TimeUnit.SECONDS.toNanos(1));
+            throttledNanos += waitNanos;
+            return waitNanos;
+        }
+
+        synchronized double secondsUntil(int points, long now) {
+            refill(now);
+            return tokens >= points ? 0 : (points - tokens) / limit.pointsPerSecond();
+        }
+
+        synchronized Stats stats(long now) {
+            refill(now);
+            return new Stats(limit.pointsPerSecond(), limit.burst(), tokens, admitted, rejected,
+                    TimeUnit.NANOSECONDS.toMillis(throttledNanos));
+        }
+
+        private void refill(long now) {
+            long elapsed = now - refilledAt;
+            if (elapsed > 0) {
+                tokens = Math.min(limit.burst(),
+                        tokens + elapsed * limit.pointsPerSecond() / TimeUnit.SECONDS.toNanos(1));
+                refilledAt = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.iotble.site;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * サイトごとに別のインスタンスを持つ値
+ *
+ * メモリ上のインデックスや集計のバッファなど、サイトをまたいで共有してはいけない状態を保持します。
+ * インスタンスは生成時にすべてのサイトの分を作るため、取得はマップの参照だけで済みます
+ *
+ * @param <T> 値の型
+ */
+public final class SiteLocal<T> {
+
+    private final SiteTemplate siteTemplate;
+    private final Map<String, T> values = new LinkedHashMap<>();
+
+    SiteLocal(SiteTemplate siteTemplate, Supplier<? extends T> factory) {
+        this.siteTemplate = siteTemplate;
+        for (String site : siteTemplate.getSiteIds()) {
+            values.put(site, factory.get());
+        }
+    }
+
+    /**
+     * 現在のスレッドのサイトの値を取得
+     *
+     * @return 値（サイトが指定されていない場合は既定のサイトの値）
+     */
+    public T get() {
+        return get(siteTemplate.currentSite());
+    }
+
+    /**
+     * サイトの値を取得
+     *
+     * @param site サイトID
+     * @return 値
+     * @throws IllegalArgumentException サイトが設定されていない場合
+     */
+    public T get(String site) {
+        T value = values.get(site);
+        if (value == null) {
+            throw new IllegalArgumentException("サイトが設定されていません: " + site);
+        }
+        return value;
+    }
+
+    /**
+     * すべてのサイトの値を設定順に処理
+     *
+     * 処理はそのサイトを現在のサイトとして実行します
+     *
+     * @param action サイトIDと値を受け取る処理
+     */
+    public void forEach(BiConsumer<String, ? super T> action) {
+        values.forEach((site, value) -> siteTemplate.runOnSite(site, () -> action.accept(site, value)));
+    }
+}
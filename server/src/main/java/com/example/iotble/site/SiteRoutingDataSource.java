@@ -0,0 +1,34 @@
+package com.example.iotble.site;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * 現在のスレッドのサイトのデータベースに接続を振り分けるデータソース
+ *
+ * サイトが指定されていない場合は既定のサイト（設定の先頭）に接続します。
+ * サイトごとに接続プールが分かれているため、あるサイトの重い処理が接続を使い切っても
+ * 他のサイトの接続には影響しません
+ */
+public class SiteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * データソースを生成
+     *
+     * @param siteTemplate サイトの定義
+     */
+    public SiteRoutingDataSource(SiteTemplate siteTemplate) {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        siteTemplate.getSiteIds().forEach(site -> targets.put(site, siteTemplate.getDataSource(site)));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(siteTemplate.getDataSource(siteTemplate.getDefaultSite()));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return SiteContext.current();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.iotble.site;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * サイトごとの取り込み量と接続プールの状態
+ *
+ * @param siteId      サイトID
+ * @param defaultSite サイトを指定しないリクエストのサイトの場合true
+ * @param ingest      取り込み量（上限を設定していない場合はnull）
+ * @param pool        接続プールの状態（サイトごとのデータベースを設定していない場合はnull）
+ */
+public record SiteStatus(String siteId, boolean defaultSite, SiteIngestQuota.Stats ingest, Pool pool) {
+
+    /**
+     * サイトの状態を取得
+     *
+     * @param siteTemplate サイトのテンプレート
+     * @param ingestQuota  取り込み量の上限
+     * @param siteId       サイトID
+     * @return サイトの状態
+     */
+    public static SiteStatus of(SiteTemplate siteTemplate, SiteIngestQuota ingestQuota, String siteId) {
+        return new SiteStatus(siteId, siteId.equals(siteTemplate.getDefaultSite()),
+                ingestQuota.getStats().get(siteId), Pool.of(siteTemplate.getDataSource(siteId)));
+    }
+
+    /**
+     * 接続プールの状態
+     *
+     * @param maximumPoolSize   接続数の上限
+     * @param activeConnections 使用中の接続数
+     * @param idleConnections   待機中の接続数
+     * @param waitingThreads    接続を待っているスレッド数
+     */
+    public record Pool(int maximumPoolSize, int activeConnections, int idleConnections, int waitingThreads) {
+
+        static Pool of(DataSource dataSource) {
+            if (!(dataSource instanceof HikariDataSource hikari)) {
+                return null;
+            }
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            if (pool == null) {
+                // まだ接続していないプール
+                return new Pool(hikari.getMaximumPoolSize(), 0, 0, 0);
+            }
+            return new Pool(hikari.getMaximumPoolSize(), pool.getActiveConnections(), pool.getIdleConnections(),
+                    pool.getThreadsAwaitingConnection());
+        }
+    }
+}
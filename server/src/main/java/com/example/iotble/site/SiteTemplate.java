@@ -0,0 +1,262 @@
+package com.example.iotble.site;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * サイト（倉庫などの拠点）を指定して処理を実行するテンプレート
+ *
+ * サイトごとにデータベースと接続プールを分け、処理中のスレッドに指定したサイトのデータベースだけを
+ * 読み書きさせます。リクエストのサイトは {@link com.example.iotble.web.SiteFilter} が指定します。
+ * 別スレッドで続きを実行する処理は {@link #propagate(Runnable)} などで呼び出し元のサイトを引き継ぎます。
+ * サイトを設定しない場合は {@link #DEFAULT_SITE} の1サイトだけを持ち、{@code spring.datasource} をそのまま使います
+ */
+@Slf4j
+public class SiteTemplate implements AutoCloseable {
+
+    /** サイトを設定していない場合のサイトID */
+    public static final String DEFAULT_SITE = "default";
+
+    /** サイトIDに使える文字（英数字・ハイフン・アンダースコア、50文字まで） */
+    private static final Pattern SITE_ID = Pattern.compile("[A-Za-z0-9_-]{1,50}");
+
+    private final List<String> sites;
+    private final Map<String, DataSource> dataSources;
+
+    /**
+     * テンプレートを生成
+     *
+     * @param sites       サイトIDの一覧（先頭が既定のサイト）
+     * @param dataSources サイトIDごとのデータソース（サイトと同じ順序、空の場合は呼び出し元のデータソースを使う）
+     */
+    public SiteTemplate(List<String> sites, Map<String, DataSource> dataSources) {
+        if (sites.isEmpty()) {
+            throw new IllegalArgumentException("at least one site is required");
+        }
+        if (new HashSet<>(sites).size() != sites.size()) {
+            throw new IllegalArgumentException("site ids must be unique");
+        }
+        for (String site : sites) {
+            if (site == null || !SITE_ID.matcher(site).matches()) {
+                throw new IllegalArgumentException("invalid site id: " + site);
+            }
+        }
+        if (!dataSources.isEmpty() && !List.copyOf(dataSources.keySet()).equals(sites)) {
+            throw new IllegalArgumentException("data sources must match the sites");
+        }
+        this.sites = List.copyOf(sites);
+        this.dataSources = new LinkedHashMap<>(dataSources);
+    }
+
+    /**
+     * サイトを1つだけ持ち、呼び出し元のデータソースをそのまま使うテンプレートを生成
+     *
+     * @return テンプレート
+     */
+    public static SiteTemplate single() {
+        return new SiteTemplate(List.of(DEFAULT_SITE), Map.of());
+    }
+
+    /**
+     * サイトIDの一覧を取得
+     *
+     * @return サイトID（設定順）
+     */
+    public List<String> getSiteIds() {
+        return sites;
+    }
+
+    /**
+     * 既定のサイト（サイトを指定しない処理で使うサイト）を取得
+     *
+     * @return サイトID
+     */
+    public String getDefaultSite() {
+        return sites.get(0);
+    }
+
+    /**
+     * サイトごとにデータベースが分かれているか
+     *
+     * @return サイトごとのデータソースを持つ場合true
+     */
+    public boolean isPartitioned() {
+        return !dataSources.isEmpty();
+    }
+
+    /**
+     * サイトが設定されているか
+     *
+     * @param site サイトID
+     * @return 設定されている場合true
+     */
+    public boolean isKnown(String site) {
+        return sites.contains(site);
+    }
+
+    /**
+     * サイトのデータソースを取得
+     *
+     * @param site サイトID
+     * @return データソース（{@link #single()} で生成した場合はnull）
+     */
+    public DataSource getDataSource(String site) {
+        return dataSources.get(site);
+    }
+
+    /**
+     * 現在のスレッドで処理しているサイトを取得
+     *
+     * @return サイトID（指定されていない場合は既定のサイト）
+     */
+    public String currentSite() {
+        String site = SiteContext.current();
+        return site != null ? site : getDefaultSite();
+    }
+
+    /**
+     * サイトを指定して処理を実行
+     *
+     * 処理内で取得されるデータベース接続が指定したサイトに振り分けられます
+     *
+     * @param site サイトID
+     * @param work 処理
+     * @return 処理結果
+     * @throws IllegalArgumentException サイトが設定されていない場合
+     */
+    public <T> T onSite(String site, Supplier<T> work) {
+        try (Scope scope = enter(site)) {
+            return work.get();
+        }
+    }
+
+    /**
+     * サイトを指定して戻り値のない処理を実行
+     *
+     * @param site サイトID
+     * @param work 処理
+     */
+    public void runOnSite(String site, Runnable work) {
+        onSite(site, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * すべてのサイトで順に処理を実行
+     *
+     * 定期実行の処理のように、リクエストに紐づかない処理をサイトごとに行う場合に使用します
+     *
+     * @param work サイトIDを受け取る処理
+     */
+    public void forEachSite(Consumer<String> work) {
+        for (String site : sites) {
+            runOnSite(site, () -> work.accept(site));
+        }
+    }
+
+    /**
+     * 閉じるまでの間、現在のスレッドのサイトを指定
+     *
+     * 例外を投げる処理をサイトを指定して実行する場合に try-with-resources で使用します
+     *
+     * @param site サイトID
+     * @return 閉じると元のサイトに戻すスコープ
+     * @throws IllegalArgumentException サイトが設定されていない場合
+     */
+    public Scope enter(String site) {
+        if (!isKnown(site)) {
+            throw new IllegalArgumentException("サイトが設定されていません: " + site);
+        }
+        return new Scope(SiteContext.set(site));
+    }
+
+    /**
+     * サイトごとに別のインスタンスを持つ値を生成
+     *
+     * @param factory サイトごとのインスタンスを生成する処理
+     * @return サイトごとの値
+     */
+    public <T> SiteLocal<T> local(Supplier<? extends T> factory) {
+        return new SiteLocal<>(this, factory);
+    }
+
+    /**
+     * 呼び出し元のサイトで実行する処理に包む
+     *
+     * @param work 別スレッドで実行する処理
+     * @return 呼び出し時点のサイトで実行する処理
+     */
+    public Runnable propagate(Runnable work) {
+        String site = currentSite();
+        return () -> runOnSite(site, work);
+    }
+
+    /**
+     * 呼び出し元のサイトで実行する処理に包む
+     *
+     * @param work 別スレッドで実行する処理
+     * @return 呼び出し時点のサイトで実行する処理
+     */
+    public <T> Supplier<T> propagate(Supplier<T> work) {
+        String site = currentSite();
+        return () -> onSite(site, work);
+    }
+
+    /**
+     * 処理を登録した時点のサイトで実行する {@link Executor} に包む
+     *
+     * @param executor 処理を実行する {@link Executor}
+     * @return 呼び出し元のサイトを引き継ぐ {@link Executor}
+     */
+    public Executor propagating(Executor executor) {
+        return command -> executor.execute(propagate(command));
+    }
+
+    /**
+     * サイトのデータソースを閉じる
+     */
+    @Override
+    public void close() {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("サイトのデータソースを閉じられませんでした", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 現在のスレッドのサイトの指定範囲
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final String previous;
+
+        private Scope(String previous) {
+            this.previous = previous;
+        }
+
+        /**
+         * 指定前のサイトに戻す
+         */
+        @Override
+        public void close() {
+            SiteContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.iotble.spatial;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.example.iotble.model.ContactEpisode;
+import com.example.iotble.util.GeoUtils;
+
+/**
+ * デバイス同士の接近（接触）を検出するエンジン
+ *
+ * 位置を緯度・経度と時刻で区切ったセル（時空間ハッシュグリッド）に振り分けます。セルの大きさは
+ * 接近とみなす距離と、同時刻とみなす時間の幅に合わせているため、受け取った位置と比較するのは
+ * 隣接するセル（3×3×3）の位置だけで済みます。接近を観測するたびにデバイスの組ごとの接触を延ばし、
+ * 観測の間隔が上限を超えたら接触を閉じます。
+ *
+ * 位置はおおむね時刻順に受け取ることを前提とし、時間の幅より古いセルは破棄します。
+ * 経度180度をまたぐ接近と極付近の接近は検出しません。スレッドセーフではありません
+ */
+public class ContactDetector {
+
+    /** 緯度1度あたりのメートル数 */
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    /** 経度方向のセル幅の計算で使う cos(緯度) の下限（約89.4度） */
+    private static final double MIN_COS = 0.01;
+
+    private final double radiusMeters;
+    private final long windowMillis;
+    private final long maxGapMillis;
+    private final String focusDeviceId;
+    private final double cellDegrees;
+
+    /** 時刻の区間ごと、セルごとの位置 */
+    private final NavigableMap<Long, Map<Cell, List<Fix>>> buckets = new TreeMap<>();
+
+    /** 継続中の接触 */
+    private final Map<Pair, Episode> open = new HashMap<>();
+
+    /** 閉じた接触 */
+    private final List<ContactEpisode> closed = new ArrayList<>();
+
+    private long latestMillis = Long.MIN_VALUE;
+
+    /**
+     * エンジンを生成
+     *
+     * @param radiusMeters  接近とみなす距離（メートル）
+     * @param windowSeconds 2つのデバイスの位置を同時刻とみなす時間の幅（秒）
+     * @param maxGapSeconds 接触を継続とみなす観測の間隔の上限（秒）
+     * @param focusDeviceId このデバイスを含む組だけを検出する場合のデバイスID（null の場合はすべての組）
+     */
+    public ContactDetector(double radiusMeters, double windowSeconds, double maxGapSeconds, String focusDeviceId) {
+        if (!(radiusMeters > 0) || !(windowSeconds > 0) || !(maxGapSeconds >= 0)) {
+            throw new IllegalArgumentException("contact detector settings are invalid");
+        }
+        this.radiusMeters = radiusMeters;
+        this.windowMillis = Math.max(1, Math.round(windowSeconds * 1000));
+        this.maxGapMillis = Math.round(maxGapSeconds * 1000);
+        this.focusDeviceId = focusDeviceId;
+        this.cellDegrees = radiusMeters / METERS_PER_DEGREE;
+    }
+
+    /**
+     * 位置を受け取り、近くにいる他のデバイスとの接近を記録
+     *
+     * @param deviceId  デバイスID
+     * @param latitude  緯度
+     * @param longitude 経度
+     * @param timestamp タイムスタンプ
+     * @param detect    接近を記録する場合true（false の場合は以降の位置の比較対象として登録するだけ）
+     */
+    public void observe(String deviceId, double latitude, double longitude, LocalDateTime timestamp,
+            boolean detect) {
+        long millis = toMillis(timestamp);
+        long bucket = Math.floorDiv(millis, windowMillis);
+        if (millis > latestMillis) {
+            if (latestMillis == Long.MIN_VALUE || bucket > Math.floorDiv(latestMillis, windowMillis)) {
+                buckets.headMap(bucket - 1).clear();
+                closeIdle(millis);
+            }
+            latestMillis = millis;
+        }
+
+        Fix fix = new Fix(deviceId, latitude, longitude, millis);
+        long row = (long) Math.floor(latitude / cellDegrees);
+        if (detect) {
+            compareNeighbors(fix, bucket, row);
+        }
+        buckets.computeIfAbsent(bucket, key -> new HashMap<>())
+                .computeIfAbsent(new Cell(row, column(longitude, row)), key -> new ArrayList<>(2))
+                .add(fix);
+    }
+
+    /**
+     * 閉じた接触を取り出す
+     *
+     * @return 前回取り出してから閉じた接触
+     */
+    public List<ContactEpisode> drainClosed() {
+        List<ContactEpisode> drained = new ArrayList<>(closed);
+        closed.clear();
+        return drained;
+    }
+
+    /**
+     * 継続中の接触を取得
+     *
+     * @return 継続中の接触（開始時刻順）
+     */
+    public List<ContactEpisode> getOpen() {
+        return open.values().stream()
+                .map(Episode::toContact)
+                .sorted(Comparator.comparing(ContactEpisode::start))
+                .toList();
+    }
+
+    /**
+     * 継続中の接触をすべて閉じ、これまでに閉じた接触を取り出す
+     *
+     * @return 閉じた接触（開始時刻順）
+     */
+    public List<ContactEpisode> finish() {
+        open.values().forEach(episode -> closed.add(episode.toContact()));
+        open.clear();
+        List<ContactEpisode> result = drainClosed();
+        result.sort(Comparator.comparing(ContactEpisode::start));
+        return result;
+    }
+
+    /**
+     * デバイスの位置と継続中の接触を破棄
+     *
+     * @param deviceId デバイスID
+     */
+    public void removeDevice(String deviceId) {
+        for (Map<Cell, List<Fix>> cells : buckets.values()) {
+            cells.values().forEach(fixes -> fixes.removeIf(fix -> fix.deviceId.equals(deviceId)));
+        }
+        open.keySet().removeIf(pair -> pair.first.equals(deviceId) || pair.second.equals(deviceId));
+    }
+
+    /**
+     * 隣接するセルの位置と比較し、接近していれば記録
+     */
+    private void compareNeighbors(Fix fix, long bucket, long row) {
+        boolean focused = focusDeviceId == null || focusDeviceId.equals(fix.deviceId);
+        // 隣の行の位置との経度の差の上限（緯度が高いほど広がるため、セル1つ分高い緯度で見積もる）
+        double lonReach = cellDegrees / Math.max(MIN_COS,
+                Math.cos(Math.toRadians(Math.min(90, Math.abs(fix.latitude) + cellDegrees))));
+        for (long b = bucket - 1; b <= bucket + 1; b++) {
+            Map<Cell, List<Fix>> cells = buckets.get(b);
+            if (cells == null) {
+                continue;
+            }
+            for (long r = row - 1; r <= row + 1; r++) {
+                long fromColumn = column(fix.longitude - lonReach, r);
+                long toColumn = column(fix.longitude + lonReach, r);
+                for (long c = fromColumn; c <= toColumn; c++) {
+                    List<Fix> fixes = cells.get(new Cell(r, c));
+                    if (fixes != null) {
+                        for (Fix other : fixes) {
+                            compare(fix, other, focused);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void compare(Fix fix, Fix other, boolean focused) {
+        if (fix.deviceId.equals(other.deviceId) || (!focused && !focusDeviceId.equals(other.deviceId))
+                || Math.abs(fix.millis - other.millis) > windowMillis) {
+            return;
+        }
+        double distance = GeoUtils.haversineMeters(fix.latitude, fix.longitude, other.latitude, other.longitude);
+        if (distance > radiusMeters) {
+            return;
+        }
+        Pair pair = Pair.of(fix.deviceId, other.deviceId);
+        long start = Math.min(fix.millis, other.millis);
+        long end = Math.max(fix.millis, other.millis);
+        Episode episode = open.get(pair);
+        if (episode != null && start - episode.endMillis > maxGapMillis) {
+            closed.add(episode.toContact());
+            episode = null;
+        }
+        if (episode == null) {
+            open.put(pair, new Episode(pair, start, end, distance));
+        } else {
+            episode.extend(start, end, distance);
+        }
+    }
+
+    /**
+     * 観測の間隔が上限を超えた接触を閉じる
+     */
+    private void closeIdle(long nowMillis) {
+        Iterator<Episode> episodes = open.values().iterator();
+        while (episodes.hasNext()) {
+            Episode episode = episodes.next();
+            if (nowMillis - episode.endMillis > maxGapMillis + windowMillis) {
+                closed.add(episode.toContact());
+                episodes.remove();
+            }
+        }
+    }
+
+    /**
+     * 行ごとの経度方向の列を求める（列の幅は行の緯度で距離がセルの高さと同じになるように決める）
+     */
+    private long column(double longitude, long row) {
+        double rowLatitude = Math.min(90, Math.abs((row + 0.5) * cellDegrees));
+        double width = cellDegrees / Math.max(MIN_COS, Math.cos(Math.toRadians(rowLatitude)));
+        return (long) Math.floor(longitude / width);
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * セルの位置
+     */
+    private record Cell(long row, long column) {
+    }
+
+    /**
+     * 受け取った位置
+     */
+    private record Fix(String deviceId, double latitude, double longitude, long millis) {
+    }
+
+    /**
+     * デバイスの組（デバイスIDの小さい方が first）
+     */
+    private record Pair(String first, String second) {
+
+        static Pair of(String a, String b) {
+            return a.compareTo(b) <= 0 ? new Pair(a, b) : new Pair(b, a);
+        }
+    }
+
+    /**
+     * 継続中の接触
+     */
+    private static final class Episode {
+
+        private final Pair pair;
+        private long startMillis;
+        private long endMillis;
+        private double minDistance;
+        private int observations;
+
+        Episode(Pair pair, long startMillis, long endMillis, double distance) {
+            this.pair = pair;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.minDistance = distance;
+            this.observations = 1;
+        }
+
+        void extend(long start, long end, double distance) {
+            startMillis = Math.min(startMillis, start);
+            endMillis = Math.max(endMillis, end);
+            minDistance = Math.min(minDistance, distance);
+            observations++;
+        }
+
+        ContactEpisode toContact() {
+            return ContactEpisode.of(pair.first, pair.second, toLocalDateTime(startMillis),
+                    toLocalDateTime(endMillis), minDistance, observations);
+        }
+    }
+}
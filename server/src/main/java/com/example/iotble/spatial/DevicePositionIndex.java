@@ -0,0 +1,473 @@
+package com.example.iotble.spatial;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.iotble.model.DeviceCluster;
+import com.example.iotble.model.NearbyDevice;
+import com.example.iotble.util.GeoUtils;
+
+/**
+ * デバイスの現在位置の空間インデックス
+ *
+ * 地球全体の経緯度を4分割していく木（四分木）で、各セルに含まれるデバイス数を保持し、
+ * 最下層のセルにデバイスの位置を保持します。デバイスのいないセルは木から外します。最近傍の検索では、セルまでの最短の大円距離と
+ * デバイスまでの大円距離を同じ優先度付きキューで扱い、近い順に取り出します（best-first）。
+ * 取り出したデバイスより近いデバイスが未探索のセルに残ることはないため、
+ * k件見つかった時点で探索を打ち切れます。
+ *
+ * 各セルはデバイスの緯度・経度の合計も保持するため、地図の表示範囲とズームに応じたクラスター（セルごとの件数と重心）を
+ * 表示範囲に含まれるセルの数に比例したコストで取得できます。
+ *
+ * デバイスごとに最新の位置だけを保持します。読み出しと更新は読み書きロックで排他します
+ */
+public class DevicePositionIndex {
+
+    /** 最下層の階層（セルは経度約0.0055度×緯度約0.0027度） */
+    static final int LEAF_LEVEL = 16;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** デバイスIDごとの登録内容 */
+    private final Map<String, Entry> byDevice = new HashMap<>();
+
+    /** 位置情報IDごとの登録内容 */
+    private final Map<Long, Entry> byLocation = new HashMap<>();
+
+    /** 地球全体のセル */
+    private Cell root = new Cell(0, 0, 0);
+
+    /**
+     * デバイスの位置を更新
+     *
+     * 登録済みの位置より古い位置は無視します
+     *
+     * @param deviceId   デバイスID
+     * @param locationId 位置情報ID
+     * @param latitude   緯度
+     * @param longitude  経度
+     * @param timestamp  タイムスタンプ
+     * @return 更新した場合true
+     */
+    public boolean update(String deviceId, Long locationId, double latitude, double longitude,
+            LocalDateTime timestamp) {
+        lock.writeLock().lock();
+        try {
+            Entry current = byDevice.get(deviceId);
+            if (current != null && isNewer(current, locationId, timestamp)) {
+                return false;
+            }
+            put(new Entry(deviceId, locationId, latitude, longitude, timestamp));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * デバイスの位置を登録済みの位置の新旧に関わらず置き換える
+     *
+     * 最新の位置情報が削除され、1つ前の位置に戻す場合に使います
+     *
+     * @param deviceId   デバイスID
+     * @param locationId 位置情報ID
+     * @param latitude   緯度
+     * @param longitude  経度
+     * @param timestamp  タイムスタンプ
+     */
+    public void replace(String deviceId, Long locationId, double latitude, double longitude,
+            LocalDateTime timestamp) {
+        lock.writeLock().lock();
+        try {
+            put(new Entry(deviceId, locationId, latitude, longitude, timestamp));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * デバイスを削除
+     *
+     * @param deviceId デバイスID
+     * @return 登録されていた場合true
+     */
+    public boolean remove(String deviceId) {
+        lock.writeLock().lock();
+        try {
+            Entry current = byDevice.remove(deviceId);
+            if (current == null) {
+                return false;
+            }
+            unlink(current);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * すべてのデバイスを削除
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            byDevice.clear();
+            byLocation.clear();
+            root = new Cell(0, 0, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 登録されているデバイス数を取得
+     *
+     * @return デバイス数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byDevice.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 現在位置が指定した位置情報のいずれかであるデバイスを取得
+     *
+     * @param locationIds 位置情報IDのコレクション
+     * @return デバイスIDのセット
+     */
+    public Set<String> findDevicesAt(Collection<Long> locationIds) {
+        lock.readLock().lock();
+        try {
+            Set<String> deviceIds = new HashSet<>();
+            for (Long locationId : locationIds) {
+                Entry entry = byLocation.get(locationId);
+                if (entry != null) {
+                    deviceIds.add(entry.deviceId);
+                }
+            }
+            return deviceIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 地点から近い順にデバイスを取得
+     *
+     * @param latitude  緯度
+     * @param longitude 経度
+     * @param k         最大件数
+     * @param notBefore この時刻より古い位置のデバイスを除外（null の場合は除外しない）
+     * @return 近い順のデバイスのリスト
+     */
+    public List<NearbyDevice> nearest(double latitude, double longitude, int k, LocalDateTime notBefore) {
+        lock.readLock().lock();
+        try {
+            List<NearbyDevice> result = new ArrayList<>(Math.min(k, byDevice.size()));
+            if (byDevice.isEmpty() || k <= 0) {
+                return result;
+            }
+            PriorityQueue<Candidate> queue = new PriorityQueue<>();
+            queue.add(new Candidate(0, null, root));
+            while (!queue.isEmpty() && result.size() < k) {
+                Candidate candidate = queue.poll();
+                if (candidate.entry != null) {
+                    Entry entry = candidate.entry;
+                    result.add(new NearbyDevice(entry.deviceId, entry.locationId, entry.latitude,
+                            entry.longitude, entry.timestamp, candidate.distance));
+                } else if (candidate.cell.entries == null) {
+                    expandCell(queue, latitude, longitude, candidate.cell);
+                } else {
+                    for (Entry entry : candidate.cell.entries) {
+                        if (notBefore == null || !entry.timestamp.isBefore(notBefore)) {
+                            queue.add(new Candidate(GeoUtils.haversineMeters(latitude, longitude,
+                                    entry.latitude, entry.longitude), entry, null));
+                        }
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 範囲内のデバイスを指定した階層のセルごとにまとめて取得
+     *
+     * 範囲と重なるセルだけをたどるため、範囲外のデバイス数に関わらず範囲内のセル数に比例したコストで済みます。
+     * 階層が最下層より深い場合は、まとめずに個々のデバイスを返します
+     *
+     * @param minLat 範囲の最小緯度
+     * @param maxLat 範囲の最大緯度
+     * @param minLon 範囲の最小経度
+     * @param maxLon 範囲の最大経度
+     * @param level  まとめるセルの階層（0で地球全体、{@value #LEAF_LEVEL} が最下層）
+     * @return セルごとのクラスター（デバイスが1台のセルはデバイスIDとタイムスタンプ付き）
+     */
+    public List<DeviceCluster> clusters(double minLat, double maxLat, double minLon, double maxLon, int level) {
+        lock.readLock().lock();
+        try {
+            List<DeviceCluster> result = new ArrayList<>();
+            if (!byDevice.isEmpty()) {
+                collectClusters(root, 0, minLat, maxLat, minLon, maxLon, level, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void collectClusters(Cell cell, int depth, double minLat, double maxLat, double minLon,
+            double maxLon, int level, List<DeviceCluster> result) {
+        if (cell.minLat > maxLat || cell.maxLat < minLat || cell.minLon > maxLon || cell.maxLon < minLon) {
+            return;
+        }
+        if (cell.entries != null && level > LEAF_LEVEL) {
+            for (Entry entry : cell.entries) {
+                if (entry.latitude >= minLat && entry.latitude <= maxLat
+                        && entry.longitude >= minLon && entry.longitude <= maxLon) {
+                    result.add(single(entry));
+                }
+            }
+            return;
+        }
+        if (depth >= level || cell.entries != null) {
+            result.add(cell.count == 1
+                    ? single(onlyEntry(cell))
+                    : new DeviceCluster(cell.sumLat / cell.count, cell.sumLon / cell.count, cell.count, null, null));
+            return;
+        }
+        for (Cell child : cell.children) {
+            if (child != null) {
+                collectClusters(child, depth + 1, minLat, maxLat, minLon, maxLon, level, result);
+            }
+        }
+    }
+
+    private static DeviceCluster single(Entry entry) {
+        return new DeviceCluster(entry.latitude, entry.longitude, 1, entry.deviceId, entry.timestamp);
+    }
+
+    /**
+     * デバイスが1台だけのセルからそのデバイスをたどる
+     */
+    private static Entry onlyEntry(Cell cell) {
+        while (cell.entries == null) {
+            for (Cell child : cell.children) {
+                if (child != null) {
+                    cell = child;
+                    break;
+                }
+            }
+        }
+        return cell.entries.get(0);
+    }
+
+    /**
+     * セルの子セルを地点からの最短距離とともにキューに追加
+     */
+    private static void expandCell(PriorityQueue<Candidate> queue, double latitude, double longitude, Cell cell) {
+        for (Cell child : cell.children) {
+            if (child != null) {
+                double distance = GeoUtils.minDistanceToBoxMeters(latitude, longitude,
+                        child.minLat, child.maxLat, child.minLon, child.maxLon);
+                queue.add(new Candidate(distance, null, child));
+            }
+        }
+    }
+
+    /**
+     * 登録内容を追加（同じデバイスの登録内容は置き換える）
+     */
+    private void put(Entry entry) {
+        Entry previous = byDevice.put(entry.deviceId, entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        if (entry.locationId != null) {
+            byLocation.put(entry.locationId, entry);
+        }
+        int x = cellX(entry.longitude);
+        int y = cellY(entry.latitude);
+        Cell cell = root;
+        cell.add(entry, 1);
+        for (int level = 1; level <= LEAF_LEVEL; level++) {
+            int child = childIndex(x, y, level);
+            if (cell.children[child] == null) {
+                int shift = LEAF_LEVEL - level;
+                cell.children[child] = new Cell(level, x >> shift, y >> shift);
+            }
+            cell = cell.children[child];
+            cell.add(entry, 1);
+        }
+        entry.leaf = cell;
+        entry.slot = cell.entries.size();
+        cell.entries.add(entry);
+    }
+
+    /**
+     * 登録内容をセルと位置情報IDの対応から外す
+     */
+    private void unlink(Entry entry) {
+        if (entry.locationId != null) {
+            byLocation.remove(entry.locationId, entry);
+        }
+        List<Entry> entries = entry.leaf.entries;
+        // 末尾の要素を空いた位置に移して O(1) で削除する
+        Entry last = entries.remove(entries.size() - 1);
+        if (last != entry) {
+            entries.set(entry.slot, last);
+            last.slot = entry.slot;
+        }
+        Cell cell = root;
+        cell.add(entry, -1);
+        for (int level = 1; level <= LEAF_LEVEL; level++) {
+            int child = childIndex(entry.leaf.x, entry.leaf.y, level);
+            Cell next = cell.children[child];
+            next.add(entry, -1);
+            if (next.count == 0) {
+                // 空になったセルは子孫ごと木から外す
+                cell.children[child] = null;
+                return;
+            }
+            cell = next;
+        }
+    }
+
+    private static boolean isNewer(Entry current, Long locationId, LocalDateTime timestamp) {
+        int order = current.timestamp.compareTo(timestamp);
+        if (order != 0) {
+            return order > 0;
+        }
+        return current.locationId != null && locationId != null && current.locationId > locationId;
+    }
+
+    private static int cellX(double longitude) {
+        int cells = 1 << LEAF_LEVEL;
+        return Math.min(cells - 1, Math.max(0, (int) Math.floor((longitude + 180) / 360 * cells)));
+    }
+
+    private static int cellY(double latitude) {
+        int cells = 1 << LEAF_LEVEL;
+        return Math.min(cells - 1, Math.max(0, (int) Math.floor((latitude + 90) / 180 * cells)));
+    }
+
+    /**
+     * 最下層のセルの位置から、指定した階層のセルが親のセルの何番目の子かを求める
+     */
+    private static int childIndex(int x, int y, int level) {
+        int shift = LEAF_LEVEL - level;
+        return ((x >> shift) & 1) << 1 | ((y >> shift) & 1);
+    }
+
+    /**
+     * 四分木のセル
+     */
+    private static final class Cell {
+
+        private final double minLat;
+        private final double maxLat;
+        private final double minLon;
+        private final double maxLon;
+
+        /** 子セル（最下層のセルでは null） */
+        private final Cell[] children;
+
+        /** デバイス（最下層のセル以外では null） */
+        private final List<Entry> entries;
+
+        /** セルに含まれるデバイス数 */
+        private int count;
+
+        /** セルに含まれるデバイスの緯度の合計 */
+        private double sumLat;
+
+        /** セルに含まれるデバイスの経度の合計 */
+        private double sumLon;
+
+        private final int x;
+        private final int y;
+
+        Cell(int level, int x, int y) {
+            double lonSpan = 360.0 / (1 << level);
+            double latSpan = 180.0 / (1 << level);
+            this.minLon = -180 + x * lonSpan;
+            this.maxLon = minLon + lonSpan;
+            this.minLat = -90 + y * latSpan;
+            this.maxLat = minLat + latSpan;
+            this.x = x;
+            this.y = y;
+            this.children = level < LEAF_LEVEL ? new Cell[4] : null;
+            this.entries = level < LEAF_LEVEL ? null : new ArrayList<>(4);
+        }
+
+        /**
+         * デバイスをセルの件数と座標の合計に加える（sign が -1 の場合は除く）
+         */
+        void add(Entry entry, int sign) {
+            count += sign;
+            sumLat += sign * entry.latitude;
+            sumLon += sign * entry.longitude;
+        }
+    }
+
+    /**
+     * デバイスの登録内容
+     */
+    private static final class Entry {
+
+        private final String deviceId;
+        private final Long locationId;
+        private final double latitude;
+        private final double longitude;
+        private final LocalDateTime timestamp;
+
+        /** 最下層のセル */
+        private Cell leaf;
+
+        /** 最下層のセルのリスト内の位置 */
+        private int slot;
+
+        Entry(String deviceId, Long locationId, double latitude, double longitude, LocalDateTime timestamp) {
+            this.deviceId = deviceId;
+            this.locationId = locationId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * 探索候補（セルまたはデバイス）
+     *
+     * @param distance 地点からの距離（セルの場合は最短の距離）
+     * @param entry    デバイスの登録内容（セルの場合は null）
+     * @param cell     セル（デバイスの場合は null）
+     */
+    private record Candidate(double distance, Entry entry, Cell cell) implements Comparable<Candidate> {
+
+        @Override
+        public int compareTo(Candidate other) {
+            int order = Double.compare(distance, other.distance);
+            if (order != 0) {
+                return order;
+            }
+            // 同じ距離ならデバイスを先に取り出し、余分なセルの展開を避ける
+            return Boolean.compare(other.entry != null, entry != null);
+        }
+    }
+}
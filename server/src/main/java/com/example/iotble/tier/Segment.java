@@ -0,0 +1,287 @@
+package com.example.iotble.tier;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.InflaterInputStream;
+
+import com.example.iotble.core.PackedLocation;
+import com.example.iotble.model.LocationData;
+
+/**
+ * 封印済みのセグメントファイル
+ *
+ * フッターのメタデータ（期間・座標の範囲・ブロックの位置とIDの範囲）だけをメモリに持ち、行は必要なブロックだけを
+ * ファイルから読み出して展開します。ファイルは作成後に変更されないため、複数のスレッドから同時に読み出せます。
+ * 形式は {@link SegmentWriter} を参照してください
+ */
+final class Segment {
+
+    private final Path path;
+    private final int version;
+    private final String siteId;
+    private final SegmentInfo info;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final List<Block> blocks;
+    private final Map<String, List<Block>> blocksByDevice;
+    private final long minId;
+    private final long maxId;
+
+    private Segment(Path path, int version, String siteId, SegmentInfo info, long minTimestamp, long maxTimestamp,
+            List<Block> blocks) {
+        this.path = path;
+        this.version = version;
+        this.siteId = siteId;
+        this.info = info;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.blocks = blocks;
+        Map<String, List<Block>> byDevice = new LinkedHashMap<>();
+        for (Block block : blocks) {
+            byDevice.computeIfAbsent(block.deviceId(), device -> new ArrayList<>()).add(block);
+        }
+        this.blocksByDevice = byDevice;
+        this.minId = blocks.stream().mapToLong(Block::minId).min().orElse(Long.MAX_VALUE);
+        this.maxId = blocks.stream().mapToLong(Block::maxId).max().orElse(Long.MIN_VALUE);
+    }
+
+    /**
+     * ファイルのフッターを読み込んでセグメントを開く
+     *
+     * @param path     セグメントファイルのパス
+     * @param sequence 作成順の連番
+     * @param siteId   読み出した位置情報に設定するサイトID
+     * @return セグメント
+     * @throws IOException 読み込めない場合やLSEG形式でない場合
+     */
+    static Segment open(Path path, long sequence, String siteId) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int trailerLength = Integer.BYTES + SegmentWriter.MAGIC.length;
+            if (size < SegmentWriter.HEADER_LENGTH + trailerLength) {
+                throw new IOException("LSEG形式のファイルではありません: " + path);
+            }
+            ByteBuffer header = read(channel, 0, SegmentWriter.HEADER_LENGTH);
+            byte[] magic = new byte[SegmentWriter.MAGIC.length];
+            header.get(magic);
+            int version = header.getInt();
+            if (!Arrays.equals(magic, SegmentWriter.MAGIC)
+                    || version < SegmentWriter.DOUBLE_VERSION || version > SegmentWriter.VERSION) {
+                throw new IOException("LSEG形式のファイルではありません: " + path);
+            }
+            ByteBuffer trailer = read(channel, size - trailerLength, trailerLength);
+            int footerLength = trailer.getInt();
+            trailer.get(magic);
+            if (!Arrays.equals(magic, SegmentWriter.MAGIC) || footerLength <= 0
+                    || footerLength > size - SegmentWriter.HEADER_LENGTH - trailerLength) {
+                throw new IOException("セグメントのフッターが壊れています: " + path);
+            }
+
+            ByteBuffer footerBuffer = read(channel, size - trailerLength - footerLength, footerLength);
+            DataInputStream footer = new DataInputStream(
+                    new ByteArrayInputStream(footerBuffer.array(), 0, footerLength));
+            long rowCount = footer.readLong();
+            long minTimestamp = footer.readLong();
+            long maxTimestamp = footer.readLong();
+            double minLatitude = footer.readDouble();
+            double minLongitude = footer.readDouble();
+            double maxLatitude = footer.readDouble();
+            double maxLongitude = footer.readDouble();
+            int blockCount = footer.readInt();
+            List<Block> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                String deviceId = footer.readUTF();
+                long offset = footer.readLong();
+                int length = footer.readInt();
+                int blockRows = footer.readInt();
+                long blockMinTimestamp = footer.readLong();
+                long blockMaxTimestamp = footer.readLong();
+                // IDの範囲を持たない以前の形式のブロックは、すべてのIDを含み得るものとして扱う
+                long minId = Long.MIN_VALUE;
+                long maxId = Long.MAX_VALUE;
+                if (version > SegmentWriter.PACKED_VERSION) {
+                    minId = footer.readLong();
+                    maxId = footer.readLong();
+                }
+                blocks.add(new Block(deviceId, offset, length, blockRows, blockMinTimestamp, blockMaxTimestamp,
+                        minId, maxId));
+            }
+            int deviceCount = (int) blocks.stream().map(Block::deviceId).distinct().count();
+            SegmentInfo info = new SegmentInfo(path.getFileName().toString(), sequence, rowCount, deviceCount,
+                    SegmentWriter.fromEpochNanos(minTimestamp), SegmentWriter.fromEpochNanos(maxTimestamp),
+                    minLatitude, minLongitude, maxLatitude, maxLongitude, size);
+            return new Segment(path, version, siteId, info, minTimestamp, maxTimestamp, List.copyOf(blocks));
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    SegmentInfo getInfo() {
+        return info;
+    }
+
+    long getSequence() {
+        return info.sequence();
+    }
+
+    /**
+     * セグメントの期間が範囲と重なるかを判定
+     *
+     * @param from 開始時刻（エポックナノ秒、この時刻を含む）
+     * @param to   終了時刻（エポックナノ秒、この時刻を含む）
+     * @return 重なる場合true
+     */
+    boolean overlaps(long from, long to) {
+        return minTimestamp <= to && maxTimestamp >= from;
+    }
+
+    /**
+     * セグメントの期間が範囲に含まれるかを判定
+     *
+     * @param from 開始時刻（エポックナノ秒、この時刻を含む）
+     * @param to   終了時刻（エポックナノ秒、この時刻を含む）
+     * @return 含まれる場合true
+     */
+    boolean within(long from, long to) {
+        return minTimestamp >= from && maxTimestamp <= to;
+    }
+
+    /**
+     * セグメントがIDの行を含み得るかを判定
+     *
+     * @param id 位置情報ID
+     * @return いずれかのブロックのIDの範囲に含まれる場合true
+     */
+    boolean mayContain(long id) {
+        return minId <= id && id <= maxId;
+    }
+
+    /**
+     * デバイスのブロックを取得
+     *
+     * @param deviceId デバイスID（null の場合はすべてのブロック）
+     * @return ブロックのリスト（デバイスの行がない場合は空）
+     */
+    List<Block> blocks(String deviceId) {
+        return deviceId == null ? blocks : blocksByDevice.getOrDefault(deviceId, List.of());
+    }
+
+    /**
+     * ブロックを展開し、範囲内の行を1行ずつ読み出す
+     *
+     * @param block    ブロック
+     * @param from     開始時刻（エポックナノ秒、この時刻を含む）
+     * @param to       終了時刻（エポックナノ秒、この時刻を含む）
+     * @param consumer 各行を受け取るコールバック
+     * @throws IOException 読み込みに失敗した場合
+     */
+    void read(Block block, long from, long to, Consumer<LocationData> consumer) throws IOException {
+        ByteBuffer compressed;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            compressed = read(channel, block.offset(), block.length());
+        }
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(compressed.array(), 0, block.length())))) {
+            long id = 0;
+            long timestamp = 0;
+            for (int i = 0; i < block.rowCount(); i++) {
+                id += in.readLong();
+                timestamp += in.readLong();
+                PackedLocation packed;
+                long createdAt;
+                if (version == SegmentWriter.DOUBLE_VERSION) {
+                    double latitude = in.readDouble();
+                    double longitude = in.readDouble();
+                    int flags = in.readByte();
+                    createdAt = (flags & SegmentWriter.HAS_CREATED_AT) != 0
+                            ? timestamp + in.readLong() : Long.MIN_VALUE;
+                    Double altitude = (flags & SegmentWriter.HAS_ALTITUDE) != 0 ? in.readDouble() : null;
+                    Double accuracy = (flags & SegmentWriter.HAS_ACCURACY) != 0 ? in.readDouble() : null;
+                    Integer rssi = (flags & SegmentWriter.HAS_RSSI) != 0 ? in.readInt() : null;
+                    Double smoothedLatitude = null;
+                    Double smoothedLongitude = null;
+                    if ((flags & SegmentWriter.HAS_SMOOTHED) != 0) {
+                        smoothedLatitude = in.readDouble();
+                        smoothedLongitude = in.readDouble();
+                    }
+                    packed = PackedLocation.of(latitude, longitude, altitude, accuracy, rssi, smoothedLatitude,
+                            smoothedLongitude);
+                } else {
+                    int latitudeE7 = in.readInt();
+                    int longitudeE7 = in.readInt();
+                    int flags = in.readByte();
+                    createdAt = (flags & SegmentWriter.HAS_CREATED_AT) != 0
+                            ? timestamp + in.readLong() : Long.MIN_VALUE;
+                    int altitudeCm = (flags & SegmentWriter.HAS_ALTITUDE) != 0 ? in.readInt() : 0;
+                    int accuracyCm = (flags & SegmentWriter.HAS_ACCURACY) != 0 ? in.readInt() : 0;
+                    short rssi = (flags & SegmentWriter.HAS_RSSI) != 0 ? in.readShort() : 0;
+                    int smoothedLatitudeE7 = 0;
+                    int smoothedLongitudeE7 = 0;
+                    if ((flags & SegmentWriter.HAS_SMOOTHED) != 0) {
+                        smoothedLatitudeE7 = in.readInt();
+                        smoothedLongitudeE7 = in.readInt();
+                    }
+                    packed = new PackedLocation(latitudeE7, longitudeE7, altitudeCm, accuracyCm, rssi,
+                            smoothedLatitudeE7, smoothedLongitudeE7, (byte) (flags >>> 1));
+                }
+                if (timestamp < from || timestamp > to) {
+                    continue;
+                }
+                consumer.accept(LocationData.from(packed, id, block.deviceId(),
+                        SegmentWriter.fromEpochNanos(timestamp),
+                        createdAt != Long.MIN_VALUE ? SegmentWriter.fromEpochNanos(createdAt) : null, siteId));
+            }
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("セグメントファイルが途中で終わっています");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * 1デバイス分の圧縮済みブロックの位置と範囲
+     *
+     * @param deviceId     デバイスID
+     * @param offset       ファイル先頭からの位置
+     * @param length       圧縮後のバイト数
+     * @param rowCount     行数
+     * @param minTimestamp 最古のタイムスタンプ（エポックナノ秒）
+     * @param maxTimestamp 最新のタイムスタンプ（エポックナノ秒）
+     * @param minId        最小のID
+     * @param maxId        最大のID
+     */
+    record Block(String deviceId, long offset, int length, int rowCount, long minTimestamp, long maxTimestamp,
+            long minId, long maxId) {
+
+        boolean overlaps(long from, long to) {
+            return minTimestamp <= to && maxTimestamp >= from;
+        }
+
+        boolean within(long from, long to) {
+            return minTimestamp >= from && maxTimestamp <= to;
+        }
+
+        boolean mayContain(long id) {
+            return minId <= id && id <= maxId;
+        }
+    }
+}
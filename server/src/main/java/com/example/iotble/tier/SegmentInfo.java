@@ -0,0 +1,48 @@
+package com.example.iotble.tier;
+
+import java.time.LocalDateTime;
+
+/**
+ * セグメントのメタデータ
+ *
+ * 範囲の判定に使う期間と座標の範囲はフッターから読み込み、行を展開せずに参照できます。
+ * 座標の範囲には平滑化後の座標も含みます
+ *
+ * @param name         ファイル名
+ * @param sequence     作成順の連番
+ * @param rowCount     行数（削除済みの行を含む）
+ * @param deviceCount  デバイス数
+ * @param minTimestamp 最古のタイムスタンプ
+ * @param maxTimestamp 最新のタイムスタンプ
+ * @param minLatitude  緯度の最小値
+ * @param minLongitude 経度の最小値
+ * @param maxLatitude  緯度の最大値
+ * @param maxLongitude 経度の最大値
+ * @param sizeBytes    ファイルサイズ（バイト）
+ */
+public record SegmentInfo(
+        String name,
+        long sequence,
+        long rowCount,
+        int deviceCount,
+        LocalDateTime minTimestamp,
+        LocalDateTime maxTimestamp,
+        double minLatitude,
+        double minLongitude,
+        double maxLatitude,
+        double maxLongitude,
+        long sizeBytes) {
+
+    /**
+     * 座標の範囲が矩形と重なるかを判定
+     *
+     * @param west  西端の経度
+     * @param south 南端の緯度
+     * @param east  東端の経度
+     * @param north 北端の緯度
+     * @return 重なる場合true
+     */
+    public boolean intersects(double west, double south, double east, double north) {
+        return minLongitude <= east && maxLongitude >= west && minLatitude <= north && maxLatitude >= south;
+    }
+}
@@ -0,0 +1,701 @@
+package com.example.iotble.tier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.site.SiteTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 封印済みの位置情報（コールドティア）のセグメントを管理するストア
+ *
+ * セグメントはサイトごとのディレクトリに保存し、起動時にフッターだけを読み込んで一覧を作ります。
+ * 読み出しはセグメントの期間とデバイスごとのブロックの期間で対象を絞り、該当するブロックだけを展開します。
+ * セグメントは変更できないため、削除はサイトごとの削除範囲（トゥームストーン）として記録し、
+ * 読み出し時に除外します。IDを指定した削除は、そのIDの行だけを除外する削除範囲として記録します。削除範囲は記録した時点までに作成されたセグメントにだけ適用されます。
+ * ディレクトリを指定しない場合は無効となり、セグメントを持ちません
+ */
+@Slf4j
+public class SegmentStore {
+
+    /** セグメントファイルの拡張子 */
+    static final String SEGMENT_SUFFIX = ".lseg";
+
+    /** 書き込み中のファイルの拡張子 */
+    static final String TEMP_SUFFIX = ".tmp";
+
+    /** 削除範囲を保存するファイル名 */
+    static final String TOMBSTONE_FILE = "tombstones.bin";
+
+    private static final DateTimeFormatter NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm");
+
+    private static final Comparator<Segment> BY_TIME = Comparator
+            .comparing((Segment segment) -> segment.getInfo().minTimestamp())
+            .thenComparingLong(Segment::getSequence);
+
+    /** タイムスタンプ・IDの順（新しいほど大きい） */
+    private static final Comparator<LocationData> NEWER = Comparator
+            .comparing(LocationData::getTimestamp)
+            .thenComparing(LocationData::getId);
+
+    private final Path directory;
+    private final int compressionLevel;
+    private final SiteLocal<Tier> tiers;
+
+    /**
+     * ストアを生成し、保存されているセグメントを読み込む
+     *
+     * @param directory        セグメントを保存するディレクトリ（null の場合は無効）
+     * @param compressionLevel 圧縮レベル（{@link Deflater} の0～9または-1）
+     * @param siteTemplate     サイトのテンプレート
+     */
+    public SegmentStore(Path directory, int compressionLevel, SiteTemplate siteTemplate) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("compression-level must be between -1 and 9");
+        }
+        this.directory = directory;
+        this.compressionLevel = compressionLevel;
+        this.tiers = siteTemplate.local(Tier::new);
+        if (directory != null) {
+            tiers.forEach((site, tier) -> tier.load(directory.resolve(site), site));
+        }
+    }
+
+    /**
+     * セグメントを持たない無効なストアを生成
+     *
+     * @param siteTemplate サイトのテンプレート
+     * @return 無効なストア
+     */
+    public static SegmentStore disabled(SiteTemplate siteTemplate) {
+        return new SegmentStore(null, Deflater.DEFAULT_COMPRESSION, siteTemplate);
+    }
+
+    /**
+     * ストアが有効かを判定
+     *
+     * @return ディレクトリが指定されている場合true
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * 現在のサイトに期間のセグメントを作成
+     *
+     * 書き込み中のファイルは一時ファイルとし、書き込みとディスクへの反映が終わってから
+     * セグメントファイルの名前に移動します。行がなかった場合はセグメントを作成しません
+     *
+     * @param from 期間の開始時刻（ファイル名に使用）
+     * @param to   期間の終了時刻（ファイル名に使用）
+     * @param rows 書き込む行をコールバックへ渡す処理（同じデバイスの行はタイムスタンプ順に続けて渡す）
+     * @return 作成したセグメントのメタデータ（行がなかった場合は null）
+     * @throws IllegalStateException ストアが無効な場合
+     * @throws UncheckedIOException  書き込みに失敗した場合
+     */
+    public SegmentInfo write(LocalDateTime from, LocalDateTime to, Consumer<Consumer<LocationData>> rows) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("セグメントの保存先が設定されていません");
+        }
+        Tier tier = tiers.get();
+        long sequence = tier.reserveSequence();
+        String name = String.format("%010d-%s-%s", sequence, NAME_TIME.format(from), NAME_TIME.format(to));
+        Path temp = tier.directory.resolve(name + TEMP_SUFFIX);
+        try {
+            try (SegmentWriter writer = new SegmentWriter(temp, compressionLevel)) {
+                rows.accept(location -> {
+                    try {
+                        writer.write(location);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (writer.getRowCount() == 0) {
+                    Files.deleteIfExists(temp);
+                    return null;
+                }
+                writer.finish();
+            }
+            Path target = tier.directory.resolve(name + SEGMENT_SUFFIX);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            Segment segment = Segment.open(target, sequence, tier.site);
+            tier.add(segment);
+            return segment.getInfo();
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("セグメントを作成できません: " + name, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        } finally {
+            tier.release(sequence);
+        }
+    }
+
+    /**
+     * 現在のサイトのセグメントから範囲内の位置情報を1行ずつ読み出す
+     *
+     * 期間が重ならないセグメントと、デバイスや期間が一致しないブロックは展開せずに読み飛ばします。
+     * 行はセグメントの期間順・ブロック内のタイムスタンプ順に渡しますが、全体での順序は保証しません
+     *
+     * @param deviceId     デバイスID（null の場合は全デバイス）
+     * @param startTime    開始時刻（この時刻を含む、null の場合は下限なし）
+     * @param endTime      終了時刻（null の場合は上限なし）
+     * @param endInclusive 終了時刻を含む場合true
+     * @param consumer     各行を受け取るコールバック
+     * @throws UncheckedIOException 読み込みに失敗した場合
+     */
+    public void stream(String deviceId, LocalDateTime startTime, LocalDateTime endTime, boolean endInclusive,
+            Consumer<LocationData> consumer) {
+        long from = lowerBound(startTime);
+        long to = upperBound(endTime, endInclusive);
+        Tier tier = tiers.get();
+        List<Tombstone> tombstones = tier.tombstones;
+        for (Segment segment : tier.segments) {
+            if (!segment.overlaps(from, to)) {
+                continue;
+            }
+            List<Tombstone> applicable = applicable(tombstones, segment);
+            for (Segment.Block block : segment.blocks(deviceId)) {
+                if (!block.overlaps(from, to) || covered(applicable, block)) {
+                    continue;
+                }
+                List<Tombstone> partial = overlapping(applicable, block);
+                read(segment, block, from, to, partial.isEmpty() ? consumer : location -> {
+                    if (!deleted(partial, location)) {
+                        consumer.accept(location);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 現在のサイトのセグメントからIDで位置情報を取得
+     *
+     * フッターのIDの範囲に含まれないセグメントとブロックは展開しません（以前の形式のブロックは展開します）
+     *
+     * @param id 位置情報ID
+     * @return 位置情報（セグメントにない場合や削除済みの場合は空）
+     * @throws UncheckedIOException 読み込みに失敗した場合
+     */
+    public Optional<LocationData> findById(long id) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        List<LocationData> found = new ArrayList<>(1);
+        Tier tier = tiers.get();
+        List<Tombstone> tombstones = tier.tombstones;
+        for (Segment segment : tier.segments) {
+            if (!segment.mayContain(id)) {
+                continue;
+            }
+            List<Tombstone> applicable = applicable(tombstones, segment);
+            for (Segment.Block block : segment.blocks(null)) {
+                if (!found.isEmpty()) {
+                    return Optional.of(found.get(0));
+                }
+                if (!block.mayContain(id) || covered(applicable, block)) {
+                    continue;
+                }
+                List<Tombstone> partial = overlapping(applicable, block);
+                read(segment, block, Long.MIN_VALUE, Long.MAX_VALUE, location -> {
+                    if (location.getId() == id && !deleted(partial, location)) {
+                        found.add(location);
+                    }
+                });
+            }
+        }
+        return found.stream().findFirst();
+    }
+
+    /**
+     * 現在のサイトのセグメントから、指定時刻の時点でのデバイスごとの最新の位置情報を1行ずつ読み出す
+     *
+     * デバイスごとに時点以前に始まるブロックを終了時刻の新しい順に展開し、
+     * 見つけた位置情報より新しい行を含み得ないブロックは展開しません
+     *
+     * @param at       基準時刻（この時刻を含む）
+     * @param consumer 各デバイスの最新の位置情報を受け取るコールバック（順不同）
+     * @throws UncheckedIOException 読み込みに失敗した場合
+     */
+    public void streamLatestPerDevice(LocalDateTime at, Consumer<LocationData> consumer) {
+        if (!isEnabled()) {
+            return;
+        }
+        long to = upperBound(at, true);
+        Tier tier = tiers.get();
+        List<Tombstone> tombstones = tier.tombstones;
+        Map<String, List<Candidate>> byDevice = new HashMap<>();
+        for (Segment segment : tier.segments) {
+            List<Tombstone> applicable = applicable(tombstones, segment);
+            for (Segment.Block block : segment.blocks(null)) {
+                if (block.minTimestamp() <= to && !covered(applicable, block)) {
+                    byDevice.computeIfAbsent(block.deviceId(), device -> new ArrayList<>())
+                            .add(new Candidate(segment, block, overlapping(applicable, block)));
+                }
+            }
+        }
+        for (List<Candidate> candidates : byDevice.values()) {
+            candidates.sort(Comparator.comparingLong((Candidate candidate) -> candidate.block().maxTimestamp())
+                    .reversed());
+            LocationData[] latest = new LocationData[1];
+            for (Candidate candidate : candidates) {
+                if (latest[0] != null
+                        && candidate.block().maxTimestamp() < SegmentWriter.toEpochNanos(latest[0].getTimestamp())) {
+                    break;
+                }
+                read(candidate.segment(), candidate.block(), Long.MIN_VALUE, to, location -> {
+                    if (!deleted(candidate.partial(), location)
+                            && (latest[0] == null || NEWER.compare(location, latest[0]) > 0)) {
+                        latest[0] = location;
+                    }
+                });
+            }
+            if (latest[0] != null) {
+                consumer.accept(latest[0]);
+            }
+        }
+    }
+
+    /**
+     * 現在のサイトのセグメントにある位置情報の最古・最新のタイムスタンプを取得
+     *
+     * ブロックの期間から求めるため、一部の行だけを削除したブロックでは削除した行の時刻を含むことがあります
+     *
+     * @param deviceId デバイスID（null の場合は全デバイス）
+     * @return [最古, 最新]（位置情報がない場合は空）
+     */
+    public Optional<LocalDateTime[]> findTimestampBounds(String deviceId) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        Tier tier = tiers.get();
+        List<Tombstone> tombstones = tier.tombstones;
+        for (Segment segment : tier.segments) {
+            List<Tombstone> applicable = applicable(tombstones, segment);
+            for (Segment.Block block : segment.blocks(deviceId)) {
+                if (!covered(applicable, block)) {
+                    min = Math.min(min, block.minTimestamp());
+                    max = Math.max(max, block.maxTimestamp());
+                }
+            }
+        }
+        if (min > max) {
+            return Optional.empty();
+        }
+        return Optional.of(new LocalDateTime[] { SegmentWriter.fromEpochNanos(min), SegmentWriter.fromEpochNanos(max) });
+    }
+
+    /**
+     * 現在のサイトのセグメントにある範囲内の位置情報の件数をデバイスごとに取得
+     *
+     * 範囲に含まれ、削除範囲と重ならないブロックはフッターの行数を使い、展開しません
+     *
+     * @param startTime 開始時刻（この時刻を含む）
+     * @param endTime   終了時刻（この時刻を含まない）
+     * @return デバイスIDごとの件数
+     * @throws UncheckedIOException 読み込みに失敗した場合
+     */
+    public Map<String, Long> countByDevice(LocalDateTime startTime, LocalDateTime endTime) {
+        return count(null, lowerBound(startTime), upperBound(endTime, false));
+    }
+
+    private Map<String, Long> count(String deviceId, long from, long to) {
+        Map<String, Long> counts = new HashMap<>();
+        Tier tier = tiers.get();
+        List<Tombstone> tombstones = tier.tombstones;
+        for (Segment segment : tier.segments) {
+            if (!segment.overlaps(from, to)) {
+                continue;
+            }
+            List<Tombstone> applicable = applicable(tombstones, segment);
+            for (Segment.Block block : segment.blocks(deviceId)) {
+                if (!block.overlaps(from, to) || covered(applicable, block)) {
+                    continue;
+                }
+                List<Tombstone> partial = overlapping(applicable, block);
+                if (partial.isEmpty() && block.within(from, to)) {
+                    counts.merge(block.deviceId(), (long) block.rowCount(), Long::sum);
+                    continue;
+                }
+                read(segment, block, from, to, location -> {
+                    if (!deleted(partial, location)) {
+                        counts.merge(location.getDeviceId(), 1L, Long::sum);
+                    }
+                });
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 現在のサイトのセグメントから範囲内の位置情報を削除
+     *
+     * デバイスを指定しない削除では、期間全体が範囲に含まれるセグメントをファイルごと削除します。
+     * 残りのセグメントに重なる部分は削除範囲として記録します
+     *
+     * @param deviceId  デバイスID（null の場合は全デバイス）
+     * @param startTime 開始時刻（この時刻を含む、null の場合は下限なし）
+     * @param endTime   終了時刻（この時刻を含む、null の場合は上限なし）
+     * @return 削除した（読み出されなくなった）位置情報の件数
+     * @throws UncheckedIOException 読み込みに失敗した場合や削除範囲を保存できない場合
+     */
+    public long delete(String deviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        long from = lowerBound(startTime);
+        long to = upperBound(endTime, true);
+        long deleted = count(deviceId, from, to).values().stream().mapToLong(Long::longValue).sum();
+        // 書き込み中のセグメントにも適用するため、件数が0でも削除範囲を記録する
+        tiers.get().delete(deviceId, from, to, null);
+        return deleted;
+    }
+
+    /**
+     * 現在のサイトのセグメントからIDで位置情報を削除
+     *
+     * @param id 位置情報ID
+     * @return 削除した場合true（セグメントにない場合や削除済みの場合はfalse）
+     * @throws UncheckedIOException 読み込みに失敗した場合や削除範囲を保存できない場合
+     */
+    public boolean deleteById(long id) {
+        Optional<LocationData> location = findById(id);
+        if (location.isEmpty()) {
+            return false;
+        }
+        long timestamp = SegmentWriter.toEpochNanos(location.get().getTimestamp());
+        tiers.get().delete(location.get().getDeviceId(), timestamp, timestamp, id);
+        return true;
+    }
+
+    /**
+     * 現在のサイトのセグメントと削除範囲をすべて削除
+     *
+     * @throws UncheckedIOException 削除範囲を保存できない場合
+     */
+    public void clear() {
+        if (isEnabled()) {
+            tiers.get().delete(null, Long.MIN_VALUE, Long.MAX_VALUE, null);
+        }
+    }
+
+    /**
+     * 現在のサイトのセグメントのメタデータを期間順に取得
+     *
+     * @return メタデータのリスト
+     */
+    public List<SegmentInfo> getSegments() {
+        return tiers.get().segments.stream().map(Segment::getInfo).toList();
+    }
+
+    /**
+     * 現在のサイトで記録されている削除範囲の数を取得
+     *
+     * @return 削除範囲の数
+     */
+    public int getTombstoneCount() {
+        return tiers.get().tombstones.size();
+    }
+
+    private static void read(Segment segment, Segment.Block block, long from, long to,
+            Consumer<LocationData> consumer) {
+        try {
+            segment.read(block, from, to, consumer);
+        } catch (NoSuchFileException e) {
+            // 読み出し中に削除されたセグメントは、削除後の状態として扱う
+            log.debug("削除されたセグメントを読み飛ばしました: {}", segment.getPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("セグメントを読み込めません: " + segment.getPath(), e);
+        }
+    }
+
+    private static List<Tombstone> applicable(List<Tombstone> tombstones, Segment segment) {
+        if (tombstones.isEmpty()) {
+            return tombstones;
+        }
+        return tombstones.stream().filter(tombstone -> tombstone.appliesTo(segment)).toList();
+    }
+
+    private static boolean covered(List<Tombstone> tombstones, Segment.Block block) {
+        for (Tombstone tombstone : tombstones) {
+            if (tombstone.id() == null && tombstone.matches(block.deviceId()) && tombstone.from() <= block.minTimestamp()
+                    && tombstone.to() >= block.maxTimestamp()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Tombstone> overlapping(List<Tombstone> tombstones, Segment.Block block) {
+        if (tombstones.isEmpty()) {
+            return tombstones;
+        }
+        return tombstones.stream()
+                .filter(tombstone -> tombstone.matches(block.deviceId()) && block.overlaps(tombstone.from(), tombstone.to()))
+                .toList();
+    }
+
+    private static boolean deleted(List<Tombstone> tombstones, LocationData location) {
+        long timestamp = SegmentWriter.toEpochNanos(location.getTimestamp());
+        for (Tombstone tombstone : tombstones) {
+            if (timestamp >= tombstone.from() && timestamp <= tombstone.to()
+                    && (tombstone.id() == null || tombstone.id() == location.getId().longValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long lowerBound(LocalDateTime startTime) {
+        return startTime != null ? SegmentWriter.toEpochNanos(startTime) : Long.MIN_VALUE;
+    }
+
+    private static long upperBound(LocalDateTime endTime, boolean endInclusive) {
+        if (endTime == null) {
+            return Long.MAX_VALUE;
+        }
+        long nanos = SegmentWriter.toEpochNanos(endTime);
+        return endInclusive ? nanos : nanos - 1;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("ファイルを削除できません: {}", path, e);
+        }
+    }
+
+    /**
+     * 1サイト分のセグメントと削除範囲
+     *
+     * 一覧は置き換えのみで更新するため、読み出しはロックを取らずに行えます
+     */
+    private static final class Tier {
+
+        private Path directory;
+        private String site;
+        private long nextSequence = 1;
+        private final Set<Long> writing = new HashSet<>();
+        private volatile List<Segment> segments = List.of();
+        private volatile List<Tombstone> tombstones = List.of();
+
+        /**
+         * ディレクトリのセグメントと削除範囲を読み込む
+         */
+        synchronized void load(Path directory, String site) {
+            this.directory = directory;
+            this.site = site;
+            List<Segment> loaded = new ArrayList<>();
+            try {
+                Files.createDirectories(directory);
+                List<Path> files;
+                try (Stream<Path> list = Files.list(directory)) {
+                    files = list.toList();
+                }
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(TEMP_SUFFIX)) {
+                        // 書き込み途中で停止したセグメント（行はデータベースに残っている）
+                        deleteQuietly(file);
+                    } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                        try {
+                            long sequence = Long.parseLong(name.substring(0, name.indexOf('-')));
+                            loaded.add(Segment.open(file, sequence, site));
+                            nextSequence = Math.max(nextSequence, sequence + 1);
+                        } catch (IOException | RuntimeException e) {
+                            log.error("セグメントを読み込めないため除外します: {}", file, e);
+                        }
+                    }
+                }
+                tombstones = readTombstones(directory.resolve(TOMBSTONE_FILE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("セグメントのディレクトリを読み込めません: " + directory, e);
+            }
+            loaded.sort(BY_TIME);
+            segments = List.copyOf(loaded);
+            if (!loaded.isEmpty()) {
+                log.info("セグメントを読み込みました: site={}, セグメント数={}, 削除範囲={}",
+                        site, loaded.size(), tombstones.size());
+            }
+        }
+
+        /**
+         * 作成するセグメントの連番を払い出す
+         */
+        synchronized long reserveSequence() {
+            long sequence = nextSequence++;
+            writing.add(sequence);
+            return sequence;
+        }
+
+        synchronized void release(long sequence) {
+            writing.remove(sequence);
+        }
+
+        synchronized void add(Segment segment) {
+            List<Segment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            updated.sort(BY_TIME);
+            segments = List.copyOf(updated);
+        }
+
+        /**
+         * 削除範囲を記録し、範囲に含まれるセグメントと使われなくなった削除範囲を削除する
+         *
+         * 削除範囲は書き込み中のセグメントにも適用し、書き込み中のセグメントがある間は破棄しません。
+         * IDを指定した場合は、範囲内のそのIDの行だけを削除します
+         */
+        synchronized void delete(String deviceId, long from, long to, Long id) {
+            List<Segment> remaining = new ArrayList<>();
+            List<Segment> dropped = new ArrayList<>();
+            for (Segment segment : segments) {
+                (deviceId == null && id == null && segment.within(from, to) ? dropped : remaining).add(segment);
+            }
+            long firstWriting = writing.stream().mapToLong(Long::longValue).min().orElse(Long.MAX_VALUE);
+            List<Tombstone> updated = new ArrayList<>();
+            for (Tombstone tombstone : tombstones) {
+                if (tombstone.maxSequence() >= firstWriting || tombstone.isUsedBy(remaining)) {
+                    updated.add(tombstone);
+                }
+            }
+            Tombstone added = new Tombstone(deviceId, from, to, nextSequence - 1, id);
+            if (added.maxSequence() >= firstWriting || added.isUsedBy(remaining)) {
+                updated.add(added);
+            }
+            try {
+                writeTombstones(directory.resolve(TOMBSTONE_FILE), updated);
+            } catch (IOException e) {
+                throw new UncheckedIOException("削除範囲を保存できません: " + directory, e);
+            }
+            tombstones = List.copyOf(updated);
+            segments = List.copyOf(remaining);
+            for (Segment segment : dropped) {
+                deleteQuietly(segment.getPath());
+            }
+            if (!dropped.isEmpty()) {
+                log.info("セグメントを削除しました: site={}, セグメント数={}", site, dropped.size());
+            }
+        }
+
+        /**
+         * 削除範囲を読み込む
+         *
+         * 範囲の一覧の後にIDを指定した削除範囲の一覧が続きます（IDの一覧がないファイルも読み込めます）
+         */
+        private static List<Tombstone> readTombstones(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return List.of();
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+                int count = in.readInt();
+                List<Tombstone> result = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String deviceId = in.readBoolean() ? in.readUTF() : null;
+                    result.add(new Tombstone(deviceId, in.readLong(), in.readLong(), in.readLong(), null));
+                }
+                int idCount = in.available() > 0 ? in.readInt() : 0;
+                for (int i = 0; i < idCount; i++) {
+                    String deviceId = in.readUTF();
+                    long timestamp = in.readLong();
+                    long maxSequence = in.readLong();
+                    result.add(new Tombstone(deviceId, timestamp, timestamp, maxSequence, in.readLong()));
+                }
+                return List.copyOf(result);
+            }
+        }
+
+        private static void writeTombstones(Path file, List<Tombstone> tombstones) throws IOException {
+            List<Tombstone> ranges = tombstones.stream().filter(tombstone -> tombstone.id() == null).toList();
+            List<Tombstone> ids = tombstones.stream().filter(tombstone -> tombstone.id() != null).toList();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(ranges.size());
+                for (Tombstone tombstone : ranges) {
+                    out.writeBoolean(tombstone.deviceId() != null);
+                    if (tombstone.deviceId() != null) {
+                        out.writeUTF(tombstone.deviceId());
+                    }
+                    out.writeLong(tombstone.from());
+                    out.writeLong(tombstone.to());
+                    out.writeLong(tombstone.maxSequence());
+                }
+                if (!ids.isEmpty()) {
+                    out.writeInt(ids.size());
+                    for (Tombstone tombstone : ids) {
+                        out.writeUTF(tombstone.deviceId());
+                        out.writeLong(tombstone.from());
+                        out.writeLong(tombstone.maxSequence());
+                        out.writeLong(tombstone.id());
+                    }
+                }
+            }
+            Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 最新の位置情報を探すブロック
+     *
+     * @param segment セグメント
+     * @param block   ブロック
+     * @param partial ブロックの一部に重なる削除範囲
+     */
+    private record Candidate(Segment segment, Segment.Block block, List<Tombstone> partial) {
+    }
+
+    /**
+     * セグメントに記録された削除範囲
+     *
+     * @param deviceId    デバイスID（null の場合は全デバイス）
+     * @param from        開始時刻（エポックナノ秒、この時刻を含む）
+     * @param to          終了時刻（エポックナノ秒、この時刻を含む）
+     * @param maxSequence 削除範囲を適用する最後のセグメントの連番
+     * @param id          削除する位置情報ID（null の場合は範囲内のすべての行）
+     */
+    private record Tombstone(String deviceId, long from, long to, long maxSequence, Long id) {
+
+        boolean matches(String device) {
+            return deviceId == null || deviceId.equals(device);
+        }
+
+        boolean appliesTo(Segment segment) {
+            return segment.getSequence() <= maxSequence && segment.overlaps(from, to);
+        }
+
+        boolean isUsedBy(List<Segment> segments) {
+            return segments.stream().anyMatch(segment -> appliesTo(segment)
+                    && segment.blocks(deviceId).stream().anyMatch(block -> block.overlaps(from, to)));
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.iotble.tier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.example.iotble.core.PackedLocation;
+import com.example.iotble.model.LocationData;
+
+/**
+ * 位置情報を圧縮済みセグメント形式（LSEG）で書き出すライター
+ *
+ * 行はデバイスごとのブロックにまとめてDeflateで圧縮します。同じデバイスの行が続く間は
+ * 同じブロックに追加し、デバイスが変わるか行数が上限に達した時点でブロックを書き出します。
+ * 数値はすべてビッグエンディアン、時刻はUTCとみなしたエポックナノ秒です。
+ * 測定値は {@link PackedLocation} の固定小数点の整数（緯度・経度は1e-7度、高度・精度はセンチメートル）です。
+ *
+ * <pre>
+ * ファイル   := ヘッダー ブロック* フッター
+ * ヘッダー   := "LSEG" version(int)
+ * ブロック   := deflate(行*)
+ * 行         := idDelta(long) timestampDelta(long) latitudeE7(int) longitudeE7(int) flags(byte)
+ *               [createdAtOffset(long)] [altitudeCm(int)] [accuracyCm(int)] [rssi(short)]
+ *               [smoothedLatitudeE7(int) smoothedLongitudeE7(int)]
+ * フッター   := rowCount(long) minTimestamp(long) maxTimestamp(long)
+ *               minLatitude(double) minLongitude(double) maxLatitude(double) maxLongitude(double)
+ *               blockCount(int) (deviceId(utf) offset(long) length(int) rowCount(int)
+ *               minTimestamp(long) maxTimestamp(long) minId(long) maxId(long))*
+ *               footerLength(int) "LSEG"
+ * </pre>
+ *
+ * ID とタイムスタンプはブロック内の直前の行との差分、作成日時はタイムスタンプとの差分です。
+ * flags のビットが1の項目だけ値を持ち、0の項目はnullです。
+ * バージョン1の行は測定値をすべて double（rssi は int）で持ち、バージョン1・2のフッターはブロックのIDの範囲を持ちません。
+ * 読み込みはすべてのバージョンに対応します。
+ * {@link #finish()} を呼ばずに閉じたファイルは不完全なため、呼び出し側で削除してください
+ */
+final class SegmentWriter implements Closeable {
+
+    /** ファイル先頭と末尾のマジックナンバー */
+    static final byte[] MAGIC = "LSEG".getBytes(StandardCharsets.US_ASCII);
+
+    /** 形式のバージョン */
+    static final int VERSION = 3;
+
+    /** ブロックのIDの範囲をフッターに持たない以前の形式のバージョン */
+    static final int PACKED_VERSION = 2;
+
+    /** 測定値を double で持つ以前の形式のバージョン */
+    static final int DOUBLE_VERSION = 1;
+
+    /** ヘッダーのバイト数 */
+    static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES;
+
+    /** 1ブロックの最大行数（デバイス内の期間で読み飛ばせる単位） */
+    static final int MAX_BLOCK_ROWS = 4096;
+
+    /** flags の下位1ビットは作成日時、残りは {@link PackedLocation} のビットを1つずらしたもの */
+    static final int HAS_CREATED_AT = 1;
+    static final int HAS_ALTITUDE = PackedLocation.HAS_ALTITUDE << 1;
+    static final int HAS_ACCURACY = PackedLocation.HAS_ACCURACY << 1;
+    static final int HAS_RSSI = PackedLocation.HAS_RSSI << 1;
+    static final int HAS_SMOOTHED = PackedLocation.HAS_SMOOTHED << 1;
+
+    private final FileChannel channel;
+    private final Deflater deflater;
+    private final List<Segment.Block> blocks = new ArrayList<>();
+    private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+
+    private DataOutputStream blockOut;
+    private String blockDevice;
+    private int blockRows;
+    private long blockMinTimestamp;
+    private long blockMaxTimestamp;
+    private long blockMinId;
+    private long blockMaxId;
+    private long previousId;
+    private long previousTimestamp;
+
+    private long rowCount;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private double minLatitude = Double.POSITIVE_INFINITY;
+    private double minLongitude = Double.POSITIVE_INFINITY;
+    private double maxLatitude = Double.NEGATIVE_INFINITY;
+    private double maxLongitude = Double.NEGATIVE_INFINITY;
+
+    /**
+     * ファイルを作成してヘッダーを書き込む
+     *
+     * @param path             作成するファイルのパス（既に存在する場合は失敗）
+     * @param compressionLevel 圧縮レベル（{@link Deflater} の0～9または-1）
+     * @throws IOException ファイルを作成できない場合
+     */
+    SegmentWriter(Path path, int compressionLevel) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.deflater = new Deflater(compressionLevel);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).putInt(VERSION).flip();
+        writeFully(header);
+    }
+
+    /**
+     * 位置情報を1行書き込む
+     *
+     * 同じデバイスの行はタイムスタンプ順に続けて渡すと、ブロックの期間が狭くなり読み飛ばしが効きます
+     *
+     * @param location 位置情報（ID・デバイスID・座標・タイムスタンプは必須）
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void write(LocationData location) throws IOException {
+        if (!location.getDeviceId().equals(blockDevice) || blockRows >= MAX_BLOCK_ROWS) {
+            flushBlock();
+            startBlock(location.getDeviceId());
+        }
+        long timestamp = toEpochNanos(location.getTimestamp());
+        PackedLocation packed = location.toPacked();
+        int flags = (location.getCreatedAt() != null ? HAS_CREATED_AT : 0) | packed.flags() << 1;
+
+        blockOut.writeLong(location.getId() - previousId);
+        blockOut.writeLong(timestamp - previousTimestamp);
+        blockOut.writeInt(packed.latitudeE7());
+        blockOut.writeInt(packed.longitudeE7());
+        blockOut.writeByte(flags);
+        if ((flags & HAS_CREATED_AT) != 0) {
+            blockOut.writeLong(toEpochNanos(location.getCreatedAt()) - timestamp);
+        }
+        if ((flags & HAS_ALTITUDE) != 0) {
+            blockOut.writeInt(packed.altitudeCm());
+        }
+        if ((flags & HAS_ACCURACY) != 0) {
+            blockOut.writeInt(packed.accuracyCm());
+        }
+        if ((flags & HAS_RSSI) != 0) {
+            blockOut.writeShort(packed.rssiDbm());
+        }
+        if ((flags & HAS_SMOOTHED) != 0) {
+            blockOut.writeInt(packed.smoothedLatitudeE7());
+            blockOut.writeInt(packed.smoothedLongitudeE7());
+            extend(packed.smoothedLatitudeE7(), packed.smoothedLongitudeE7());
+        }
+        extend(packed.latitudeE7(), packed.longitudeE7());
+
+        previousId = location.getId();
+        previousTimestamp = timestamp;
+        blockRows++;
+        blockMinTimestamp = Math.min(blockMinTimestamp, timestamp);
+        blockMaxTimestamp = Math.max(blockMaxTimestamp, timestamp);
+        blockMinId = Math.min(blockMinId, location.getId());
+        blockMaxId = Math.max(blockMaxId, location.getId());
+        rowCount++;
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+    }
+
+    /**
+     * 書き込んだ行数を取得
+     *
+     * @return 行数
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 最後のブロックとフッターを書き込み、ディスクへの書き込みを待ってファイルを閉じる
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void finish() throws IOException {
+        flushBlock();
+        ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+        DataOutputStream footer = new DataOutputStream(footerBytes);
+        footer.writeLong(rowCount);
+        footer.writeLong(minTimestamp);
+        footer.writeLong(maxTimestamp);
+        footer.writeDouble(minLatitude);
+        footer.writeDouble(minLongitude);
+        footer.writeDouble(maxLatitude);
+        footer.writeDouble(maxLongitude);
+        footer.writeInt(blocks.size());
+        for (Segment.Block block : blocks) {
+            footer.writeUTF(block.deviceId());
+            footer.writeLong(block.offset());
+            footer.writeInt(block.length());
+            footer.writeInt(block.rowCount());
+            footer.writeLong(block.minTimestamp());
+            footer.writeLong(block.maxTimestamp());
+            footer.writeLong(block.minId());
+            footer.writeLong(block.maxId());
+        }
+        footer.writeInt(footerBytes.size());
+        footer.write(MAGIC);
+        writeFully(ByteBuffer.wrap(footerBytes.toByteArray()));
+        channel.force(true);
+        close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        channel.close();
+    }
+
+    /**
+     * ブロックの書き込みを始める
+     */
+    private void startBlock(String deviceId) {
+        deflater.reset();
+        blockBytes.reset();
+        blockOut = new DataOutputStream(new DeflaterOutputStream(blockBytes, deflater));
+        blockDevice = deviceId;
+        blockRows = 0;
+        blockMinTimestamp = Long.MAX_VALUE;
+        blockMaxTimestamp = Long.MIN_VALUE;
+        blockMinId = Long.MAX_VALUE;
+        blockMaxId = Long.MIN_VALUE;
+        previousId = 0;
+        previousTimestamp = 0;
+    }
+
+    /**
+     * 書き込み中のブロックを圧縮してファイルへ書き出す
+     */
+    private void flushBlock() throws IOException {
+        if (blockOut == null || blockRows == 0) {
+            return;
+        }
+        blockOut.close();
+        long offset = channel.position();
+        writeFully(ByteBuffer.wrap(blockBytes.toByteArray()));
+        blocks.add(new Segment.Block(blockDevice, offset, blockBytes.size(), blockRows,
+                blockMinTimestamp, blockMaxTimestamp, blockMinId, blockMaxId));
+        blockOut = null;
+        blockDevice = null;
+    }
+
+    private void extend(int latitudeE7, int longitudeE7) {
+        double latitude = PackedLocation.fromE7(latitudeE7);
+        double longitude = PackedLocation.fromE7(longitudeE7);
+        minLatitude = Math.min(minLatitude, latitude);
+        minLongitude = Math.min(minLongitude, longitude);
+        maxLatitude = Math.max(maxLatitude, latitude);
+        maxLongitude = Math.max(maxLongitude, longitude);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 時刻をUTCとみなしたエポックナノ秒に変換
+     */
+    static long toEpochNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    /**
+     * UTCとみなしたエポックナノ秒を時刻に変換
+     */
+    static LocalDateTime fromEpochNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
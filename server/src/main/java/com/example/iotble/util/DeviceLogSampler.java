@@ -0,0 +1,95 @@
+package com.example.iotble.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * デバイスごとのログの間引き
+ *
+ * デバイスごとに一定時間に1回だけログの出力を許可し、それ以外の出力は件数だけを数えます。
+ * 許可したときに前回からの間引いた件数を返すため、ログには「この間に何件あったか」を残せます。
+ * 間隔が0の場合は間引かず、デバイスの状態も保持しません。
+ * 保持するデバイス数が上限に達した場合は、状態をすべて破棄してから数え直します
+ */
+public final class DeviceLogSampler {
+
+    /** 出力を間引いたことを表す戻り値 */
+    public static final long SUPPRESSED = -1;
+
+    private final long intervalNanos;
+    private final int maxDevices;
+    private final LongSupplier nanoClock;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * @param intervalMillis デバイスごとにログを出力する間隔（ミリ秒、0で間引かない）
+     * @param maxDevices     状態を保持するデバイス数の上限
+     */
+    public DeviceLogSampler(long intervalMillis, int maxDevices) {
+        this(intervalMillis, maxDevices, System::nanoTime);
+    }
+
+    DeviceLogSampler(long intervalMillis, int maxDevices, LongSupplier nanoClock) {
+        if (intervalMillis < 0 || maxDevices <= 0) {
+            throw new IllegalArgumentException(
+                    "間隔は0以上、デバイス数の上限は正の値にしてください: " + intervalMillis + ", " + maxDevices);
+        }
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.maxDevices = maxDevices;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 間引かずにすべての出力を許可する
+     *
+     * @return 間引かない {@link DeviceLogSampler}
+     */
+    public static DeviceLogSampler unsampled() {
+        return new DeviceLogSampler(0, 1);
+    }
+
+    /**
+     * デバイスのログを出力してよいか判定
+     *
+     * @param deviceId デバイスID
+     * @return 出力する場合は前回の出力以降に間引いた件数（0以上）、間引く場合は {@link #SUPPRESSED}
+     */
+    public long sample(String deviceId) {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        Slot slot = slots.get(deviceId);
+        if (slot == null) {
+            if (slots.size() >= maxDevices) {
+                slots.clear();
+            }
+            slot = slots.computeIfAbsent(deviceId, id -> new Slot(now));
+        }
+        long next = slot.nextAt.get();
+        if (now - next >= 0 && slot.nextAt.compareAndSet(next, now + intervalNanos)) {
+            return slot.suppressed.getAndSet(0);
+        }
+        slot.suppressed.incrementAndGet();
+        return SUPPRESSED;
+    }
+
+    /**
+     * デバイスごとの状態
+     */
+    private static final class Slot {
+
+        /** 次に出力を許可する時刻 */
+        private final AtomicLong nextAt;
+
+        /** 前回の出力以降に間引いた件数 */
+        private final AtomicLong suppressed = new AtomicLong();
+
+        Slot(long now) {
+            this.nextAt = new AtomicLong(now);
+        }
+    }
+}
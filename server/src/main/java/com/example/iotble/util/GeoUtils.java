@@ -0,0 +1,71 @@
+package com.example.iotble.util;
+
+/**
+ * 地理座標の計算ユーティリティ
+ */
+public final class GeoUtils {
+
+    /** 地球の平均半径（メートル） */
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * 2点間の大円距離をハーバーサイン公式で計算
+     * 
+     * @param lat1 地点1の緯度
+     * @param lon1 地点1の経度
+     * @param lat2 地点2の緯度
+     * @param lon2 地点2の経度
+     * @return 距離（メートル）
+     */
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        double sinDeltaLambda = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double a = sinDeltaPhi * sinDeltaPhi + Math.cos(phi1) * Math.cos(phi2) * sinDeltaLambda * sinDeltaLambda;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * 地点から緯度・経度の範囲（矩形）までの最短の大円距離を計算
+     * 
+     * 範囲は経度180度をまたがないものとします。地点が範囲内にある場合は0を返します
+     * 
+     * @param lat    地点の緯度
+     * @param lon    地点の経度
+     * @param minLat 範囲の南端の緯度
+     * @param maxLat 範囲の北端の緯度
+     * @param minLon 範囲の西端の経度
+     * @param maxLon 範囲の東端の経度
+     * @return 距離（メートル）
+     */
+    public static double minDistanceToBoxMeters(double lat, double lon, double minLat, double maxLat,
+            double minLon, double maxLon) {
+        if (lon >= minLon && lon <= maxLon) {
+            // 同じ経線上で最も近い緯度が最短になる（経線に沿った距離は緯度の差に比例する）
+            return Math.toRadians(Math.abs(lat - clamp(lat, minLat, maxLat))) * EARTH_RADIUS_METERS;
+        }
+        return Math.min(distanceToMeridianSegment(lat, lon, minLon, minLat, maxLat),
+                distanceToMeridianSegment(lat, lon, maxLon, minLat, maxLat));
+    }
+
+    /**
+     * 地点から経線上の区間までの最短の大円距離
+     * 
+     * 経線の大円上で地点に最も近い緯度を求め、区間に収めます（経線に沿った距離は単峰のため区間内の最短になる）
+     */
+    private static double distanceToMeridianSegment(double lat, double lon, double meridian, double minLat,
+            double maxLat) {
+        double phi = Math.toRadians(lat);
+        double deltaLambda = Math.toRadians(meridian - lon);
+        double nearest = Math.toDegrees(Math.atan2(Math.sin(phi), Math.cos(phi) * Math.cos(deltaLambda)));
+        return haversineMeters(lat, lon, clamp(clamp(nearest, -90, 90), minLat, maxLat), meridian);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.iotble.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * リクエストを優先度に分類して {@link AdmissionGate} で受け付けを判定するフィルター
+ *
+ * 優先度はメソッドとパスの規則（{@code "POST /api/locations"} または {@code "/api/exports/**"}）で決め、
+ * どの規則にも一致しないリクエストは {@link RequestPriority#INTERACTIVE} として扱います。
+ * 断ったリクエストには {@code Retry-After} と理由を返します。
+ * 位置情報の登録は {@code 503 Service Unavailable}、それ以外は呼び出し側に頻度を下げてもらうため
+ * {@code 429 Too Many Requests} で応答します
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdmissionGate gate;
+    private final List<RequestRule> ingestRules;
+    private final List<RequestRule> backgroundRules;
+    private final List<RequestRule> exemptRules;
+    private final long retryAfterSeconds;
+    private final long backgroundRetryAfterSeconds;
+
+    /**
+     * フィルターを生成
+     *
+     * @param gate                        受け付け制御
+     * @param ingestRules                 位置情報の登録として扱う規則
+     * @param backgroundRules             重いリクエストとして扱う規則
+     * @param exemptRules                 受け付け制御の対象外とする規則
+     * @param retryAfterSeconds           断った場合の再試行までの最短の秒数
+     * @param backgroundRetryAfterSeconds 重いリクエストを断った場合の再試行までの最短の秒数
+     */
+    public AdmissionControlFilter(AdmissionGate gate, List<String> ingestRules, List<String> backgroundRules,
+            List<String> exemptRules, long retryAfterSeconds, long backgroundRetryAfterSeconds) {
+        this.gate = gate;
+        this.ingestRules = RequestRule.parseAll(ingestRules);
+        this.backgroundRules = RequestRule.parseAll(backgroundRules);
+        this.exemptRules = RequestRule.parseAll(exemptRules);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.backgroundRetryAfterSeconds = backgroundRetryAfterSeconds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return RequestRule.matchesAny(exemptRules, request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestPriority priority = classify(request);
+        AdmissionGate.Outcome outcome = gate.acquire(priority);
+        if (outcome != AdmissionGate.Outcome.ADMITTED) {
+            reject(response, priority, outcome);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            gate.release();
+        }
+    }
+
+    /**
+     * リクエストの優先度を決める
+     *
+     * @param request リクエスト
+     * @return 優先度
+     */
+    RequestPriority classify(HttpServletRequest request) {
+        if (RequestRule.matchesAny(ingestRules, request)) {
+            return RequestPriority.INGEST;
+        }
+        if (RequestRule.matchesAny(backgroundRules, request)) {
+            return RequestPriority.BACKGROUND;
+        }
+        return RequestPriority.INTERACTIVE;
+    }
+
+    private void reject(HttpServletResponse response, RequestPriority priority, AdmissionGate.Outcome outcome)
+            throws IOException {
+        HttpStatus status = priority == RequestPriority.INGEST
+                ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.TOO_MANY_REQUESTS;
+        long retryAfter = gate.retryAfterSeconds(
+                priority == RequestPriority.BACKGROUND ? backgroundRetryAfterSeconds : retryAfterSeconds);
+        log.debug("混雑のためリクエストを断りました: 優先度={}, 理由={}", priority, outcome);
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(String.format(Locale.ROOT,
+                "{\"error\":\"混雑のため受け付けられませんでした。しばらくしてから再試行してください\","
+                        + "\"priority\":\"%s\",\"reason\":\"%s\",\"retryAfterSeconds\":%d}",
+                priority.name().toLowerCase(Locale.ROOT), outcome.name().toLowerCase(Locale.ROOT), retryAfter));
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.iotble.web;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import lombok.Builder;
+
+/**
+ * 優先度付きのリクエストの受け付け制御
+ *
+ * 処理中のリクエスト数に優先度ごとの上限を設け、優先度の低いリクエストほど少ない処理中の数で受け付けを止めます。
+ * 上限に達したリクエストは優先度ごとの時間まで待ち、枠が空くと優先度の高い待機から順に受け付けます。
+ * 待ち時間（キューの待ち時間）は指数移動平均で追跡し、一定時間ごとに半減させます。
+ * 平均が優先度ごとのしきい値を超えると、処理中の数に関わらず優先度の低いリクエストから受け付けを止めます。
+ * 位置情報の登録はしきい値を持たず、処理中の数の上限に達して待ち時間を過ぎた場合だけ断ります
+ */
+public class AdmissionGate {
+
+    /** 待ち時間の平均に新しい待ち時間を反映する割合 */
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    /**
+     * 受け付けの結果
+     */
+    public enum Outcome {
+        /** 受け付けた */
+        ADMITTED,
+        /** 処理中の数が上限に達していたため断った */
+        SHED_CAPACITY,
+        /** キューの待ち時間がしきい値を超えていたため断った */
+        SHED_LATENCY,
+        /** 待ち時間内に枠が空かなかったため断った */
+        TIMED_OUT
+    }
+
+    /**
+     * 受け付け制御の設定
+     *
+     * @param maxConcurrent                    処理中のリクエスト数の上限（位置情報の登録の上限）
+     * @param interactiveShare                 軽いリクエストを受け付ける処理中の数の割合
+     * @param backgroundShare                  重いリクエストを受け付ける処理中の数の割合
+     * @param ingestMaxWaitMillis              位置情報の登録が枠の空きを待つ時間
+     * @param interactiveMaxWaitMillis         軽いリクエストが枠の空きを待つ時間
+     * @param backgroundMaxWaitMillis          重いリクエストが枠の空きを待つ時間
+     * @param interactiveMaxQueueLatencyMillis 軽いリクエストを断るキューの待ち時間の平均
+     * @param backgroundMaxQueueLatencyMillis  重いリクエストを断るキューの待ち時間の平均
+     * @param latencyHalfLifeMillis            待ち時間の平均が半減する時間
+     */
+    @Builder
+    public record Options(int maxConcurrent, double interactiveShare, double backgroundShare,
+            long ingestMaxWaitMillis, long interactiveMaxWaitMillis, long backgroundMaxWaitMillis,
+            long interactiveMaxQueueLatencyMillis, long backgroundMaxQueueLatencyMillis,
+            long latencyHalfLifeMillis) {
+
+        public Options {
+            if (maxConcurrent <= 0) {
+                throw new IllegalArgumentException("maxConcurrent は正の値にしてください: " + maxConcurrent);
+            }
+            if (!(backgroundShare > 0 && backgroundShare <= interactiveShare && interactiveShare <= 1)) {
+                throw new IllegalArgumentException(
+                        "0 < backgroundShare <= interactiveShare <= 1 にしてください: " + backgroundShare + ", "
+                                + interactiveShare);
+            }
+            if (ingestMaxWaitMillis < 0 || interactiveMaxWaitMillis < 0 || backgroundMaxWaitMillis < 0
+                    || interactiveMaxQueueLatencyMillis <= 0 || backgroundMaxQueueLatencyMillis <= 0
+                    || latencyHalfLifeMillis <= 0) {
+                throw new IllegalArgumentException("待ち時間の設定は0以上（しきい値と半減期は正の値）にしてください");
+            }
+        }
+    }
+
+    /**
+     * 優先度ごとの受け付けの件数
+     *
+     * @param admitted     受け付けた件数
+     * @param shedCapacity 処理中の数の上限で断った件数
+     * @param shedLatency  キューの待ち時間で断った件数
+     * @param timedOut     待ち時間内に枠が空かずに断った件数
+     * @param waiting      枠の空きを待っている数
+     */
+    public record PriorityStats(long admitted, long shedCapacity, long shedLatency, long timedOut, int waiting) {
+    }
+
+    /**
+     * 受け付け制御の状態
+     *
+     * @param inFlight           処理中のリクエスト数
+     * @param maxConcurrent      処理中のリクエスト数の上限
+     * @param queueLatencyMillis キューの待ち時間の平均（ミリ秒）
+     * @param priorities         優先度ごとの受け付けの件数
+     */
+    public record Stats(int inFlight, int maxConcurrent, double queueLatencyMillis,
+            Map<RequestPriority, PriorityStats> priorities) {
+    }
+
+    private final int maxConcurrent;
+    private final int[] limits = new int[PRIORITIES.length];
+    private final long[] maxWaitNanos = new long[PRIORITIES.length];
+    private final long[] maxLatencyNanos = new long[PRIORITIES.length];
+    private final double halfLifeNanos;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] available = new Condition[PRIORITIES.length];
+    private final int[] waiting = new int[PRIORITIES.length];
+    private final LongAdder[][] outcomes = new LongAdder[PRIORITIES.length][Outcome.values().length];
+    private int inFlight;
+    private double latencyNanos;
+    private long latencyUpdatedAt;
+
+    /**
+     * @param options 受け付け制御の設定
+     */
+    public AdmissionGate(Options options) {
+        this(options, System::nanoTime);
+    }
+
+    AdmissionGate(Options options, LongSupplier nanoClock) {
+        this.maxConcurrent = options.maxConcurrent();
+        this.nanoClock = nanoClock;
+        this.halfLifeNanos = TimeUnit.MILLISECONDS.toNanos(options.latencyHalfLifeMillis());
+        limits[RequestPriority.INGEST.ordinal()] = maxConcurrent;
+        limits[RequestPriority.INTERACTIVE.ordinal()] = Math.max(1, (int) (maxConcurrent * options.interactiveShare()));
+        limits[RequestPriority.BACKGROUND.ordinal()] = Math.max(1, (int) (maxConcurrent * options.backgroundShare()));
+        maxWaitNanos[RequestPriority.INGEST.ordinal()] = TimeUnit.MILLISECONDS.toNanos(options.ingestMaxWaitMillis());
+        maxWaitNanos[RequestPriority.INTERACTIVE.ordinal()] = TimeUnit.MILLISECONDS
+                .toNanos(options.interactiveMaxWaitMillis());
+        maxWaitNanos[RequestPriority.BACKGROUND.ordinal()] = TimeUnit.MILLISECONDS
+                .toNanos(options.backgroundMaxWaitMillis());
+        maxLatencyNanos[RequestPriority.INGEST.ordinal()] = Long.MAX_VALUE;
+        maxLatencyNanos[RequestPriority.INTERACTIVE.ordinal()] = TimeUnit.MILLISECONDS
+                .toNanos(options.interactiveMaxQueueLatencyMillis());
+        maxLatencyNanos[RequestPriority.BACKGROUND.ordinal()] = TimeUnit.MILLISECONDS
+                .toNanos(options.backgroundMaxQueueLatencyMillis());
+        for (RequestPriority priority : PRIORITIES) {
+            available[priority.ordinal()] = lock.newCondition();
+            for (Outcome outcome : Outcome.values()) {
+                outcomes[priority.ordinal()][outcome.ordinal()] = new LongAdder();
+            }
+        }
+        this.latencyUpdatedAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * リクエストの受け付けを判定（枠が空くまで待つことがある）
+     *
+     * 受け付けた場合は、処理の終了後に必ず {@link #release()} を呼び出してください
+     *
+     * @param priority リクエストの優先度
+     * @return 受け付けの結果
+     */
+    public Outcome acquire(RequestPriority priority) {
+        int index = priority.ordinal();
+        long start = nanoClock.getAsLong();
+        lock.lock();
+        try {
+            if (currentLatency(start) > maxLatencyNanos[index]) {
+                return record(priority, Outcome.SHED_LATENCY);
+            }
+            if (canEnter(index)) {
+                inFlight++;
+                recordLatency(0, start);
+                return record(priority, Outcome.ADMITTED);
+            }
+            long remaining = maxWaitNanos[index];
+            if (remaining <= 0) {
+                return record(priority, Outcome.SHED_CAPACITY);
+            }
+            waiting[index]++;
+            try {
+                while (!canEnter(index)) {
+                    if (remaining <= 0) {
+                        long now = nanoClock.getAsLong();
+                        recordLatency(now - start, now);
+                        return record(priority, Outcome.TIMED_OUT);
+                    }
+                    remaining = available[index].awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return record(priority, Outcome.TIMED_OUT);
+            } finally {
+                waiting[index]--;
+                // 断念した場合に、後ろで待っている優先度の低いリクエストを起こす
+                signalNext();
+            }
+            inFlight++;
+            long now = nanoClock.getAsLong();
+            recordLatency(now - start, now);
+            return record(priority, Outcome.ADMITTED);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 受け付けたリクエストの処理の終了を通知
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 断ったリクエストに返す再試行までの目安（キューの待ち時間の平均から求める、1秒以上）
+     *
+     * @param minimumSeconds 最短の秒数
+     * @return 秒数
+     */
+    public long retryAfterSeconds(long minimumSeconds) {
+        lock.lock();
+        try {
+            double seconds = currentLatency(nanoClock.getAsLong()) / 1e9;
+            return Math.max(Math.max(1, minimumSeconds), (long) Math.ceil(seconds * 2));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 受け付け制御の状態を取得
+     *
+     * @return 状態
+     */
+    public Stats getStats() {
+        lock.lock();
+        try {
+            Map<RequestPriority, PriorityStats> priorities = new EnumMap<>(RequestPriority.class);
+            for (RequestPriority priority : PRIORITIES) {
+                LongAdder[] counts = outcomes[priority.ordinal()];
+                priorities.put(priority, new PriorityStats(
+                        counts[Outcome.ADMITTED.ordinal()].sum(),
+                        counts[Outcome.SHED_CAPACITY.ordinal()].sum(),
+                        counts[Outcome.SHED_LATENCY.ordinal()].sum(),
+                        counts[Outcome.TIMED_OUT.ordinal()].sum(),
+                        waiting[priority.ordinal()]));
+            }
+            return new Stats(inFlight, maxConcurrent, currentLatency(nanoClock.getAsLong()) / 1e6, priorities);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 処理中の数が優先度の上限未満で、優先度の高い待機がない場合に受け付けられる
+     */
+    private boolean canEnter(int index) {
+        if (inFlight >= limits[index]) {
+            return false;
+        }
+        for (int higher = 0; higher < index; higher++) {
+            if (waiting[higher] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 待っているうち最も優先度の高いリクエストを起こす
+     */
+    private void signalNext() {
+        for (int index = 0; index < PRIORITIES.length; index++) {
+            if (waiting[index] > 0) {
+                available[index].signal();
+                return;
+            }
+        }
+    }
+
+    private double currentLatency(long now) {
+        double halfLives = (now - latencyUpdatedAt) / halfLifeNanos;
+        return halfLives <= 0 ? latencyNanos : latencyNanos * Math.pow(0.5, halfLives);
+    }
+
+    private void recordLatency(long waitNanos, long now) {
+        double current = currentLatency(now);
+        latencyNanos = current + LATENCY_WEIGHT * (waitNanos - current);
+        latencyUpdatedAt = now;
+    }
+
+    private Outcome record(RequestPriority priority, Outcome outcome) {
+        outcomes[priority.ordinal()][outcome.ordinal()].increment();
+        return outcome;
+    }
+}
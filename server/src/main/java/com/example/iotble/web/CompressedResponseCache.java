@@ -0,0 +1,86 @@
+package com.example.iotble.web;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 圧縮済みの応答を保持するキャッシュ
+ *
+ * 応答はリクエストのパスと圧縮形式ごとに、作成時のデータのバージョンとともに保持します。
+ * 取得時のバージョンが異なる場合や有効期間を過ぎた場合は無効とみなします。
+ * 件数が上限を超えた場合は最も長く使われていない応答から削除します
+ */
+public class CompressedResponseCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, CachedResponse> entries;
+
+    /**
+     * キャッシュを生成
+     *
+     * @param maxEntries 最大件数
+     * @param ttlMillis  有効期間（ミリ秒）
+     */
+    public CompressedResponseCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > CompressedResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 有効な応答を取得
+     *
+     * @param key     キャッシュのキー
+     * @param version 現在のデータのバージョン
+     * @return 応答（ない場合や無効な場合はnull）
+     */
+    public synchronized CachedResponse get(String key, long version) {
+        CachedResponse cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.version() != version || System.nanoTime() - cached.createdAt() > ttlNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * 応答を保持
+     *
+     * @param key      キャッシュのキー
+     * @param response 応答
+     */
+    public synchronized void put(String key, CachedResponse response) {
+        entries.put(key, response);
+    }
+
+    /**
+     * 保持している件数を取得
+     *
+     * @return 件数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * キャッシュした応答
+     *
+     * @param version     作成時のデータのバージョン
+     * @param createdAt   作成時刻（System.nanoTime）
+     * @param contentType Content-Type
+     * @param encoding    圧縮形式
+     * @param body        圧縮済みのボディ
+     */
+    public record CachedResponse(long version, long createdAt, String contentType, ContentEncoding encoding,
+            byte[] body) {
+    }
+}
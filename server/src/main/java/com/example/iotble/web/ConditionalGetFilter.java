@@ -0,0 +1,109 @@
+package com.example.iotble.web;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.iotble.shard.ShardTemplate;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 位置情報のバージョンから強いETagを付与し、条件付きGETに304で応答するフィルター
+ *
+ * ETagはパスに対応するバージョン（全体またはデバイス）と応答の圧縮形式から作成します。
+ * {@code If-None-Match} が現在のETagと一致する場合は、データベースへの問い合わせや
+ * JSONへの変換を行わずに304を返します。
+ * バージョンはこのプロセスが書き込みを確定した時点で進むため、遅れているレプリカの古い内容に新しいETagを付けないよう、
+ * ETagを付けた応答はプライマリから読み出します
+ */
+public class ConditionalGetFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final List<String> paths;
+    private final ToLongFunction<String> versionOfPath;
+    private final ShardTemplate shardTemplate;
+
+    /**
+     * フィルターを生成
+     *
+     * @param paths         ETagを付与するパス（Antパターン）
+     * @param versionOfPath パスの応答の元になるデータのバージョンを返す関数
+     * @param shardTemplate 応答を読み出すシャードの定義
+     */
+    public ConditionalGetFilter(List<String> paths, ToLongFunction<String> versionOfPath,
+            ShardTemplate shardTemplate) {
+        this.paths = List.copyOf(paths);
+        this.versionOfPath = versionOfPath;
+        this.shardTemplate = shardTemplate;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentEncoding encoding = ContentEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // 圧縮形式ごとに応答のバイト列が異なるため、強いETagには圧縮形式も含める
+        // サイトごとのバージョンは同じ値から数え始めるため、サイトを指定したリクエストではサイトも含める
+        String site = response.getHeader(SiteFilter.SITE_HEADER);
+        String etag = "\"" + (site != null ? site + '-' : "") + Long.toString(versionOfPath.applyAsLong(path), 36)
+                + '-' + encoding.getToken() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (!response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        try (ShardTemplate.PrimaryScope scope = shardTemplate.readFromPrimary()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * If-None-Match のいずれかのETagが一致するか（弱い比較）
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.iotble.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTPのコンテンツエンコーディング（圧縮形式）
+ *
+ * 列挙の順序がサーバー側の優先順位で、クライアントが同じ重みで受け入れる場合は先の形式を選択します
+ */
+public enum ContentEncoding {
+
+    /** gzip形式 */
+    GZIP("gzip"),
+
+    /** zlib形式（HTTPの deflate） */
+    DEFLATE("deflate"),
+
+    /** 圧縮なし */
+    IDENTITY("identity");
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Content-Encoding / Accept-Encoding ヘッダーでの名前を取得
+     *
+     * @return エンコーディング名
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Content-Encoding ヘッダーの値から圧縮形式を取得
+     *
+     * @param header ヘッダーの値（nullの場合は圧縮なし）
+     * @return 圧縮形式（対応していない形式の場合はnull）
+     */
+    public static ContentEncoding fromHeader(String header) {
+        if (header == null || header.isBlank()) {
+            return IDENTITY;
+        }
+        String value = header.trim().toLowerCase(Locale.ROOT);
+        if (value.equals("x-gzip")) {
+            return GZIP;
+        }
+        for (ContentEncoding encoding : values()) {
+            if (encoding.token.equals(value)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Accept-Encoding ヘッダーから応答の圧縮形式を選択
+     *
+     * 重み（q値）が最も大きい形式を選択します。{@code identity} は明示的に
+     * 拒否されない限り重み1未満の既定の候補として扱います
+     *
+     * @param acceptEncoding Accept-Encoding ヘッダーの値（nullの場合は圧縮なし）
+     * @return 圧縮形式（受け入れ可能な形式がない場合はnull）
+     */
+    public static ContentEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return IDENTITY;
+        }
+        // 未指定の形式は -1
+        double[] weights = new double[values().length];
+        Arrays.fill(weights, -1);
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String name = params[0].trim().toLowerCase(Locale.ROOT);
+            double weight = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        weight = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        weight = 0;
+                    }
+                }
+            }
+            if (name.equals("*")) {
+                wildcard = weight;
+                continue;
+            }
+            ContentEncoding encoding = fromHeader(name);
+            if (encoding != null) {
+                weights[encoding.ordinal()] = Math.max(weights[encoding.ordinal()], weight);
+            }
+        }
+        for (ContentEncoding encoding : values()) {
+            if (weights[encoding.ordinal()] < 0) {
+                // identity は * で拒否されない限り、最も低い重みで受け入れる
+                weights[encoding.ordinal()] = encoding == IDENTITY && wildcard != 0 ? Math.max(wildcard, 0.001) : wildcard;
+            }
+        }
+        ContentEncoding selected = null;
+        for (ContentEncoding encoding : values()) {
+            if (weights[encoding.ordinal()] > 0
+                    && (selected == null || weights[encoding.ordinal()] > weights[selected.ordinal()])) {
+                selected = encoding;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * データを圧縮
+     *
+     * @param data 圧縮前のデータ
+     * @return 圧縮したデータ
+     */
+    public byte[] encode(byte[] data) {
+        if (this == IDENTITY) {
+            return data;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (OutputStream out = this == GZIP ? new GZIPOutputStream(buffer) : new DeflaterOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 圧縮されたストリームを展開するストリームを生成
+     *
+     * @param in 圧縮されたストリーム
+     * @return 展開したデータを読み出すストリーム
+     * @throws IOException gzipのヘッダーが不正な場合
+     */
+    public InputStream decode(InputStream in) throws IOException {
+        return switch (this) {
+            case GZIP -> new GZIPInputStream(in);
+            case DEFLATE -> new InflaterInputStream(in);
+            case IDENTITY -> in;
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.iotble.web;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.ToLongFunction;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.util.UriUtils;
+
+import com.example.iotble.service.LocationVersionTracker;
+
+/**
+ * リクエストのパスから応答の元になる位置情報のバージョンを求める
+ *
+ * デバイス単位のパスはそのデバイスのバージョン、それ以外は全体のバージョンを返します
+ */
+public class PathVersionResolver implements ToLongFunction<String> {
+
+    /** デバイス単位の応答のパス */
+    private static final String DEVICE_PATH = "/api/locations/device/{deviceId}/**";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final LocationVersionTracker versionTracker;
+
+    /**
+     * バージョンの解決処理を生成
+     *
+     * @param versionTracker 位置情報のバージョン
+     */
+    public PathVersionResolver(LocationVersionTracker versionTracker) {
+        this.versionTracker = versionTracker;
+    }
+
+    @Override
+    public long applyAsLong(String path) {
+        if (pathMatcher.match(DEVICE_PATH, path)) {
+            String deviceId = pathMatcher.extractUriTemplateVariables(DEVICE_PATH, path).get("deviceId");
+            return versionTracker.getDeviceVersion(UriUtils.decode(deviceId, StandardCharsets.UTF_8));
+        }
+        return versionTracker.getGlobalVersion();
+    }
+}
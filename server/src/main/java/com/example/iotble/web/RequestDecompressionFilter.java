@@ -0,0 +1,201 @@
+package com.example.iotble.web;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.ZipException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * gzip / deflate で圧縮されたリクエストボディを展開するフィルター
+ *
+ * {@code Content-Encoding} が指定されたリクエストのボディを読み出し時に展開し、
+ * 後続の処理には圧縮されていないリクエストとして渡します。
+ * 対応していない形式は415を返します。上限を指定した場合はボディを先に展開し、
+ * 展開後のサイズが上限を超えた場合は413を返します（展開すると極端に大きくなるボディへの対策）。
+ * 大きなファイルを受け付けるインポートでは上限を指定せず、読み出しながら展開します
+ */
+@Slf4j
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private final long maxInflatedBytes;
+
+    /**
+     * フィルターを生成
+     *
+     * @param maxInflatedBytes 展開後のボディの上限（バイト、0以下の場合は無制限）
+     */
+    public RequestDecompressionFilter(long maxInflatedBytes) {
+        this.maxInflatedBytes = maxInflatedBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        ContentEncoding encoding = ContentEncoding.fromHeader(header);
+        if (encoding == ContentEncoding.IDENTITY) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (encoding == null) {
+            writeError(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE, "対応していないContent-Encodingです: " + header);
+            return;
+        }
+        InputStream body;
+        try {
+            body = encoding.decode(request.getInputStream());
+            if (maxInflatedBytes > 0) {
+                // 上限のある小さなボディは先に展開し、上限を超えた場合は後続の処理を呼ばずに応答する
+                byte[] inflated = body.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxInflatedBytes + 1));
+                if (inflated.length > maxInflatedBytes) {
+                    log.warn("展開後のリクエストボディが上限を超えました: 上限={}バイト", maxInflatedBytes);
+                    writeError(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                            "展開後のリクエストボディが上限（" + maxInflatedBytes + "バイト）を超えています");
+                    return;
+                }
+                body = new ByteArrayInputStream(inflated);
+            }
+        } catch (ZipException | EOFException e) {
+            writeError(response, HttpStatus.BAD_REQUEST, "圧縮されたリクエストボディを展開できません: " + e.getMessage());
+            return;
+        }
+        chain.doFilter(new DecompressedRequest(request, body), response);
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}");
+    }
+
+    /**
+     * ボディを展開して読み出すリクエスト
+     */
+    private static class DecompressedRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream inputStream;
+
+        DecompressedRequest(HttpServletRequest request, InputStream body) {
+            super(request);
+            this.inputStream = new InflatedInputStream(body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String charset = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(inputStream, charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (isRemovedHeader(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (isRemovedHeader(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isRemovedHeader(name))
+                    .toList());
+        }
+
+        private static boolean isRemovedHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * 展開したデータを読み出すストリーム
+     */
+    private static class InflatedInputStream extends ServletInputStream {
+
+        private final InputStream in;
+        private boolean finished;
+
+        InflatedInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            finished = b < 0;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            finished = read < 0;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("非同期の読み出しには対応していません");
+        }
+    }
+}
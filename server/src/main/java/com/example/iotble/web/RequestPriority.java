@@ -0,0 +1,16 @@
+package com.example.iotble.web;
+
+/**
+ * 受け付け制御でのリクエストの優先度（宣言順に優先度が高い）
+ */
+public enum RequestPriority {
+
+    /** 位置情報の登録（最後まで受け付ける） */
+    INGEST,
+
+    /** デバイス単位の参照など、軽いリクエスト */
+    INTERACTIVE,
+
+    /** 全件の取得・期間指定・統計・画面の描画など、重いリクエスト（最初に制限する） */
+    BACKGROUND
+}
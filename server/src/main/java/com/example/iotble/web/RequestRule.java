@@ -0,0 +1,42 @@
+package com.example.iotble.web;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.util.AntPathMatcher;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * メソッド（省略時はすべて）とパス（Antパターン）の規則
+ *
+ * {@code "POST /api/locations"} または {@code "/api/exports/**"} の形式で指定します
+ */
+record RequestRule(String method, String pattern) {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    static RequestRule parse(String rule) {
+        String trimmed = rule.trim();
+        int space = trimmed.indexOf(' ');
+        return space < 0
+                ? new RequestRule(null, trimmed)
+                : new RequestRule(trimmed.substring(0, space).toUpperCase(Locale.ROOT),
+                        trimmed.substring(space + 1).trim());
+    }
+
+    static List<RequestRule> parseAll(List<String> rules) {
+        return rules.stream().map(RequestRule::parse).toList();
+    }
+
+    static boolean matchesAny(List<RequestRule> rules, HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RequestRule rule : rules) {
+            if ((rule.method() == null || rule.method().equals(request.getMethod()))
+                    && PATH_MATCHER.match(rule.pattern(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.iotble.web;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.iotble.web.CompressedResponseCache.CachedResponse;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Accept-Encoding に応じて応答を gzip / deflate で圧縮するフィルター
+ *
+ * 対象のパスへのGETの応答をいったん保持し、テキスト形式で一定以上の大きさであれば圧縮して返します。
+ * キャッシュ対象のパスでは圧縮した応答をデータのバージョンとともに保持し、
+ * データが変更されるまで同じリクエストには保持した応答をそのまま返します。
+ * これにより複数のダッシュボードが同じ最新データを取得しても、変換と圧縮は1回で済みます
+ */
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final List<String> paths;
+    private final List<String> cachedPaths;
+    private final int minResponseSize;
+    private final CompressedResponseCache cache;
+    private final ToLongFunction<String> versionOfPath;
+
+    /**
+     * フィルターを生成
+     *
+     * @param paths           圧縮するパス（Antパターン）
+     * @param cachedPaths     圧縮済みの応答をキャッシュするパス（Antパターン）
+     * @param minResponseSize 圧縮する応答の最小サイズ（バイト）
+     * @param cache           圧縮済みの応答のキャッシュ
+     * @param versionOfPath   パスの応答の元になるデータのバージョンを返す関数
+     */
+    public ResponseCompressionFilter(List<String> paths, List<String> cachedPaths, int minResponseSize,
+            CompressedResponseCache cache, ToLongFunction<String> versionOfPath) {
+        this.paths = List.copyOf(paths);
+        this.cachedPaths = List.copyOf(cachedPaths);
+        this.minResponseSize = minResponseSize;
+        this.cache = cache;
+        this.versionOfPath = versionOfPath;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !matches(paths, pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        ContentEncoding encoding = ContentEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            response.sendError(HttpStatus.NOT_ACCEPTABLE.value(), "受け入れ可能なContent-Encodingがありません");
+            return;
+        }
+
+        String path = pathOf(request);
+        String cacheKey = null;
+        long version = 0;
+        if (matches(cachedPaths, path)) {
+            // サイトごとに応答が異なるため、SiteFilter が決めたサイトもキーに含める
+            String site = response.getHeader(SiteFilter.SITE_HEADER);
+            cacheKey = (site != null ? site + ' ' : "") + encoding.getToken() + ' ' + path
+                    + (request.getQueryString() != null ? '?' + request.getQueryString() : "");
+            // 応答を作成する前のバージョンで保持し、作成中に変更があれば次のリクエストで作り直す
+            version = versionOfPath.applyAsLong(path);
+            CachedResponse cached = cache.get(cacheKey, version);
+            if (cached != null) {
+                write(response, cached.contentType(), cached.encoding(), cached.body());
+                return;
+            }
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (response.isCommitted() || wrapper.getStatus() != HttpStatus.OK.value()
+                || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        byte[] body = wrapper.getContentAsByteArray();
+        String contentType = wrapper.getContentType();
+        ContentEncoding applied = body.length >= minResponseSize && isCompressible(contentType)
+                ? encoding
+                : ContentEncoding.IDENTITY;
+        byte[] encoded = applied.encode(body);
+        if (cacheKey != null) {
+            cache.put(cacheKey, new CachedResponse(version, System.nanoTime(), contentType, applied, encoded));
+        }
+        wrapper.resetBuffer();
+        write(response, contentType, applied, encoded);
+    }
+
+    private static void write(HttpServletResponse response, String contentType, ContentEncoding encoding,
+            byte[] body) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        if (encoding != ContentEncoding.IDENTITY) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("json") || type.contains("xml")
+                || type.startsWith("application/javascript");
+    }
+
+    private boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.iotble.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.iotble.site.SiteTemplate;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * リクエストのサイトを決めて、そのサイトのデータだけを読み書きさせるフィルター
+ *
+ * サイトは {@code X-Site-Id} ヘッダー、なければ {@code site} パラメーターで指定し、どちらもなければ既定のサイトとします。
+ * 設定されていないサイトは {@code 400 Bad Request} で断ります。
+ * サイトごとの取り込み量の上限は、受け付け制御の後に {@link SiteIngestQuotaFilter} で適用します。
+ * 応答には処理したサイトを {@code X-Site-Id} ヘッダーで返します
+ */
+public class SiteFilter extends OncePerRequestFilter {
+
+    /** サイトを指定するヘッダー */
+    public static final String SITE_HEADER = "X-Site-Id";
+
+    /** サイトを指定するパラメーター（ヘッダーを付けられないブラウザーからのアクセス向け） */
+    public static final String SITE_PARAMETER = "site";
+
+    private final SiteTemplate siteTemplate;
+
+    /**
+     * フィルターを生成
+     *
+     * @param siteTemplate サイトの定義
+     */
+    public SiteFilter(SiteTemplate siteTemplate) {
+        this.siteTemplate = siteTemplate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String site = resolve(request);
+        if (!siteTemplate.isKnown(site)) {
+            reject(response, HttpStatus.BAD_REQUEST, "{\"error\":\"サイトが設定されていません\"}");
+            return;
+        }
+        response.setHeader(SITE_HEADER, site);
+        try (SiteTemplate.Scope scope = siteTemplate.enter(site)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * リクエストのサイトを決める
+     *
+     * @param request リクエスト
+     * @return サイトID（設定されているとは限らない）
+     */
+    String resolve(HttpServletRequest request) {
+        String site = request.getHeader(SITE_HEADER);
+        if (site == null || site.isBlank()) {
+            site = request.getParameter(SITE_PARAMETER);
+        }
+        return site == null || site.isBlank() ? siteTemplate.getDefaultSite() : site.trim();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(body);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.iotble.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.iotble.site.SiteIngestQuota;
+import com.example.iotble.site.SiteTemplate;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * サイトごとの取り込み量の上限を適用するフィルター
+ *
+ * 位置情報の登録（規則は {@code "POST /api/locations"} の形式）は、{@link SiteFilter} が決めたサイトの
+ * 取り込み量の上限を超えると {@code 429 Too Many Requests} と {@code Retry-After} で断ります。
+ * 混雑で断られたリクエストがサイトの取り込み枠を使わないよう、{@link AdmissionControlFilter} より後に登録します
+ */
+@Slf4j
+public class SiteIngestQuotaFilter extends OncePerRequestFilter {
+
+    private final SiteTemplate siteTemplate;
+    private final SiteIngestQuota ingestQuota;
+    private final List<RequestRule> ingestRules;
+    private final long retryAfterSeconds;
+
+    /**
+     * フィルターを生成
+     *
+     * @param siteTemplate      サイトの定義
+     * @param ingestQuota       サイトごとの取り込み量の上限
+     * @param ingestRules       取り込み量の上限を適用する規則
+     * @param retryAfterSeconds 断った場合の再試行までの最短の秒数
+     */
+    public SiteIngestQuotaFilter(SiteTemplate siteTemplate, SiteIngestQuota ingestQuota, List<String> ingestRules,
+            long retryAfterSeconds) {
+        this.siteTemplate = siteTemplate;
+        this.ingestQuota = ingestQuota;
+        this.ingestRules = RequestRule.parseAll(ingestRules);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !RequestRule.matchesAny(ingestRules, request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String site = siteTemplate.currentSite();
+        if (!ingestQuota.tryAcquire(site, 1)) {
+            long retryAfter = ingestQuota.retryAfterSeconds(site, retryAfterSeconds);
+            log.debug("取り込み量の上限を超えたためリクエストを断りました: site={}", site);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write(String.format(Locale.ROOT,
+                    "{\"error\":\"サイトの取り込み量の上限を超えました。しばらくしてから再試行してください\","
+                            + "\"site\":\"%s\",\"retryAfterSeconds\":%d}",
+                    site, retryAfter));
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.iotble;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 起動から最初の位置情報の登録が受け付けられるまでの時間
+ *
+ * サーバーを別のJVMで起動し、{@code POST /api/locations} が201を返すまでの時間を設定ごとに計測して中央値を出力します。
+ * AppCDS の計測では、CDS がディレクトリのクラスパスを扱えないためアプリケーションのクラスを jar にまとめ、
+ * コンテキストの初期化まで実行する学習実行でアーカイブを作成してから計測します。
+ * {@code mvn -Pfast-start package} で作成した target/fast-start があれば、AOT処理済みの jar と CDS アーカイブでの起動も計測します。
+ * 通常のテストでは実行せず、{@code mvn test -Pbenchmark} で実行します
+ */
+@Tag("benchmark")
+@DisplayName("起動時間 ベンチマーク")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = 3;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private static final String MAIN_CLASS = IotBleServerApplication.class.getName();
+    private static final String BODY = "{\"deviceId\":\"BENCH-001\",\"latitude\":35.6812,\"longitude\":139.7671}";
+
+    private static final Path FAST_START_DIR = Path.of("target", "fast-start");
+    private static final Path FAST_START_JAR = FAST_START_DIR.resolve("iot-ble-server-1.0.0.jar");
+    private static final Path CDS_ARCHIVE = FAST_START_DIR.resolve("application.jsa");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    @Test
+    @DisplayName("既定の設定と fast-start プロファイルで最初の登録までの時間を比べる")
+    void benchmarkTimeToFirstPost() throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+
+        measure("既定", port -> List.of(java, "-cp", classpath, MAIN_CLASS,
+                "--server.port=" + port));
+        measure("fast-start", port -> List.of(java, "-cp", classpath, MAIN_CLASS,
+                "--server.port=" + port, "--spring.profiles.active=fast-start"));
+
+        Path workDir = Files.createTempDirectory("startup-benchmark-");
+        Path jar = workDir.resolve("app.jar");
+        Path archive = workDir.resolve("app.jsa");
+        try {
+            String cdsClasspath = jarApplicationClasses(classpath, jar);
+            trainArchive(List.of(java, "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh",
+                    "-cp", cdsClasspath, MAIN_CLASS, "--spring.profiles.active=fast-start"), archive);
+            measure("fast-start + AppCDS", port -> List.of(java, "-XX:SharedArchiveFile=" + archive,
+                    "-cp", cdsClasspath, MAIN_CLASS, "--server.port=" + port, "--spring.profiles.active=fast-start"));
+        } finally {
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(jar);
+            Files.deleteIfExists(workDir);
+        }
+
+        if (Files.exists(FAST_START_JAR) && Files.exists(CDS_ARCHIVE)) {
+            measure("fast-start + AOT + AppCDS", port -> List.of(java,
+                    "-XX:SharedArchiveFile=" + CDS_ARCHIVE, "-Dspring.aot.enabled=true",
+                    "-jar", FAST_START_JAR.toString(),
+                    "--server.port=" + port, "--spring.profiles.active=fast-start"));
+        }
+    }
+
+    /**
+     * 起動を繰り返して最初の登録までの時間の中央値を出力
+     */
+    private void measure(String label, IntFunction<List<String>> command) throws Exception {
+        long[] elapsed = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            elapsed[i] = timeToFirstPost(label, command);
+        }
+        Arrays.sort(elapsed);
+        List<String> runs = new ArrayList<>();
+        for (long millis : elapsed) {
+            runs.add(millis + "ms");
+        }
+        System.out.println(String.format(Locale.ROOT, "最初の登録までの時間 [%s]: 中央値=%dms (%s)",
+                label, elapsed[RUNS / 2], String.join(", ", runs)));
+    }
+
+    private long timeToFirstPost(String label, IntFunction<List<String>> command) throws Exception {
+        int port = freePort();
+        Path log = Files.createTempFile("startup-benchmark-", ".log");
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/locations"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command.apply(port))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    fail(label + " のサーバーが終了しました（ログ: " + log + "）");
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 201) {
+                        long elapsed = (System.nanoTime() - start) / 1_000_000;
+                        Files.deleteIfExists(log);
+                        return elapsed;
+                    }
+                } catch (ConnectException e) {
+                    // 待ち受けを開始するまで繰り返す
+                }
+                Thread.sleep(POLL_INTERVAL.toMillis());
+            }
+            return fail(label + " のサーバーが時間内に登録を受け付けませんでした（ログ: " + log + "）");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * アプリケーションのクラスのディレクトリを jar にまとめ、ディレクトリを含まないクラスパスを返す（テストのクラスは除く）
+     */
+    private static String jarApplicationClasses(String classpath, Path jar) throws Exception {
+        Path classes = Path.of(IotBleServerApplication.class.getProtectionDomain().getCodeSource().getLocation()
+                .toURI());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+                Stream<Path> files = Files.walk(classes)) {
+            // コンポーネントスキャンはパッケージのディレクトリのエントリから探すため、ディレクトリも登録する
+            for (Path file : (Iterable<Path>) files.filter(path -> !path.equals(classes))::iterator) {
+                String name = classes.relativize(file).toString().replace('\\', '/');
+                boolean directory = Files.isDirectory(file);
+                out.putNextEntry(new JarEntry(directory ? name + "/" : name));
+                if (!directory) {
+                    Files.copy(file, out);
+                }
+                out.closeEntry();
+            }
+        }
+        List<String> entries = new ArrayList<>();
+        entries.add(jar.toString());
+        for (String entry : classpath.split(File.pathSeparator)) {
+            if (!Files.isDirectory(Path.of(entry))) {
+                entries.add(entry);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * 学習実行でクラスを読み込み、終了時に CDS アーカイブを作成
+     */
+    private static void trainArchive(List<String> command, Path archive) throws Exception {
+        Path log = Files.createTempFile("startup-benchmark-training-", ".log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        if (!process.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            fail("学習実行が時間内に終了しませんでした（ログ: " + log + "）");
+        }
+        if (!Files.exists(archive)) {
+            fail("CDS アーカイブを作成できませんでした（ログ: " + log + "）");
+        }
+        Files.deleteIfExists(log);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.iotble.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.service.BulkDeleteJob;
+import com.example.iotble.service.LocationBulkDeleteService;
+
+/**
+ * BulkDeleteControllerのユニットテスト
+ */
+@WebMvcTest(BulkDeleteController.class)
+@DisplayName("BulkDeleteController テスト")
+@SuppressWarnings("null")
+class BulkDeleteControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LocationBulkDeleteService bulkDeleteService;
+
+    /**
+     * DELETE /api/locations のテスト
+     */
+    @Nested
+    @DisplayName("一括削除API")
+    class DeleteLocationsTests {
+
+        @Test
+        @DisplayName("正常系: 大量削除の場合202とジョブの参照先を返す")
+        void testDeleteLocations_Accepted() throws Exception {
+            BulkDeleteJob job = new BulkDeleteJob("ESP32-001", null, null, 50000L);
+            when(bulkDeleteService.deleteLocations(eq("ESP32-001"), isNull(), isNull())).thenReturn(job);
+
+            mockMvc.perform(delete("/api/locations").param("deviceId", "ESP32-001"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", "/api/locations/delete-jobs/" + job.getJobId()))
+                    .andExpect(jsonPath("$.jobId").value(job.getJobId()))
+                    .andExpect(jsonPath("$.totalCount").value(50000));
+        }
+
+        @Test
+        @DisplayName("正常系: 期間指定のパラメータを受け付ける")
+        void testDeleteLocations_TimeRange() throws Exception {
+            LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0, 0);
+            LocalDateTime end = LocalDateTime.of(2025, 1, 31, 23, 59, 59);
+            BulkDeleteJob job = new BulkDeleteJob(null, start, end, 20000L);
+            when(bulkDeleteService.deleteLocations(isNull(), eq(start), eq(end))).thenReturn(job);
+
+            mockMvc.perform(delete("/api/locations")
+                    .param("startTime", "2025-01-01T00:00:00")
+                    .param("endTime", "2025-01-31T23:59:59"))
+                    .andExpect(status().isAccepted());
+        }
+
+        @Test
+        @DisplayName("異常系: 条件が不正な場合400エラーになる")
+        void testDeleteLocations_BadRequest() throws Exception {
+            when(bulkDeleteService.deleteLocations(any(), any(), any()))
+                    .thenThrow(new IllegalArgumentException("条件を指定してください"));
+
+            mockMvc.perform(delete("/api/locations"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("条件を指定してください"));
+        }
+    }
+
+    /**
+     * GET /api/locations/delete-jobs/{jobId} のテスト
+     */
+    @Nested
+    @DisplayName("一括削除ジョブ取得API")
+    class GetDeleteJobTests {
+
+        @Test
+        @DisplayName("正常系: ジョブの進捗を取得できる")
+        void testGetDeleteJob_Success() throws Exception {
+            BulkDeleteJob job = new BulkDeleteJob("ESP32-001", null, null, 100L);
+            when(bulkDeleteService.getJob(job.getJobId())).thenReturn(Optional.of(job));
+
+            mockMvc.perform(get("/api/locations/delete-jobs/" + job.getJobId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("PENDING"))
+                    .andExpect(jsonPath("$.deletedCount").value(0));
+        }
+
+        @Test
+        @DisplayName("異常系: 存在しないジョブIDの場合404エラーになる")
+        void testGetDeleteJob_NotFound() throws Exception {
+            when(bulkDeleteService.getJob("unknown")).thenReturn(Optional.empty());
+
+            mockMvc.perform(get("/api/locations/delete-jobs/unknown"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+}
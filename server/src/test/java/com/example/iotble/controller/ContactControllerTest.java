@@ -0,0 +1,100 @@
+package com.example.iotble.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.model.ContactEpisode;
+import com.example.iotble.service.ContactService;
+
+/**
+ * ContactControllerのユニットテスト
+ */
+@WebMvcTest(ContactController.class)
+@DisplayName("ContactController テスト")
+@SuppressWarnings("null")
+class ContactControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ContactService contactService;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 接触の取得のテスト
+     */
+    @Nested
+    @DisplayName("接触の取得API")
+    class GetContactsTests {
+
+        @Test
+        @DisplayName("正常系: デバイスの期間内の接触を返す")
+        void testGetDeviceContacts_Success() throws Exception {
+            when(contactService.findContacts("TAG-A", testTime, testTime.plusHours(1), 1.5, 120L)).thenReturn(List.of(
+                    ContactEpisode.of("TAG-A", "TAG-B", testTime, testTime.plusMinutes(3), 0.8, 36)));
+
+            mockMvc.perform(get("/api/devices/TAG-A/contacts")
+                    .param("from", "2025-01-01T12:00:00")
+                    .param("to", "2025-01-01T13:00:00")
+                    .param("radiusMeters", "1.5")
+                    .param("minDurationSeconds", "120"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].otherDeviceId").value("TAG-B"))
+                    .andExpect(jsonPath("$[0].durationSeconds").value(180.0))
+                    .andExpect(jsonPath("$[0].observations").value(36));
+        }
+
+        @Test
+        @DisplayName("正常系: 期間を省略した場合は直近24時間のすべてのデバイスの接触を返す")
+        void testGetContacts_DefaultRange() throws Exception {
+            when(contactService.findContacts(isNull(), any(), any(), isNull(), isNull())).thenReturn(List.of());
+
+            mockMvc.perform(get("/api/contacts"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(0));
+        }
+
+        @Test
+        @DisplayName("異常系: 検出条件が不正な場合400エラーになる")
+        void testGetContacts_InvalidArgument() throws Exception {
+            when(contactService.findContacts(isNull(), eq(testTime), eq(testTime), isNull(), isNull()))
+                    .thenThrow(new IllegalArgumentException("fromはtoより前である必要があります"));
+
+            mockMvc.perform(get("/api/contacts")
+                    .param("from", "2025-01-01T12:00:00")
+                    .param("to", "2025-01-01T12:00:00"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("fromはtoより前である必要があります"));
+        }
+
+        @Test
+        @DisplayName("正常系: 継続中の接触を返す")
+        void testGetActiveContacts() throws Exception {
+            when(contactService.getActiveContacts()).thenReturn(List.of(
+                    ContactEpisode.of("TAG-A", "TAG-C", testTime, testTime.plusSeconds(90), 1.2, 18)));
+
+            mockMvc.perform(get("/api/contacts/active"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].deviceId").value("TAG-A"))
+                    .andExpect(jsonPath("$[0].minDistanceMeters").value(1.2));
+        }
+    }
+}
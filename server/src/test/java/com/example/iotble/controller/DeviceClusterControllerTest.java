@@ -0,0 +1,76 @@
+package com.example.iotble.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.model.DeviceCluster;
+import com.example.iotble.model.DeviceClusters;
+import com.example.iotble.service.DeviceClusterService;
+
+/**
+ * DeviceClusterControllerのユニットテスト
+ */
+@WebMvcTest(DeviceClusterController.class)
+@DisplayName("DeviceClusterController テスト")
+@SuppressWarnings("null")
+class DeviceClusterControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private DeviceClusterService deviceClusterService;
+
+    /**
+     * GET /api/clusters のテスト
+     */
+    @Nested
+    @DisplayName("クラスター取得API")
+    class GetClustersTests {
+
+        @Test
+        @DisplayName("正常系: 表示範囲とズームレベルのクラスターを返す")
+        void testGetClusters_Success() throws Exception {
+            LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 12, 0);
+            when(deviceClusterService.findClusters(139.6, 35.6, 139.8, 35.7, 12)).thenReturn(new DeviceClusters(12, 4,
+                    List.of(new DeviceCluster(35.65, 139.7, 3, null, null),
+                            new DeviceCluster(35.61, 139.79, 1, "ESP32-001", timestamp))));
+
+            mockMvc.perform(get("/api/clusters").param("bbox", "139.6,35.6,139.8,35.7").param("zoom", "12"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.deviceCount").value(4))
+                    .andExpect(jsonPath("$.clusters.length()").value(2))
+                    .andExpect(jsonPath("$.clusters[0].count").value(3))
+                    .andExpect(jsonPath("$.clusters[1].deviceId").value("ESP32-001"));
+        }
+
+        @Test
+        @DisplayName("異常系: 表示範囲の値が4つでない場合400エラーになる")
+        void testGetClusters_InvalidBbox() throws Exception {
+            mockMvc.perform(get("/api/clusters").param("bbox", "139.6,35.6,139.8").param("zoom", "12"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+
+        @Test
+        @DisplayName("異常系: 表示範囲が数値でない場合400エラーになる")
+        void testGetClusters_NotNumber() throws Exception {
+            mockMvc.perform(get("/api/clusters").param("bbox", "a,35.6,139.8,35.7").param("zoom", "12"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+    }
+}
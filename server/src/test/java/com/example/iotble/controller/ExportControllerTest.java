@@ -0,0 +1,97 @@
+package com.example.iotble.controller;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.service.ExportJob;
+import com.example.iotble.service.LocationExportService;
+import com.example.iotble.service.export.ExportFormat;
+
+/**
+ * ExportControllerのユニットテスト
+ */
+@WebMvcTest(ExportController.class)
+@DisplayName("ExportController テスト")
+@SuppressWarnings("null")
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LocationExportService exportService;
+
+    /**
+     * POST /api/exports のテスト
+     */
+    @Nested
+    @DisplayName("エクスポート開始API")
+    class StartExportTests {
+
+        @Test
+        @DisplayName("正常系: 202とジョブの参照先を返す")
+        void testStartExport_Accepted() throws Exception {
+            ExportJob job = new ExportJob(ExportFormat.COLUMNAR, null, null, null, 4, Path.of("/tmp"));
+            when(exportService.startExport(eq(ExportFormat.COLUMNAR), isNull(), isNull(), isNull())).thenReturn(job);
+
+            mockMvc.perform(post("/api/exports").param("format", "columnar"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", "/api/exports/" + job.getJobId()))
+                    .andExpect(jsonPath("$.format").value("COLUMNAR"))
+                    .andExpect(jsonPath("$.status").value("RUNNING"))
+                    .andExpect(jsonPath("$.file").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("異常系: 未対応の形式の場合400エラーになる")
+        void testStartExport_UnknownFormat() throws Exception {
+            mockMvc.perform(post("/api/exports").param("format", "xml"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+    }
+
+    /**
+     * GET /api/exports/{jobId}/download のテスト
+     */
+    @Nested
+    @DisplayName("エクスポートダウンロードAPI")
+    class DownloadExportTests {
+
+        @Test
+        @DisplayName("異常系: 実行中のジョブの場合409エラーになる")
+        void testDownloadExport_NotFinished() throws Exception {
+            ExportJob job = new ExportJob(ExportFormat.CSV, null, null, null, 4, Path.of("/tmp"));
+            when(exportService.getJob(job.getJobId())).thenReturn(Optional.of(job));
+
+            mockMvc.perform(get("/api/exports/" + job.getJobId() + "/download"))
+                    .andExpect(status().isConflict());
+        }
+
+        @Test
+        @DisplayName("異常系: 存在しないジョブIDの場合404エラーになる")
+        void testDownloadExport_NotFound() throws Exception {
+            when(exportService.getJob("unknown")).thenReturn(Optional.empty());
+
+            mockMvc.perform(get("/api/exports/unknown/download"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+}
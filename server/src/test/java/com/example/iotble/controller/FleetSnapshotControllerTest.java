@@ -0,0 +1,122 @@
+package com.example.iotble.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.model.DevicePosition;
+import com.example.iotble.model.FleetSnapshot;
+import com.example.iotble.model.FleetSnapshotFrames;
+import com.example.iotble.service.FleetSnapshotService;
+
+/**
+ * FleetSnapshotControllerのユニットテスト
+ */
+@WebMvcTest(FleetSnapshotController.class)
+@DisplayName("FleetSnapshotController テスト")
+@SuppressWarnings("null")
+class FleetSnapshotControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private FleetSnapshotService fleetSnapshotService;
+
+    private final LocalDateTime baseTime = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    /**
+     * GET /api/snapshot のテスト
+     */
+    @Nested
+    @DisplayName("スナップショット取得API")
+    class GetSnapshotTests {
+
+        @Test
+        @DisplayName("正常系: 指定時刻の時点でのデバイスの位置を返す")
+        void testGetSnapshot_Success() throws Exception {
+            when(fleetSnapshotService.getSnapshot(baseTime)).thenReturn(new FleetSnapshot(baseTime, List.of(
+                    new DevicePosition("ESP32-001", 1L, 35.0, 139.0, baseTime.minusMinutes(1)),
+                    new DevicePosition("ESP32-002", 2L, 35.1, 139.1, baseTime.minusMinutes(5)))));
+
+            mockMvc.perform(get("/api/snapshot").param("at", "2025-01-01T09:00:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.devices.length()").value(2))
+                    .andExpect(jsonPath("$.devices[0].deviceId").value("ESP32-001"))
+                    .andExpect(jsonPath("$.devices[1].latitude").value(35.1));
+        }
+
+        @Test
+        @DisplayName("異常系: 時点を省略した場合400エラーになる")
+        void testGetSnapshot_MissingAt() throws Exception {
+            mockMvc.perform(get("/api/snapshot"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    /**
+     * GET /api/snapshot/frames のテスト
+     */
+    @Nested
+    @DisplayName("スナップショットの列の取得API")
+    class GetFramesTests {
+
+        @Test
+        @DisplayName("正常系: 時点ごとのスナップショットを返す")
+        void testGetFrames_Success() throws Exception {
+            LocalDateTime to = baseTime.plusMinutes(1);
+            DevicePosition position = new DevicePosition("ESP32-001", 1L, 35.0, 139.0, baseTime);
+            when(fleetSnapshotService.getFrames(baseTime, to, 30)).thenReturn(new FleetSnapshotFrames(baseTime, to, 30,
+                    List.of(new FleetSnapshot(baseTime, List.of(position)),
+                            new FleetSnapshot(baseTime.plusSeconds(30), List.of(position)),
+                            new FleetSnapshot(to, List.of(position)))));
+
+            mockMvc.perform(get("/api/snapshot/frames").param("from", "2025-01-01T09:00:00")
+                    .param("to", "2025-01-01T09:01:00").param("stepSeconds", "30"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stepSeconds").value(30))
+                    .andExpect(jsonPath("$.frames.length()").value(3))
+                    .andExpect(jsonPath("$.frames[1].devices[0].deviceId").value("ESP32-001"));
+        }
+
+        @Test
+        @DisplayName("正常系: 期間を省略した場合は直近8時間を60秒間隔で取得する")
+        void testGetFrames_Defaults() throws Exception {
+            mockMvc.perform(get("/api/snapshot/frames"))
+                    .andExpect(status().isOk());
+
+            ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+            ArgumentCaptor<LocalDateTime> to = ArgumentCaptor.forClass(LocalDateTime.class);
+            verify(fleetSnapshotService).getFrames(from.capture(), to.capture(), eq(60L));
+            assertEquals(from.getValue().plusHours(8), to.getValue());
+        }
+
+        @Test
+        @DisplayName("異常系: 取得条件が不正な場合400エラーになる")
+        void testGetFrames_InvalidArgument() throws Exception {
+            when(fleetSnapshotService.getFrames(any(), any(), eq(0L)))
+                    .thenThrow(new IllegalArgumentException("フレームの間隔は1秒以上で指定してください: 0"));
+
+            mockMvc.perform(get("/api/snapshot/frames").param("stepSeconds", "0"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.iotble.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.service.ImportJob;
+import com.example.iotble.service.LocationImportService;
+import com.example.iotble.service.importer.ImportFormat;
+import com.example.iotble.site.SiteTemplate;
+
+/**
+ * ImportControllerのユニットテスト
+ */
+@WebMvcTest(ImportController.class)
+@DisplayName("ImportController テスト")
+@SuppressWarnings("null")
+class ImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LocationImportService importService;
+
+    /**
+     * POST /api/imports のテスト
+     */
+    @Nested
+    @DisplayName("インポート開始API")
+    class StartImportTests {
+
+        @Test
+        @DisplayName("正常系: 202とジョブの参照先を返す")
+        void testStartImport_Accepted() throws Exception {
+            ImportJob job = new ImportJob("job-1", ImportFormat.NDJSON, "site-a.ndjson",
+                    Path.of("/tmp/job-1.ndjson"), Path.of("/tmp/job-1.rejected.ndjson"),
+                    SiteTemplate.DEFAULT_SITE);
+            when(importService.startImport(eq(ImportFormat.NDJSON), any(InputStream.class), eq("site-a.ndjson")))
+                    .thenReturn(job);
+
+            mockMvc.perform(post("/api/imports")
+                    .param("format", "ndjson")
+                    .param("name", "site-a.ndjson")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content("{\"deviceId\":\"ESP32-001\",\"latitude\":35.0,\"longitude\":139.0}\n"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", "/api/imports/job-1"))
+                    .andExpect(jsonPath("$.format").value("NDJSON"))
+                    .andExpect(jsonPath("$.sourceFile").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("異常系: 未対応の形式の場合400エラーになる")
+        void testStartImport_UnknownFormat() throws Exception {
+            mockMvc.perform(post("/api/imports").param("format", "xml").content("x"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    /**
+     * POST /api/imports/{jobId}/resume のテスト
+     */
+    @Nested
+    @DisplayName("インポート再開API")
+    class ResumeImportTests {
+
+        @Test
+        @DisplayName("異常系: 再開できないジョブの場合409エラーになる")
+        void testResumeImport_Conflict() throws Exception {
+            when(importService.resumeImport("job-1")).thenThrow(new IllegalStateException("再開できません"));
+
+            mockMvc.perform(post("/api/imports/job-1/resume"))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.error").value("再開できません"));
+        }
+
+        @Test
+        @DisplayName("異常系: 存在しないジョブの進捗は404エラーになる")
+        void testGetImportJob_NotFound() throws Exception {
+            when(importService.getJob("unknown")).thenReturn(Optional.empty());
+
+            mockMvc.perform(get("/api/imports/unknown"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.iotble.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.model.LocationChanges;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.service.LocationChangeService;
+
+/**
+ * LocationChangeControllerのユニットテスト
+ */
+@WebMvcTest(LocationChangeController.class)
+@DisplayName("LocationChangeController テスト")
+@SuppressWarnings("null")
+class LocationChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LocationChangeService changeService;
+
+    /**
+     * GET /api/locations/changes のテスト
+     */
+    @Nested
+    @DisplayName("差分同期API")
+    class GetChangesTests {
+
+        @Test
+        @DisplayName("正常系: カーソル以降の変更と新しいカーソルを返す")
+        void testGetChanges_Success() throws Exception {
+            LocationData inserted = LocationData.builder().id(3L).deviceId("ESP32-001").latitude(35.0)
+                    .longitude(139.0).timestamp(LocalDateTime.of(2025, 1, 1, 12, 0)).build();
+            when(changeService.getChanges("abc.5", 500))
+                    .thenReturn(new LocationChanges("abc.7", false, List.of(inserted), List.of(1L), false));
+
+            mockMvc.perform(get("/api/locations/changes").param("since", "abc.5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.cursor").value("abc.7"))
+                    .andExpect(jsonPath("$.reset").value(false))
+                    .andExpect(jsonPath("$.inserted[0].id").value(3))
+                    .andExpect(jsonPath("$.deletedIds[0]").value(1));
+        }
+
+        @Test
+        @DisplayName("異常系: カーソルの形式が不正な場合400エラーになる")
+        void testGetChanges_InvalidCursor() throws Exception {
+            when(changeService.getChanges("invalid", 100))
+                    .thenThrow(new IllegalArgumentException("カーソルの形式が不正です: invalid"));
+
+            mockMvc.perform(get("/api/locations/changes").param("since", "invalid").param("limit", "100"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+    }
+}
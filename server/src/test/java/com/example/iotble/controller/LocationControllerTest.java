@@ -1,6 +1,8 @@
 package com.example.iotble.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -177,6 +179,19 @@ class LocationControllerTest {
                     .andExpect(status().isBadRequest());
         }
 
+        @Test
+        @DisplayName("異常系: 緯度が範囲外の場合エラーになる")
+        void testCreateLocation_LatitudeOutOfRange() throws Exception {
+            when(locationService.saveLocation(any(LocationData.class)))
+                    .thenThrow(new IllegalArgumentException("緯度は-90から90の範囲で指定してください"));
+
+            mockMvc.perform(post("/api/locations")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"deviceId\":\"ESP32-001\",\"latitude\":91.0,\"longitude\":139.0}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("緯度は-90から90の範囲で指定してください"));
+        }
+
         @Test
         @DisplayName("異常系: デバイスIDが空文字の場合エラーになる")
         void testCreateLocation_EmptyDeviceId() throws Exception {
@@ -372,6 +387,67 @@ class LocationControllerTest {
         }
     }
 
+    /**
+     * GET /api/locations/device/{deviceId}/range のテスト
+     */
+    @Nested
+    @DisplayName("デバイス別期間指定位置情報取得API")
+    class GetLocationsByDeviceAndTimeRangeTests {
+
+        @Test
+        @DisplayName("正常系: 並び順と件数を省略すると新しい順に1000件まで取得する")
+        void testGetRange_Defaults() throws Exception {
+            when(locationService.getLocationsByDeviceAndTimeRange("ESP32-001", testTime.minusHours(1),
+                    testTime, true, 1000)).thenReturn(List.of(validLocation));
+
+            mockMvc.perform(get("/api/locations/device/ESP32-001/range")
+                    .param("startTime", "2025-01-01T11:00:00")
+                    .param("endTime", "2025-01-01T12:00:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].deviceId").value("ESP32-001"));
+        }
+
+        @Test
+        @DisplayName("正常系: order=asc で古い順を指定できる")
+        void testGetRange_Ascending() throws Exception {
+            when(locationService.getLocationsByDeviceAndTimeRange("ESP32-001", testTime.minusHours(1),
+                    testTime, false, 10)).thenReturn(List.of(validLocation));
+
+            mockMvc.perform(get("/api/locations/device/ESP32-001/range")
+                    .param("startTime", "2025-01-01T11:00:00")
+                    .param("endTime", "2025-01-01T12:00:00")
+                    .param("order", "ASC")
+                    .param("limit", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1));
+        }
+
+        @Test
+        @DisplayName("異常系: 並び順が不正な場合は400")
+        void testGetRange_InvalidOrder() throws Exception {
+            mockMvc.perform(get("/api/locations/device/ESP32-001/range")
+                    .param("startTime", "2025-01-01T11:00:00")
+                    .param("endTime", "2025-01-01T12:00:00")
+                    .param("order", "random"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+
+        @Test
+        @DisplayName("異常系: サービスが条件を拒否した場合は400")
+        void testGetRange_Rejected() throws Exception {
+            when(locationService.getLocationsByDeviceAndTimeRange(any(), any(), any(), anyBoolean(), anyInt()))
+                    .thenThrow(new IllegalArgumentException("limit must be between 1 and 10000"));
+
+            mockMvc.perform(get("/api/locations/device/ESP32-001/range")
+                    .param("startTime", "2025-01-01T11:00:00")
+                    .param("endTime", "2025-01-01T12:00:00")
+                    .param("limit", "0"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("limit must be between 1 and 10000"));
+        }
+    }
+
     /**
      * DELETE /api/locations/{id} のテスト
      */
@@ -448,7 +524,7 @@ class LocationControllerTest {
         @Test
         @DisplayName("正常系: 統計情報を取得できる")
         void testGetStats_Success() throws Exception {
-            when(locationService.getAllLocations()).thenReturn(Arrays.asList(validLocation));
+            when(locationService.getLocationCount()).thenReturn(1L);
             when(locationService.getDeviceCount()).thenReturn(1L);
 
             mockMvc.perform(get("/api/stats"))
@@ -461,7 +537,7 @@ class LocationControllerTest {
         @Test
         @DisplayName("エッジケース: データが0件の場合も統計情報を返す")
         void testGetStats_EmptyData() throws Exception {
-            when(locationService.getAllLocations()).thenReturn(Collections.emptyList());
+            when(locationService.getLocationCount()).thenReturn(0L);
             when(locationService.getDeviceCount()).thenReturn(0L);
 
             mockMvc.perform(get("/api/stats"))
@@ -0,0 +1,75 @@
+package com.example.iotble.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.model.MovementSummary;
+import com.example.iotble.service.LocationMovementService;
+
+/**
+ * MovementControllerのユニットテスト
+ */
+@WebMvcTest(MovementController.class)
+@DisplayName("MovementController テスト")
+@SuppressWarnings("null")
+class MovementControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LocationMovementService movementService;
+
+    /**
+     * GET /api/devices/{deviceId}/movement のテスト
+     */
+    @Nested
+    @DisplayName("移動量取得API")
+    class GetMovementTests {
+
+        @Test
+        @DisplayName("正常系: 期間内の移動量を返す")
+        void testGetMovement_Success() throws Exception {
+            LocalDateTime from = LocalDateTime.of(2025, 1, 1, 12, 0);
+            LocalDateTime to = from.plusHours(2);
+            when(movementService.getMovement("ESP32-001", from, to)).thenReturn(new MovementSummary(
+                    "ESP32-001", from, to, 1500.0, 600.0, 1200.0, 0.0, 4.2, 1.5, to.minusMinutes(1), 2, 0));
+
+            mockMvc.perform(get("/api/devices/ESP32-001/movement")
+                    .param("from", "2025-01-01T12:00:00")
+                    .param("to", "2025-01-01T14:00:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.distanceMeters").value(1500.0))
+                    .andExpect(jsonPath("$.maxSpeed").value(4.2))
+                    .andExpect(jsonPath("$.currentSpeed").value(1.5))
+                    .andExpect(jsonPath("$.snapshotHours").value(2));
+        }
+
+        @Test
+        @DisplayName("異常系: 期間が不正な場合400エラーになる")
+        void testGetMovement_InvalidRange() throws Exception {
+            when(movementService.getMovement(eq("ESP32-001"), any(), any()))
+                    .thenThrow(new IllegalArgumentException("fromはtoより前である必要があります"));
+
+            mockMvc.perform(get("/api/devices/ESP32-001/movement")
+                    .param("from", "2025-01-02T00:00:00")
+                    .param("to", "2025-01-01T00:00:00"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.iotble.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.model.NearbyDevice;
+import com.example.iotble.service.NearestDeviceService;
+
+/**
+ * NearestDeviceControllerのユニットテスト
+ */
+@WebMvcTest(NearestDeviceController.class)
+@DisplayName("NearestDeviceController テスト")
+@SuppressWarnings("null")
+class NearestDeviceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private NearestDeviceService nearestDeviceService;
+
+    /**
+     * GET /api/devices/nearest のテスト
+     */
+    @Nested
+    @DisplayName("近くのデバイス検索API")
+    class GetNearestTests {
+
+        @Test
+        @DisplayName("正常系: 近い順のデバイスを返す")
+        void testGetNearest_Success() throws Exception {
+            LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 12, 0);
+            when(nearestDeviceService.findNearest(35.0, 139.0, 2, 60L)).thenReturn(List.of(
+                    new NearbyDevice("ESP32-001", 1L, 35.0, 139.001, timestamp, 91.2),
+                    new NearbyDevice("ESP32-002", 2L, 35.01, 139.0, timestamp, 1111.9)));
+
+            mockMvc.perform(get("/api/devices/nearest").param("lat", "35.0").param("lon", "139.0")
+                    .param("k", "2").param("maxAgeSeconds", "60"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].deviceId").value("ESP32-001"))
+                    .andExpect(jsonPath("$[1].distanceMeters").value(1111.9));
+        }
+
+        @Test
+        @DisplayName("正常系: 件数を省略した場合は5件まで検索する")
+        void testGetNearest_DefaultK() throws Exception {
+            when(nearestDeviceService.findNearest(35.0, 139.0, 5, null)).thenReturn(List.of());
+
+            mockMvc.perform(get("/api/devices/nearest").param("lat", "35.0").param("lon", "139.0"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(0));
+        }
+
+        @Test
+        @DisplayName("異常系: 検索条件が不正な場合400エラーになる")
+        void testGetNearest_InvalidArgument() throws Exception {
+            when(nearestDeviceService.findNearest(95.0, 139.0, 5, null))
+                    .thenThrow(new IllegalArgumentException("緯度は-90から90の範囲で指定してください: 95.0"));
+
+            mockMvc.perform(get("/api/devices/nearest").param("lat", "95.0").param("lon", "139.0"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+
+        @Test
+        @DisplayName("異常系: 緯度を省略した場合400エラーになる")
+        void testGetNearest_MissingLatitude() throws Exception {
+            mockMvc.perform(get("/api/devices/nearest").param("lon", "139.0"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
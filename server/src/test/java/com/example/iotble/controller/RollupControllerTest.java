@@ -0,0 +1,103 @@
+package com.example.iotble.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.LocationRollup;
+import com.example.iotble.model.RollupResolution;
+import com.example.iotble.model.RollupStats;
+import com.example.iotble.service.LocationRollupService;
+
+/**
+ * RollupControllerのユニットテスト
+ */
+@WebMvcTest(RollupController.class)
+@DisplayName("RollupController テスト")
+@SuppressWarnings("null")
+class RollupControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LocationRollupService rollupService;
+
+    /**
+     * GET /api/devices/{deviceId}/rollups のテスト
+     */
+    @Nested
+    @DisplayName("集計取得API")
+    class GetRollupsTests {
+
+        @Test
+        @DisplayName("正常系: 集計値が平均値を含めて返される")
+        void testGetRollups_Success() throws Exception {
+            LocalDateTime bucket = LocalDateTime.of(2025, 1, 1, 12, 0);
+            RollupStats stats = new RollupStats();
+            stats.add(LocationData.builder().deviceId("ESP32-001").latitude(35.0).longitude(139.0).rssi(-50).build());
+            LocationRollup rollup = LocationRollup.builder()
+                    .deviceId("ESP32-001").resolution(RollupResolution.HOUR).bucketStart(bucket).stats(stats).build();
+            when(rollupService.getRollups("ESP32-001", RollupResolution.HOUR, bucket, bucket.plusHours(3)))
+                    .thenReturn(List.of(rollup));
+
+            mockMvc.perform(get("/api/devices/ESP32-001/rollups")
+                    .param("resolution", "hour")
+                    .param("from", "2025-01-01T12:00:00")
+                    .param("to", "2025-01-01T15:00:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].resolution").value("HOUR"))
+                    .andExpect(jsonPath("$[0].pointCount").value(1))
+                    .andExpect(jsonPath("$[0].meanLatitude").value(35.0))
+                    .andExpect(jsonPath("$[0].avgRssi").value(-50.0))
+                    .andExpect(jsonPath("$[0].latitudeSum").doesNotExist())
+                    .andExpect(jsonPath("$[0].id").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("正常系: 期間を省略すると分単位の直近の集計を取得する")
+        void testGetRollups_Defaults() throws Exception {
+            when(rollupService.getRollups(eq("ESP32-001"), eq(RollupResolution.MINUTE), any(), any()))
+                    .thenReturn(List.of());
+
+            mockMvc.perform(get("/api/devices/ESP32-001/rollups"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$").isEmpty());
+
+            verify(rollupService).getRollups(eq("ESP32-001"), eq(RollupResolution.MINUTE), any(), any());
+        }
+
+        @Test
+        @DisplayName("異常系: 未対応の粒度の場合400エラーになる")
+        void testGetRollups_UnknownResolution() throws Exception {
+            mockMvc.perform(get("/api/devices/ESP32-001/rollups").param("resolution", "day"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").exists());
+        }
+
+        @Test
+        @DisplayName("異常系: fromがtoより後の場合400エラーになる")
+        void testGetRollups_InvalidRange() throws Exception {
+            mockMvc.perform(get("/api/devices/ESP32-001/rollups")
+                    .param("from", "2025-01-02T00:00:00")
+                    .param("to", "2025-01-01T00:00:00"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
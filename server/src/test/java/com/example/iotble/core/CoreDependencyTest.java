@@ -0,0 +1,55 @@
+package com.example.iotble.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 取り込み処理のパッケージの依存関係のテスト
+ *
+ * core パッケージは単体の jar としてゲートウェイに組み込むため、Spring・Hibernate・Jakarta・SLF4J と
+ * サーバーの他のパッケージを参照しないことをソースの import で確認します
+ */
+@DisplayName("core パッケージの依存関係 テスト")
+class CoreDependencyTest {
+
+    private static final Path CORE_SOURCES = Path.of("src", "main", "java", "com", "example", "iotble", "core");
+
+    private static final List<String> FORBIDDEN_PREFIXES = List.of(
+            "org.springframework.", "org.hibernate.", "jakarta.", "org.slf4j.", "com.example.iotble.");
+
+    @Test
+    @DisplayName("正常系: core パッケージはJDKとLombok以外を参照しない")
+    void testCoreImports() throws IOException {
+        List<String> violations = new ArrayList<>();
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(CORE_SOURCES)) {
+            sources = files.filter(path -> path.toString().endsWith(".java")).toList();
+        }
+        for (Path source : sources) {
+            for (String line : Files.readAllLines(source)) {
+                String trimmed = line.strip();
+                if (!trimmed.startsWith("import ")) {
+                    continue;
+                }
+                String imported = trimmed.substring("import ".length()).replace("static ", "");
+                if (FORBIDDEN_PREFIXES.stream().anyMatch(imported::startsWith)
+                        && !imported.startsWith("com.example.iotble.core.")) {
+                    violations.add(source.getFileName() + ": " + trimmed);
+                }
+            }
+        }
+
+        assertFalse(sources.isEmpty());
+        assertEquals(List.of(), violations);
+    }
+}
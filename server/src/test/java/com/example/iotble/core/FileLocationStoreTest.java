@@ -0,0 +1,126 @@
+package com.example.iotble.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * FileLocationStoreのユニットテスト
+ */
+@DisplayName("FileLocationStore テスト")
+@SuppressWarnings("null")
+class FileLocationStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 復元のテスト
+     */
+    @Nested
+    @DisplayName("復元")
+    class ReplayTests {
+
+        @Test
+        @DisplayName("正常系: 開き直すと保存した位置情報とIDの採番を復元する")
+        void testOpen_Replays() {
+            Path file = tempDir.resolve("locations.bin");
+            LocationPoint saved;
+            try (FileLocationStore store = FileLocationStore.open(file, 0, false)) {
+                saved = store.save(LocationPoint.builder()
+                        .deviceId("DEV")
+                        .latitude(35.658581)
+                        .longitude(139.745433)
+                        .rssi(-70)
+                        .smoothedLatitude(35.6585)
+                        .smoothedLongitude(139.7454)
+                        .timestamp(testTime.plusNanos(1_000))
+                        .build());
+                store.save(LocationPoint.of("OTHER", 1, 2, testTime));
+            }
+
+            try (FileLocationStore reopened = FileLocationStore.open(file, 0, true)) {
+                assertEquals(2, reopened.count());
+                assertEquals(saved, reopened.findLatest("DEV").orElseThrow());
+                assertEquals(3L, reopened.save(LocationPoint.of("DEV", 0, 0, testTime.plusSeconds(1))).id());
+            }
+        }
+
+        @Test
+        @DisplayName("異常系: 書き込み途中の末尾のレコードは切り捨てて追記を続ける")
+        void testOpen_TruncatedTail() throws IOException {
+            Path file = tempDir.resolve("locations.bin");
+            try (FileLocationStore store = FileLocationStore.open(file, 0, false)) {
+                store.save(LocationPoint.of("DEV", 1, 0, testTime));
+                store.save(LocationPoint.of("DEV", 2, 0, testTime.plusSeconds(1)));
+            }
+            long size = Files.size(file);
+            try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+                channel.truncate(size - 5);
+            }
+
+            try (FileLocationStore reopened = FileLocationStore.open(file, 0, false)) {
+                assertEquals(1, reopened.count());
+                reopened.save(LocationPoint.of("DEV", 3, 0, testTime.plusSeconds(2)));
+            }
+            try (FileLocationStore reopened = FileLocationStore.open(file, 0, false)) {
+                List<LocationPoint> points = reopened.findRange("DEV", testTime, testTime.plusSeconds(2), false, 10);
+                assertEquals(List.of(1.0, 3.0), points.stream().map(LocationPoint::latitude).toList());
+            }
+        }
+
+        @Test
+        @DisplayName("エッジケース: 存在しないファイルは空の保存先として作成する")
+        void testOpen_NewFile() {
+            Path file = tempDir.resolve("new.bin");
+
+            try (FileLocationStore store = FileLocationStore.open(file, 0, false)) {
+                assertEquals(0, store.count());
+            }
+            assertTrue(Files.exists(file));
+        }
+    }
+
+    /**
+     * 書き直しのテスト
+     */
+    @Nested
+    @DisplayName("書き直し")
+    class CompactTests {
+
+        @Test
+        @DisplayName("正常系: 上限件数で破棄した位置情報をファイルから除く")
+        void testCompact() throws IOException {
+            Path file = tempDir.resolve("locations.bin");
+            try (FileLocationStore store = FileLocationStore.open(file, 2, false)) {
+                for (int i = 0; i < 10; i++) {
+                    store.save(LocationPoint.of("DEV", i, 0, testTime.plusSeconds(i)));
+                }
+                long before = Files.size(file);
+
+                store.compact();
+                store.save(LocationPoint.of("DEV", 10, 0, testTime.plusSeconds(10)));
+
+                assertTrue(Files.size(file) < before);
+            }
+
+            try (FileLocationStore reopened = FileLocationStore.open(file, 0, false)) {
+                List<LocationPoint> points = reopened.findRange("DEV", testTime, testTime.plusSeconds(10), false, 10);
+                assertEquals(List.of(8.0, 9.0, 10.0), points.stream().map(LocationPoint::latitude).toList());
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.iotble.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * InMemoryLocationStoreのユニットテスト
+ */
+@DisplayName("InMemoryLocationStore テスト")
+@SuppressWarnings("null")
+class InMemoryLocationStoreTest {
+
+    private InMemoryLocationStore store;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryLocationStore();
+    }
+
+    /**
+     * 保存のテスト
+     */
+    @Nested
+    @DisplayName("保存")
+    class SaveTests {
+
+        @Test
+        @DisplayName("正常系: IDと保存日時を設定し、すべての項目を復元できる")
+        void testSave_RoundTrip() {
+            LocationPoint point = LocationPoint.builder()
+                    .deviceId("DEV")
+                    .latitude(35.658581)
+                    .longitude(139.745433)
+                    .altitude(10.5)
+                    .accuracy(3.0)
+                    .rssi(-70)
+                    .smoothedLatitude(35.6585)
+                    .smoothedLongitude(139.7454)
+                    .timestamp(testTime)
+                    .build();
+
+            LocationPoint saved = store.save(point);
+
+            assertEquals(1L, saved.id());
+            assertTrue(saved.createdAt() != null);
+            assertEquals(point.toBuilder().id(1L).createdAt(saved.createdAt()).build(), saved);
+            assertEquals(saved, store.findLatest("DEV").orElseThrow());
+        }
+
+        @Test
+        @DisplayName("エッジケース: オプション項目がnullのまま復元できる")
+        void testSave_NullOptionalFields() {
+            LocationPoint saved = store.save(LocationPoint.of("DEV", 0, 0, testTime));
+
+            assertNull(saved.altitude());
+            assertNull(saved.accuracy());
+            assertNull(saved.rssi());
+            assertNull(saved.smoothedLatitude());
+        }
+
+        @Test
+        @DisplayName("境界値: タイムスタンプはマイクロ秒に切り捨てる")
+        void testSave_TruncatesToMicros() {
+            LocationPoint saved = store.save(LocationPoint.of("DEV", 0, 0, testTime.plusNanos(1_234_567)));
+
+            assertEquals(testTime.plusNanos(1_234_000), saved.timestamp());
+        }
+
+        @Test
+        @DisplayName("正常系: 指定したIDより後のIDを採番する")
+        void testSave_ExplicitId() {
+            store.save(LocationPoint.of("DEV", 0, 0, testTime).toBuilder().id(100L).build());
+
+            assertEquals(101L, store.save(LocationPoint.of("DEV", 0, 0, testTime)).id());
+        }
+
+        @Test
+        @DisplayName("正常系: 時刻順でない位置情報も時刻順に並べる")
+        void testSave_OutOfOrder() {
+            for (int seconds : new int[] { 5, 1, 3, 9, 0, 3 }) {
+                store.save(LocationPoint.of("DEV", seconds, 0, testTime.plusSeconds(seconds)));
+            }
+
+            List<LocationPoint> all = store.findRange("DEV", testTime, testTime.plusSeconds(10), false, 100);
+
+            assertEquals(List.of(0.0, 1.0, 3.0, 3.0, 5.0, 9.0), all.stream().map(LocationPoint::latitude).toList());
+            assertEquals(9.0, store.findLatest("DEV").orElseThrow().latitude());
+        }
+
+        @Test
+        @DisplayName("境界値: 上限件数を超えると古い位置情報から破棄する")
+        void testSave_EvictsOldest() {
+            InMemoryLocationStore bounded = new InMemoryLocationStore(3);
+            for (int i = 0; i < 100; i++) {
+                bounded.save(LocationPoint.of("DEV", i * 0.5, 0, testTime.plusSeconds(i)));
+            }
+            bounded.save(LocationPoint.of("OTHER", 0, 0, testTime));
+
+            List<LocationPoint> kept = bounded.findRange("DEV", testTime, testTime.plusDays(1), false, 10);
+
+            assertEquals(List.of(48.5, 49.0, 49.5), kept.stream().map(LocationPoint::latitude).toList());
+            assertEquals(4, bounded.count());
+        }
+
+        @Test
+        @DisplayName("異常系: 上限件数が負の場合は例外")
+        void testConstructor_NegativeLimit() {
+            assertThrows(IllegalArgumentException.class, () -> new InMemoryLocationStore(-1));
+        }
+    }
+
+    /**
+     * 検索のテスト
+     */
+    @Nested
+    @DisplayName("検索")
+    class FindTests {
+
+        @BeforeEach
+        void setUp() {
+            for (int i = 0; i < 10; i++) {
+                store.save(LocationPoint.of("DEV", i, 0, testTime.plusSeconds(i)));
+            }
+        }
+
+        @Test
+        @DisplayName("正常系: 期間の両端を含めて新しい順・古い順に件数まで返す")
+        void testFindRange_Order() {
+            List<LocationPoint> newest = store.findRange("DEV", testTime.plusSeconds(2), testTime.plusSeconds(6), true, 3);
+            List<LocationPoint> oldest = store.findRange("DEV", testTime.plusSeconds(2), testTime.plusSeconds(6), false, 10);
+
+            assertEquals(List.of(6.0, 5.0, 4.0), newest.stream().map(LocationPoint::latitude).toList());
+            assertEquals(List.of(2.0, 3.0, 4.0, 5.0, 6.0), oldest.stream().map(LocationPoint::latitude).toList());
+        }
+
+        @Test
+        @DisplayName("エッジケース: 期間外や存在しないデバイスは空を返す")
+        void testFindRange_Empty() {
+            assertTrue(store.findRange("DEV", testTime.plusHours(1), testTime.plusHours(2), true, 10).isEmpty());
+            assertTrue(store.findRange("NONE", testTime, testTime.plusHours(1), true, 10).isEmpty());
+            assertTrue(store.findLatest("NONE").isEmpty());
+        }
+
+        @Test
+        @DisplayName("正常系: すべての位置情報をデバイスごとに時刻順に渡す")
+        void testForEach() {
+            store.save(LocationPoint.of("OTHER", 0, 0, testTime));
+            List<LocationPoint> points = new ArrayList<>();
+
+            store.forEach(points::add);
+
+            assertEquals(11, points.size());
+            assertEquals(11, store.count());
+        }
+    }
+}
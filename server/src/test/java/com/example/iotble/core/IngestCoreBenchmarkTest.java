@@ -0,0 +1,71 @@
+package com.example.iotble.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 取り込み処理を組み込んだ場合の起動時間・処理速度・メモリ使用量
+ *
+ * 取り込み処理（平滑化と重複の判定を含む）とメモリ上の保存先を生成して最初の1件を保存するまでの時間、
+ * 1000デバイス・100万件を取り込む速度、保存した位置情報1件あたりのヒープ使用量を出力します。
+ * 通常のテストでは実行せず、{@code mvn test -Pbenchmark} で実行します
+ */
+@Tag("benchmark")
+@DisplayName("取り込み処理 ベンチマーク")
+class IngestCoreBenchmarkTest {
+
+    private static final int DEVICES = 1_000;
+    private static final int POINTS = 1_000_000;
+
+    @Test
+    @DisplayName("組み込みの取り込み処理で100万件を取り込む")
+    void benchmarkIngest() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        long heapBefore = usedHeap();
+
+        long start = System.nanoTime();
+        InMemoryLocationStore store = new InMemoryLocationStore();
+        LocationIngestor ingestor = new LocationIngestor(store, List.of(new KalmanSmoother(3.0, 25.0, -60, 16.0)), 4);
+        ingestor.ingest(LocationPoint.of("DEV-0", 35.6, 139.7, base));
+        double startupMillis = (System.nanoTime() - start) / 1e6;
+
+        Random random = new Random(1);
+        long ingestStart = System.nanoTime();
+        for (int i = 1; i < POINTS; i++) {
+            ingestor.ingest(LocationPoint.builder()
+                    .deviceId("DEV-" + i % DEVICES)
+                    .latitude(35.6 + random.nextGaussian() * 0.01)
+                    .longitude(139.7 + random.nextGaussian() * 0.01)
+                    .accuracy(10.0)
+                    .rssi(-70)
+                    .timestamp(base.plusSeconds(i / DEVICES))
+                    .build());
+        }
+        double seconds = (System.nanoTime() - ingestStart) / 1e9;
+        assertEquals(POINTS, store.count());
+
+        long heapAfter = usedHeap();
+        System.out.println(String.format(Locale.ROOT,
+                "取り込み処理: 最初の1件まで=%.2fms, 処理速度=%.0f件/秒, ヒープ=%.1fMB (%.0fバイト/件)",
+                startupMillis, (POINTS - 1) / seconds, (heapAfter - heapBefore) / 1e6,
+                (double) (heapAfter - heapBefore) / POINTS));
+        // 計測が終わるまで保存先を回収させない
+        assertEquals(POINTS, ingestor.ingest(LocationPoint.of("DEV-0", 0, 0, base)).point().id() - 1);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
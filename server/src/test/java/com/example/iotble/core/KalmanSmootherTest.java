@@ -0,0 +1,240 @@
+package com.example.iotble.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.example.iotble.util.GeoUtils;
+
+/**
+ * KalmanSmootherのユニットテスト
+ */
+@DisplayName("KalmanSmoother テスト")
+@SuppressWarnings("null")
+class KalmanSmootherTest {
+
+    private static final double BASE_LATITUDE = 35.0;
+    private static final double BASE_LONGITUDE = 139.0;
+
+    /** 約10mに相当する緯度の差 */
+    private static final double TEN_METERS = 10 / 111_320.0;
+
+    private KalmanSmoother stage;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        stage = new KalmanSmoother(1.0, 25.0, -60, 16.0);
+    }
+
+    /**
+     * 平滑化のテスト
+     */
+    @Nested
+    @DisplayName("平滑化")
+    class SmoothingTests {
+
+        @Test
+        @DisplayName("正常系: 最初の位置情報は受信した座標がそのまま平滑化後の座標になる")
+        void testProcess_FirstReading() {
+            LocationPoint location = stage.process(reading("DEV", BASE_LATITUDE, 0, 10.0, -60));
+
+            assertEquals(BASE_LATITUDE, location.smoothedLatitude());
+            assertEquals(BASE_LONGITUDE, location.smoothedLongitude());
+            assertEquals(BASE_LATITUDE, location.latitude());
+        }
+
+        @Test
+        @DisplayName("正常系: 静止しているデバイスのばらつきが小さくなる")
+        void testProcess_ReducesJitter() {
+            double rawError = 0;
+            double smoothedError = 0;
+            for (int i = 0; i < 60; i++) {
+                // ±30m で交互にぶれる静止デバイス
+                double latitude = BASE_LATITUDE + (i % 2 == 0 ? 3 : -3) * TEN_METERS;
+                LocationPoint location = stage.process(reading("DEV", latitude, i, 30.0, -60));
+                if (i >= 10) {
+                    rawError += distanceFromBase(location.latitude());
+                    smoothedError += distanceFromBase(location.smoothedLatitude());
+                }
+            }
+
+            assertTrue(smoothedError < rawError / 3, "平滑化後の誤差が小さくなるべき: " + smoothedError);
+        }
+
+        @Test
+        @DisplayName("正常系: 精度の悪い位置情報ほど推定位置への影響が小さい")
+        void testProcess_WeightsByAccuracy() {
+            stage.process(reading("PRECISE", BASE_LATITUDE, 0, 5.0, -60));
+            stage.process(reading("COARSE", BASE_LATITUDE, 0, 5.0, -60));
+
+            LocationPoint precise = stage.process(reading("PRECISE", BASE_LATITUDE + 5 * TEN_METERS, 1, 5.0, -60));
+            LocationPoint coarse = stage.process(reading("COARSE", BASE_LATITUDE + 5 * TEN_METERS, 1, 100.0, -60));
+
+            assertTrue(precise.smoothedLatitude() - BASE_LATITUDE > 10 * (coarse.smoothedLatitude() - BASE_LATITUDE));
+        }
+
+        @Test
+        @DisplayName("正常系: RSSIが弱い位置情報ほど分散を大きく見積もる")
+        void testMeasurementVariance_Rssi() {
+            assertEquals(100.0, stage.measurementVariance(10.0, -50));
+            assertEquals(200.0, stage.measurementVariance(10.0, -70));
+            assertEquals(1600.0, stage.measurementVariance(10.0, -120));
+            assertEquals(625.0, stage.measurementVariance(null, null));
+        }
+
+        @Test
+        @DisplayName("境界値: 最後の時刻より前の位置情報は平滑化しない")
+        void testProcess_OutOfOrder() {
+            stage.process(reading("DEV", BASE_LATITUDE, 10, 10.0, -60));
+
+            LocationPoint late = stage.process(reading("DEV", BASE_LATITUDE + TEN_METERS, 5, 10.0, -60));
+
+            assertNull(late.smoothedLatitude());
+            assertNull(late.smoothedLongitude());
+        }
+
+        @Test
+        @DisplayName("正常系: 保存する場合は位置情報を作り直さずに平滑化後の座標を保存先に渡す")
+        void testProcessAndSave() {
+            KalmanSmoother reference = new KalmanSmoother(1.0, 25.0, -60, 16.0);
+            InMemoryLocationStore store = new InMemoryLocationStore(0) {
+                @Override
+                public LocationPoint save(LocationPoint point) {
+                    assertNull(point.smoothedLatitude(), "平滑化した位置情報は座標を別に渡すべき");
+                    return super.save(point);
+                }
+            };
+            stage.processAndSave(reading("DEV", BASE_LATITUDE, 10, 10.0, -60), store);
+            reference.process(reading("DEV", BASE_LATITUDE, 10, 10.0, -60));
+
+            LocationPoint saved = stage.processAndSave(reading("DEV", BASE_LATITUDE + TEN_METERS, 20, 10.0, -60),
+                    store);
+            LocationPoint expected = reference.process(reading("DEV", BASE_LATITUDE + TEN_METERS, 20, 10.0, -60));
+            LocationPoint late = stage.processAndSave(reading("DEV", BASE_LATITUDE, 5, 10.0, -60), store);
+
+            assertEquals(expected.smoothedLatitude(), saved.smoothedLatitude(), 1e-7);
+            assertEquals(BASE_LATITUDE + TEN_METERS, saved.latitude(), 1e-7);
+            assertNull(late.smoothedLatitude());
+            assertEquals(3, store.count());
+        }
+    }
+
+    /**
+     * 状態の破棄のテスト
+     */
+    @Nested
+    @DisplayName("状態の破棄")
+    class EvictionTests {
+
+        private final AtomicLong clock = new AtomicLong();
+
+        @Test
+        @DisplayName("正常系: 忘れたデバイスは次の位置情報から推定し直す")
+        void testForgetDevice() {
+            stage.process(reading("DEV", BASE_LATITUDE, 0, 10.0, -60));
+            stage.process(reading("OTHER", BASE_LATITUDE, 0, 10.0, -60));
+
+            stage.forgetDevice("DEV");
+            LocationPoint restarted = stage.process(reading("DEV", BASE_LATITUDE + TEN_METERS, 1, 10.0, -60));
+
+            assertEquals(BASE_LATITUDE + TEN_METERS, restarted.smoothedLatitude());
+            assertEquals(2, stage.getTrackedDeviceCount());
+            stage.forgetAll();
+            assertEquals(0, stage.getTrackedDeviceCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 一定時間使われていないデバイスの状態を破棄する")
+        void testProcess_EvictsIdleDevices() {
+            KalmanSmoother smoother = new KalmanSmoother(1.0, 25.0, -60, 16.0, 60_000, clock::get);
+            smoother.process(reading("IDLE", BASE_LATITUDE, 0, 10.0, -60));
+            advance(30_000);
+            smoother.process(reading("ACTIVE", BASE_LATITUDE, 30, 10.0, -60));
+            advance(30_000);
+            smoother.process(reading("ACTIVE", BASE_LATITUDE, 60, 10.0, -60));
+
+            assertEquals(1, smoother.getTrackedDeviceCount());
+            LocationPoint restarted = smoother.process(reading("IDLE", BASE_LATITUDE + TEN_METERS, 60, 10.0, -60));
+            assertEquals(BASE_LATITUDE + TEN_METERS, restarted.smoothedLatitude());
+        }
+
+        @Test
+        @DisplayName("異常系: 状態を破棄するまでの時間が0以下の場合は例外")
+        void testInvalidIdle() {
+            assertThrows(IllegalArgumentException.class, () -> new KalmanSmoother(1.0, 25.0, -60, 16.0, 0));
+        }
+
+        private void advance(long millis) {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    /**
+     * 並行処理のテスト
+     */
+    @Nested
+    @DisplayName("並行処理")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("正常系: 同じデバイスの位置情報を並行して処理しても状態が壊れない")
+        void testProcess_Concurrent() throws Exception {
+            int threads = 8;
+            int perThread = 500;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            LocationPoint location = stage.process(reading("DEV", BASE_LATITUDE, 0, 10.0, -60));
+                            assertEquals(BASE_LATITUDE, location.smoothedLatitude(), 1e-12);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(1, stage.getTrackedDeviceCount());
+        }
+    }
+
+    private LocationPoint reading(String deviceId, double latitude, int seconds, Double accuracy, Integer rssi) {
+        return LocationPoint.builder()
+                .deviceId(deviceId)
+                .latitude(latitude)
+                .longitude(BASE_LONGITUDE)
+                .accuracy(accuracy)
+                .rssi(rssi)
+                .timestamp(testTime.plusSeconds(seconds))
+                .build();
+    }
+
+    private static double distanceFromBase(double latitude) {
+        return GeoUtils.haversineMeters(BASE_LATITUDE, BASE_LONGITUDE, latitude, BASE_LONGITUDE);
+    }
+}
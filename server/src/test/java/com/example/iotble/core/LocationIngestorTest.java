@@ -0,0 +1,277 @@
+package com.example.iotble.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LocationIngestorのユニットテスト
+ */
+@DisplayName("LocationIngestor テスト")
+@SuppressWarnings("null")
+class LocationIngestorTest {
+
+    private InMemoryLocationStore store;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryLocationStore();
+    }
+
+    /**
+     * 取り込みのテスト
+     */
+    @Nested
+    @DisplayName("取り込み")
+    class IngestTests {
+
+        @Test
+        @DisplayName("正常系: 保存前の処理を登録順に適用して保存する")
+        void testIngest_AppliesStagesInOrder() {
+            List<String> calls = new ArrayList<>();
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(
+                    point -> {
+                        calls.add("first");
+                        return point.toBuilder().altitude(1.0).build();
+                    },
+                    point -> {
+                        calls.add("second:" + point.altitude());
+                        return point;
+                    }), 0);
+
+            IngestResult result = ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+
+            assertEquals(IngestResult.Status.ACCEPTED, result.status());
+            assertEquals(List.of("first", "second:1.0"), calls);
+            assertNotNull(result.point().id());
+            assertEquals(1.0, result.point().altitude());
+            assertEquals(1, store.count());
+        }
+
+        @Test
+        @DisplayName("正常系: タイムスタンプがない場合は現在時刻を設定する")
+        void testIngest_NullTimestamp() {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 0);
+            LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+
+            IngestResult result = ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, null));
+
+            assertTrue(result.point().timestamp().isAfter(before));
+        }
+
+        @Test
+        @DisplayName("異常系: 必須項目がない位置情報は保存しない")
+        void testIngest_MissingFields() {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 0);
+
+            IngestResult result = ingestor.ingest(LocationPoint.builder().deviceId(" ").build());
+
+            assertEquals(IngestResult.Status.INVALID, result.status());
+            assertNull(result.point());
+            assertEquals(Set.of("deviceId", "latitude", "longitude"), result.errors().keySet());
+            assertEquals(0, store.count());
+        }
+
+        @Test
+        @DisplayName("境界値: 緯度・経度の範囲の端は保存し、範囲外とNaNは保存しない")
+        void testIngest_CoordinateRange() {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 0);
+
+            assertEquals(IngestResult.Status.ACCEPTED, ingestor.ingest(LocationPoint.of("DEV", -90, 180, testTime)).status());
+            assertEquals(IngestResult.Status.ACCEPTED, ingestor.ingest(LocationPoint.of("DEV", 90, -180, testTime)).status());
+            assertEquals(Set.of("latitude"),
+                    ingestor.ingest(LocationPoint.of("DEV", 90.000001, 0, testTime)).errors().keySet());
+            assertEquals(Set.of("longitude"),
+                    ingestor.ingest(LocationPoint.of("DEV", 0, Double.NaN, testTime)).errors().keySet());
+        }
+
+        @Test
+        @DisplayName("境界値: デバイスIDが上限の文字数を超える位置情報は保存しない")
+        void testIngest_DeviceIdTooLong() {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 0);
+            String longest = "D".repeat(LocationValidator.MAX_DEVICE_ID_LENGTH);
+
+            assertEquals(IngestResult.Status.ACCEPTED, ingestor.ingest(LocationPoint.of(longest, 0, 0, testTime)).status());
+            assertEquals(IngestResult.Status.INVALID,
+                    ingestor.ingest(LocationPoint.of(longest + "D", 0, 0, testTime)).status());
+        }
+
+        @Test
+        @DisplayName("異常系: 重複を判定する件数が負の場合は例外")
+        void testConstructor_NegativeWindow() {
+            assertThrows(IllegalArgumentException.class, () -> new LocationIngestor(store, List.of(), -1));
+        }
+    }
+
+    /**
+     * 重複の判定のテスト
+     */
+    @Nested
+    @DisplayName("重複の判定")
+    class DuplicateTests {
+
+        @Test
+        @DisplayName("正常系: 直近の位置情報と同じ位置情報は保存せず先に保存した位置情報を返す")
+        void testIngest_Duplicate() {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 2);
+
+            IngestResult first = ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+            IngestResult second = ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+
+            assertEquals(IngestResult.Status.DUPLICATE, second.status());
+            assertEquals(first.point(), second.point());
+            assertEquals(1, store.count());
+        }
+
+        @Test
+        @DisplayName("正常系: 時刻・座標・デバイスのいずれかが違えば保存する")
+        void testIngest_Different() {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 4);
+
+            ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+            ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime.plusSeconds(1)));
+            ingestor.ingest(LocationPoint.of("DEV", 35.1, 139.0, testTime));
+            ingestor.ingest(LocationPoint.of("OTHER", 35.0, 139.0, testTime));
+
+            assertEquals(4, store.count());
+        }
+
+        @Test
+        @DisplayName("境界値: 判定する件数より前の位置情報は重複とみなさない")
+        void testIngest_OutsideWindow() {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 2);
+
+            ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+            ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime.plusSeconds(1)));
+            ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime.plusSeconds(2)));
+            IngestResult resent = ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+
+            assertEquals(IngestResult.Status.ACCEPTED, resent.status());
+            assertEquals(4, store.count());
+        }
+
+        @Test
+        @DisplayName("正常系: 保存前の処理で値が変わっても受け取った値で判定する")
+        void testIngest_ComparesReceivedValues() {
+            LocationIngestor ingestor = new LocationIngestor(store,
+                    List.of(new KalmanSmoother(1.0, 25.0, -60, 16.0)), 4);
+
+            ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+            ingestor.ingest(LocationPoint.of("DEV", 35.001, 139.0, testTime.plusSeconds(1)));
+            IngestResult resent = ingestor.ingest(LocationPoint.of("DEV", 35.001, 139.0, testTime.plusSeconds(1)));
+
+            assertEquals(IngestResult.Status.DUPLICATE, resent.status());
+            assertEquals(2, store.count());
+        }
+
+        @Test
+        @DisplayName("正常系: 削除した位置情報やデバイスを忘れると再送を保存する")
+        void testForget() {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 4);
+            LocationPoint point = LocationPoint.of("DEV", 35.0, 139.0, testTime);
+            LocationPoint saved = ingestor.ingest(point).point();
+
+            ingestor.forgetIds(List.of(saved.id()));
+            LocationPoint afterIds = ingestor.ingest(point).point();
+            ingestor.forgetDevice("DEV");
+            LocationPoint afterDevice = ingestor.ingest(point).point();
+            ingestor.forgetAll();
+            LocationPoint afterAll = ingestor.ingest(point).point();
+
+            assertNotEquals(saved.id(), afterIds.id());
+            assertNotEquals(afterIds.id(), afterDevice.id());
+            assertNotEquals(afterDevice.id(), afterAll.id());
+            assertEquals(4, store.count());
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスを忘れると保存前の処理の状態も破棄する")
+        void testForget_Stages() {
+            KalmanSmoother smoother = new KalmanSmoother(1.0, 25.0, -60, 16.0);
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(smoother), 0);
+            ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+            ingestor.ingest(LocationPoint.of("OTHER", 35.0, 139.0, testTime));
+
+            ingestor.forgetDevice("DEV");
+            assertEquals(1, smoother.getTrackedDeviceCount());
+            ingestor.forgetAll();
+            assertEquals(0, smoother.getTrackedDeviceCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 保存が確定するまでは覚えず、確定しなかった位置情報の再送は保存する")
+        void testIngest_RegistersAfterCommit() {
+            List<Runnable> pending = new ArrayList<>();
+            InMemoryLocationStore deferred = new InMemoryLocationStore() {
+                @Override
+                public void afterCommit(Runnable action) {
+                    pending.add(action);
+                }
+            };
+            LocationIngestor ingestor = new LocationIngestor(deferred, List.of(), 4);
+            LocationPoint point = LocationPoint.of("DEV", 35.0, 139.0, testTime);
+
+            ingestor.ingest(point);
+            pending.clear();
+            IngestResult afterRollback = ingestor.ingest(point);
+            pending.forEach(Runnable::run);
+            IngestResult afterCommit = ingestor.ingest(point);
+
+            assertEquals(IngestResult.Status.ACCEPTED, afterRollback.status());
+            assertEquals(IngestResult.Status.DUPLICATE, afterCommit.status());
+            assertEquals(afterRollback.point(), afterCommit.point());
+        }
+
+        @Test
+        @DisplayName("エッジケース: 同じ位置情報が同時に届いても保存するのは1件だけ")
+        void testIngest_ConcurrentDuplicates() throws Exception {
+            LocationIngestor ingestor = new LocationIngestor(store, List.of(), 4);
+            int threads = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                List<Future<IngestResult>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return ingestor.ingest(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+                    }));
+                }
+                start.countDown();
+                long accepted = 0;
+                for (Future<IngestResult> future : futures) {
+                    if (future.get().status() == IngestResult.Status.ACCEPTED) {
+                        accepted++;
+                    }
+                }
+                assertEquals(1, accepted);
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(1, store.count());
+        }
+    }
+}
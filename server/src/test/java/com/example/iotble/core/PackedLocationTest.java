@@ -0,0 +1,163 @@
+package com.example.iotble.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * PackedLocationのユニットテスト
+ */
+@DisplayName("PackedLocation テスト")
+class PackedLocationTest {
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 変換のテスト
+     */
+    @Nested
+    @DisplayName("変換")
+    class ConvertTests {
+
+        @Test
+        @DisplayName("正常系: すべての項目が固定小数点の整数になり、元の値に戻る")
+        void testRoundTrip() {
+            LocationPoint point = LocationPoint.builder()
+                    .id(1L)
+                    .deviceId("DEV")
+                    .latitude(35.658581)
+                    .longitude(139.745433)
+                    .altitude(10.5)
+                    .accuracy(3.25)
+                    .rssi(-70)
+                    .smoothedLatitude(35.6585)
+                    .smoothedLongitude(139.7454)
+                    .timestamp(testTime)
+                    .build();
+
+            PackedLocation packed = PackedLocation.of(point);
+
+            assertEquals(356585810, packed.latitudeE7());
+            assertEquals(1397454330, packed.longitudeE7());
+            assertEquals(1050, packed.altitudeCm());
+            assertEquals(325, packed.accuracyCm());
+            assertEquals(-70, packed.rssiDbm());
+            assertEquals(point, packed.toPoint(1L, "DEV", testTime, null));
+        }
+
+        @Test
+        @DisplayName("正常系: 値のない項目はビットで表し、null に戻る")
+        void testNullFields() {
+            PackedLocation packed = PackedLocation.of(LocationPoint.of("DEV", 35.0, 139.0, testTime));
+
+            assertEquals(0, packed.flags());
+            assertFalse(packed.has(PackedLocation.HAS_ALTITUDE));
+            assertNull(packed.altitude());
+            assertNull(packed.accuracy());
+            assertNull(packed.rssi());
+            assertNull(packed.smoothedLatitude());
+            assertEquals(35.0, packed.effectiveLatitude());
+        }
+
+        @Test
+        @DisplayName("正常系: 0の値も値ありとして保持する")
+        void testZeroValues() {
+            PackedLocation packed = PackedLocation.of(0.0, 0.0, 0.0, 0.0, 0, null, null);
+
+            assertTrue(packed.has(PackedLocation.HAS_ALTITUDE));
+            assertEquals(0.0, packed.altitude());
+            assertEquals(0.0, packed.accuracy());
+            assertEquals(0, packed.rssi());
+        }
+
+        @Test
+        @DisplayName("正常系: 平滑化後の緯度・経度は両方ある場合だけ保持し、距離の計算に使う")
+        void testSmoothed() {
+            PackedLocation smoothed = PackedLocation.of(35.0, 139.0, null, null, null, 35.1, 139.1);
+            PackedLocation partial = PackedLocation.of(35.0, 139.0, null, null, null, 35.1, null);
+
+            assertEquals(35.1, smoothed.effectiveLatitude());
+            assertEquals(139.1, smoothed.effectiveLongitude());
+            assertFalse(partial.has(PackedLocation.HAS_SMOOTHED));
+            assertEquals(35.0, partial.effectiveLatitude());
+        }
+    }
+
+    /**
+     * 境界値のテスト
+     */
+    @Nested
+    @DisplayName("境界値")
+    class BoundaryTests {
+
+        @Test
+        @DisplayName("境界値: 緯度・経度の両端と小数点以下7桁の値が元の double と一致する")
+        void testDegrees_Exact() {
+            for (double degrees : new double[] { -180.0, -90.0, 0.0, 90.0, 180.0, 0.0000001, -0.0000001 }) {
+                assertEquals(degrees, PackedLocation.fromE7(PackedLocation.toE7(degrees)));
+            }
+            Random random = new Random(42);
+            for (int i = 0; i < 10_000; i++) {
+                double degrees = random.nextInt(-1_800_000_000, 1_800_000_001) / 1e7;
+                assertEquals(degrees, PackedLocation.fromE7(PackedLocation.toE7(degrees)));
+            }
+        }
+
+        @Test
+        @DisplayName("境界値: 小数点以下8桁以降は1e-7度に丸める")
+        void testDegrees_Rounded() {
+            assertEquals(356585812, PackedLocation.toE7(35.65858124));
+            assertEquals(356585813, PackedLocation.toE7(35.65858126));
+        }
+
+        @Test
+        @DisplayName("異常系: 範囲外の緯度・経度は丸めずに拒否する")
+        void testOf_OutOfRangeDegrees() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> PackedLocation.of(500.0, 0.0, null, null, null, null, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> PackedLocation.of(0.0, -999.0, null, null, null, null, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> PackedLocation.of(0.0, 0.0, null, null, null, 91.0, 0.0));
+        }
+
+        @Test
+        @DisplayName("異常系: NaN・無限大は拒否する")
+        void testOf_NotFinite() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> PackedLocation.of(Double.NaN, 0.0, null, null, null, null, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> PackedLocation.of(0.0, 0.0, Double.POSITIVE_INFINITY, null, null, null, null));
+            assertThrows(IllegalArgumentException.class, () -> PackedLocation.toE7(Double.NaN));
+            assertThrows(IllegalArgumentException.class, () -> PackedLocation.toCentimeters(Double.NaN));
+        }
+
+        @Test
+        @DisplayName("異常系: 整数に収まらない高度・精度・信号強度は拒否する")
+        void testOf_Overflow() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> PackedLocation.of(0.0, 0.0, 1e12, null, null, null, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> PackedLocation.of(0.0, 0.0, null, -1e12, null, null, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> PackedLocation.of(0.0, 0.0, null, null, 100_000, null, null));
+            assertThrows(IllegalArgumentException.class, () -> PackedLocation.toE7(1000.0));
+        }
+
+        @Test
+        @DisplayName("境界値: intに収まる最大の長さは変換できる")
+        void testToCentimeters_Limit() {
+            assertEquals(Integer.MAX_VALUE, PackedLocation.toCentimeters(Integer.MAX_VALUE / 100.0));
+            assertEquals(-214748364, PackedLocation.toCentimeters(-2147483.64));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.iotble.device;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+
+/**
+ * DeviceRegistryのテスト
+ */
+@DataJpaTest
+@Import(DeviceRegistry.class)
+@DisplayName("DeviceRegistry テスト")
+@SuppressWarnings("null")
+class DeviceRegistryTest {
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+
+    /**
+     * 登録と変換のテスト
+     */
+    @Nested
+    @DisplayName("登録と変換")
+    class RegisterTests {
+
+        @Test
+        @DisplayName("正常系: 同じデバイスIDには同じキー、異なるデバイスIDには異なるキーを返す")
+        void testRegister_StableKeys() {
+            int first = deviceRegistry.register("REG-001");
+            int second = deviceRegistry.register("REG-002");
+
+            assertEquals(first, deviceRegistry.register("REG-001"));
+            assertNotEquals(first, second);
+            assertTrue(first > DeviceRegistry.UNKNOWN_KEY);
+            assertEquals("REG-001", deviceRegistry.getDeviceId(first));
+            assertEquals("REG-002", deviceRegistry.getDeviceId(second));
+        }
+
+        @Test
+        @DisplayName("正常系: 検索だけでは登録されない")
+        void testFindKey_DoesNotRegister() {
+            long before = registeredCount();
+
+            assertEquals(DeviceRegistry.UNKNOWN_KEY, deviceRegistry.findKey("REG-UNKNOWN"));
+            assertEquals(before, registeredCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 別のインスタンスはテーブルから登録済みのデバイスを読み込む")
+        void testReload() {
+            int key = deviceRegistry.register("REG-RELOAD");
+            StaticListableBeanFactory beans = new StaticListableBeanFactory();
+            DeviceRegistry reloaded = new DeviceRegistry(dataSource, beans.getBeanProvider(ShardTemplate.class),
+                    beans.getBeanProvider(SiteTemplate.class));
+
+            assertEquals(key, reloaded.findKey("REG-RELOAD"));
+            assertEquals("REG-RELOAD", reloaded.getDeviceId(key));
+        }
+
+        @Test
+        @DisplayName("異常系: 登録されていないキーは変換できない")
+        void testGetDeviceId_Unknown() {
+            assertThrows(IllegalStateException.class, () -> deviceRegistry.getDeviceId(Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * 位置情報エンティティのテスト
+     */
+    @Nested
+    @DisplayName("位置情報エンティティ")
+    class EntityTests {
+
+        @Test
+        @DisplayName("正常系: 保存時にデバイスを登録し、列にはキーを保存してデバイスIDで読み出す")
+        void testSave_StoresKey() {
+            LocationData saved = locationRepository.saveAndFlush(location("REG-ENTITY"));
+
+            Integer stored = jdbcTemplate.queryForObject("SELECT device_key FROM location_data WHERE id = ?",
+                    Integer.class, saved.getId());
+            assertEquals(deviceRegistry.findKey("REG-ENTITY"), stored);
+            assertEquals(1, locationRepository.findByDeviceIdOrderByTimestampDesc("REG-ENTITY").size());
+            assertTrue(locationRepository.findByDeviceIdOrderByTimestampDesc("REG-NONE").isEmpty());
+        }
+    }
+
+    /**
+     * 保存サイズのテスト
+     */
+    @Nested
+    @DisplayName("保存サイズ")
+    class StorageSizeTests {
+
+        private static final int ROWS = 5_000;
+        private static final int DEVICES = 200;
+
+        @Test
+        @DisplayName("正常系: デバイスキーの位置情報テーブルはデバイスIDの文字列を持つ場合より小さい")
+        void testStorageSize_SmallerThanStringKey() throws SQLException {
+            List<String> ddl = new ArrayList<>();
+            jdbcTemplate.query("SCRIPT NODATA", (ResultSet rs) -> {
+                String sql = rs.getString(1);
+                if (!sql.startsWith("--") && !sql.startsWith("CREATE USER")) {
+                    ddl.add(sql);
+                }
+            });
+            try (Connection connection = DriverManager.getConnection(
+                    "jdbc:h2:" + directory.resolve("size").toAbsolutePath(), "sa", "");
+                    Statement statement = connection.createStatement()) {
+                for (String sql : ddl) {
+                    statement.execute(sql);
+                }
+                // デバイスIDの文字列を行と複合インデックスに持つ形式（デバイス以外の列は同じ）
+                statement.execute("CREATE TABLE legacy_location_data (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                        + "device_id VARCHAR(100) NOT NULL, latitude INTEGER NOT NULL, longitude INTEGER NOT NULL, "
+                        + "altitude INTEGER, accuracy INTEGER, rssi INTEGER, smoothed_latitude INTEGER, "
+                        + "smoothed_longitude INTEGER, timestamp TIMESTAMP NOT NULL, created_at TIMESTAMP NOT NULL, "
+                        + "site_id VARCHAR(50) NOT NULL)");
+                statement.execute("CREATE INDEX idx_legacy_device_timestamp "
+                        + "ON legacy_location_data (device_id, timestamp DESC)");
+                statement.execute("CREATE INDEX idx_legacy_timestamp ON legacy_location_data (timestamp)");
+
+                String values = "350000000 + MOD(X, 97) * 1000, 1390000000 + MOD(X, 89) * 1000, NULL, 500, -60, "
+                        + "NULL, NULL, "
+                        + "TIMESTAMP '2025-01-01 00:00:00' + X * INTERVAL '1' SECOND, "
+                        + "TIMESTAMP '2025-01-01 00:00:00' + X * INTERVAL '1' SECOND, 'default' "
+                        + "FROM SYSTEM_RANGE(1, " + ROWS + ")";
+                String columns = "latitude, longitude, altitude, accuracy, rssi, smoothed_latitude, "
+                        + "smoothed_longitude, timestamp, created_at, site_id";
+                statement.execute("INSERT INTO location_data (device_key, " + columns + ") "
+                        + "SELECT MOD(X, " + DEVICES + ") + 1, " + values);
+                statement.execute("INSERT INTO legacy_location_data (device_id, " + columns + ") "
+                        + "SELECT 'ESP32-A4CF12' || LPAD(CAST(MOD(X, " + DEVICES + ") AS VARCHAR), 6, '0'), "
+                        + values);
+                statement.execute("CHECKPOINT SYNC");
+
+                long keyed = diskSpaceUsed(statement, "LOCATION_DATA");
+                long legacy = diskSpaceUsed(statement, "LEGACY_LOCATION_DATA");
+                assertTrue(keyed > 0);
+                assertTrue(keyed < legacy * 0.9, () -> "保存サイズが減っていません: " + keyed + " / " + legacy);
+            }
+        }
+
+        private long diskSpaceUsed(Statement statement, String table) throws SQLException {
+            try (ResultSet rs = statement.executeQuery("SELECT DISK_SPACE_USED('" + table + "')")) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private long registeredCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM device_registry", Long.class);
+    }
+
+    private LocationData location(String deviceId) {
+        return LocationData.builder()
+                .deviceId(deviceId)
+                .latitude(35.0)
+                .longitude(139.0)
+                .timestamp(testTime)
+                .build();
+    }
+}
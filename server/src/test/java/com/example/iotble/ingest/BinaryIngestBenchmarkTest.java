@@ -0,0 +1,193 @@
+package com.example.iotble.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.service.LocationService;
+
+/**
+ * バイナリ受信とHTTPの受信のスループット比較
+ *
+ * 同じ件数の位置情報を同じ並列度でHTTP（JSON）とTCP（バイナリフレーム）から登録し、1秒あたりの件数を出力します。
+ * 通常のテストでは実行せず、{@code mvn test -Pbenchmark} で実行します
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:ingest-benchmark",
+        "logging.level.com.example.iotble=WARN",
+        "logging.level.org.springframework.web=WARN",
+        "iotble.ingest.enabled=true",
+        "iotble.ingest.host=127.0.0.1",
+        "iotble.ingest.tcp-port=0",
+        "iotble.ingest.udp-port=-1"
+})
+@DisplayName("バイナリ受信 ベンチマーク")
+class BinaryIngestBenchmarkTest {
+
+    private static final int CLIENTS = 8;
+    private static final int READINGS_PER_CLIENT = 500;
+    private static final int WARMUP_PER_CLIENT = 100;
+
+    @LocalServerPort
+    private int httpPort;
+
+    @Autowired
+    private BinaryIngestServer ingestServer;
+
+    @Autowired
+    private LocationService locationService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final LocalDateTime baseTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        locationService.deleteAllLocations();
+    }
+
+    @Test
+    @DisplayName("HTTPとTCPのスループットを比較する")
+    void compareThroughput() throws Exception {
+        run(WARMUP_PER_CLIENT, this::postHttp);
+        run(WARMUP_PER_CLIENT, this::sendTcp);
+        locationService.deleteAllLocations();
+
+        double http = run(READINGS_PER_CLIENT, this::postHttp);
+        double tcp = run(READINGS_PER_CLIENT, this::sendTcp);
+
+        assertEquals(2L * CLIENTS * READINGS_PER_CLIENT, locationService.getLocationCount());
+        System.out.printf(Locale.ROOT, "%n[benchmark] clients=%d readings/client=%d%n", CLIENTS, READINGS_PER_CLIENT);
+        System.out.printf(Locale.ROOT, "[benchmark] HTTP/JSON : %10.0f readings/s%n", http);
+        System.out.printf(Locale.ROOT, "[benchmark] TCP/binary: %10.0f readings/s (x%.2f)%n%n", tcp, tcp / http);
+    }
+
+    /**
+     * クライアントごとに並列で送信し、1秒あたりの件数を返す
+     */
+    private double run(int readingsPerClient, ClientTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int client = 0; client < CLIENTS; client++) {
+                String deviceId = "BENCH-" + client;
+                Callable<Integer> call = () -> task.send(deviceId, readingsPerClient);
+                results.add(executor.submit(call));
+            }
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get();
+            }
+            return total / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 1件ずつJSONをPOSTする
+     */
+    private int postHttp(String deviceId, int count) throws IOException, InterruptedException {
+        URI uri = URI.create("http://127.0.0.1:" + httpPort + "/api/locations");
+        for (int i = 0; i < count; i++) {
+            String json = String.format(Locale.ROOT,
+                    "{\"deviceId\":\"%s\",\"latitude\":%.6f,\"longitude\":%.6f,\"rssi\":-60,\"timestamp\":\"%s\"}",
+                    deviceId, 35.0 + i * 1e-6, 139.0, baseTime.plusSeconds(i));
+            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            assertEquals(201, response.statusCode());
+        }
+        return count;
+    }
+
+    /**
+     * 1本のTCP接続でフレームを続けて送信し、別スレッドでACKを受け取る
+     */
+    private int sendTcp(String deviceId, int count) throws Exception {
+        try (SocketChannel channel = SocketChannel.open(
+                new InetSocketAddress("127.0.0.1", ingestServer.getTcpPort()));
+                ExecutorService ackReader = Executors.newSingleThreadExecutor()) {
+            Future<Integer> acks = ackReader.submit(() -> readAcks(channel, count));
+            ByteBuffer buffer = ByteBuffer.allocateDirect(16384);
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < LocationFrameCodec.LENGTH_PREFIX_BYTES + LocationFrameCodec.MAX_PAYLOAD_BYTES) {
+                    flush(channel, buffer);
+                }
+                LocationFrameCodec.encode(i, LocationData.builder()
+                        .deviceId(deviceId)
+                        .latitude(35.0 + i * 1e-6)
+                        .longitude(139.0)
+                        .rssi(-60)
+                        .timestamp(baseTime.plusSeconds(i))
+                        .build(), buffer);
+            }
+            flush(channel, buffer);
+            return acks.get();
+        }
+    }
+
+    private static void flush(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int readAcks(SocketChannel channel, int count) throws IOException {
+        ByteBuffer acks = ByteBuffer.allocate(4096);
+        int received = 0;
+        while (received < count) {
+            if (channel.read(acks) < 0) {
+                throw new IOException("ACKの受信中に切断されました");
+            }
+            acks.flip();
+            while (acks.remaining() >= LocationFrameCodec.ACK_BYTES) {
+                acks.getInt();
+                assertEquals(AckStatus.OK, AckStatus.fromCode(acks.get()));
+                received++;
+            }
+            acks.compact();
+        }
+        return received;
+    }
+
+    /**
+     * 1クライアント分の送信処理
+     */
+    @FunctionalInterface
+    private interface ClientTask {
+        int send(String deviceId, int count) throws Exception;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.iotble.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.service.LocationService;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * BinaryIngestServerのユニットテスト
+ *
+ * ループバックの空いているポートで起動し、ブロッキングのソケットでフレームを送信します
+ */
+@DisplayName("BinaryIngestServer テスト")
+@SuppressWarnings("null")
+class BinaryIngestServerTest {
+
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private LocationService locationService;
+    private ValidatorFactory validatorFactory;
+    private BinaryIngestServer server;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        locationService = mock(LocationService.class);
+        when(locationService.saveLocation(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        server = new BinaryIngestServer(BinaryIngestServer.Options.builder()
+                .host("127.0.0.1")
+                .tcpPort(0)
+                .udpPort(0)
+                .maxFrameBytes(512)
+                .maxInFlightFrames(MAX_IN_FLIGHT)
+                .workerThreads(2)
+                .workerQueueCapacity(16)
+                .bufferBytes(1024)
+                .pooledBuffers(8)
+                .build(), new LocationFrameHandler(locationService, validatorFactory.getValidator()));
+        server.start();
+    }
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        server.close();
+        validatorFactory.close();
+    }
+
+    /**
+     * TCPでの受信のテスト
+     */
+    @Nested
+    @DisplayName("TCP")
+    class TcpTests {
+
+        @Test
+        @DisplayName("正常系: フレームごとに受信順でACKを返し、正しいフレームだけを保存する")
+        void testTcp_AcksInOrder() throws IOException {
+            try (SocketChannel channel = connect()) {
+                ByteBuffer frames = ByteBuffer.allocate(1024);
+                LocationFrameCodec.encode(1, location("GW-1", 0), frames);
+                LocationFrameCodec.encode(2, location("", 1), frames);
+                LocationFrameCodec.encode(3, location("GW-1", 2), frames);
+                write(channel, frames.flip());
+
+                assertEquals(List.of("1:OK", "2:INVALID", "3:OK"), readAcks(channel, 3));
+            }
+            ArgumentCaptor<LocationData> saved = ArgumentCaptor.forClass(LocationData.class);
+            verify(locationService, times(2)).saveLocation(saved.capture());
+            assertEquals(location("GW-1", 0), saved.getAllValues().get(0));
+            assertEquals(testTime.plusSeconds(2), saved.getAllValues().get(1).getTimestamp());
+        }
+
+        @Test
+        @DisplayName("境界値: 1バイトずつ届いたフレームも組み立てて処理する")
+        void testTcp_FragmentedFrame() throws IOException, InterruptedException {
+            try (SocketChannel channel = connect()) {
+                ByteBuffer frame = ByteBuffer.allocate(512);
+                LocationFrameCodec.encode(9, location("GW-2", 0), frame);
+                frame.flip();
+                while (frame.hasRemaining()) {
+                    write(channel, ByteBuffer.wrap(new byte[] { frame.get() }));
+                    Thread.sleep(1);
+                }
+
+                assertEquals(List.of("9:OK"), readAcks(channel, 1));
+            }
+        }
+
+        @Test
+        @DisplayName("正常系: ACKを返していないフレームが上限に達すると読み出しを止め、保存が進むと再開する")
+        void testTcp_FlowControl() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            when(locationService.saveLocation(any())).thenAnswer(invocation -> {
+                release.await(10, TimeUnit.SECONDS);
+                return invocation.getArgument(0);
+            });
+            int count = 50;
+            try (SocketChannel channel = connect()) {
+                ByteBuffer frames = ByteBuffer.allocate(count * 64);
+                for (int i = 0; i < count; i++) {
+                    LocationFrameCodec.encode(i, location("GW-3", i), frames);
+                }
+                write(channel, frames.flip());
+                Thread.sleep(200);
+
+                assertEquals(MAX_IN_FLIGHT, server.getReceivedFrames());
+
+                release.countDown();
+                List<String> acks = readAcks(channel, count);
+                assertEquals(count, acks.size());
+                assertEquals(count - 1 + ":OK", acks.get(count - 1));
+            }
+            assertEquals(count, server.getAcceptedFrames());
+        }
+
+        @Test
+        @DisplayName("異常系: フレーム長が上限を超える場合は切断する")
+        void testTcp_OversizedFrame() throws IOException {
+            try (SocketChannel channel = connect()) {
+                write(channel, ByteBuffer.allocate(2).putShort(0, (short) 4000));
+
+                assertEquals(-1, channel.read(ByteBuffer.allocate(8)));
+            }
+        }
+    }
+
+    /**
+     * UDPでの受信のテスト
+     */
+    @Nested
+    @DisplayName("UDP")
+    class UdpTests {
+
+        @Test
+        @DisplayName("正常系: データグラム内のフレームのACKをまとめて返す")
+        void testUdp_AcksPerDatagram() throws IOException {
+            try (DatagramChannel channel = DatagramChannel.open()) {
+                channel.connect(new InetSocketAddress("127.0.0.1", server.getUdpPort()));
+                ByteBuffer datagram = ByteBuffer.allocate(1024);
+                LocationFrameCodec.encode(10, location("GW-4", 0), datagram);
+                LocationFrameCodec.encode(11, location("GW-4", 1), datagram);
+                channel.write(datagram.flip());
+
+                ByteBuffer acks = ByteBuffer.allocate(64);
+                channel.read(acks);
+                acks.flip();
+
+                assertEquals(2 * LocationFrameCodec.ACK_BYTES, acks.remaining());
+                assertEquals(List.of("10:OK", "11:OK"), decodeAcks(acks));
+            }
+            verify(locationService, times(2)).saveLocation(any());
+        }
+    }
+
+    private SocketChannel connect() throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getTcpPort()));
+        channel.socket().setSoTimeout(10_000);
+        return channel;
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static List<String> readAcks(SocketChannel channel, int count) throws IOException {
+        ByteBuffer acks = ByteBuffer.allocate(count * LocationFrameCodec.ACK_BYTES);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (acks.hasRemaining() && System.nanoTime() < deadline) {
+            if (channel.read(acks) < 0) {
+                break;
+            }
+        }
+        assertTrue(!acks.hasRemaining(), "ACKが揃いませんでした");
+        return decodeAcks(acks.flip());
+    }
+
+    private static List<String> decodeAcks(ByteBuffer acks) {
+        List<String> result = new ArrayList<>();
+        while (acks.remaining() >= LocationFrameCodec.ACK_BYTES) {
+            result.add(Integer.toUnsignedLong(acks.getInt()) + ":" + AckStatus.fromCode(acks.get()));
+        }
+        return result;
+    }
+
+    private LocationData location(String deviceId, int seconds) {
+        return LocationData.builder()
+                .deviceId(deviceId)
+                .latitude(35.0)
+                .longitude(139.0)
+                .rssi(-60)
+                .timestamp(testTime.plusSeconds(seconds))
+                .build();
+    }
+}
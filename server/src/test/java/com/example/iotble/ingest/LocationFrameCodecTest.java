@@ -0,0 +1,141 @@
+package com.example.iotble.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.example.iotble.model.LocationData;
+
+/**
+ * LocationFrameCodecのユニットテスト
+ */
+@DisplayName("LocationFrameCodec テスト")
+@SuppressWarnings("null")
+class LocationFrameCodecTest {
+
+    private final LocationFrameCodec codec = new LocationFrameCodec();
+
+    /**
+     * フレームの読み書きのテスト
+     */
+    @Nested
+    @DisplayName("読み書き")
+    class RoundTripTests {
+
+        @Test
+        @DisplayName("正常系: 書き込んだ位置情報をそのまま読み出せる")
+        void testRoundTrip_AllFields() {
+            LocationData location = LocationData.builder()
+                    .deviceId("ゲートウェイ-001")
+                    .latitude(35.681236)
+                    .longitude(139.767125)
+                    .altitude(40.5)
+                    .accuracy(3.25)
+                    .rssi(-67)
+                    .timestamp(LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_000_000))
+                    .build();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(512);
+            LocationFrameCodec.encode(0xFFFF_FFFEL, location, buffer);
+            buffer.flip();
+
+            int length = buffer.getShort(0) & 0xFFFF;
+            LocationFrame frame = codec.decode(buffer, LocationFrameCodec.LENGTH_PREFIX_BYTES, length);
+
+            assertEquals(buffer.limit(), LocationFrameCodec.LENGTH_PREFIX_BYTES + length);
+            assertEquals(0xFFFF_FFFEL, frame.sequence());
+            assertEquals(location, frame.location());
+            assertEquals(0, buffer.position());
+        }
+
+        @Test
+        @DisplayName("境界値: 省略可能な項目はnullとして読み出される")
+        void testRoundTrip_OptionalFieldsAbsent() {
+            LocationData location = LocationData.builder()
+                    .deviceId("D")
+                    .latitude(-90.0)
+                    .longitude(180.0)
+                    .build();
+            ByteBuffer buffer = ByteBuffer.allocate(512);
+            LocationFrameCodec.encode(1, location, buffer);
+
+            LocationFrame frame = codec.decode(buffer, LocationFrameCodec.LENGTH_PREFIX_BYTES,
+                    buffer.position() - LocationFrameCodec.LENGTH_PREFIX_BYTES);
+
+            assertNull(frame.location().getAltitude());
+            assertNull(frame.location().getAccuracy());
+            assertNull(frame.location().getRssi());
+            assertNull(frame.location().getTimestamp());
+            assertEquals(-90.0, frame.location().getLatitude());
+        }
+
+        @Test
+        @DisplayName("正常系: ACKは連番と結果のコードで構成される")
+        void testEncodeAck() {
+            ByteBuffer buffer = ByteBuffer.allocate(LocationFrameCodec.ACK_BYTES);
+            LocationFrameCodec.encodeAck(42, AckStatus.INVALID, buffer);
+
+            assertEquals(42, buffer.getInt(0));
+            assertEquals(AckStatus.INVALID, AckStatus.fromCode(buffer.get(4)));
+        }
+    }
+
+    /**
+     * 不正なフレームのテスト
+     */
+    @Nested
+    @DisplayName("不正なフレーム")
+    class InvalidFrameTests {
+
+        @Test
+        @DisplayName("異常系: 未対応のバージョンは例外を送出する")
+        void testDecode_UnknownVersion() {
+            ByteBuffer buffer = encoded("D", 35.0, 139.0);
+            buffer.put(LocationFrameCodec.LENGTH_PREFIX_BYTES, (byte) 9);
+
+            assertThrows(IllegalArgumentException.class, () -> decode(buffer));
+        }
+
+        @Test
+        @DisplayName("異常系: デバイスIDの長さがペイロード長と一致しない場合は例外を送出する")
+        void testDecode_LengthMismatch() {
+            ByteBuffer buffer = encoded("DEVICE", 35.0, 139.0);
+            buffer.put(LocationFrameCodec.LENGTH_PREFIX_BYTES + 40, (byte) 200);
+
+            assertThrows(IllegalArgumentException.class, () -> decode(buffer));
+        }
+
+        @Test
+        @DisplayName("異常系: 数値ではない緯度は例外を送出する")
+        void testDecode_NaNLatitude() {
+            assertThrows(IllegalArgumentException.class, () -> decode(encoded("D", Double.NaN, 139.0)));
+        }
+
+        @Test
+        @DisplayName("異常系: 255バイトを超えるデバイスIDは書き込めない")
+        void testEncode_DeviceIdTooLong() {
+            LocationData location = LocationData.builder().deviceId("x".repeat(256)).latitude(0.0).longitude(0.0)
+                    .build();
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> LocationFrameCodec.encode(1, location, ByteBuffer.allocate(1024)));
+        }
+    }
+
+    private ByteBuffer encoded(String deviceId, double latitude, double longitude) {
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        LocationFrameCodec.encode(7, LocationData.builder().deviceId(deviceId).latitude(latitude)
+                .longitude(longitude).build(), buffer);
+        return buffer.flip();
+    }
+
+    private LocationFrame decode(ByteBuffer buffer) {
+        return codec.decode(buffer, LocationFrameCodec.LENGTH_PREFIX_BYTES, buffer.getShort(0) & 0xFFFF);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.iotble.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.iotble.device.DeviceRegistry;
+import com.example.iotble.model.LocationData;
+
+/**
+ * デバイス別の検索の実行計画の回帰テスト
+ *
+ * Hibernate が実際に発行したSQLを EXPLAIN し、複合インデックス (device_key, timestamp DESC) が
+ * 使われ、並べ替えをせずにインデックスの順序のまま読み出されることを確認します
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.iotble.repository.LocationQueryPlanTest$RecordingInspector")
+@Import(DeviceRegistry.class)
+@DisplayName("位置情報の実行計画 テスト")
+@SuppressWarnings("null")
+class LocationQueryPlanTest {
+
+    private static final String INDEX = "IDX_DEVICE_TIMESTAMP";
+
+    /** H2 が並べ替えを省略した場合に実行計画に出力する注記 */
+    private static final String INDEX_SORTED = "/* index sorted */";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    private final LocalDateTime baseTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        // 実行計画を現実に近づけるため、複数のデバイスの位置情報を登録する
+        for (int device = 0; device < 10; device++) {
+            for (int i = 0; i < 20; i++) {
+                entityManager.persist(LocationData.builder()
+                        .deviceId("ESP32-" + device)
+                        .latitude(35.0)
+                        .longitude(139.0)
+                        .timestamp(baseTime.plusMinutes(i))
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        jdbcTemplate.execute("ANALYZE");
+        RecordingInspector.clear();
+    }
+
+    @Nested
+    @DisplayName("デバイス別の期間指定")
+    class DeviceRangeTests {
+
+        @Test
+        @DisplayName("正常系: 新しい順の検索で複合インデックスを順方向に使い並べ替えない")
+        void testNewestFirst_UsesIndexSorted() {
+            List<LocationData> result = locationRepository.findDeviceRangeNewestFirst("ESP32-3",
+                    baseTime.plusMinutes(5), baseTime.plusMinutes(15), Limit.of(3));
+
+            assertEquals(3, result.size());
+            assertEquals(baseTime.plusMinutes(15), result.get(0).getTimestamp());
+            assertIndexSorted(explain(RecordingInspector.lastSelect(),
+                    key("ESP32-3"), literal(baseTime.plusMinutes(5)), literal(baseTime.plusMinutes(15)), "3"));
+        }
+
+        @Test
+        @DisplayName("正常系: 古い順の検索で複合インデックスを逆方向に使い並べ替えない")
+        void testOldestFirst_UsesIndexSorted() {
+            List<LocationData> result = locationRepository.findDeviceRangeOldestFirst("ESP32-3",
+                    baseTime.plusMinutes(5), baseTime.plusMinutes(15), Limit.of(3));
+
+            assertEquals(3, result.size());
+            assertEquals(baseTime.plusMinutes(5), result.get(0).getTimestamp());
+            assertIndexSorted(explain(RecordingInspector.lastSelect(),
+                    key("ESP32-3"), literal(baseTime.plusMinutes(5)), literal(baseTime.plusMinutes(15)), "3"));
+        }
+    }
+
+    @Nested
+    @DisplayName("デバイスの最新位置")
+    class LatestTests {
+
+        @Test
+        @DisplayName("正常系: 最新位置の検索で複合インデックスの先頭の1件だけを読む")
+        void testLatest_UsesIndexSorted() {
+            assertTrue(locationRepository.findLatestByDeviceId("ESP32-7").isPresent());
+
+            assertIndexSorted(explain(RecordingInspector.lastSelect(), key("ESP32-7")));
+        }
+    }
+
+    @Nested
+    @DisplayName("時点のスナップショット")
+    class LatestAsOfTests {
+
+        @Test
+        @DisplayName("正常系: デバイスの一覧と各デバイスの1件を複合インデックスから読み、履歴を走査しない")
+        void testLatestAsOf_UsesIndexPerDevice() {
+            LocalDateTime at = baseTime.plusMinutes(5);
+            List<LocalDateTime> timestamps = jdbcTemplate.query(LocationJdbcRepository.LATEST_AS_OF_SQL,
+                    (rs, rowNum) -> rs.getTimestamp(8).toLocalDateTime(), Timestamp.valueOf(at));
+
+            assertEquals(10, timestamps.size());
+            assertTrue(timestamps.stream().allMatch(at::equals));
+            String plan = explain(LocationJdbcRepository.LATEST_AS_OF_SQL, literal(at));
+            assertIndexSorted(plan);
+            assertTrue(plan.contains("/* distinct */"), () -> "デバイスの一覧がインデックスから読まれていません: " + plan);
+            assertTrue(plan.toUpperCase(Locale.ROOT).contains("PRIMARY_KEY"),
+                    () -> "位置情報が主キーで引かれていません: " + plan);
+        }
+    }
+
+    private static void assertIndexSorted(String plan) {
+        String upper = plan.toUpperCase(Locale.ROOT);
+        assertTrue(upper.contains(INDEX), () -> "複合インデックスが使われていません: " + plan);
+        assertTrue(plan.contains(INDEX_SORTED), () -> "並べ替えが発生しています: " + plan);
+    }
+
+    /**
+     * SQLのパラメータを値に置き換えて EXPLAIN する
+     */
+    private String explain(String sql, String... values) {
+        assertNotNull(sql, "SQLが記録されていません");
+        StringBuilder bound = new StringBuilder();
+        int next = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                bound.append(values[next++]);
+            } else {
+                bound.append(c);
+            }
+        }
+        assertEquals(values.length, next, () -> "パラメータの数が一致しません: " + sql);
+        return jdbcTemplate.queryForObject("EXPLAIN " + bound, String.class);
+    }
+
+    /**
+     * デバイスIDを条件に使われるデバイスキーのリテラルに変換する
+     */
+    private String key(String deviceId) {
+        return String.valueOf(deviceRegistry.findKey(deviceId));
+    }
+
+    private static String literal(LocalDateTime time) {
+        return "TIMESTAMP '" + time.toString().replace('T', ' ') + "'";
+    }
+
+    /**
+     * Hibernate が発行した location_data の SELECT 文を記録する
+     */
+    public static class RecordingInspector implements StatementInspector {
+
+        private static final List<String> SELECTS = new ArrayList<>();
+
+        /** use_sql_comments で先頭に付くコメント */
+        private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*/\\*.*?\\*/\\s*", Pattern.DOTALL);
+
+        @Override
+        public String inspect(String sql) {
+            String statement = LEADING_COMMENT.matcher(sql).replaceFirst("");
+            String lower = statement.toLowerCase(Locale.ROOT);
+            if (lower.startsWith("select") && lower.contains("location_data")) {
+                synchronized (SELECTS) {
+                    SELECTS.add(statement);
+                }
+            }
+            return sql;
+        }
+
+        static void clear() {
+            synchronized (SELECTS) {
+                SELECTS.clear();
+            }
+        }
+
+        static String lastSelect() {
+            synchronized (SELECTS) {
+                assertFalse(SELECTS.isEmpty(), "SQLが記録されていません");
+                return SELECTS.get(SELECTS.size() - 1);
+            }
+        }
+    }
+}
@@ -7,7 +7,15 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
 import java.util.Objects;
 import java.util.List;
 import java.util.Optional;
@@ -16,10 +24,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.example.iotble.device.DeviceRegistry;
 import com.example.iotble.model.LocationData;
 
 /**
@@ -28,6 +41,7 @@ import com.example.iotble.model.LocationData;
  * 正常系、異常系、境界値、エッジケースを網羅的にテストします
  */
 @DataJpaTest
+@Import(DeviceRegistry.class)
 @DisplayName("LocationRepository テスト")
 @SuppressWarnings("null")
 class LocationRepositoryTest {
@@ -38,6 +52,12 @@ class LocationRepositoryTest {
     @Autowired
     private LocationRepository locationRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directory;
+
     private LocalDateTime testTime;
 
     /**
@@ -445,6 +465,56 @@ class LocationRepositoryTest {
         }
     }
 
+    /**
+     * findDeviceRangeNewestFirst / findDeviceRangeOldestFirst のテスト
+     */
+    @Nested
+    @DisplayName("デバイス別期間指定検索")
+    class FindDeviceRangeTests {
+
+        @Test
+        @DisplayName("正常系: 指定デバイスの期間内の位置情報を新しい順に件数の上限まで取得できる")
+        void testFindDeviceRangeNewestFirst_Success() {
+            for (int i = 0; i < 5; i++) {
+                createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime.plusMinutes(i));
+            }
+            createAndPersistLocation("ESP32-002", 35.0, 139.0, testTime.plusMinutes(2));
+
+            List<LocationData> locations = locationRepository.findDeviceRangeNewestFirst("ESP32-001",
+                    testTime.plusMinutes(1), testTime.plusMinutes(4), Limit.of(2));
+
+            assertEquals(List.of(testTime.plusMinutes(4), testTime.plusMinutes(3)),
+                    locations.stream().map(LocationData::getTimestamp).toList());
+        }
+
+        @Test
+        @DisplayName("正常系: 指定デバイスの期間内の位置情報を古い順に取得できる")
+        void testFindDeviceRangeOldestFirst_Success() {
+            for (int i = 0; i < 5; i++) {
+                createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime.plusMinutes(i));
+            }
+            createAndPersistLocation("ESP32-002", 35.0, 139.0, testTime.plusMinutes(1));
+
+            List<LocationData> locations = locationRepository.findDeviceRangeOldestFirst("ESP32-001",
+                    testTime.plusMinutes(1), testTime.plusMinutes(4), Limit.of(10));
+
+            assertEquals(List.of(testTime.plusMinutes(1), testTime.plusMinutes(2), testTime.plusMinutes(3),
+                    testTime.plusMinutes(4)), locations.stream().map(LocationData::getTimestamp).toList());
+            assertTrue(locations.stream().allMatch(location -> "ESP32-001".equals(location.getDeviceId())));
+        }
+
+        @Test
+        @DisplayName("境界値: 開始時刻と終了時刻が同じ場合は境界を含む")
+        void testFindDeviceRange_SameTime() {
+            createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime);
+
+            assertEquals(1, locationRepository.findDeviceRangeNewestFirst("ESP32-001",
+                    testTime, testTime, Limit.of(10)).size());
+            assertEquals(1, locationRepository.findDeviceRangeOldestFirst("ESP32-001",
+                    testTime, testTime, Limit.of(10)).size());
+        }
+    }
+
     /**
      * findTop50ByOrderByTimestampDesc のテスト
      */
@@ -500,6 +570,167 @@ class LocationRepositoryTest {
         }
     }
 
+    /**
+     * 一括削除用クエリのテスト
+     */
+    @Nested
+    @DisplayName("一括削除")
+    class BulkDeleteTests {
+
+        @Test
+        @DisplayName("正常系: デバイスIDで対象件数とIDを取得できる")
+        void testBulkDelete_ByDeviceId() {
+            createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime);
+            createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime.plusMinutes(1));
+            createAndPersistLocation("ESP32-002", 35.0, 139.0, testTime);
+
+            assertEquals(2L, locationRepository.countForBulkDelete("ESP32-001", null, null));
+            assertEquals(2, locationRepository
+                    .findIdsForBulkDelete("ESP32-001", null, null, Limit.of(10)).size());
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスIDと期間の両方で絞り込める")
+        void testBulkDelete_ByDeviceIdAndRange() {
+            createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime.minusHours(2));
+            LocationData inRange = createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime);
+            createAndPersistLocation("ESP32-002", 35.0, 139.0, testTime);
+
+            List<Long> ids = locationRepository.findIdsForBulkDelete(
+                    "ESP32-001", testTime.minusHours(1), testTime.plusHours(1), Limit.of(10));
+
+            assertEquals(List.of(inRange.getId()), ids);
+        }
+
+        @Test
+        @DisplayName("境界値: チャンクサイズで件数が制限される")
+        void testBulkDelete_ChunkLimit() {
+            for (int i = 0; i < 5; i++) {
+                createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime.plusMinutes(i));
+            }
+
+            List<Long> ids = locationRepository.findIdsForBulkDelete(
+                    null, testTime, null, Limit.of(3));
+
+            assertEquals(3, ids.size());
+        }
+
+        @Test
+        @DisplayName("正常系: 指定IDを集合DELETEで削除できる")
+        void testDeleteByIdIn_Success() {
+            LocationData first = createAndPersistLocation("ESP32-001", 35.0, 139.0, testTime);
+            LocationData second = createAndPersistLocation("ESP32-002", 35.0, 139.0, testTime);
+            LocationData kept = createAndPersistLocation("ESP32-003", 35.0, 139.0, testTime);
+
+            assertEquals(List.of("ESP32-001", "ESP32-002"), locationRepository
+                    .findDistinctDeviceIdsByIdIn(List.of(first.getId(), second.getId())).stream()
+                    .sorted().toList());
+
+            int deleted = locationRepository.deleteByIdIn(List.of(first.getId(), second.getId()));
+
+            assertEquals(2, deleted);
+            assertEquals(1L, locationRepository.count());
+            assertTrue(locationRepository.findById(kept.getId()).isPresent());
+        }
+    }
+
+    /**
+     * 固定小数点の列のテスト
+     */
+    @Nested
+    @DisplayName("固定小数点の列")
+    class FixedPointTests {
+
+        private static final int ROWS = 5_000;
+
+        @Test
+        @DisplayName("正常系: 測定値は整数の列に保存され、読み出すと元の値に戻る")
+        void testSave_StoresScaledIntegers() {
+            LocationData location = LocationData.builder()
+                    .deviceId("ESP32-001")
+                    .latitude(35.658581)
+                    .longitude(-139.745433)
+                    .altitude(12.34)
+                    .accuracy(3.5)
+                    .rssi(-70)
+                    .timestamp(testTime)
+                    .build();
+            entityManager.persist(location);
+            entityManager.flush();
+            entityManager.clear();
+
+            Map<String, Object> row = jdbcTemplate.queryForMap("SELECT latitude, longitude, altitude, accuracy, "
+                    + "smoothed_latitude FROM location_data WHERE id = ?", location.getId());
+            assertEquals(356585810, row.get("LATITUDE"));
+            assertEquals(-1397454330, row.get("LONGITUDE"));
+            assertEquals(1234, row.get("ALTITUDE"));
+            assertEquals(350, row.get("ACCURACY"));
+            assertNull(row.get("SMOOTHED_LATITUDE"));
+            LocationData found = locationRepository.findById(location.getId()).orElseThrow();
+            assertEquals(35.658581, found.getLatitude());
+            assertEquals(-139.745433, found.getLongitude());
+            assertEquals(12.34, found.getAltitude());
+            assertEquals(3.5, found.getAccuracy());
+            assertNull(found.getSmoothedLatitude());
+        }
+
+        @Test
+        @DisplayName("正常系: 整数の列の位置情報テーブルは double の列を持つ場合より小さい")
+        void testStorageSize_SmallerThanDoubleColumns() throws SQLException {
+            List<String> ddl = new ArrayList<>();
+            jdbcTemplate.query("SCRIPT NODATA", (ResultSet rs) -> {
+                String sql = rs.getString(1);
+                if (!sql.startsWith("--") && !sql.startsWith("CREATE USER")) {
+                    ddl.add(sql);
+                }
+            });
+            try (Connection connection = DriverManager.getConnection(
+                    "jdbc:h2:" + directory.resolve("size").toAbsolutePath(), "sa", "");
+                    Statement statement = connection.createStatement()) {
+                for (String sql : ddl) {
+                    statement.execute(sql);
+                }
+                // 測定値を double の列で持つ形式（測定値以外の列とインデックスは同じ）
+                statement.execute("CREATE TABLE double_location_data (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                        + "device_key INTEGER NOT NULL, latitude DOUBLE NOT NULL, longitude DOUBLE NOT NULL, "
+                        + "altitude DOUBLE, accuracy DOUBLE, rssi INTEGER, smoothed_latitude DOUBLE, "
+                        + "smoothed_longitude DOUBLE, timestamp TIMESTAMP NOT NULL, created_at TIMESTAMP NOT NULL, "
+                        + "site_id VARCHAR(50) NOT NULL)");
+                statement.execute("CREATE INDEX idx_double_device_timestamp "
+                        + "ON double_location_data (device_key, timestamp DESC)");
+                statement.execute("CREATE INDEX idx_double_timestamp ON double_location_data (timestamp)");
+
+                String rest = "-60, TIMESTAMP '2025-01-01 00:00:00' + X * INTERVAL '1' SECOND, "
+                        + "TIMESTAMP '2025-01-01 00:00:00' + X * INTERVAL '1' SECOND, 'default' "
+                        + "FROM SYSTEM_RANGE(1, " + ROWS + ")";
+                String columns = "device_key, latitude, longitude, altitude, accuracy, smoothed_latitude, "
+                        + "smoothed_longitude, rssi, timestamp, created_at, site_id";
+                // 同じ値（小数点以下7桁の座標、センチメートル単位の高度・精度）を両方の形式で保存する
+                String e7 = "MOD(X, 200) + 1, 356000000 + MOD(X * 7919, 1000003), "
+                        + "1397000000 + MOD(X * 104729, 999983), 1500 + MOD(X, 311), 300 + MOD(X, 997), 356000000 + MOD(X * 7919, 1000003) + 5, "
+                        + "1397000000 + MOD(X * 104729, 999983) + 5, ";
+                statement.execute("INSERT INTO location_data (" + columns + ") SELECT " + e7 + rest);
+                statement.execute("INSERT INTO double_location_data (" + columns + ") SELECT "
+                        + "device_key, latitude / 1e7, longitude / 1e7, altitude / 100.0, accuracy / 100.0, "
+                        + "smoothed_latitude / 1e7, smoothed_longitude / 1e7, rssi, timestamp, created_at, site_id "
+                        + "FROM location_data");
+                statement.execute("CHECKPOINT SYNC");
+
+                long fixed = diskSpaceUsed(statement, "LOCATION_DATA");
+                long doubles = diskSpaceUsed(statement, "DOUBLE_LOCATION_DATA");
+                assertTrue(fixed > 0);
+                assertTrue(fixed < doubles * 0.9, () -> "保存サイズが減っていません: " + fixed + " / " + doubles);
+            }
+        }
+
+        private long diskSpaceUsed(Statement statement, String table) throws SQLException {
+            try (ResultSet rs = statement.executeQuery("SELECT DISK_SPACE_USED('" + table + "')")) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
     /**
      * ヘルパーメソッド: 位置情報を作成して永続化
      */
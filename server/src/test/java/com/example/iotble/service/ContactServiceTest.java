@@ -0,0 +1,184 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.ContactEpisode;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+
+/**
+ * ContactServiceのユニットテスト
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ContactService テスト")
+@SuppressWarnings("null")
+class ContactServiceTest {
+
+    @Mock
+    private LocationJdbcRepository jdbcRepository;
+
+    private ContactServiceImpl contactService;
+
+    private final List<LocationData> stored = new ArrayList<>();
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 各テスト実行前の初期化処理
+     * 
+     * 走査は1分ごとに分割し、区切りをまたぐ接触の結合を確認できるようにする
+     */
+    @BeforeEach
+    void setUp() {
+        contactService = new ContactServiceImpl(
+                new TieredLocationReader(jdbcRepository, SegmentStore.disabled(SiteTemplate.single())),
+                SiteTemplate.single(), 2.0, 60, 10, 30, 1, 4);
+        lenient().doAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(0);
+            LocalDateTime to = invocation.getArgument(1);
+            Consumer<LocationData> consumer = invocation.getArgument(4);
+            stored.stream()
+                    .filter(location -> !location.getTimestamp().isBefore(from)
+                            && location.getTimestamp().isBefore(to))
+                    .forEach(consumer);
+            return null;
+        }).when(jdbcRepository).streamByTimeRange(any(), any(), anyBoolean(), isNull(), any());
+    }
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        contactService.shutdown();
+    }
+
+    /**
+     * 期間を指定した検出のテスト
+     */
+    @Nested
+    @DisplayName("期間を指定した検出")
+    class FindContactsTests {
+
+        @Test
+        @DisplayName("正常系: 走査の区切りをまたいで続いた接近が1つの接触として返される")
+        void testFindContacts_AcrossSlices() {
+            // 5分間、5秒ごとに1m離れて並んで移動する
+            for (int i = 0; i < 60; i++) {
+                stored.add(location("TAG-A", 35.0, testTime.plusSeconds(i * 5)));
+                stored.add(location("TAG-B", 35.00001, testTime.plusSeconds(i * 5 + 2)));
+            }
+            stored.add(location("TAG-C", 36.0, testTime));
+
+            List<ContactEpisode> contacts = contactService.findContacts(null, testTime, testTime.plusMinutes(10),
+                    null, null);
+
+            assertEquals(1, contacts.size());
+            assertEquals(testTime, contacts.get(0).start());
+            assertEquals(testTime.plusSeconds(59 * 5 + 2), contacts.get(0).end());
+            assertEquals(236, contacts.get(0).observations());
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスを指定すると相手のデバイスが otherDeviceId になる")
+        void testFindContacts_Device() {
+            for (int i = 0; i < 30; i++) {
+                stored.add(location("TAG-A", 35.0, testTime.plusSeconds(i * 5)));
+                stored.add(location("TAG-B", 35.0, testTime.plusSeconds(i * 5)));
+            }
+
+            List<ContactEpisode> contacts = contactService.findContacts("TAG-B", testTime,
+                    testTime.plusMinutes(10), null, null);
+
+            assertEquals(1, contacts.size());
+            assertEquals("TAG-B", contacts.get(0).deviceId());
+            assertEquals("TAG-A", contacts.get(0).otherDeviceId());
+        }
+
+        @Test
+        @DisplayName("境界値: 最短の秒数に満たない接近は除外され、指定した秒数で判定できる")
+        void testFindContacts_MinDuration() {
+            for (int i = 0; i < 6; i++) {
+                stored.add(location("TAG-A", 35.0, testTime.plusSeconds(i * 5)));
+                stored.add(location("TAG-B", 35.0, testTime.plusSeconds(i * 5)));
+            }
+
+            assertTrue(contactService.findContacts(null, testTime, testTime.plusMinutes(1), null, null).isEmpty());
+            assertEquals(1, contactService.findContacts(null, testTime, testTime.plusMinutes(1), null, 25L).size());
+        }
+
+        @Test
+        @DisplayName("異常系: 期間や距離が不正な場合は例外になる")
+        void testFindContacts_InvalidArguments() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> contactService.findContacts(null, testTime, testTime, null, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> contactService.findContacts(null, testTime, testTime.plusHours(1), 0.0, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> contactService.findContacts(null, testTime, testTime.plusHours(1), 5000.0, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> contactService.findContacts(null, testTime, testTime.plusHours(1), null, -1L));
+        }
+    }
+
+    /**
+     * 受信中の位置情報からの検出のテスト
+     */
+    @Nested
+    @DisplayName("継続中の接触")
+    class ActiveContactsTests {
+
+        @Test
+        @DisplayName("正常系: 最短の秒数以上続いている接近が継続中の接触として返される")
+        void testActiveContacts() {
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 14; i >= 0; i--) {
+                contactService.onLocationsSaved(new LocationsSavedEvent(List.of(
+                        location("TAG-A", 35.0, now.minusSeconds(i * 5)),
+                        location("TAG-B", 35.0, now.minusSeconds(i * 5)))));
+            }
+
+            List<ContactEpisode> active = contactService.getActiveContacts();
+
+            assertEquals(1, active.size());
+            assertEquals(70.0, active.get(0).durationSeconds(), 0.001);
+
+            contactService.onLocationsDeleted(LocationsDeletedEvent.all());
+            assertTrue(contactService.getActiveContacts().isEmpty());
+        }
+    }
+
+    private static LocationData location(String deviceId, double latitude, LocalDateTime timestamp) {
+        return LocationData.builder()
+                .deviceId(deviceId)
+                .latitude(latitude)
+                .longitude(139.0)
+                .timestamp(timestamp)
+                .build();
+    }
+}
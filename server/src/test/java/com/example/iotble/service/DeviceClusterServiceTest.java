@@ -0,0 +1,81 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.example.iotble.model.DeviceClusters;
+import com.example.iotble.site.SiteLocal;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.spatial.DevicePositionIndex;
+
+/**
+ * DeviceClusterServiceのユニットテスト
+ */
+@DisplayName("DeviceClusterService テスト")
+class DeviceClusterServiceTest {
+
+    private final SiteLocal<DevicePositionIndex> indexes = SiteTemplate.single().local(DevicePositionIndex::new);
+
+    private final DevicePositionIndex index = indexes.get();
+
+    private DeviceClusterServiceImpl deviceClusterService;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        deviceClusterService = new DeviceClusterServiceImpl(indexes);
+        index.update("DEV-1", 1L, 35.6810, 139.7670, testTime);
+        index.update("DEV-2", 2L, 35.6812, 139.7672, testTime);
+        index.update("DEV-3", 3L, 35.6900, 139.7000, testTime);
+    }
+
+    /**
+     * クラスターの取得のテスト
+     */
+    @Nested
+    @DisplayName("クラスターの取得")
+    class FindClustersTests {
+
+        @Test
+        @DisplayName("正常系: ズームアウトすると近くのデバイスがまとまり、ズームインすると分かれる")
+        void testFindClusters_ByZoom() {
+            DeviceClusters far = deviceClusterService.findClusters(139.0, 35.0, 140.5, 36.0, 6);
+            assertEquals(1, far.clusters().size());
+            assertEquals(3, far.deviceCount());
+
+            DeviceClusters near = deviceClusterService.findClusters(139.6, 35.6, 139.8, 35.7, 18);
+            assertEquals(3, near.clusters().size());
+            assertEquals(18, near.zoom());
+        }
+
+        @Test
+        @DisplayName("境界値: 世界の外側まで表示されている範囲は地球の範囲に切り詰める")
+        void testFindClusters_ClampsBounds() {
+            DeviceClusters result = deviceClusterService.findClusters(-400, -100, 400, 100, 0);
+
+            assertEquals(3, result.deviceCount());
+        }
+
+        @Test
+        @DisplayName("異常系: ズームレベルや範囲が不正な場合は例外")
+        void testFindClusters_InvalidArgument() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> deviceClusterService.findClusters(139.0, 35.0, 140.0, 36.0, 23));
+            assertThrows(IllegalArgumentException.class,
+                    () -> deviceClusterService.findClusters(140.0, 35.0, 139.0, 36.0, 10));
+            assertThrows(IllegalArgumentException.class,
+                    () -> deviceClusterService.findClusters(139.0, Double.NaN, 140.0, 36.0, 10));
+        }
+    }
+}
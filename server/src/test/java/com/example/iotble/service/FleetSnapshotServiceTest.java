@@ -0,0 +1,177 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.iotble.model.DevicePosition;
+import com.example.iotble.model.FleetSnapshot;
+import com.example.iotble.model.FleetSnapshotFrames;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+
+/**
+ * FleetSnapshotServiceのユニットテスト
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FleetSnapshotService テスト")
+@SuppressWarnings("null")
+class FleetSnapshotServiceTest {
+
+    @Mock
+    private LocationJdbcRepository locationJdbcRepository;
+
+    private FleetSnapshotServiceImpl fleetSnapshotService;
+
+    private final LocalDateTime baseTime = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        fleetSnapshotService = new FleetSnapshotServiceImpl(
+                new TieredLocationReader(locationJdbcRepository, SegmentStore.disabled(SiteTemplate.single())));
+    }
+
+    /**
+     * 1時点のスナップショットのテスト
+     */
+    @Nested
+    @DisplayName("スナップショットの取得")
+    class GetSnapshotTests {
+
+        @Test
+        @DisplayName("正常系: デバイスごとの最新の位置をデバイスID順に返し、平滑化後の座標を使う")
+        void testGetSnapshot_Success() {
+            LocationData smoothed = location(2L, "ESP32-B", 36.0, baseTime.minusMinutes(2));
+            smoothed.setSmoothedLatitude(35.5);
+            smoothed.setSmoothedLongitude(139.5);
+            givenLatestAsOf(baseTime, smoothed, location(1L, "ESP32-A", 35.0, baseTime.minusMinutes(1)));
+
+            FleetSnapshot snapshot = fleetSnapshotService.getSnapshot(baseTime);
+
+            assertEquals(baseTime, snapshot.at());
+            assertEquals(List.of("ESP32-A", "ESP32-B"),
+                    snapshot.devices().stream().map(DevicePosition::deviceId).toList());
+            assertEquals(35.5, snapshot.devices().get(1).latitude());
+            assertEquals(139.5, snapshot.devices().get(1).longitude());
+        }
+    }
+
+    /**
+     * フレームの列のテスト
+     */
+    @Nested
+    @DisplayName("スナップショットの列の取得")
+    class GetFramesTests {
+
+        @Test
+        @DisplayName("正常系: 期間内の位置情報を1回だけ読み、各時点までの最新の位置をフレームにする")
+        void testGetFrames_AdvancesPositions() {
+            LocalDateTime to = baseTime.plusMinutes(3);
+            givenLatestAsOf(baseTime, location(1L, "ESP32-A", 35.0, baseTime.minusMinutes(10)));
+            givenRange(baseTime, to,
+                    location(2L, "ESP32-A", 35.1, baseTime.plusSeconds(30)),
+                    location(3L, "ESP32-B", 36.0, baseTime.plusMinutes(1)),
+                    location(4L, "ESP32-A", 35.2, baseTime.plusSeconds(150)));
+
+            FleetSnapshotFrames result = fleetSnapshotService.getFrames(baseTime, to, 60);
+
+            List<FleetSnapshot> frames = result.frames();
+            assertEquals(List.of(baseTime, baseTime.plusMinutes(1), baseTime.plusMinutes(2), to),
+                    frames.stream().map(FleetSnapshot::at).toList());
+            assertEquals(List.of(35.0), latitudes(frames.get(0)));
+            // 時点ちょうどの位置情報はその時点のフレームに含まれる
+            assertEquals(List.of(35.1, 36.0), latitudes(frames.get(1)));
+            assertEquals(List.of(35.1, 36.0), latitudes(frames.get(2)));
+            assertEquals(List.of(35.2, 36.0), latitudes(frames.get(3)));
+        }
+
+        @Test
+        @DisplayName("境界値: 期間が間隔で割り切れない場合は終了時刻を超えない時点までのフレームを返す")
+        void testGetFrames_PartialStep() {
+            LocalDateTime to = baseTime.plusSeconds(90);
+            givenLatestAsOf(baseTime);
+            givenRange(baseTime, to);
+
+            FleetSnapshotFrames result = fleetSnapshotService.getFrames(baseTime, to, 60);
+
+            assertEquals(List.of(baseTime, baseTime.plusMinutes(1)),
+                    result.frames().stream().map(FleetSnapshot::at).toList());
+            assertEquals(0, result.frames().get(1).devices().size());
+        }
+
+        @Test
+        @DisplayName("異常系: フレームが多すぎる場合は読み出さずに例外")
+        void testGetFrames_TooManyFrames() {
+            LocalDateTime to = baseTime.plusSeconds(FleetSnapshotServiceImpl.MAX_FRAMES);
+
+            assertThrows(IllegalArgumentException.class, () -> fleetSnapshotService.getFrames(baseTime, to, 1));
+            verify(locationJdbcRepository, never()).streamLatestPerDeviceAsOf(any(), any());
+        }
+
+        @Test
+        @DisplayName("異常系: 期間や間隔が不正な場合は例外")
+        void testGetFrames_InvalidArgument() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> fleetSnapshotService.getFrames(baseTime, baseTime, 60));
+            assertThrows(IllegalArgumentException.class,
+                    () -> fleetSnapshotService.getFrames(baseTime, baseTime.plusHours(1), 0));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenLatestAsOf(LocalDateTime at, LocationData... locations) {
+        doAnswer(invocation -> {
+            Consumer<LocationData> consumer = invocation.getArgument(1);
+            for (LocationData location : locations) {
+                consumer.accept(location);
+            }
+            return null;
+        }).when(locationJdbcRepository).streamLatestPerDeviceAsOf(eq(at), any(Consumer.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenRange(LocalDateTime from, LocalDateTime to, LocationData... locations) {
+        doAnswer(invocation -> {
+            Consumer<LocationData> consumer = invocation.getArgument(4);
+            for (LocationData location : locations) {
+                consumer.accept(location);
+            }
+            return null;
+        }).when(locationJdbcRepository).streamByTimeRange(eq(from), eq(to), eq(true), eq(null), any(Consumer.class));
+    }
+
+    private static List<Double> latitudes(FleetSnapshot snapshot) {
+        return snapshot.devices().stream().map(DevicePosition::latitude).toList();
+    }
+
+    private static LocationData location(Long id, String deviceId, double latitude, LocalDateTime timestamp) {
+        return LocationData.builder()
+                .id(id)
+                .deviceId(deviceId)
+                .latitude(latitude)
+                .longitude(139.0)
+                .timestamp(timestamp)
+                .build();
+    }
+}
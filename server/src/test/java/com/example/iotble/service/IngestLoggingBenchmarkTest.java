@@ -0,0 +1,180 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.example.iotble.core.InMemoryLocationStore;
+import com.example.iotble.core.IngestResult;
+import com.example.iotble.core.KalmanSmoother;
+import com.example.iotble.core.LocationIngestor;
+import com.example.iotble.core.LocationPoint;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.util.DeviceLogSampler;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+
+/**
+ * 位置情報の保存のログ出力が取り込み速度に与える影響
+ *
+ * 1000デバイスの位置情報を取り込みながら、次の3通りでログを出力した場合の処理速度を出力します。
+ * <ul>
+ * <li>変更前: 受信と保存の2行を INFO で同期出力し、保存のログは {@code String.format} の文字列表現を使う</li>
+ * <li>変更後: デバイスごとに10秒に1回へ間引いたパラメーター付きのログを非同期出力する</li>
+ * <li>ログなし: 取り込み処理だけの速度（上限の目安）</li>
+ * </ul>
+ * 出力先はコンソールと同じ書式のエンコーダーで、書き出したバイトは捨てます。
+ * 通常のテストでは実行せず、{@code mvn test -Pbenchmark} で実行します
+ */
+@Tag("benchmark")
+@DisplayName("保存のログ出力 ベンチマーク")
+class IngestLoggingBenchmarkTest {
+
+    private static final int DEVICES = 1_000;
+    private static final int WARMUP_POINTS = 200_000;
+    private static final int POINTS = 500_000;
+
+    /** Spring Boot のコンソール出力と同等の書式 */
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n";
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    @DisplayName("変更前と変更後のログ出力で50万件を取り込む")
+    void benchmarkIngestLogging() {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        context.start();
+        LongAdder bytes = new LongAdder();
+        try {
+            Logger syncLogger = logger(context, "sync", syncAppender(context, bytes));
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC");
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(8192 / 5);
+            async.setNeverBlock(true);
+            async.setIncludeCallerData(false);
+            async.addAppender(syncAppender(context, bytes));
+            async.start();
+            Logger asyncLogger = logger(context, "async", async);
+            DeviceLogSampler warmupSampler = new DeviceLogSampler(10_000, 100_000);
+
+            run(WARMUP_POINTS, point -> logBefore(syncLogger, point));
+            run(WARMUP_POINTS, point -> logAfter(asyncLogger, warmupSampler, point));
+            run(WARMUP_POINTS, point -> { });
+
+            long bytesBefore = bytes.sum();
+            double before = run(POINTS, point -> logBefore(syncLogger, point));
+            long bytesAfterStart = bytes.sum();
+            // 計測では各デバイスの最初の1件を出力させるため、間引きの状態を作り直す
+            DeviceLogSampler sampler = new DeviceLogSampler(10_000, 100_000);
+            double after = run(POINTS, point -> logAfter(asyncLogger, sampler, point));
+            async.stop();
+            long bytesAfterEnd = bytes.sum();
+            double none = run(POINTS, point -> { });
+
+            System.out.println(String.format(Locale.ROOT,
+                    "保存のログ出力: 変更前=%.0f件/秒 (%.2fMB出力), 変更後=%.0f件/秒 (%.2fMB出力), ログなし=%.0f件/秒",
+                    before, (bytesAfterStart - bytesBefore) / 1e6, after, (bytesAfterEnd - bytesAfterStart) / 1e6,
+                    none));
+            assertTrue(after > before, "変更後のログ出力の方が遅くなっています");
+        } finally {
+            context.stop();
+        }
+    }
+
+    /**
+     * 位置情報を取り込み、保存した位置情報ごとにログを出力して処理速度（件/秒）を返す
+     */
+    private double run(int points, java.util.function.Consumer<LocationData> logging) {
+        LocationIngestor ingestor = new LocationIngestor(new InMemoryLocationStore(),
+                List.of(new KalmanSmoother(3.0, 25.0, -60, 16.0)), 4);
+        long start = System.nanoTime();
+        for (int i = 0; i < points; i++) {
+            IngestResult result = ingestor.ingest(LocationPoint.builder()
+                    .deviceId("DEV-" + i % DEVICES)
+                    .latitude(35.6 + (i % 97) * 1e-4)
+                    .longitude(139.7 + (i % 89) * 1e-4)
+                    .accuracy(10.0)
+                    .rssi(-70)
+                    .timestamp(base.plusSeconds(i / DEVICES))
+                    .build());
+            logging.accept(LocationData.from(result.point()));
+        }
+        return points / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * 変更前: コントローラーとサービスの2行を毎回出力し、保存のログは書式文字列で文字列表現を作る
+     */
+    private static void logBefore(Logger logger, LocationData saved) {
+        logger.info("位置情報を保存しました: {}", String.format("LocationData[id=%d, device=%s, lat=%.6f, lon=%.6f, time=%s]",
+                saved.getId(), saved.getDeviceId(), saved.getLatitude(), saved.getLongitude(), saved.getTimestamp()));
+        logger.info("位置情報を受信しました: デバイスID={}, 緯度={}, 経度={}",
+                saved.getDeviceId(), saved.getLatitude(), saved.getLongitude());
+    }
+
+    /**
+     * 変更後: {@link LocationServiceImpl#saveLocation} と同じく、間引いたうえでパラメーター付きで出力する
+     */
+    private static void logAfter(Logger logger, DeviceLogSampler sampler, LocationData saved) {
+        if (logger.isInfoEnabled()) {
+            long suppressed = sampler.sample(saved.getDeviceId());
+            if (suppressed != DeviceLogSampler.SUPPRESSED) {
+                logger.info("位置情報を保存しました: id={}, deviceId={}, latitude={}, longitude={}, timestamp={}, "
+                        + "suppressed={}", saved.getId(), saved.getDeviceId(), saved.getLatitude(),
+                        saved.getLongitude(), saved.getTimestamp(), suppressed);
+            }
+        }
+    }
+
+    private static Logger logger(LoggerContext context, String name, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger("benchmark." + name);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private static OutputStreamAppender<ILoggingEvent> syncAppender(LoggerContext context, LongAdder bytes) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setName("DISCARD");
+        appender.setEncoder(encoder);
+        appender.setOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.increment();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes.add(len);
+            }
+        });
+        appender.start();
+        return appender;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+
+/**
+ * LocationBulkDeleteServiceのユニットテスト
+ * 
+ * チャンク分割、同期/非同期の切り替え、イベント発行を検証します
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LocationBulkDeleteService テスト")
+@SuppressWarnings("null")
+class LocationBulkDeleteServiceTest {
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LocationBulkDeleteServiceImpl bulkDeleteService;
+    private LocalDateTime testTime;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+        bulkDeleteService = new LocationBulkDeleteServiceImpl(
+                locationRepository, eventPublisher, transactionManager, ShardTemplate.direct(),
+                SiteTemplate.single(), SegmentStore.disabled(SiteTemplate.single()), 2, 10);
+    }
+
+    /**
+     * 条件検証のテスト
+     */
+    @Nested
+    @DisplayName("削除条件の検証")
+    class ValidationTests {
+
+        @Test
+        @DisplayName("異常系: 条件が指定されていない場合例外になる")
+        void testDeleteLocations_NoCriteria() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> bulkDeleteService.deleteLocations(null, null, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> bulkDeleteService.deleteLocations(" ", null, null));
+            verify(locationRepository, never()).deleteByIdIn(anyList());
+        }
+
+        @Test
+        @DisplayName("異常系: 開始時刻が終了時刻より後の場合例外になる")
+        void testDeleteLocations_InvalidRange() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> bulkDeleteService.deleteLocations(null, testTime, testTime.minusHours(1)));
+        }
+    }
+
+    /**
+     * 同期削除のテスト
+     */
+    @Nested
+    @DisplayName("同期削除")
+    class SynchronousDeleteTests {
+
+        @Test
+        @DisplayName("正常系: デバイスの履歴をチャンク単位で削除できる")
+        void testDeleteLocations_ByDeviceInChunks() {
+            when(locationRepository.countForBulkDelete("ESP32-001", null, null)).thenReturn(3L);
+            when(locationRepository.findIdsForBulkDelete(eq("ESP32-001"), isNull(), isNull(), any(Limit.class)))
+                    .thenReturn(List.of(1L, 2L))
+                    .thenReturn(List.of(3L))
+                    .thenReturn(Collections.emptyList());
+
+            BulkDeleteJob job = bulkDeleteService.deleteLocations("ESP32-001", null, null);
+
+            assertEquals(BulkDeleteJob.Status.COMPLETED, job.getStatus());
+            assertEquals(3L, job.getTotalCount());
+            assertEquals(3L, job.getDeletedCount());
+            assertEquals(100.0, job.getProgressPercent());
+            verify(locationRepository).deleteByIdIn(List.of(1L, 2L));
+            verify(locationRepository).deleteByIdIn(List.of(3L));
+            verify(locationRepository, never()).findDistinctDeviceIdsByIdIn(anyList());
+            verify(eventPublisher, times(2)).publishEvent(any(LocationsDeletedEvent.class));
+        }
+
+        @Test
+        @DisplayName("正常系: 期間指定の場合チャンク内のデバイスIDをイベントに含める")
+        void testDeleteLocations_ByRangePublishesDeviceIds() {
+            LocalDateTime end = testTime.plusHours(1);
+            when(locationRepository.countForBulkDelete(null, testTime, end)).thenReturn(2L);
+            when(locationRepository.findIdsForBulkDelete(isNull(), eq(testTime), eq(end), any(Limit.class)))
+                    .thenReturn(List.of(10L, 11L))
+                    .thenReturn(Collections.emptyList());
+            when(locationRepository.findDistinctDeviceIdsByIdIn(List.of(10L, 11L)))
+                    .thenReturn(List.of("ESP32-001", "ESP32-002"));
+
+            bulkDeleteService.deleteLocations(null, testTime, end);
+
+            ArgumentCaptor<LocationsDeletedEvent> captor = ArgumentCaptor.forClass(LocationsDeletedEvent.class);
+            verify(eventPublisher).publishEvent(captor.capture());
+            assertEquals(List.of(10L, 11L), captor.getValue().ids());
+            assertEquals(Set.of("ESP32-001", "ESP32-002"), captor.getValue().deviceIds());
+            assertFalse(captor.getValue().purgedAll());
+        }
+
+        @Test
+        @DisplayName("エッジケース: 対象が0件の場合イベントを発行しない")
+        void testDeleteLocations_NothingToDelete() {
+            when(locationRepository.countForBulkDelete("UNKNOWN", null, null)).thenReturn(0L);
+            when(locationRepository.findIdsForBulkDelete(eq("UNKNOWN"), isNull(), isNull(), any(Limit.class)))
+                    .thenReturn(Collections.emptyList());
+
+            BulkDeleteJob job = bulkDeleteService.deleteLocations("UNKNOWN", null, null);
+
+            assertTrue(job.isFinished());
+            assertEquals(0L, job.getDeletedCount());
+            verify(eventPublisher, never()).publishEvent(any(LocationsDeletedEvent.class));
+        }
+
+        @Test
+        @DisplayName("正常系: 封印済みの位置情報の削除は件数に含め、デバイスを特定しない削除イベントを発行する")
+        void testDeleteLocations_Sealed(@TempDir Path directory) {
+            SegmentStore segmentStore = new SegmentStore(directory, Deflater.DEFAULT_COMPRESSION,
+                    SiteTemplate.single());
+            segmentStore.write(testTime.minusDays(1), testTime, rows -> {
+                rows.accept(sealed(1L, "ESP32-001", testTime.minusHours(2)));
+                rows.accept(sealed(2L, "ESP32-002", testTime.minusHours(1)));
+            });
+            bulkDeleteService = new LocationBulkDeleteServiceImpl(
+                    locationRepository, eventPublisher, transactionManager, ShardTemplate.direct(),
+                    SiteTemplate.single(), segmentStore, 2, 10);
+            when(locationRepository.countForBulkDelete(null, null, testTime)).thenReturn(0L);
+            when(locationRepository.findIdsForBulkDelete(isNull(), isNull(), eq(testTime), any(Limit.class)))
+                    .thenReturn(Collections.emptyList());
+
+            BulkDeleteJob job = bulkDeleteService.deleteLocations(null, null, testTime);
+
+            assertEquals(BulkDeleteJob.Status.COMPLETED, job.getStatus());
+            assertEquals(2L, job.getDeletedCount());
+            verify(eventPublisher).publishEvent(LocationsDeletedEvent.of(List.of(), Set.of()));
+            assertTrue(segmentStore.countByDevice(null, null).isEmpty());
+        }
+
+        @Test
+        @DisplayName("異常系: 削除中に例外が発生した場合ジョブは失敗状態になる")
+        void testDeleteLocations_Failure() {
+            when(locationRepository.countForBulkDelete("ESP32-001", null, null)).thenReturn(1L);
+            when(locationRepository.findIdsForBulkDelete(eq("ESP32-001"), isNull(), isNull(), any(Limit.class)))
+                    .thenThrow(new IllegalStateException("DB error"));
+
+            BulkDeleteJob job = bulkDeleteService.deleteLocations("ESP32-001", null, null);
+
+            assertEquals(BulkDeleteJob.Status.FAILED, job.getStatus());
+            assertEquals("DB error", job.getErrorMessage());
+        }
+    }
+
+    /**
+     * 非同期削除のテスト
+     */
+    @Nested
+    @DisplayName("非同期削除")
+    class AsynchronousDeleteTests {
+
+        @Test
+        @DisplayName("正常系: 閾値を超える場合バックグラウンドで削除されジョブを参照できる")
+        void testDeleteLocations_LargeRangeRunsAsync() throws Exception {
+            when(locationRepository.countForBulkDelete("ESP32-001", null, null)).thenReturn(11L);
+            when(locationRepository.findIdsForBulkDelete(eq("ESP32-001"), isNull(), isNull(), any(Limit.class)))
+                    .thenReturn(List.of(1L, 2L))
+                    .thenReturn(Collections.emptyList());
+
+            BulkDeleteJob job = bulkDeleteService.deleteLocations("ESP32-001", null, null);
+
+            assertTrue(bulkDeleteService.getJob(job.getJobId()).isPresent());
+            for (int i = 0; i < 100 && !job.isFinished(); i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(BulkDeleteJob.Status.COMPLETED, job.getStatus());
+            assertEquals(2L, job.getDeletedCount());
+        }
+
+        @Test
+        @DisplayName("エッジケース: 存在しないジョブIDの場合空のOptionalを返す")
+        void testGetJob_NotFound() {
+            assertFalse(bulkDeleteService.getJob("unknown").isPresent());
+        }
+    }
+
+    private static LocationData sealed(Long id, String deviceId, LocalDateTime timestamp) {
+        return LocationData.builder()
+                .id(id)
+                .deviceId(deviceId)
+                .latitude(35.0)
+                .longitude(139.0)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.LocationChanges;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.site.SiteTemplate;
+
+/**
+ * LocationChangeServiceのユニットテスト
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LocationChangeService テスト")
+@SuppressWarnings("null")
+class LocationChangeServiceTest {
+
+    @Mock
+    private LocationService locationService;
+
+    private LocationChangeServiceImpl changeService;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        changeService = new LocationChangeServiceImpl(locationService, SiteTemplate.single(), 10);
+    }
+
+    /**
+     * 初回の取得のテスト
+     */
+    @Nested
+    @DisplayName("初回の取得")
+    class InitialTests {
+
+        @Test
+        @DisplayName("正常系: カーソルを省略すると最新の位置情報とカーソルを返す")
+        void testGetChanges_Initial() {
+            List<LocationData> recent = List.of(location(1L));
+            when(locationService.getRecentLocations()).thenReturn(recent);
+
+            LocationChanges changes = changeService.getChanges(null, 100);
+
+            assertTrue(changes.reset());
+            assertEquals(recent, changes.inserted());
+            assertTrue(changeService.getChanges(changes.cursor(), 100).inserted().isEmpty());
+        }
+
+        @Test
+        @DisplayName("異常系: 形式の不正なカーソルは例外を送出する")
+        void testGetChanges_InvalidCursor() {
+            assertThrows(IllegalArgumentException.class, () -> changeService.getChanges("invalid", 100));
+            assertThrows(IllegalArgumentException.class, () -> changeService.getChanges("abc.!!", 100));
+        }
+
+        @Test
+        @DisplayName("境界値: 別の起動のカーソルは状態の置き換えを指示する")
+        void testGetChanges_OtherEpoch() {
+            when(locationService.getRecentLocations()).thenReturn(List.of());
+
+            assertTrue(changeService.getChanges("zzz.5", 100).reset());
+        }
+    }
+
+    /**
+     * 差分の取得のテスト
+     */
+    @Nested
+    @DisplayName("差分の取得")
+    class DeltaTests {
+
+        @Test
+        @DisplayName("正常系: カーソル以降に追加・削除された位置情報だけを返す")
+        void testGetChanges_Delta() {
+            String cursor = initialCursor();
+            changeService.onLocationsSaved(LocationsSavedEvent.of(location(1L)));
+            changeService.onLocationsSaved(LocationsSavedEvent.of(location(2L)));
+            changeService.onLocationsDeleted(LocationsDeletedEvent.of(List.of(1L), Set.of("ESP32-001")));
+
+            LocationChanges changes = changeService.getChanges(cursor, 100);
+
+            assertFalse(changes.reset());
+            assertFalse(changes.hasMore());
+            assertEquals(List.of(1L, 2L), changes.inserted().stream().map(LocationData::getId).toList());
+            assertEquals(List.of(1L), changes.deletedIds());
+
+            changeService.onLocationsSaved(LocationsSavedEvent.of(location(3L)));
+            LocationChanges next = changeService.getChanges(changes.cursor(), 100);
+            assertEquals(List.of(3L), next.inserted().stream().map(LocationData::getId).toList());
+            verify(locationService, never()).getLocationById(3L);
+        }
+
+        @Test
+        @DisplayName("境界値: 件数の上限を超える場合は続きがあることを返す")
+        void testGetChanges_Limit() {
+            String cursor = initialCursor();
+            for (long id = 1; id <= 5; id++) {
+                changeService.onLocationsSaved(LocationsSavedEvent.of(location(id)));
+            }
+
+            LocationChanges first = changeService.getChanges(cursor, 3);
+            LocationChanges second = changeService.getChanges(first.cursor(), 3);
+
+            assertTrue(first.hasMore());
+            assertEquals(3, first.inserted().size());
+            assertFalse(second.hasMore());
+            assertEquals(List.of(4L, 5L), second.inserted().stream().map(LocationData::getId).toList());
+        }
+
+        @Test
+        @DisplayName("境界値: 保持件数を超えて古くなったカーソルは状態の置き換えを指示する")
+        void testGetChanges_Evicted() {
+            String cursor = initialCursor();
+            for (long id = 1; id <= 11; id++) {
+                changeService.onLocationsSaved(LocationsSavedEvent.of(location(id)));
+            }
+
+            assertTrue(changeService.getChanges(cursor, 100).reset());
+        }
+
+        @Test
+        @DisplayName("正常系: 全件削除より前のカーソルは状態の置き換えを指示する")
+        void testGetChanges_PurgedAll() {
+            String cursor = initialCursor();
+            changeService.onLocationsSaved(LocationsSavedEvent.of(location(1L)));
+            changeService.onLocationsDeleted(LocationsDeletedEvent.all());
+            LocationChanges reset = changeService.getChanges(cursor, 100);
+            changeService.onLocationsSaved(LocationsSavedEvent.of(location(2L)));
+
+            assertTrue(reset.reset());
+            LocationChanges after = changeService.getChanges(reset.cursor(), 100);
+            assertFalse(after.reset());
+            assertEquals(List.of(2L), after.inserted().stream().map(LocationData::getId).toList());
+        }
+
+        @Test
+        @DisplayName("正常系: IDのない位置情報（一括インポート）の保存より前のカーソルは状態の置き換えを指示する")
+        void testGetChanges_SavedWithoutIds() {
+            String cursor = initialCursor();
+            LocationData imported = location(2L);
+            imported.setId(null);
+            changeService.onLocationsSaved(LocationsSavedEvent.of(location(1L)));
+            changeService.onLocationsSaved(new LocationsSavedEvent(List.of(imported)));
+            LocationChanges reset = changeService.getChanges(cursor, 100);
+            changeService.onLocationsSaved(LocationsSavedEvent.of(location(3L)));
+
+            assertTrue(reset.reset());
+            LocationChanges after = changeService.getChanges(reset.cursor(), 100);
+            assertFalse(after.reset());
+            assertEquals(List.of(3L), after.inserted().stream().map(LocationData::getId).toList());
+        }
+    }
+
+    private String initialCursor() {
+        when(locationService.getRecentLocations()).thenReturn(List.of());
+        return changeService.getChanges(null, 100).cursor();
+    }
+
+    private LocationData location(Long id) {
+        return LocationData.builder()
+                .id(id)
+                .deviceId("ESP32-001")
+                .latitude(35.0)
+                .longitude(139.0)
+                .timestamp(testTime.plusMinutes(id))
+                .build();
+    }
+}
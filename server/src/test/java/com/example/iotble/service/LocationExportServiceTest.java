@@ -0,0 +1,223 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.iotble.device.DeviceRegistry;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.service.export.ColumnarLocationReader;
+import com.example.iotble.service.export.ExportFormat;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+
+/**
+ * LocationExportServiceのテスト
+ * 
+ * ワーカースレッドから読み出せるよう、テストデータはコミットした状態で投入します
+ */
+@DataJpaTest
+@Import({ LocationJdbcRepository.class, DeviceRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LocationExportService テスト")
+@SuppressWarnings("null")
+class LocationExportServiceTest {
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationJdbcRepository jdbcRepository;
+
+    @TempDir
+    Path exportDirectory;
+
+    private LocationExportServiceImpl exportService;
+    private LocalDateTime testTime;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+        exportService = new LocationExportServiceImpl(
+                new TieredLocationReader(jdbcRepository, SegmentStore.disabled(SiteTemplate.single())), SiteTemplate.single(),
+                exportDirectory.toString(), 2, 4, 256, 3);
+    }
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        exportService.shutdown();
+        locationRepository.deleteAllInBatch();
+    }
+
+    /**
+     * CSV形式のテスト
+     */
+    @Nested
+    @DisplayName("CSVエクスポート")
+    class CsvExportTests {
+
+        @Test
+        @DisplayName("正常系: 全期間をタイムスタンプ順にCSVへ書き出せる")
+        void testExportCsv_AllRows() throws Exception {
+            for (int i = 9; i >= 0; i--) {
+                save("ESP32-00" + (i % 3), 35.0 + i, 139.0 + i, testTime.plusMinutes(i), i % 2 == 0 ? -50 : null);
+            }
+
+            ExportJob job = awaitCompletion(exportService.startExport(ExportFormat.CSV, null, null, null));
+
+            List<String> lines = Files.readAllLines(job.getFile(), StandardCharsets.UTF_8);
+            assertEquals(11, lines.size());
+            assertEquals("id,deviceId,latitude,longitude,altitude,accuracy,rssi,timestamp,createdAt", lines.get(0));
+            assertTrue(lines.get(1).contains(",35.0,139.0,,,-50,2025-01-01T12:00,"));
+            assertTrue(lines.get(10).contains(",44.0,148.0,,,,2025-01-01T12:09,"));
+            assertEquals(10L, job.getRowCount());
+            assertEquals(job.getPartitionCount(), job.getCompletedPartitions());
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスと期間で絞り込める")
+        void testExportCsv_FilterByDeviceAndRange() throws Exception {
+            save("ESP32-001", 35.0, 139.0, testTime, null);
+            save("ESP32-001", 35.1, 139.1, testTime.plusHours(2), null);
+            save("ESP32-002", 35.2, 139.2, testTime, null);
+
+            ExportJob job = awaitCompletion(exportService.startExport(
+                    ExportFormat.CSV, "ESP32-001", testTime.minusHours(1), testTime.plusHours(1)));
+
+            List<String> lines = Files.readAllLines(job.getFile(), StandardCharsets.UTF_8);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(1).contains("ESP32-001,35.0,139.0"));
+        }
+
+        @Test
+        @DisplayName("エッジケース: カンマを含むデバイスIDは引用符で囲まれる")
+        void testExportCsv_QuotesDeviceId() throws Exception {
+            save("TAG,\"A\"", 35.0, 139.0, testTime, null);
+
+            ExportJob job = awaitCompletion(exportService.startExport(ExportFormat.CSV, null, null, null));
+
+            List<String> lines = Files.readAllLines(job.getFile(), StandardCharsets.UTF_8);
+            assertTrue(lines.get(1).contains(",\"TAG,\"\"A\"\"\",35.0,"));
+        }
+
+        @Test
+        @DisplayName("エッジケース: データが0件の場合ヘッダーのみ書き出す")
+        void testExportCsv_Empty() throws Exception {
+            ExportJob job = awaitCompletion(exportService.startExport(ExportFormat.CSV, null, null, null));
+
+            assertEquals(1, Files.readAllLines(job.getFile(), StandardCharsets.UTF_8).size());
+            assertEquals(0L, job.getRowCount());
+        }
+    }
+
+    /**
+     * 列指向形式のテスト
+     */
+    @Nested
+    @DisplayName("列指向エクスポート")
+    class ColumnarExportTests {
+
+        @Test
+        @DisplayName("正常系: 書き出した内容を読み戻せる")
+        void testExportColumnar_RoundTrip() throws Exception {
+            for (int i = 0; i < 10; i++) {
+                save("ESP32-00" + (i % 2), 35.0 + i, 139.0 + i, testTime.plusMinutes(i), i % 2 == 0 ? -40 - i : null);
+            }
+
+            ExportJob job = awaitCompletion(exportService.startExport(ExportFormat.COLUMNAR, null, null, null));
+
+            List<LocationData> rows = new ArrayList<>();
+            try (ColumnarLocationReader reader = ColumnarLocationReader.open(job.getFile())) {
+                assertEquals(10L, reader.getTotalRows());
+                assertTrue(reader.getRowGroups().size() >= 4, "行グループはパーティションと行数上限で分割される");
+                reader.forEach(rows::add);
+            }
+
+            assertEquals(10, rows.size());
+            for (int i = 0; i < 10; i++) {
+                LocationData row = rows.get(i);
+                assertEquals("ESP32-00" + (i % 2), row.getDeviceId());
+                assertEquals(35.0 + i, row.getLatitude());
+                assertEquals(139.0 + i, row.getLongitude());
+                assertEquals(testTime.plusMinutes(i), row.getTimestamp());
+                assertEquals(i % 2 == 0 ? Integer.valueOf(-40 - i) : null, row.getRssi());
+                assertNull(row.getAltitude());
+            }
+        }
+    }
+
+    /**
+     * 条件検証のテスト
+     */
+    @Nested
+    @DisplayName("条件の検証")
+    class ValidationTests {
+
+        @Test
+        @DisplayName("異常系: 開始時刻が終了時刻より後の場合例外になる")
+        void testStartExport_InvalidRange() {
+            assertThrows(IllegalArgumentException.class, () -> exportService.startExport(
+                    ExportFormat.CSV, null, testTime, testTime.minusHours(1)));
+        }
+
+        @Test
+        @DisplayName("境界値: 開始時刻と終了時刻が同じ場合1パーティションになる")
+        void testSplit_SingleInstant() {
+            assertEquals(1, exportService.split(testTime, testTime).size());
+            assertEquals(4, exportService.split(testTime, testTime.plusHours(1)).size());
+        }
+
+        @Test
+        @DisplayName("エッジケース: 存在しないジョブIDの場合空のOptionalを返す")
+        void testGetJob_NotFound() {
+            assertFalse(exportService.getJob("unknown").isPresent());
+        }
+    }
+
+    private void save(String deviceId, double latitude, double longitude, LocalDateTime timestamp, Integer rssi) {
+        locationRepository.save(LocationData.builder()
+                .deviceId(deviceId)
+                .latitude(latitude)
+                .longitude(longitude)
+                .rssi(rssi)
+                .timestamp(timestamp)
+                .build());
+    }
+
+    private ExportJob awaitCompletion(ExportJob job) throws InterruptedException {
+        for (int i = 0; i < 250 && !job.isFinished(); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(ExportJob.Status.COMPLETED, job.getStatus(), job.getErrorMessage());
+        return job;
+    }
+}
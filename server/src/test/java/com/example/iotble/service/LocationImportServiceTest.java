@@ -0,0 +1,306 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.iotble.device.DeviceRegistry;
+import com.example.iotble.model.ImportCheckpoint;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.ImportCheckpointRepository;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.service.importer.ImportFormat;
+import com.example.iotble.site.SiteIngestQuota;
+import com.example.iotble.site.SiteTemplate;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+
+/**
+ * LocationImportServiceのテスト
+ * 
+ * 取り込みはワーカースレッドのトランザクションで行われるため、
+ * テストメソッド自体はトランザクションなしで実行します
+ */
+@DataJpaTest
+@Import({ LocationJdbcRepository.class, DeviceRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LocationImportService テスト")
+@SuppressWarnings("null")
+class LocationImportServiceTest {
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationJdbcRepository jdbcRepository;
+
+    @Autowired
+    private ImportCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path workDirectory;
+
+    private LocationImportServiceImpl importService;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        importService = new LocationImportServiceImpl(jdbcRepository, checkpointRepository, event -> { }, transactionManager,
+                objectMapper, Validation.buildDefaultValidatorFactory().getValidator(), SiteTemplate.single(),
+                new SiteIngestQuota(Map.of()), workDirectory.resolve("spool").toString(), 2, 2);
+    }
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+        locationRepository.deleteAllInBatch();
+        checkpointRepository.deleteAllInBatch();
+    }
+
+    /**
+     * CSV形式のテスト
+     */
+    @Nested
+    @DisplayName("CSVインポート")
+    class CsvImportTests {
+
+        @Test
+        @DisplayName("正常系: 全行を取り込み作成日時が設定される")
+        void testImportCsv_Success() throws Exception {
+            Path file = write("history.csv",
+                    "deviceId,latitude,longitude,rssi,timestamp",
+                    "ESP32-001,35.1,139.1,-50,2025-01-01T12:00:00",
+                    "ESP32-001,35.2,139.2,,2025-01-01T12:01:00",
+                    "ESP32-002,35.3,139.3,-60,2025-01-01T12:02:00");
+
+            ImportJob job = importService.importFile(ImportFormat.CSV, file);
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus(), job.getErrorMessage());
+            assertEquals(3L, job.getImportedCount());
+            assertEquals(0L, job.getRejectedCount());
+            List<LocationData> saved = locationRepository.findByDeviceIdOrderByTimestampDesc("ESP32-001");
+            assertEquals(2, saved.size());
+            assertNotNull(saved.get(0).getId());
+            assertNotNull(saved.get(0).getCreatedAt());
+            assertEquals(LocalDateTime.of(2025, 1, 1, 12, 1), saved.get(0).getTimestamp());
+        }
+
+        @Test
+        @DisplayName("異常系: 不正な行は取り込まず行番号と理由を記録する")
+        void testImportCsv_RejectsInvalidRows() throws Exception {
+            Path file = write("history.csv",
+                    "deviceId,latitude,longitude,timestamp",
+                    "ESP32-001,35.1,139.1,2025-01-01T12:00:00",
+                    ",35.2,139.2,2025-01-01T12:01:00",
+                    "ESP32-001,abc,139.3,2025-01-01T12:02:00",
+                    "ESP32-001,35.4,139.4,not-a-time",
+                    "",
+                    "ESP32-001,35.5,139.5,2025-01-01T12:04:00");
+
+            ImportJob job = importService.importFile(ImportFormat.CSV, file);
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+            assertEquals(2L, job.getImportedCount());
+            assertEquals(3L, job.getRejectedCount());
+            assertEquals(List.of(3L, 4L, 5L), job.getRejectedSamples().stream()
+                    .map(row -> row.lineNumber()).toList());
+            assertEquals("デバイスIDは必須です", job.getRejectedSamples().get(0).reason());
+            assertEquals(3, Files.readAllLines(job.getRejectedFile()).size());
+        }
+
+        @Test
+        @DisplayName("異常系: 範囲外の緯度・経度や保存できない値の行は取り込まない")
+        void testImportCsv_RejectsOutOfRangeRows() throws Exception {
+            Path file = write("history.csv",
+                    "deviceId,latitude,longitude,altitude,timestamp",
+                    "ESP32-001,35.1,139.1,,2025-01-01T12:00:00",
+                    "ESP32-001,500,139.2,,2025-01-01T12:01:00",
+                    "ESP32-001,35.3,-999,,2025-01-01T12:02:00",
+                    "ESP32-001,NaN,139.4,,2025-01-01T12:03:00",
+                    "ESP32-001,35.5,139.5,1e12,2025-01-01T12:04:00");
+
+            ImportJob job = importService.importFile(ImportFormat.CSV, file);
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus(), job.getErrorMessage());
+            assertEquals(1L, job.getImportedCount());
+            assertEquals(4L, job.getRejectedCount());
+            assertEquals(List.of(3L, 4L, 5L, 6L), job.getRejectedSamples().stream()
+                    .map(row -> row.lineNumber()).toList());
+            assertEquals("緯度は-90から90の範囲で指定してください", job.getRejectedSamples().get(0).reason());
+            assertEquals("経度は-180から180の範囲で指定してください", job.getRejectedSamples().get(1).reason());
+            assertEquals(1L, locationRepository.count());
+        }
+
+        @Test
+        @DisplayName("異常系: 必須列がヘッダーにない場合は失敗する")
+        void testImportCsv_MissingColumn() throws Exception {
+            Path file = write("history.csv", "deviceId,latitude", "ESP32-001,35.1");
+
+            ImportJob job = importService.importFile(ImportFormat.CSV, file);
+
+            assertEquals(ImportJob.Status.FAILED, job.getStatus());
+            assertEquals(0L, locationRepository.count());
+        }
+
+        @Test
+        @DisplayName("正常系: チェックポイントの続きから取り込みを再開できる")
+        void testImportCsv_ResumeFromCheckpoint() throws Exception {
+            String header = "deviceId,latitude,longitude,timestamp";
+            String first = "ESP32-001,35.1,139.1,2025-01-01T12:00:00";
+            Path file = write("history.csv", header, first,
+                    "ESP32-001,35.2,139.2,2025-01-01T12:01:00",
+                    "ESP32-001,35.3,139.3,2025-01-01T12:02:00");
+            String importId = UUID.nameUUIDFromBytes(
+                    file.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8)).toString();
+            checkpointRepository.save(ImportCheckpoint.builder()
+                    .importId(importId)
+                    .sourcePath(file.toString())
+                    .format(ImportFormat.CSV.name())
+                    .header(header)
+                    .byteOffset((header + "\n" + first + "\n").getBytes(StandardCharsets.UTF_8).length)
+                    .lineNumber(2)
+                    .importedCount(1)
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+
+            ImportJob job = importService.importFile(ImportFormat.CSV, file);
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus(), job.getErrorMessage());
+            assertEquals(2L, job.getResumedFromLine());
+            assertEquals(3L, job.getImportedCount());
+            assertEquals(2L, locationRepository.count(), "チェックポイント以前の行は再登録されない");
+            assertTrue(checkpointRepository.findById(importId).orElseThrow().isCompleted());
+        }
+    }
+
+    /**
+     * NDJSON形式のテスト
+     */
+    @Nested
+    @DisplayName("NDJSONインポート")
+    class NdjsonImportTests {
+
+        @Test
+        @DisplayName("正常系: アップロードしたファイルをバックグラウンドで取り込める")
+        void testStartImport_Ndjson() throws Exception {
+            String body = String.join("\n",
+                    "{\"deviceId\":\"ESP32-001\",\"latitude\":35.1,\"longitude\":139.1,\"timestamp\":\"2025-01-01T12:00:00\"}",
+                    "{\"deviceId\":\"ESP32-002\",\"latitude\":35.2,\"longitude\":139.2,\"accuracy\":5.0}",
+                    "{\"deviceId\":\"ESP32-003\"}",
+                    "{broken");
+
+            ImportJob job = importService.startImport(ImportFormat.NDJSON,
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "upload.ndjson");
+            for (int i = 0; i < 250 && !job.isFinished(); i++) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus(), job.getErrorMessage());
+            assertEquals(2L, job.getImportedCount());
+            assertEquals(2L, job.getRejectedCount());
+            assertEquals(4L, job.getLinesProcessed());
+            assertFalse(Files.exists(job.getSourceFile()), "完了後にアップロードファイルは削除される");
+            assertNotNull(locationRepository.findLatestByDeviceId("ESP32-002").orElseThrow().getTimestamp());
+        }
+
+        @Test
+        @DisplayName("異常系: 範囲外の緯度・経度の行は取り込まない")
+        void testImportNdjson_RejectsOutOfRangeRows() throws Exception {
+            Path file = write("history.ndjson",
+                    "{\"deviceId\":\"ESP32-001\",\"latitude\":35.1,\"longitude\":139.1}",
+                    "{\"deviceId\":\"ESP32-001\",\"latitude\":500,\"longitude\":139.1}",
+                    "{\"deviceId\":\"ESP32-001\",\"latitude\":35.1,\"longitude\":-999}");
+
+            ImportJob job = importService.importFile(ImportFormat.NDJSON, file);
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus(), job.getErrorMessage());
+            assertEquals(1L, job.getImportedCount());
+            assertEquals(2L, job.getRejectedCount());
+            assertEquals(1L, locationRepository.count());
+        }
+
+        @Test
+        @DisplayName("異常系: ファイルのサイトIDと平滑化後の座標は使わず、現在のサイトとして登録する")
+        void testImportNdjson_IgnoresServerOwnedFields() throws Exception {
+            Path file = write("history.ndjson", "{\"deviceId\":\"ESP32-001\",\"latitude\":35.1,\"longitude\":139.1,"
+                    + "\"siteId\":\"osaka\",\"smoothedLatitude\":1.0,\"smoothedLongitude\":2.0}");
+
+            ImportJob job = importService.importFile(ImportFormat.NDJSON, file);
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus(), job.getErrorMessage());
+            LocationData saved = locationRepository.findLatestByDeviceId("ESP32-001").orElseThrow();
+            assertEquals(SiteTemplate.DEFAULT_SITE, saved.getSiteId());
+            assertNull(saved.getSmoothedLatitude());
+            assertNull(saved.getSmoothedLongitude());
+        }
+
+        @Test
+        @DisplayName("異常系: まとめて登録する位置情報のサイトIDは現在のサイトで上書きされる")
+        void testInsertAll_OverridesForeignSite() {
+            LocalDateTime time = LocalDateTime.of(2025, 1, 1, 12, 0);
+            LocationData foreign = LocationData.builder()
+                    .deviceId("ESP32-001")
+                    .latitude(35.1)
+                    .longitude(139.1)
+                    .timestamp(time)
+                    .createdAt(time)
+                    .siteId("osaka")
+                    .build();
+
+            assertEquals(1, jdbcRepository.insertAll(List.of(foreign)));
+
+            assertEquals(SiteTemplate.DEFAULT_SITE,
+                    locationRepository.findLatestByDeviceId("ESP32-001").orElseThrow().getSiteId());
+        }
+
+        @Test
+        @DisplayName("異常系: 失敗していないジョブは再開できない")
+        void testResumeImport_NotFailed() {
+            assertThrows(IllegalStateException.class, () -> importService.resumeImport("unknown"));
+        }
+    }
+
+    private Path write(String name, String... lines) throws Exception {
+        Path file = workDirectory.resolve(name);
+        Files.writeString(file, String.join("\n", lines) + "\n", StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.iotble.device.DeviceRegistry;
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.MovementSummary;
+import com.example.iotble.repository.DeviceMovementRepository;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.util.GeoUtils;
+import com.example.iotble.tier.SegmentStore;
+
+/**
+ * LocationMovementServiceのテスト
+ * 
+ * 走査スレッドから読み出せるよう、テストデータはコミットした状態で投入します
+ */
+@DataJpaTest
+@Import({ LocationJdbcRepository.class, DeviceRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LocationMovementService テスト")
+@SuppressWarnings("null")
+class LocationMovementServiceTest {
+
+    /** 緯度0.001度あたりの距離（メートル） */
+    private static final double STEP_METERS = GeoUtils.haversineMeters(35.0, 139.0, 35.001, 139.0);
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private DeviceMovementRepository movementRepository;
+
+    @Autowired
+    private LocationJdbcRepository jdbcRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LocationMovementServiceImpl movementService;
+    private LocalDateTime testTime;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+        movementService = newService();
+    }
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        movementService.shutdown();
+        movementRepository.deleteAllInBatch();
+        locationRepository.deleteAllInBatch();
+    }
+
+    /**
+     * 受信時の集計のテスト
+     */
+    @Nested
+    @DisplayName("受信時の増分集計")
+    class StreamingTests {
+
+        @Test
+        @DisplayName("正常系: 距離・速度・移動時間と静止時間を集計できる")
+        void testRecord_Metrics() {
+            // 10秒で約111m（移動）→ 10秒間静止 → 300秒を超える間隔で約111m
+            record(point(35.000, testTime),
+                    point(35.001, testTime.plusSeconds(10)),
+                    point(35.001, testTime.plusSeconds(20)),
+                    point(35.002, testTime.plusSeconds(620)));
+
+            MovementSummary summary = movementService.getMovement("ESP32-001", testTime, testTime.plusHours(1));
+
+            assertEquals(2 * STEP_METERS, summary.distanceMeters(), 1e-6);
+            assertEquals(10.0, summary.movingSeconds(), 1e-9);
+            assertEquals(10.0, summary.stationarySeconds(), 1e-9);
+            assertEquals(600.0, summary.untrackedSeconds(), 1e-9);
+            assertEquals(STEP_METERS / 10, summary.maxSpeed(), 1e-6);
+            assertNull(summary.currentSpeed());
+            assertEquals(testTime.plusSeconds(620), summary.lastTimestamp());
+            assertEquals(1, summary.snapshotHours());
+            assertEquals(0, summary.scannedRanges());
+        }
+
+        @Test
+        @DisplayName("正常系: スナップショットの集計と生データの走査結果が一致する")
+        void testGetMovement_SnapshotMatchesScan() {
+            List<LocationData> points = new ArrayList<>();
+            for (int i = 0; i < 240; i++) {
+                points.add(point(35.0 + (i % 7) * 0.0005, testTime.plusSeconds(i * 60L + (i % 5) * 7)));
+            }
+            record(points.toArray(LocationData[]::new));
+            movementService.flush(testTime.plusHours(5));
+
+            MovementSummary fromSnapshots = movementService.getMovement(
+                    "ESP32-001", testTime, testTime.plusHours(4));
+            MovementSummary partial = movementService.getMovement(
+                    "ESP32-001", testTime.plusMinutes(30), testTime.plusHours(3).plusMinutes(30));
+            assertEquals(4, movementRepository.count());
+            movementRepository.deleteAllInBatch();
+            MovementSummary fromScan = newService().getMovement("ESP32-001", testTime, testTime.plusHours(4));
+
+            assertEquals(4, fromSnapshots.snapshotHours());
+            assertEquals(0, fromScan.snapshotHours());
+            assertEquals(fromSnapshots.distanceMeters(), fromScan.distanceMeters(), 1e-6);
+            assertEquals(fromSnapshots.movingSeconds(), fromScan.movingSeconds(), 1e-6);
+            assertEquals(fromSnapshots.maxSpeed(), fromScan.maxSpeed(), 1e-9);
+            assertEquals(fromSnapshots.currentSpeed(), fromScan.currentSpeed());
+            assertEquals(2, partial.snapshotHours());
+            assertEquals(2, partial.scannedRanges());
+        }
+
+        @Test
+        @DisplayName("正常系: 時刻が前後した位置情報の時間はスナップショットを作らず走査される")
+        void testRecord_OutOfOrder() {
+            record(point(35.000, testTime),
+                    point(35.002, testTime.plusMinutes(20)));
+            record(point(35.001, testTime.plusMinutes(10)));
+            movementService.flush(testTime.plusHours(2));
+
+            MovementSummary summary = movementService.getMovement("ESP32-001", testTime, testTime.plusHours(1));
+
+            assertEquals(0, movementRepository.count());
+            assertEquals(0, summary.snapshotHours());
+            assertEquals(1, summary.scannedRanges());
+            assertEquals(2 * STEP_METERS, summary.distanceMeters(), 1e-6);
+        }
+
+        @Test
+        @DisplayName("正常系: 再起動後は直前の位置をデータベースから補う")
+        void testRecord_SeedAfterRestart() {
+            record(point(35.000, testTime.minusMinutes(5)));
+
+            LocationMovementServiceImpl restarted = newService();
+            try {
+                LocationData next = locationRepository.save(point(35.001, testTime.plusSeconds(10)));
+                restarted.record(List.of(next));
+
+                MovementSummary summary = restarted.getMovement("ESP32-001", testTime, testTime.plusHours(1));
+                assertEquals(1, summary.snapshotHours());
+                assertEquals(STEP_METERS, summary.distanceMeters(), 1e-6);
+            } finally {
+                restarted.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 削除への追従のテスト
+     */
+    @Nested
+    @DisplayName("削除イベントへの追従")
+    class DeletionTests {
+
+        @Test
+        @DisplayName("正常系: 履歴削除後は残りの生データから再計算される")
+        void testOnDeviceHistoryDeleted() {
+            LocationData removed = point(35.001, testTime.plusMinutes(10));
+            record(point(35.000, testTime), removed, point(35.002, testTime.plusHours(1).plusMinutes(10)));
+            movementService.flush(testTime.plusHours(3));
+            assertEquals(2, movementRepository.count());
+
+            locationRepository.deleteById(removed.getId());
+            movementService.onDeviceHistoryDeleted(new DeviceHistoryDeletedEvent(
+                    "ESP32-001", testTime.plusMinutes(5), testTime.plusMinutes(15)));
+
+            assertEquals(0, movementRepository.count());
+            MovementSummary summary = movementService.getMovement("ESP32-001", testTime, testTime.plusHours(2));
+            assertEquals(2 * STEP_METERS, summary.distanceMeters(), 1e-6);
+        }
+
+        @Test
+        @DisplayName("異常系: fromがto以降の場合は例外が発生する")
+        void testGetMovement_InvalidRange() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> movementService.getMovement("ESP32-001", testTime, testTime));
+            assertEquals(0.0, movementService.getMovement("ESP32-999", testTime, testTime.plusHours(1))
+                    .distanceMeters());
+        }
+    }
+
+    private LocationMovementServiceImpl newService() {
+        return new LocationMovementServiceImpl(movementRepository, locationRepository,
+                new TieredLocationReader(jdbcRepository, SegmentStore.disabled(SiteTemplate.single())),
+                transactionManager, ShardTemplate.direct(), SiteTemplate.single(), 0.5, 300, 60, 3);
+    }
+
+    private void record(LocationData... points) {
+        for (LocationData point : points) {
+            locationRepository.save(point);
+        }
+        movementService.record(List.of(points));
+    }
+
+    private LocationData point(double latitude, LocalDateTime timestamp) {
+        return LocationData.builder()
+                .deviceId("ESP32-001")
+                .latitude(latitude)
+                .longitude(139.0)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.iotble.device.DeviceRegistry;
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.LocationRollup;
+import com.example.iotble.model.RollupResolution;
+import com.example.iotble.model.RollupStats;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+import com.example.iotble.repository.LocationRollupRepository;
+
+/**
+ * LocationRollupServiceのテスト
+ */
+@DataJpaTest
+@Import({ LocationJdbcRepository.class, DeviceRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LocationRollupService テスト")
+@SuppressWarnings("null")
+class LocationRollupServiceTest {
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationRollupRepository rollupRepository;
+
+    @Autowired
+    private LocationJdbcRepository jdbcRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LocationRollupServiceImpl rollupService;
+    private LocalDateTime testTime;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+        rollupService = new LocationRollupServiceImpl(
+                rollupRepository, locationRepository, jdbcRepository, transactionManager, ShardTemplate.direct(),
+                SiteTemplate.single(), SegmentStore.disabled(SiteTemplate.single()),
+                new TieredLocationReader(jdbcRepository, SegmentStore.disabled(SiteTemplate.single())), 60);
+    }
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        rollupRepository.deleteAllInBatch();
+        locationRepository.deleteAllInBatch();
+    }
+
+    /**
+     * 集計値のテスト
+     */
+    @Nested
+    @DisplayName("集計値の計算")
+    class StatsTests {
+
+        @Test
+        @DisplayName("正常系: 件数・平均位置・範囲・RSSI・精度を集計できる")
+        void testRecord_Stats() {
+            rollupService.record(List.of(
+                    location("ESP32-001", 35.0, 139.0, testTime.plusSeconds(5), -40, 5.0),
+                    location("ESP32-001", 36.0, 141.0, testTime.plusSeconds(30), -60, null),
+                    location("ESP32-001", 34.0, 140.0, testTime.plusSeconds(59), null, 15.0)));
+
+            List<LocationRollup> rollups = rollupService.getRollups(
+                    "ESP32-001", RollupResolution.MINUTE, testTime, testTime);
+
+            assertEquals(1, rollups.size());
+            RollupStats stats = rollups.get(0).getStats();
+            assertEquals(3L, stats.getPointCount());
+            assertEquals(35.0, stats.getMeanLatitude(), 1e-9);
+            assertEquals(140.0, stats.getMeanLongitude(), 1e-9);
+            assertEquals(34.0, stats.getMinLatitude());
+            assertEquals(36.0, stats.getMaxLatitude());
+            assertEquals(139.0, stats.getMinLongitude());
+            assertEquals(141.0, stats.getMaxLongitude());
+            assertEquals(-60, stats.getMinRssi());
+            assertEquals(-40, stats.getMaxRssi());
+            assertEquals(-50.0, stats.getAvgRssi(), 1e-9);
+            assertEquals(10.0, stats.getAvgAccuracy(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("正常系: 分単位と時間単位のバケットに振り分けられる")
+        void testRecord_Resolutions() {
+            rollupService.record(List.of(
+                    location("ESP32-001", 35.0, 139.0, testTime, null, null),
+                    location("ESP32-001", 35.0, 139.0, testTime.plusMinutes(1), null, null),
+                    location("ESP32-001", 35.0, 139.0, testTime.plusMinutes(61), null, null)));
+
+            List<LocationRollup> minutes = rollupService.getRollups(
+                    "ESP32-001", RollupResolution.MINUTE, testTime, testTime.plusHours(2));
+            List<LocationRollup> hours = rollupService.getRollups(
+                    "ESP32-001", RollupResolution.HOUR, testTime, testTime.plusHours(2));
+
+            assertEquals(3, minutes.size());
+            assertEquals(2, hours.size());
+            assertEquals(2L, hours.get(0).getStats().getPointCount());
+            assertEquals(testTime.plusHours(1), hours.get(1).getBucketStart());
+        }
+    }
+
+    /**
+     * 書き込みのテスト
+     */
+    @Nested
+    @DisplayName("閉じたバケットの書き込み")
+    class FlushTests {
+
+        @Test
+        @DisplayName("正常系: 閉じたバケットのみ書き込まれる")
+        void testFlush_OnlyClosedBuckets() {
+            rollupService.record(List.of(
+                    location("ESP32-001", 35.0, 139.0, testTime, null, null),
+                    location("ESP32-001", 35.0, 139.0, testTime.plusMinutes(1), null, null)));
+
+            int flushed = rollupService.flush(testTime.plusMinutes(1));
+
+            assertEquals(1, flushed);
+            assertEquals(1, rollupRepository.count());
+            assertEquals(2, rollupService.getRollups(
+                    "ESP32-001", RollupResolution.MINUTE, testTime, testTime.plusMinutes(1)).size());
+        }
+
+        @Test
+        @DisplayName("正常系: 書き込み済みのバケットに遅れて届いたデータがマージされる")
+        void testFlush_LateData() {
+            rollupService.record(List.of(location("ESP32-001", 35.0, 139.0, testTime, -50, null)));
+            rollupService.flush(testTime.plusHours(2));
+
+            rollupService.record(List.of(location("ESP32-001", 37.0, 141.0, testTime.plusSeconds(10), -70, null)));
+            assertEquals(2L, rollupService.getRollups(
+                    "ESP32-001", RollupResolution.MINUTE, testTime, testTime).get(0).getStats().getPointCount());
+            rollupService.flush(testTime.plusHours(2));
+
+            LocationRollup stored = rollupRepository.findByDeviceIdAndResolutionAndBucketStart(
+                    "ESP32-001", RollupResolution.MINUTE, testTime).orElseThrow();
+            assertEquals(2L, stored.getStats().getPointCount());
+            assertEquals(36.0, stored.getStats().getMeanLatitude(), 1e-9);
+            assertEquals(-70, stored.getStats().getMinRssi());
+            assertEquals(2, rollupRepository.count());
+        }
+    }
+
+    /**
+     * 削除イベントのテスト
+     */
+    @Nested
+    @DisplayName("削除イベントへの追従")
+    class DeletionTests {
+
+        @Test
+        @DisplayName("正常系: 全件削除で集計もすべて削除される")
+        void testOnLocationsDeleted_PurgedAll() {
+            rollupService.record(List.of(location("ESP32-001", 35.0, 139.0, testTime, null, null)));
+            rollupService.flush(testTime.plusHours(2));
+            rollupService.record(List.of(location("ESP32-002", 35.0, 139.0, testTime, null, null)));
+
+            rollupService.onLocationsDeleted(LocationsDeletedEvent.all());
+
+            assertEquals(0, rollupRepository.count());
+            assertTrue(rollupService.getRollups(
+                    "ESP32-002", RollupResolution.MINUTE, testTime, testTime).isEmpty());
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスの履歴削除で残りの生データから集計が再計算される")
+        void testOnDeviceHistoryDeleted_Rebuild() {
+            LocationData kept = saveRaw("ESP32-001", 35.0, 139.0, testTime.plusMinutes(10));
+            LocationData removed = saveRaw("ESP32-001", 36.0, 140.0, testTime.plusMinutes(20));
+            saveRaw("ESP32-002", 36.0, 140.0, testTime.plusMinutes(20));
+            rollupService.record(locationRepository.findAll());
+            rollupService.flush(testTime.plusHours(2));
+
+            locationRepository.deleteById(removed.getId());
+            rollupService.onDeviceHistoryDeleted(new DeviceHistoryDeletedEvent(
+                    "ESP32-001", testTime.plusMinutes(15), testTime.plusMinutes(25)));
+
+            LocationRollup hour = rollupRepository.findByDeviceIdAndResolutionAndBucketStart(
+                    "ESP32-001", RollupResolution.HOUR, testTime).orElseThrow();
+            assertEquals(1L, hour.getStats().getPointCount());
+            assertEquals(kept.getLatitude(), hour.getStats().getMeanLatitude(), 1e-9);
+            assertTrue(rollupRepository.findByDeviceIdAndResolutionAndBucketStart(
+                    "ESP32-001", RollupResolution.MINUTE, testTime.plusMinutes(20)).isEmpty());
+            assertEquals(1L, rollupRepository.findByDeviceIdAndResolutionAndBucketStart(
+                    "ESP32-002", RollupResolution.HOUR, testTime).orElseThrow().getStats().getPointCount());
+        }
+    }
+
+    /**
+     * ダウンサンプリングのテスト
+     */
+    @Nested
+    @DisplayName("保持期間のためのダウンサンプリング")
+    class DownsampleTests {
+
+        @Test
+        @DisplayName("正常系: 書き込み前のバケットが確定し、件数が一致するデバイスは再計算しない")
+        void testDownsample_FlushesPending() {
+            rollupService.record(List.of(
+                    saveRaw("ESP32-001", 35.0, 139.0, testTime.plusMinutes(1)),
+                    saveRaw("ESP32-001", 35.0, 139.0, testTime.plusHours(1).plusMinutes(1))));
+
+            int rebuilt = rollupService.downsample(testTime.plusHours(1));
+
+            assertEquals(0, rebuilt);
+            assertTrue(rollupRepository.findByDeviceIdAndResolutionAndBucketStart(
+                    "ESP32-001", RollupResolution.HOUR, testTime).isPresent());
+            assertTrue(rollupRepository.findByDeviceIdAndResolutionAndBucketStart(
+                    "ESP32-001", RollupResolution.HOUR, testTime.plusHours(1)).isEmpty());
+        }
+
+        @Test
+        @DisplayName("正常系: 集計に反映されていない生データがあるデバイスは再計算される")
+        void testDownsample_RebuildsMissingData() {
+            // 再起動などでメモリ上の集計が失われた状態を再現する
+            saveRaw("ESP32-001", 35.0, 139.0, testTime.plusMinutes(1));
+            saveRaw("ESP32-001", 37.0, 141.0, testTime.plusMinutes(2));
+
+            int rebuilt = rollupService.downsample(testTime.plusHours(1));
+
+            assertEquals(1, rebuilt);
+            LocationRollup hour = rollupRepository.findByDeviceIdAndResolutionAndBucketStart(
+                    "ESP32-001", RollupResolution.HOUR, testTime).orElseThrow();
+            assertEquals(2L, hour.getStats().getPointCount());
+            assertEquals(36.0, hour.getStats().getMeanLatitude(), 1e-9);
+            assertNull(hour.getStats().getAvgRssi());
+        }
+
+        @Test
+        @DisplayName("異常系: 時間単位に揃っていない境界は拒否される")
+        void testDownsample_UnalignedCutoff() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> rollupService.downsample(testTime.plusMinutes(30)));
+        }
+    }
+
+    private LocationData location(String deviceId, double latitude, double longitude, LocalDateTime timestamp,
+            Integer rssi, Double accuracy) {
+        return LocationData.builder()
+                .deviceId(deviceId)
+                .latitude(latitude)
+                .longitude(longitude)
+                .timestamp(timestamp)
+                .rssi(rssi)
+                .accuracy(accuracy)
+                .build();
+    }
+
+    private LocationData saveRaw(String deviceId, double latitude, double longitude, LocalDateTime timestamp) {
+        return locationRepository.save(location(deviceId, latitude, longitude, timestamp, null, null));
+    }
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
@@ -12,22 +13,38 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.iotble.core.IngestStage;
+import com.example.iotble.core.KalmanSmoother;
+import com.example.iotble.core.LocationIngestor;
+import com.example.iotble.core.LocationPoint;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
 import com.example.iotble.model.LocationData;
 import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.repository.ShardedLocationStore;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentStore;
+import com.example.iotble.util.DeviceLogSampler;
 
 /**
  * LocationServiceのユニットテスト
@@ -42,7 +59,24 @@ class LocationServiceTest {
     @Mock
     private LocationRepository locationRepository;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ShardTemplate shardTemplate = ShardTemplate.direct();
+
+    /** 保存前の処理に渡された位置情報 */
+    private final List<LocationPoint> processed = new ArrayList<>();
+
+    /** 保存前の処理として平滑化後の座標に受信した座標を設定する */
+    private final IngestStage recordingStage = point -> {
+        processed.add(point);
+        return point.toBuilder()
+                .smoothedLatitude(point.latitude())
+                .smoothedLongitude(point.longitude())
+                .build();
+    };
+
     private LocationServiceImpl locationService;
 
     private LocationData validLocation;
@@ -53,6 +87,7 @@ class LocationServiceTest {
      */
     @BeforeEach
     void setUp() {
+        locationService = serviceWithDuplicateWindow(0);
         testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
         validLocation = LocationData.builder()
                 .id(1L)
@@ -86,6 +121,44 @@ class LocationServiceTest {
             assertEquals(35.658581, saved.getLatitude());
             assertEquals(139.745433, saved.getLongitude());
             verify(locationRepository, times(1)).save(any(LocationData.class));
+            verify(eventPublisher).publishEvent(any(LocationsSavedEvent.class));
+        }
+
+        @Test
+        @DisplayName("正常系: タイムスタンプを設定してから保存前の処理を適用する")
+        void testSaveLocation_AppliesPipeline() {
+            LocationData location = LocationData.builder()
+                    .deviceId("ESP32-001")
+                    .latitude(35.658581)
+                    .longitude(139.745433)
+                    .build();
+            when(locationRepository.save(any(LocationData.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            LocationData saved = locationService.saveLocation(location);
+
+            assertEquals(1, processed.size());
+            assertNotNull(processed.get(0).timestamp(), "保存前の処理にはタイムスタンプを設定して渡すべき");
+            assertEquals(35.658581, saved.getSmoothedLatitude());
+            assertEquals(139.745433, saved.getSmoothedLongitude());
+            assertNotNull(saved.getTimestamp());
+        }
+
+        @Test
+        @DisplayName("正常系: 平滑化した座標はエンティティに設定して保存する")
+        void testSaveLocation_Smoothed() {
+            LocationIngestor ingestor = new LocationIngestor(
+                    new ShardedLocationStore(locationRepository, shardTemplate, SiteTemplate.single()),
+                    List.of(new KalmanSmoother(1.0, 25.0, -60, 16.0)), 0);
+            locationService = new LocationServiceImpl(locationRepository, eventPublisher, shardTemplate,
+                    SiteTemplate.single(), ingestor, DeviceLogSampler.unsampled(),
+                    SegmentStore.disabled(SiteTemplate.single()));
+            when(locationRepository.save(any(LocationData.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            LocationData saved = locationService.saveLocation(validLocation);
+
+            assertEquals(35.658581, saved.getLatitude());
+            assertEquals(35.658581, saved.getSmoothedLatitude());
+            assertEquals(139.745433, saved.getSmoothedLongitude());
         }
 
         @Test
@@ -196,6 +269,67 @@ class LocationServiceTest {
             assertNull(saved.getAccuracy());
             assertNull(saved.getRssi());
         }
+        @Test
+        @DisplayName("正常系: 直近に保存した位置情報と同じ位置情報は保存せず先に保存した位置情報を返す")
+        void testSaveLocation_Duplicate() {
+            locationService = serviceWithDuplicateWindow(4);
+            when(locationRepository.save(any(LocationData.class))).thenAnswer(invocation -> {
+                LocationData arg = invocation.getArgument(0);
+                arg.setId(10L);
+                return arg;
+            });
+
+            LocationData first = locationService.saveLocation(LocationData.builder()
+                    .deviceId("ESP32-001").latitude(35.658581).longitude(139.745433).timestamp(testTime).build());
+            LocationData resent = locationService.saveLocation(LocationData.builder()
+                    .deviceId("ESP32-001").latitude(35.658581).longitude(139.745433).timestamp(testTime).build());
+
+            assertEquals(10L, first.getId());
+            assertEquals(10L, resent.getId());
+            verify(locationRepository, times(1)).save(any(LocationData.class));
+            verify(eventPublisher, times(1)).publishEvent(any(LocationsSavedEvent.class));
+        }
+
+        @Test
+        @DisplayName("正常系: ロールバックしたトランザクションで保存した位置情報の再送は重複とみなさない")
+        void testSaveLocation_DuplicateAfterRollback() {
+            locationService = serviceWithDuplicateWindow(4);
+            when(locationRepository.save(any(LocationData.class))).thenAnswer(invocation -> {
+                LocationData arg = invocation.getArgument(0);
+                arg.setId(10L);
+                return arg;
+            });
+
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                locationService.saveLocation(LocationData.builder()
+                        .deviceId("ESP32-001").latitude(35.658581).longitude(139.745433).timestamp(testTime).build());
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            locationService.saveLocation(LocationData.builder()
+                    .deviceId("ESP32-001").latitude(35.658581).longitude(139.745433).timestamp(testTime).build());
+
+            verify(locationRepository, times(2)).save(any(LocationData.class));
+        }
+
+        @Test
+        @DisplayName("異常系: 緯度が範囲外の位置情報は保存せず例外を投げる")
+        void testSaveLocation_LatitudeOutOfRange() {
+            LocationData invalid = LocationData.builder()
+                    .deviceId("ESP32-001")
+                    .latitude(90.5)
+                    .longitude(139.745433)
+                    .timestamp(testTime)
+                    .build();
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> locationService.saveLocation(invalid));
+
+            assertTrue(e.getMessage().contains("緯度"));
+            verify(locationRepository, never()).save(any(LocationData.class));
+            verify(eventPublisher, never()).publishEvent(any());
+        }
     }
 
     /**
@@ -209,26 +343,26 @@ class LocationServiceTest {
         @DisplayName("正常系: 全位置情報を取得できる")
         void testGetAllLocations_Success() {
             List<LocationData> locations = Arrays.asList(validLocation);
-            when(locationRepository.findAll()).thenReturn(locations);
+            when(locationRepository.findAllByOrderByTimestampDescIdDesc()).thenReturn(locations);
 
             List<LocationData> result = locationService.getAllLocations();
 
             assertNotNull(result);
             assertEquals(1, result.size());
             assertEquals("ESP32-001", result.get(0).getDeviceId());
-            verify(locationRepository, times(1)).findAll();
+            verify(locationRepository, times(1)).findAllByOrderByTimestampDescIdDesc();
         }
 
         @Test
         @DisplayName("エッジケース: データが0件の場合空リストを返す")
         void testGetAllLocations_EmptyList() {
-            when(locationRepository.findAll()).thenReturn(Collections.emptyList());
+            when(locationRepository.findAllByOrderByTimestampDescIdDesc()).thenReturn(Collections.emptyList());
 
             List<LocationData> result = locationService.getAllLocations();
 
             assertNotNull(result);
             assertTrue(result.isEmpty());
-            verify(locationRepository, times(1)).findAll();
+            verify(locationRepository, times(1)).findAllByOrderByTimestampDescIdDesc();
         }
 
         @Test
@@ -243,7 +377,7 @@ class LocationServiceTest {
                     .build();
 
             List<LocationData> locations = Arrays.asList(validLocation, location2);
-            when(locationRepository.findAll()).thenReturn(locations);
+            when(locationRepository.findAllByOrderByTimestampDescIdDesc()).thenReturn(locations);
 
             List<LocationData> result = locationService.getAllLocations();
 
@@ -377,6 +511,7 @@ class LocationServiceTest {
             assertTrue(result);
             verify(locationRepository, times(1)).existsById(1L);
             verify(locationRepository, times(1)).deleteById(1L);
+            verify(eventPublisher).publishEvent(LocationsDeletedEvent.of(List.of(1L), Set.of()));
         }
 
         @Test
@@ -403,6 +538,24 @@ class LocationServiceTest {
         }
     }
 
+    /**
+     * deleteAllLocations のテスト
+     */
+    @Nested
+    @DisplayName("全件削除")
+    class DeleteAllLocationsTests {
+
+        @Test
+        @DisplayName("正常系: 一括DELETEで削除し全件削除イベントを発行する")
+        void testDeleteAllLocations_UsesBatchDelete() {
+            locationService.deleteAllLocations();
+
+            verify(locationRepository, times(1)).deleteAllInBatch();
+            verify(locationRepository, never()).deleteAll();
+            verify(eventPublisher, times(1)).publishEvent(LocationsDeletedEvent.all());
+        }
+    }
+
     /**
      * getDeviceCount のテスト
      */
@@ -560,4 +713,65 @@ class LocationServiceTest {
             assertNotNull(result);
         }
     }
+
+    /**
+     * getLocationsByDeviceAndTimeRange のテスト
+     */
+    @Nested
+    @DisplayName("デバイス別期間指定位置情報取得")
+    class GetLocationsByDeviceAndTimeRangeTests {
+
+        @Test
+        @DisplayName("正常系: 新しい順の指定で降順の検索を件数の上限付きで呼び出す")
+        void testGetLocationsByDeviceAndTimeRange_NewestFirst() {
+            LocalDateTime startTime = testTime.minusHours(1);
+            LocalDateTime endTime = testTime.plusHours(1);
+            when(locationRepository.findDeviceRangeNewestFirst("ESP32-001", startTime, endTime, Limit.of(10)))
+                    .thenReturn(List.of(validLocation));
+
+            List<LocationData> result = locationService
+                    .getLocationsByDeviceAndTimeRange("ESP32-001", startTime, endTime, true, 10);
+
+            assertEquals(List.of(validLocation), result);
+            verify(locationRepository, never()).findDeviceRangeOldestFirst(any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("正常系: 古い順の指定で昇順の検索を呼び出す")
+        void testGetLocationsByDeviceAndTimeRange_OldestFirst() {
+            when(locationRepository.findDeviceRangeOldestFirst("ESP32-001", testTime, testTime, Limit.of(1)))
+                    .thenReturn(List.of(validLocation));
+
+            List<LocationData> result = locationService
+                    .getLocationsByDeviceAndTimeRange("ESP32-001", testTime, testTime, false, 1);
+
+            assertEquals(List.of(validLocation), result);
+            verify(locationRepository, never()).findDeviceRangeNewestFirst(any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("異常系: 開始時刻が終了時刻より後の場合は例外")
+        void testGetLocationsByDeviceAndTimeRange_InvalidRange() {
+            assertThrows(IllegalArgumentException.class, () -> locationService
+                    .getLocationsByDeviceAndTimeRange("ESP32-001", testTime, testTime.minusSeconds(1), true, 10));
+        }
+
+        @Test
+        @DisplayName("境界値: 件数が1未満または上限を超える場合は例外")
+        void testGetLocationsByDeviceAndTimeRange_InvalidLimit() {
+            assertThrows(IllegalArgumentException.class, () -> locationService
+                    .getLocationsByDeviceAndTimeRange("ESP32-001", testTime, testTime, true, 0));
+            assertThrows(IllegalArgumentException.class, () -> locationService
+                    .getLocationsByDeviceAndTimeRange("ESP32-001", testTime, testTime, true,
+                            LocationServiceImpl.MAX_RANGE_LIMIT + 1));
+        }
+    }
+
+    private LocationServiceImpl serviceWithDuplicateWindow(int duplicateWindow) {
+        LocationIngestor ingestor = new LocationIngestor(
+                new ShardedLocationStore(locationRepository, shardTemplate, SiteTemplate.single()),
+                List.of(recordingStage), duplicateWindow);
+        return new LocationServiceImpl(locationRepository, eventPublisher, shardTemplate, SiteTemplate.single(),
+                ingestor, DeviceLogSampler.unsampled(), SegmentStore.disabled(SiteTemplate.single()));
+    }
 }
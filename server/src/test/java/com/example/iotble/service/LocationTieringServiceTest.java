@@ -0,0 +1,266 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.iotble.config.TieringProperties;
+import com.example.iotble.core.LocationIngestor;
+import com.example.iotble.device.DeviceRegistry;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.repository.ShardedLocationStore;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.tier.SegmentInfo;
+import com.example.iotble.tier.SegmentStore;
+import com.example.iotble.util.DeviceLogSampler;
+
+/**
+ * LocationTieringServiceのテスト
+ */
+@DataJpaTest
+@Import({ LocationJdbcRepository.class, DeviceRegistry.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("LocationTieringService テスト")
+@SuppressWarnings("null")
+class LocationTieringServiceTest {
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private LocationJdbcRepository jdbcRepository;
+
+    @TempDir
+    Path directory;
+
+    private SegmentStore segmentStore;
+
+    private LocationTieringServiceImpl tieringService;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 1, 10, 12, 30);
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        segmentStore = new SegmentStore(directory, Deflater.DEFAULT_COMPRESSION, SiteTemplate.single());
+        tieringService = service(7, 24);
+    }
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        locationRepository.deleteAllInBatch();
+    }
+
+    /**
+     * 封印のテスト
+     */
+    @Nested
+    @DisplayName("封印")
+    class SealTests {
+
+        @Test
+        @DisplayName("正常系: 境界より前の位置情報がセグメントの期間ごとに封印され、データベースから削除される")
+        void testSeal_MovesOldLocations() {
+            save("ESP32-001", LocalDateTime.of(2025, 1, 1, 10, 0));
+            save("ESP32-002", LocalDateTime.of(2025, 1, 1, 23, 59));
+            save("ESP32-001", LocalDateTime.of(2025, 1, 2, 1, 0));
+            save("ESP32-001", LocalDateTime.of(2025, 1, 3, 12, 0));
+            save("ESP32-001", LocalDateTime.of(2025, 1, 9, 0, 0));
+
+            SealReport report = tieringService.seal(now).orElseThrow();
+
+            assertEquals(LocalDateTime.of(2025, 1, 3, 12, 0), report.sealedBefore());
+            assertEquals(2, report.segments());
+            assertEquals(3, report.sealedLocations());
+            assertEquals(2, locationRepository.count());
+            List<SegmentInfo> segments = tieringService.getSegments();
+            assertEquals(2, segments.size());
+            assertEquals(2, segments.get(0).deviceCount());
+            assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), segments.get(0).minTimestamp());
+            List<LocationData> cold = new ArrayList<>();
+            segmentStore.stream("ESP32-001", null, null, true, cold::add);
+            assertEquals(2, cold.size());
+        }
+
+        @Test
+        @DisplayName("正常系: 封印済みの期間に遅れて届いた位置情報は追加のセグメントになる")
+        void testSeal_LateArrival() {
+            save("ESP32-001", LocalDateTime.of(2025, 1, 1, 10, 0));
+            tieringService.seal(now);
+
+            save("ESP32-001", LocalDateTime.of(2025, 1, 1, 11, 0));
+            SealReport report = tieringService.seal(now).orElseThrow();
+
+            assertEquals(1, report.segments());
+            assertEquals(2, tieringService.getSegments().size());
+            assertEquals(0, locationRepository.count());
+        }
+
+        @Test
+        @DisplayName("境界値: 境界より前の位置情報がない場合はセグメントを作成しない")
+        void testSeal_NothingToSeal() {
+            save("ESP32-001", LocalDateTime.of(2025, 1, 3, 12, 0));
+
+            SealReport report = tieringService.seal(now).orElseThrow();
+
+            assertEquals(0, report.segments());
+            assertEquals(1, locationRepository.count());
+            assertTrue(tieringService.getSegments().isEmpty());
+        }
+
+        @Test
+        @DisplayName("正常系: セグメントの期間は時間単位でエポックから揃えられる")
+        void testSeal_AlignsPeriods() {
+            tieringService = service(7, 6);
+            save("ESP32-001", LocalDateTime.of(2025, 1, 1, 5, 59));
+            save("ESP32-001", LocalDateTime.of(2025, 1, 1, 6, 0));
+
+            SealReport report = tieringService.seal(now).orElseThrow();
+
+            assertEquals(2, report.segments());
+        }
+
+        @Test
+        @DisplayName("エッジケース: データベースに残す日数が0の場合は封印しない")
+        void testSeal_Disabled() {
+            save("ESP32-001", LocalDateTime.of(2025, 1, 1, 10, 0));
+
+            assertTrue(service(0, 24).seal(now).isEmpty());
+            assertEquals(1, locationRepository.count());
+        }
+
+        @Test
+        @DisplayName("異常系: セグメントの期間が0以下の場合は例外")
+        void testInvalidSegmentHours() {
+            assertThrows(IllegalArgumentException.class, () -> service(7, 0));
+        }
+    }
+
+    /**
+     * 封印済みの位置情報の読み書きのテスト
+     */
+    @Nested
+    @DisplayName("封印済みの位置情報")
+    class SealedLocationTests {
+
+        @Test
+        @DisplayName("正常系: 封印済みの位置情報もIDで取得・削除でき、削除後は読み出されない")
+        void testGetAndDeleteById() {
+            LocationData sealed = save("ESP32-001", LocalDateTime.of(2025, 1, 1, 10, 0));
+            save("ESP32-001", LocalDateTime.of(2025, 1, 1, 11, 0));
+            tieringService.seal(now);
+            List<Object> events = new ArrayList<>();
+            LocationServiceImpl locationService = locationService(events);
+
+            assertEquals(sealed.getTimestamp(), locationService.getLocationById(sealed.getId()).orElseThrow()
+                    .getTimestamp());
+            assertTrue(locationService.deleteLocation(sealed.getId()));
+
+            assertTrue(locationService.getLocationById(sealed.getId()).isEmpty());
+            assertFalse(locationService.deleteLocation(sealed.getId()));
+            assertEquals(1, locationService.getLocationCount());
+            assertEquals(List.of(LocationsDeletedEvent.of(List.of(sealed.getId()), Set.of())), events);
+        }
+
+        @Test
+        @DisplayName("正常系: 履歴がすべて封印されたデバイスもデバイス数に含め、両方にあるデバイスは1回だけ数える")
+        void testDeviceCount() {
+            save("ESP32-001", LocalDateTime.of(2025, 1, 1, 10, 0));
+            save("ESP32-001", LocalDateTime.of(2025, 1, 9, 0, 0));
+            save("ESP32-002", LocalDateTime.of(2025, 1, 1, 11, 0));
+            tieringService.seal(now);
+            LocationServiceImpl locationService = locationService(new ArrayList<>());
+
+            assertEquals(1, locationRepository.count());
+            assertEquals(2, locationService.getDeviceCount());
+            assertEquals(3, locationService.getLocationCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 期間の読み出しはデータベースとセグメントを時刻順に併合し、両方にある行は1回だけ返す")
+        void testTieredReader() {
+            LocationData first = save("ESP32-001", LocalDateTime.of(2025, 1, 1, 10, 0));
+            LocationData coldOnly = save("ESP32-002", LocalDateTime.of(2025, 1, 1, 12, 0));
+            LocationData second = save("ESP32-001", LocalDateTime.of(2025, 1, 2, 1, 0));
+            LocationData hot = save("ESP32-001", LocalDateTime.of(2025, 1, 9, 0, 0));
+            tieringService.seal(now);
+            // 封印の途中（セグメントを書いてデータベースから削除する前）の行
+            LocationData sealing = save("ESP32-001", LocalDateTime.of(2025, 1, 2, 2, 0));
+            segmentStore.write(LocalDateTime.of(2025, 1, 2, 0, 0), LocalDateTime.of(2025, 1, 3, 0, 0),
+                    sink -> sink.accept(sealing));
+            TieredLocationReader reader = new TieredLocationReader(jdbcRepository, segmentStore);
+
+            List<Long> ids = new ArrayList<>();
+            reader.streamByTimeRange(LocalDateTime.of(2025, 1, 1, 0, 0), now, false, null,
+                    location -> ids.add(location.getId()));
+            assertEquals(List.of(first.getId(), coldOnly.getId(), second.getId(), sealing.getId(), hot.getId()), ids);
+
+            List<Long> latest = new ArrayList<>();
+            reader.streamLatestPerDeviceAsOf(LocalDateTime.of(2025, 1, 5, 0, 0),
+                    location -> latest.add(location.getId()));
+            assertEquals(Set.of(sealing.getId(), coldOnly.getId()), Set.copyOf(latest));
+            assertEquals(2, latest.size());
+
+            LocalDateTime[] bounds = reader.findTimestampBounds(null).orElseThrow();
+            assertEquals(first.getTimestamp(), bounds[0]);
+            assertEquals(hot.getTimestamp(), bounds[1]);
+            assertEquals(coldOnly.getTimestamp(), reader.findTimestampBounds("ESP32-002").orElseThrow()[1]);
+        }
+    }
+
+    private LocationServiceImpl locationService(List<Object> events) {
+        return new LocationServiceImpl(locationRepository, events::add, ShardTemplate.direct(),
+                SiteTemplate.single(),
+                new LocationIngestor(new ShardedLocationStore(locationRepository, ShardTemplate.direct(),
+                        SiteTemplate.single()), List.of(), 0),
+                DeviceLogSampler.unsampled(), segmentStore);
+    }
+
+    private LocationTieringServiceImpl service(int hotDays, int segmentHours) {
+        TieringProperties properties = new TieringProperties();
+        properties.setDirectory(directory.toString());
+        properties.setHotDays(hotDays);
+        properties.setSegmentHours(segmentHours);
+        properties.setDeleteChunkSize(2);
+        return new LocationTieringServiceImpl(jdbcRepository, segmentStore, ShardTemplate.direct(),
+                SiteTemplate.single(), properties);
+    }
+
+    private LocationData save(String deviceId, LocalDateTime timestamp) {
+        return locationRepository.save(LocationData.builder()
+                .deviceId(deviceId)
+                .latitude(35.0)
+                .longitude(139.0)
+                .timestamp(timestamp)
+                .build());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.site.SiteTemplate;
+
+/**
+ * LocationVersionTrackerのユニットテスト
+ */
+@DisplayName("LocationVersionTracker テスト")
+class LocationVersionTrackerTest {
+
+    private final LocationVersionTracker tracker = new LocationVersionTracker(SiteTemplate.single());
+
+    /**
+     * バージョンの更新のテスト
+     */
+    @Nested
+    @DisplayName("バージョンの更新")
+    class VersionTests {
+
+        @Test
+        @DisplayName("正常系: 保存されたデバイスと全体のバージョンだけが更新される")
+        void testSaved_UpdatesDevice() {
+            long global = tracker.getGlobalVersion();
+            long other = tracker.getDeviceVersion("ESP32-002");
+
+            tracker.onLocationsSaved(LocationsSavedEvent.of(location("ESP32-001")));
+
+            assertTrue(tracker.getGlobalVersion() > global);
+            assertEquals(tracker.getGlobalVersion(), tracker.getDeviceVersion("ESP32-001"));
+            assertEquals(other, tracker.getDeviceVersion("ESP32-002"));
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスの分からない削除や全件削除ではすべてのデバイスが更新される")
+        void testDeleted_UpdatesAllDevices() {
+            tracker.onLocationsSaved(LocationsSavedEvent.of(location("ESP32-001")));
+            long before = tracker.getDeviceVersion("ESP32-002");
+
+            tracker.onLocationsDeleted(LocationsDeletedEvent.of(List.of(1L), Set.of()));
+            assertTrue(tracker.getDeviceVersion("ESP32-001") > before);
+            assertTrue(tracker.getDeviceVersion("ESP32-002") > before);
+
+            long afterDelete = tracker.getDeviceVersion("ESP32-001");
+            tracker.onLocationsDeleted(LocationsDeletedEvent.all());
+            assertTrue(tracker.getDeviceVersion("ESP32-001") > afterDelete);
+        }
+
+        @Test
+        @DisplayName("正常系: 履歴の一括削除ではそのデバイスのバージョンが更新される")
+        void testDeviceHistoryDeleted() {
+            long other = tracker.getDeviceVersion("ESP32-002");
+
+            tracker.onDeviceHistoryDeleted(new DeviceHistoryDeletedEvent("ESP32-001", null, null));
+
+            assertEquals(tracker.getGlobalVersion(), tracker.getDeviceVersion("ESP32-001"));
+            assertEquals(other, tracker.getDeviceVersion("ESP32-002"));
+        }
+    }
+
+    private static LocationData location(String deviceId) {
+        return LocationData.builder()
+                .deviceId(deviceId)
+                .latitude(35.0)
+                .longitude(139.0)
+                .timestamp(LocalDateTime.of(2025, 1, 1, 12, 0))
+                .build();
+    }
+}
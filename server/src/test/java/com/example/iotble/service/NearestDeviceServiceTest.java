@@ -0,0 +1,196 @@
+package com.example.iotble.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.iotble.event.DeviceHistoryDeletedEvent;
+import com.example.iotble.event.LocationsDeletedEvent;
+import com.example.iotble.event.LocationsSavedEvent;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.NearbyDevice;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.repository.LocationRepository;
+import com.example.iotble.shard.ShardTemplate;
+import com.example.iotble.site.SiteTemplate;
+import com.example.iotble.spatial.DevicePositionIndex;
+
+/**
+ * NearestDeviceServiceのユニットテスト
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NearestDeviceService テスト")
+@SuppressWarnings("null")
+class NearestDeviceServiceTest {
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    @Mock
+    private LocationJdbcRepository locationJdbcRepository;
+
+    private NearestDeviceServiceImpl nearestDeviceService;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        nearestDeviceService = new NearestDeviceServiceImpl(locationRepository, locationJdbcRepository,
+                ShardTemplate.direct(), SiteTemplate.single().local(DevicePositionIndex::new));
+    }
+
+    /**
+     * 検索のテスト
+     */
+    @Nested
+    @DisplayName("近くのデバイスの検索")
+    class FindNearestTests {
+
+        @Test
+        @DisplayName("正常系: 保存されたデバイスが近い順に返される")
+        void testFindNearest_Ordered() {
+            nearestDeviceService.onLocationsSaved(new LocationsSavedEvent(List.of(
+                    location(1L, "FAR", 35.1, 139.0, now),
+                    location(2L, "NEAR", 35.001, 139.0, now),
+                    location(3L, "MIDDLE", 35.01, 139.0, now))));
+
+            List<NearbyDevice> result = nearestDeviceService.findNearest(35.0, 139.0, 2, null);
+
+            assertEquals(List.of("NEAR", "MIDDLE"), result.stream().map(NearbyDevice::deviceId).toList());
+            assertEquals(111.2, result.get(0).distanceMeters(), 0.1);
+        }
+
+        @Test
+        @DisplayName("正常系: 平滑化された位置情報は平滑化後の座標で検索される")
+        void testFindNearest_Smoothed() {
+            LocationData smoothed = location(1L, "ESP32-001", 36.0, 139.0, now);
+            smoothed.setSmoothedLatitude(35.0);
+            smoothed.setSmoothedLongitude(139.0);
+            nearestDeviceService.onLocationsSaved(LocationsSavedEvent.of(smoothed));
+
+            NearbyDevice result = nearestDeviceService.findNearest(35.0, 139.0, 1, null).get(0);
+
+            assertEquals(35.0, result.latitude());
+            assertEquals(0.0, result.distanceMeters(), 1e-6);
+        }
+
+        @Test
+        @DisplayName("正常系: 経過秒数の上限より古い位置のデバイスは除外される")
+        void testFindNearest_MaxAge() {
+            nearestDeviceService.onLocationsSaved(new LocationsSavedEvent(List.of(
+                    location(1L, "STALE", 35.0, 139.0, now.minusMinutes(10)),
+                    location(2L, "FRESH", 35.5, 139.0, now))));
+
+            List<NearbyDevice> result = nearestDeviceService.findNearest(35.0, 139.0, 5, 60L);
+
+            assertEquals(List.of("FRESH"), result.stream().map(NearbyDevice::deviceId).toList());
+        }
+
+        @Test
+        @DisplayName("異常系: 検索条件が範囲外の場合は例外になる")
+        void testFindNearest_InvalidArguments() {
+            assertThrows(IllegalArgumentException.class, () -> nearestDeviceService.findNearest(91, 0, 1, null));
+            assertThrows(IllegalArgumentException.class, () -> nearestDeviceService.findNearest(0, 181, 1, null));
+            assertThrows(IllegalArgumentException.class, () -> nearestDeviceService.findNearest(0, 0, 0, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> nearestDeviceService.findNearest(0, 0, NearestDeviceServiceImpl.MAX_K + 1, null));
+            assertThrows(IllegalArgumentException.class, () -> nearestDeviceService.findNearest(0, 0, 1, 0L));
+            assertThrows(IllegalArgumentException.class,
+                    () -> nearestDeviceService.findNearest(Double.NaN, 0, 1, null));
+        }
+    }
+
+    /**
+     * インデックスの更新のテスト
+     */
+    @Nested
+    @DisplayName("インデックスの更新")
+    class IndexUpdateTests {
+
+        @Test
+        @DisplayName("正常系: 起動時に保存されている最新の位置情報から作成される")
+        void testRebuildIndex() {
+            doAnswer(invocation -> {
+                Consumer<LocationData> consumer = invocation.getArgument(0);
+                consumer.accept(location(1L, "ESP32-001", 35.0, 139.0, now));
+                consumer.accept(location(2L, "ESP32-002", 35.1, 139.0, now));
+                return null;
+            }).when(locationJdbcRepository).streamLatestPerDevice(any());
+
+            assertEquals(2, nearestDeviceService.rebuildIndex());
+            assertEquals(2, nearestDeviceService.getIndexedDeviceCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 現在位置が削除されたデバイスは残っている最新の位置に戻る")
+        void testDeleted_ReloadsLatest() {
+            nearestDeviceService.onLocationsSaved(LocationsSavedEvent.of(location(2L, "ESP32-001", 35.5, 139.0, now)));
+            when(locationRepository.findLatestByDeviceId("ESP32-001"))
+                    .thenReturn(Optional.of(location(1L, "ESP32-001", 35.0, 139.0, now.minusMinutes(1))));
+
+            nearestDeviceService.onLocationsDeleted(LocationsDeletedEvent.of(List.of(2L), Set.of()));
+
+            NearbyDevice result = nearestDeviceService.findNearest(35.0, 139.0, 1, null).get(0);
+            assertEquals(1L, result.locationId());
+        }
+
+        @Test
+        @DisplayName("正常系: 現在位置以外の削除では読み出しを行わない")
+        void testDeleted_OtherLocation() {
+            nearestDeviceService.onLocationsSaved(LocationsSavedEvent.of(location(2L, "ESP32-001", 35.5, 139.0, now)));
+
+            nearestDeviceService.onLocationsDeleted(LocationsDeletedEvent.of(List.of(1L), Set.of()));
+
+            verify(locationRepository, never()).findLatestByDeviceId(any());
+            assertEquals(1, nearestDeviceService.getIndexedDeviceCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 履歴がすべて削除されたデバイスや全件削除ではインデックスから外れる")
+        void testDeleted_RemovesDevice() {
+            nearestDeviceService.onLocationsSaved(new LocationsSavedEvent(List.of(
+                    location(1L, "ESP32-001", 35.0, 139.0, now),
+                    location(2L, "ESP32-002", 35.1, 139.0, now))));
+            when(locationRepository.findLatestByDeviceId("ESP32-001")).thenReturn(Optional.empty());
+
+            nearestDeviceService.onDeviceHistoryDeleted(new DeviceHistoryDeletedEvent("ESP32-001", null, null));
+            assertEquals(1, nearestDeviceService.getIndexedDeviceCount());
+
+            nearestDeviceService.onLocationsDeleted(LocationsDeletedEvent.all());
+            assertTrue(nearestDeviceService.findNearest(35.0, 139.0, 5, null).isEmpty());
+        }
+    }
+
+    private static LocationData location(Long id, String deviceId, double latitude, double longitude,
+            LocalDateTime timestamp) {
+        return LocationData.builder()
+                .id(id)
+                .deviceId(deviceId)
+                .latitude(latitude)
+                .longitude(longitude)
+                .timestamp(timestamp)
+                .build();
+    }
+}
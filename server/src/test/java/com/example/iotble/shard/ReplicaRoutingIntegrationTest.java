@@ -0,0 +1,261 @@
+package com.example.iotble.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.iotble.device.DeviceRegistry;
+import com.example.iotble.model.LocationData;
+import com.example.iotble.service.LocationService;
+import com.example.iotble.web.ConditionalGetFilter;
+
+/**
+ * 読み取りレプリカへの振り分けの結合テスト
+ *
+ * 2つ目のH2データベースをレプリカとして使用し、テストからプライマリの内容を複製して同期させます。
+ * どちらから読み出したかは、レプリカにだけ登録した位置情報が見えるかどうかで判定します
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:replica-test-primary",
+        "iotble.replica.enabled=true",
+        "iotble.replica.url=jdbc:h2:mem:replica-test-replica;DB_CLOSE_DELAY=-1",
+        "iotble.replica.username=sa",
+        "iotble.replica.read-your-writes-millis=60000",
+        "iotble.replica.max-lag-millis=60000",
+        "iotble.replica.heartbeat-interval-ms=3600000"
+})
+@DisplayName("レプリカ振り分け 結合テスト")
+@SuppressWarnings("null")
+class ReplicaRoutingIntegrationTest {
+
+    private static final String REPLICA_ONLY_DEVICE = "REPLICA-ONLY";
+
+    @Autowired
+    private LocationService locationService;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Autowired
+    private ReplicaSelector replicaSelector;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private FilterRegistrationBean<ConditionalGetFilter> conditionalGetFilter;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(shardTemplate.getDataSource(ShardTemplate.DEFAULT_SHARD));
+        replica = new JdbcTemplate(replicaSelector.getReplica(ShardTemplate.DEFAULT_SHARD));
+    }
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        locationService.deleteAllLocations();
+    }
+
+    /**
+     * デバイスをまたぐ読み出しのテスト
+     */
+    @Nested
+    @DisplayName("読み取り専用の処理")
+    class ReadOnlyTests {
+
+        @Test
+        @DisplayName("正常系: 読み取り専用の処理は同期済みのレプリカから読み出される")
+        void testReadOnly_ServedByReplica() throws SQLException {
+            saveLocations("SENSOR-A", 3);
+            synchronizeReplica();
+            insertReplicaOnly(REPLICA_ONLY_DEVICE);
+
+            assertEquals(3, primary.queryForObject("SELECT COUNT(*) FROM location_data", Long.class));
+            assertEquals(4, locationService.getLocationCount());
+            assertEquals(4, locationService.getAllLocations().size());
+            assertTrue(locationService.getRecentLocations().stream()
+                    .anyMatch(location -> REPLICA_ONLY_DEVICE.equals(location.getDeviceId())));
+        }
+
+        @Test
+        @DisplayName("正常系: 書き込みトランザクション内の読み出しはプライマリで行われる")
+        void testWrite_ReadsPrimary() throws SQLException {
+            synchronizeReplica();
+            LocationData saved = saveLocations("SENSOR-B", 1).get(0);
+
+            assertTrue(locationService.deleteLocation(saved.getId()));
+            assertEquals(0, primary.queryForObject("SELECT COUNT(*) FROM location_data", Long.class));
+        }
+    }
+
+    /**
+     * ETagを付ける応答のテスト
+     */
+    @Nested
+    @DisplayName("条件付きGET")
+    class ConditionalGetTests {
+
+        @Test
+        @DisplayName("正常系: ETagを付ける応答はレプリカに未反映の書き込みも含めてプライマリから読み出される")
+        void testConditionalGet_ReadsPrimary() throws Exception {
+            synchronizeReplica();
+            insertReplicaOnly(REPLICA_ONLY_DEVICE);
+            saveLocations("SENSOR-F", 2);
+            List<Long> counts = new ArrayList<>();
+
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            conditionalGetFilter.getFilter().doFilter(new MockHttpServletRequest("GET", "/api/stats"), response,
+                    (request, ignored) -> counts.add(locationService.getLocationCount()));
+
+            assertNotNull(response.getHeader(HttpHeaders.ETAG));
+            assertEquals(List.of(2L), counts);
+            assertEquals(1, locationService.getLocationCount());
+        }
+    }
+
+    /**
+     * レプリカの遅延による切り替えのテスト
+     */
+    @Nested
+    @DisplayName("遅延による切り替え")
+    class LagTests {
+
+        @Test
+        @DisplayName("正常系: レプリカの遅延が上限を超えるとプライマリから読み出される")
+        void testLag_FallsBackToPrimary() throws SQLException {
+            saveLocations("SENSOR-C", 2);
+            synchronizeReplica();
+            insertReplicaOnly(REPLICA_ONLY_DEVICE);
+            assertEquals(3, locationService.getLocationCount());
+
+            // レプリカへの複製が1時間止まっている状態を再現する
+            replica.update("UPDATE replica_heartbeat SET beat_at = DATEADD('HOUR', -1, beat_at)");
+            replicaSelector.checkLag();
+
+            assertTrue(replicaSelector.getLagMillis(ShardTemplate.DEFAULT_SHARD).orElseThrow() > 60000);
+            assertEquals(2, locationService.getLocationCount());
+
+            synchronizeReplica();
+            assertTrue(replicaSelector.useReplica(ShardTemplate.DEFAULT_SHARD, null));
+        }
+
+        @Test
+        @DisplayName("異常系: レプリカのハートビートを読み出せない場合はプライマリから読み出される")
+        void testLag_Unmeasurable() throws SQLException {
+            synchronizeReplica();
+            replica.execute("DROP TABLE replica_heartbeat");
+            replicaSelector.checkLag();
+
+            assertTrue(replicaSelector.getLagMillis(ShardTemplate.DEFAULT_SHARD).isEmpty());
+            assertFalse(replicaSelector.useReplica(ShardTemplate.DEFAULT_SHARD, null));
+        }
+    }
+
+    /**
+     * 書き込んだデバイスの読み出し固定のテスト
+     */
+    @Nested
+    @DisplayName("read-your-writes")
+    class ReadYourWritesTests {
+
+        @Test
+        @DisplayName("正常系: 書き込んだ直後のデバイスはレプリカに未反映でもプライマリから読み出される")
+        void testPinned_ReadsOwnWrites() throws SQLException {
+            synchronizeReplica();
+            saveLocations("SENSOR-D", 2);
+
+            assertTrue(replicaSelector.isPinned("SENSOR-D"));
+            assertEquals(2, locationService.getLocationsByDeviceId("SENSOR-D").size());
+            assertTrue(locationService.getLatestLocationByDeviceId("SENSOR-D").isPresent());
+            // デバイスをまたぐ読み出しは固定されずレプリカから読み出される
+            assertEquals(0, locationService.getLocationCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 書き込みのないデバイスの読み出しはレプリカから行われる")
+        void testUnpinned_ReadsReplica() throws SQLException {
+            synchronizeReplica();
+            insertReplicaOnly("SENSOR-E");
+
+            assertFalse(replicaSelector.isPinned("SENSOR-E"));
+            assertEquals(1, locationService.getLocationsByDeviceId("SENSOR-E").size());
+        }
+    }
+
+    private List<LocationData> saveLocations(String deviceId, int count) {
+        List<LocationData> saved = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            saved.add(locationService.saveLocation(LocationData.builder()
+                    .deviceId(deviceId)
+                    .latitude(35.0)
+                    .longitude(139.0 + i * 0.01)
+                    .timestamp(testTime.plusMinutes(i))
+                    .build()));
+        }
+        return saved;
+    }
+
+    /**
+     * プライマリの内容をレプリカに複製し、遅延を測定し直す（レプリケーションの代わり）
+     */
+    private void synchronizeReplica() throws SQLException {
+        replicaSelector.checkLag();
+        List<String> script = new ArrayList<>();
+        DataSource source = shardTemplate.getDataSource(ShardTemplate.DEFAULT_SHARD);
+        try (Connection connection = source.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("SCRIPT")) {
+            while (result.next()) {
+                String sql = result.getString(1);
+                if (!sql.startsWith("--") && !sql.startsWith("CREATE USER")) {
+                    script.add(sql);
+                }
+            }
+        }
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+        replicaSelector.checkLag();
+    }
+
+    private void insertReplicaOnly(String deviceId) {
+        replica.update("INSERT INTO location_data (id, device_key, latitude, longitude, timestamp, created_at, site_id) "
+                + "VALUES (?, ?, 355000000, 1395000000, ?, ?, 'default')", 1_000_000L, deviceRegistry.register(deviceId),
+                testTime.plusHours(1), testTime);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.iotble.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ShardRouterのユニットテスト
+ */
+@DisplayName("ShardRouter テスト")
+class ShardRouterTest {
+
+    private static final int DEVICES = 10_000;
+
+    /**
+     * 割り当てのテスト
+     */
+    @Nested
+    @DisplayName("デバイスの割り当て")
+    class RoutingTests {
+
+        @Test
+        @DisplayName("正常系: 同じデバイスIDは常に同じシャードに割り当てられる")
+        void testShardFor_Deterministic() {
+            ShardRouter router = new ShardRouter(List.of("a", "b", "c"), 128);
+            ShardRouter other = new ShardRouter(List.of("a", "b", "c"), 128);
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(router.shardFor("ESP32-" + i), other.shardFor("ESP32-" + i));
+            }
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスがシャードにほぼ均等に分散される")
+        void testShardFor_Distribution() {
+            ShardRouter router = new ShardRouter(List.of("a", "b", "c", "d"), 128);
+            Map<String, Integer> counts = new HashMap<>();
+
+            for (int i = 0; i < DEVICES; i++) {
+                counts.merge(router.shardFor("ESP32-" + i), 1, Integer::sum);
+            }
+
+            assertEquals(4, counts.size());
+            counts.values().forEach(count -> assertTrue(count > DEVICES / 4 * 0.7 && count < DEVICES / 4 * 1.3,
+                    "偏りが大きすぎます: " + counts));
+        }
+
+        @Test
+        @DisplayName("正常系: シャードを追加しても移動するのは新しいシャードに割り当てられるデバイスのみ")
+        void testShardFor_MinimalMovement() {
+            ShardRouter before = new ShardRouter(List.of("a", "b", "c"), 128);
+            ShardRouter after = new ShardRouter(List.of("a", "b", "c", "d"), 128);
+            int moved = 0;
+
+            for (int i = 0; i < DEVICES; i++) {
+                String deviceId = "ESP32-" + i;
+                if (!before.shardFor(deviceId).equals(after.shardFor(deviceId))) {
+                    assertEquals("d", after.shardFor(deviceId));
+                    moved++;
+                }
+            }
+
+            assertTrue(moved > DEVICES / 4 * 0.7 && moved < DEVICES / 4 * 1.3, "移動数: " + moved);
+        }
+
+        @Test
+        @DisplayName("異常系: シャード名の重複や空の構成は拒否される")
+        void testConstructor_Invalid() {
+            assertThrows(IllegalArgumentException.class, () -> new ShardRouter(List.of(), 16));
+            assertThrows(IllegalArgumentException.class, () -> new ShardRouter(List.of("a", "a"), 16));
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.iotble.shard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.repository.LocationJdbcRepository;
+import com.example.iotble.service.LocationService;
+import com.example.iotble.service.RebalanceReport;
+import com.example.iotble.service.ShardRebalanceService;
+import com.example.iotble.service.ShardStatus;
+
+/**
+ * 1つのJVM内で3つのH2シャードを起動して行うシャーディングの結合テスト
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "iotble.sharding.shards[0].name=shard-a",
+        "iotble.sharding.shards[0].url=jdbc:h2:mem:shard-test-a",
+        "iotble.sharding.shards[0].username=sa",
+        "iotble.sharding.shards[1].name=shard-b",
+        "iotble.sharding.shards[1].url=jdbc:h2:mem:shard-test-b",
+        "iotble.sharding.shards[1].username=sa",
+        "iotble.sharding.shards[2].name=shard-c",
+        "iotble.sharding.shards[2].url=jdbc:h2:mem:shard-test-c",
+        "iotble.sharding.shards[2].username=sa"
+})
+@DisplayName("シャーディング 結合テスト")
+@SuppressWarnings("null")
+class ShardingIntegrationTest {
+
+    @Autowired
+    private LocationService locationService;
+
+    @Autowired
+    private ShardTemplate shardTemplate;
+
+    @Autowired
+    private LocationJdbcRepository jdbcRepository;
+
+    @Autowired
+    private ShardRebalanceService rebalanceService;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        locationService.deleteAllLocations();
+    }
+
+    /**
+     * 書き込みとデバイス単位の読み出しのテスト
+     */
+    @Nested
+    @DisplayName("デバイス単位のルーティング")
+    class DeviceRoutingTests {
+
+        @Test
+        @DisplayName("正常系: 位置情報はデバイスIDのシャードにのみ保存される")
+        void testSave_RoutedToDeviceShard() {
+            List<String> devices = saveDevices(12, 3);
+
+            for (String deviceId : devices) {
+                String shard = shardTemplate.shardFor(deviceId);
+                assertEquals(3, locationService.getLocationsByDeviceId(deviceId).size());
+                assertTrue(jdbcRepository.findDeviceIdsOnShard(shard).contains(deviceId));
+            }
+            long placed = rebalanceService.getShardStatus().stream().mapToLong(ShardStatus::locationCount).sum();
+            assertEquals(36, placed);
+            assertTrue(rebalanceService.getShardStatus().stream().allMatch(status -> status.misplacedDevices() == 0));
+            assertTrue(rebalanceService.getShardStatus().stream().filter(status -> status.deviceCount() > 0).count() > 1);
+        }
+
+        @Test
+        @DisplayName("正常系: IDはシャードをまたいで重複せず、IDでどのシャードの位置情報も取得できる")
+        void testIds_UniqueAcrossShards() {
+            saveDevices(12, 2);
+            List<LocationData> all = locationService.getAllLocations();
+            Set<Long> ids = new HashSet<>();
+            all.forEach(location -> ids.add(location.getId()));
+
+            assertEquals(24, ids.size());
+            for (int i = 1; i < all.size(); i++) {
+                assertFalse(all.get(i).getTimestamp().isAfter(all.get(i - 1).getTimestamp()),
+                        "シャードをまたいでタイムスタンプの新しい順に返すべき");
+            }
+            for (LocationData location : all) {
+                assertEquals(location.getDeviceId(),
+                        locationService.getLocationById(location.getId()).orElseThrow().getDeviceId());
+            }
+            LocationData target = all.get(5);
+            assertTrue(locationService.deleteLocation(target.getId()));
+            assertFalse(locationService.getLocationById(target.getId()).isPresent());
+            assertEquals(23, locationService.getLocationCount());
+        }
+    }
+
+    /**
+     * デバイスをまたぐ読み出しのテスト
+     */
+    @Nested
+    @DisplayName("スキャッター・ギャザー")
+    class ScatterGatherTests {
+
+        @Test
+        @DisplayName("正常系: 最新の位置情報と期間指定の結果が全シャードからタイムスタンプ順に併合される")
+        void testRecentAndRange_MergedInTimestampOrder() {
+            saveDevices(10, 6);
+
+            List<LocationData> recent = locationService.getRecentLocations();
+            List<LocationData> range = locationService.getLocationsByTimeRange(
+                    testTime.plusMinutes(10), testTime.plusMinutes(30));
+
+            assertEquals(50, recent.size());
+            assertEquals(testTime.plusMinutes(59), recent.get(0).getTimestamp());
+            assertDescending(recent);
+            assertEquals(21, range.size());
+            assertDescending(range);
+            assertEquals(10, locationService.getDeviceCount());
+            assertEquals(60, locationService.getLocationCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 全シャードの位置情報をタイムスタンプ昇順に読み出せる")
+        void testStreamByTimeRange_Merged() {
+            saveDevices(10, 3);
+            List<LocationData> streamed = new ArrayList<>();
+
+            jdbcRepository.streamByTimeRange(testTime, testTime.plusHours(1), false, null, streamed::add);
+
+            assertEquals(30, streamed.size());
+            for (int i = 1; i < streamed.size(); i++) {
+                assertFalse(streamed.get(i).getTimestamp().isBefore(streamed.get(i - 1).getTimestamp()));
+            }
+            assertEquals(testTime, jdbcRepository.findTimestampBounds(null).orElseThrow()[0]);
+            assertEquals(testTime.plusMinutes(29), jdbcRepository.findTimestampBounds(null).orElseThrow()[1]);
+        }
+    }
+
+    /**
+     * 一括インポートの登録のテスト
+     */
+    @Nested
+    @DisplayName("一括インポートの登録")
+    class ImportBatchTests {
+
+        @Test
+        @DisplayName("正常系: チェックポイントの更新前に中断したバッチを再登録してもシャードごとに重複しない")
+        void testInsertImportBatch_Idempotent() {
+            List<LocationData> first = importRows(0, 9);
+            List<LocationData> second = importRows(9, 9);
+
+            assertEquals(9, jdbcRepository.insertImportBatch("import-1", 10, first));
+            assertEquals(0, jdbcRepository.insertImportBatch("import-1", 10, first));
+            assertEquals(9, jdbcRepository.insertImportBatch("import-1", 19, second));
+            assertEquals(9, jdbcRepository.insertImportBatch("import-2", 10, first));
+            jdbcRepository.deleteImportProgress("import-1");
+
+            assertEquals(27, locationService.getLocationCount());
+            assertEquals(9, jdbcRepository.insertImportBatch("import-1", 10, first));
+        }
+
+        private List<LocationData> importRows(int offset, int count) {
+            List<LocationData> rows = new ArrayList<>();
+            for (int i = offset; i < offset + count; i++) {
+                rows.add(LocationData.builder()
+                        .deviceId(String.format("IMPORT-%03d", i % 6))
+                        .latitude(35.0)
+                        .longitude(139.0)
+                        .timestamp(testTime.plusMinutes(i))
+                        .createdAt(testTime)
+                        .build());
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * 再配置のテスト
+     */
+    @Nested
+    @DisplayName("シャード間の再配置")
+    class RebalanceTests {
+
+        @Test
+        @DisplayName("正常系: 割り当て先と異なるシャードにある位置情報が割り当て先へ移動される")
+        void testRebalance_MovesMisplacedDevices() {
+            saveDevices(1, 5);
+            String deviceId = "ESP32-000";
+            String home = shardTemplate.shardFor(deviceId);
+            String other = shardTemplate.getShardNames().stream().filter(shard -> !shard.equals(home)).findFirst()
+                    .orElseThrow();
+            // シャード追加前の構成で別のシャードに保存されていた状態を再現する
+            jdbcRepository.moveBetweenShards(home, other, jdbcRepository.findByDeviceOnShard(home, deviceId, 100));
+            assertTrue(locationService.getLocationsByDeviceId(deviceId).isEmpty());
+
+            RebalanceReport report = rebalanceService.rebalance();
+
+            assertEquals(1, report.movedDevices());
+            assertEquals(5, report.movedLocations());
+            assertEquals(5, locationService.getLocationsByDeviceId(deviceId).size());
+            assertEquals(0, jdbcRepository.countOnShard(other));
+            assertEquals(0, rebalanceService.rebalance().movedDevices());
+        }
+    }
+
+    /**
+     * デバイスごとに1分間隔で位置情報を保存する（タイムスタンプはデバイスをまたいで一意）
+     */
+    private List<String> saveDevices(int devices, int perDevice) {
+        List<String> deviceIds = new ArrayList<>();
+        for (int d = 0; d < devices; d++) {
+            String deviceId = String.format("ESP32-%03d", d);
+            deviceIds.add(deviceId);
+            for (int i = 0; i < perDevice; i++) {
+                locationService.saveLocation(LocationData.builder()
+                        .deviceId(deviceId)
+                        .latitude(35.0 + d * 0.01)
+                        .longitude(139.0 + i * 0.01)
+                        .timestamp(testTime.plusMinutes((long) i * devices + d))
+                        .build());
+            }
+        }
+        return deviceIds;
+    }
+
+    private static void assertDescending(List<LocationData> locations) {
+        for (int i = 1; i < locations.size(); i++) {
+            assertNotEquals(locations.get(i - 1).getId(), locations.get(i).getId());
+            assertFalse(locations.get(i).getTimestamp().isAfter(locations.get(i - 1).getTimestamp()));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.iotble.site;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SiteIngestQuotaのユニットテスト
+ */
+@DisplayName("SiteIngestQuota テスト")
+class SiteIngestQuotaTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SiteIngestQuota quota;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        quota = new SiteIngestQuota(Map.of("tokyo", new SiteIngestQuota.Limit(10, 20)), clock::get);
+    }
+
+    /**
+     * 登録の受け付けのテスト
+     */
+    @Nested
+    @DisplayName("登録の受け付け")
+    class TryAcquireTests {
+
+        @Test
+        @DisplayName("正常系: バーストまで受け付け、経過時間に応じて枠が戻る")
+        void testTryAcquire_Refill() {
+            assertTrue(quota.tryAcquire("tokyo", 20));
+            assertFalse(quota.tryAcquire("tokyo", 1));
+
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+            assertTrue(quota.tryAcquire("tokyo", 5));
+            assertFalse(quota.tryAcquire("tokyo", 1));
+            SiteIngestQuota.Stats stats = quota.getStats().get("tokyo");
+            assertEquals(25, stats.admitted());
+            assertEquals(2, stats.rejected());
+        }
+
+        @Test
+        @DisplayName("正常系: 上限を設定していないサイトは常に受け付ける")
+        void testTryAcquire_Unlimited() {
+            assertTrue(quota.tryAcquire("osaka", 1_000_000));
+            assertFalse(quota.getStats().containsKey("osaka"));
+        }
+
+        @Test
+        @DisplayName("境界値: 再試行までの秒数は1件分の枠が戻るまでの時間を切り上げる")
+        void testRetryAfterSeconds() {
+            quota.tryAcquire("tokyo", 20);
+
+            assertEquals(1, quota.retryAfterSeconds("tokyo", 1));
+            assertEquals(5, quota.retryAfterSeconds("tokyo", 5));
+            assertEquals(1, quota.retryAfterSeconds("osaka", 1));
+        }
+    }
+
+    /**
+     * インポートの待機のテスト
+     */
+    @Nested
+    @DisplayName("インポートの待機")
+    class AcquireTests {
+
+        @Test
+        @DisplayName("正常系: 枠が足りない分は先に確保し、待った時間を記録する")
+        void testAcquire_Reserves() throws InterruptedException {
+            quota = new SiteIngestQuota(Map.of("tokyo", new SiteIngestQuota.Limit(1_000_000, 10)), clock::get);
+
+            quota.acquire("tokyo", 20);
+
+            SiteIngestQuota.Stats stats = quota.getStats().get("tokyo");
+            assertEquals(-10, stats.available(), 1e-9);
+            assertEquals(20, stats.admitted());
+            assertFalse(quota.tryAcquire("tokyo", 1));
+        }
+
+        @Test
+        @DisplayName("異常系: 上限の値が不正な場合は例外")
+        void testLimit_Invalid() {
+            assertThrows(IllegalArgumentException.class, () -> new SiteIngestQuota.Limit(0, 10));
+            assertThrows(IllegalArgumentException.class, () -> new SiteIngestQuota.Limit(10, 0.5));
+        }
+    }
+}
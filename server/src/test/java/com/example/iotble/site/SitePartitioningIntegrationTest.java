@@ -0,0 +1,132 @@
+package com.example.iotble.site;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.model.NearbyDevice;
+import com.example.iotble.service.LocationService;
+import com.example.iotble.service.LocationVersionTracker;
+import com.example.iotble.service.NearestDeviceService;
+
+/**
+ * 1つのJVM内で2つのH2データベースをサイトとして起動して行うサイトの分割の結合テスト
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "iotble.partitioning.sites[0].id=tokyo",
+        "iotble.partitioning.sites[0].url=jdbc:h2:mem:site-test-a",
+        "iotble.partitioning.sites[0].username=sa",
+        "iotble.partitioning.sites[0].max-pool-size=4",
+        "iotble.partitioning.sites[1].id=osaka",
+        "iotble.partitioning.sites[1].url=jdbc:h2:mem:site-test-b",
+        "iotble.partitioning.sites[1].username=sa",
+        "iotble.partitioning.sites[1].max-pool-size=2"
+})
+@DisplayName("サイトの分割 結合テスト")
+@SuppressWarnings("null")
+class SitePartitioningIntegrationTest {
+
+    @Autowired
+    private LocationService locationService;
+
+    @Autowired
+    private NearestDeviceService nearestDeviceService;
+
+    @Autowired
+    private LocationVersionTracker versionTracker;
+
+    @Autowired
+    private SiteTemplate siteTemplate;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+
+    /**
+     * 各テスト実行後の後処理
+     */
+    @AfterEach
+    void tearDown() {
+        siteTemplate.forEachSite(site -> locationService.deleteAllLocations());
+    }
+
+    /**
+     * サイトの分離のテスト
+     */
+    @Nested
+    @DisplayName("サイトの分離")
+    class IsolationTests {
+
+        @Test
+        @DisplayName("正常系: 位置情報は保存したサイトのデータベースにのみ保存され、他のサイトからは見えない")
+        void testSave_IsolatedBySite() {
+            LocationData tokyo = siteTemplate.onSite("tokyo", () -> save("DEV-1", 35.68, 139.76));
+            siteTemplate.onSite("osaka", () -> save("DEV-2", 34.69, 135.50));
+            siteTemplate.onSite("osaka", () -> save("DEV-3", 34.70, 135.51));
+
+            assertEquals("tokyo", tokyo.getSiteId());
+            assertEquals(1, siteTemplate.onSite("tokyo", locationService::getLocationCount));
+            assertEquals(2, siteTemplate.onSite("osaka", locationService::getLocationCount));
+            assertTrue(siteTemplate.onSite("osaka", () -> locationService.getLocationsByDeviceId("DEV-1")).isEmpty());
+            assertFalse(siteTemplate.onSite("osaka", () -> locationService.getLocationById(tokyo.getId())).isPresent());
+            assertTrue(siteTemplate.onSite("osaka", locationService::getAllLocations).stream()
+                    .allMatch(location -> "osaka".equals(location.getSiteId())));
+        }
+
+        @Test
+        @DisplayName("正常系: IDはサイトをまたいで重複しない")
+        void testIds_UniqueAcrossSites() {
+            LocationData tokyo = siteTemplate.onSite("tokyo", () -> save("DEV-1", 35.68, 139.76));
+            LocationData osaka = siteTemplate.onSite("osaka", () -> save("DEV-1", 34.69, 135.50));
+
+            assertFalse(tokyo.getId().equals(osaka.getId()));
+        }
+
+        @Test
+        @DisplayName("正常系: 近くのデバイスの検索とバージョンはサイトごとに分かれる")
+        void testIndexAndVersion_IsolatedBySite() {
+            long osakaVersion = siteTemplate.onSite("osaka", versionTracker::getGlobalVersion);
+            siteTemplate.onSite("tokyo", () -> save("DEV-1", 35.68, 139.76));
+
+            List<NearbyDevice> fromTokyo = siteTemplate.onSite("tokyo",
+                    () -> nearestDeviceService.findNearest(35.68, 139.76, 5, null));
+            List<NearbyDevice> fromOsaka = siteTemplate.onSite("osaka",
+                    () -> nearestDeviceService.findNearest(35.68, 139.76, 5, null));
+
+            assertEquals(1, fromTokyo.size());
+            assertTrue(fromOsaka.isEmpty());
+            assertEquals(osakaVersion, siteTemplate.onSite("osaka", versionTracker::getGlobalVersion));
+        }
+
+        @Test
+        @DisplayName("エッジケース: サイトを指定しない処理は既定のサイト（先頭のサイト）で実行される")
+        void testDefaultSite() {
+            LocationData saved = save("DEV-1", 35.68, 139.76);
+
+            assertEquals("tokyo", saved.getSiteId());
+            assertEquals(1, siteTemplate.onSite("tokyo", locationService::getLocationCount));
+            assertEquals(0, siteTemplate.onSite("osaka", locationService::getLocationCount));
+        }
+    }
+
+    private LocationData save(String deviceId, double latitude, double longitude) {
+        return locationService.saveLocation(LocationData.builder()
+                .deviceId(deviceId)
+                .latitude(latitude)
+                .longitude(longitude)
+                .accuracy(5.0)
+                .rssi(-60)
+                .timestamp(testTime)
+                .build());
+    }
+}
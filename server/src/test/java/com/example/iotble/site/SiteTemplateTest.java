@@ -0,0 +1,136 @@
+package com.example.iotble.site;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SiteTemplateのユニットテスト
+ */
+@DisplayName("SiteTemplate テスト")
+class SiteTemplateTest {
+
+    private SiteTemplate siteTemplate;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put("tokyo", mock(DataSource.class));
+        dataSources.put("osaka", mock(DataSource.class));
+        siteTemplate = new SiteTemplate(List.of("tokyo", "osaka"), dataSources);
+    }
+
+    /**
+     * サイトの指定のテスト
+     */
+    @Nested
+    @DisplayName("サイトの指定")
+    class OnSiteTests {
+
+        @Test
+        @DisplayName("正常系: 指定した範囲だけ現在のサイトが切り替わり、入れ子から戻ると元のサイトになる")
+        void testOnSite_Nested() {
+            assertEquals("tokyo", siteTemplate.currentSite());
+
+            String inner = siteTemplate.onSite("osaka", () -> {
+                String nested = siteTemplate.onSite("tokyo", siteTemplate::currentSite);
+                return nested + "," + siteTemplate.currentSite();
+            });
+
+            assertEquals("tokyo,osaka", inner);
+            assertEquals("tokyo", siteTemplate.currentSite());
+        }
+
+        @Test
+        @DisplayName("正常系: すべてのサイトで順に実行する")
+        void testForEachSite() {
+            List<String> visited = new ArrayList<>();
+
+            siteTemplate.forEachSite(site -> visited.add(site + "=" + siteTemplate.currentSite()));
+
+            assertEquals(List.of("tokyo=tokyo", "osaka=osaka"), visited);
+        }
+
+        @Test
+        @DisplayName("異常系: 設定されていないサイトや不正なサイトIDは例外")
+        void testInvalidSite() {
+            assertThrows(IllegalArgumentException.class, () -> siteTemplate.enter("nagoya"));
+            assertThrows(IllegalArgumentException.class, () -> SiteTemplate.single().enter("tokyo"));
+            assertThrows(IllegalArgumentException.class, () -> new SiteTemplate(List.of("a b"), Map.of()));
+            assertThrows(IllegalArgumentException.class, () -> new SiteTemplate(List.of("a", "a"), Map.of()));
+        }
+
+        @Test
+        @DisplayName("エッジケース: サイトを設定しない場合は既定のサイトだけを持ち、データベースを分けない")
+        void testSingle() {
+            SiteTemplate single = SiteTemplate.single();
+
+            assertEquals(List.of(SiteTemplate.DEFAULT_SITE), single.getSiteIds());
+            assertFalse(single.isPartitioned());
+            assertTrue(siteTemplate.isPartitioned());
+        }
+    }
+
+    /**
+     * サイトごとの値と別スレッドへの引き継ぎのテスト
+     */
+    @Nested
+    @DisplayName("サイトごとの値と引き継ぎ")
+    class LocalTests {
+
+        @Test
+        @DisplayName("正常系: サイトごとに別のインスタンスを返す")
+        void testLocal() {
+            SiteLocal<List<String>> local = siteTemplate.local(ArrayList::new);
+
+            local.get().add("default");
+            siteTemplate.runOnSite("osaka", () -> local.get().add("osaka"));
+
+            assertEquals(List.of("default"), local.get("tokyo"));
+            assertEquals(List.of("osaka"), local.get("osaka"));
+            assertNotSame(local.get("tokyo"), local.get("osaka"));
+            assertSame(local.get(), local.get("tokyo"));
+            assertThrows(IllegalArgumentException.class, () -> local.get("nagoya"));
+        }
+
+        @Test
+        @DisplayName("正常系: 登録した時点のサイトで別スレッドの処理を実行する")
+        void testPropagating() throws InterruptedException {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                List<String> sites = new ArrayList<>();
+                siteTemplate.runOnSite("osaka", () -> siteTemplate.propagating(executor)
+                        .execute(() -> sites.add(siteTemplate.currentSite())));
+                executor.execute(() -> sites.add(siteTemplate.currentSite()));
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+                assertEquals(List.of("osaka", "tokyo"), sites);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
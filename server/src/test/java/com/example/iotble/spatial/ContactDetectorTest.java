@@ -0,0 +1,193 @@
+package com.example.iotble.spatial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.example.iotble.model.ContactEpisode;
+import com.example.iotble.util.GeoUtils;
+
+/**
+ * ContactDetectorのユニットテスト
+ */
+@DisplayName("ContactDetector テスト")
+class ContactDetectorTest {
+
+    /** 緯度1度あたりのメートル数 */
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 接触の検出のテスト
+     */
+    @Nested
+    @DisplayName("接触の検出")
+    class DetectTests {
+
+        @Test
+        @DisplayName("正常系: 距離の範囲内にいた期間が1つの接触になる")
+        void testDetect_SingleEpisode() {
+            ContactDetector detector = new ContactDetector(2.0, 10, 30, null);
+            for (int i = 0; i <= 12; i++) {
+                detector.observe("TAG-A", 35.0, 139.0, testTime.plusSeconds(i * 5), true);
+                detector.observe("TAG-B", 35.0 + 1.0 / METERS_PER_DEGREE, 139.0, testTime.plusSeconds(i * 5 + 1),
+                        true);
+            }
+
+            List<ContactEpisode> episodes = detector.finish();
+
+            assertEquals(1, episodes.size());
+            ContactEpisode episode = episodes.get(0);
+            assertEquals("TAG-A", episode.deviceId());
+            assertEquals("TAG-B", episode.otherDeviceId());
+            assertEquals(testTime, episode.start());
+            assertEquals(testTime.plusSeconds(61), episode.end());
+            assertEquals(61.0, episode.durationSeconds());
+            assertEquals(1.0, episode.minDistanceMeters(), 0.01);
+        }
+
+        @Test
+        @DisplayName("正常系: 観測の間隔が上限を超えると別の接触になる")
+        void testDetect_GapSplitsEpisodes() {
+            ContactDetector detector = new ContactDetector(2.0, 10, 30, null);
+            detector.observe("TAG-A", 35.0, 139.0, testTime, true);
+            detector.observe("TAG-B", 35.0, 139.0, testTime.plusSeconds(1), true);
+            detector.observe("TAG-A", 35.0, 139.0, testTime.plusSeconds(60), true);
+            detector.observe("TAG-B", 35.0, 139.0, testTime.plusSeconds(61), true);
+
+            List<ContactEpisode> episodes = detector.finish();
+
+            assertEquals(2, episodes.size());
+            assertEquals(testTime.plusSeconds(60), episodes.get(1).start());
+        }
+
+        @Test
+        @DisplayName("異常系: 距離の範囲外や同時刻とみなせない位置は接近にならない")
+        void testDetect_OutOfRange() {
+            ContactDetector detector = new ContactDetector(2.0, 10, 30, null);
+            detector.observe("TAG-A", 35.0, 139.0, testTime, true);
+            detector.observe("TAG-B", 35.0 + 3.0 / METERS_PER_DEGREE, 139.0, testTime, true);
+            detector.observe("TAG-C", 35.0, 139.0, testTime.plusSeconds(11), true);
+
+            assertTrue(detector.finish().isEmpty());
+        }
+
+        @Test
+        @DisplayName("正常系: 対象のデバイスを指定した場合はそのデバイスを含む組だけを検出する")
+        void testDetect_Focus() {
+            ContactDetector detector = new ContactDetector(2.0, 10, 30, "TAG-B");
+            detector.observe("TAG-A", 35.0, 139.0, testTime, true);
+            detector.observe("TAG-B", 35.0, 139.0, testTime, true);
+            detector.observe("TAG-C", 35.0, 139.0, testTime, true);
+
+            List<ContactEpisode> episodes = detector.finish();
+
+            assertEquals(2, episodes.size());
+            assertTrue(episodes.stream().allMatch(episode -> episode.deviceId().equals("TAG-B")
+                    || episode.otherDeviceId().equals("TAG-B")));
+        }
+
+        @Test
+        @DisplayName("正常系: 比較対象として登録しただけの位置同士は接近として記録されない")
+        void testDetect_ContextOnly() {
+            ContactDetector detector = new ContactDetector(2.0, 10, 30, null);
+            detector.observe("TAG-A", 35.0, 139.0, testTime, false);
+            detector.observe("TAG-B", 35.0, 139.0, testTime, false);
+            assertTrue(detector.finish().isEmpty());
+
+            detector.observe("TAG-C", 35.0, 139.0, testTime.plusSeconds(1), true);
+            assertEquals(2, detector.finish().size());
+        }
+
+        @Test
+        @DisplayName("正常系: 削除したデバイスの位置と継続中の接触は破棄される")
+        void testRemoveDevice() {
+            ContactDetector detector = new ContactDetector(2.0, 10, 30, null);
+            detector.observe("TAG-A", 35.0, 139.0, testTime, true);
+            detector.observe("TAG-B", 35.0, 139.0, testTime, true);
+            assertEquals(1, detector.getOpen().size());
+
+            detector.removeDevice("TAG-A");
+            detector.observe("TAG-C", 35.0, 139.0, testTime.plusSeconds(1), true);
+
+            List<ContactEpisode> open = detector.getOpen();
+            assertEquals(1, open.size());
+            assertEquals("TAG-B", open.get(0).deviceId());
+            assertEquals("TAG-C", open.get(0).otherDeviceId());
+        }
+    }
+
+    /**
+     * 全件比較との一致のテスト
+     */
+    @Nested
+    @DisplayName("全件比較との一致")
+    class BruteForceTests {
+
+        @Test
+        @DisplayName("正常系: 組ごとの観測回数がすべての位置の組を比較した結果と一致する")
+        void testDetect_MatchesBruteForce() {
+            Random random = new Random(7);
+            double[][] positions = new double[40][2];
+            for (double[] position : positions) {
+                position[0] = 35.0 + random.nextDouble() * 20 / METERS_PER_DEGREE;
+                position[1] = 139.0 + random.nextDouble() * 20 / METERS_PER_DEGREE;
+            }
+            List<Object[]> fixes = new ArrayList<>();
+            for (int second = 0; second < 300; second++) {
+                for (int device = 0; device < positions.length; device++) {
+                    if (random.nextInt(5) != 0) {
+                        continue;
+                    }
+                    // 1m程度ずつ歩き回る
+                    positions[device][0] += random.nextGaussian() / METERS_PER_DEGREE;
+                    positions[device][1] += random.nextGaussian() / METERS_PER_DEGREE;
+                    fixes.add(new Object[] { "TAG-" + device, positions[device][0], positions[device][1],
+                            testTime.plusSeconds(second).plusNanos(random.nextInt(1_000_000) * 1000L) });
+                }
+            }
+
+            ContactDetector detector = new ContactDetector(3.0, 5, 20, null);
+            for (Object[] fix : fixes) {
+                detector.observe((String) fix[0], (double) fix[1], (double) fix[2], (LocalDateTime) fix[3], true);
+            }
+            Map<String, Integer> detected = new HashMap<>();
+            for (ContactEpisode episode : detector.finish()) {
+                detected.merge(episode.deviceId() + "/" + episode.otherDeviceId(), episode.observations(),
+                        Integer::sum);
+            }
+
+            Map<String, Integer> expected = new HashMap<>();
+            for (int i = 0; i < fixes.size(); i++) {
+                for (int j = 0; j < i; j++) {
+                    Object[] a = fixes.get(i);
+                    Object[] b = fixes.get(j);
+                    long gapMillis = Math.abs(Duration.between((LocalDateTime) a[3],
+                            (LocalDateTime) b[3]).toMillis());
+                    if (a[0].equals(b[0]) || gapMillis > 5000 || GeoUtils.haversineMeters((double) a[1],
+                            (double) a[2], (double) b[1], (double) b[2]) > 3.0) {
+                        continue;
+                    }
+                    String pair = ((String) a[0]).compareTo((String) b[0]) < 0
+                            ? a[0] + "/" + b[0]
+                            : b[0] + "/" + a[0];
+                    expected.merge(pair, 1, Integer::sum);
+                }
+            }
+            assertTrue(expected.size() > 10);
+            assertEquals(expected, detected);
+        }
+    }
+}
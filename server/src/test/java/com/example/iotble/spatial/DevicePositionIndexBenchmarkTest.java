@@ -0,0 +1,66 @@
+package com.example.iotble.spatial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 10万デバイスでの最近傍検索の所要時間
+ *
+ * 東京周辺に集中したデバイスと地球全体に散らばったデバイスを登録し、1回の検索の平均と99パーセンタイルを出力します。
+ * 通常のテストでは実行せず、{@code mvn test -Pbenchmark} で実行します
+ */
+@Tag("benchmark")
+@DisplayName("最近傍検索 ベンチマーク")
+class DevicePositionIndexBenchmarkTest {
+
+    private static final int DEVICES = 100_000;
+    private static final int WARMUP_QUERIES = 20_000;
+    private static final int QUERIES = 20_000;
+    private static final int K = 10;
+
+    @Test
+    @DisplayName("10万デバイスでk=10の検索を繰り返す")
+    void benchmarkNearest() {
+        DevicePositionIndex index = new DevicePositionIndex();
+        Random random = new Random(1);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < DEVICES; i++) {
+            double[] position = randomPosition(random, i);
+            index.update("DEV-" + i, (long) i, position[0], position[1], now.minusSeconds(random.nextInt(600)));
+        }
+        LocalDateTime notBefore = now.minusSeconds(300);
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            double[] position = randomPosition(random, i);
+            index.nearest(position[0], position[1], K, notBefore);
+        }
+        long[] elapsed = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            double[] position = randomPosition(random, i);
+            long start = System.nanoTime();
+            int found = index.nearest(position[0], position[1], K, null).size();
+            elapsed[i] = System.nanoTime() - start;
+            assertEquals(K, found);
+        }
+
+        Arrays.sort(elapsed);
+        double average = Arrays.stream(elapsed).average().orElse(0) / 1000;
+        double p99 = elapsed[(int) (QUERIES * 0.99)] / 1000.0;
+        System.out.println(String.format(Locale.ROOT,
+                "最近傍検索: デバイス数=%d, k=%d, 平均=%.1fus, p99=%.1fus", DEVICES, K, average, p99));
+    }
+
+    private static double[] randomPosition(Random random, int i) {
+        return i % 4 != 0
+                ? new double[] { 35.6 + random.nextGaussian() * 0.2, 139.7 + random.nextGaussian() * 0.2 }
+                : new double[] { random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180 };
+    }
+}
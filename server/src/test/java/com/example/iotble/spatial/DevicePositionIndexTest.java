@@ -0,0 +1,249 @@
+package com.example.iotble.spatial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.example.iotble.model.DeviceCluster;
+import com.example.iotble.model.NearbyDevice;
+import com.example.iotble.util.GeoUtils;
+
+/**
+ * DevicePositionIndexのユニットテスト
+ */
+@DisplayName("DevicePositionIndex テスト")
+class DevicePositionIndexTest {
+
+    private final DevicePositionIndex index = new DevicePositionIndex();
+
+    private final LocalDateTime testTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * 最近傍の検索のテスト
+     */
+    @Nested
+    @DisplayName("最近傍の検索")
+    class NearestTests {
+
+        @Test
+        @DisplayName("正常系: 全件の距離を計算した結果と同じデバイスが近い順に返される")
+        void testNearest_MatchesBruteForce() {
+            Random random = new Random(42);
+            List<double[]> positions = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                // 半数は東京周辺に集中させ、残りは地球全体に散らす
+                double[] position = i % 2 == 0
+                        ? new double[] { 35.6 + random.nextGaussian() * 0.05, 139.7 + random.nextGaussian() * 0.05 }
+                        : new double[] { random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180 };
+                positions.add(position);
+                index.update("DEV-" + i, (long) i, position[0], position[1], testTime);
+            }
+
+            for (int query = 0; query < 50; query++) {
+                double lat = query % 2 == 0 ? 35.6 + random.nextGaussian() * 0.1 : random.nextDouble() * 180 - 90;
+                double lon = query % 2 == 0 ? 139.7 + random.nextGaussian() * 0.1 : random.nextDouble() * 360 - 180;
+                List<NearbyDevice> result = index.nearest(lat, lon, 10, null);
+
+                List<Double> expected = positions.stream()
+                        .map(position -> GeoUtils.haversineMeters(lat, lon, position[0], position[1]))
+                        .sorted()
+                        .limit(10)
+                        .toList();
+                assertEquals(expected, result.stream().map(NearbyDevice::distanceMeters).toList());
+            }
+        }
+
+        @Test
+        @DisplayName("境界値: 経度180度をまたいだ反対側のデバイスが最も近いと判定される")
+        void testNearest_AcrossAntimeridian() {
+            index.update("EAST", 1L, 0.0, 179.99, testTime);
+            index.update("WEST", 2L, 0.0, -179.99, testTime);
+            index.update("INLAND", 3L, 0.0, 179.5, testTime);
+
+            List<NearbyDevice> result = index.nearest(0.0, -179.999, 3, null);
+
+            assertEquals(List.of("WEST", "EAST", "INLAND"), result.stream().map(NearbyDevice::deviceId).toList());
+        }
+
+        @Test
+        @DisplayName("境界値: 極の近くでは経度の離れたデバイスが近いと判定される")
+        void testNearest_NearPole() {
+            index.update("OPPOSITE", 1L, 89.99, -20.0, testTime);
+            index.update("SAME_MERIDIAN", 2L, 89.0, 160.0, testTime);
+
+            List<NearbyDevice> result = index.nearest(89.99, 160.0, 1, null);
+
+            assertEquals("OPPOSITE", result.get(0).deviceId());
+        }
+
+        @Test
+        @DisplayName("正常系: 指定時刻より古い位置のデバイスは除外され、次に近いデバイスが返される")
+        void testNearest_NotBefore() {
+            index.update("STALE", 1L, 35.0, 139.0, testTime.minusHours(1));
+            index.update("FRESH", 2L, 35.2, 139.0, testTime);
+
+            List<NearbyDevice> result = index.nearest(35.0, 139.0, 2, testTime.minusMinutes(5));
+
+            assertEquals(List.of("FRESH"), result.stream().map(NearbyDevice::deviceId).toList());
+        }
+
+        @Test
+        @DisplayName("境界値: デバイスがない場合や件数が0の場合は空になる")
+        void testNearest_Empty() {
+            assertTrue(index.nearest(35.0, 139.0, 5, null).isEmpty());
+            index.update("ESP32-001", 1L, 35.0, 139.0, testTime);
+            assertTrue(index.nearest(35.0, 139.0, 0, null).isEmpty());
+        }
+    }
+
+    /**
+     * 位置の更新のテスト
+     */
+    @Nested
+    @DisplayName("位置の更新")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("正常系: 移動したデバイスは新しい位置だけで検索される")
+        void testUpdate_Moves() {
+            index.update("ESP32-001", 1L, 35.0, 139.0, testTime);
+            index.update("ESP32-001", 2L, -33.9, 151.2, testTime.plusMinutes(1));
+
+            List<NearbyDevice> result = index.nearest(35.0, 139.0, 5, null);
+
+            assertEquals(1, result.size());
+            assertEquals(2L, result.get(0).locationId());
+            assertEquals(1, index.size());
+            assertEquals(Set.of(), index.findDevicesAt(List.of(1L)));
+            assertEquals(Set.of("ESP32-001"), index.findDevicesAt(List.of(2L)));
+        }
+
+        @Test
+        @DisplayName("正常系: 登録済みより古い位置は無視され、置き換えでは反映される")
+        void testUpdate_IgnoresOlder() {
+            index.update("ESP32-001", 2L, 35.0, 139.0, testTime);
+
+            assertFalse(index.update("ESP32-001", 1L, 36.0, 139.0, testTime.minusMinutes(1)));
+            assertEquals(35.0, index.nearest(0, 0, 1, null).get(0).latitude());
+
+            index.replace("ESP32-001", 1L, 36.0, 139.0, testTime.minusMinutes(1));
+            assertEquals(36.0, index.nearest(0, 0, 1, null).get(0).latitude());
+        }
+
+        @Test
+        @DisplayName("正常系: 同じセルのデバイスを削除しても残りのデバイスが検索される")
+        void testRemove_SameCell() {
+            for (int i = 0; i < 5; i++) {
+                index.update("DEV-" + i, (long) i, 35.0, 139.0 + i * 1e-6, testTime);
+            }
+
+            assertTrue(index.remove("DEV-1"));
+            assertFalse(index.remove("DEV-1"));
+
+            List<String> remaining = index.nearest(35.0, 139.0, 10, null).stream()
+                    .map(NearbyDevice::deviceId)
+                    .sorted(Comparator.naturalOrder())
+                    .toList();
+            assertEquals(List.of("DEV-0", "DEV-2", "DEV-3", "DEV-4"), remaining);
+
+            index.clear();
+            assertEquals(0, index.size());
+            assertTrue(index.nearest(35.0, 139.0, 10, null).isEmpty());
+        }
+    }
+
+    /**
+     * クラスターの取得のテスト
+     */
+    @Nested
+    @DisplayName("クラスターの取得")
+    class ClusterTests {
+
+        @Test
+        @DisplayName("正常系: 粗い階層では近くのデバイスが1つのクラスターにまとまり、重心と件数が返される")
+        void testClusters_Merged() {
+            index.update("DEV-1", 1L, 35.60, 139.70, testTime);
+            index.update("DEV-2", 2L, 35.62, 139.72, testTime);
+            index.update("DEV-3", 3L, 35.64, 139.74, testTime);
+            index.update("OSAKA", 4L, 34.69, 135.50, testTime);
+
+            List<DeviceCluster> clusters = index.clusters(30, 40, 130, 145, 8);
+
+            assertEquals(2, clusters.size());
+            DeviceCluster tokyo = clusters.stream().filter(cluster -> cluster.count() == 3).findFirst().orElseThrow();
+            assertEquals(35.62, tokyo.latitude(), 1e-9);
+            assertEquals(139.72, tokyo.longitude(), 1e-9);
+            assertNull(tokyo.deviceId());
+            DeviceCluster osaka = clusters.stream().filter(cluster -> cluster.count() == 1).findFirst().orElseThrow();
+            assertEquals("OSAKA", osaka.deviceId());
+            assertEquals(testTime, osaka.timestamp());
+        }
+
+        @Test
+        @DisplayName("正常系: 範囲外のセルは返されず、最下層より深い階層では個々のデバイスが返される")
+        void testClusters_ViewportAndLeaf() {
+            index.update("IN-1", 1L, 35.0, 139.0, testTime);
+            index.update("IN-2", 2L, 35.0, 139.0 + 1e-6, testTime);
+            index.update("OUT", 3L, 35.0, 141.0, testTime);
+
+            List<DeviceCluster> leaf = index.clusters(34.9, 35.1, 138.9, 139.1, DevicePositionIndex.LEAF_LEVEL);
+            assertEquals(1, leaf.size());
+            assertEquals(2, leaf.get(0).count());
+
+            List<String> devices = index.clusters(34.9, 35.1, 138.9, 139.1, DevicePositionIndex.LEAF_LEVEL + 1)
+                    .stream()
+                    .map(DeviceCluster::deviceId)
+                    .sorted()
+                    .toList();
+            assertEquals(List.of("IN-1", "IN-2"), devices);
+        }
+
+        @Test
+        @DisplayName("正常系: 移動・削除したデバイスはクラスターの件数と重心に反映される")
+        void testClusters_Incremental() {
+            index.update("DEV-1", 1L, 35.0, 139.0, testTime);
+            index.update("DEV-2", 2L, 35.2, 139.2, testTime);
+            index.update("DEV-3", 3L, 35.4, 139.4, testTime);
+
+            index.update("DEV-3", 4L, 10.0, 100.0, testTime.plusMinutes(1));
+            index.remove("DEV-2");
+
+            List<DeviceCluster> clusters = index.clusters(-90, 90, -180, 180, 0);
+            assertEquals(1, clusters.size());
+            assertEquals(2, clusters.get(0).count());
+            assertEquals(22.5, clusters.get(0).latitude(), 1e-9);
+            assertEquals(119.5, clusters.get(0).longitude(), 1e-9);
+
+            index.clear();
+            assertTrue(index.clusters(-90, 90, -180, 180, 0).isEmpty());
+        }
+
+        @Test
+        @DisplayName("エッジケース: クラスターの数はデバイス数ではなく範囲内のセル数で決まる")
+        void testClusters_BoundedByViewport() {
+            Random random = new Random(7);
+            for (int i = 0; i < 20_000; i++) {
+                index.update("DEV-" + i, (long) i, 35.6 + random.nextGaussian() * 0.05,
+                        139.7 + random.nextGaussian() * 0.05, testTime);
+            }
+
+            // 階層12のセルは経度約0.088度×緯度約0.044度
+            List<DeviceCluster> clusters = index.clusters(35.5, 35.7, 139.6, 139.8, 12);
+
+            assertTrue(clusters.size() <= 4 * 7, () -> "クラスターが多すぎます: " + clusters.size());
+            assertTrue(clusters.stream().mapToInt(DeviceCluster::count).sum() > 10_000);
+        }
+    }
+}
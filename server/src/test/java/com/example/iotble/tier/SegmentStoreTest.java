@@ -0,0 +1,487 @@
+package com.example.iotble.tier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.iotble.model.LocationData;
+import com.example.iotble.site.SiteTemplate;
+
+/**
+ * SegmentStoreのユニットテスト
+ */
+@DisplayName("SegmentStore テスト")
+@SuppressWarnings("null")
+class SegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final SiteTemplate siteTemplate = SiteTemplate.single();
+
+    private final LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private SegmentStore store;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        store = new SegmentStore(directory, Deflater.DEFAULT_COMPRESSION, siteTemplate);
+    }
+
+    /**
+     * 書き込みと読み出しのテスト
+     */
+    @Nested
+    @DisplayName("書き込みと読み出し")
+    class WriteAndReadTests {
+
+        @Test
+        @DisplayName("正常系: すべての項目とナノ秒までの時刻が書き込んだとおりに読み出される")
+        void testRoundTrip() {
+            LocationData full = location(10L, "ESP32-001", day.plusHours(1).plusNanos(123_456_789));
+            full.setAltitude(12.5);
+            full.setAccuracy(3.0);
+            full.setRssi(-70);
+            full.setSmoothedLatitude(35.6);
+            full.setSmoothedLongitude(139.7);
+            full.setCreatedAt(day.plusHours(1).plusSeconds(2));
+            LocationData sparse = location(11L, "ESP32-001", day.plusHours(2));
+
+            SegmentInfo info = store.write(day, day.plusDays(1), rows -> {
+                rows.accept(full);
+                rows.accept(sparse);
+            });
+
+            assertEquals(2, info.rowCount());
+            assertEquals(1, info.deviceCount());
+            assertEquals(full.getTimestamp(), info.minTimestamp());
+            List<LocationData> read = readAll("ESP32-001", null, null);
+            assertEquals(2, read.size());
+            LocationData first = read.get(0);
+            assertEquals(10L, first.getId());
+            assertEquals(full.getTimestamp(), first.getTimestamp());
+            assertEquals(full.getCreatedAt(), first.getCreatedAt());
+            assertEquals(12.5, first.getAltitude());
+            assertEquals(3.0, first.getAccuracy());
+            assertEquals(-70, first.getRssi());
+            assertEquals(35.6, first.getSmoothedLatitude());
+            assertEquals(SiteTemplate.DEFAULT_SITE, first.getSiteId());
+            LocationData second = read.get(1);
+            assertNull(second.getAltitude());
+            assertNull(second.getRssi());
+            assertNull(second.getSmoothedLatitude());
+            assertNull(second.getCreatedAt());
+        }
+
+        @Test
+        @DisplayName("正常系: 期間やデバイスが一致しないセグメントとブロックを除いて読み出す")
+        void testStream_FiltersByRangeAndDevice() {
+            writeDay(day, "A", "B");
+            writeDay(day.plusDays(1), "A", "B");
+
+            assertEquals(96, readAll(null, null, null).size());
+            assertEquals(48, readAll("A", null, null).size());
+            List<LocationData> range = readAll(null, day.plusDays(1).plusHours(1), day.plusDays(1).plusHours(2));
+            assertEquals(4, range.size());
+            assertTrue(readAll("UNKNOWN", null, null).isEmpty());
+        }
+
+        @Test
+        @DisplayName("境界値: 終了時刻を含むかどうかを指定できる")
+        void testStream_EndInclusive() {
+            writeDay(day, "A");
+            List<LocationData> inclusive = new ArrayList<>();
+            List<LocationData> exclusive = new ArrayList<>();
+
+            store.stream("A", day, day.plusHours(1), true, inclusive::add);
+            store.stream("A", day, day.plusHours(1), false, exclusive::add);
+
+            assertEquals(2, inclusive.size());
+            assertEquals(1, exclusive.size());
+        }
+
+        @Test
+        @DisplayName("正常系: 同じデバイスの行が上限を超えると複数のブロックに分かれ、件数はブロックの行数から数える")
+        void testWrite_SplitsLargeBlocks() {
+            int rows = SegmentWriter.MAX_BLOCK_ROWS + 10;
+            store.write(day, day.plusDays(1), consumer -> {
+                for (int i = 0; i < rows; i++) {
+                    consumer.accept(location(i + 1L, "A", day.plusSeconds(i)));
+                }
+            });
+
+            assertEquals(Map.of("A", (long) rows), store.countByDevice(day, day.plusDays(1)));
+            assertEquals(10, store.countByDevice(day.plusSeconds(SegmentWriter.MAX_BLOCK_ROWS), day.plusDays(1))
+                    .get("A"));
+        }
+
+        @Test
+        @DisplayName("エッジケース: 行がない場合はセグメントを作成しない")
+        void testWrite_Empty() throws IOException {
+            assertNull(store.write(day, day.plusDays(1), rows -> {
+            }));
+
+            assertTrue(store.getSegments().isEmpty());
+            try (var files = Files.list(directory.resolve(SiteTemplate.DEFAULT_SITE))) {
+                assertEquals(0, files.count());
+            }
+        }
+
+        @Test
+        @DisplayName("正常系: メタデータに平滑化後を含む座標の範囲が記録される")
+        void testMetadata_BoundingBox() {
+            LocationData smoothed = location(1L, "A", day);
+            smoothed.setSmoothedLatitude(36.0);
+            smoothed.setSmoothedLongitude(140.0);
+            SegmentInfo info = store.write(day, day.plusDays(1), rows -> rows.accept(smoothed));
+
+            assertEquals(35.0, info.minLatitude());
+            assertEquals(36.0, info.maxLatitude());
+            assertTrue(info.intersects(139.9, 35.9, 141.0, 37.0));
+            assertFalse(info.intersects(141.0, 35.0, 142.0, 36.0));
+        }
+
+        @Test
+        @DisplayName("異常系: 無効なストアには書き込めず、読み出しは空になる")
+        void testDisabled() {
+            SegmentStore disabled = SegmentStore.disabled(siteTemplate);
+
+            assertFalse(disabled.isEnabled());
+            assertThrows(IllegalStateException.class, () -> disabled.write(day, day.plusDays(1), rows -> {
+            }));
+            disabled.delete("A", null, null);
+            assertTrue(disabled.getSegments().isEmpty());
+        }
+    }
+
+    /**
+     * 削除のテスト
+     */
+    @Nested
+    @DisplayName("削除")
+    class DeleteTests {
+
+        @Test
+        @DisplayName("正常系: デバイスの削除範囲に含まれる行は読み出しと件数から除かれる")
+        void testDelete_Device() {
+            writeDay(day, "A", "B");
+
+            assertEquals(18, store.delete("A", day.plusHours(6), null));
+
+            assertEquals(6, readAll("A", null, null).size());
+            assertEquals(24, readAll("B", null, null).size());
+            assertEquals(6L, store.countByDevice(day, day.plusDays(1)).get("A"));
+            assertEquals(1, store.getTombstoneCount());
+        }
+
+        @Test
+        @DisplayName("正常系: 削除範囲は削除後に作成したセグメントには適用されない")
+        void testDelete_NotAppliedToLaterSegments() {
+            writeDay(day, "A");
+            store.delete("A", null, null);
+
+            store.write(day, day.plusDays(1), rows -> rows.accept(location(100L, "A", day.plusHours(3))));
+
+            List<LocationData> read = readAll("A", null, null);
+            assertEquals(List.of(100L), read.stream().map(LocationData::getId).toList());
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスを指定しない削除では期間全体が含まれるセグメントをファイルごと削除する")
+        void testDelete_DropsWholeSegments() {
+            SegmentInfo first = writeDay(day, "A");
+            writeDay(day.plusDays(1), "A");
+
+            assertEquals(29, store.delete(null, null, day.plusDays(1).plusHours(5).minusNanos(1)));
+
+            assertEquals(1, store.getSegments().size());
+            assertFalse(Files.exists(directory.resolve(SiteTemplate.DEFAULT_SITE).resolve(first.name())));
+            assertEquals(19, readAll(null, null, null).size());
+        }
+
+        @Test
+        @DisplayName("正常系: IDで取得・削除でき、削除したIDの行だけが読み出しと件数から除かれる")
+        void testDeleteById() {
+            writeDay(day, "A", "B");
+
+            assertEquals("B", store.findById(105L).orElseThrow().getDeviceId());
+            assertTrue(store.deleteById(105L));
+
+            assertTrue(store.findById(105L).isEmpty());
+            assertFalse(store.deleteById(105L));
+            assertFalse(store.deleteById(999L));
+            List<LocationData> read = readAll("B", null, null);
+            assertEquals(23, read.size());
+            assertTrue(read.stream().noneMatch(location -> location.getId() == 105L));
+            assertEquals(23L, store.countByDevice(day, day.plusDays(1)).get("B"));
+            assertEquals(24L, store.countByDevice(day, day.plusDays(1)).get("A"));
+        }
+
+        @Test
+        @DisplayName("正常系: IDの範囲に含まれないセグメントとブロックは展開しない")
+        void testFindById_SkipsByIdRange() throws IOException {
+            SegmentInfo info = writeDay(day, "A", "B");
+            // ブロックの内容を壊し、展開した場合は読み込みに失敗するようにする
+            Path path = directory.resolve(SiteTemplate.DEFAULT_SITE).resolve(info.name());
+            byte[] bytes = Files.readAllBytes(path);
+            Arrays.fill(bytes, SegmentWriter.HEADER_LENGTH, SegmentWriter.HEADER_LENGTH + 16, (byte) 0);
+            Files.write(path, bytes);
+
+            assertTrue(store.findById(999L).isEmpty());
+            assertFalse(store.deleteById(0L));
+            assertEquals("B", store.findById(105L).orElseThrow().getDeviceId());
+            assertThrows(UncheckedIOException.class, () -> store.findById(5L));
+        }
+
+        @Test
+        @DisplayName("正常系: すべて削除するとセグメントと削除範囲がなくなる")
+        void testClear() {
+            writeDay(day, "A");
+            store.delete("A", day, day.plusHours(1));
+
+            store.clear();
+
+            assertTrue(store.getSegments().isEmpty());
+            assertEquals(0, store.getTombstoneCount());
+        }
+    }
+
+    /**
+     * 再起動時の読み込みのテスト
+     */
+    @Nested
+    @DisplayName("再起動時の読み込み")
+    class ReloadTests {
+
+        @Test
+        @DisplayName("正常系: セグメントと削除範囲が読み込まれ、書き込み途中のファイルは削除される")
+        void testReload() throws IOException {
+            writeDay(day, "A", "B");
+            store.delete("B", null, null);
+            Path leftover = directory.resolve(SiteTemplate.DEFAULT_SITE).resolve("0000000099-x-y.tmp");
+            Files.writeString(leftover, "partial");
+
+            SegmentStore reloaded = new SegmentStore(directory, Deflater.DEFAULT_COMPRESSION, siteTemplate);
+
+            assertEquals(1, reloaded.getSegments().size());
+            List<LocationData> read = new ArrayList<>();
+            reloaded.stream(null, null, null, true, read::add);
+            assertEquals(24, read.size());
+            assertFalse(Files.exists(leftover));
+            SegmentInfo next = reloaded.write(day, day.plusDays(1), rows -> rows.accept(location(999L, "B", day)));
+            assertEquals(2, next.sequence());
+        }
+
+        @Test
+        @DisplayName("正常系: IDを指定した削除範囲も再起動後に適用される")
+        void testReload_IdTombstone() {
+            writeDay(day, "A");
+            store.delete("A", day, day.plusHours(1).minusNanos(1));
+            store.deleteById(5L);
+
+            SegmentStore reloaded = new SegmentStore(directory, Deflater.DEFAULT_COMPRESSION, siteTemplate);
+
+            assertEquals(2, reloaded.getTombstoneCount());
+            assertTrue(reloaded.findById(1L).isEmpty());
+            assertTrue(reloaded.findById(5L).isEmpty());
+            assertEquals(22L, reloaded.countByDevice(null, null).get("A"));
+        }
+
+        @Test
+        @DisplayName("異常系: 壊れたセグメントは読み込みから除外される")
+        void testReload_Corrupted() throws IOException {
+            writeDay(day, "A");
+            Files.writeString(directory.resolve(SiteTemplate.DEFAULT_SITE).resolve("0000000005-x-y.lseg"), "broken");
+
+            SegmentStore reloaded = new SegmentStore(directory, Deflater.DEFAULT_COMPRESSION, siteTemplate);
+
+            assertEquals(1, reloaded.getSegments().size());
+        }
+    }
+
+    /**
+     * 形式のバージョンのテスト
+     */
+    @Nested
+    @DisplayName("形式のバージョン")
+    class FormatVersionTests {
+
+        @Test
+        @DisplayName("正常系: 測定値を double で持つバージョン1のセグメントも読み出せる")
+        void testRead_DoubleVersion() throws IOException {
+            Path path = directory.resolve(SiteTemplate.DEFAULT_SITE).resolve("0000000001-x-y.lseg");
+            Files.createDirectories(path.getParent());
+            LocationData written = location(7L, "ESP32-001", day.plusHours(3));
+            written.setLatitude(35.658581);
+            written.setLongitude(139.745433);
+            written.setAltitude(12.5);
+            written.setRssi(-70);
+            Files.write(path, doubleVersionSegment(List.of(written)));
+
+            SegmentStore reloaded = new SegmentStore(directory, Deflater.DEFAULT_COMPRESSION, siteTemplate);
+
+            List<LocationData> read = new ArrayList<>();
+            reloaded.stream("ESP32-001", null, null, true, read::add);
+            assertEquals(1, read.size());
+            LocationData location = read.get(0);
+            assertEquals(7L, location.getId());
+            assertEquals(day.plusHours(3), location.getTimestamp());
+            assertEquals(35.658581, location.getLatitude());
+            assertEquals(139.745433, location.getLongitude());
+            assertEquals(12.5, location.getAltitude());
+            assertEquals(-70, location.getRssi());
+            assertNull(location.getAccuracy());
+            assertNull(location.getCreatedAt());
+            assertEquals(day.plusHours(3), reloaded.findById(7L).orElseThrow().getTimestamp());
+        }
+
+        @Test
+        @DisplayName("正常系: 測定値は固定小数点の整数で書き込まれ、バージョン1より小さい")
+        void testWrite_SmallerThanDoubleVersion() throws IOException {
+            // 1秒ごとに数十センチメートルずつ動くデバイスの軌跡（座標は小数点以下7桁）
+            Random random = new Random(42);
+            List<LocationData> locations = new ArrayList<>();
+            int latitudeE7 = 356000000;
+            int longitudeE7 = 1397000000;
+            for (int i = 0; i < 4000; i++) {
+                latitudeE7 += random.nextInt(-40, 41);
+                longitudeE7 += random.nextInt(-40, 41);
+                LocationData location = location(i + 1L, "ESP32-001", day.plusSeconds(i));
+                location.setLatitude(latitudeE7 / 1e7);
+                location.setLongitude(longitudeE7 / 1e7);
+                location.setAccuracy(random.nextInt(200, 1500) / 100.0);
+                location.setRssi(random.nextInt(-90, -40));
+                locations.add(location);
+            }
+
+            SegmentInfo info = store.write(day, day.plusDays(1), rows -> locations.forEach(rows));
+            long doubleVersionSize = doubleVersionSegment(locations).length;
+
+            assertTrue(info.sizeBytes() < doubleVersionSize * 0.9,
+                    () -> "セグメントが小さくなっていません: " + info.sizeBytes() + " / " + doubleVersionSize);
+            List<LocationData> read = readAll("ESP32-001", null, null);
+            assertEquals(locations.get(5).getLatitude(), read.get(5).getLatitude());
+            assertEquals(locations.get(5).getAccuracy(), read.get(5).getAccuracy());
+        }
+    }
+
+    /**
+     * 1日分のセグメントを1時間ごとに1件ずつ、デバイスの順に書き込む
+     */
+    private SegmentInfo writeDay(LocalDateTime start, String... devices) {
+        long base = store.getSegments().size() * 1000L;
+        return store.write(start, start.plusDays(1), rows -> {
+            for (int d = 0; d < devices.length; d++) {
+                for (int hour = 0; hour < 24; hour++) {
+                    rows.accept(location(base + d * 100L + hour + 1, devices[d], start.plusHours(hour)));
+                }
+            }
+        });
+    }
+
+    /**
+     * 1デバイスの位置情報をバージョン1の形式の1ブロックのセグメントに組み立てる
+     *
+     * 行は高度・精度・信号強度だけを持つものとし、時刻と座標の範囲は先頭の行の値で代用します
+     */
+    private static byte[] doubleVersionSegment(List<LocationData> locations) throws IOException {
+        LocationData first = locations.get(0);
+        long nanos = SegmentWriter.toEpochNanos(first.getTimestamp());
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        try (DataOutputStream row = new DataOutputStream(
+                new DeflaterOutputStream(block, new Deflater(Deflater.DEFAULT_COMPRESSION)))) {
+            long previousId = 0;
+            long previousTimestamp = 0;
+            for (LocationData location : locations) {
+                long timestamp = SegmentWriter.toEpochNanos(location.getTimestamp());
+                row.writeLong(location.getId() - previousId);
+                row.writeLong(timestamp - previousTimestamp);
+                row.writeDouble(location.getLatitude());
+                row.writeDouble(location.getLongitude());
+                row.writeByte((location.getAltitude() != null ? SegmentWriter.HAS_ALTITUDE : 0)
+                        | (location.getAccuracy() != null ? SegmentWriter.HAS_ACCURACY : 0)
+                        | (location.getRssi() != null ? SegmentWriter.HAS_RSSI : 0));
+                if (location.getAltitude() != null) {
+                    row.writeDouble(location.getAltitude());
+                }
+                if (location.getAccuracy() != null) {
+                    row.writeDouble(location.getAccuracy());
+                }
+                if (location.getRssi() != null) {
+                    row.writeInt(location.getRssi());
+                }
+                previousId = location.getId();
+                previousTimestamp = timestamp;
+            }
+        }
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        out.write(SegmentWriter.MAGIC);
+        out.writeInt(SegmentWriter.DOUBLE_VERSION);
+        out.write(block.toByteArray());
+        ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+        DataOutputStream footer = new DataOutputStream(footerBytes);
+        footer.writeLong(locations.size());
+        footer.writeLong(nanos);
+        footer.writeLong(nanos);
+        footer.writeDouble(first.getLatitude());
+        footer.writeDouble(first.getLongitude());
+        footer.writeDouble(first.getLatitude());
+        footer.writeDouble(first.getLongitude());
+        footer.writeInt(1);
+        footer.writeUTF(first.getDeviceId());
+        footer.writeLong(SegmentWriter.HEADER_LENGTH);
+        footer.writeInt(block.size());
+        footer.writeInt(locations.size());
+        footer.writeLong(nanos);
+        footer.writeLong(nanos);
+        out.write(footerBytes.toByteArray());
+        out.writeInt(footerBytes.size());
+        out.write(SegmentWriter.MAGIC);
+        return file.toByteArray();
+    }
+
+    private List<LocationData> readAll(String deviceId, LocalDateTime start, LocalDateTime end) {
+        List<LocationData> read = new ArrayList<>();
+        store.stream(deviceId, start, end, true, read::add);
+        read.sort(Comparator.comparing(LocationData::getTimestamp).thenComparing(LocationData::getId));
+        return read;
+    }
+
+    private static LocationData location(Long id, String deviceId, LocalDateTime timestamp) {
+        return LocationData.builder()
+                .id(id)
+                .deviceId(deviceId)
+                .latitude(35.0)
+                .longitude(139.0)
+                .timestamp(timestamp)
+                .build();
+    }
+}
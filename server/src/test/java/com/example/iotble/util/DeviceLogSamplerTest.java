@@ -0,0 +1,99 @@
+package com.example.iotble.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * DeviceLogSamplerのユニットテスト
+ */
+@DisplayName("DeviceLogSampler テスト")
+class DeviceLogSamplerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * 間引きのテスト
+     */
+    @Nested
+    @DisplayName("間引き")
+    class SampleTests {
+
+        @Test
+        @DisplayName("正常系: デバイスの最初のログは出力し、間隔内のログは間引く")
+        void testSample_FirstThenSuppressed() {
+            DeviceLogSampler sampler = sampler(1000, 10);
+
+            assertEquals(0, sampler.sample("DEV-1"));
+            assertEquals(DeviceLogSampler.SUPPRESSED, sampler.sample("DEV-1"));
+            advance(999);
+            assertEquals(DeviceLogSampler.SUPPRESSED, sampler.sample("DEV-1"));
+        }
+
+        @Test
+        @DisplayName("正常系: 間隔が過ぎると出力し、間引いた件数を返す")
+        void testSample_ReturnsSuppressedCount() {
+            DeviceLogSampler sampler = sampler(1000, 10);
+            sampler.sample("DEV-1");
+            sampler.sample("DEV-1");
+            sampler.sample("DEV-1");
+
+            advance(1000);
+
+            assertEquals(2, sampler.sample("DEV-1"));
+            assertEquals(DeviceLogSampler.SUPPRESSED, sampler.sample("DEV-1"));
+        }
+
+        @Test
+        @DisplayName("正常系: デバイスごとに独立して間引く")
+        void testSample_PerDevice() {
+            DeviceLogSampler sampler = sampler(1000, 10);
+            sampler.sample("DEV-1");
+
+            assertEquals(0, sampler.sample("DEV-2"));
+            assertEquals(DeviceLogSampler.SUPPRESSED, sampler.sample("DEV-1"));
+        }
+
+        @Test
+        @DisplayName("境界値: 間隔が0なら間引かない")
+        void testSample_Unsampled() {
+            DeviceLogSampler sampler = DeviceLogSampler.unsampled();
+
+            for (int i = 0; i < 3; i++) {
+                assertEquals(0, sampler.sample("DEV-1"));
+            }
+        }
+
+        @Test
+        @DisplayName("エッジケース: デバイス数が上限に達すると状態を破棄して数え直す")
+        void testSample_ClearsOnMaxDevices() {
+            DeviceLogSampler sampler = sampler(1000, 2);
+            sampler.sample("DEV-1");
+            sampler.sample("DEV-2");
+
+            assertEquals(0, sampler.sample("DEV-3"));
+            assertEquals(0, sampler.sample("DEV-1"));
+        }
+    }
+
+    @Test
+    @DisplayName("異常系: 負の間隔や正でないデバイス数の上限は例外")
+    void testConstructor_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new DeviceLogSampler(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new DeviceLogSampler(1000, 0));
+    }
+
+    private DeviceLogSampler sampler(long intervalMillis, int maxDevices) {
+        return new DeviceLogSampler(intervalMillis, maxDevices, clock::get);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.iotble.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * AdmissionControlFilterのユニットテスト
+ */
+@DisplayName("AdmissionControlFilter テスト")
+class AdmissionControlFilterTest {
+
+    private final AtomicInteger handled = new AtomicInteger();
+    private AdmissionGate gate;
+    private AdmissionControlFilter filter;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        gate = new AdmissionGate(AdmissionGate.Options.builder()
+                .maxConcurrent(4)
+                .interactiveShare(0.5)
+                .backgroundShare(0.25)
+                .ingestMaxWaitMillis(0)
+                .interactiveMaxWaitMillis(0)
+                .backgroundMaxWaitMillis(0)
+                .interactiveMaxQueueLatencyMillis(100)
+                .backgroundMaxQueueLatencyMillis(20)
+                .latencyHalfLifeMillis(1000)
+                .build());
+        filter = new AdmissionControlFilter(gate,
+                List.of("POST /api/locations"),
+                List.of("GET /api/locations", "get /api/locations/device/*/range", "/api/exports/**"),
+                List.of("/api/admission"), 1, 5);
+    }
+
+    /**
+     * 優先度の分類のテスト
+     */
+    @Nested
+    @DisplayName("優先度の分類")
+    class ClassifyTests {
+
+        @Test
+        @DisplayName("正常系: メソッドとパスの規則で優先度を決める")
+        void testClassify() {
+            assertEquals(RequestPriority.INGEST, filter.classify(request("POST", "/api/locations")));
+            assertEquals(RequestPriority.BACKGROUND, filter.classify(request("GET", "/api/locations")));
+            assertEquals(RequestPriority.BACKGROUND,
+                    filter.classify(request("GET", "/api/locations/device/DEV-1/range")));
+            assertEquals(RequestPriority.BACKGROUND, filter.classify(request("POST", "/api/exports")));
+            assertEquals(RequestPriority.INTERACTIVE, filter.classify(request("GET", "/api/locations/recent")));
+            assertEquals(RequestPriority.INTERACTIVE, filter.classify(request("DELETE", "/api/locations/1")));
+        }
+    }
+
+    /**
+     * 受け付けのテスト
+     */
+    @Nested
+    @DisplayName("受け付け")
+    class AdmissionTests {
+
+        @Test
+        @DisplayName("正常系: 受け付けたリクエストを処理し、終了後に枠を返す")
+        void testDoFilter_Admitted() throws Exception {
+            MockHttpServletResponse response = execute("GET", "/api/locations");
+
+            assertEquals(200, response.getStatus());
+            assertEquals(1, handled.get());
+            assertEquals(0, gate.getStats().inFlight());
+        }
+
+        @Test
+        @DisplayName("異常系: 重いリクエストは上限に達すると429と再試行までの秒数を返す")
+        void testDoFilter_BackgroundShed() throws Exception {
+            gate.acquire(RequestPriority.INGEST);
+
+            MockHttpServletResponse response = execute("GET", "/api/locations");
+
+            assertEquals(429, response.getStatus());
+            assertEquals("5", response.getHeader(HttpHeaders.RETRY_AFTER));
+            assertTrue(response.getContentAsString().contains("\"priority\":\"background\""));
+            assertTrue(response.getContentAsString().contains("\"reason\":\"shed_capacity\""));
+            assertEquals(0, handled.get());
+        }
+
+        @Test
+        @DisplayName("異常系: 位置情報の登録は上限に達すると503を返す")
+        void testDoFilter_IngestShed() throws Exception {
+            for (int i = 0; i < 4; i++) {
+                gate.acquire(RequestPriority.INGEST);
+            }
+
+            MockHttpServletResponse response = execute("POST", "/api/locations");
+
+            assertEquals(503, response.getStatus());
+            assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+            assertTrue(response.getContentAsString().contains("\"priority\":\"ingest\""));
+            assertEquals(1, gate.getStats().priorities().get(RequestPriority.INGEST).shedCapacity());
+        }
+
+        @Test
+        @DisplayName("正常系: 重いリクエストが断られても登録は受け付ける")
+        void testDoFilter_IngestAfterBackgroundShed() throws Exception {
+            gate.acquire(RequestPriority.INGEST);
+            execute("GET", "/api/locations");
+
+            MockHttpServletResponse response = execute("POST", "/api/locations");
+
+            assertEquals(200, response.getStatus());
+        }
+
+        @Test
+        @DisplayName("エッジケース: 対象外のパスは上限に達していても処理する")
+        void testDoFilter_Exempt() throws Exception {
+            for (int i = 0; i < 4; i++) {
+                gate.acquire(RequestPriority.INGEST);
+            }
+
+            MockHttpServletResponse response = execute("GET", "/api/admission");
+
+            assertEquals(200, response.getStatus());
+            assertEquals(1, handled.get());
+        }
+    }
+
+    private MockHttpServletResponse execute(String method, String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path), response, (req, res) -> handled.incrementAndGet());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+}
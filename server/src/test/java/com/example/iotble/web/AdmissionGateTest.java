@@ -0,0 +1,230 @@
+package com.example.iotble.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.example.iotble.web.AdmissionGate.Outcome;
+
+/**
+ * AdmissionGateのユニットテスト
+ */
+@DisplayName("AdmissionGate テスト")
+class AdmissionGateTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * 処理中の数による受け付けのテスト
+     */
+    @Nested
+    @DisplayName("処理中の数による受け付け")
+    class CapacityTests {
+
+        @Test
+        @DisplayName("正常系: 優先度の低いリクエストから処理中の数の上限に達する")
+        void testAcquire_LimitsByPriority() {
+            AdmissionGate gate = gate(4, 0, 0);
+
+            assertEquals(Outcome.ADMITTED, gate.acquire(RequestPriority.BACKGROUND));
+            assertEquals(Outcome.SHED_CAPACITY, gate.acquire(RequestPriority.BACKGROUND));
+            assertEquals(Outcome.ADMITTED, gate.acquire(RequestPriority.INTERACTIVE));
+            assertEquals(Outcome.SHED_CAPACITY, gate.acquire(RequestPriority.INTERACTIVE));
+            assertEquals(Outcome.ADMITTED, gate.acquire(RequestPriority.INGEST));
+
+            AdmissionGate.Stats stats = gate.getStats();
+            assertEquals(3, stats.inFlight());
+            assertEquals(1, stats.priorities().get(RequestPriority.BACKGROUND).admitted());
+            assertEquals(1, stats.priorities().get(RequestPriority.BACKGROUND).shedCapacity());
+            assertEquals(1, stats.priorities().get(RequestPriority.INTERACTIVE).shedCapacity());
+        }
+
+        @Test
+        @DisplayName("正常系: 処理が終わると枠が空く")
+        void testRelease() {
+            AdmissionGate gate = gate(4, 0, 0);
+            gate.acquire(RequestPriority.BACKGROUND);
+
+            gate.release();
+
+            assertEquals(Outcome.ADMITTED, gate.acquire(RequestPriority.BACKGROUND));
+            assertEquals(1, gate.getStats().inFlight());
+        }
+
+        @Test
+        @DisplayName("境界値: 待ち時間内に枠が空かなければ断る")
+        void testAcquire_TimedOut() {
+            AdmissionGate gate = new AdmissionGate(options(1, 10, 0), System::nanoTime);
+            gate.acquire(RequestPriority.INGEST);
+
+            assertEquals(Outcome.TIMED_OUT, gate.acquire(RequestPriority.INGEST));
+            assertEquals(1, gate.getStats().priorities().get(RequestPriority.INGEST).timedOut());
+        }
+
+        @Test
+        @DisplayName("正常系: 枠が空くと優先度の高い待機から受け付ける")
+        void testAcquire_WakesHigherPriorityFirst() throws Exception {
+            AdmissionGate gate = new AdmissionGate(options(1, 5000, 5000), System::nanoTime);
+            gate.acquire(RequestPriority.INGEST);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<Outcome> interactive = executor.submit(() -> gate.acquire(RequestPriority.INTERACTIVE));
+                awaitWaiting(gate, RequestPriority.INTERACTIVE);
+                Future<Outcome> ingest = executor.submit(() -> gate.acquire(RequestPriority.INGEST));
+                awaitWaiting(gate, RequestPriority.INGEST);
+
+                gate.release();
+
+                assertEquals(Outcome.ADMITTED, ingest.get(5, TimeUnit.SECONDS));
+                assertEquals(1, gate.getStats().priorities().get(RequestPriority.INTERACTIVE).waiting());
+                gate.release();
+                assertEquals(Outcome.ADMITTED, interactive.get(5, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("エッジケース: 並行して受け付けても処理中の数は上限を超えない")
+        void testAcquire_Concurrent() throws Exception {
+            AdmissionGate gate = new AdmissionGate(options(4, 5000, 5000), System::nanoTime);
+            AtomicLong active = new AtomicLong();
+            AtomicLong maxActive = new AtomicLong();
+            ExecutorService executor = Executors.newFixedThreadPool(16);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 16; t++) {
+                    RequestPriority priority = RequestPriority.values()[t % 2];
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 200; i++) {
+                            if (gate.acquire(priority) == Outcome.ADMITTED) {
+                                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                                active.decrementAndGet();
+                                gate.release();
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertTrue(maxActive.get() <= 4, "処理中の数が上限を超えました: " + maxActive.get());
+            assertEquals(0, gate.getStats().inFlight());
+        }
+    }
+
+    /**
+     * キューの待ち時間による受け付けのテスト
+     */
+    @Nested
+    @DisplayName("キューの待ち時間による受け付け")
+    class LatencyTests {
+
+        @Test
+        @DisplayName("正常系: 待ち時間の平均がしきい値を超えると優先度の低いリクエストから断り、登録は断らない")
+        void testAcquire_ShedsByLatency() {
+            AdmissionGate gate = gate(1, 10_000, 0);
+            gate.acquire(RequestPriority.INGEST);
+            // 待機中の登録が 500ms 待ってから受け付けられたことにする
+            CompletableFuture<Outcome> waiting = CompletableFuture.supplyAsync(() -> gate.acquire(RequestPriority.INGEST));
+            awaitWaiting(gate, RequestPriority.INGEST);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+            gate.release();
+            assertEquals(Outcome.ADMITTED, waiting.join());
+            gate.release();
+
+            assertEquals(100.0, gate.getStats().queueLatencyMillis(), 1e-6);
+            assertEquals(Outcome.SHED_LATENCY, gate.acquire(RequestPriority.BACKGROUND));
+            assertEquals(Outcome.ADMITTED, gate.acquire(RequestPriority.INTERACTIVE));
+            gate.release();
+            assertEquals(Outcome.ADMITTED, gate.acquire(RequestPriority.INGEST));
+        }
+
+        @Test
+        @DisplayName("正常系: 待ち時間の平均は時間とともに半減し、優先度の低いリクエストも再び受け付ける")
+        void testAcquire_LatencyDecays() {
+            AdmissionGate gate = gate(1, 10_000, 0);
+            gate.acquire(RequestPriority.INGEST);
+            CompletableFuture<Outcome> waiting = CompletableFuture.supplyAsync(() -> gate.acquire(RequestPriority.INGEST));
+            awaitWaiting(gate, RequestPriority.INGEST);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+            gate.release();
+            waiting.join();
+            gate.release();
+
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(3000));
+
+            assertEquals(12.5, gate.getStats().queueLatencyMillis(), 1e-6);
+            assertEquals(Outcome.ADMITTED, gate.acquire(RequestPriority.BACKGROUND));
+        }
+
+        @Test
+        @DisplayName("正常系: 再試行までの秒数は待ち時間の平均の2倍（最短の秒数以上）")
+        void testRetryAfterSeconds() {
+            AdmissionGate gate = gate(1, 10_000, 0);
+
+            assertEquals(1, gate.retryAfterSeconds(0));
+            assertEquals(5, gate.retryAfterSeconds(5));
+        }
+    }
+
+    @Test
+    @DisplayName("異常系: 割合が範囲外の設定は例外")
+    void testOptions_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> AdmissionGate.Options.builder()
+                .maxConcurrent(10).interactiveShare(0.2).backgroundShare(0.5)
+                .interactiveMaxQueueLatencyMillis(1).backgroundMaxQueueLatencyMillis(1).latencyHalfLifeMillis(1)
+                .build());
+        assertThrows(IllegalArgumentException.class, () -> AdmissionGate.Options.builder()
+                .maxConcurrent(0).interactiveShare(1).backgroundShare(1)
+                .interactiveMaxQueueLatencyMillis(1).backgroundMaxQueueLatencyMillis(1).latencyHalfLifeMillis(1)
+                .build());
+    }
+
+    /**
+     * 軽いリクエストは半分、重いリクエストは4分の1まで受け付ける受け付け制御（時刻はテストで進める）
+     */
+    private AdmissionGate gate(int maxConcurrent, long ingestMaxWaitMillis, long interactiveMaxWaitMillis) {
+        return new AdmissionGate(options(maxConcurrent, ingestMaxWaitMillis, interactiveMaxWaitMillis), clock::get);
+    }
+
+    private static AdmissionGate.Options options(int maxConcurrent, long ingestMaxWaitMillis,
+            long interactiveMaxWaitMillis) {
+        return AdmissionGate.Options.builder()
+                .maxConcurrent(maxConcurrent)
+                .interactiveShare(0.5)
+                .backgroundShare(0.25)
+                .ingestMaxWaitMillis(ingestMaxWaitMillis)
+                .interactiveMaxWaitMillis(interactiveMaxWaitMillis)
+                .backgroundMaxWaitMillis(0)
+                .interactiveMaxQueueLatencyMillis(200)
+                .backgroundMaxQueueLatencyMillis(20)
+                .latencyHalfLifeMillis(1000)
+                .build();
+    }
+
+    private static void awaitWaiting(AdmissionGate gate, RequestPriority priority) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gate.getStats().priorities().get(priority).waiting() == 0) {
+            assertTrue(System.nanoTime() < deadline, "待機が始まりませんでした");
+            Thread.onSpinWait();
+        }
+    }
+}
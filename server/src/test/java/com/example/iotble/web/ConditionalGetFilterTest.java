@@ -0,0 +1,127 @@
+package com.example.iotble.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.iotble.shard.ShardTemplate;
+
+/**
+ * ConditionalGetFilterのユニットテスト
+ */
+@DisplayName("ConditionalGetFilter テスト")
+class ConditionalGetFilterTest {
+
+    private final AtomicInteger rendered = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong(1000);
+    private ConditionalGetFilter filter;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        filter = new ConditionalGetFilter(List.of("/api/locations/recent", "/api/stats"), path -> version.get(),
+                ShardTemplate.direct());
+    }
+
+    /**
+     * ETagの付与のテスト
+     */
+    @Nested
+    @DisplayName("ETagの付与")
+    class EtagTests {
+
+        @Test
+        @DisplayName("正常系: バージョンと圧縮形式から強いETagを付与する")
+        void testEtag_Strong() throws Exception {
+            MockHttpServletResponse plain = execute("GET", "/api/locations/recent", null, null);
+            MockHttpServletResponse gzip = execute("GET", "/api/locations/recent", "gzip", null);
+
+            assertEquals("\"rs-identity\"", plain.getHeader(HttpHeaders.ETAG));
+            assertEquals("\"rs-gzip\"", gzip.getHeader(HttpHeaders.ETAG));
+            assertEquals("no-cache", plain.getHeader(HttpHeaders.CACHE_CONTROL));
+            assertEquals(2, rendered.get());
+        }
+
+        @Test
+        @DisplayName("正常系: バージョンが変わるとETagも変わる")
+        void testEtag_ChangesWithVersion() throws Exception {
+            String before = execute("GET", "/api/stats", null, null).getHeader(HttpHeaders.ETAG);
+            version.incrementAndGet();
+
+            assertNotEquals(before, execute("GET", "/api/stats", null, null).getHeader(HttpHeaders.ETAG));
+        }
+
+        @Test
+        @DisplayName("境界値: 対象外のパスや更新系のメソッドにはETagを付与しない")
+        void testEtag_Skipped() throws Exception {
+            assertNull(execute("GET", "/api/locations", null, null).getHeader(HttpHeaders.ETAG));
+            assertNull(execute("POST", "/api/locations/recent", null, null).getHeader(HttpHeaders.ETAG));
+        }
+    }
+
+    /**
+     * 条件付きGETのテスト
+     */
+    @Nested
+    @DisplayName("条件付きGET")
+    class ConditionalTests {
+
+        @Test
+        @DisplayName("正常系: ETagが一致する場合は応答を作成せずに304を返す")
+        void testNotModified() throws Exception {
+            String etag = execute("GET", "/api/locations/recent", "gzip", null).getHeader(HttpHeaders.ETAG);
+
+            MockHttpServletResponse response = execute("GET", "/api/locations/recent", "gzip", etag);
+
+            assertEquals(304, response.getStatus());
+            assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+            assertEquals(1, rendered.get());
+        }
+
+        @Test
+        @DisplayName("正常系: 複数指定や弱いETagの指定にも一致する")
+        void testNotModified_ListAndWeak() throws Exception {
+            assertEquals(304, execute("GET", "/api/stats", null, "\"other\", W/\"rs-identity\"").getStatus());
+            assertEquals(304, execute("GET", "/api/stats", null, "*").getStatus());
+        }
+
+        @Test
+        @DisplayName("異常系: バージョンや圧縮形式が異なるETagでは応答を作成する")
+        void testModified() throws Exception {
+            String etag = execute("GET", "/api/stats", "gzip", null).getHeader(HttpHeaders.ETAG);
+
+            assertEquals(200, execute("GET", "/api/stats", "deflate", etag).getStatus());
+            version.incrementAndGet();
+            assertEquals(200, execute("GET", "/api/stats", "gzip", etag).getStatus());
+            assertEquals(3, rendered.get());
+        }
+    }
+
+    private MockHttpServletResponse execute(String method, String path, String acceptEncoding, String ifNoneMatch)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> rendered.incrementAndGet());
+        return response;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.iotble.web;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ContentEncodingのユニットテスト
+ */
+@DisplayName("ContentEncoding テスト")
+class ContentEncodingTest {
+
+    /**
+     * Accept-Encoding による選択のテスト
+     */
+    @Nested
+    @DisplayName("圧縮形式の選択")
+    class NegotiateTests {
+
+        @Test
+        @DisplayName("正常系: 同じ重みの場合はgzipを優先する")
+        void testNegotiate_PrefersGzip() {
+            assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("deflate, gzip"));
+            assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("*"));
+        }
+
+        @Test
+        @DisplayName("正常系: 重みの大きい形式を選択する")
+        void testNegotiate_Weights() {
+            assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0.5, deflate"));
+            assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate("gzip;q=0, br"));
+            assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, *"));
+        }
+
+        @Test
+        @DisplayName("境界値: ヘッダーがない場合は圧縮しない")
+        void testNegotiate_NoHeader() {
+            assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate(null));
+            assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate(""));
+        }
+
+        @Test
+        @DisplayName("異常系: すべての形式が拒否された場合はnullを返す")
+        void testNegotiate_NoneAcceptable() {
+            assertNull(ContentEncoding.negotiate("*;q=0"));
+            assertNull(ContentEncoding.negotiate("identity;q=0"));
+        }
+    }
+
+    /**
+     * 圧縮と展開のテスト
+     */
+    @Nested
+    @DisplayName("圧縮と展開")
+    class CodecTests {
+
+        @Test
+        @DisplayName("正常系: 圧縮したデータを展開すると元に戻る")
+        void testEncodeDecode_RoundTrip() throws IOException {
+            byte[] data = "[{\"deviceId\":\"ESP32-001\"}]".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+            for (ContentEncoding encoding : ContentEncoding.values()) {
+                byte[] encoded = encoding.encode(data);
+                assertArrayEquals(data, encoding.decode(new ByteArrayInputStream(encoded)).readAllBytes());
+            }
+        }
+
+        @Test
+        @DisplayName("正常系: Content-Encoding ヘッダーから形式を取得できる")
+        void testFromHeader() {
+            assertEquals(ContentEncoding.GZIP, ContentEncoding.fromHeader("x-gzip"));
+            assertEquals(ContentEncoding.DEFLATE, ContentEncoding.fromHeader("Deflate"));
+            assertEquals(ContentEncoding.IDENTITY, ContentEncoding.fromHeader(null));
+            assertNull(ContentEncoding.fromHeader("br"));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.iotble.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * RequestDecompressionFilterのユニットテスト
+ */
+@DisplayName("RequestDecompressionFilter テスト")
+class RequestDecompressionFilterTest {
+
+    private static final String JSON = "{\"deviceId\":\"ESP32-001\",\"latitude\":35.6812,\"longitude\":139.7671}";
+
+    /**
+     * リクエストボディの展開のテスト
+     */
+    @Nested
+    @DisplayName("リクエストボディの展開")
+    class DecompressionTests {
+
+        @Test
+        @DisplayName("正常系: gzip / deflate のボディを展開して後続の処理に渡す")
+        void testDecompress() throws Exception {
+            for (ContentEncoding encoding : new ContentEncoding[] { ContentEncoding.GZIP, ContentEncoding.DEFLATE }) {
+                for (long limit : new long[] { 1024, 0 }) {
+                    AtomicReference<String> received = new AtomicReference<>();
+                    AtomicReference<HttpServletRequest> forwarded = new AtomicReference<>();
+                    MockHttpServletResponse response = execute(new RequestDecompressionFilter(limit), encoding.getToken(),
+                            encoding.encode(JSON.getBytes(StandardCharsets.UTF_8)), received, forwarded);
+
+                    assertEquals(200, response.getStatus());
+                    assertEquals(JSON, received.get());
+                    assertNull(forwarded.get().getHeader(HttpHeaders.CONTENT_ENCODING));
+                    assertEquals(-1, forwarded.get().getContentLength());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("正常系: 圧縮されていないボディはそのまま渡す")
+        void testDecompress_Identity() throws Exception {
+            AtomicReference<String> received = new AtomicReference<>();
+            execute(new RequestDecompressionFilter(1024), null, JSON.getBytes(StandardCharsets.UTF_8), received,
+                    new AtomicReference<>());
+
+            assertEquals(JSON, received.get());
+        }
+
+        @Test
+        @DisplayName("異常系: 展開後のサイズが上限を超える場合は413を返す")
+        void testDecompress_TooLarge() throws Exception {
+            byte[] bomb = ContentEncoding.GZIP.encode(new byte[100_000]);
+            AtomicReference<String> received = new AtomicReference<>();
+
+            MockHttpServletResponse response = execute(new RequestDecompressionFilter(10_000), "gzip", bomb, received,
+                    new AtomicReference<>());
+
+            assertEquals(413, response.getStatus());
+            assertNull(received.get());
+        }
+
+        @Test
+        @DisplayName("異常系: 対応していない形式は415、壊れた圧縮データは400を返す")
+        void testDecompress_Invalid() throws Exception {
+            byte[] body = JSON.getBytes(StandardCharsets.UTF_8);
+
+            assertEquals(415, execute(new RequestDecompressionFilter(1024), "br", body, new AtomicReference<>(),
+                    new AtomicReference<>()).getStatus());
+            assertEquals(400, execute(new RequestDecompressionFilter(1024), "gzip", body, new AtomicReference<>(),
+                    new AtomicReference<>()).getStatus());
+        }
+    }
+
+    private static MockHttpServletResponse execute(RequestDecompressionFilter filter, String contentEncoding,
+            byte[] body, AtomicReference<String> received, AtomicReference<HttpServletRequest> forwarded)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/locations");
+        if (contentEncoding != null) {
+            request.addHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        }
+        request.setContent(body);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            forwarded.set((HttpServletRequest) req);
+            received.set(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        });
+        return response;
+    }
+}
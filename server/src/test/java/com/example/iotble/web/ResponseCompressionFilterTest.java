@@ -0,0 +1,151 @@
+package com.example.iotble.web;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * ResponseCompressionFilterのユニットテスト
+ */
+@DisplayName("ResponseCompressionFilter テスト")
+class ResponseCompressionFilterTest {
+
+    private static final String BODY = "[" + "{\"deviceId\":\"ESP32-001\",\"latitude\":35.6812},".repeat(100) + "{}]";
+
+    private final AtomicInteger rendered = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong(1);
+    private ResponseCompressionFilter filter;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        filter = new ResponseCompressionFilter(List.of("/api/**"), List.of("/api/locations/recent"), 1024,
+                new CompressedResponseCache(16, 60000), path -> version.get());
+    }
+
+    /**
+     * 圧縮のテスト
+     */
+    @Nested
+    @DisplayName("応答の圧縮")
+    class CompressionTests {
+
+        @Test
+        @DisplayName("正常系: Accept-Encoding に応じてgzipで圧縮する")
+        void testCompress_Gzip() throws Exception {
+            MockHttpServletResponse response = execute("/api/locations", "gzip, deflate");
+
+            assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+            assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+            assertEquals(BODY, decode(ContentEncoding.GZIP, response.getContentAsByteArray()));
+        }
+
+        @Test
+        @DisplayName("正常系: deflateのみ受け入れる場合はdeflateで圧縮する")
+        void testCompress_Deflate() throws Exception {
+            MockHttpServletResponse response = execute("/api/locations", "deflate");
+
+            assertEquals("deflate", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(BODY, decode(ContentEncoding.DEFLATE, response.getContentAsByteArray()));
+        }
+
+        @Test
+        @DisplayName("境界値: 圧縮を受け入れない場合や対象外のパスは圧縮しない")
+        void testCompress_Skipped() throws Exception {
+            assertNull(execute("/api/locations", null).getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertNull(execute("/other", "gzip").getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(BODY, execute("/other", "gzip").getContentAsString());
+        }
+
+        @Test
+        @DisplayName("異常系: 受け入れ可能な形式がない場合は406を返す")
+        void testCompress_NotAcceptable() throws Exception {
+            assertEquals(406, execute("/api/locations", "*;q=0").getStatus());
+        }
+    }
+
+    /**
+     * 圧縮済み応答のキャッシュのテスト
+     */
+    @Nested
+    @DisplayName("圧縮済み応答のキャッシュ")
+    class CacheTests {
+
+        @Test
+        @DisplayName("正常系: データが変わらない間は同じ圧縮済みの応答を返し、応答を作り直さない")
+        void testCache_Hit() throws Exception {
+            MockHttpServletResponse first = execute("/api/locations/recent", "gzip");
+            MockHttpServletResponse second = execute("/api/locations/recent", "gzip");
+
+            assertEquals(1, rendered.get());
+            assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+            assertEquals("gzip", second.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(MediaType.APPLICATION_JSON_VALUE, second.getContentType());
+        }
+
+        @Test
+        @DisplayName("正常系: 圧縮形式ごとに別の応答として保持する")
+        void testCache_PerEncoding() throws Exception {
+            execute("/api/locations/recent", "gzip");
+            MockHttpServletResponse deflated = execute("/api/locations/recent", "deflate");
+
+            assertEquals(2, rendered.get());
+            assertEquals(BODY, decode(ContentEncoding.DEFLATE, deflated.getContentAsByteArray()));
+        }
+
+        @Test
+        @DisplayName("正常系: バージョンが変わると応答を作り直す")
+        void testCache_InvalidatedByVersion() throws Exception {
+            execute("/api/locations/recent", "gzip");
+            version.incrementAndGet();
+            execute("/api/locations/recent", "gzip");
+
+            assertEquals(2, rendered.get());
+        }
+    }
+
+    private MockHttpServletResponse execute(String path, String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                rendered.incrementAndGet();
+                resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                resp.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+        }));
+        return response;
+    }
+
+    private static String decode(ContentEncoding encoding, byte[] body) throws IOException {
+        return new String(encoding.decode(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.iotble.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.iotble.site.SiteTemplate;
+
+/**
+ * SiteFilterのユニットテスト
+ */
+@DisplayName("SiteFilter テスト")
+class SiteFilterTest {
+
+    private final List<String> handledSites = new ArrayList<>();
+    private SiteTemplate siteTemplate;
+    private SiteFilter filter;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put("tokyo", mock(DataSource.class));
+        dataSources.put("osaka", mock(DataSource.class));
+        siteTemplate = new SiteTemplate(List.of("tokyo", "osaka"), dataSources);
+        filter = new SiteFilter(siteTemplate);
+    }
+
+    /**
+     * サイトの決定のテスト
+     */
+    @Nested
+    @DisplayName("サイトの決定")
+    class ResolveTests {
+
+        @Test
+        @DisplayName("正常系: ヘッダー、パラメーター、既定のサイトの順に決める")
+        void testResolve() {
+            MockHttpServletRequest both = request("GET", "/api/locations/recent");
+            both.addHeader(SiteFilter.SITE_HEADER, "osaka");
+            both.setParameter(SiteFilter.SITE_PARAMETER, "tokyo");
+            MockHttpServletRequest parameter = request("GET", "/api/locations/recent");
+            parameter.setParameter(SiteFilter.SITE_PARAMETER, "osaka");
+
+            assertEquals("osaka", filter.resolve(both));
+            assertEquals("osaka", filter.resolve(parameter));
+            assertEquals("tokyo", filter.resolve(request("GET", "/api/locations/recent")));
+        }
+
+        @Test
+        @DisplayName("正常系: 決めたサイトで後続の処理を実行し、応答ヘッダーで返す")
+        void testDoFilter_EntersSite() throws Exception {
+            MockHttpServletResponse response = execute("GET", "/api/locations/recent", "osaka");
+
+            assertEquals(200, response.getStatus());
+            assertEquals("osaka", response.getHeader(SiteFilter.SITE_HEADER));
+            assertEquals(List.of("osaka"), handledSites);
+            assertEquals("tokyo", siteTemplate.currentSite());
+        }
+
+        @Test
+        @DisplayName("異常系: 設定されていないサイトは400を返す")
+        void testDoFilter_UnknownSite() throws Exception {
+            MockHttpServletResponse response = execute("GET", "/api/locations/recent", "nagoya");
+
+            assertEquals(400, response.getStatus());
+            assertTrue(handledSites.isEmpty());
+        }
+    }
+
+    private MockHttpServletResponse execute(String method, String path, String site) throws Exception {
+        MockHttpServletRequest request = request(method, path);
+        request.addHeader(SiteFilter.SITE_HEADER, site);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> handledSites.add(siteTemplate.currentSite()));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.iotble.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.iotble.site.SiteIngestQuota;
+import com.example.iotble.site.SiteTemplate;
+
+import jakarta.servlet.http.HttpServlet;
+
+/**
+ * SiteIngestQuotaFilterのユニットテスト
+ */
+@DisplayName("SiteIngestQuotaFilter テスト")
+class SiteIngestQuotaFilterTest {
+
+    private final List<String> handledSites = new ArrayList<>();
+    private SiteTemplate siteTemplate;
+    private SiteIngestQuota quota;
+    private SiteIngestQuotaFilter filter;
+
+    /**
+     * 各テスト実行前の初期化処理
+     */
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put("tokyo", mock(DataSource.class));
+        dataSources.put("osaka", mock(DataSource.class));
+        siteTemplate = new SiteTemplate(List.of("tokyo", "osaka"), dataSources);
+        quota = new SiteIngestQuota(Map.of("osaka", new SiteIngestQuota.Limit(0.001, 1)));
+        filter = new SiteIngestQuotaFilter(siteTemplate, quota, List.of("POST /api/locations"), 1);
+    }
+
+    /**
+     * 取り込み量の上限のテスト
+     */
+    @Nested
+    @DisplayName("取り込み量の上限")
+    class QuotaTests {
+
+        @Test
+        @DisplayName("異常系: 上限を超えた登録は429と再試行までの秒数を返す")
+        void testDoFilter_QuotaExceeded() throws Exception {
+            assertEquals(200, execute("POST", "/api/locations", "osaka").getStatus());
+
+            MockHttpServletResponse response = execute("POST", "/api/locations", "osaka");
+
+            assertEquals(429, response.getStatus());
+            assertTrue(Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER)) >= 1);
+            assertTrue(response.getContentAsString().contains("\"site\":\"osaka\""));
+            assertEquals(1, handledSites.size());
+        }
+
+        @Test
+        @DisplayName("正常系: 上限は他のサイトや登録以外のリクエストに影響しない")
+        void testDoFilter_QuotaIsolated() throws Exception {
+            execute("POST", "/api/locations", "osaka");
+
+            assertEquals(200, execute("POST", "/api/locations", "tokyo").getStatus());
+            assertEquals(200, execute("GET", "/api/locations", "osaka").getStatus());
+            assertNull(execute("GET", "/api/locations", "osaka").getHeader(HttpHeaders.RETRY_AFTER));
+        }
+
+        @Test
+        @DisplayName("正常系: 受け付け制御で断られた登録は取り込み枠を使わない")
+        void testDoFilter_RejectedByAdmission() throws Exception {
+            AdmissionGate gate = new AdmissionGate(AdmissionGate.Options.builder()
+                    .maxConcurrent(1)
+                    .interactiveShare(1.0)
+                    .backgroundShare(1.0)
+                    .ingestMaxWaitMillis(0)
+                    .interactiveMaxWaitMillis(0)
+                    .backgroundMaxWaitMillis(0)
+                    .interactiveMaxQueueLatencyMillis(100)
+                    .backgroundMaxQueueLatencyMillis(100)
+                    .latencyHalfLifeMillis(1000)
+                    .build());
+            AdmissionControlFilter admission = new AdmissionControlFilter(gate, List.of("POST /api/locations"),
+                    List.of(), List.of(), 1, 1);
+            SiteFilter siteFilter = new SiteFilter(siteTemplate);
+            gate.acquire(RequestPriority.INGEST);
+
+            MockHttpServletResponse busy = new MockHttpServletResponse();
+            new MockFilterChain(new HttpServlet() {
+            }, siteFilter, admission, filter).doFilter(osakaRequest("POST", "/api/locations"), busy);
+            gate.release();
+
+            assertEquals(503, busy.getStatus());
+            assertEquals(0, quota.getStats().get("osaka").rejected());
+            assertEquals(0, quota.getStats().get("osaka").admitted());
+            assertEquals(200, execute("POST", "/api/locations", "osaka").getStatus());
+        }
+    }
+
+    private MockHttpServletResponse execute(String method, String path, String site) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try (SiteTemplate.Scope scope = siteTemplate.enter(site)) {
+            filter.doFilter(new MockHttpServletRequest(method, path), response,
+                    (req, res) -> handledSites.add(siteTemplate.currentSite()));
+        }
+        return response;
+    }
+
+    private static MockHttpServletRequest osakaRequest(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.addHeader(SiteFilter.SITE_HEADER, "osaka");
+        return request;
+    }
+}